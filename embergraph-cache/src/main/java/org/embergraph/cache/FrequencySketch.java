@@ -0,0 +1,194 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * A count-min sketch of the access frequency of the records (by file offset) with periodic aging.
+ * This is the frequency estimate used by the TinyLFU admission policy of the read cache of
+ * the write cache service. Any other cache whose keys can be reduced to a <code>long</code>
+ * hash may use it for the same purpose.
+ *
+ * <p>Each counter is 4 bits, so the estimated frequency saturates at 15. Each record maps onto one
+ * counter in each of 4 rows, and its frequency is estimated as the minimum of those counters.
+ * Once the #of increments reaches 10x the width of the sketch, every counter is halved. Records
+ * which were hot a long time ago therefore lose their advantage over the records which are hot
+ * now.
+ *
+ * <p>The sketch is lock-free, so it may be updated on every read without serializing the readers.
+ * Each counter is updated with a compare-and-swap on its word. An increment which races with the
+ * aging of the counters may be halved or not, which does not matter for a frequency estimate.
+ */
+public class FrequencySketch {
+
+  /** Mask to halve the 16 counters in a word (clears the bit shifted in from the next counter). */
+  private static final long RESET_MASK = 0x7777777777777777L;
+
+  /** The seeds for the hash function of each row. */
+  private static final long[] SEED = {
+    0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+  };
+
+  /** The maximum value of a counter. */
+  public static final int MAX_FREQUENCY = 15;
+
+  /** The counters (16 per word). */
+  private final AtomicLongArray table;
+
+  private final int tableMask;
+
+  /** The #of increments after which the counters are halved. */
+  private final int sampleSize;
+
+  /** The #of increments since the counters were last halved. */
+  private final AtomicInteger size = new AtomicInteger();
+
+  /*
+   * @param maximumSize The expected #of distinct records in the cache. The sketch is sized to
+   *     hold one word (16 counters) per record, rounded up to a power of two.
+   */
+  public FrequencySketch(final int maximumSize) {
+
+    if (maximumSize <= 0) throw new IllegalArgumentException();
+
+    final int n = Integer.highestOneBit(Math.max(16, Math.min(maximumSize, 1 << 24)) * 2 - 1);
+
+    this.table = new AtomicLongArray(n);
+
+    this.tableMask = n - 1;
+
+    this.sampleSize = 10 * n;
+  }
+
+  /*
+   * Return the estimated #of accesses to the record.
+   *
+   * @param offset The file offset of the record.
+   */
+  public int frequency(final long offset) {
+
+    final int h = spread(offset);
+
+    final int start = (h & 3) << 2;
+
+    int freq = Integer.MAX_VALUE;
+
+    for (int i = 0; i < 4; i++) {
+
+      final int index = indexOf(h, i);
+
+      final int count = (int) ((table.get(index) >>> ((start + i) << 2)) & 0xfL);
+
+      freq = Math.min(freq, count);
+    }
+
+    return freq;
+  }
+
+  /*
+   * Record an access to the record.
+   *
+   * @param offset The file offset of the record.
+   */
+  public void increment(final long offset) {
+
+    final int h = spread(offset);
+
+    final int start = (h & 3) << 2;
+
+    boolean added = false;
+
+    for (int i = 0; i < 4; i++) {
+
+      added |= incrementAt(indexOf(h, i), start + i);
+    }
+
+    if (added && size.incrementAndGet() == sampleSize) {
+
+      reset();
+    }
+  }
+
+  /** Increment the counter at the given index and offset iff it is not saturated. */
+  private boolean incrementAt(final int i, final int j) {
+
+    final int offset = j << 2;
+
+    final long mask = 0xfL << offset;
+
+    while (true) {
+
+      final long word = table.get(i);
+
+      if ((word & mask) == mask) {
+
+        // Saturated.
+        return false;
+      }
+
+      if (table.compareAndSet(i, word, word + (1L << offset))) {
+
+        return true;
+      }
+    }
+  }
+
+  /*
+   * Halve all counters. This is done by the thread whose increment reached the sample size, so only
+   * one thread ages the counters at a time.
+   */
+  private void reset() {
+
+    for (int i = 0; i < table.length(); i++) {
+
+      long word;
+
+      do {
+
+        word = table.get(i);
+
+      } while (!table.compareAndSet(i, word, (word >>> 1) & RESET_MASK));
+    }
+
+    size.addAndGet(-(sampleSize >>> 1));
+  }
+
+  /** The index of the word in the table for the i-th row. */
+  private int indexOf(final int item, final int i) {
+
+    long hash = (item + SEED[i]) * SEED[i];
+
+    hash += hash >>> 32;
+
+    return ((int) hash) & tableMask;
+  }
+
+  /** Spread the bits of the file offset (which is a multiple of the allocation size). */
+  private static int spread(final long offset) {
+
+    final long h = offset * 0x9E3779B97F4A7C15L;
+
+    int x = (int) (h ^ (h >>> 32));
+
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+
+    return (x >>> 16) ^ x;
+  }
+}
@@ -68,6 +68,9 @@ public class TestAll extends TestCase {
     // Test cache semantics with weak/soft reference values.
     suite.addTestSuite(TestWeakValueCache.class);
 
+    // Test the frequency sketch used by the cache admission policies.
+    suite.addTestSuite(TestFrequencySketch.class);
+
     // BLZG-1497 moved to org.embergraph.cache.lru
     // suite.addTestSuite(TestStoreAndAddressLRUCache.class);
 
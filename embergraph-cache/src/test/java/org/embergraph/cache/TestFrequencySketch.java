@@ -0,0 +1,165 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.cache;
+
+import junit.framework.TestCase;
+
+/*
+ * Test suite for the {@link FrequencySketch} used by the TinyLFU admission policy of the read
+ * cache.
+ */
+public class TestFrequencySketch extends TestCase {
+
+  /** The minimum estimated frequency for admission to the read cache of the write cache service. */
+  private static final int ADMISSION_FREQUENCY = 2;
+
+  public TestFrequencySketch() {}
+
+  public TestFrequencySketch(String name) {
+    super(name);
+  }
+
+  public void test_ctor_correctRejection() {
+
+    try {
+      new FrequencySketch(0);
+      fail("Expecting: " + IllegalArgumentException.class);
+    } catch (IllegalArgumentException ex) {
+      // ignore
+    }
+  }
+
+  /** The estimate is never less than the #of accesses (until the counters are aged). */
+  public void test_frequency() {
+
+    final FrequencySketch sketch = new FrequencySketch(1024);
+
+    final long offset = 8192L;
+
+    assertEquals(0, sketch.frequency(offset));
+
+    for (int i = 1; i <= 5; i++) {
+
+      sketch.increment(offset);
+
+      assertTrue(sketch.frequency(offset) >= i);
+    }
+  }
+
+  /** The estimate saturates at {@link FrequencySketch#MAX_FREQUENCY}. */
+  public void test_saturation() {
+
+    final FrequencySketch sketch = new FrequencySketch(1024);
+
+    final long offset = 64L;
+
+    for (int i = 0; i < 2 * FrequencySketch.MAX_FREQUENCY; i++) {
+
+      sketch.increment(offset);
+    }
+
+    assertEquals(FrequencySketch.MAX_FREQUENCY, sketch.frequency(offset));
+  }
+
+  /** No increments are lost when several threads update the sketch concurrently. */
+  public void test_concurrentIncrement() throws Exception {
+
+    final FrequencySketch sketch = new FrequencySketch(1024);
+
+    final int nthreads = 4;
+
+    final int noffsets = 50;
+
+    // Note: Less than the sample size, so the counters are not aged.
+    final int nincrements = 10;
+
+    final Thread[] threads = new Thread[nthreads];
+
+    for (int t = 0; t < nthreads; t++) {
+
+      threads[t] =
+          new Thread(
+              () -> {
+                for (int j = 0; j < nincrements; j++) {
+                  for (int i = 0; i < noffsets; i++) {
+                    sketch.increment(i * 128L);
+                  }
+                }
+              });
+
+      threads[t].start();
+    }
+
+    for (Thread t : threads) {
+
+      t.join();
+    }
+
+    for (int i = 0; i < noffsets; i++) {
+
+      assertEquals(FrequencySketch.MAX_FREQUENCY, sketch.frequency(i * 128L));
+    }
+  }
+
+  /*
+   * A scan over many records accessed once each does not make those records look as frequent as
+   * the records which are accessed repeatedly, and eventually ages the frequent records.
+   */
+  public void test_scanResistance() {
+
+    final int size = 1024;
+
+    final FrequencySketch sketch = new FrequencySketch(size);
+
+    final long hot = 1L << 20;
+
+    for (int i = 0; i < 10; i++) {
+
+      sketch.increment(hot);
+    }
+
+    int nfrequent = 0;
+
+    // Note: Less than the sample size, so the counters are not aged.
+    final int nscan = 2 * size;
+
+    for (int i = 0; i < nscan; i++) {
+
+      final long offset = (2L << 20) + i * 128L;
+
+      sketch.increment(offset);
+
+      if (sketch.frequency(offset) >= ADMISSION_FREQUENCY) {
+        nfrequent++;
+      }
+    }
+
+    assertTrue(sketch.frequency(hot) >= 10);
+
+    // Only a few of the scanned records collide with enough other records to look frequent.
+    assertTrue("nfrequent=" + nfrequent, nfrequent < nscan / 10);
+
+    // A longer scan ages the counters.
+    for (int i = 0; i < 20 * size * 16; i++) {
+
+      sketch.increment((3L << 20) + i * 128L);
+    }
+
+    assertTrue(sketch.frequency(hot) < 10);
+  }
+}
@@ -84,6 +84,9 @@ public class TestAll extends TestCase {
     // test suite for query deadline ordering semantics.
     suite.addTestSuite(TestQueryDeadlineOrder.class);
 
+    // test suite for the weighted fair scheduler for chunk tasks.
+    suite.addTestSuite(TestChunkTaskScheduler.class);
+
     // test suite for query evaluation (basic JOINs).
     suite.addTestSuite(TestQueryEngine.class);
 
@@ -0,0 +1,237 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.bop.engine;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.UUID;
+import junit.framework.TestCase2;
+
+/*
+ * Test suite for the {@link ChunkTaskScheduler}. The tests use an executor which simply collects
+ * the dispatched tasks so the tests can run them one at a time in the order in which they were
+ * dispatched.
+ */
+public class TestChunkTaskScheduler extends TestCase2 {
+
+  public TestChunkTaskScheduler() {}
+
+  public TestChunkTaskScheduler(final String name) {
+    super(name);
+  }
+
+  /** The dispatched tasks which have not been run yet. */
+  private LinkedList<Runnable> pending;
+
+  /** The labels of the tasks in the order in which they were run. */
+  private List<String> ran;
+
+  private ChunkTaskScheduler newScheduler(final int parallelism) {
+
+    pending = new LinkedList<>();
+
+    ran = new LinkedList<>();
+
+    return new ChunkTaskScheduler(r -> pending.add(r), parallelism);
+  }
+
+  /** Return a task which records its label when it is run. */
+  private Runnable task(final String label) {
+
+    return () -> ran.add(label);
+  }
+
+  /** Run the next dispatched task. */
+  private void runNext() {
+
+    pending.removeFirst().run();
+  }
+
+  /** The #of running tasks is bounded by the parallelism for a single query. */
+  public void test_parallelism() {
+
+    final ChunkTaskScheduler s = newScheduler(2);
+
+    final UUID a = UUID.randomUUID();
+
+    for (int i = 0; i < 5; i++) {
+      s.execute(a, 1 /* priority */, task("a" + i));
+    }
+
+    assertEquals(2, pending.size());
+    assertEquals(2, s.getRunningCount());
+    assertEquals(3, s.getPendingCount());
+
+    runNext();
+
+    assertEquals(2, pending.size());
+    assertEquals(2, s.getRunningCount());
+    assertEquals(2, s.getPendingCount());
+
+    while (!pending.isEmpty()) runNext();
+
+    assertEquals(0, s.getRunningCount());
+    assertEquals(0, s.getPendingCount());
+    assertEquals(5, ran.size());
+
+    // The tasks for a query are run in the order in which they were scheduled.
+    assertEquals("[a0, a1, a2, a3, a4]", ran.toString());
+  }
+
+  /*
+   * A query without any running task is dispatched immediately even if the limit on the #of
+   * running tasks has been reached.
+   */
+  public void test_progressGuarantee() {
+
+    final ChunkTaskScheduler s = newScheduler(1);
+
+    final UUID a = UUID.randomUUID();
+
+    final UUID b = UUID.randomUUID();
+
+    for (int i = 0; i < 10; i++) {
+      s.execute(a, 1 /* priority */, task("a" + i));
+    }
+
+    assertEquals(1, pending.size());
+
+    s.execute(b, 1 /* priority */, task("b0"));
+
+    assertEquals(2, pending.size());
+
+    runNext();
+    runNext();
+
+    assertEquals("[a0, b0]", ran.toString());
+  }
+
+  /* The queries share the slots in proportion to their priorities. */
+  public void test_priority() {
+
+    final ChunkTaskScheduler s = newScheduler(4);
+
+    final UUID a = UUID.randomUUID();
+
+    final UUID b = UUID.randomUUID();
+
+    for (int i = 0; i < 100; i++) {
+      s.execute(a, 1 /* priority */, task("a"));
+    }
+
+    for (int i = 0; i < 100; i++) {
+      s.execute(b, 3 /* priority */, task("b"));
+    }
+
+    // Run the tasks dispatched before the scheduler reached steady state.
+    for (int i = 0; i < 5; i++) runNext();
+
+    ran.clear();
+
+    for (int i = 0; i < 40; i++) runNext();
+
+    int na = 0, nb = 0;
+
+    for (String label : ran) {
+      if (label.equals("a")) na++;
+      else nb++;
+    }
+
+    assertEquals(40, na + nb);
+
+    // Expect roughly 3:1.
+    assertTrue("na=" + na + ", nb=" + nb, nb >= 27 && nb <= 33);
+  }
+
+  /*
+   * A query is not credited for the time during which it had no tasks, so a query which starts
+   * after another query has been running for a while shares the slots rather than monopolizing
+   * them.
+   */
+  public void test_idleQueryNotCredited() {
+
+    final ChunkTaskScheduler s = newScheduler(1);
+
+    final UUID a = UUID.randomUUID();
+
+    final UUID b = UUID.randomUUID();
+
+    for (int i = 0; i < 100; i++) {
+      s.execute(a, 1 /* priority */, task("a"));
+    }
+
+    for (int i = 0; i < 50; i++) runNext();
+
+    for (int i = 0; i < 50; i++) {
+      s.execute(b, 1 /* priority */, task("b"));
+    }
+
+    ran.clear();
+
+    for (int i = 0; i < 20; i++) runNext();
+
+    int na = 0;
+
+    for (String label : ran) {
+      if (label.equals("a")) na++;
+    }
+
+    assertTrue("na=" + na, na >= 8 && na <= 12);
+  }
+
+  /* A blocked task releases its slot until it is unblocked. */
+  public void test_blocking() {
+
+    final ChunkTaskScheduler s = newScheduler(1);
+
+    final UUID a = UUID.randomUUID();
+
+    s.execute(
+        a,
+        1 /* priority */,
+        () -> {
+          assertEquals(0, pending.size());
+          s.beginBlocking();
+          // The next task was dispatched while this one was blocked.
+          assertEquals(1, pending.size());
+          assertEquals(1, s.getRunningCount());
+          s.endBlocking();
+          assertEquals(2, s.getRunningCount());
+          ran.add("a0");
+        });
+
+    s.execute(a, 1 /* priority */, task("a1"));
+
+    assertEquals(1, pending.size());
+
+    runNext();
+
+    assertEquals(1, s.getRunningCount());
+
+    runNext();
+
+    assertEquals(0, s.getRunningCount());
+
+    assertEquals("[a0, a1]", ran.toString());
+
+    // NOP when not invoked from a dispatched task.
+    s.beginBlocking();
+    s.endBlocking();
+    assertEquals(0, s.getRunningCount());
+  }
+}
@@ -48,6 +48,10 @@ public class TestAll extends TestCase {
 
     // Test suite for the guts of the JVM hash join logic.
     suite.addTestSuite(TestJVMHashJoinUtility.class);
+    suite.addTestSuite(TestJVMPartitionedHashJoinUtility.class);
+
+    // Test suite for the sideways information passing filters.
+    suite.addTestSuite(TestSIPFilter.class);
 
     // Test suite for the guts of the HTree hash join logic.
     suite.addTestSuite(TestHTreeHashJoinUtility.class);
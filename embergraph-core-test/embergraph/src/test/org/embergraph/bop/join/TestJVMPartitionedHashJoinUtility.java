@@ -0,0 +1,236 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.bop.join;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.embergraph.bop.BOp;
+import org.embergraph.bop.Constant;
+import org.embergraph.bop.IBindingSet;
+import org.embergraph.bop.IConstant;
+import org.embergraph.bop.IVariable;
+import org.embergraph.bop.NV;
+import org.embergraph.bop.PipelineOp;
+import org.embergraph.bop.Var;
+import org.embergraph.bop.bindingSet.ListBindingSet;
+import org.embergraph.bop.engine.BOpStats;
+import org.embergraph.striterator.Chunkerator;
+
+/*
+ * Test suite for the {@link JVMHashJoinUtility} using a partitioned hash index. The inherited tests
+ * are run against a partitioned hash index. The tests declared here use enough solutions for the
+ * partitions to be built and probed concurrently and compare the results with those of an
+ * unpartitioned hash index.
+ *
+ * @see JVMHashJoinAnnotations#PARTITION_COUNT
+ */
+public class TestJVMPartitionedHashJoinUtility extends TestJVMHashJoinUtility {
+
+  /** */
+  public TestJVMPartitionedHashJoinUtility() {}
+
+  /** @param name */
+  public TestJVMPartitionedHashJoinUtility(String name) {
+    super(name);
+  }
+
+  /** The #of partitions. */
+  private static final int PARTITION_COUNT = 4;
+
+  private ExecutorService service;
+
+  /** The #of tasks handed off to the {@link #service}. */
+  private final AtomicInteger ntasks = new AtomicInteger();
+
+  @Override
+  protected void setUp() throws Exception {
+
+    super.setUp();
+
+    service = Executors.newCachedThreadPool();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+
+    if (service != null) {
+
+      service.shutdownNow();
+
+      service = null;
+    }
+
+    super.tearDown();
+  }
+
+  @Override
+  protected JVMHashJoinUtility newHashJoinUtility(
+      final PipelineOp op, final JoinTypeEnum joinType) {
+
+    // Note: MockPipelineOp can not be cloned, so a new operator is created for the partitions.
+    final List<NV> anns = new LinkedList<>();
+
+    for (Map.Entry<String, Object> e : op.annotations().entrySet()) {
+
+      anns.add(new NV(e.getKey(), e.getValue()));
+    }
+
+    anns.add(new NV(JVMHashJoinAnnotations.PARTITION_COUNT, PARTITION_COUNT));
+
+    return new JVMHashJoinUtility(
+        new MockPipelineOp(BOp.NOARGS, anns.toArray(new NV[0])),
+        joinType,
+        r -> {
+          ntasks.incrementAndGet();
+          service.execute(r);
+        });
+  }
+
+  public void test_partitionedHashJoin_normal() {
+
+    doPartitionedHashJoinTest(JoinTypeEnum.Normal);
+  }
+
+  public void test_partitionedHashJoin_optional() {
+
+    doPartitionedHashJoinTest(JoinTypeEnum.Optional);
+  }
+
+  public void test_partitionedHashJoin_exists() {
+
+    doPartitionedHashJoinTest(JoinTypeEnum.Exists);
+  }
+
+  public void test_partitionedHashJoin_notExists() {
+
+    doPartitionedHashJoinTest(JoinTypeEnum.NotExists);
+  }
+
+  /*
+   * Run the same join against a partitioned and an unpartitioned hash index and verify that the
+   * same solutions are produced (in any order).
+   */
+  private void doPartitionedHashJoinTest(final JoinTypeEnum joinType) {
+
+    final IVariable<?> x = Var.var("x");
+    final IVariable<?> y = Var.var("y");
+    final IVariable<?> z = Var.var("z");
+
+    final int n = JVMHashJoinUtility.MIN_PARTITIONED_CHUNK_SIZE * 3;
+
+    // The right solutions (the hash index). Some do not bind the join variable.
+    final List<IBindingSet> right = new LinkedList<>();
+
+    for (int i = 0; i < n; i++) {
+
+      right.add(
+          i % 100 == 0
+              ? new ListBindingSet(new IVariable[] {y}, new IConstant[] {new Constant<>(i)})
+              : new ListBindingSet(
+                  new IVariable[] {x, y},
+                  new IConstant[] {new Constant<>(i % 1000), new Constant<>(i)}));
+    }
+
+    // The left solutions (the pipeline). Half of them do not join.
+    final List<IBindingSet> left = new LinkedList<>();
+
+    for (int i = 0; i < n; i++) {
+
+      left.add(
+          i % 77 == 0
+              ? new ListBindingSet(new IVariable[] {z}, new IConstant[] {new Constant<>(i)})
+              : new ListBindingSet(
+                  new IVariable[] {x, z},
+                  new IConstant[] {new Constant<>(i % 2000), new Constant<>(i)}));
+    }
+
+    final PipelineOp op =
+        new MockPipelineOp(
+            BOp.NOARGS,
+            new NV(HashJoinAnnotations.JOIN_VARS, new IVariable[] {x}),
+            new NV(JoinAnnotations.SELECT, null),
+            new NV(JoinAnnotations.CONSTRAINTS, null));
+
+    final TestBuffer<IBindingSet> expected =
+        doJoin(new JVMHashJoinUtility(op, joinType), joinType, left, right);
+
+    ntasks.set(0);
+
+    final TestBuffer<IBindingSet> actual =
+        doJoin(newHashJoinUtility(op, joinType), joinType, left, right);
+
+    // The partitions were built and probed by the executor.
+    assertTrue(ntasks.get() > 0);
+
+    assertEquals(expected.size(), actual.size());
+
+    final List<IBindingSet> tmp = new LinkedList<>();
+
+    final Iterator<IBindingSet> itr = expected.iterator();
+
+    while (itr.hasNext()) tmp.add(itr.next());
+
+    assertSameSolutionsAnyOrder(tmp.toArray(new IBindingSet[0]), actual.iterator());
+  }
+
+  private TestBuffer<IBindingSet> doJoin(
+      final JVMHashJoinUtility state,
+      final JoinTypeEnum joinType,
+      final List<IBindingSet> left,
+      final List<IBindingSet> right) {
+
+    try {
+
+      state.acceptSolutions(
+          new Chunkerator<>(right.iterator(), right.size() /* chunkSize */, IBindingSet.class),
+          new BOpStats());
+
+      final TestBuffer<IBindingSet> outputBuffer = new TestBuffer<>();
+
+      state.hashJoin(
+          new Chunkerator<>(left.iterator(), left.size() /* chunkSize */, IBindingSet.class),
+          null /* stats */,
+          outputBuffer);
+
+      switch (joinType) {
+        case Normal:
+          break;
+        case Optional:
+        case NotExists:
+          state.outputOptionals(outputBuffer);
+          break;
+        case Exists:
+          state.outputJoinSet(outputBuffer);
+          break;
+        default:
+          throw new AssertionError();
+      }
+
+      return outputBuffer;
+
+    } finally {
+
+      state.release();
+    }
+  }
+}
@@ -0,0 +1,306 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.bop.join;
+
+import cutthecrap.utils.striterators.SingleValueIterator;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.FutureTask;
+import junit.framework.TestCase2;
+import org.embergraph.bop.BOp;
+import org.embergraph.bop.BOpContext;
+import org.embergraph.bop.Constant;
+import org.embergraph.bop.IBindingSet;
+import org.embergraph.bop.IConstant;
+import org.embergraph.bop.IPredicate.Annotations;
+import org.embergraph.bop.IVariable;
+import org.embergraph.bop.IVariableOrConstant;
+import org.embergraph.bop.NV;
+import org.embergraph.bop.NamedSolutionSetRefUtility;
+import org.embergraph.bop.PipelineOp;
+import org.embergraph.bop.Var;
+import org.embergraph.bop.ap.E;
+import org.embergraph.bop.ap.Predicate;
+import org.embergraph.bop.ap.R;
+import org.embergraph.bop.bindingSet.ListBindingSet;
+import org.embergraph.bop.controller.INamedSolutionSetRef;
+import org.embergraph.bop.engine.AbstractQueryEngineTestCase;
+import org.embergraph.bop.engine.BOpStats;
+import org.embergraph.bop.engine.BlockingBufferWithStats;
+import org.embergraph.bop.engine.MockRunningQuery;
+import org.embergraph.bop.solutions.MockQueryContext;
+import org.embergraph.journal.BufferMode;
+import org.embergraph.journal.ITx;
+import org.embergraph.journal.Journal;
+import org.embergraph.relation.accesspath.IBlockingBuffer;
+import org.embergraph.relation.accesspath.ThickAsynchronousIterator;
+import org.embergraph.striterator.ChunkedArrayIterator;
+
+/*
+ * Test suite for the {@link SIPFilter} and its use by the {@link PipelineJoin}.
+ *
+ * @see IPredicate.Annotations#SIP_FILTERS
+ */
+public class TestSIPFilter extends TestCase2 {
+
+  /** */
+  public TestSIPFilter() {}
+
+  /** @param name */
+  public TestSIPFilter(String name) {
+    super(name);
+  }
+
+  @Override
+  public Properties getProperties() {
+
+    final Properties p = new Properties(super.getProperties());
+
+    p.setProperty(Journal.Options.BUFFER_MODE, BufferMode.Transient.toString());
+
+    return p;
+  }
+
+  private static final String namespace = "ns";
+
+  private Journal jnl;
+
+  @Override
+  public void setUp() throws Exception {
+
+    super.setUp();
+
+    jnl = new Journal(getProperties());
+
+    // create the relation.
+    final R rel = new R(jnl, namespace, ITx.UNISOLATED, new Properties());
+    rel.create();
+
+    // data to insert.
+    final E[] a = {
+      new E("John", "Mary"), //
+      new E("Mary", "Paul"), //
+      new E("Paul", "Leon"), //
+      new E("Leon", "Paul"), //
+      new E("Mary", "John"), //
+    };
+
+    // insert data (the records are not pre-sorted).
+    rel.insert(new ChunkedArrayIterator<>(a.length, a, null /* keyOrder */));
+
+    // Do commit since not scale-out.
+    jnl.commit();
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+
+    if (jnl != null) {
+      jnl.destroy();
+      jnl = null;
+    }
+
+    super.tearDown();
+  }
+
+  /** Verify that there are no false negatives and that the false positive rate is reasonable. */
+  public void test_filter() {
+
+    final int n = 10000;
+
+    final SIPFilter filter = new SIPFilter(n);
+
+    assertTrue(filter.size() >= n * SIPFilter.BITS_PER_VALUE);
+
+    for (int i = 0; i < n; i++) filter.add(i);
+
+    for (int i = 0; i < n; i++) assertTrue(filter.contains(i));
+
+    int nfalsePositives = 0;
+
+    for (int i = n; i < 2 * n; i++) if (filter.contains(i)) nfalsePositives++;
+
+    assertTrue("falsePositives=" + nfalsePositives, nfalsePositives < n / 20);
+  }
+
+  /** An empty filter rejects everything. */
+  public void test_filter_empty() {
+
+    final SIPFilter filter = new SIPFilter(0L);
+
+    assertEquals(SIPFilter.MIN_BITS, filter.size());
+
+    assertFalse(filter.contains("John"));
+  }
+
+  /** No filter may be built for a variable which is not bound in every solution. */
+  public void test_newInstance_unboundVariable() {
+
+    final IVariable<?> x = Var.var("x");
+    final IVariable<?> y = Var.var("y");
+
+    final JVMHashJoinUtility state =
+        newHashIndex(
+            new IVariable[] {x},
+            new ListBindingSet(
+                new IVariable[] {x, y},
+                new IConstant[] {new Constant<>("John"), new Constant<>("Mary")}),
+            new ListBindingSet(new IVariable[] {x}, new IConstant[] {new Constant<>("Leon")}));
+
+    try {
+
+      final SIPFilter[] filters = SIPFilter.newInstance(state, new IVariable[] {x, y});
+
+      assertEquals(2, filters.length);
+
+      assertNotNull(filters[0]);
+      assertTrue(filters[0].contains("John"));
+      assertTrue(filters[0].contains("Leon"));
+
+      // [y] is not bound in all solutions.
+      assertNull(filters[1]);
+
+    } finally {
+
+      state.release();
+    }
+  }
+
+  /*
+   * Unit test for a pipeline join whose access path is filtered by the {@link SIPFilter} published
+   * for a named solution set. The access path binds (y,x). Only the tuples whose [x] is in the
+   * named solution set are visited by the join.
+   */
+  public void test_pipelineJoin_sipFilter() {
+
+    final IVariable<?> x = Var.var("x");
+    final IVariable<?> y = Var.var("y");
+
+    final UUID queryId = UUID.randomUUID();
+
+    final INamedSolutionSetRef namedSetRef =
+        NamedSolutionSetRefUtility.newInstance(queryId, "set", new IVariable[] {x});
+
+    final MockQueryContext queryContext = new MockQueryContext(queryId);
+
+    final JVMHashJoinUtility state =
+        newHashIndex(
+            new IVariable[] {x},
+            new ListBindingSet(new IVariable[] {x}, new IConstant[] {new Constant<>("John")}),
+            new ListBindingSet(new IVariable[] {x}, new IConstant[] {new Constant<>("Leon")}));
+
+    try {
+
+      assertEquals(
+          1,
+          SIPFilter.publish(
+              queryContext.getAttributes(), namedSetRef, state, new IVariable[] {x}));
+
+      final Predicate<E> predOp =
+          new Predicate<>(
+              new IVariableOrConstant[] {y, x},
+              NV.asMap(
+                  new NV(Predicate.Annotations.RELATION_NAME, new String[] {namespace}),
+                  new NV(Predicate.Annotations.BOP_ID, 3),
+                  new NV(Annotations.TIMESTAMP, ITx.READ_COMMITTED),
+                  new NV(Annotations.SIP_FILTERS, new INamedSolutionSetRef[] {namedSetRef})));
+
+      final PipelineJoin<E> query =
+          new PipelineJoin<>(
+              new BOp[] {}, // args
+              new NV(Predicate.Annotations.BOP_ID, 2),
+              new NV(PipelineJoin.Annotations.PREDICATE, predOp));
+
+      // the expected solutions.
+      final IBindingSet[] expected =
+          new IBindingSet[] {
+            new ListBindingSet(
+                new IVariable[] {y, x},
+                new IConstant[] {new Constant<>("Mary"), new Constant<>("John")}),
+            new ListBindingSet(
+                new IVariable[] {y, x},
+                new IConstant[] {new Constant<>("Paul"), new Constant<>("Leon")}),
+          };
+
+      final PipelineJoinStats stats = query.newStats();
+
+      final IBlockingBuffer<IBindingSet[]> sink = new BlockingBufferWithStats<>(query, stats);
+
+      final BOpContext<IBindingSet> context =
+          new BOpContext<>(
+              new MockRunningQuery(null /* fed */, jnl /* indexManager */, queryContext),
+              -1 /* partitionId */,
+              stats,
+              query /* op */,
+              false /* lastInvocation */,
+              new ThickAsynchronousIterator<>(
+                  new IBindingSet[][] {new IBindingSet[] {new ListBindingSet()}}),
+              sink,
+              null /* sink2 */);
+
+      final FutureTask<Void> ft = query.eval(context);
+
+      jnl.getExecutorService().execute(ft);
+
+      AbstractQueryEngineTestCase.assertSameSolutionsAnyOrder(expected, sink.iterator(), ft);
+
+      // The other tuples were dropped by the access path.
+      assertEquals(1L, stats.accessPathCount.get());
+      assertEquals(2L, stats.accessPathUnitsIn.get());
+
+    } finally {
+
+      state.release();
+
+      queryContext.close();
+    }
+  }
+
+  /** Return a hash index on the join variables for the given solutions. */
+  private JVMHashJoinUtility newHashIndex(
+      final IVariable<?>[] joinVars, final IBindingSet... solutions) {
+
+    final JVMHashJoinUtility state =
+        new JVMHashJoinUtility(
+            new MockPipelineOp(
+                BOp.NOARGS,
+                new NV(HashJoinAnnotations.JOIN_VARS, joinVars),
+                new NV(JoinAnnotations.SELECT, null),
+                new NV(JoinAnnotations.CONSTRAINTS, null)),
+            JoinTypeEnum.Normal);
+
+    state.acceptSolutions(new SingleValueIterator<>(solutions), new BOpStats());
+
+    return state;
+  }
+
+  private static class MockPipelineOp extends PipelineOp {
+
+    private static final long serialVersionUID = 1L;
+
+    public MockPipelineOp(final BOp[] args, final NV... anns) {
+
+      super(args, NV.asMap(anns));
+    }
+
+    @Override
+    public FutureTask<Void> eval(final BOpContext<IBindingSet> context) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
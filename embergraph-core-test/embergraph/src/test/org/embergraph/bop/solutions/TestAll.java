@@ -70,6 +70,12 @@ public class TestAll extends TestCase {
     // in-memory sort operator.
     suite.addTestSuite(TestMemorySortOp.class);
 
+    // external memory sort operator.
+    suite.addTestSuite(TestExternalSortOp.class);
+
+    // top-K sort operator for ORDER BY + LIMIT.
+    suite.addTestSuite(TestTopKSortOp.class);
+
     /*
      * Aggregation
      */
@@ -83,8 +89,8 @@ public class TestAll extends TestCase {
     // In-memory generalized aggregation operator
     suite.addTestSuite(TestMemoryGroupByOp.class);
 
-    // FIXME Enable test for Native memory generalized aggregation operator
-    //        suite.addTestSuite(TestHTreeGroupByOp.class);
+    // Native memory generalized aggregation operator
+    suite.addTestSuite(TestExternalGroupByOp.class);
 
     // Pipelined aggregation operator.
     suite.addTestSuite(TestPipelinedAggregationOp.class);
@@ -0,0 +1,384 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.bop.solutions;
+
+import java.math.BigInteger;
+import java.util.concurrent.FutureTask;
+import org.embergraph.bop.BOp;
+import org.embergraph.bop.BOpContext;
+import org.embergraph.bop.BOpEvaluationContext;
+import org.embergraph.bop.Bind;
+import org.embergraph.bop.Constant;
+import org.embergraph.bop.IBindingSet;
+import org.embergraph.bop.IConstant;
+import org.embergraph.bop.IConstraint;
+import org.embergraph.bop.IValueExpression;
+import org.embergraph.bop.IVariable;
+import org.embergraph.bop.IVariableFactory;
+import org.embergraph.bop.NV;
+import org.embergraph.bop.PipelineOp;
+import org.embergraph.bop.Var;
+import org.embergraph.bop.bindingSet.ListBindingSet;
+import org.embergraph.bop.engine.AbstractQueryEngineTestCase;
+import org.embergraph.bop.engine.BOpStats;
+import org.embergraph.bop.engine.BlockingBufferWithStats;
+import org.embergraph.bop.engine.MockRunningQuery;
+import org.embergraph.bop.rdf.aggregate.COUNT;
+import org.embergraph.bop.rdf.aggregate.GROUP_CONCAT;
+import org.embergraph.bop.rdf.aggregate.SUM;
+import org.embergraph.rdf.internal.IV;
+import org.embergraph.rdf.internal.VTE;
+import org.embergraph.rdf.internal.impl.TermId;
+import org.embergraph.rdf.internal.impl.literal.XSDIntegerIV;
+import org.embergraph.rdf.internal.impl.literal.XSDNumericIV;
+import org.embergraph.rdf.model.EmbergraphLiteral;
+import org.embergraph.rdf.model.EmbergraphValueFactory;
+import org.embergraph.rdf.model.EmbergraphValueFactoryImpl;
+import org.embergraph.rdf.sparql.ast.DummyConstantNode;
+import org.embergraph.relation.accesspath.IAsynchronousIterator;
+import org.embergraph.relation.accesspath.IBlockingBuffer;
+import org.embergraph.relation.accesspath.ThickAsynchronousIterator;
+
+/*
+ * Unit tests for {@link ExternalGroupByOp}. The test suite inherited from {@link
+ * AbstractAggregationTestCase} runs with the default buffer capacity, so the solutions never leave
+ * the JVM heap. The tests declared here use a very small buffer capacity in order to force the
+ * partitions to be written onto the native heap.
+ *
+ * @see TestMemoryGroupByOp
+ */
+public class TestExternalGroupByOp extends AbstractAggregationTestCase {
+
+  public TestExternalGroupByOp() {}
+
+  public TestExternalGroupByOp(String name) {
+    super(name);
+  }
+
+  @Override
+  protected GroupByOp newFixture(
+      IValueExpression<?>[] select, IValueExpression<?>[] groupBy, IConstraint[] having) {
+
+    return newFixture(
+        select,
+        groupBy,
+        having,
+        ExternalGroupByOp.Annotations.DEFAULT_PARTITION_COUNT,
+        ExternalGroupByOp.Annotations.DEFAULT_BUFFER_CAPACITY);
+  }
+
+  private GroupByOp newFixture(
+      final IValueExpression<?>[] select,
+      final IValueExpression<?>[] groupBy,
+      final IConstraint[] having,
+      final int partitionCount,
+      final int bufferCapacity) {
+
+    final int groupById = 1;
+
+    final IVariableFactory variableFactory = new MockVariableFactory();
+
+    final IGroupByState groupByState = new GroupByState(select, groupBy, having);
+
+    final IGroupByRewriteState groupByRewrite =
+        new GroupByRewriter(groupByState) {
+
+          private static final long serialVersionUID = 1L;
+
+          @Override
+          public IVariable<?> var() {
+            return variableFactory.var();
+          }
+        };
+
+    return new ExternalGroupByOp(
+        new BOp[] {},
+        NV.asMap(
+            new NV(BOp.Annotations.BOP_ID, groupById),
+            new NV(BOp.Annotations.EVALUATION_CONTEXT, BOpEvaluationContext.CONTROLLER),
+            new NV(PipelineOp.Annotations.PIPELINED, true),
+            new NV(PipelineOp.Annotations.MAX_PARALLEL, 1),
+            new NV(PipelineOp.Annotations.SHARED_STATE, true),
+            new NV(PipelineOp.Annotations.LAST_PASS, true),
+            new NV(GroupByOp.Annotations.GROUP_BY_STATE, groupByState),
+            new NV(GroupByOp.Annotations.GROUP_BY_REWRITE, groupByRewrite),
+            new NV(ExternalGroupByOp.Annotations.PARTITION_COUNT, partitionCount),
+            new NV(ExternalGroupByOp.Annotations.BUFFER_CAPACITY, bufferCapacity)));
+  }
+
+  @Override
+  protected boolean isPipelinedAggregationOp() {
+    return false;
+  }
+
+  /*
+   * Run the operator over the source chunks (all presented in a single invocation) and verify the
+   * solutions in the sink (in any order).
+   *
+   * @return The statistics for the operator.
+   */
+  private BOpStats runGroupBy(
+      final GroupByOp query, final IBindingSet[][] chunks, final IBindingSet[] expected) {
+
+    final BOpStats stats = query.newStats();
+
+    final IAsynchronousIterator<IBindingSet[]> source = new ThickAsynchronousIterator<>(chunks);
+
+    final IBlockingBuffer<IBindingSet[]> sink = new BlockingBufferWithStats<>(query, stats);
+
+    // Note: [lastInvocation:=true] forces the solutions to be emitted.
+    final BOpContext<IBindingSet> context =
+        new BOpContext<>(
+            new MockRunningQuery(null /* fed */, null /* indexManager */, queryContext),
+            -1 /* partitionId */,
+            stats,
+            query /* op */,
+            true /* lastInvocation */,
+            source,
+            sink,
+            null /* sink2 */);
+
+    final FutureTask<Void> ft = query.eval(context);
+    // Run the query.
+    {
+      final Thread t = new Thread(() -> ft.run());
+      t.setDaemon(true);
+      t.start();
+    }
+
+    // Check the solutions.
+    AbstractQueryEngineTestCase.assertSameSolutionsAnyOrder(expected, sink.iterator(), ft);
+
+    return stats;
+  }
+
+  /*
+   * <pre>
+   * SELECT ?x (COUNT(?y) AS ?c) (SUM(?y) AS ?s)
+   * GROUP BY ?x
+   * </pre>
+   *
+   * with <code>?x := i % 10</code> and <code>?y := i</code> for <code>i in [0:200)</code>. The
+   * solutions are written onto the native heap many times.
+   */
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  public void test_spill_groupBy_count_sum() {
+
+    final IVariable<IV> x = Var.var("x");
+    final IVariable<IV> y = Var.var("y");
+    final IVariable<IV> c = Var.var("c");
+    final IVariable<IV> s = Var.var("s");
+
+    final GroupByOp query =
+        newFixture(
+            new IValueExpression[] {
+              x, new Bind(c, new COUNT(false /* distinct */, y)), new Bind(s, new SUM(false, y))
+            }, // select
+            new IValueExpression[] {x}, // groupBy
+            null, // having
+            3, // partitionCount
+            7 // bufferCapacity
+            );
+
+    final int ngroups = 10;
+    final int n = 200;
+
+    final IBindingSet[][] chunks = new IBindingSet[n / 20][];
+    for (int i = 0; i < n; i++) {
+      if (i % 20 == 0) chunks[i / 20] = new IBindingSet[20];
+      chunks[i / 20][i % 20] =
+          new ListBindingSet(
+              new IVariable[] {x, y},
+              new IConstant[] {
+                new Constant<IV>(new XSDNumericIV<EmbergraphLiteral>(i % ngroups)),
+                new Constant<IV>(new XSDNumericIV<EmbergraphLiteral>(i))
+              });
+    }
+
+    final IBindingSet[] expected = new IBindingSet[ngroups];
+    for (int g = 0; g < ngroups; g++) {
+      // sum of (10k + g) for k in [0:20).
+      final long sum = 10L * (19 * 20 / 2) + 20L * g;
+      expected[g] =
+          new ListBindingSet(
+              new IVariable[] {x, c, s},
+              new IConstant[] {
+                new Constant<IV>(new XSDNumericIV<EmbergraphLiteral>(g)),
+                new Constant<IV>(new XSDIntegerIV<EmbergraphLiteral>(BigInteger.valueOf(20))),
+                new Constant<IV>(new XSDIntegerIV<EmbergraphLiteral>(BigInteger.valueOf(sum)))
+              });
+    }
+
+    final BOpStats stats = runGroupBy(query, chunks, expected);
+
+    assertEquals(n, stats.unitsIn.get());
+    assertEquals(ngroups, stats.unitsOut.get());
+  }
+
+  /*
+   * <pre>
+   * SELECT ?x (COUNT(?y) AS ?c)
+   * GROUP BY ?x
+   * </pre>
+   *
+   * with many more groups than partitions, so the partitions must be split several times before
+   * they fit within the buffer capacity. Each group is also larger than the buffer capacity, so it
+   * is aggregated without being materialized on the JVM heap.
+   */
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  public void test_spill_groupBy_splitPartitions() {
+
+    final IVariable<IV> x = Var.var("x");
+    final IVariable<IV> y = Var.var("y");
+    final IVariable<IV> c = Var.var("c");
+
+    final GroupByOp query =
+        newFixture(
+            new IValueExpression[] {x, new Bind(c, new COUNT(false /* distinct */, y))}, // select
+            new IValueExpression[] {x}, // groupBy
+            null, // having
+            2, // partitionCount
+            8 // bufferCapacity
+            );
+
+    final int ngroups = 60;
+    final int n = 600;
+
+    final IBindingSet[] data = new IBindingSet[n];
+    for (int i = 0; i < n; i++) {
+      data[i] =
+          new ListBindingSet(
+              new IVariable[] {x, y},
+              new IConstant[] {
+                new Constant<IV>(new XSDNumericIV<EmbergraphLiteral>(i % ngroups)),
+                new Constant<IV>(new XSDNumericIV<EmbergraphLiteral>(i))
+              });
+    }
+
+    final IBindingSet[] expected = new IBindingSet[ngroups];
+    for (int g = 0; g < ngroups; g++) {
+      expected[g] =
+          new ListBindingSet(
+              new IVariable[] {x, c},
+              new IConstant[] {
+                new Constant<IV>(new XSDNumericIV<EmbergraphLiteral>(g)),
+                new Constant<IV>(
+                    new XSDIntegerIV<EmbergraphLiteral>(BigInteger.valueOf(n / ngroups)))
+              });
+    }
+
+    final BOpStats stats = runGroupBy(query, new IBindingSet[][] {data}, expected);
+
+    assertEquals(n, stats.unitsIn.get());
+    assertEquals(ngroups, stats.unitsOut.get());
+  }
+
+  /*
+   * GROUP_CONCAT() over materialized (non-inline) {@link IV}s. The cached {@link
+   * EmbergraphLiteral}s must survive the round trip through the native heap and the solutions in
+   * each group must be visited in the order in which they were received.
+   */
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  public void test_spill_groupBy_groupConcat_materializedIVs() {
+
+    final String namespace = getName();
+
+    final EmbergraphValueFactory f = EmbergraphValueFactoryImpl.getInstance(namespace);
+
+    final IVariable<IV> g = Var.var("g");
+    final IVariable<IV> name = Var.var("name");
+    final IVariable<IV> names = Var.var("names");
+
+    final GroupByOp query =
+        newFixture(
+            new IValueExpression[] {
+              g, new Bind(names, new GROUP_CONCAT(false /* distinct */, name, namespace, " "))
+            }, // select
+            new IValueExpression[] {g}, // groupBy
+            null, // having
+            2, // partitionCount
+            2 // bufferCapacity
+            );
+
+    final IBindingSet[] data = new IBindingSet[9];
+    for (int i = 0; i < data.length; i++) {
+      final IV iv = new TermId(VTE.LITERAL, i + 1);
+      iv.setValue(f.createLiteral("a" + i));
+      data[i] =
+          new ListBindingSet(
+              new IVariable[] {g, name},
+              new IConstant[] {
+                new Constant<IV>(new XSDNumericIV<EmbergraphLiteral>(i % 3)), new Constant<>(iv)
+              });
+    }
+
+    final IBindingSet[] expected = new IBindingSet[3];
+    for (int i = 0; i < 3; i++) {
+      expected[i] =
+          new ListBindingSet(
+              new IVariable[] {g, names},
+              new IConstant[] {
+                new Constant<IV>(new XSDNumericIV<EmbergraphLiteral>(i)),
+                new Constant<IV>(
+                    DummyConstantNode.toDummyIV(
+                        f.createLiteral("a" + i + " a" + (i + 3) + " a" + (i + 6))))
+              });
+    }
+
+    runGroupBy(query, new IBindingSet[][] {data}, expected);
+  }
+
+  /*
+   * COUNT(DISTINCT ?x) without a GROUP BY clause. The single implicit group is decoded from the
+   * native heap each time it is visited.
+   */
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  public void test_spill_implicitGroup_countDistinct() {
+
+    final IVariable<IV> x = Var.var("x");
+    final IVariable<IV> c = Var.var("c");
+
+    final GroupByOp query =
+        newFixture(
+            new IValueExpression[] {new Bind(c, new COUNT(true /* distinct */, x))}, // select
+            null, // groupBy
+            null, // having
+            4, // partitionCount
+            5 // bufferCapacity
+            );
+
+    final IBindingSet[] data = new IBindingSet[50];
+    for (int i = 0; i < data.length; i++) {
+      data[i] =
+          new ListBindingSet(
+              new IVariable[] {x},
+              new IConstant[] {new Constant<IV>(new XSDNumericIV<EmbergraphLiteral>(i % 7))});
+    }
+
+    final IBindingSet[] expected =
+        new IBindingSet[] {
+          new ListBindingSet(
+              new IVariable[] {c},
+              new IConstant[] {
+                new Constant<IV>(new XSDIntegerIV<EmbergraphLiteral>(BigInteger.valueOf(7)))
+              })
+        };
+
+    runGroupBy(query, new IBindingSet[][] {data}, expected);
+  }
+}
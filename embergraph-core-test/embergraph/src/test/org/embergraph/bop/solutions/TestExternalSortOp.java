@@ -0,0 +1,297 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.bop.solutions;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.FutureTask;
+import junit.framework.TestCase2;
+import org.embergraph.bop.BOp;
+import org.embergraph.bop.BOpContext;
+import org.embergraph.bop.BOpEvaluationContext;
+import org.embergraph.bop.Constant;
+import org.embergraph.bop.IBindingSet;
+import org.embergraph.bop.IConstant;
+import org.embergraph.bop.IVariable;
+import org.embergraph.bop.NV;
+import org.embergraph.bop.PipelineOp;
+import org.embergraph.bop.Var;
+import org.embergraph.bop.bindingSet.ListBindingSet;
+import org.embergraph.bop.engine.AbstractQueryEngineTestCase;
+import org.embergraph.bop.engine.BOpStats;
+import org.embergraph.bop.engine.BlockingBufferWithStats;
+import org.embergraph.bop.engine.MockRunningQuery;
+import org.embergraph.rdf.internal.IV;
+import org.embergraph.rdf.internal.VTE;
+import org.embergraph.rdf.internal.impl.TermId;
+import org.embergraph.rdf.internal.impl.literal.XSDNumericIV;
+import org.embergraph.rdf.model.EmbergraphLiteral;
+import org.embergraph.rdf.model.EmbergraphValueFactory;
+import org.embergraph.rdf.model.EmbergraphValueFactoryImpl;
+import org.embergraph.relation.accesspath.IAsynchronousIterator;
+import org.embergraph.relation.accesspath.IBlockingBuffer;
+import org.embergraph.relation.accesspath.ThickAsynchronousIterator;
+
+/*
+ * Unit tests for the {@link ExternalSortOp}. The run capacity is set to a very small value in most
+ * of these tests in order to force solutions to be written onto the native heap and then merged.
+ *
+ * @see TestMemorySortOp
+ */
+public class TestExternalSortOp extends TestCase2 {
+
+  /** */
+  public TestExternalSortOp() {}
+
+  /** @param name */
+  public TestExternalSortOp(String name) {
+    super(name);
+  }
+
+  private long termId = 1;
+
+  private IV<EmbergraphLiteral, ?> makeIV(final EmbergraphLiteral lit) {
+
+    final IV<EmbergraphLiteral, ?> iv = new TermId<>(VTE.LITERAL, termId++);
+
+    iv.setValue(lit);
+
+    return iv;
+  }
+
+  private SortOp newSortOp(
+      final ISortOrder<?>[] sors, final int runCapacity, final int mergeFanIn) {
+
+    return new ExternalSortOp(
+        new BOp[] {},
+        NV.asMap(
+            new NV(ExternalSortOp.Annotations.BOP_ID, 1),
+            new NV(ExternalSortOp.Annotations.SORT_ORDER, sors),
+            new NV(ExternalSortOp.Annotations.VALUE_COMPARATOR, new IVComparator()),
+            new NV(ExternalSortOp.Annotations.RUN_CAPACITY, runCapacity),
+            new NV(ExternalSortOp.Annotations.MERGE_FAN_IN, mergeFanIn),
+            new NV(PipelineOp.Annotations.EVALUATION_CONTEXT, BOpEvaluationContext.CONTROLLER),
+            new NV(PipelineOp.Annotations.MAX_PARALLEL, 1),
+            new NV(PipelineOp.Annotations.REORDER_SOLUTIONS, false),
+            new NV(PipelineOp.Annotations.LAST_PASS, true)));
+  }
+
+  /*
+   * Run the operator over the source chunks (all presented in a single invocation) and verify the
+   * solutions in the sink.
+   *
+   * @return The statistics for the operator.
+   */
+  private BOpStats runSort(
+      final SortOp query, final IBindingSet[][] chunks, final IBindingSet[] expected) {
+
+    final MockQueryContext queryContext = new MockQueryContext(UUID.randomUUID());
+
+    try {
+
+      final BOpStats stats = query.newStats();
+
+      final IAsynchronousIterator<IBindingSet[]> source =
+          new ThickAsynchronousIterator<>(chunks);
+
+      final IBlockingBuffer<IBindingSet[]> sink = new BlockingBufferWithStats<>(query, stats);
+
+      final BOpContext<IBindingSet> context =
+          new BOpContext<>(
+              new MockRunningQuery(null /* fed */, null /* indexManager */, queryContext),
+              -1 /* partitionId */,
+              stats,
+              query /* op */,
+              true /* lastInvocation */,
+              source,
+              sink,
+              null /* sink2 */);
+
+      final FutureTask<Void> ft = query.eval(context);
+      // Run the query.
+      {
+        final Thread t = new Thread(() -> ft.run());
+        t.setDaemon(true);
+        t.start();
+      }
+
+      // Check the solutions.
+      AbstractQueryEngineTestCase.assertSameSolutions(expected, sink.iterator(), ft);
+
+      return stats;
+
+    } finally {
+
+      queryContext.close();
+    }
+  }
+
+  /** Test with materialized IVs, forcing several runs and intermediate merge passes. */
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  public void testMaterializedIVs() {
+
+    final EmbergraphValueFactory f = EmbergraphValueFactoryImpl.getInstance(getName());
+
+    final IVariable<IV> x = Var.var("x");
+    final IVariable<IV> y = Var.var("y");
+    final IConstant<IV> a = new Constant<>(makeIV(f.createLiteral("a")));
+    final IConstant<IV> b = new Constant<>(makeIV(f.createLiteral("b")));
+    final IConstant<IV> c = new Constant<>(makeIV(f.createLiteral("c")));
+    final IConstant<IV> d = new Constant<>(makeIV(f.createLiteral("d")));
+    final IConstant<IV> e = new Constant<>(makeIV(f.createLiteral("e")));
+
+    final ISortOrder<?>[] sors =
+        new ISortOrder[] {new SortOrder(x, true /*asc*/), new SortOrder(y, false /*asc*/)};
+
+    // the test data
+
+    final IBindingSet[] data =
+        new IBindingSet[] {
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {a, a}),
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {a, e}),
+          new ListBindingSet(new IVariable<?>[] {x}, new IConstant[] {c}),
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {d, a}),
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {d, b}),
+          new ListBindingSet(new IVariable<?>[] {}, new IConstant[] {}),
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {a, c}),
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {b, d}),
+          new ListBindingSet(new IVariable<?>[] {y}, new IConstant[] {a}),
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {b, b})
+        };
+
+    // the expected solutions
+
+    final IBindingSet[] expected =
+        new IBindingSet[] {
+          new ListBindingSet(new IVariable<?>[] {y}, new IConstant[] {a}),
+          new ListBindingSet(new IVariable<?>[] {}, new IConstant[] {}),
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {a, e}),
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {a, c}),
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {a, a}),
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {b, d}),
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {b, b}),
+          new ListBindingSet(new IVariable<?>[] {x}, new IConstant[] {c}),
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {d, b}),
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {d, a})
+        };
+
+    // 4 runs of at most 3 solutions with a fan-in of 2 forces intermediate merge passes.
+    final BOpStats stats =
+        runSort(
+            newSortOp(sors, 3 /* runCapacity */, 2 /* mergeFanIn */),
+            new IBindingSet[][] {data},
+            expected);
+
+    assertEquals(1, stats.chunksIn.get());
+    assertEquals(10, stats.unitsIn.get());
+    assertEquals(10, stats.unitsOut.get());
+    assertEquals(1, stats.chunksOut.get());
+  }
+
+  /*
+   * Unit test with inline {@link IV}s where all solutions fit in a single run, so nothing is written
+   * onto the native heap.
+   */
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  public void testInlineIVs_singleRun() {
+
+    final IVariable<IV> x = Var.var("x");
+    final IVariable<IV> y = Var.var("y");
+    final IConstant<IV> a = new Constant<>(new XSDNumericIV(1));
+    final IConstant<IV> b = new Constant<>(new XSDNumericIV(2));
+    final IConstant<IV> c = new Constant<>(new XSDNumericIV(3));
+
+    final ISortOrder<?>[] sors =
+        new ISortOrder[] {new SortOrder(x, false /*asc*/), new SortOrder(y, true /*asc*/)};
+
+    final IBindingSet[] data =
+        new IBindingSet[] {
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {a, c}),
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {c, b}),
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {a, a}),
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {c, a}),
+        };
+
+    final IBindingSet[] expected =
+        new IBindingSet[] {
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {c, a}),
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {c, b}),
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {a, a}),
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {a, c}),
+        };
+
+    final BOpStats stats =
+        runSort(
+            newSortOp(
+                sors,
+                ExternalSortOp.Annotations.DEFAULT_RUN_CAPACITY,
+                ExternalSortOp.Annotations.DEFAULT_MERGE_FAN_IN),
+            new IBindingSet[][] {data},
+            expected);
+
+    assertEquals(4, stats.unitsOut.get());
+  }
+
+  /*
+   * Stress test comparing the external merge sort against an in-memory sort for a larger number of
+   * solutions presented in several chunks, including many duplicate keys (which verifies that the
+   * merge is stable).
+   */
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  public void test_externalSort_stress() {
+
+    final Random r = new Random(217L);
+
+    final IVariable<IV> x = Var.var("x");
+    final IVariable<IV> y = Var.var("y");
+
+    final int nchunks = 20;
+    final int chunkSize = 250;
+
+    final IBindingSet[][] chunks = new IBindingSet[nchunks][];
+    final IBindingSet[] all = new IBindingSet[nchunks * chunkSize];
+
+    for (int i = 0, n = 0; i < nchunks; i++) {
+      chunks[i] = new IBindingSet[chunkSize];
+      for (int j = 0; j < chunkSize; j++, n++) {
+        final IBindingSet bset =
+            new ListBindingSet(
+                new IVariable<?>[] {x, y},
+                new IConstant[] {
+                  new Constant<>(new XSDNumericIV(r.nextInt(50))), new Constant<>(new XSDNumericIV(n))
+                });
+        chunks[i][j] = bset;
+        all[n] = bset.clone();
+      }
+    }
+
+    final ISortOrder<?>[] sors = new ISortOrder[] {new SortOrder(x, true /*asc*/)};
+
+    // Note: Arrays.sort() is stable, so [y] (the arrival order) breaks ties.
+    final IBindingSet[] expected = all.clone();
+    Arrays.sort(expected, new BindingSetComparator(sors, new IVComparator()));
+
+    final BOpStats stats =
+        runSort(newSortOp(sors, 97 /* runCapacity */, 4 /* mergeFanIn */), chunks, expected);
+
+    assertEquals(nchunks, stats.chunksIn.get());
+    assertEquals(all.length, stats.unitsIn.get());
+    assertEquals(all.length, stats.unitsOut.get());
+  }
+}
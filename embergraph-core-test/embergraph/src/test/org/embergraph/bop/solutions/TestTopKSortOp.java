@@ -0,0 +1,255 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.bop.solutions;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.FutureTask;
+import junit.framework.TestCase2;
+import org.embergraph.bop.BOp;
+import org.embergraph.bop.BOpContext;
+import org.embergraph.bop.BOpEvaluationContext;
+import org.embergraph.bop.Constant;
+import org.embergraph.bop.IBindingSet;
+import org.embergraph.bop.IConstant;
+import org.embergraph.bop.IVariable;
+import org.embergraph.bop.NV;
+import org.embergraph.bop.PipelineOp;
+import org.embergraph.bop.Var;
+import org.embergraph.bop.bindingSet.ListBindingSet;
+import org.embergraph.bop.engine.AbstractQueryEngineTestCase;
+import org.embergraph.bop.engine.BOpStats;
+import org.embergraph.bop.engine.BlockingBufferWithStats;
+import org.embergraph.bop.engine.MockRunningQuery;
+import org.embergraph.rdf.internal.IV;
+import org.embergraph.rdf.internal.impl.literal.XSDNumericIV;
+import org.embergraph.relation.accesspath.IBlockingBuffer;
+import org.embergraph.relation.accesspath.ThickAsynchronousIterator;
+
+/*
+ * Unit tests for the {@link TopKSortOp}.
+ *
+ * @see TestMemorySortOp
+ */
+public class TestTopKSortOp extends TestCase2 {
+
+  /** */
+  public TestTopKSortOp() {}
+
+  /** @param name */
+  public TestTopKSortOp(String name) {
+    super(name);
+  }
+
+  private SortOp newSortOp(final ISortOrder<?>[] sors, final long limit) {
+
+    return new TopKSortOp(
+        new BOp[] {},
+        NV.asMap(
+            new NV(TopKSortOp.Annotations.BOP_ID, 1),
+            new NV(TopKSortOp.Annotations.SORT_ORDER, sors),
+            new NV(TopKSortOp.Annotations.VALUE_COMPARATOR, new IVComparator()),
+            new NV(TopKSortOp.Annotations.LIMIT, limit),
+            new NV(PipelineOp.Annotations.EVALUATION_CONTEXT, BOpEvaluationContext.CONTROLLER),
+            new NV(PipelineOp.Annotations.MAX_PARALLEL, 1),
+            new NV(PipelineOp.Annotations.REORDER_SOLUTIONS, false),
+            new NV(PipelineOp.Annotations.LAST_PASS, true)));
+  }
+
+  /*
+   * Invoke the operator once for each element of <i>chunks</i> (the last invocation is flagged as
+   * such) and verify the solutions written onto the sink of the last invocation.
+   */
+  private void runSort(
+      final SortOp query,
+      final IBindingSet[][] chunks,
+      final BOpStats stats,
+      final IBindingSet[] expected)
+      throws Exception {
+
+    final MockQueryContext queryContext = new MockQueryContext(UUID.randomUUID());
+
+    try {
+
+      final MockRunningQuery runningQuery =
+          new MockRunningQuery(null /* fed */, null /* indexManager */, queryContext);
+
+      IBlockingBuffer<IBindingSet[]> sink = null;
+
+      FutureTask<Void> ft = null;
+
+      for (int i = 0; i < chunks.length; i++) {
+
+        sink = new BlockingBufferWithStats<>(query, stats);
+
+        final BOpContext<IBindingSet> context =
+            new BOpContext<>(
+                runningQuery,
+                -1 /* partitionId */,
+                stats,
+                query /* op */,
+                i + 1 == chunks.length /* lastInvocation */,
+                new ThickAsynchronousIterator<>(new IBindingSet[][] {chunks[i]}),
+                sink,
+                null /* sink2 */);
+
+        ft = query.eval(context);
+
+        ft.run();
+
+        // verify nothing thrown.
+        ft.get();
+
+        if (i + 1 < chunks.length) {
+
+          // Nothing is written until the last invocation.
+          assertFalse(sink.iterator().hasNext());
+        }
+      }
+
+      AbstractQueryEngineTestCase.assertSameSolutions(expected, sink.iterator(), ft);
+
+    } finally {
+
+      queryContext.close();
+    }
+  }
+
+  /** Unit test selecting the first K solutions, with ties broken by arrival order. */
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  public void test_topK() throws Exception {
+
+    final IVariable<IV> x = Var.var("x");
+    final IVariable<IV> y = Var.var("y");
+    final IConstant<IV> a = new Constant<>(new XSDNumericIV(1));
+    final IConstant<IV> b = new Constant<>(new XSDNumericIV(2));
+    final IConstant<IV> c = new Constant<>(new XSDNumericIV(3));
+    final IConstant<IV> d = new Constant<>(new XSDNumericIV(4));
+
+    final ISortOrder<?>[] sors = new ISortOrder[] {new SortOrder(x, false /*asc*/)};
+
+    final IBindingSet[] data =
+        new IBindingSet[] {
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {a, a}),
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {c, a}),
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {d, a}),
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {b, a}),
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {c, b}),
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {c, c}),
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {a, b}),
+        };
+
+    final IBindingSet[] expected =
+        new IBindingSet[] {
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {d, a}),
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {c, a}),
+          new ListBindingSet(new IVariable<?>[] {x, y}, new IConstant[] {c, b}),
+        };
+
+    final SortOp query = newSortOp(sors, 3L);
+
+    final BOpStats stats = query.newStats();
+
+    runSort(query, new IBindingSet[][] {data}, stats, expected);
+
+    assertEquals(7, stats.unitsIn.get());
+    assertEquals(3, stats.unitsOut.get());
+  }
+
+  /** Unit test where K is larger than the #of source solutions. */
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  public void test_topK_fewerSolutionsThanK() throws Exception {
+
+    final IVariable<IV> x = Var.var("x");
+    final IConstant<IV> a = new Constant<>(new XSDNumericIV(1));
+    final IConstant<IV> b = new Constant<>(new XSDNumericIV(2));
+
+    final ISortOrder<?>[] sors = new ISortOrder[] {new SortOrder(x, true /*asc*/)};
+
+    final IBindingSet[] data =
+        new IBindingSet[] {
+          new ListBindingSet(new IVariable<?>[] {x}, new IConstant[] {b}),
+          new ListBindingSet(new IVariable<?>[] {}, new IConstant[] {}),
+          new ListBindingSet(new IVariable<?>[] {x}, new IConstant[] {a}),
+        };
+
+    final IBindingSet[] expected =
+        new IBindingSet[] {
+          new ListBindingSet(new IVariable<?>[] {}, new IConstant[] {}),
+          new ListBindingSet(new IVariable<?>[] {x}, new IConstant[] {a}),
+          new ListBindingSet(new IVariable<?>[] {x}, new IConstant[] {b}),
+        };
+
+    final SortOp query = newSortOp(sors, 10L);
+
+    runSort(query, new IBindingSet[][] {data}, query.newStats(), expected);
+  }
+
+  /*
+   * Stress test comparing the top-K sort over several invocations against a prefix of a full
+   * (stable) sort.
+   */
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  public void test_topK_stress() throws Exception {
+
+    final Random r = new Random(91L);
+
+    final IVariable<IV> x = Var.var("x");
+    final IVariable<IV> y = Var.var("y");
+
+    final int nchunks = 10;
+    final int chunkSize = 200;
+    final int k = 37;
+
+    final IBindingSet[][] chunks = new IBindingSet[nchunks][];
+    final IBindingSet[] all = new IBindingSet[nchunks * chunkSize];
+
+    for (int i = 0, n = 0; i < nchunks; i++) {
+      chunks[i] = new IBindingSet[chunkSize];
+      for (int j = 0; j < chunkSize; j++, n++) {
+        final IBindingSet bset =
+            new ListBindingSet(
+                new IVariable<?>[] {x, y},
+                new IConstant[] {
+                  new Constant<>(new XSDNumericIV(r.nextInt(100))),
+                  new Constant<>(new XSDNumericIV(n))
+                });
+        chunks[i][j] = bset;
+        all[n] = bset.clone();
+      }
+    }
+
+    final ISortOrder<?>[] sors = new ISortOrder[] {new SortOrder(x, true /*asc*/)};
+
+    // Note: Arrays.sort() is stable, so [y] (the arrival order) breaks ties.
+    Arrays.sort(all, new BindingSetComparator(sors, new IVComparator()));
+
+    final IBindingSet[] expected = Arrays.copyOf(all, k);
+
+    final SortOp query = newSortOp(sors, k);
+
+    final BOpStats stats = query.newStats();
+
+    runSort(query, chunks, stats, expected);
+
+    assertEquals(nchunks, stats.chunksIn.get());
+    assertEquals(all.length, stats.unitsIn.get());
+    assertEquals(k, stats.unitsOut.get());
+  }
+}
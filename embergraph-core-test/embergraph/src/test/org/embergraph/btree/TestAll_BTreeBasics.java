@@ -123,6 +123,15 @@ public class TestAll_BTreeBasics extends TestCase {
     // test recycling of checkpoint, root block, etc.
     suite.addTestSuite(TestBTreeRecycle.class);
 
+    // test record-level compression of nodes and leaves.
+    suite.addTestSuite(TestBTreeRecordCompression.class);
+
+    // test relocation of nodes and leaves by copy-on-write.
+    suite.addTestSuite(TestNodeRelocator.class);
+
+    // test batch reads of nodes and leaves.
+    suite.addTestSuite(TestPrefetch.class);
+
     /*
      * test of transient BTree's (no backing store).
      */
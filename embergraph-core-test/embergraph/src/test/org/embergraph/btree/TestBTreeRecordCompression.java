@@ -0,0 +1,139 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.btree;
+
+import java.nio.ByteBuffer;
+import java.util.Properties;
+import java.util.UUID;
+import junit.framework.TestCase2;
+import org.embergraph.btree.data.AbstractReadOnlyNodeData;
+import org.embergraph.btree.keys.DefaultKeyBuilderFactory;
+import org.embergraph.btree.keys.TestKeyBuilder;
+import org.embergraph.btree.raba.codec.FrontCodedRabaCoder.DefaultFrontCodedRabaCoder;
+import org.embergraph.btree.raba.codec.SimpleRabaCoder;
+import org.embergraph.io.compression.IRecordCompressorFactory;
+import org.embergraph.io.compression.LZ4RecordCompressorFactory;
+import org.embergraph.rawstore.SimpleMemoryRawStore;
+
+/*
+ * Test suite for record-level compression of the nodes and leaves of a {@link BTree}.
+ *
+ * @see IndexMetadata#setBtreeRecordCompressorFactory(IRecordCompressorFactory)
+ */
+public class TestBTreeRecordCompression extends TestCase2 {
+
+  /** */
+  public TestBTreeRecordCompression() {}
+
+  /** @param name */
+  public TestBTreeRecordCompression(String name) {
+    super(name);
+  }
+
+  /** Helper class counts the records written on the store which are compressed. */
+  private static class CountingRawStore extends SimpleMemoryRawStore {
+
+    private int nwritten = 0;
+
+    private int ncompressed = 0;
+
+    @Override
+    public long write(final ByteBuffer data) {
+
+      nwritten++;
+
+      if (data.remaining() > 0
+          && data.get(data.position()) == AbstractReadOnlyNodeData.COMPRESSED) {
+
+        ncompressed++;
+      }
+
+      return super.write(data);
+    }
+  }
+
+  public void test_lz4() {
+
+    doRoundTripTest(LZ4RecordCompressorFactory.FAST);
+  }
+
+  public void test_lz4_highCompression() {
+
+    doRoundTripTest(new LZ4RecordCompressorFactory.HighCompression());
+  }
+
+  /*
+   * Verify that the leaves of a {@link BTree} written with the given factory are compressed on the
+   * store and that the {@link BTree} may be reloaded and read back.
+   */
+  private void doRoundTripTest(final IRecordCompressorFactory<?> factory) {
+
+    final CountingRawStore store = new CountingRawStore();
+
+    final int nentries = 10000;
+
+    final long addrCheckpoint;
+    final int nleaves;
+    {
+      final IndexMetadata metadata = new IndexMetadata(UUID.randomUUID());
+
+      metadata.setBranchingFactor(64);
+
+      // values are not coded so the leaves are compressible.
+      metadata.setTupleSerializer(
+          new DefaultTupleSerializer(
+              new DefaultKeyBuilderFactory(new Properties()),
+              DefaultFrontCodedRabaCoder.INSTANCE,
+              SimpleRabaCoder.INSTANCE));
+
+      metadata.setBtreeRecordCompressorFactory(factory);
+
+      final BTree btree = BTree.create(store, metadata);
+
+      for (int i = 0; i < nentries; i++) {
+
+        btree.insert(TestKeyBuilder.asSortKey(i), getValue(i));
+      }
+
+      addrCheckpoint = btree.writeCheckpoint();
+
+      nleaves = (int) btree.getLeafCount();
+    }
+
+    assertTrue(store.nwritten > nleaves);
+
+    // all leaves (at least) are compressed.
+    assertTrue(store.ncompressed >= nleaves);
+
+    {
+      final BTree btree = BTree.load(store, addrCheckpoint, true /* readOnly */);
+
+      assertEquals(nentries, btree.getEntryCount());
+
+      for (int i = 0; i < nentries; i++) {
+
+        assertEquals(getValue(i), btree.lookup(TestKeyBuilder.asSortKey(i)));
+      }
+    }
+  }
+
+  private static byte[] getValue(final int i) {
+
+    return ("value-of-the-tuple-" + (i % 10)).getBytes();
+  }
+}
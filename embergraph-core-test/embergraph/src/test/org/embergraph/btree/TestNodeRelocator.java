@@ -0,0 +1,225 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.btree;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.LongPredicate;
+import junit.framework.TestCase2;
+import org.embergraph.btree.keys.TestKeyBuilder;
+import org.embergraph.rawstore.IRawStore;
+import org.embergraph.rawstore.SimpleMemoryRawStore;
+
+/*
+ * Test suite for {@link NodeRelocator}.
+ */
+public class TestNodeRelocator extends TestCase2 {
+
+  /** */
+  public TestNodeRelocator() {}
+
+  /** @param name */
+  public TestNodeRelocator(String name) {
+    super(name);
+  }
+
+  private static final int NENTRIES = 1000;
+
+  /** Relocates every node and leaf. */
+  private static final LongPredicate ALL =
+      new LongPredicate() {
+        @Override
+        public boolean test(final long addr) {
+          return true;
+        }
+      };
+
+  /*
+   * Verify that all nodes and leaves are relocated when the filter accepts every address, that the
+   * relocation proceeds in bounded increments and that the data are intact.
+   */
+  public void test_relocateAll() {
+
+    final BTree btree = newBTree(new SimpleMemoryRawStore());
+
+    final Set<Long> before = getAddrs(btree);
+
+    final long nleaves = btree.getLeafCount();
+
+    final NodeRelocator relocator = new NodeRelocator(ALL);
+
+    long nrelocated = 0;
+
+    int nincrements = 0;
+
+    while (!relocator.isExhausted()) {
+
+      nrelocated += relocator.relocate(btree, 7 /* maxLeaves */);
+
+      nincrements++;
+    }
+
+    assertEquals(nleaves, nrelocated);
+
+    assertEquals(nleaves, relocator.getRelocatedCount());
+
+    assertTrue(nincrements >= nleaves / 7);
+
+    // A further increment is a NOP.
+    assertEquals(0, relocator.relocate(btree, 7));
+
+    btree.writeCheckpoint();
+
+    final Set<Long> after = getAddrs(btree);
+
+    assertEquals(before.size(), after.size());
+
+    after.retainAll(before);
+
+    assertTrue(after.isEmpty());
+
+    assertData(btree);
+  }
+
+  /*
+   * Verify that only the selected leaf and its ancestors are relocated when the filter accepts the
+   * address of a single leaf.
+   */
+  public void test_relocateOneLeaf() {
+
+    final BTree btree = newBTree(new SimpleMemoryRawStore());
+
+    final Set<Long> before = getAddrs(btree);
+
+    final long addr =
+        btree.newLeafCursor(TestKeyBuilder.asSortKey(NENTRIES / 2)).leaf().getIdentity();
+
+    final NodeRelocator relocator =
+        new NodeRelocator(
+            new LongPredicate() {
+              @Override
+              public boolean test(final long a) {
+                return a == addr;
+              }
+            });
+
+    assertEquals(1, relocator.relocate(btree, Integer.MAX_VALUE));
+
+    assertTrue(relocator.isExhausted());
+
+    assertEquals(btree.getLeafCount(), relocator.getVisitedCount());
+
+    btree.writeCheckpoint();
+
+    final Set<Long> retained = getAddrs(btree);
+
+    retained.retainAll(before);
+
+    // the leaf and each of its ancestors were copied.
+    assertEquals(before.size() - 1 - btree.getHeight(), retained.size());
+
+    assertFalse(retained.contains(addr));
+
+    assertData(btree);
+  }
+
+  /** Verify that dirty leaves are skipped since they do not have an address. */
+  public void test_dirtyLeavesSkipped() {
+
+    final BTree btree = newBTree(new SimpleMemoryRawStore());
+
+    for (int i = 0; i < NENTRIES; i++) {
+
+      btree.insert(TestKeyBuilder.asSortKey(i), getValue(i + 1));
+    }
+
+    final NodeRelocator relocator = new NodeRelocator(ALL);
+
+    assertEquals(0, relocator.relocate(btree, Integer.MAX_VALUE));
+
+    assertTrue(relocator.isExhausted());
+  }
+
+  /** Verify that a read-only {@link BTree} is rejected. */
+  public void test_readOnly() {
+
+    final IRawStore store = new SimpleMemoryRawStore();
+
+    final long addrCheckpoint = newBTree(store).getCheckpoint().getCheckpointAddr();
+
+    final BTree btree = BTree.load(store, addrCheckpoint, true /* readOnly */);
+
+    try {
+      new NodeRelocator(ALL).relocate(btree, 1);
+      fail("Expecting: " + UnsupportedOperationException.class);
+    } catch (UnsupportedOperationException ex) {
+      if (log.isInfoEnabled()) log.info("Ignoring expected exception: " + ex);
+    }
+  }
+
+  /** Create a checkpointed {@link BTree} with a small branching factor. */
+  private static BTree newBTree(final IRawStore store) {
+
+    final IndexMetadata metadata = new IndexMetadata(UUID.randomUUID());
+
+    metadata.setBranchingFactor(8);
+
+    final BTree btree = BTree.create(store, metadata);
+
+    for (int i = 0; i < NENTRIES; i++) {
+
+      btree.insert(TestKeyBuilder.asSortKey(i), getValue(i));
+    }
+
+    btree.writeCheckpoint();
+
+    return btree;
+  }
+
+  /** The addresses of the nodes and leaves of a checkpointed {@link BTree}. */
+  private static Set<Long> getAddrs(final BTree btree) {
+
+    final Set<Long> addrs = new HashSet<>();
+
+    final Iterator<AbstractNode> itr = btree.getRoot().postOrderNodeIterator();
+
+    while (itr.hasNext()) {
+
+      addrs.add(itr.next().getIdentity());
+    }
+
+    return addrs;
+  }
+
+  private void assertData(final BTree btree) {
+
+    assertEquals(NENTRIES, btree.getEntryCount());
+
+    for (int i = 0; i < NENTRIES; i++) {
+
+      assertEquals(getValue(i), btree.lookup(TestKeyBuilder.asSortKey(i)));
+    }
+  }
+
+  private static byte[] getValue(final int i) {
+
+    return ("value-" + i).getBytes();
+  }
+}
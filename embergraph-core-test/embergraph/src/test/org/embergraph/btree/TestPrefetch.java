@@ -0,0 +1,168 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.btree;
+
+import java.util.UUID;
+import junit.framework.TestCase2;
+import org.embergraph.btree.keys.TestKeyBuilder;
+import org.embergraph.rawstore.IRawStore;
+import org.embergraph.rawstore.SimpleMemoryRawStore;
+
+/*
+ * Test suite for {@link AbstractBTree#prefetch(byte[][])} and {@link Node#prefetchChildren(int,
+ * int)}.
+ */
+public class TestPrefetch extends TestCase2 {
+
+  /** */
+  public TestPrefetch() {}
+
+  /** @param name */
+  public TestPrefetch(String name) {
+    super(name);
+  }
+
+  private static final int NENTRIES = 1000;
+
+  /*
+   * Verify that the nodes and leaves needed for a set of point lookups are faulted in by a prefetch
+   * and that the lookups then do not read on the store.
+   */
+  public void test_prefetch() {
+
+    final BTree btree = newReadOnlyBTree(NENTRIES);
+
+    final byte[][] keys = new byte[NENTRIES / 10 + 1][];
+
+    for (int i = 0; i < keys.length - 1; i++) {
+
+      // Note: the keys are given in reverse order.
+      keys[i] = TestKeyBuilder.asSortKey(NENTRIES - 1 - i * 10);
+    }
+
+    // null keys are ignored.
+    keys[keys.length - 1] = null;
+
+    final BTreeCounters counters = btree.getBtreeCounters();
+
+    final long nread0 = counters.nodesRead.get() + counters.leavesRead.get();
+
+    final int nread = btree.prefetch(keys);
+
+    assertTrue(nread > 0);
+
+    assertEquals(nread0 + nread, counters.nodesRead.get() + counters.leavesRead.get());
+
+    // A second prefetch does not read anything.
+    assertEquals(0, btree.prefetch(keys));
+
+    for (int i = 0; i < keys.length - 1; i++) {
+
+      assertEquals(getValue(NENTRIES - 1 - i * 10), btree.lookup(keys[i]));
+    }
+
+    // The lookups did not read anything.
+    assertEquals(nread0 + nread, counters.nodesRead.get() + counters.leavesRead.get());
+  }
+
+  /** Verify that a prefetch on a B+Tree whose root is a leaf is a NOP. */
+  public void test_prefetch_rootLeaf() {
+
+    final BTree btree = newReadOnlyBTree(3);
+
+    assertTrue(btree.getRoot().isLeaf());
+
+    assertEquals(0, btree.prefetch(new byte[][] {TestKeyBuilder.asSortKey(1)}));
+
+    assertEquals(0, btree.prefetch(new byte[0][]));
+  }
+
+  /** Verify that the children of a node are materialized by {@link Node#prefetchChildren}. */
+  public void test_prefetchChildren() {
+
+    final BTree btree = newReadOnlyBTree(NENTRIES);
+
+    // The root may have only two children, so use the first node on the left edge with more.
+    Node node = (Node) btree.getRoot();
+
+    while (node.getChildCount() <= 2) {
+
+      node = (Node) node.getChild(0);
+    }
+
+    final int nchildren = node.getChildCount();
+
+    // materialize one child first.
+    node.getChild(1);
+
+    assertEquals(nchildren - 1, node.prefetchChildren(0, nchildren));
+
+    for (int i = 0; i < nchildren; i++) {
+
+      assertNotNull(node.getChildRef(i).get());
+
+      assertTrue(node.getChild(i).getParent() == node);
+    }
+
+    // A second prefetch does not read anything.
+    assertEquals(0, node.prefetchChildren(0, nchildren));
+
+    // An empty range is allowed.
+    assertEquals(0, node.prefetchChildren(1, 1));
+
+    try {
+      node.prefetchChildren(0, nchildren + 1);
+      fail("Expecting: " + IndexOutOfBoundsException.class);
+    } catch (IndexOutOfBoundsException ex) {
+      if (log.isInfoEnabled()) log.info("Ignoring expected exception: " + ex);
+    }
+
+    try {
+      node.prefetchChildren(2, 1);
+      fail("Expecting: " + IndexOutOfBoundsException.class);
+    } catch (IndexOutOfBoundsException ex) {
+      if (log.isInfoEnabled()) log.info("Ignoring expected exception: " + ex);
+    }
+  }
+
+  /** Create a checkpointed {@link BTree} and re-load it as a read-only {@link BTree}. */
+  private static BTree newReadOnlyBTree(final int nentries) {
+
+    final IRawStore store = new SimpleMemoryRawStore();
+
+    final IndexMetadata metadata = new IndexMetadata(UUID.randomUUID());
+
+    metadata.setBranchingFactor(8);
+
+    final BTree btree = BTree.create(store, metadata);
+
+    for (int i = 0; i < nentries; i++) {
+
+      btree.insert(TestKeyBuilder.asSortKey(i), getValue(i));
+    }
+
+    final long addrCheckpoint = btree.writeCheckpoint();
+
+    return BTree.load(store, addrCheckpoint, true /* readOnly */);
+  }
+
+  private static byte[] getValue(final int i) {
+
+    return ("value-" + i).getBytes();
+  }
+}
@@ -434,4 +434,129 @@ public class TestSplitRootLeaf extends AbstractBTreeTestCase {
     assertEquals("#leaves", 2, btree.nleaves);
     assertEquals("#entries", 5, btree.nentries);
   }
+
+  /*
+   * Test that a split of the right-most leaf leaves that leaf full when splits are optimized for
+   * appends, while a split of any other leaf still moves half of the keys.
+   *
+   * @see BTree#setAppendSplit(boolean)
+   */
+  public void test_leafSplitBranchingFactor4_appendSplit() {
+
+    final BTree btree = getBTree(4);
+
+    btree.setAppendSplit(true);
+
+    final Leaf a = (Leaf) btree.getRoot();
+
+    for (int i = 1; i <= 5; i++) {
+
+      btree.insert(TestKeyBuilder.asSortKey(i), new SimpleEntry(i));
+    }
+
+    final Node root = (Node) btree.getRoot();
+    assertEquals(a, root.getChild(0));
+    final Leaf b = (Leaf) root.getChild(1);
+    assertEntryCounts(new int[] {4, 1}, root);
+
+    assertKeys(new int[] {1, 2, 3, 4}, a);
+    assertKeys(new int[] {5}, b);
+
+    for (int i = 6; i <= 9; i++) {
+
+      btree.insert(TestKeyBuilder.asSortKey(i), new SimpleEntry(i));
+    }
+
+    final Leaf c = (Leaf) root.getChild(2);
+    assertEntryCounts(new int[] {4, 4, 1}, root);
+
+    assertKeys(new int[] {5, 6, 7, 8}, b);
+    assertKeys(new int[] {9}, c);
+
+    assertEquals("height", 1, btree.height);
+    assertEquals("#leaves", 3, btree.nleaves);
+    assertEquals("#entries", 9, btree.nentries);
+
+    // A split of a leaf which is not the right-most leaf moves half of the keys.
+    btree.insert(TestKeyBuilder.asSortKey(10), new SimpleEntry(10));
+    btree.insert(TestKeyBuilder.asSortKey(0), new SimpleEntry(0));
+
+    assertEntryCounts(new int[] {2, 3, 4, 2}, root);
+
+    assertKeys(new int[] {0, 1}, a);
+    assertKeys(new int[] {2, 3, 4}, (Leaf) root.getChild(1));
+
+    assertEquals("#leaves", 4, btree.nleaves);
+    assertEquals("#entries", 11, btree.nentries);
+  }
+
+  /*
+   * Test that the right-most leaf is filled from its left sibling when splits are no longer
+   * optimized for appends, so the tuples may then be removed from the tail of the index without
+   * violating the B+Tree invariants.
+   *
+   * @see BTree#setAppendSplit(boolean)
+   */
+  public void test_leafSplitBranchingFactor4_appendSplit_removeFromTail() {
+
+    {
+      final BTree btree = getBTree(4);
+
+      btree.setAppendSplit(true);
+
+      for (int i = 1; i <= 9; i++) {
+
+        btree.insert(TestKeyBuilder.asSortKey(i), new SimpleEntry(i));
+      }
+
+      assertEntryCounts(new int[] {4, 4, 1}, (Node) btree.getRoot());
+
+      btree.setAppendSplit(false);
+
+      final Node root = (Node) btree.getRoot();
+      assertEntryCounts(new int[] {4, 3, 2}, root);
+
+      assertKeys(new int[] {1, 2, 3, 4}, (Leaf) root.getChild(0));
+      assertKeys(new int[] {5, 6, 7}, (Leaf) root.getChild(1));
+      assertKeys(new int[] {8, 9}, (Leaf) root.getChild(2));
+
+      assertTrue(btree.dump(Level.ERROR, System.err));
+
+      for (int i = 9; i >= 1; i--) {
+
+        assertEquals(new SimpleEntry(i), btree.remove(TestKeyBuilder.asSortKey(i)));
+
+        assertTrue(btree.dump(Level.ERROR, System.err));
+      }
+
+      assertEquals("#entries", 0, btree.nentries);
+    }
+
+    // Several levels, with leaves evicted from the write retention queue.
+    {
+      final int n = 1000;
+
+      final BTree btree = getBTree(4);
+
+      btree.setAppendSplit(true);
+
+      for (int i = 0; i < n; i++) {
+
+        btree.insert(TestKeyBuilder.asSortKey(i), new SimpleEntry(i));
+      }
+
+      btree.setAppendSplit(false);
+
+      assertTrue(btree.dump(Level.ERROR, System.err));
+
+      for (int i = n - 1; i >= n / 2; i--) {
+
+        assertEquals(new SimpleEntry(i), btree.remove(TestKeyBuilder.asSortKey(i)));
+      }
+
+      assertTrue(btree.dump(Level.ERROR, System.err));
+
+      assertEquals("#entries", n / 2, btree.nentries);
+    }
+  }
 }
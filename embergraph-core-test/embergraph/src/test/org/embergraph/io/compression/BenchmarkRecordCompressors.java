@@ -0,0 +1,255 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.io.compression;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.UUID;
+import java.util.zip.Deflater;
+import org.embergraph.btree.BTree;
+import org.embergraph.btree.ICheckpointProtocol;
+import org.embergraph.btree.ILeafCursor;
+import org.embergraph.btree.IndexMetadata;
+import org.embergraph.btree.Leaf;
+import org.embergraph.btree.SeekEnum;
+import org.embergraph.btree.keys.KeyBuilder;
+import org.embergraph.io.AbstractFixedByteArrayBuffer;
+import org.embergraph.journal.BufferMode;
+import org.embergraph.journal.Journal;
+import org.embergraph.journal.Options;
+import org.embergraph.rawstore.SimpleMemoryRawStore;
+
+/*
+ * Compares the compression ratio and the compression and decompression rates of the {@link
+ * IRecordCompressor}s on coded B+Tree leaves.
+ *
+ * <p>Usage: <code>[journalFile indexName]</code>
+ *
+ * <p>When a journal and the name of an index are given, the coded leaves of that index as of the
+ * last commit point are used, e.g. <code>kb.spo.SPO</code> for the SPO index of the default
+ * namespace. Otherwise a {@link BTree} is generated whose keys follow the layout of the SPO index
+ * (a flags byte and a term identifier for each of the subject, predicate and object, with
+ * subjects clustered and a small set of predicates).
+ */
+public class BenchmarkRecordCompressors {
+
+  /** The maximum #of leaves used for the benchmark. */
+  private static final int MAX_LEAVES = 10000;
+
+  /** The #of passes over the leaves for each compressor. */
+  private static final int NPASSES = 10;
+
+  public static void main(final String[] args) {
+
+    final List<AbstractFixedByteArrayBuffer> leaves;
+
+    if (args.length == 2) {
+
+      final Properties properties = new Properties();
+
+      properties.setProperty(Options.FILE, new File(args[0]).toString());
+
+      properties.setProperty(Options.READ_ONLY, "" + true);
+
+      properties.setProperty(Options.BUFFER_MODE, BufferMode.Disk.toString());
+
+      final Journal journal = new Journal(properties);
+
+      try {
+
+        final ICheckpointProtocol ndx =
+            journal.getIndexLocal(args[1], journal.getLastCommitTime());
+
+        if (!(ndx instanceof BTree)) {
+
+          System.err.println("Not a B+Tree: " + args[1]);
+
+          System.exit(1);
+        }
+
+        leaves = getLeaves((BTree) ndx);
+
+      } finally {
+
+        journal.close();
+      }
+
+    } else if (args.length == 0) {
+
+      leaves = getLeaves(generateSPO(200000 /* nstmts */));
+
+    } else {
+
+      System.err.println("usage: [journalFile indexName]");
+
+      System.exit(1);
+
+      return;
+    }
+
+    long nbytes = 0;
+
+    for (AbstractFixedByteArrayBuffer b : leaves) {
+
+      nbytes += b.len();
+    }
+
+    System.out.println("nleaves=" + leaves.size() + ", nbytes=" + nbytes);
+
+    final IRecordCompressor[] compressors =
+        new IRecordCompressor[] {
+          new RecordCompressor(Deflater.BEST_SPEED),
+          new RecordCompressor(Deflater.BEST_COMPRESSION),
+          new LZ4RecordCompressor(false /* highCompression */),
+          new LZ4RecordCompressor(true /* highCompression */),
+        };
+
+    for (IRecordCompressor c : compressors) {
+
+      run(c, leaves, nbytes);
+    }
+  }
+
+  private static void run(
+      final IRecordCompressor c,
+      final List<AbstractFixedByteArrayBuffer> leaves,
+      final long nbytes) {
+
+    // compress each leaf once, which also warms up the compressor.
+    final ByteBuffer[] compressed = new ByteBuffer[leaves.size()];
+
+    long ncompressed = 0;
+
+    for (int i = 0; i < compressed.length; i++) {
+
+      compressed[i] = c.compress(leaves.get(i).asByteBuffer());
+
+      ncompressed += compressed[i].remaining();
+    }
+
+    long compressNanos = 0;
+
+    long decompressNanos = 0;
+
+    for (int pass = 0; pass < NPASSES; pass++) {
+
+      final long begin = System.nanoTime();
+
+      for (AbstractFixedByteArrayBuffer b : leaves) {
+
+        c.compress(b.asByteBuffer());
+      }
+
+      final long mid = System.nanoTime();
+
+      for (ByteBuffer b : compressed) {
+
+        c.decompress(b.duplicate());
+      }
+
+      final long end = System.nanoTime();
+
+      compressNanos += mid - begin;
+
+      decompressNanos += end - mid;
+    }
+
+    final double mb = (double) nbytes * NPASSES / (1024 * 1024);
+
+    System.out.println(
+        c
+            + ": ratio="
+            + ((double) ncompressed / nbytes)
+            + ", compress="
+            + (long) (mb / (compressNanos / 1e9))
+            + "MB/s, decompress="
+            + (long) (mb / (decompressNanos / 1e9))
+            + "MB/s");
+  }
+
+  /** Return the coded leaves of the B+Tree (up to {@link #MAX_LEAVES}). */
+  private static List<AbstractFixedByteArrayBuffer> getLeaves(final BTree btree) {
+
+    final List<AbstractFixedByteArrayBuffer> leaves = new LinkedList<>();
+
+    final ILeafCursor<Leaf> cursor = btree.newLeafCursor(SeekEnum.First);
+
+    for (Leaf leaf = cursor.leaf(); leaf != null && leaves.size() < MAX_LEAVES; ) {
+
+      if (leaf.isCoded()) {
+
+        leaves.add(leaf.data());
+      }
+
+      leaf = cursor.next();
+    }
+
+    return leaves;
+  }
+
+  /*
+   * Generate a B+Tree with keys following the layout of the SPO index.
+   *
+   * @param nstmts The #of statements.
+   */
+  private static BTree generateSPO(final int nstmts) {
+
+    final Random r = new Random(nstmts);
+
+    final KeyBuilder keyBuilder = new KeyBuilder(27);
+
+    final IndexMetadata metadata = new IndexMetadata(UUID.randomUUID());
+
+    final BTree btree = BTree.create(new SimpleMemoryRawStore(), metadata);
+
+    final byte[] val = new byte[] {0};
+
+    long s = 1000;
+
+    for (int i = 0; i < nstmts; i++) {
+
+      if (r.nextInt(8) == 0) s += 1 + r.nextInt(4);
+
+      final long p = 1 + r.nextInt(30);
+
+      // objects are literals about half of the time.
+      final boolean literal = r.nextBoolean();
+
+      final long o = literal ? r.nextInt(1000000) : 1000 + r.nextInt(nstmts / 4);
+
+      keyBuilder.reset();
+
+      keyBuilder.append((byte) 0x01).append(s);
+
+      keyBuilder.append((byte) 0x01).append(p);
+
+      keyBuilder.append((byte) (literal ? 0x02 : 0x01)).append(o);
+
+      btree.insert(keyBuilder.getKey(), val);
+    }
+
+    // code the leaves.
+    btree.writeCheckpoint();
+
+    return btree;
+  }
+}
@@ -57,6 +57,10 @@ public class TestAll extends TestCase {
 
     suite.addTestSuite(TestRecordCompressor_BestCompression.class);
 
+    suite.addTestSuite(TestLZ4RecordCompressor.class);
+
+    suite.addTestSuite(TestLZ4RecordCompressor_HighCompression.class);
+
     // Test suite for message compression.
     suite.addTestSuite(TestCompressorRegistry.class);
 
@@ -27,14 +27,18 @@ import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.Map;
+import java.util.Properties;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import org.embergraph.btree.AbstractBTreeTestCase;
 import org.embergraph.btree.BTree;
 import org.embergraph.btree.BaseIndexStats;
+import org.embergraph.btree.IIndex;
 import org.embergraph.btree.IndexMetadata;
 import org.embergraph.btree.keys.KV;
+import org.embergraph.counters.CounterSet;
+import org.embergraph.counters.ICounter;
 
 /*
  * Test suite for {@link WarmUpTask}.
@@ -411,4 +415,141 @@ public class TestWarmupJournal extends ProxyTestCase<Journal> {
       out.delete();
     }
   }
+
+  /*
+   * Verify that the progress of the warm up procedure is reported by the performance counters of
+   * the warm up task and of the journal.
+   */
+  public void test_warmUpCounters() throws IOException, InterruptedException, ExecutionException {
+
+    final Journal src = getStore(getProperties());
+
+    try {
+
+      final String NAME = "testIndex";
+      src.registerIndex(new IndexMetadata(NAME, UUID.randomUUID()));
+      {
+        final BTree ndx = src.getIndex(NAME);
+        for (KV kv : AbstractBTreeTestCase.getRandomKeyValues(10000 /* ntuples */)) {
+          ndx.insert(kv.key, kv.val);
+        }
+      }
+      src.commit();
+
+      assertNull(src.getWarmUpTask());
+
+      // read the leaves as well as the nodes.
+      final Future<Map<String, BaseIndexStats>> f =
+          src.warmUp(null /* namespaces */, ITx.READ_COMMITTED, 4 /* nparallel */, true);
+
+      final BaseIndexStats stats = f.get().get(NAME);
+
+      final WarmUpTask task = src.getWarmUpTask();
+
+      assertNotNull(task);
+
+      assertTrue(task.isDone());
+
+      final CounterSet counters = task.getCounters();
+
+      assertEquals(
+          stats.nnodes + stats.nleaves,
+          ((Long) ((ICounter<?>) counters.getChild("pagesRead")).getInstrument().getValue())
+              .longValue());
+
+      assertEquals(
+          100d,
+          ((Double) ((ICounter<?>) counters.getChild("percentComplete")).getInstrument().getValue())
+              .doubleValue(),
+          0d);
+
+      assertNotNull(
+          src.getCounters().getPath("/Journal/" + Journal.IJournalCounters.warmUp + "/pagesRead"));
+
+    } finally {
+
+      src.destroy();
+    }
+  }
+
+  /*
+   * Test the warm start snapshot. The materialized nodes and leaves of a read-only index view are
+   * written onto the snapshot file and then prefetched from the backing file.
+   */
+  public void test_warmStartSnapshot()
+      throws IOException, InterruptedException, ExecutionException {
+
+    final Journal src = getStore(getProperties());
+
+    try {
+
+      if (src.getFile() == null || !WarmStartSnapshot.isSupported(src.getBufferStrategy())) {
+
+        // Not supported for this mode.
+        return;
+      }
+
+      final String NAME = "testIndex";
+      src.registerIndex(new IndexMetadata(NAME, UUID.randomUUID()));
+      final KV[] a = AbstractBTreeTestCase.getRandomKeyValues(10000 /* ntuples */);
+      {
+        final BTree ndx = src.getIndex(NAME);
+        for (KV kv : a) {
+          ndx.insert(kv.key, kv.val);
+        }
+      }
+      final long commitTime = src.commit();
+
+      // Materialize some nodes and leaves in a read-only view.
+      final IIndex view = src.getIndex(NAME, commitTime);
+      for (int i = 0; i < 100; i++) {
+        assertNotNull(view.lookup(a[r.nextInt(a.length)].key));
+      }
+
+      final File file = File.createTempFile(getName(), WarmStartSnapshot.EXT);
+
+      try {
+
+        final WarmStartSnapshot snapshot = new WarmStartSnapshot(src, file, 1000, 4);
+
+        // The root and at least one leaf are materialized.
+        assertTrue(snapshot.snapshot() >= 2);
+
+        assertTrue(snapshot.prefetch() > 0L);
+
+        // A snapshot for another store is ignored.
+        final Journal other;
+        {
+          // Note: clone to avoid modifying!!!
+          final Properties properties = (Properties) getProperties().clone();
+
+          // Always use a distinct backing file for the other store.
+          properties.remove(Options.FILE);
+          properties.setProperty(Options.CREATE_TEMP_FILE, "true");
+
+          other = getStore(properties);
+        }
+
+        try {
+
+          if (other.getFile() != null) {
+
+            assertEquals(0L, new WarmStartSnapshot(other, file, 1000, 4).prefetch());
+          }
+
+        } finally {
+
+          other.destroy();
+        }
+
+      } finally {
+
+        file.delete();
+      }
+
+    } finally {
+
+      src.destroy();
+    }
+  }
 }
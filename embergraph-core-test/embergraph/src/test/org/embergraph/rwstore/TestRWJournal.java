@@ -24,6 +24,7 @@ package org.embergraph.rwstore;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.Properties;
@@ -33,6 +34,7 @@ import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongPredicate;
 import junit.extensions.proxy.ProxyTestSuite;
 import junit.framework.Test;
 import org.embergraph.btree.BTree;
@@ -41,8 +43,10 @@ import org.embergraph.btree.IIndex;
 import org.embergraph.btree.ITuple;
 import org.embergraph.btree.ITupleIterator;
 import org.embergraph.btree.IndexMetadata;
+import org.embergraph.btree.NodeRelocator;
 import org.embergraph.btree.SimpleEntry;
 import org.embergraph.btree.keys.KeyBuilder;
+import org.embergraph.ha.halog.HALogWriter;
 import org.embergraph.journal.AbstractInterruptsTestCase;
 import org.embergraph.journal.AbstractJournal.ISnapshotEntry;
 import org.embergraph.journal.AbstractJournalTestCase;
@@ -56,6 +60,7 @@ import org.embergraph.journal.ICommitRecord;
 import org.embergraph.journal.IRootBlockView;
 import org.embergraph.journal.Journal;
 import org.embergraph.journal.Journal.Options;
+import org.embergraph.journal.OnlineCompaction;
 import org.embergraph.journal.RWStrategy;
 import org.embergraph.journal.TestJournalAbort;
 import org.embergraph.journal.TestJournalBasics;
@@ -591,6 +596,8 @@ public class TestRWJournal extends AbstractJournalTestCase {
 
       properties.setProperty(RWStore.Options.READ_BLOBS_ASYNC, "true");
 
+      properties.setProperty(RWStore.Options.READ_BATCH_ASYNC, "true");
+
       // Size of META_BITS_BLOCKS
       properties.setProperty(RWStore.Options.META_BITS_SIZE, "9");
 
@@ -2696,6 +2703,629 @@ public class TestRWJournal extends AbstractJournalTestCase {
       }
     }
 
+    /*
+     * Verify that committed records are read from the memory mapping of the file while records which
+     * are not yet committed are read through the write cache. The segment size is small so that the
+     * records span several segments and the mapping is extended as the file grows.
+     *
+     * @see RWStore.Options#MEMORY_MAPPED_READS
+     */
+    public void test_memoryMappedReads() {
+
+      final Properties properties = new Properties(getProperties());
+
+      properties.setProperty(RWStore.Options.MEMORY_MAPPED_READS, "true");
+
+      // 1MB segments.
+      properties.setProperty(RWStore.Options.MEMORY_MAPPED_SEGMENT_SHIFT, "20");
+
+      final Journal store = getStore(properties);
+
+      try {
+
+        final RWStrategy bs = (RWStrategy) store.getBufferStrategy();
+
+        final int nrecs = 2000;
+
+        final long[] addrs = new long[2 * nrecs];
+
+        final ByteBuffer[] data = new ByteBuffer[2 * nrecs];
+
+        for (int pass = 0; pass < 2; pass++) {
+
+          for (int i = pass * nrecs; i < (pass + 1) * nrecs; i++) {
+
+            data[i] = randomData(1 + r.nextInt(2000));
+
+            addrs[i] = bs.write(data[i]);
+
+            data[i].position(0);
+          }
+
+          // Not committed, so read through the write cache.
+          for (int i = pass * nrecs; i < (pass + 1) * nrecs; i++) {
+
+            assertEquals(data[i], bs.read(addrs[i]));
+          }
+
+          store.commit();
+
+          // Committed, so read from the mapping.
+          for (int i = 0; i < (pass + 1) * nrecs; i++) {
+
+            final ByteBuffer b = bs.read(addrs[i]);
+
+            assertTrue(b.isDirect());
+
+            assertTrue(b.isReadOnly());
+
+            assertEquals(data[i], b);
+          }
+        }
+
+      } finally {
+        store.destroy();
+      }
+    }
+
+    /*
+     * Verify that an online compaction pass relocates the nodes and leaves of an index out of the
+     * sparsely used allocators and that the index is intact, including once the journal has been
+     * re-opened. The leaves of the index are interleaved with filler records which are then deleted
+     * so the allocators holding the index become sparse.
+     *
+     * @see OnlineCompaction
+     */
+    public void test_onlineCompaction() {
+
+      doOnlineCompactionTest(false /* memoryMappedReads */);
+    }
+
+    /*
+     * Verify that the file is not truncated by an online compaction pass while memory mapped reads
+     * are enabled, so a slice of the mapping which was read before the pass remains valid.
+     *
+     * @see RWStore.Options#MEMORY_MAPPED_READS
+     */
+    public void test_onlineCompaction_memoryMappedReads() {
+
+      doOnlineCompactionTest(true /* memoryMappedReads */);
+    }
+
+    private void doOnlineCompactionTest(final boolean memoryMappedReads) {
+
+      final Properties properties = new Properties(getProperties());
+
+      if (memoryMappedReads) {
+
+        properties.setProperty(RWStore.Options.MEMORY_MAPPED_READS, "true");
+      }
+
+      properties.setProperty(AbstractTransactionService.Options.MIN_RELEASE_AGE, "0");
+
+      // Passes are requested explicitly by the test.
+      properties.setProperty(Journal.Options.ONLINE_COMPACTION_INTERVAL, "3600000");
+
+      properties.setProperty(Journal.Options.ONLINE_COMPACTION_MAX_USAGE, ".5");
+
+      properties.setProperty(Journal.Options.ONLINE_COMPACTION_LEAVES_PER_COMMIT, "10");
+
+      Journal store = getStore(properties);
+
+      try {
+
+        final RWStrategy bs = (RWStrategy) store.getBufferStrategy();
+
+        final String name = "test";
+
+        {
+          final IndexMetadata metadata = new IndexMetadata(name, UUID.randomUUID());
+
+          metadata.setBranchingFactor(16);
+
+          store.registerIndex(metadata);
+
+          store.commit();
+        }
+
+        final KeyBuilder keyBuilder = new KeyBuilder(Bytes.SIZEOF_INT);
+
+        final int nkeys = 2000;
+
+        final ArrayList<Long> filler = new ArrayList<>();
+
+        for (int i = 0; i < nkeys; i++) {
+
+          final byte[] key = keyBuilder.reset().append(i).getKey();
+
+          store.getIndex(name).insert(key, key);
+
+          if (i % 50 == 49) {
+
+            for (int j = 0; j < 20; j++) {
+
+              filler.add(bs.write(randomData(100 + r.nextInt(500))));
+            }
+
+            store.commit();
+          }
+        }
+
+        // Release the filler records, leaving the allocators which hold the index sparse.
+        for (long addr : filler) {
+
+          bs.delete(addr);
+        }
+
+        for (int i = 0; i < 3; i++) {
+
+          commitSomeData(store);
+        }
+
+        // A committed record which is not relocated by the pass.
+        final ByteBuffer data = randomData(100);
+
+        final long addr = bs.write(data);
+
+        data.position(0);
+
+        store.commit();
+
+        final ByteBuffer slice = bs.read(addr);
+
+        final long length = store.getFile().length();
+
+        final OnlineCompaction compaction = store.getOnlineCompaction();
+
+        assertNotNull(compaction);
+
+        compaction.requestPass();
+
+        // Each commit runs an increment of the pass.
+        int ncommits = 0;
+
+        do {
+
+          store.commit();
+
+          ncommits++;
+
+        } while (compaction.isActive() && ncommits < 1000);
+
+        assertFalse(compaction.isActive());
+
+        final RWStore rw = bs.getStore();
+
+        assertTrue(rw.getDrainingAllocatorCount() > 0);
+
+        // No node or leaf of the index remains on a draining allocator.
+        final NodeRelocator check =
+            new NodeRelocator(
+                new LongPredicate() {
+                  @Override
+                  public boolean test(final long addr) {
+                    return rw.isDraining((int) (addr >> 32));
+                  }
+                });
+
+        assertEquals(0, check.relocate(store.getIndex(name), Integer.MAX_VALUE));
+
+        assertTrue(check.isExhausted());
+
+        if (memoryMappedReads) {
+
+          // The file was not truncated beneath the mapping.
+          assertTrue(store.getFile().length() >= length);
+
+          assertEquals(data, slice);
+        }
+
+        for (int pass = 0; pass < 2; pass++) {
+
+          final BTree btree = store.getIndex(name);
+
+          assertEquals(nkeys, btree.getEntryCount());
+
+          for (int i = 0; i < nkeys; i++) {
+
+            final byte[] key = keyBuilder.reset().append(i).getKey();
+
+            assertEquals(key, btree.lookup(key));
+          }
+
+          if (pass == 0) {
+
+            store = (Journal) reopenStore(store);
+          }
+        }
+
+      } finally {
+        store.destroy();
+      }
+    }
+
+    /*
+     * Verify that a batch read returns the same records as reading each record in turn, first while
+     * the records are in the write cache and then once the journal has been re-opened, when the
+     * records must be read from the disk.
+     *
+     * @see RWStore#getData(int[], int[])
+     */
+    public void test_readBatch() {
+
+      Journal store = getStore(0);
+
+      try {
+
+        final int nrecords = 500;
+
+        final long[] addrs = new long[nrecords];
+
+        final byte[][] records = new byte[nrecords][];
+
+        for (int i = 0; i < nrecords; i++) {
+
+          records[i] = new byte[1 + r.nextInt(2000)];
+
+          r.nextBytes(records[i]);
+
+          addrs[i] = store.write(ByteBuffer.wrap(records[i]));
+        }
+
+        store.commit();
+
+        for (int pass = 0; pass < 2; pass++) {
+
+          final int[] order = getRandomOrder(nrecords);
+
+          final long[] a = new long[nrecords];
+
+          for (int i = 0; i < nrecords; i++) {
+
+            a[i] = addrs[order[i]];
+          }
+
+          final RWStore rw = ((RWStrategy) store.getBufferStrategy()).getStore();
+
+          // Publish the counters on each release rather than in batches.
+          rw.setStoreCounters(new RWStore.StoreCounters(1 /* batchSize */));
+
+          final long ndiskRead = rw.getStoreCounters().ndiskRead;
+
+          final ByteBuffer[] b = store.readBatch(a);
+
+          assertEquals(nrecords, b.length);
+
+          for (int i = 0; i < nrecords; i++) {
+
+            assertEquals(records[order[i]], b[i]);
+          }
+
+          if (pass == 0) {
+
+            store = (Journal) reopenStore(store);
+
+          } else {
+
+            // Nothing is buffered once the journal has been re-opened.
+            assertTrue(rw.getStoreCounters().ndiskRead - ndiskRead >= nrecords);
+          }
+        }
+
+      } finally {
+        store.destroy();
+      }
+    }
+
+    /*
+     * Verify that the interior nodes of an index (but not its leaves) are copied onto the fast tier
+     * as they are written, that the copies are the records on the store, and that the copies are
+     * discarded once the nodes have been released.
+     *
+     * @see RWStore.Options#FAST_TIER_FILE
+     */
+    public void test_fastTier() throws IOException {
+
+      final File file = File.createTempFile(getName(), ".tier");
+
+      final Properties properties = new Properties(getProperties());
+
+      properties.setProperty(AbstractTransactionService.Options.MIN_RELEASE_AGE, "0");
+
+      properties.setProperty(RWStore.Options.FAST_TIER_FILE, file.getAbsolutePath());
+
+      properties.setProperty(RWStore.Options.FAST_TIER_CAPACITY, "" + Bytes.megabyte);
+
+      final Journal store = getStore(properties);
+
+      try {
+
+        final RWStore rw = ((RWStrategy) store.getBufferStrategy()).getStore();
+
+        final FastTierFile tier = rw.getFastTier();
+
+        assertNotNull(tier);
+
+        assertTrue(store.isFastTierEnabled());
+
+        final String name = "test";
+
+        {
+          final IndexMetadata metadata = new IndexMetadata(name, UUID.randomUUID());
+
+          metadata.setBranchingFactor(16);
+
+          store.registerIndex(metadata);
+
+          store.commit();
+        }
+
+        final KeyBuilder keyBuilder = new KeyBuilder(Bytes.SIZEOF_INT);
+
+        final int nkeys = 10000;
+
+        for (int i = 0; i < nkeys; i++) {
+
+          final byte[] key = keyBuilder.reset().append(i).getKey();
+
+          store.getIndex(name).insert(key, key);
+        }
+
+        store.commit();
+
+        final BTree btree = store.getIndex(name);
+
+        assertTrue(btree.getHeight() > 1);
+
+        // Only the current interior nodes are on the fast tier.
+        assertEquals(btree.getNodeCount(), tier.size());
+
+        final long rootAddr = btree.getRootAddr();
+
+        final ByteBuffer b = tier.read((int) (rootAddr >> 32));
+
+        assertNotNull(b);
+
+        assertEquals(store.read(rootAddr), b);
+
+        /*
+         * Release the nodes and leaves. Note: removeAll() does not release the storage for an index
+         * on a journal, so the keys are removed one at a time and the nodes and leaves are released
+         * as they are copied on write.
+         */
+        for (int i = 0; i < nkeys; i++) {
+
+          btree.remove(keyBuilder.reset().append(i).getKey());
+        }
+
+        assertEquals(0, btree.getNodeCount());
+
+        store.commit();
+
+        for (int i = 0; i < 3; i++) {
+
+          commitSomeData(store);
+        }
+
+        assertEquals(0, tier.size());
+
+        assertNull(tier.read((int) (rootAddr >> 32)));
+
+      } finally {
+        store.destroy();
+      }
+
+      // The fast tier is not retained.
+      assertFalse(file.exists());
+    }
+
+    /*
+     * Verify that the commits since the last checkpoint are recovered from the redo log. The
+     * failure is simulated by restoring a copy of the backing file taken before those commits
+     * together with a copy of the redo logs taken after them.
+     *
+     * @see RWStore.Options#REDO_LOG_DIR
+     */
+    public void test_redoLog() throws IOException {
+
+      final File file = File.createTempFile(getName(), Options.JNL);
+
+      final File dir = Files.createTempDirectory(getName()).toFile();
+
+      final File fileCopy = new File(file.getPath() + ".copy");
+
+      final File dirCopy = new File(dir.getPath() + ".copy");
+
+      final Properties properties = new Properties(getProperties());
+
+      properties.setProperty(Options.FILE, file.getAbsolutePath());
+
+      properties.setProperty(Options.CREATE_TEMP_FILE, "false");
+
+      properties.setProperty(RWStore.Options.REDO_LOG_DIR, dir.getAbsolutePath());
+
+      properties.setProperty(RWStore.Options.REDO_LOG_CHECKPOINT_INTERVAL, "1000");
+
+      Journal store = new Journal(properties);
+
+      try {
+
+        assertTrue(((RWStrategy) store.getBufferStrategy()).getStore().isRedoLogEnabled());
+
+        final long commitCounter = store.getRootBlockView().getCommitCounter();
+
+        // The backing file before the commits.
+        copy(file, fileCopy);
+
+        final int nrecords = 200;
+
+        final long[] addrs = new long[nrecords];
+
+        final byte[][] records = new byte[nrecords][];
+
+        for (int i = 0; i < nrecords; i++) {
+
+          records[i] = new byte[1 + r.nextInt(2000)];
+
+          r.nextBytes(records[i]);
+
+          addrs[i] = store.write(ByteBuffer.wrap(records[i]));
+
+          if (i == nrecords / 2) store.commit();
+        }
+
+        store.commit();
+
+        assertEquals(commitCounter + 2, store.getRootBlockView().getCommitCounter());
+
+        // The commits were sealed on the redo log.
+        for (long cc = commitCounter + 1; cc <= commitCounter + 2; cc++) {
+
+          assertTrue(HALogWriter.getHALogFileName(dir, cc).exists());
+        }
+
+        // The redo logs after the commits.
+        copy(dir, dirCopy);
+
+        // Note: This checkpoints the store and removes the redo logs.
+        store.close();
+
+        assertFalse(HALogWriter.getHALogFileName(dir, commitCounter + 1).exists());
+
+        // Simulate the loss of the writes on the backing file.
+        copy(fileCopy, file);
+
+        copy(dirCopy, dir);
+
+        store = new Journal(properties);
+
+        assertEquals(commitCounter + 2, store.getRootBlockView().getCommitCounter());
+
+        for (int i = 0; i < nrecords; i++) {
+
+          assertEquals(records[i], store.read(addrs[i]));
+        }
+
+        // The redo logs were removed once they were replayed.
+        assertFalse(HALogWriter.getHALogFileName(dir, commitCounter + 1).exists());
+
+      } finally {
+
+        store.destroy();
+
+        delete(fileCopy);
+
+        delete(dirCopy);
+
+        delete(dir);
+      }
+    }
+
+    /*
+     * Verify that a checkpoint removes the redo logs for the commits which it made durable on the
+     * backing file.
+     *
+     * @see RWStore.Options#REDO_LOG_CHECKPOINT_INTERVAL
+     */
+    public void test_redoLogCheckpoint() throws IOException {
+
+      final File dir = Files.createTempDirectory(getName()).toFile();
+
+      final Properties properties = new Properties(getProperties());
+
+      properties.setProperty(RWStore.Options.REDO_LOG_DIR, dir.getAbsolutePath());
+
+      properties.setProperty(RWStore.Options.REDO_LOG_CHECKPOINT_INTERVAL, "1000");
+
+      final Journal store = getStore(properties);
+
+      try {
+
+        final RedoLog redoLog = ((RWStrategy) store.getBufferStrategy()).getStore().getRedoLog();
+
+        assertNotNull(redoLog);
+
+        final long commitCounter = store.getRootBlockView().getCommitCounter();
+
+        for (int i = 0; i < 3; i++) {
+
+          store.write(getRandomData());
+
+          store.commit();
+        }
+
+        assertEquals(3, redoLog.getUncheckpointedCommitCount());
+
+        redoLog.checkpoint();
+
+        assertEquals(0, redoLog.getUncheckpointedCommitCount());
+
+        assertEquals(1, redoLog.getCheckpointCount());
+
+        for (long cc = commitCounter + 1; cc <= commitCounter + 3; cc++) {
+
+          assertFalse(HALogWriter.getHALogFileName(dir, cc).exists());
+        }
+
+        // The records are still readable.
+        final byte[] data = new byte[1 + r.nextInt(2000)];
+
+        r.nextBytes(data);
+
+        final long addr = store.write(ByteBuffer.wrap(data));
+
+        store.commit();
+
+        assertEquals(data, store.read(addr));
+
+      } finally {
+
+        store.destroy();
+
+        delete(dir);
+      }
+    }
+
+    /** Copy a file or a directory (recursively), replacing the target. */
+    private void copy(final File from, final File to) throws IOException {
+
+      delete(to);
+
+      if (from.isDirectory()) {
+
+        if (!to.mkdirs()) throw new IOException("Could not create: " + to);
+
+        final File[] children = from.listFiles();
+
+        if (children != null) {
+          for (File f : children) {
+            copy(f, new File(to, f.getName()));
+          }
+        }
+
+      } else {
+
+        Files.copy(from.toPath(), to.toPath());
+      }
+    }
+
+    /** Delete a file or a directory (recursively). */
+    private void delete(final File f) {
+
+      if (f.isDirectory()) {
+
+        final File[] children = f.listFiles();
+
+        if (children != null) {
+          for (File c : children) {
+            delete(c);
+          }
+        }
+      }
+
+      f.delete();
+    }
+
     /*
      * Verify that we correctly restore the RWStore commit state if {@link RWStore#commit()} is
      * followed by {@link RWStore#reset()} rather than {@link RWStore#postCommit()}.
@@ -77,6 +77,17 @@ public class ChunkedMaterializationOp extends PipelineOp {
 
     /** Default materialize all is false. */
     boolean DEFAULT_MATERIALIZE_INLINE_IVS = false;
+
+    /*
+     * The maximum #of solutions which are materialized in one batch (default {@value
+     * #DEFAULT_MAX_BATCH_SIZE}). A larger chunk of solutions is materialized in slices and each
+     * slice is written onto the sink as soon as it has been resolved. The first solutions of a
+     * large chunk (for example, the output of an ORDER BY) may then be consumed downstream before
+     * the last ones have been resolved. When ZERO (0), each chunk is materialized in a single batch.
+     */
+    String MAX_BATCH_SIZE = ChunkedMaterializationOp.class.getName() + ".maxBatchSize";
+
+    int DEFAULT_MAX_BATCH_SIZE = 2000;
   }
 
   /*
@@ -145,6 +156,16 @@ public class ChunkedMaterializationOp extends PipelineOp {
         Annotations.MATERIALIZE_INLINE_IVS, Annotations.DEFAULT_MATERIALIZE_INLINE_IVS);
   }
 
+  /*
+   * The maximum #of solutions which are materialized in one batch.
+   *
+   * @see Annotations#MAX_BATCH_SIZE
+   */
+  public int getMaxBatchSize() {
+
+    return getProperty(Annotations.MAX_BATCH_SIZE, Annotations.DEFAULT_MAX_BATCH_SIZE);
+  }
+
   @Override
   public FutureTask<Void> eval(final BOpContext<IBindingSet> context) {
 
@@ -165,6 +186,8 @@ public class ChunkedMaterializationOp extends PipelineOp {
 
     private final boolean materializeInlineIVs;
 
+    private final int maxBatchSize;
+
     ChunkTask(final ChunkedMaterializationOp op, final BOpContext<IBindingSet> context) {
 
       this.context = context;
@@ -176,6 +199,8 @@ public class ChunkedMaterializationOp extends PipelineOp {
       timestamp = (Long) op.getProperty(Annotations.TIMESTAMP);
 
       materializeInlineIVs = op.materializeInlineIVs();
+
+      maxBatchSize = op.getMaxBatchSize();
     }
 
     @Override
@@ -198,9 +223,21 @@ public class ChunkedMaterializationOp extends PipelineOp {
           stats.chunksIn.increment();
           stats.unitsIn.add(a.length);
 
-          final IBindingSet[] aOut = resolveChunk(vars, lex, a, materializeInlineIVs);
+          if (maxBatchSize <= 0 || a.length <= maxBatchSize) {
+
+            sink.add(resolveChunk(vars, lex, a, materializeInlineIVs));
 
-          sink.add(aOut);
+            continue;
+          }
+
+          // Resolve and emit the chunk in slices.
+          for (int fromIndex = 0; fromIndex < a.length; fromIndex += maxBatchSize) {
+
+            final IBindingSet[] slice =
+                Arrays.copyOfRange(a, fromIndex, Math.min(a.length, fromIndex + maxBatchSize));
+
+            sink.add(resolveChunk(vars, lex, slice, materializeInlineIVs));
+          }
         }
 
         sink.flush();
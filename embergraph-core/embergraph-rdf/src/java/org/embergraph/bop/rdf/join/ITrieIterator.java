@@ -0,0 +1,63 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.bop.rdf.join;
+
+import org.embergraph.rdf.internal.IV;
+
+/*
+ * A trie iterator over the tuples of a single atom of a {@link LeapfrogTriejoinOp}. Each level of
+ * the trie corresponds to one variable of the atom. The levels are ordered by the global variable
+ * order of the join. The keys at each level are the unsigned byte[] encodings of the {@link IV}s,
+ * which are visited in ascending order. Since the {@link IV} encodings are prefix free, the order
+ * of the keys at each level is the order in which the corresponding components appear in the
+ * statement indices.
+ *
+ * <p>The iterator starts at depth <code>-1</code> (the root). {@link #open()} descends to the first
+ * key of the next level beneath the current key and {@link #up()} returns to the parent level.
+ *
+ * @see <a href="https://arxiv.org/abs/1210.0481">Leapfrog Triejoin: a worst-case optimal join
+ *     algorithm</a>
+ */
+public interface ITrieIterator {
+
+  /** Descend to the first key at the next level beneath the current key. */
+  void open();
+
+  /** Return to the parent level. The parent level is positioned on the same key as before. */
+  void up();
+
+  /** Return <code>true</code> iff there are no more keys at the current level. */
+  boolean atEnd();
+
+  /** The key at the current level (the encoded {@link IV}). */
+  byte[] key();
+
+  /** The {@link IV} for the key at the current level. */
+  IV<?, ?> value();
+
+  /** Advance to the next key at the current level. */
+  void next();
+
+  /*
+   * Advance to the least key at the current level which is GTE the given key. This is a NOP if the
+   * current key is already GTE the given key.
+   *
+   * @param key The probe key.
+   */
+  void seek(byte[] key);
+}
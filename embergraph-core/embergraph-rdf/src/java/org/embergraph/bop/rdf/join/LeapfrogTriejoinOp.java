@@ -0,0 +1,893 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.bop.rdf.join;
+
+import cutthecrap.utils.striterators.ICloseableIterator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import org.embergraph.bop.BOp;
+import org.embergraph.bop.BOpContext;
+import org.embergraph.bop.Constant;
+import org.embergraph.bop.IBindingSet;
+import org.embergraph.bop.IConstraint;
+import org.embergraph.bop.IPredicate;
+import org.embergraph.bop.IVariable;
+import org.embergraph.bop.IVariableOrConstant;
+import org.embergraph.bop.NV;
+import org.embergraph.bop.PipelineOp;
+import org.embergraph.bop.bindingSet.ListBindingSet;
+import org.embergraph.bop.engine.BOpStats;
+import org.embergraph.bop.join.JoinAnnotations;
+import org.embergraph.btree.ITupleCursor;
+import org.embergraph.btree.keys.IKeyBuilder;
+import org.embergraph.btree.keys.KeyBuilder;
+import org.embergraph.rdf.internal.IV;
+import org.embergraph.rdf.internal.IVUtility;
+import org.embergraph.rdf.spo.ISPO;
+import org.embergraph.rdf.spo.SPOKeyOrder;
+import org.embergraph.rdf.spo.SPORelation;
+import org.embergraph.relation.accesspath.AccessPath;
+import org.embergraph.relation.accesspath.IAccessPath;
+import org.embergraph.relation.accesspath.IBlockingBuffer;
+import org.embergraph.relation.accesspath.UnsyncLocalOutputBuffer;
+import org.embergraph.util.BytesUtil;
+
+/*
+ * A worst-case optimal multiway join of the source solutions with a set of statement patterns using
+ * the Leapfrog Triejoin algorithm. Rather than joining one statement pattern at a time, the
+ * variables of the statement patterns are bound one at a time in a global variable order. The
+ * bindings for each variable are found by intersecting the keys of all statement patterns in which
+ * that variable appears. The intersection is computed by leapfrogging over sorted iterators, each
+ * of which seeks forward to the largest key seen so far. For cyclic patterns, such as triangles, the
+ * work is bounded by the worst-case output size of the join rather than by the size of the
+ * intermediate results of a binary join plan.
+ *
+ * <p>Each statement pattern is read as an {@link ITrieIterator}. When one of the statement indices
+ * has a key order which places the variables of the statement pattern in the global variable order,
+ * the trie iterator seeks directly on that index using an {@link ITupleCursor}. Constants which
+ * follow a variable in that key order are handled by a skip scan. The statement patterns are never
+ * materialized in memory: the join is only planned for a variable order in which each statement
+ * pattern can be read from some statement index (see {@link #getVariableOrder(SPORelation,
+ * IPredicate[], Set)}).
+ *
+ * <p>With two statement patterns which share a single variable, this is a streaming sort-merge join
+ * of the two statement indices: the shared variable is bound first (see {@link
+ * Annotations#VARIABLE_ORDER}) and the two cursors gallop over each other's keys in index order.
+ *
+ * <p>This operator is only used for triples mode statement patterns without access path filters or
+ * expanders (see {@link #isSupported(IPredicate)}) since the filters can not be applied to a cursor
+ * which seeks on the index. The evaluation context is {@link BOpEvaluationContext#ANY}.
+ *
+ * @see <a href="https://arxiv.org/abs/1210.0481">Leapfrog Triejoin: a worst-case optimal join
+ *     algorithm</a>
+ */
+public class LeapfrogTriejoinOp extends PipelineOp {
+
+  /** */
+  private static final long serialVersionUID = 1L;
+
+  public interface Annotations extends JoinAnnotations {
+
+    /*
+     * The {@link IPredicate}[] for the statement patterns to be joined (required). The predicates
+     * must be required (non-optional) triple patterns.
+     */
+    String PREDICATES = LeapfrogTriejoinOp.class.getName() + ".predicates";
+
+    /*
+     * An {@link IVariable}[] giving the leading variables of the global variable order (optional).
+     * The variables which are not listed follow in the default order, which places the variables
+     * appearing in the most statement patterns first. The query planner specifies the complete
+     * variable order since each statement pattern must be readable from a statement index in that
+     * order.
+     */
+    String VARIABLE_ORDER = LeapfrogTriejoinOp.class.getName() + ".variableOrder";
+  }
+
+  /*
+   * Deep copy constructor.
+   *
+   * @param op
+   */
+  public LeapfrogTriejoinOp(final LeapfrogTriejoinOp op) {
+
+    super(op);
+  }
+
+  /*
+   * Shallow copy constructor.
+   *
+   * @param args
+   * @param annotations
+   */
+  public LeapfrogTriejoinOp(final BOp[] args, final Map<String, Object> annotations) {
+
+    super(args, annotations);
+
+    final IPredicate<?>[] preds = getPredicates();
+
+    if (preds.length == 0) throw new IllegalArgumentException(Annotations.PREDICATES);
+
+    for (IPredicate<?> pred : preds) {
+
+      if (pred.isOptional()) throw new UnsupportedOperationException();
+    }
+  }
+
+  public LeapfrogTriejoinOp(final BOp[] args, final NV... annotations) {
+
+    this(args, NV.asMap(annotations));
+  }
+
+  /** @see Annotations#PREDICATES */
+  public IPredicate<?>[] getPredicates() {
+
+    return (IPredicate<?>[]) getRequiredProperty(Annotations.PREDICATES);
+  }
+
+  /** @see Annotations#VARIABLE_ORDER */
+  public IVariable<?>[] getVariableOrder() {
+
+    return getProperty(Annotations.VARIABLE_ORDER, null /* defaultValue */);
+  }
+
+  /** @see Annotations#SELECT */
+  protected IVariable<?>[] getSelect() {
+
+    return getProperty(Annotations.SELECT, null /* defaultValue */);
+  }
+
+  /** @see Annotations#CONSTRAINTS */
+  protected IConstraint[] constraints() {
+
+    return getProperty(Annotations.CONSTRAINTS, null /* defaultValue */);
+  }
+
+  @Override
+  public FutureTask<Void> eval(final BOpContext<IBindingSet> context) {
+
+    return new FutureTask<>(new ChunkTask(this, context));
+  }
+
+  /*
+   * Return the cyclic core of a join hypergraph using the GYO reduction. Variables which appear in
+   * only one edge are removed, as are edges which are empty or contained in another edge, until
+   * neither rule applies. The edges which remain form the cyclic core. The core is empty iff the
+   * hypergraph is alpha-acyclic, in which case a binary join plan is already efficient.
+   *
+   * @param edges The variables of each statement pattern (variables which are known to be bound on
+   *     entry should not be included).
+   * @return The indices of the edges in the cyclic core, in ascending order.
+   */
+  public static int[] getCyclicCore(final List<Set<IVariable<?>>> edges) {
+
+    final int n = edges.size();
+
+    final List<Set<IVariable<?>>> e = new ArrayList<>(n);
+
+    for (Set<IVariable<?>> edge : edges) {
+
+      e.add(new LinkedHashSet<>(edge));
+    }
+
+    final boolean[] removed = new boolean[n];
+
+    boolean modified;
+
+    do {
+
+      modified = false;
+
+      // Remove the variables which appear in just one edge.
+      final Map<IVariable<?>, Integer> counts = new HashMap<>();
+
+      for (int i = 0; i < n; i++) {
+
+        if (removed[i]) continue;
+
+        for (IVariable<?> v : e.get(i)) counts.merge(v, 1, Integer::sum);
+      }
+
+      for (int i = 0; i < n; i++) {
+
+        if (removed[i]) continue;
+
+        if (e.get(i).removeIf(v -> counts.get(v) == 1)) modified = true;
+      }
+
+      // Remove the edges which are empty or contained in another edge.
+      for (int i = 0; i < n; i++) {
+
+        if (removed[i]) continue;
+
+        if (e.get(i).isEmpty()) {
+
+          removed[i] = modified = true;
+
+          continue;
+        }
+
+        for (int j = 0; j < n; j++) {
+
+          if (i == j || removed[j]) continue;
+
+          if (e.get(j).containsAll(e.get(i))) {
+
+            removed[i] = modified = true;
+
+            break;
+          }
+        }
+      }
+
+    } while (modified);
+
+    int m = 0;
+
+    for (int i = 0; i < n; i++) if (!removed[i]) m++;
+
+    final int[] core = new int[m];
+
+    for (int i = 0, j = 0; i < n; i++) if (!removed[i]) core[j++] = i;
+
+    return core;
+  }
+
+  /** Return the unsigned byte[] encoding of an {@link IV} as it appears in the statement indices. */
+  static byte[] encode(final IV<?, ?> iv) {
+
+    return IVUtility.encode(new KeyBuilder(), iv).getKey();
+  }
+
+  /** Evaluates the multiway join for each source solution. */
+  private static class ChunkTask implements Callable<Void> {
+
+    private final LeapfrogTriejoinOp op;
+
+    private final BOpContext<IBindingSet> context;
+
+    private final IPredicate<ISPO>[] predicates;
+
+    private final IConstraint[] constraints;
+
+    private final IVariable<?>[] selectVars;
+
+    private final IVariable<?>[] variableOrder;
+
+    private final UnsyncLocalOutputBuffer<IBindingSet> unsyncBuffer;
+
+    /** The source solution. */
+    private IBindingSet bindingSet;
+
+    /** The global variable order for the source solution. */
+    private IVariable<?>[] vars;
+
+    /** The trie iterators for each variable in the global variable order. */
+    private ITrieIterator[][] iterators;
+
+    /** The bindings for each variable in the global variable order. */
+    private IV<?, ?>[] bindings;
+
+    @SuppressWarnings("unchecked")
+    ChunkTask(final LeapfrogTriejoinOp op, final BOpContext<IBindingSet> context) {
+
+      this.op = op;
+
+      this.context = context;
+
+      this.predicates = (IPredicate<ISPO>[]) op.getPredicates();
+
+      this.constraints = op.constraints();
+
+      this.selectVars = op.getSelect();
+
+      this.variableOrder = op.getVariableOrder();
+
+      this.unsyncBuffer = new UnsyncLocalOutputBuffer<>(op.getChunkCapacity(), context.getSink());
+    }
+
+    @Override
+    public Void call() {
+
+      final BOpStats stats = context.getStats();
+
+      final IBlockingBuffer<IBindingSet[]> sink = context.getSink();
+
+      final ICloseableIterator<IBindingSet[]> source = context.getSource();
+
+      try {
+
+        while (source.hasNext()) {
+
+          final IBindingSet[] chunk = source.next();
+
+          stats.chunksIn.increment();
+
+          stats.unitsIn.add(chunk.length);
+
+          for (IBindingSet bset : chunk) {
+
+            handleSolution(bset);
+          }
+        }
+
+        // flush the unsync buffer.
+        unsyncBuffer.flush();
+
+        // flush the sink.
+        sink.flush();
+
+        // Done.
+        return null;
+
+      } finally {
+
+        sink.close();
+
+        source.close();
+      }
+    }
+
+    /** Join a source solution with the statement patterns. */
+    @SuppressWarnings("unchecked")
+    private void handleSolution(final IBindingSet bset) {
+
+      final int n = predicates.length;
+
+      final IPredicate<ISPO>[] asBound = new IPredicate[n];
+
+      for (int i = 0; i < n; i++) {
+
+        if ((asBound[i] = predicates[i].asBound(bset)) == null) {
+
+          // The solution can not be unified with the statement pattern.
+          return;
+        }
+      }
+
+      /*
+       * The global variable order. The variables which appear in the most
+       * statement patterns come first since they constrain the search the
+       * most. Ties are broken by the order of first appearance.
+       */
+      final Map<IVariable<?>, Integer> counts = new LinkedHashMap<>();
+
+      for (IPredicate<ISPO> pred : asBound) {
+
+        for (IVariable<?> v : getVariables(pred)) counts.merge(v, 1, Integer::sum);
+      }
+
+      final List<IVariable<?>> order = new ArrayList<>(counts.keySet());
+
+      // Note: stable sort.
+      order.sort((v1, v2) -> counts.get(v2) - counts.get(v1));
+
+      if (variableOrder != null) {
+
+        // The given variables come first.
+        for (int i = variableOrder.length - 1; i >= 0; i--) {
+
+          if (order.remove(variableOrder[i])) order.add(0, variableOrder[i]);
+        }
+      }
+
+      vars = order.toArray(new IVariable<?>[0]);
+
+      final List<List<ITrieIterator>> tmp = new ArrayList<>(vars.length);
+
+      for (int d = 0; d < vars.length; d++) tmp.add(new ArrayList<>());
+
+      for (IPredicate<ISPO> pred : asBound) {
+
+        // The variables of the statement pattern in the global order.
+        final List<IVariable<?>> atomVars = new ArrayList<>(getVariables(pred));
+
+        atomVars.sort((v1, v2) -> order.indexOf(v1) - order.indexOf(v2));
+
+        if (atomVars.isEmpty()) {
+
+          // Fully bound. The statement must exist.
+          if (context.getAccessPath(context.getRelation(pred), pred).isEmpty()) return;
+
+          continue;
+        }
+
+        final ITrieIterator itr = newTrieIterator(pred, atomVars);
+
+        for (IVariable<?> v : atomVars) tmp.get(order.indexOf(v)).add(itr);
+      }
+
+      iterators = new ITrieIterator[vars.length][];
+
+      for (int d = 0; d < vars.length; d++) {
+
+        iterators[d] = tmp.get(d).toArray(new ITrieIterator[0]);
+      }
+
+      bindings = new IV[vars.length];
+
+      bindingSet = bset;
+
+      join(0 /* depth */);
+    }
+
+    /** Bind the variable at the given depth and recursively join the remaining variables. */
+    private void join(final int depth) {
+
+      if (depth == vars.length) {
+
+        emit();
+
+        return;
+      }
+
+      final ITrieIterator[] its = iterators[depth];
+
+      for (ITrieIterator itr : its) itr.open();
+
+      leapfrog(depth, its);
+
+      for (ITrieIterator itr : its) itr.up();
+    }
+
+    /** Visit the intersection of the keys of the trie iterators at the current depth. */
+    private void leapfrog(final int depth, final ITrieIterator[] its) {
+
+      final int k = its.length;
+
+      for (ITrieIterator itr : its) {
+
+        if (itr.atEnd()) return;
+      }
+
+      // Order the iterators by their current key (insertion sort).
+      for (int i = 1; i < k; i++) {
+
+        final ITrieIterator t = its[i];
+
+        int j = i - 1;
+
+        while (j >= 0 && BytesUtil.compareBytes(its[j].key(), t.key()) > 0) {
+
+          its[j + 1] = its[j];
+
+          j--;
+        }
+
+        its[j + 1] = t;
+      }
+
+      int p = 0;
+
+      while (true) {
+
+        // The largest key (the key of the iterator which moved last).
+        final byte[] max = its[(p + k - 1) % k].key();
+
+        final ITrieIterator itr = its[p];
+
+        if (BytesUtil.compareBytes(itr.key(), max) == 0) {
+
+          // All iterators agree on the key.
+          bindings[depth] = itr.value();
+
+          join(depth + 1);
+
+          itr.next();
+
+        } else {
+
+          itr.seek(max);
+        }
+
+        if (itr.atEnd()) return;
+
+        p = (p + 1) % k;
+      }
+    }
+
+    /** Output the source solution extended by the bindings (if the constraints are satisfied). */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private void emit() {
+
+      final IBindingSet right = new ListBindingSet();
+
+      for (int d = 0; d < vars.length; d++) {
+
+        right.set((IVariable) vars[d], new Constant<IV>(bindings[d]));
+      }
+
+      final IBindingSet out = BOpContext.bind(bindingSet, right, constraints, selectVars);
+
+      if (out != null) unsyncBuffer.add(out);
+    }
+
+    /*
+     * Return a trie iterator for the statement pattern. The cursor is obtained from the {@link
+     * AccessPath} for the statement pattern, which rejects access paths having filters.
+     *
+     * @param pred The as-bound statement pattern.
+     * @param atomVars The distinct variables of the statement pattern in the global order.
+     * @throws UnsupportedOperationException if no statement index has a key order which places the
+     *     variables in the global order (the query planner does not choose such a variable order)
+     *     or if the statement pattern has an access path filter or expander.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private ITrieIterator newTrieIterator(
+        final IPredicate<ISPO> pred, final List<IVariable<?>> atomVars) {
+
+      final SPORelation relation = (SPORelation) context.getRelation(pred);
+
+      final int keyArity = relation.getKeyArity();
+
+      final SPOKeyOrder keyOrder = getKeyOrder(relation, pred, atomVars);
+
+      if (keyOrder == null)
+        throw new UnsupportedOperationException("No key order: vars=" + atomVars + ", " + pred);
+
+      final IAccessPath<ISPO> accessPath =
+          relation.getAccessPath(context.getIndexManager(), keyOrder, pred);
+
+      if (!(accessPath instanceof AccessPath))
+        throw new UnsupportedOperationException("Access path expander: " + pred);
+
+      final AccessPath<ISPO> ap = (AccessPath<ISPO>) accessPath;
+
+      final ITupleCursor<ISPO> cursor = ap.keyCursor();
+
+      /*
+       * The encoded constants which follow each variable in the key order
+       * (the leading constants are the key prefix).
+       */
+      final byte[][] constants = new byte[atomVars.size()][];
+
+      final IKeyBuilder keyBuilder = new KeyBuilder();
+
+      int level = -1;
+
+      for (int keyPos = 0; keyPos < keyArity; keyPos++) {
+
+        final IVariableOrConstant<?> t = pred.get(keyOrder.getKeyOrder(keyPos));
+
+        if (t.isVar()) {
+
+          if (level >= 0) constants[level] = keyBuilder.getKey();
+
+          keyBuilder.reset();
+
+          level++;
+
+        } else if (level >= 0) {
+
+          IVUtility.encode(keyBuilder, (IV) t.get());
+        }
+      }
+
+      constants[level] = keyBuilder.getKey();
+
+      final byte[] fromKey = ap.getFromKey();
+
+      return new TupleCursorTrieIterator(
+          cursor, fromKey == null ? new byte[0] : fromKey, ap.getToKey(), constants);
+    }
+  }
+
+  /*
+   * Return <code>true</code> iff the statement pattern can be evaluated by this operator. Access
+   * path filters (including the filters for inferences and statement history) and expanders can not
+   * be applied to a cursor which seeks on the statement index, so such statement patterns are
+   * joined using the normal access path instead.
+   */
+  public static boolean isSupported(final IPredicate<?> pred) {
+
+    return !pred.isOptional()
+        && pred.getIndexLocalFilter() == null
+        && pred.getAccessPathFilter() == null
+        && pred.getAccessPathExpander() == null;
+  }
+
+  /*
+   * Return a global variable order for which each statement pattern can be read from a statement
+   * index whose key order places the variables of that statement pattern in the global order. The
+   * orders are considered starting with the default order (the variables appearing in the most
+   * statement patterns first). Variables which become bound before the join is evaluated do not
+   * invalidate the order since the remaining variables are still visited in the same relative
+   * order.
+   *
+   * @param relation The relation.
+   * @param preds The statement patterns.
+   * @param bound The variables which are known to be bound on entry. These are treated as
+   *     constants and are not part of the variable order.
+   * @return The variable order -or- <code>null</code> if there is no such order (or if there are
+   *     too many variables to consider).
+   */
+  public static IVariable<?>[] getVariableOrder(
+      final SPORelation relation,
+      final IPredicate<ISPO>[] preds,
+      final Set<IVariable<?>> bound) {
+
+    final Map<IVariable<?>, Integer> counts = new LinkedHashMap<>();
+
+    for (IPredicate<ISPO> pred : preds) {
+
+      for (IVariable<?> v : getVariables(pred)) {
+
+        if (!bound.contains(v)) counts.merge(v, 1, Integer::sum);
+      }
+    }
+
+    final List<IVariable<?>> order = new ArrayList<>(counts.keySet());
+
+    // Note: stable sort.
+    order.sort((v1, v2) -> counts.get(v2) - counts.get(v1));
+
+    final int n = order.size();
+
+    if (n > MAX_ORDER_VARS) return null;
+
+    // A permutation of the default order (enumerated in lexicographic order).
+    final int[] perm = new int[n];
+
+    for (int i = 0; i < n; i++) perm[i] = i;
+
+    final List<IVariable<?>> vars = new ArrayList<>(n);
+
+    do {
+
+      vars.clear();
+
+      for (int i = 0; i < n; i++) vars.add(order.get(perm[i]));
+
+      if (isReadable(relation, preds, bound, vars)) return vars.toArray(new IVariable<?>[n]);
+
+    } while (nextPermutation(perm));
+
+    return null;
+  }
+
+  /** The maximum #of variables for which the variable orders are enumerated. */
+  private static final int MAX_ORDER_VARS = 7;
+
+  /*
+   * Return <code>true</code> iff each statement pattern can be read from a statement index whose
+   * key order places the variables of that statement pattern in the given variable order.
+   *
+   * @param relation The relation.
+   * @param preds The statement patterns.
+   * @param bound The variables which are known to be bound on entry (treated as constants).
+   * @param order The variable order.
+   */
+  public static boolean isReadable(
+      final SPORelation relation,
+      final IPredicate<ISPO>[] preds,
+      final Set<IVariable<?>> bound,
+      final List<IVariable<?>> order) {
+
+    final int keyArity = relation.getKeyArity();
+
+    for (IPredicate<ISPO> pred : preds) {
+
+      final IVariableOrConstant<?>[] terms = new IVariableOrConstant[keyArity];
+
+      for (int i = 0; i < keyArity; i++) {
+
+        if ((terms[i] = pred.get(i)) == null) return false;
+      }
+
+      // The unbound variables of the statement pattern in the global order.
+      final List<IVariable<?>> atomVars = new ArrayList<>(getVariables(pred));
+
+      atomVars.removeAll(bound);
+
+      atomVars.sort((v1, v2) -> order.indexOf(v1) - order.indexOf(v2));
+
+      boolean found = false;
+
+      final Iterator<SPOKeyOrder> itr = relation.statementKeyOrderIterator();
+
+      while (!found && itr.hasNext()) {
+
+        final List<IVariable<?>> vars = new ArrayList<>(keyArity);
+
+        found = getScanOrder(itr.next(), terms, bound, vars) >= 0 && vars.equals(atomVars);
+      }
+
+      if (!found) return false;
+    }
+
+    return true;
+  }
+
+  /** Advance to the next permutation in lexicographic order (false after the last one). */
+  private static boolean nextPermutation(final int[] a) {
+
+    int i = a.length - 2;
+
+    while (i >= 0 && a[i] >= a[i + 1]) i--;
+
+    if (i < 0) return false;
+
+    int j = a.length - 1;
+
+    while (a[j] <= a[i]) j--;
+
+    int t = a[i];
+    a[i] = a[j];
+    a[j] = t;
+
+    for (int l = i + 1, r = a.length - 1; l < r; l++, r--) {
+
+      t = a[l];
+      a[l] = a[r];
+      a[r] = t;
+    }
+
+    return true;
+  }
+
+  /*
+   * Return a statement index whose key order places the variables of the statement pattern in the
+   * given order. The key orders which place all constants before the variables are preferred. Other
+   * key orders require a skip scan over the constants which follow a variable, so the key order
+   * having the fewest such constants is chosen.
+   *
+   * @return The key order -or- <code>null</code> if there is no such index (or if some variable is
+   *     repeated within the statement pattern).
+   */
+  static SPOKeyOrder getKeyOrder(
+      final SPORelation relation,
+      final IPredicate<ISPO> pred,
+      final List<IVariable<?>> atomVars) {
+
+    final int keyArity = relation.getKeyArity();
+
+    final IVariableOrConstant<?>[] terms = new IVariableOrConstant[keyArity];
+
+    for (int i = 0; i < keyArity; i++) {
+
+      if ((terms[i] = pred.get(i)) == null) return null;
+    }
+
+    final Iterator<SPOKeyOrder> itr = relation.statementKeyOrderIterator();
+
+    SPOKeyOrder best = null;
+
+    int bestSkips = Integer.MAX_VALUE;
+
+    while (itr.hasNext()) {
+
+      final SPOKeyOrder keyOrder = itr.next();
+
+      final List<IVariable<?>> vars = new ArrayList<>(keyArity);
+
+      final int skips = getScanOrder(keyOrder, terms, Collections.emptySet(), vars);
+
+      if (skips >= 0 && skips < bestSkips && vars.equals(atomVars)) {
+
+        best = keyOrder;
+
+        bestSkips = skips;
+      }
+    }
+
+    return best;
+  }
+
+  /*
+   * Return the variables of a statement pattern in the order in which they would be visited by a
+   * scan of the statement index which is best suited to a merge join on the given variable. The
+   * given variable is the first variable in the key order of that index, so the scan visits the
+   * bindings for that variable in ascending order. Among such indices, the one which places the
+   * fewest constants after the first variable is chosen (those constants require a skip scan).
+   *
+   * @param relation The relation.
+   * @param terms The terms of the statement pattern.
+   * @param bound The variables which are known to be bound when the statement pattern is evaluated.
+   *     These are treated as constants.
+   * @param var The join variable.
+   * @return The variables of the statement pattern which are not bound, starting with the join
+   *     variable -or- <code>null</code> if there is no such index (or if the join variable is bound
+   *     or some variable is repeated within the statement pattern).
+   */
+  public static List<IVariable<?>> getScanOrder(
+      final SPORelation relation,
+      final IVariableOrConstant<?>[] terms,
+      final Set<IVariable<?>> bound,
+      final IVariable<?> var) {
+
+    final Iterator<SPOKeyOrder> itr = relation.statementKeyOrderIterator();
+
+    List<IVariable<?>> best = null;
+
+    int bestSkips = Integer.MAX_VALUE;
+
+    while (itr.hasNext()) {
+
+      final List<IVariable<?>> vars = new ArrayList<>(terms.length);
+
+      final int skips = getScanOrder(itr.next(), terms, bound, vars);
+
+      if (skips >= 0 && skips < bestSkips && !vars.isEmpty() && vars.get(0).equals(var)) {
+
+        best = vars;
+
+        bestSkips = skips;
+      }
+    }
+
+    return best;
+  }
+
+  /*
+   * Collect the variables of a statement pattern in the order in which they appear in the key
+   * order.
+   *
+   * @return The #of constants which follow the first variable in the key order -or- <code>-1
+   *     </code> if some variable is repeated within the statement pattern.
+   */
+  private static int getScanOrder(
+      final SPOKeyOrder keyOrder,
+      final IVariableOrConstant<?>[] terms,
+      final Set<IVariable<?>> bound,
+      final List<IVariable<?>> vars) {
+
+    int skips = 0;
+
+    for (int keyPos = 0; keyPos < terms.length; keyPos++) {
+
+      final IVariableOrConstant<?> t = terms[keyOrder.getKeyOrder(keyPos)];
+
+      if (t.isConstant() || bound.contains(t)) {
+
+        if (!vars.isEmpty()) skips++;
+
+      } else {
+
+        if (vars.contains(t)) return -1;
+
+        vars.add((IVariable<?>) t);
+      }
+    }
+
+    return skips;
+  }
+
+  /** The distinct variables of the statement pattern. */
+  private static Set<IVariable<?>> getVariables(final IPredicate<ISPO> pred) {
+
+    final Set<IVariable<?>> vars = new LinkedHashSet<>();
+
+    for (int i = 0; i < pred.arity(); i++) {
+
+      final IVariableOrConstant<?> t = pred.get(i);
+
+      if (t != null && t.isVar()) vars.add((IVariable<?>) t);
+    }
+
+    return vars;
+  }
+}
@@ -0,0 +1,316 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.bop.rdf.join;
+
+import java.util.Arrays;
+import org.embergraph.btree.ITuple;
+import org.embergraph.btree.ITupleCursor;
+import org.embergraph.btree.keys.NoSuccessorException;
+import org.embergraph.btree.keys.SuccessorUtil;
+import org.embergraph.rdf.internal.IV;
+import org.embergraph.rdf.internal.IVUtility;
+import org.embergraph.util.BytesUtil;
+
+/*
+ * An {@link ITrieIterator} reading directly on a statement index using an {@link ITupleCursor}. The
+ * key order of the index MUST place the variables of the atom in the global variable order of the
+ * join. The leading constants of the atom form the fixed key prefix of the cursor. Each {@link
+ * #seek(byte[])} and {@link #next()} is translated into a seek on the cursor, so the cost is
+ * logarithmic in the size of the index and independent of the #of tuples which are skipped over.
+ *
+ * <p>Constants may also appear in the key after a variable (for example, <code>(?s :p ?o)</code>
+ * read on the SPO index in the order <code>?s, ?o</code>). Such constants are handled as a skip
+ * scan: a key is only visited for a variable if there exists a tuple having that key followed by
+ * the constants, and the cursor seeks over the tuples having other values for those key
+ * components.
+ */
+class TupleCursorTrieIterator implements ITrieIterator {
+
+  private final ITupleCursor<?> cursor;
+
+  /** The exclusive upper bound of the cursor (optional). */
+  private final byte[] toKey;
+
+  /** The key prefix for each level (the constants and the keys of the parent levels). */
+  private final byte[][] prefix;
+
+  /** The encoded constants which follow the key for each level (may be empty). */
+  private final byte[][] constants;
+
+  /** The current key for each level. */
+  private final byte[][] keys;
+
+  /** The current {@link IV} for each level. */
+  private final IV<?, ?>[] values;
+
+  /** The key of the tuple on which the cursor is positioned. */
+  private byte[] tupleKey;
+
+  private int depth = -1;
+
+  private boolean atEnd = false;
+
+  /*
+   * @param cursor The cursor. The cursor must be constrained to the key range for the constants of
+   *     the atom.
+   * @param fromKey The encoded constants of the atom (the shared key prefix of all tuples visited
+   *     by the cursor). This is an empty byte[] if there are no constants.
+   * @param toKey The exclusive upper bound of the cursor (optional).
+   * @param constants The encoded constants which follow the key for each level in the key order of
+   *     the index. The #of levels is the #of variables of the atom.
+   */
+  TupleCursorTrieIterator(
+      final ITupleCursor<?> cursor,
+      final byte[] fromKey,
+      final byte[] toKey,
+      final byte[][] constants) {
+
+    if (cursor == null) throw new IllegalArgumentException();
+
+    if (fromKey == null) throw new IllegalArgumentException();
+
+    if (constants == null || constants.length == 0) throw new IllegalArgumentException();
+
+    final int nlevels = constants.length;
+
+    this.cursor = cursor;
+
+    this.constants = constants;
+
+    this.toKey = toKey;
+
+    this.prefix = new byte[nlevels][];
+
+    this.keys = new byte[nlevels][];
+
+    this.values = new IV[nlevels];
+
+    this.prefix[0] = fromKey;
+  }
+
+  @Override
+  public void open() {
+
+    if (depth + 1 == prefix.length) throw new IllegalStateException();
+
+    depth++;
+
+    if (depth == 0) {
+
+      /*
+       * Note: The first level may be opened more than once (each time
+       * the join binds the variables which precede it in the global
+       * order), so the cursor is always repositioned on the key prefix
+       * rather than continuing from wherever it was left.
+       */
+
+      position(prefix[0]);
+
+    } else {
+
+      /*
+       * Note: The parent level is positioned on a tuple having the parent
+       * key, so the first key of this level is read from that tuple.
+       */
+
+      prefix[depth] = concat(prefix[depth - 1], keys[depth - 1], constants[depth - 1]);
+
+      settle(tupleKey);
+    }
+  }
+
+  @Override
+  public void up() {
+
+    if (depth < 0) throw new IllegalStateException();
+
+    depth--;
+
+    atEnd = false;
+  }
+
+  @Override
+  public boolean atEnd() {
+
+    return atEnd;
+  }
+
+  @Override
+  public byte[] key() {
+
+    return keys[depth];
+  }
+
+  @Override
+  public IV<?, ?> value() {
+
+    return values[depth];
+  }
+
+  @Override
+  public void next() {
+
+    final byte[] probe;
+    try {
+      // The first key GT any key having the current key as a prefix.
+      probe = SuccessorUtil.successor(concat(prefix[depth], keys[depth], EMPTY));
+    } catch (NoSuccessorException ex) {
+      atEnd = true;
+      return;
+    }
+
+    position(probe);
+  }
+
+  @Override
+  public void seek(final byte[] key) {
+
+    if (BytesUtil.compareBytes(key, keys[depth]) <= 0) {
+      // Already GTE the probe key.
+      return;
+    }
+
+    position(concat(prefix[depth], key, EMPTY));
+  }
+
+  /*
+   * Position the cursor on the first tuple GTE the probe key and read the key for the current level
+   * from that tuple. If there is no such tuple having the key prefix for the current level then the
+   * current level is exhausted.
+   */
+  private void position(final byte[] probe) {
+
+    settle(seekKey(probe));
+  }
+
+  /*
+   * Return the key of the first tuple GTE the probe key -or- <code>null</code> if there is no such
+   * tuple.
+   */
+  private byte[] seekKey(final byte[] probe) {
+
+    if (toKey != null && BytesUtil.compareBytes(probe, toKey) >= 0) {
+      // Note: The cursor does not permit a seek outside of its key range.
+      return null;
+    }
+
+    ITuple<?> tuple = cursor.seek(probe);
+
+    if (tuple == null) {
+
+      // No exact match. Advance to the successor of the probe key.
+      if (!cursor.hasNext()) return null;
+
+      tuple = cursor.next();
+    }
+
+    return tuple.getKey();
+  }
+
+  /*
+   * Read the key for the current level from the given tuple. If the constants which follow the key
+   * in the tuple are not the expected constants, then the cursor is advanced to the next tuple which
+   * has those constants (skip scan).
+   *
+   * @param key The key of the tuple on which the cursor is positioned -or- <code>null</code> if the
+   *     cursor is exhausted.
+   */
+  private void settle(byte[] key) {
+
+    final byte[] p = prefix[depth];
+
+    final byte[] c = constants[depth];
+
+    while (true) {
+
+      if (key == null || !startsWith(key, p)) {
+        atEnd = true;
+        return;
+      }
+
+      final IV<?, ?> iv = IVUtility.decodeFromOffset(key, p.length);
+
+      final int end = p.length + iv.byteLength();
+
+      if (c.length == 0 || startsWith(key, end, c)) {
+
+        tupleKey = key;
+
+        keys[depth] = Arrays.copyOfRange(key, p.length, end);
+
+        values[depth] = iv;
+
+        atEnd = false;
+
+        return;
+      }
+
+      final byte[] k = Arrays.copyOfRange(key, p.length, end);
+
+      final byte[] target = concat(p, k, c);
+
+      if (BytesUtil.compareBytes(key, target) < 0) {
+
+        // Seek forward to the constants for the same key.
+        key = seekKey(target);
+
+      } else {
+
+        // There is no tuple with the constants for that key.
+        try {
+          key = seekKey(SuccessorUtil.successor(concat(p, k, EMPTY)));
+        } catch (NoSuccessorException ex) {
+          key = null;
+        }
+      }
+    }
+  }
+
+  private static final byte[] EMPTY = new byte[0];
+
+  private static boolean startsWith(final byte[] a, final byte[] prefix) {
+
+    return startsWith(a, 0, prefix);
+  }
+
+  /** Return <code>true</code> iff the bytes of <i>a</i> starting at <i>off</i> begin with <i>b</i>. */
+  private static boolean startsWith(final byte[] a, final int off, final byte[] b) {
+
+    if (a.length - off < b.length) return false;
+
+    for (int i = 0; i < b.length; i++) {
+
+      if (a[off + i] != b[i]) return false;
+    }
+
+    return true;
+  }
+
+  private static byte[] concat(final byte[] a, final byte[] b, final byte[] c) {
+
+    final byte[] d = new byte[a.length + b.length + c.length];
+
+    System.arraycopy(a, 0, d, 0, a.length);
+
+    System.arraycopy(b, 0, d, a.length, b.length);
+
+    System.arraycopy(c, 0, d, a.length + b.length, c.length);
+
+    return d;
+  }
+}
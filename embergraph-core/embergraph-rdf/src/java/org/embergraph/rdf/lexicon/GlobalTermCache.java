@@ -0,0 +1,779 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.rdf.lexicon;
+
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.log4j.Logger;
+import org.embergraph.cache.FrequencySketch;
+import org.embergraph.counters.CAT;
+import org.embergraph.counters.CounterSet;
+import org.embergraph.counters.Instrument;
+import org.embergraph.io.DirectBufferPool;
+import org.embergraph.journal.IJournal;
+import org.embergraph.rdf.internal.IV;
+import org.embergraph.rdf.model.EmbergraphLiteral;
+import org.embergraph.rdf.model.EmbergraphValue;
+import org.embergraph.rdf.model.EmbergraphValueFactory;
+import org.embergraph.rdf.model.EmbergraphValueSerializer;
+import org.embergraph.rwstore.sector.MemoryManager;
+import org.embergraph.rwstore.sector.MemoryManagerOutOfMemory;
+import org.embergraph.util.concurrent.CanonicalFactory;
+
+/*
+ * A term cache bounded by the #of bytes in the cached {@link EmbergraphValue}s rather than by the #
+ * of entries. A single instance is shared by all {@link LexiconRelation} views of all namespaces
+ * which read from the same journal (see {@link #getInstance(IJournal, long, boolean)}). Each
+ * namespace sees the cache through its own {@link ITermCache} view (see {@link #getView(String,
+ * EmbergraphValueFactory)}).
+ *
+ * <p>The cache is split into {@link #SEGMENT_COUNT} segments by the hash code of the key. Each
+ * segment has its own lock, LRU ordering, byte budget and {@link FrequencySketch}, so concurrent
+ * readers of different terms rarely contend. When a new entry would exceed the budget of its
+ * segment, it is only admitted if it has been requested more often than the LRU entry of that
+ * segment (TinyLFU). This prevents a scan over low frequency terms from flushing the hot
+ * vocabulary out of the cache.
+ *
+ * <p>When <i>offHeap</i> is specified the serialized {@link EmbergraphValue}s are stored in native
+ * memory managed by a {@link MemoryManager} and are de-serialized on each hit. This trades some CPU
+ * for keeping a very large cache off the Java heap.
+ *
+ * <p>Note: The {@link IV} to {@link EmbergraphValue} mapping of a namespace only changes when the
+ * namespace is destroyed. {@link #clear(String)} MUST be used at that point (see {@link
+ * #clearAll(String)}) so that the cached entries of the old namespace will not be visible to a new
+ * namespace having the same name.
+ *
+ * <p>The cache is {@link #close() closed} when its journal is closed, which releases the native
+ * memory (if any). A view of a closed cache neither finds nor admits any entries.
+ */
+public class GlobalTermCache {
+
+  private static final transient Logger log = Logger.getLogger(GlobalTermCache.class);
+
+  /** The #of segments. */
+  static final int SEGMENT_COUNT = 16;
+
+  /** The estimated #of bytes of heap consumed by an entry in addition to its value. */
+  static final int ENTRY_OVERHEAD = 96;
+
+  /** The budget for the cache (in bytes). */
+  private final long maxBytes;
+
+  /** The native memory for the cached values (iff off-heap). */
+  private final MemoryManager mmgr;
+
+  private final Segment[] segments;
+
+  /** <code>false</code> once the cache is closed. */
+  private volatile boolean open = true;
+
+  /*
+   * The scope for each namespace. The scope is part of the key so the entries for different
+   * namespaces never collide. A view uses the scope of its namespace as of when the view was
+   * created. Clearing the namespace assigns a new scope for new views, so a view of a destroyed
+   * namespace can never expose its entries to a view of a new namespace having the same name.
+   */
+  private final ConcurrentHashMap<String, Integer> scopes = new ConcurrentHashMap<>();
+
+  private final AtomicInteger nextScope = new AtomicInteger();
+
+  /** The #of lookups which found an entry. */
+  private final CAT hits = new CAT();
+
+  /** The #of lookups which did not find an entry. */
+  private final CAT misses = new CAT();
+
+  /** The #of entries evicted to make room for a new entry. */
+  private final CAT evictions = new CAT();
+
+  /** The #of entries which were not admitted because they were colder than the LRU entry. */
+  private final CAT rejected = new CAT();
+
+  /** The caches for each journal (by the UUID of the journal). */
+  private static final CanonicalFactory<UUID, GlobalTermCache, GlobalTermCache.Config> factory =
+      new CanonicalFactory<UUID, GlobalTermCache, GlobalTermCache.Config>(1 /* queueCapacity */) {
+        @Override
+        protected GlobalTermCache newInstance(final UUID key, final Config config) {
+
+          final GlobalTermCache cache = new GlobalTermCache(config.maxBytes, config.offHeap);
+
+          // The cache is closed (and no longer shared) when the journal is closed.
+          config.journal.addCloseTask(
+              () -> {
+                GlobalTermCache.factory.remove(key);
+                cache.close();
+              });
+
+          return cache;
+        }
+      };
+
+  /** The configuration used when the cache for a journal is created. */
+  private static class Config {
+
+    private final IJournal journal;
+
+    private final long maxBytes;
+
+    private final boolean offHeap;
+
+    private Config(final IJournal journal, final long maxBytes, final boolean offHeap) {
+      this.journal = journal;
+      this.maxBytes = maxBytes;
+      this.offHeap = offHeap;
+    }
+  }
+
+  /*
+   * Return the cache shared by all views of the lexicons on the journal, creating it if necessary.
+   * The configuration is ignored if the cache already exists.
+   *
+   * @param journal The journal.
+   * @param maxBytes The budget for the cache (in bytes).
+   * @param offHeap When <code>true</code> the cached values are stored in native memory.
+   */
+  public static GlobalTermCache getInstance(
+      final IJournal journal, final long maxBytes, final boolean offHeap) {
+
+    if (journal == null) throw new IllegalArgumentException();
+
+    return factory.getInstance(
+        journal.getRootBlockView().getUUID(), new Config(journal, maxBytes, offHeap));
+  }
+
+  /** Clear the entries for the namespace from all live instances. */
+  public static void clearAll(final String namespace) {
+
+    final Iterator<Entry<UUID, WeakReference<GlobalTermCache>>> itr =
+        factory.entryIterator();
+
+    while (itr.hasNext()) {
+
+      final GlobalTermCache cache = itr.next().getValue().get();
+
+      if (cache != null) {
+
+        cache.clear(namespace);
+      }
+    }
+  }
+
+  /*
+   * @param maxBytes The budget for the cache (in bytes). This is divided evenly among the segments.
+   * @param offHeap When <code>true</code> the cached values are stored in native memory.
+   */
+  public GlobalTermCache(final long maxBytes, final boolean offHeap) {
+
+    if (maxBytes <= 0) throw new IllegalArgumentException();
+
+    this.maxBytes = maxBytes;
+
+    // Non-blocking: an allocation which can not be satisfied is simply not cached.
+    this.mmgr =
+        offHeap
+            ? new MemoryManager(
+                DirectBufferPool.INSTANCE,
+                Integer.MAX_VALUE /* sectors */,
+                false /* blocks */,
+                null /* properties */)
+            : null;
+
+    final long segmentBytes = Math.max(1L, maxBytes / SEGMENT_COUNT);
+
+    /*
+     * Size the sketch for the #of entries in a segment assuming ~256 bytes
+     * per cached value.
+     */
+    final int sketchSize = (int) Math.min(1 << 24, Math.max(16L, segmentBytes / 256));
+
+    this.segments = new Segment[SEGMENT_COUNT];
+
+    for (int i = 0; i < SEGMENT_COUNT; i++) {
+
+      segments[i] = new Segment(segmentBytes, sketchSize);
+    }
+
+    if (log.isInfoEnabled()) log.info("maxBytes=" + maxBytes + ", offHeap=" + offHeap);
+  }
+
+  /*
+   * Return a view of the cache for the namespace.
+   *
+   * @param namespace The namespace of the lexicon.
+   * @param valueFactory The value factory for that namespace. This is used to materialize the
+   *     values stored off-heap.
+   */
+  public ITermCache<IV<?, ?>, EmbergraphValue> getView(
+      final String namespace, final EmbergraphValueFactory valueFactory) {
+
+    if (namespace == null) throw new IllegalArgumentException();
+
+    if (valueFactory == null) throw new IllegalArgumentException();
+
+    return new View(namespace, valueFactory);
+  }
+
+  /** The budget for the cache (in bytes). */
+  public long getMaxBytes() {
+
+    return maxBytes;
+  }
+
+  /** <code>true</code> until the cache is closed. */
+  public boolean isOpen() {
+
+    return open;
+  }
+
+  /** <code>true</code> iff the cached values are stored in native memory. */
+  public boolean isOffHeap() {
+
+    return mmgr != null;
+  }
+
+  /** The #of entries in the cache (for all namespaces). */
+  public int size() {
+
+    int n = 0;
+
+    for (Segment seg : segments) {
+
+      synchronized (seg) {
+        n += seg.map.size();
+      }
+    }
+
+    return n;
+  }
+
+  /** The estimated #of bytes in the cache (for all namespaces). */
+  public long getBytes() {
+
+    long n = 0;
+
+    for (Segment seg : segments) {
+
+      synchronized (seg) {
+        n += seg.bytes;
+      }
+    }
+
+    return n;
+  }
+
+  /*
+   * Clear the entries for the namespace. Views of the namespace created after this method returns
+   * will not see any entries made by views created before it was called.
+   */
+  public void clear(final String namespace) {
+
+    final Integer scope = scopes.remove(namespace);
+
+    if (scope == null) return;
+
+    for (Segment seg : segments) {
+
+      synchronized (seg) {
+        final Iterator<Map.Entry<Key, Value>> itr = seg.map.entrySet().iterator();
+
+        while (itr.hasNext()) {
+
+          final Map.Entry<Key, Value> e = itr.next();
+
+          if (e.getKey().scope == scope.intValue()) {
+
+            itr.remove();
+
+            seg.release(e.getValue());
+          }
+        }
+      }
+    }
+  }
+
+  /** Clear all entries. */
+  public void clear() {
+
+    for (Segment seg : segments) {
+
+      synchronized (seg) {
+        for (Value v : seg.map.values()) {
+
+          seg.release(v);
+        }
+
+        seg.map.clear();
+      }
+    }
+  }
+
+  /** Return the scope of the namespace, assigning a new one if necessary. */
+  private int scope(final String namespace) {
+
+    return scopes.computeIfAbsent(namespace, ns -> nextScope.incrementAndGet());
+  }
+
+  private Segment segmentFor(final int hash) {
+
+    return segments[(hash ^ (hash >>> 16)) & (SEGMENT_COUNT - 1)];
+  }
+
+  /*
+   * Return the cached value for the IV.
+   *
+   * @return The value, or <code>null</code> if the IV is not cached.
+   */
+  private EmbergraphValue get(
+      final int scope, final IV<?, ?> iv, final EmbergraphValueSerializer<EmbergraphValue> ser) {
+
+    final Key key = new Key(scope, iv);
+
+    final Segment seg = segmentFor(key.hashCode());
+
+    final Value v;
+
+    final byte[] data;
+
+    synchronized (seg) {
+      seg.sketch.increment(key.hashCode());
+
+      v = seg.map.get(key);
+
+      if (v == null) {
+
+        misses.increment();
+
+        return null;
+      }
+
+      // Read under the lock since the allocation is released on eviction.
+      data = v.value == null ? mmgr.read(v.addr) : null;
+    }
+
+    hits.increment();
+
+    if (v.value != null) return v.value;
+
+    final EmbergraphValue value = ser.deserialize(data);
+
+    value.setIV(iv);
+
+    return value;
+  }
+
+  /*
+   * Cache the value for the IV unless there is already a value for the IV.
+   *
+   * @return The existing value, or <code>null</code> if there was no value for the IV (whether or
+   *     not the given value was admitted to the cache).
+   */
+  private EmbergraphValue putIfAbsent(
+      final int scope,
+      final IV<?, ?> iv,
+      final EmbergraphValue value,
+      final EmbergraphValueSerializer<EmbergraphValue> ser) {
+
+    /*
+     * Clone the IV in order to break the hard reference from the IV to the
+     * EmbergraphValue cached on the IV (see TermCache).
+     */
+    final Key key = new Key(scope, iv.clone(true /* clearCache */));
+
+    final Segment seg = segmentFor(key.hashCode());
+
+    // Serialize outside of the lock.
+    final byte[] data = mmgr == null ? null : ser.serialize(value);
+
+    final int nbytes = ENTRY_OVERHEAD + (data == null ? sizeof(value) : data.length);
+
+    if (nbytes > seg.maxBytes) {
+
+      rejected.increment();
+
+      return null;
+    }
+
+    final byte[] existing;
+
+    synchronized (seg) {
+      if (!open) return null;
+
+      final Value v = seg.map.get(key);
+
+      if (v != null) {
+
+        if (v.value != null) return v.value;
+
+        existing = mmgr.read(v.addr);
+
+      } else {
+
+        final int freq = seg.sketch.frequency(key.hashCode());
+
+        while (seg.bytes + nbytes > seg.maxBytes) {
+
+          final Map.Entry<Key, Value> victim = seg.map.entrySet().iterator().next();
+
+          if (freq <= seg.sketch.frequency(victim.getKey().hashCode())) {
+
+            // The candidate is not hotter than the LRU entry.
+            rejected.increment();
+
+            return null;
+          }
+
+          seg.map.remove(victim.getKey());
+
+          seg.release(victim.getValue());
+
+          evictions.increment();
+        }
+
+        final Value newValue;
+
+        if (data == null) {
+
+          newValue = new Value(value, 0L, nbytes);
+
+        } else {
+
+          try {
+
+            newValue = new Value(null, mmgr.allocate(ByteBuffer.wrap(data)), nbytes);
+
+          } catch (MemoryManagerOutOfMemory ex) {
+
+            rejected.increment();
+
+            return null;
+          }
+        }
+
+        seg.map.put(key, newValue);
+
+        seg.bytes += nbytes;
+
+        return null;
+      }
+    }
+
+    final EmbergraphValue tmp = ser.deserialize(existing);
+
+    tmp.setIV(iv);
+
+    return tmp;
+  }
+
+  /*
+   * Return the estimated #of bytes of heap for the value (excluding the {@link IV}, which is
+   * accounted for by {@link #ENTRY_OVERHEAD}).
+   */
+  static int sizeof(final EmbergraphValue value) {
+
+    int n = 32 + 2 * value.stringValue().length();
+
+    if (value instanceof EmbergraphLiteral) {
+
+      final EmbergraphLiteral lit = (EmbergraphLiteral) value;
+
+      if (lit.getLanguage() != null) n += 40 + 2 * lit.getLanguage().length();
+
+      // The datatype is typically a shared instance.
+      if (lit.getDatatype() != null) n += 8;
+    }
+
+    return n;
+  }
+
+  /*
+   * Clear the cache and release the native memory (if any). The views of the cache will neither
+   * find nor admit any entries once it is closed.
+   */
+  public synchronized void close() {
+
+    if (!open) return;
+
+    // Note: Nothing is admitted once a segment has been cleared.
+    open = false;
+
+    clear();
+
+    if (mmgr != null) mmgr.close();
+
+    if (log.isInfoEnabled()) log.info("Closed: " + this);
+  }
+
+  /** The performance counters for the cache. */
+  public CounterSet getCounters() {
+
+    final CounterSet root = new CounterSet();
+
+    root.addCounter(
+        "maxBytes",
+        new Instrument<Long>() {
+          @Override
+          public void sample() {
+            setValue(maxBytes);
+          }
+        });
+
+    root.addCounter(
+        "bytes",
+        new Instrument<Long>() {
+          @Override
+          public void sample() {
+            setValue(getBytes());
+          }
+        });
+
+    root.addCounter(
+        "entries",
+        new Instrument<Long>() {
+          @Override
+          public void sample() {
+            setValue((long) size());
+          }
+        });
+
+    root.addCounter(
+        "hits",
+        new Instrument<Long>() {
+          @Override
+          public void sample() {
+            setValue(hits.get());
+          }
+        });
+
+    root.addCounter(
+        "misses",
+        new Instrument<Long>() {
+          @Override
+          public void sample() {
+            setValue(misses.get());
+          }
+        });
+
+    root.addCounter(
+        "hitRatio",
+        new Instrument<Double>() {
+          @Override
+          public void sample() {
+            final long h = hits.get();
+            final long n = h + misses.get();
+            setValue(n == 0 ? 0d : h / (double) n);
+          }
+        });
+
+    root.addCounter(
+        "evictions",
+        new Instrument<Long>() {
+          @Override
+          public void sample() {
+            setValue(evictions.get());
+          }
+        });
+
+    root.addCounter(
+        "rejected",
+        new Instrument<Long>() {
+          @Override
+          public void sample() {
+            setValue(rejected.get());
+          }
+        });
+
+    if (mmgr != null) {
+
+      root.attach(mmgr.getCounters());
+    }
+
+    return root;
+  }
+
+  @Override
+  public String toString() {
+
+    return getClass().getSimpleName()
+        + "{maxBytes="
+        + maxBytes
+        + ",offHeap="
+        + isOffHeap()
+        + ",entries="
+        + size()
+        + ",bytes="
+        + getBytes()
+        + ",hits="
+        + hits.get()
+        + ",misses="
+        + misses.get()
+        + ",evictions="
+        + evictions.get()
+        + "}";
+  }
+
+  /** A segment of the cache. All fields other than the sketch are guarded by the segment. */
+  private final class Segment {
+
+    private final long maxBytes;
+
+    /** The entries in LRU order (least recently used first). */
+    private final LinkedHashMap<Key, Value> map =
+        new LinkedHashMap<>(16, .75f, true /* accessOrder */);
+
+    private final FrequencySketch sketch;
+
+    /** The estimated #of bytes in the segment. */
+    private long bytes;
+
+    private Segment(final long maxBytes, final int sketchSize) {
+
+      this.maxBytes = maxBytes;
+
+      this.sketch = new FrequencySketch(sketchSize);
+    }
+
+    /** Account for an entry which was removed from the map. */
+    private void release(final Value v) {
+
+      bytes -= v.nbytes;
+
+      if (v.value == null) mmgr.free(v.addr);
+    }
+  }
+
+  /** The key for an entry is the {@link IV} qualified by the scope of its namespace. */
+  private static final class Key {
+
+    private final int scope;
+
+    private final IV<?, ?> iv;
+
+    private final int hash;
+
+    private Key(final int scope, final IV<?, ?> iv) {
+
+      this.scope = scope;
+
+      this.iv = iv;
+
+      this.hash = 31 * iv.hashCode() + scope;
+    }
+
+    @Override
+    public int hashCode() {
+
+      return hash;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+
+      if (this == o) return true;
+
+      if (!(o instanceof Key)) return false;
+
+      final Key k = (Key) o;
+
+      return scope == k.scope && iv.equals(k.iv);
+    }
+  }
+
+  /** A cached value, which is either on the heap or at an address in native memory. */
+  private static final class Value {
+
+    /** The value (iff on the heap). */
+    private final EmbergraphValue value;
+
+    /** The address of the serialized value (iff off-heap). */
+    private final long addr;
+
+    /** The estimated #of bytes for the entry. */
+    private final int nbytes;
+
+    private Value(final EmbergraphValue value, final long addr, final int nbytes) {
+
+      this.value = value;
+
+      this.addr = addr;
+
+      this.nbytes = nbytes;
+    }
+  }
+
+  /** The view of the cache for a single namespace. */
+  class View implements ITermCache<IV<?, ?>, EmbergraphValue> {
+
+    private final String namespace;
+
+    private final int scope;
+
+    private final EmbergraphValueSerializer<EmbergraphValue> ser;
+
+    private View(final String namespace, final EmbergraphValueFactory valueFactory) {
+
+      this.namespace = namespace;
+
+      this.scope = scope(namespace);
+
+      this.ser = valueFactory.getValueSerializer();
+    }
+
+    /** The cache shared by this view. */
+    GlobalTermCache getCache() {
+
+      return GlobalTermCache.this;
+    }
+
+    /*
+     * {@inheritDoc}
+     *
+     * <p>Note: This is the #of entries for all namespaces.
+     */
+    @Override
+    public int size() {
+
+      return GlobalTermCache.this.size();
+    }
+
+    @Override
+    public EmbergraphValue get(final IV<?, ?> k) {
+
+      return GlobalTermCache.this.get(scope, k, ser);
+    }
+
+    @Override
+    public EmbergraphValue putIfAbsent(final IV<?, ?> k, final EmbergraphValue v) {
+
+      return GlobalTermCache.this.putIfAbsent(scope, k, v, ser);
+    }
+
+    /** Clears the entries for the namespace. */
+    @Override
+    public void clear() {
+
+      GlobalTermCache.this.clear(namespace);
+    }
+  }
+}
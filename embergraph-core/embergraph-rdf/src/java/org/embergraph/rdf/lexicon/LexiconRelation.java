@@ -30,6 +30,7 @@ import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -43,6 +44,7 @@ import java.util.Set;
 import java.util.TimeZone;
 import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -64,6 +66,7 @@ import org.embergraph.btree.filter.TupleFilter;
 import org.embergraph.btree.keys.IKeyBuilder;
 import org.embergraph.btree.keys.KVO;
 import org.embergraph.cache.ConcurrentWeakValueCacheWithBatchedUpdates;
+import org.embergraph.counters.CounterSet;
 import org.embergraph.journal.IIndexManager;
 import org.embergraph.journal.IJournal;
 import org.embergraph.journal.IResourceLock;
@@ -93,6 +96,7 @@ import org.embergraph.rdf.model.EmbergraphValueFactory;
 import org.embergraph.rdf.model.EmbergraphValueSerializer;
 import org.embergraph.rdf.spo.ISPO;
 import org.embergraph.rdf.store.AbstractTripleStore;
+import org.embergraph.rdf.vocab.DictionaryVocabulary;
 import org.embergraph.rdf.vocab.NoVocabulary;
 import org.embergraph.rdf.vocab.Vocabulary;
 import org.embergraph.relation.AbstractRelation;
@@ -225,7 +229,10 @@ public class LexiconRelation extends AbstractRelation<EmbergraphValue>
   protected Class<IExtensionFactory> determineExtensionFactoryClass() {
 
     final String defaultClassName;
-    if (vocab == null || vocab.getClass() == NoVocabulary.class) {
+    if (vocab == null
+        || vocab.getClass() == NoVocabulary.class
+        || (vocab instanceof DictionaryVocabulary
+            && ((DictionaryVocabulary) vocab).getBaseClass() == NoVocabulary.class)) {
       /*
        * If there is no vocabulary then you can not use the default
        * extension class (or probably any extension class for that matter
@@ -492,9 +499,36 @@ public class LexiconRelation extends AbstractRelation<EmbergraphValue>
                   AbstractTripleStore.Options.TERM_CACHE_CAPACITY,
                   AbstractTripleStore.Options.DEFAULT_TERM_CACHE_CAPACITY));
 
+      final long termCacheMaxBytes =
+          Long.parseLong(
+              getProperty(
+                  AbstractTripleStore.Options.TERM_CACHE_MAX_BYTES,
+                  AbstractTripleStore.Options.DEFAULT_TERM_CACHE_MAX_BYTES));
+
       final Long commitTime = getCommitTime();
 
-      if (commitTime != null && TimestampUtility.isReadOnly(timestamp)) {
+      if (termCacheMaxBytes > 0
+          && TimestampUtility.isReadOnly(timestamp)
+          && indexManager instanceof IJournal) {
+
+        /*
+         * Shared by the read-only views of all namespaces on the journal.
+         * Only read-only views use this cache since the IV to value mapping
+         * is stable for committed data, while the term identifiers assigned
+         * by an unisolated write set which is later discarded could be
+         * reassigned.
+         */
+        final boolean offHeap =
+            Boolean.parseBoolean(
+                getProperty(
+                    AbstractTripleStore.Options.TERM_CACHE_OFF_HEAP,
+                    AbstractTripleStore.Options.DEFAULT_TERM_CACHE_OFF_HEAP));
+
+        termCache =
+            GlobalTermCache.getInstance((IJournal) indexManager, termCacheMaxBytes, offHeap)
+                .getView(namespace, valueFactory);
+
+      } else if (commitTime != null && TimestampUtility.isReadOnly(timestamp)) {
 
         /*
          * Shared for read-only views from sample commit time. Sharing
@@ -526,6 +560,31 @@ public class LexiconRelation extends AbstractRelation<EmbergraphValue>
       }
     }
 
+    {
+      final boolean coalesce =
+          Boolean.parseBoolean(
+              getProperty(
+                  AbstractTripleStore.Options.COALESCE_TERM_RESOLUTION,
+                  AbstractTripleStore.Options.DEFAULT_COALESCE_TERM_RESOLUTION));
+
+      final Long commitTime = getCommitTime();
+
+      if (coalesce && commitTime != null && TimestampUtility.isReadOnly(timestamp)) {
+
+        /*
+         * Shared by the read-only views from the same commit time, which
+         * all read the same ID2TERM and BLOBS indices.
+         */
+        coalescer =
+            coalescerFactory.getInstance(
+                new NT(namespace, commitTime.longValue()), null /* state */);
+
+      } else {
+
+        coalescer = null;
+      }
+    }
+
     {
       inlineLiterals =
           Boolean.parseBoolean(
@@ -657,6 +716,30 @@ public class LexiconRelation extends AbstractRelation<EmbergraphValue>
 
   private final EmbergraphValueFactory valueFactory;
 
+  /*
+   * The performance counters for the lexicon. This includes the counters for the {@link
+   * GlobalTermCache} when this view uses that cache and the counters for the coalesced term
+   * resolution when that is enabled for this view.
+   */
+  public CounterSet getCounters() {
+
+    final CounterSet counters = new CounterSet();
+
+    if (termCache instanceof GlobalTermCache.View) {
+
+      counters
+          .makePath("termCache")
+          .attach(((GlobalTermCache.View) termCache).getCache().getCounters());
+    }
+
+    if (coalescer != null) {
+
+      counters.makePath("termResolution").attach(coalescer.getCounters());
+    }
+
+    return counters;
+  }
+
   /** Strengthens the return type. */
   @Override
   public AbstractTripleStore getContainer() {
@@ -799,6 +882,9 @@ public class LexiconRelation extends AbstractRelation<EmbergraphValue>
 
       termCache.clear();
 
+      // discard any entries for the namespace in the shared term caches.
+      GlobalTermCache.clearAll(getNamespace());
+
       super.destroy();
 
     } finally {
@@ -2513,6 +2599,13 @@ public class LexiconRelation extends AbstractRelation<EmbergraphValue>
 
     final Set<IV<?, ?>> unrequestedSidTerms = new LinkedHashSet<>();
 
+    // IVs claimed by this thread and IVs being read by other threads.
+    final Map<IV<?, ?>, CompletableFuture<EmbergraphValue>> owned =
+        coalescer == null ? null : new HashMap<>();
+
+    final Map<IV<?, ?>, CompletableFuture<EmbergraphValue>> pending =
+        coalescer == null ? null : new HashMap<>();
+
     /*
      * We need to materialize terms inside of SIDs so that the SIDs
      * can be materialized properly.
@@ -2590,6 +2683,18 @@ public class LexiconRelation extends AbstractRelation<EmbergraphValue>
       }
     }
 
+    if (coalescer != null) {
+
+      /*
+       * Claim the IVs which must be read on an index. An IV which is
+       * already being read by another thread is not read again. Instead,
+       * we wait below for the result from that thread.
+       */
+      numNotFound -= claim(termIVs, owned, pending);
+
+      numNotFound -= claim(blobIVs, owned, pending);
+    }
+
     //        if (numNotFound == 0) {
     //
     //            // Done.
@@ -2597,61 +2702,89 @@ public class LexiconRelation extends AbstractRelation<EmbergraphValue>
     //
     //        }
 
-    if (numNotFound > 0) {
+    try {
 
-      // go to the indices
+      if (numNotFound > 0) {
 
-      /*
-       * Setup and run task(s) to resolve IV(s).
-       */
+        // go to the indices
 
-      final ExecutorService service = getExecutorService();
+        /*
+         * Setup and run task(s) to resolve IV(s).
+         */
 
-      final List<Callable<Void>> tasks = new LinkedList<>();
+        final ExecutorService service = getExecutorService();
 
-      if (!termIVs.isEmpty()) {
+        final List<Callable<Void>> tasks = new LinkedList<>();
 
-        tasks.add(
-            new BatchResolveTermIVsTask(
-                service,
-                getId2TermIndex(),
-                termIVs,
-                ret,
-                termCache,
-                valueFactory,
-                termsChunksSize));
-      }
+        if (!termIVs.isEmpty()) {
 
-      if (!blobIVs.isEmpty()) {
+          tasks.add(
+              new BatchResolveTermIVsTask(
+                  service,
+                  getId2TermIndex(),
+                  termIVs,
+                  ret,
+                  termCache,
+                  valueFactory,
+                  termsChunksSize));
+        }
 
-        tasks.add(
-            new BatchResolveBlobIVsTask(
-                service, getBlobsIndex(), blobIVs, ret, termCache, valueFactory, blobsChunkSize));
-      }
+        if (!blobIVs.isEmpty()) {
+
+          tasks.add(
+              new BatchResolveBlobIVsTask(
+                  service,
+                  getBlobsIndex(),
+                  blobIVs,
+                  ret,
+                  termCache,
+                  valueFactory,
+                  blobsChunkSize));
+        }
 
-      if (log.isInfoEnabled())
-        log.info(
-            "nterms=" + n + ", numNotFound=" + numNotFound + ", cacheSize=" + termCache.size());
+        if (log.isInfoEnabled())
+          log.info(
+              "nterms=" + n + ", numNotFound=" + numNotFound + ", cacheSize=" + termCache.size());
 
-      try {
+        try {
 
-        if (tasks.size() == 1) {
+          if (tasks.size() == 1) {
 
-          tasks.get(0).call();
+            tasks.get(0).call();
 
-        } else {
+          } else {
 
-          // Co-thread tasks.
-          final List<Future<Void>> futures = getExecutorService().invokeAll(tasks);
+            // Co-thread tasks.
+            final List<Future<Void>> futures = getExecutorService().invokeAll(tasks);
 
-          // Verify no errors.
-          for (Future<Void> f : futures) f.get();
-        }
+            // Verify no errors.
+            for (Future<Void> f : futures) f.get();
+          }
 
-      } catch (Exception ex) {
+        } catch (Exception ex) {
 
-        throw new RuntimeException(ex);
+          throw new RuntimeException(ex);
+        }
       }
+
+    } catch (RuntimeException | Error ex) {
+
+      // Release any threads waiting on the IVs claimed by this thread.
+      if (coalescer != null) coalescer.fail(owned, ex);
+
+      throw ex;
+    }
+
+    if (coalescer != null) coalescer.complete(owned, ret);
+
+    if (pending != null && !pending.isEmpty()) {
+
+      /*
+       * Note: This MUST follow the publication of the IVs claimed by this
+       * thread. Otherwise two threads which each claimed an IV needed by
+       * the other could deadlock.
+       */
+      TermResolutionCoalescer.await(pending, ret);
     }
 
     /*
@@ -2811,10 +2944,66 @@ public class LexiconRelation extends AbstractRelation<EmbergraphValue>
             }
           };
 
+  /*
+   * Claim the {@link IV}s for resolution by this thread, removing any {@link IV}s which are already
+   * being resolved by another thread.
+   *
+   * @param ivs The {@link IV}s to be read on an index.
+   * @param owned The {@link IV}s claimed by this thread.
+   * @param pending The futures for the {@link IV}s being resolved by other threads.
+   * @return The #of {@link IV}s which were removed.
+   */
+  private int claim(
+      final Collection<? extends IV<?, ?>> ivs,
+      final Map<IV<?, ?>, CompletableFuture<EmbergraphValue>> owned,
+      final Map<IV<?, ?>, CompletableFuture<EmbergraphValue>> pending) {
+
+    int n = 0;
+
+    final Iterator<? extends IV<?, ?>> itr = ivs.iterator();
+
+    while (itr.hasNext()) {
+
+      final IV<?, ?> iv = itr.next();
+
+      final CompletableFuture<EmbergraphValue> f = coalescer.claim(iv, owned);
+
+      if (f != null) {
+
+        pending.put(iv, f);
+
+        itr.remove();
+
+        n++;
+      }
+    }
+
+    return n;
+  }
+
+  /*
+   * Coalesces the concurrent resolution of the same {@link IV}s against the indices and <code>null
+   * </code> unless this is a read-only view and {@link
+   * AbstractTripleStore.Options#COALESCE_TERM_RESOLUTION} is enabled.
+   */
+  private final TermResolutionCoalescer coalescer;
+
+  /** Factory used for {@link #coalescer} for read-only views of the lexicon. */
+  private static final CanonicalFactory<NT /* key */, TermResolutionCoalescer, Void /* state */>
+      coalescerFactory =
+          new CanonicalFactory<NT, TermResolutionCoalescer, Void>(1 /* queueCapacity */) {
+            @Override
+            protected TermResolutionCoalescer newInstance(final NT key, final Void state) {
+              return new TermResolutionCoalescer();
+            }
+          };
+
   /** Clear all term caches for the supplied namespace. */
   @SuppressWarnings("rawtypes")
   public static void clearTermCacheFactory(final String namespace) {
 
+    GlobalTermCache.clearAll(namespace);
+
     final Iterator it = termCacheFactory.entryIterator();
     while (it.hasNext()) {
       final NT nt = (NT) ((Entry) it.next()).getKey();
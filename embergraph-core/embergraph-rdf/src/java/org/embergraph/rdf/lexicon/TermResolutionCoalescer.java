@@ -0,0 +1,209 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.rdf.lexicon;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import org.embergraph.counters.CAT;
+import org.embergraph.counters.CounterSet;
+import org.embergraph.counters.Instrument;
+import org.embergraph.rdf.internal.IV;
+import org.embergraph.rdf.model.EmbergraphValue;
+
+/*
+ * Coalesces the concurrent resolution of the same {@link IV}s against the ID2TERM and BLOBS indices
+ * (single-flight). An instance is shared by the read-only views of a lexicon for the same commit
+ * point, so concurrent queries which materialize the same popular {@link IV}s only read each of
+ * them from the index once.
+ *
+ * <p>The thread which {@link #claim(IV, Map) claims} an {@link IV} resolves it against the index
+ * and then {@link #complete(Map, Map) publishes} the result. Any other thread which needs the same
+ * {@link IV} in the meantime {@link #await(Map, Map) waits} for that result rather than reading on
+ * the index. A thread MUST publish the results for the {@link IV}s which it claimed before it waits
+ * for the {@link IV}s claimed by other threads. This guarantees that two threads which each claimed
+ * an {@link IV} needed by the other can not deadlock.
+ */
+class TermResolutionCoalescer {
+
+  /** The {@link IV}s which are being resolved. */
+  private final ConcurrentHashMap<IV<?, ?>, CompletableFuture<EmbergraphValue>> inFlight =
+      new ConcurrentHashMap<>();
+
+  /** The #of {@link IV}s which were claimed (and read on the index). */
+  private final CAT claimed = new CAT();
+
+  /** The #of {@link IV}s which were resolved by waiting for another thread. */
+  private final CAT coalesced = new CAT();
+
+  /*
+   * Claim the {@link IV} for resolution by the caller.
+   *
+   * @param iv The {@link IV}.
+   * @param owned The {@link IV}s claimed by the caller. The {@link IV} is added to this map iff it
+   *     is claimed by the caller.
+   * @return <code>null</code> if the caller claimed the {@link IV} and must read it on the index,
+   *     and otherwise the future for the resolution of the {@link IV} by another thread.
+   */
+  CompletableFuture<EmbergraphValue> claim(
+      final IV<?, ?> iv, final Map<IV<?, ?>, CompletableFuture<EmbergraphValue>> owned) {
+
+    final CompletableFuture<EmbergraphValue> f = new CompletableFuture<>();
+
+    final CompletableFuture<EmbergraphValue> other = inFlight.putIfAbsent(iv, f);
+
+    if (other != null) {
+
+      coalesced.increment();
+
+      return other;
+    }
+
+    owned.put(iv, f);
+
+    claimed.increment();
+
+    return null;
+  }
+
+  /*
+   * Publish the results for the {@link IV}s claimed by the caller. An {@link IV} which was not
+   * resolved is published as <code>null</code>.
+   *
+   * @param owned The {@link IV}s claimed by the caller.
+   * @param ret The resolved values.
+   */
+  void complete(
+      final Map<IV<?, ?>, CompletableFuture<EmbergraphValue>> owned,
+      final Map<IV<?, ?>, EmbergraphValue> ret) {
+
+    for (Map.Entry<IV<?, ?>, CompletableFuture<EmbergraphValue>> e : owned.entrySet()) {
+
+      inFlight.remove(e.getKey(), e.getValue());
+
+      e.getValue().complete(ret.get(e.getKey()));
+    }
+  }
+
+  /*
+   * Publish the failure to resolve the {@link IV}s claimed by the caller.
+   *
+   * @param owned The {@link IV}s claimed by the caller.
+   * @param cause The cause.
+   */
+  void fail(final Map<IV<?, ?>, CompletableFuture<EmbergraphValue>> owned, final Throwable cause) {
+
+    for (Map.Entry<IV<?, ?>, CompletableFuture<EmbergraphValue>> e : owned.entrySet()) {
+
+      inFlight.remove(e.getKey(), e.getValue());
+
+      e.getValue().completeExceptionally(cause);
+    }
+  }
+
+  /*
+   * Wait for the {@link IV}s being resolved by other threads.
+   *
+   * @param pending The futures for the {@link IV}s being resolved by other threads.
+   * @param ret The resolved values are added to this map.
+   */
+  static void await(
+      final Map<IV<?, ?>, CompletableFuture<EmbergraphValue>> pending,
+      final Map<IV<?, ?>, EmbergraphValue> ret) {
+
+    for (Map.Entry<IV<?, ?>, CompletableFuture<EmbergraphValue>> e : pending.entrySet()) {
+
+      final EmbergraphValue value;
+
+      try {
+
+        value = e.getValue().get();
+
+      } catch (InterruptedException ex) {
+
+        // Preserve the interrupt for the caller.
+        Thread.currentThread().interrupt();
+
+        throw new RuntimeException(ex);
+
+      } catch (ExecutionException ex) {
+
+        throw new RuntimeException(ex.getCause());
+      }
+
+      if (value != null) {
+
+        ret.put(e.getKey(), value);
+      }
+    }
+  }
+
+  /** The #of {@link IV}s which are being resolved. */
+  int getInFlightCount() {
+
+    return inFlight.size();
+  }
+
+  /** The #of {@link IV}s which were claimed (and read on the index). */
+  long getClaimedCount() {
+
+    return claimed.get();
+  }
+
+  /** The #of {@link IV}s which were resolved by waiting for another thread. */
+  long getCoalescedCount() {
+
+    return coalesced.get();
+  }
+
+  /** The performance counters for the coalescer. */
+  CounterSet getCounters() {
+
+    final CounterSet root = new CounterSet();
+
+    root.addCounter(
+        "claimed",
+        new Instrument<Long>() {
+          @Override
+          public void sample() {
+            setValue(getClaimedCount());
+          }
+        });
+
+    root.addCounter(
+        "coalesced",
+        new Instrument<Long>() {
+          @Override
+          public void sample() {
+            setValue(getCoalescedCount());
+          }
+        });
+
+    root.addCounter(
+        "inFlight",
+        new Instrument<Long>() {
+          @Override
+          public void sample() {
+            setValue((long) getInFlightCount());
+          }
+        });
+
+    return root;
+  }
+}
@@ -22,7 +22,13 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 package org.embergraph.rdf.sparql.ast;
 
 import org.embergraph.bop.ap.SampleIndex.SampleType;
+import org.embergraph.bop.engine.ChunkTaskScheduler;
 import org.embergraph.bop.engine.IChunkHandler;
+import org.embergraph.bop.engine.QueryEngine;
+import org.embergraph.bop.join.JVMHashJoinAnnotations;
+import org.embergraph.bop.join.JVMHashJoinUtility;
+import org.embergraph.bop.join.SIPFilter;
+import org.embergraph.bop.rdf.join.LeapfrogTriejoinOp;
 import org.embergraph.rdf.sparql.ast.optimizers.ASTStaticJoinOptimizer;
 import org.embergraph.rdf.sparql.ast.optimizers.DefaultOptimizerList;
 import org.embergraph.util.Bytes;
@@ -113,6 +119,19 @@ public interface QueryHints {
 
   int DEFAULT_RTO_NEDGES = 1;
 
+  /*
+   * When the {@link QueryOptimizerEnum#Adaptive} optimizer is used, the remaining joins in a join
+   * group are re-ordered at runtime if the live estimate of the cardinality of a join differs from
+   * the estimate of the static optimizer by more than this factor (default {@value
+   * #DEFAULT_ADAPTIVE_ERROR_FACTOR}). The live estimate is obtained from a cutoff join against a
+   * sample of at most {@link #RTO_LIMIT} solutions of the previous joins.
+   */
+  String ADAPTIVE_ERROR_FACTOR = "adaptiveErrorFactor";
+
+  int DEFAULT_ADAPTIVE_ERROR_FACTOR =
+      Integer.valueOf(
+          System.getProperty(QueryHints.class.getName() + "." + ADAPTIVE_ERROR_FACTOR, "10"));
+
   /** Query hint sets the optimistic threshold for the static join order optimizer. */
   String OPTIMISTIC = "optimistic";
 
@@ -239,6 +258,65 @@ public interface QueryHints {
 
   boolean DEFAULT_NATIVE_DISTINCT_SOLUTIONS = DEFAULT_ANALYTIC;
 
+  /*
+   * When <code>true</code>, ORDER BY will use the {@link ExternalSortOp}, which sorts bounded runs
+   * of solutions on the JVM heap, writes them onto the native heap and then merges those runs. When
+   * <code>false</code>, the {@link MemorySortOp} will be used unless the estimated cardinality of
+   * the solutions to be sorted exceeds the {@link #NATIVE_ORDER_BY_THRESHOLD}.
+   */
+  String NATIVE_ORDER_BY = "nativeOrderBy";
+
+  boolean DEFAULT_NATIVE_ORDER_BY = DEFAULT_ANALYTIC;
+
+  /*
+   * The estimated cardinality of the solutions to be sorted at which the {@link ExternalSortOp} will
+   * be used even when {@link #NATIVE_ORDER_BY} is not enabled.
+   *
+   * @see #NATIVE_ORDER_BY
+   */
+  String NATIVE_ORDER_BY_THRESHOLD = "nativeOrderByThreshold";
+
+  long DEFAULT_NATIVE_ORDER_BY_THRESHOLD =
+      Long.valueOf(
+          System.getProperty(
+              QueryHints.class.getName() + "." + NATIVE_ORDER_BY_THRESHOLD, "1000000"));
+
+  /*
+   * When <code>true</code>, GROUP BY will use the {@link ExternalGroupByOp}, which divides the
+   * solutions into hash partitions on the native heap and then aggregates one partition at a time.
+   * When <code>false</code>, the {@link PipelinedAggregationOp} or the {@link MemoryGroupByOp} will
+   * be used.
+   */
+  String NATIVE_GROUP_BY = "nativeGroupBy";
+
+  boolean DEFAULT_NATIVE_GROUP_BY = DEFAULT_ANALYTIC;
+
+  /*
+   * The maximum value of <code>offset + limit</code> for which an <code>ORDER BY ... LIMIT</code>
+   * will be evaluated using the {@link TopKSortOp}, which retains only the first <code>offset +
+   * limit</code> solutions in a bounded heap rather than sorting all solutions (default {@value
+   * #DEFAULT_TOP_K_SORT_MAX_LIMIT}). When ZERO (0), the top-K sort is disabled.
+   */
+  String TOP_K_SORT_MAX_LIMIT = "topKSortMaxLimit";
+
+  long DEFAULT_TOP_K_SORT_MAX_LIMIT =
+      Long.valueOf(
+          System.getProperty(QueryHints.class.getName() + "." + TOP_K_SORT_MAX_LIMIT, "100000"));
+
+  /*
+   * The priority of the query (a positive integer, default {@value #DEFAULT_QUERY_PRIORITY}). When
+   * the {@link QueryEngine} is configured with a {@link ChunkTaskScheduler}, the running queries
+   * share the threads which evaluate the query operators in proportion to their priorities. For
+   * example, a selective lookup query may be given a higher priority than the analytic queries
+   * running on the same {@link QueryEngine}. The priority has no effect otherwise.
+   *
+   * @see QueryEngine.Annotations#PRIORITY
+   * @see QueryEngine.Options#SCHEDULER_PARALLELISM
+   */
+  String QUERY_PRIORITY = "queryPriority";
+
+  int DEFAULT_QUERY_PRIORITY = QueryEngine.Annotations.DEFAULT_PRIORITY;
+
   /*
    * When <code>true</code> and the range count of the default graph access path exceeds the {@link
    * #NATIVE_DISTINCT_SPO_THRESHOLD}, will use the version of DISTINCT SPO for a hash join against a
@@ -657,6 +735,93 @@ public interface QueryHints {
       Boolean.valueOf(
           System.getProperty(QueryHints.class.getName() + "." + PIPELINED_HASH_JOIN, "false"));
 
+  /*
+   * The #of partitions for the JVM hash index used by the {@link JVMHashJoinUtility} (default
+   * {@value JVMHashJoinAnnotations#DEFAULT_PARTITION_COUNT}). When greater than ONE (1), the hash
+   * index is split into partitions by the hash code of the join variables and the partitions are
+   * built and probed concurrently. This may be used to make use of more cores for OPTIONAL and
+   * named subquery hash joins having a large number of solutions. The order of the solutions output
+   * by such joins is not specified. The hint may be given at the query scope or for a specific
+   * join group or sub-select. The native (HTree) hash joins ignore this hint.
+   *
+   * @see JVMHashJoinAnnotations#PARTITION_COUNT
+   */
+  String HASH_JOIN_PARTITION_COUNT = "hashJoinPartitionCount";
+
+  int DEFAULT_HASH_JOIN_PARTITION_COUNT =
+      Integer.valueOf(
+          System.getProperty(
+              QueryHints.class.getName() + "." + HASH_JOIN_PARTITION_COUNT,
+              Integer.toString(JVMHashJoinAnnotations.DEFAULT_PARTITION_COUNT)));
+
+  /*
+   * When <code>true</code>, the hash index built for a named subquery publishes a {@link SIPFilter}
+   * (a Bloom filter) for each of its join variables (sideways information passing). The required
+   * statement patterns in a join group which INCLUDEs that named solution set then use the filter
+   * to drop tuples which can not join with the named solution set before they are materialized or
+   * buffered into chunks. This can substantially reduce the intermediate result volume for
+   * selective star or snowflake joins against a named subquery.
+   *
+   * @see SIPFilter
+   */
+  String SIP_FILTERS = "sipFilters";
+
+  boolean DEFAULT_SIP_FILTERS =
+      Boolean.valueOf(System.getProperty(QueryHints.class.getName() + "." + SIP_FILTERS, "true"));
+
+  /*
+   * When <code>true</code>, the cyclic core of a run of required triple patterns in a join group
+   * (for example, a triangle <code>?a :p ?b . ?b :p ?c . ?c :p ?a</code>) is evaluated using a
+   * {@link LeapfrogTriejoinOp}. That worst-case optimal multiway join intersects sorted iterators
+   * over the statement indices, so its intermediate results are bounded by the output size rather
+   * than by the cardinality of the binary joins. The cyclic core is identified using the GYO
+   * reduction and is empty for acyclic join groups, which continue to use pipeline joins. This is
+   * only applied in triples mode on a single machine, and only when each statement pattern in the
+   * cyclic core can be read from a statement index in the variable order of the multiway join.
+   *
+   * <p>Note: This is disabled by default since it changes the plan for every cyclic join group.
+   *
+   * @see LeapfrogTriejoinOp
+   */
+  String LEAPFROG_TRIEJOIN = "leapfrogTriejoin";
+
+  boolean DEFAULT_LEAPFROG_TRIEJOIN =
+      Boolean.valueOf(
+          System.getProperty(QueryHints.class.getName() + "." + LEAPFROG_TRIEJOIN, "false"));
+
+  /*
+   * When <code>true</code>, two or more adjacent required triple patterns which share a variable
+   * (for example, <code>?s :p1 ?o1 . ?s :p2 ?o2</code>) may be evaluated as a streaming sort-merge
+   * join. Each triple pattern is read from a statement index which visits the shared variable in
+   * ascending order, and the cursors seek forward over each other's keys. This replaces the random
+   * index probes of a nested index join with sequential leaf scans. It is only used when each
+   * triple pattern has an estimated cardinality of at least {@link #SORT_MERGE_JOIN_THRESHOLD} and
+   * no variables can be bound on entry to the join, and only in triples mode on a single machine.
+   * Triple patterns having access path filters or expanders are always joined using their access
+   * path.
+   *
+   * <p>Note: This is disabled by default until it has been benchmarked against the nested index
+   * join plans.
+   *
+   * @see LeapfrogTriejoinOp
+   */
+  String SORT_MERGE_JOIN = "sortMergeJoin";
+
+  boolean DEFAULT_SORT_MERGE_JOIN =
+      Boolean.valueOf(
+          System.getProperty(QueryHints.class.getName() + "." + SORT_MERGE_JOIN, "false"));
+
+  /*
+   * The minimum estimated cardinality of each triple pattern in a {@link #SORT_MERGE_JOIN}. Below
+   * this threshold a nested index join is cheaper.
+   */
+  String SORT_MERGE_JOIN_THRESHOLD = "sortMergeJoinThreshold";
+
+  long DEFAULT_SORT_MERGE_JOIN_THRESHOLD =
+      Long.valueOf(
+          System.getProperty(
+              QueryHints.class.getName() + "." + SORT_MERGE_JOIN_THRESHOLD, "10000"));
+
   /*
    * By default, a DISTINCT filter is applied when evaluating access paths against the default
    * graph, for correctness reasons. The hint (or the respective system property) can be used to
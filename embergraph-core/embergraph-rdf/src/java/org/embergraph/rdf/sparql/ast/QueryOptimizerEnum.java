@@ -53,5 +53,14 @@ public enum QueryOptimizerEnum {
    * magnitude more efficient (10x or 100x). For long running joins, this can translates into a
    * savings of minutes or hours.
    */
-  Runtime
+  Runtime,
+  /*
+   * The join order chosen by the static query optimizer is evaluated, but the cardinality of each
+   * join is checked at runtime against the estimate used by the static optimizer. A cutoff join
+   * against a sample of the join path so far is used to obtain a live estimate of the cardinality
+   * of the next join. If the estimate is off by more than the {@link
+   * QueryHints#ADAPTIVE_ERROR_FACTOR}, then the remaining joins are re-ordered using cutoff joins
+   * against that sample. The joins are then evaluated as a pipeline in the chosen order.
+   */
+  Adaptive
 }
@@ -148,6 +148,45 @@ public class AST2BOpContext implements IdFactory, IEvaluationContext {
    */
   public boolean nativeDistinctSolutions = QueryHints.DEFAULT_NATIVE_DISTINCT_SOLUTIONS;
 
+  /*
+   * When <code>true</code>, ORDER BY will use the {@link ExternalSortOp}, which spills sorted runs
+   * onto the native heap.
+   *
+   * @see QueryHints#NATIVE_ORDER_BY
+   */
+  public boolean nativeOrderBy = QueryHints.DEFAULT_NATIVE_ORDER_BY;
+
+  /*
+   * The estimated cardinality of the solutions to be sorted at which ORDER BY will use the {@link
+   * ExternalSortOp} even when {@link #nativeOrderBy} is <code>false</code>.
+   *
+   * @see QueryHints#NATIVE_ORDER_BY_THRESHOLD
+   */
+  public long nativeOrderByThreshold = QueryHints.DEFAULT_NATIVE_ORDER_BY_THRESHOLD;
+
+  /*
+   * When <code>true</code>, GROUP BY will use the {@link ExternalGroupByOp}, which buffers the
+   * solutions to be grouped on the native heap.
+   *
+   * @see QueryHints#NATIVE_GROUP_BY
+   */
+  public boolean nativeGroupBy = QueryHints.DEFAULT_NATIVE_GROUP_BY;
+
+  /*
+   * The maximum value of <code>offset + limit</code> for which ORDER BY + LIMIT will use the {@link
+   * TopKSortOp}. When ZERO (0), the top-K sort is disabled.
+   *
+   * @see QueryHints#TOP_K_SORT_MAX_LIMIT
+   */
+  public long topKSortMaxLimit = QueryHints.DEFAULT_TOP_K_SORT_MAX_LIMIT;
+
+  /*
+   * The priority of the query.
+   *
+   * @see QueryHints#QUERY_PRIORITY
+   */
+  public int queryPriority = QueryHints.DEFAULT_QUERY_PRIORITY;
+
   /*
    * Controls whether the intermediate solution chunks on the query engine operator input queues are
    * stored on the native heap and/or the managed object heap.
@@ -174,6 +213,46 @@ public class AST2BOpContext implements IdFactory, IEvaluationContext {
    */
   public boolean pipelinedHashJoins = QueryHints.DEFAULT_PIPELINED_HASH_JOIN;
 
+  /*
+   * The #of partitions for the JVM hash joins. When greater than ONE (1), the hash index is built
+   * and probed concurrently by partition.
+   *
+   * @see QueryHints#HASH_JOIN_PARTITION_COUNT
+   */
+  public int hashJoinPartitionCount = QueryHints.DEFAULT_HASH_JOIN_PARTITION_COUNT;
+
+  /*
+   * When <code>true</code>, named subqueries publish Bloom filters over their join variables which
+   * are used to filter the access paths of the statement patterns joined with that named solution
+   * set.
+   *
+   * @see QueryHints#SIP_FILTERS
+   */
+  public boolean sipFilters = QueryHints.DEFAULT_SIP_FILTERS;
+
+  /*
+   * When <code>true</code>, the cyclic core of a join group is evaluated using a worst-case optimal
+   * multiway join.
+   *
+   * @see QueryHints#LEAPFROG_TRIEJOIN
+   */
+  public boolean leapfrogTriejoin = QueryHints.DEFAULT_LEAPFROG_TRIEJOIN;
+
+  /*
+   * When <code>true</code>, adjacent triple patterns sharing a variable may be evaluated as a
+   * sort-merge join over the statement indices.
+   *
+   * @see QueryHints#SORT_MERGE_JOIN
+   */
+  public boolean sortMergeJoin = QueryHints.DEFAULT_SORT_MERGE_JOIN;
+
+  /*
+   * The minimum estimated cardinality of each triple pattern in a sort-merge join.
+   *
+   * @see QueryHints#SORT_MERGE_JOIN_THRESHOLD
+   */
+  public long sortMergeJoinThreshold = QueryHints.DEFAULT_SORT_MERGE_JOIN_THRESHOLD;
+
   /*
    * When <code>true</code>, a merge-join pattern will be recognized if it appears in a join group.
    * When <code>false</code>, this can still be selectively enabled using a query hint.
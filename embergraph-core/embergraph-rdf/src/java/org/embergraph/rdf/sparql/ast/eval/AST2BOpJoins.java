@@ -56,6 +56,7 @@ import org.embergraph.bop.join.PipelineJoin;
 import org.embergraph.bop.rdf.filter.NativeDistinctFilter;
 import org.embergraph.bop.rdf.filter.StripContextFilter;
 import org.embergraph.bop.rdf.join.DataSetJoin;
+import org.embergraph.bop.rdf.join.LeapfrogTriejoinOp;
 import org.embergraph.rdf.internal.IV;
 import org.embergraph.rdf.internal.VTE;
 import org.embergraph.rdf.internal.impl.TermId;
@@ -260,6 +261,69 @@ public class AST2BOpJoins extends AST2BOpFilters {
     return left;
   }
 
+  /*
+   * Add a worst-case optimal multiway join for a set of triples mode statement patterns. This is
+   * used for the cyclic core of a join group and for sort-merge joins.
+   *
+   * @param left
+   * @param preds The predicates describing the statement patterns.
+   * @param doneSet The set of variables already known to be materialized.
+   * @param constraints Constraints on that join (optional).
+   * @param queryHints Query hints associated with the join group.
+   * @param variableOrder The leading variables of the global variable order (optional).
+   * @param ctx The evaluation context.
+   * @see LeapfrogTriejoinOp
+   */
+  public static PipelineOp leapfrogJoin(
+      PipelineOp left,
+      final Predicate<?>[] preds,
+      final Set<IVariable<?>> doneSet,
+      final Collection<IConstraint> constraints,
+      final Properties queryHints,
+      final IVariable<?>[] variableOrder,
+      final AST2BOpContext ctx) {
+
+    final Map<IConstraint, Set<IVariable<IV>>> needsMaterialization = new LinkedHashMap<>();
+
+    final IConstraint[] joinConstraints =
+        getJoinConstraints2(constraints, needsMaterialization, true /* conditionalRouting */);
+
+    // strip off annotations that we do not want to propagate.
+    final IPredicate<?>[] a = new IPredicate[preds.length];
+
+    for (int i = 0; i < preds.length; i++) {
+
+      a[i] =
+          preds[i].clearAnnotations(
+              new String[] {Annotations.SCOPE, Annotations.QUADS, Annotations.DATASET});
+    }
+
+    left =
+        applyQueryHints(
+            new LeapfrogTriejoinOp(
+                leftOrEmpty(left),
+                new NV(BOp.Annotations.BOP_ID, ctx.nextId()),
+                new NV(LeapfrogTriejoinOp.Annotations.PREDICATES, a),
+                new NV(LeapfrogTriejoinOp.Annotations.CONSTRAINTS, joinConstraints),
+                new NV(LeapfrogTriejoinOp.Annotations.VARIABLE_ORDER, variableOrder),
+                new NV(
+                    LeapfrogTriejoinOp.Annotations.EVALUATION_CONTEXT, BOpEvaluationContext.ANY)),
+            queryHints,
+            ctx);
+
+    if (needsMaterialization.isEmpty()) {
+
+      // No filters.
+      return left;
+    }
+
+    /*
+     * Add operators to materialization variables (as necessary) and
+     * evaluate filters.
+     */
+    return addMaterializationSteps3(left, doneSet, needsMaterialization, queryHints, ctx);
+  }
+
   /*
    * FIXME We need to handle cutoff joins here or the distinct-term-scan will not work with the RTO
    * (alternatively, make sure the RTO is only using pipeline joins when sampling the join graph).
@@ -55,6 +55,7 @@ import org.embergraph.bop.join.JoinAnnotations;
 import org.embergraph.bop.join.PipelineJoin;
 import org.embergraph.bop.join.PipelineJoinStats;
 import org.embergraph.bop.joinGraph.PartitionedJoinGroup;
+import org.embergraph.bop.joinGraph.rto.AdaptiveJoinGraph;
 import org.embergraph.bop.joinGraph.rto.EdgeSample;
 import org.embergraph.bop.joinGraph.rto.EstimateEnum;
 import org.embergraph.bop.joinGraph.rto.JoinGraph;
@@ -68,6 +69,7 @@ import org.embergraph.rdf.sparql.ast.ASTContainer;
 import org.embergraph.rdf.sparql.ast.IGroupMemberNode;
 import org.embergraph.rdf.sparql.ast.JoinGroupNode;
 import org.embergraph.rdf.sparql.ast.QueryHints;
+import org.embergraph.rdf.sparql.ast.QueryOptimizerEnum;
 import org.embergraph.rdf.sparql.ast.StatementPatternNode;
 import org.embergraph.rdf.store.AbstractTripleStore;
 import org.embergraph.striterator.Dechunkerator;
@@ -208,6 +210,11 @@ public class AST2BOpRTO extends AST2BOpJoins {
    * ordering. Both the static optimizer and the RTO will always choose the AP with the smaller
    * cardinality to run first. If there are only 2 predicates, then the other predicate will run
    * second. You need at least three predicates before the RTO could provide a different answer.
+   *
+   * <p>When the {@link QueryOptimizerEnum#Adaptive} optimizer is selected for the join group, the
+   * join graph is instead evaluated in the static join order by an {@link AdaptiveJoinGraph}, which
+   * re-orders the remaining joins if the cardinality estimates of the static optimizer are
+   * contradicted at runtime.
    */
   protected static PipelineOp convertRTOJoinGraph(
       PipelineOp left,
@@ -359,6 +366,37 @@ public class AST2BOpRTO extends AST2BOpJoins {
 
     final int nedges = joinGroup.getProperty(QueryHints.RTO_NEDGES, QueryHints.DEFAULT_RTO_NEDGES);
 
+    if (QueryOptimizerEnum.Adaptive.equals(joinGroup.getQueryOptimizer())) {
+
+      final int errorFactor =
+          joinGroup.getProperty(
+              QueryHints.ADAPTIVE_ERROR_FACTOR, QueryHints.DEFAULT_ADAPTIVE_ERROR_FACTOR);
+
+      left =
+          new AdaptiveJoinGraph(
+              leftOrEmpty(left),
+              new NV(BOp.Annotations.BOP_ID, ctx.nextId()),
+              new NV(BOp.Annotations.EVALUATION_CONTEXT, BOpEvaluationContext.CONTROLLER),
+              new NV(BOp.Annotations.CONTROLLER, true),
+              new NV(JoinGraph.Annotations.VERTICES, preds.toArray(new Predicate[0])),
+              new NV(
+                  JoinGraph.Annotations.CONSTRAINTS,
+                  constraints.toArray(new IConstraint[0])),
+              new NV(JoinGraph.Annotations.JOIN_GROUP, rtoJoinGroup),
+              new NV(JoinGraph.Annotations.LIMIT, limit),
+              new NV(JoinGraph.Annotations.NEDGES, nedges),
+              new NV(JoinGraph.Annotations.SAMPLE_TYPE, sampleType.name()),
+              new NV(JoinGraph.Annotations.DONE_SET, doneSetIn),
+              new NV(JoinGraph.Annotations.NT, new NT(ctx.getNamespace(), ctx.getTimestamp())),
+              new NV(AdaptiveJoinGraph.Annotations.ESTIMATES, getEstimates(preds, doneSetIn)),
+              new NV(AdaptiveJoinGraph.Annotations.ERROR_FACTOR, errorFactor));
+
+      // These joins were consumed.
+      start.addAndGet(naccepted);
+
+      return left;
+    }
+
     left =
         new JoinGraph(
             leftOrEmpty(left),
@@ -386,6 +424,67 @@ public class AST2BOpRTO extends AST2BOpJoins {
     return left;
   }
 
+  /*
+   * Return the cardinality of the join path after each join in the given join order as estimated by
+   * the static query optimizer. The estimate for the first join is the estimated cardinality of its
+   * access path. Thereafter, a join which only binds variables which are already bound is assumed
+   * to filter the solutions (the min of the cardinalities), a join which shares some variables and
+   * binds new variables is assumed to not increase the cardinality beyond that of the larger
+   * operand (the max), and a join which shares no variables is a cross product.
+   *
+   * @param preds The predicates in the static join order.
+   * @param knownBound The variables which are known to be bound on entry.
+   * @return The estimated cardinality after each join.
+   */
+  @SuppressWarnings("rawtypes")
+  static long[] getEstimates(final List<Predicate> preds, final Set<IVariable<?>> knownBound) {
+
+    final long[] estimates = new long[preds.size()];
+
+    final Set<IVariable<?>> bound = new LinkedHashSet<>(knownBound);
+
+    long card = 1L;
+
+    int i = 0;
+
+    for (Predicate<?> pred : preds) {
+
+      final Long tmp = (Long) pred.getProperty(Annotations.ESTIMATED_CARDINALITY);
+
+      final long est = tmp == null ? Long.MAX_VALUE : tmp;
+
+      boolean shared = false;
+
+      boolean unshared = false;
+
+      final Iterator<IVariable<?>> itr = BOpUtility.getArgumentVariables(pred);
+
+      while (itr.hasNext()) {
+
+        if (bound.add(itr.next())) {
+          unshared = true;
+        } else {
+          shared = true;
+        }
+      }
+
+      if (i == 0) {
+        card = est;
+      } else if (!shared) {
+        // cross product (saturating).
+        card = est != 0 && card > Long.MAX_VALUE / est ? Long.MAX_VALUE : card * est;
+      } else if (!unshared) {
+        card = Math.min(card, est);
+      } else {
+        card = Math.max(card, est);
+      }
+
+      estimates[i++] = card;
+    }
+
+    return estimates;
+  }
+
   /*
    * Compile a join graph into a query plan.
    *
@@ -404,15 +503,47 @@ public class AST2BOpRTO extends AST2BOpJoins {
   public static PipelineOp compileJoinGraph(
       final QueryEngine queryEngine, final JoinGraph joinGraph, final Path path) {
 
+    if (path == null) throw new IllegalArgumentException();
+
+    return compileJoinGraph(
+        queryEngine,
+        joinGraph,
+        path.getPredicates(),
+        0 /* fromIndex */,
+        true /* pathIsComplete */);
+  }
+
+  /*
+   * Compile the joins for a suffix of a join path into a query plan. The constraints of the join
+   * graph are attached to the joins as if the entire join path were being compiled, so the query
+   * plan may be evaluated against the solutions produced by the joins for the prefix of the join
+   * path.
+   *
+   * @param queryEngine The {@link QueryEngine} on which the returned query plan may be executed.
+   * @param joinGraph The operator for the join graph.
+   * @param predicates The join path.
+   * @param fromIndex The index of the first join in the join path to be compiled.
+   * @param pathIsComplete <code>true</code> iff all vertices in the join graph are incorporated
+   *     into the join path.
+   * @return The query plan for the joins in the suffix of the join path.
+   * @see AdaptiveJoinGraph
+   */
+  public static PipelineOp compileJoinGraph(
+      final QueryEngine queryEngine,
+      final JoinGraph joinGraph,
+      final IPredicate<?>[] predicates,
+      final int fromIndex,
+      final boolean pathIsComplete) {
+
     if (queryEngine == null) throw new IllegalArgumentException();
 
     if (joinGraph == null) throw new IllegalArgumentException();
 
-    if (path == null) throw new IllegalArgumentException();
+    if (predicates == null) throw new IllegalArgumentException();
 
-    //        final IVariable<?>[] selected = joinGraph.getSelected();
+    if (fromIndex < 0 || fromIndex >= predicates.length) throw new IllegalArgumentException();
 
-    final IPredicate<?>[] predicates = path.getPredicates();
+    //        final IVariable<?>[] selected = joinGraph.getSelected();
 
     final IConstraint[] constraints = joinGraph.getConstraints();
 
@@ -442,7 +573,7 @@ public class AST2BOpRTO extends AST2BOpJoins {
      */
     final IConstraint[][] constraintAttachmentArray =
         PartitionedJoinGroup.getJoinGraphConstraints(
-            predicates, constraints, null /* knownBound */, true /* pathIsComplete */);
+            predicates, constraints, null /* knownBound */, pathIsComplete);
 
     // Create an execution context for the query.
     final AST2BOpContext ctx =
@@ -454,7 +585,7 @@ public class AST2BOpRTO extends AST2BOpJoins {
     // Start with an empty plan.
     PipelineOp left = null;
 
-    for (int i = 0; i < predicates.length; i++) {
+    for (int i = fromIndex; i < predicates.length; i++) {
 
       final Predicate<?> pred = (Predicate<?>) predicates[i];
 
@@ -5,6 +5,7 @@ import cutthecrap.utils.striterators.IFilter;
 import cutthecrap.utils.striterators.NOPFilter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -70,13 +71,17 @@ import org.embergraph.bop.join.JoinAnnotations;
 import org.embergraph.bop.join.JoinTypeEnum;
 import org.embergraph.bop.join.NestedLoopJoinOp;
 import org.embergraph.bop.join.PipelinedHashIndexAndSolutionSetJoinOp;
+import org.embergraph.bop.join.SIPFilter;
 import org.embergraph.bop.paths.ArbitraryLengthPathOp;
 import org.embergraph.bop.paths.ZeroLengthPathOp;
 import org.embergraph.bop.rdf.join.ChunkedMaterializationOp;
 import org.embergraph.bop.rdf.join.DataSetJoin;
+import org.embergraph.bop.rdf.join.LeapfrogTriejoinOp;
 import org.embergraph.bop.rdf.join.MockTermResolverOp;
 import org.embergraph.bop.rdf.join.VariableUnificationOp;
 import org.embergraph.bop.solutions.DropOp;
+import org.embergraph.bop.solutions.ExternalGroupByOp;
+import org.embergraph.bop.solutions.ExternalSortOp;
 import org.embergraph.bop.solutions.GroupByOp;
 import org.embergraph.bop.solutions.GroupByRewriter;
 import org.embergraph.bop.solutions.GroupByState;
@@ -91,7 +96,9 @@ import org.embergraph.bop.solutions.MemorySortOp;
 import org.embergraph.bop.solutions.PipelinedAggregationOp;
 import org.embergraph.bop.solutions.ProjectionOp;
 import org.embergraph.bop.solutions.SliceOp;
+import org.embergraph.bop.solutions.SortOp;
 import org.embergraph.bop.solutions.SortOrder;
+import org.embergraph.bop.solutions.TopKSortOp;
 import org.embergraph.btree.IRangeQuery;
 import org.embergraph.rdf.error.SparqlTypeErrorException;
 import org.embergraph.rdf.internal.IV;
@@ -164,7 +171,9 @@ import org.embergraph.rdf.sparql.ast.service.ServiceNode;
 import org.embergraph.rdf.sparql.ast.service.ServiceRegistry;
 import org.embergraph.rdf.spo.DistinctTermAdvancer;
 import org.embergraph.rdf.spo.ExplicitSPOFilter;
+import org.embergraph.rdf.spo.ISPO;
 import org.embergraph.rdf.spo.SPOPredicate;
+import org.embergraph.rdf.spo.SPORelation;
 import org.embergraph.rdf.store.AbstractTripleStore;
 import org.embergraph.relation.accesspath.ElementFilter;
 import org.embergraph.striterator.Chunkerator;
@@ -280,6 +289,12 @@ public class AST2BOpUtility extends AST2BOpRTO {
 
     left = (PipelineOp) left.setProperty(QueryEngine.Annotations.QUERY_ID, ctx.queryId);
 
+    if (ctx.queryPriority != QueryEngine.Annotations.DEFAULT_PRIORITY) {
+
+      // Set the priority used by the ChunkTaskScheduler (if enabled).
+      left = (PipelineOp) left.setProperty(QueryEngine.Annotations.PRIORITY, ctx.queryPriority);
+    }
+
     if (!ctx.isCluster()) {
 
       /*
@@ -912,6 +927,13 @@ public class AST2BOpUtility extends AST2BOpRTO {
     final INamedSolutionSetRef namedSolutionSet =
         NamedSolutionSetRefUtility.newInstance(ctx.queryId, subqueryRoot.getName(), joinVars);
 
+    /*
+     * Publish Bloom filters over the join variables once the named solution
+     * set has been built. They are used by the statement patterns of the
+     * groups which INCLUDE this named solution set.
+     */
+    final IVariable<?>[] sipVars = ctx.sipFilters && joinVars.length > 0 ? joinVars : null;
+
     if (ctx.nativeHashJoins) {
       left =
           applyQueryHints(
@@ -928,6 +950,7 @@ public class AST2BOpUtility extends AST2BOpRTO {
                       new String[] {ctx.getLexiconNamespace()}),
                   new NV(HTreeNamedSubqueryOp.Annotations.SUBQUERY, subqueryPlan),
                   new NV(HTreeNamedSubqueryOp.Annotations.JOIN_VARS, joinVars),
+                  new NV(HTreeNamedSubqueryOp.Annotations.SIP_VARS, sipVars),
                   new NV(NamedSetAnnotations.NAMED_SET_REF, namedSolutionSet)),
               subqueryRoot,
               ctx);
@@ -943,6 +966,7 @@ public class AST2BOpUtility extends AST2BOpRTO {
                   new NV(PipelineOp.Annotations.SHARED_STATE, true), // live stats.
                   new NV(HTreeNamedSubqueryOp.Annotations.SUBQUERY, subqueryPlan),
                   new NV(HTreeNamedSubqueryOp.Annotations.JOIN_VARS, joinVars),
+                  new NV(HTreeNamedSubqueryOp.Annotations.SIP_VARS, sipVars),
                   new NV(NamedSetAnnotations.NAMED_SET_REF, namedSolutionSet)),
               subqueryRoot,
               ctx);
@@ -1490,6 +1514,7 @@ public class AST2BOpUtility extends AST2BOpRTO {
                     new NV(HashIndexOp.Annotations.JOIN_VARS, joinVars),
                     new NV(HashIndexOp.Annotations.SELECT, selectVars),
                     new NV(HashIndexOp.Annotations.HASH_JOIN_UTILITY_FACTORY, joinUtilFactory),
+                    new NV(HashIndexOp.Annotations.PARTITION_COUNT, ctx.hashJoinPartitionCount),
                     new NV(HashIndexOp.Annotations.NAMED_SET_SOURCE_REF, sourceSet),
                     new NV(HashIndexOp.Annotations.NAMED_SET_REF, generatedSet),
                     new NV(
@@ -2965,6 +2990,422 @@ public class AST2BOpUtility extends AST2BOpRTO {
     return left;
   }
 
+  /*
+   * Return the named solution sets which will be joined by a required INCLUDE appearing after the
+   * given position in the join group. Those named solution sets are built by a named subquery which
+   * may publish {@link SIPFilter}s for its join variables. Since every solution of the group must
+   * join with those named solution sets, the filters may be used to prune the access path of a
+   * required statement pattern at the given position.
+   *
+   * @param joinGroup The join group.
+   * @param index The position of the statement pattern in the join group.
+   * @param ctx The evaluation context.
+   * @return The named solution sets -or- <code>null</code> if there are none.
+   * @see QueryHints#SIP_FILTERS
+   */
+  private static INamedSolutionSetRef[] getSIPFilters(
+      final JoinGroupNode joinGroup, final int index, final AST2BOpContext ctx) {
+
+    if (!ctx.sipFilters) return null;
+
+    List<INamedSolutionSetRef> refs = null;
+
+    final int arity = joinGroup.arity();
+
+    for (int i = index + 1; i < arity; i++) {
+
+      final BOp child = joinGroup.get(i);
+
+      if (!(child instanceof NamedSubqueryInclude)) continue;
+
+      final NamedSubqueryInclude nsi = (NamedSubqueryInclude) child;
+
+      if (nsi.isOptional()) continue;
+
+      final NamedSubqueryRoot nsr = ctx.sa.getNamedSubqueryRoot(nsi.getName());
+
+      if (nsr == null) {
+        // Not built by a named subquery (pre-existing solution set).
+        continue;
+      }
+
+      if (refs == null) refs = new LinkedList<>();
+
+      refs.add(
+          NamedSolutionSetRefUtility.newInstance(
+              ctx.queryId, nsi.getName(), ASTUtil.convert(nsr.getJoinVars())));
+    }
+
+    return refs == null ? null : refs.toArray(new INamedSolutionSetRef[refs.size()]);
+  }
+
+  /*
+   * Return the exclusive end of the run of statement patterns starting at the given index in the
+   * join group which could be evaluated by a {@link LeapfrogTriejoinOp}. Only required triple
+   * patterns without ranges, statement identifiers, access path filters or overrides for the join
+   * or the index are accepted.
+   *
+   * @param joinGroup The join group.
+   * @param index The index of the first statement pattern of the run.
+   * @return The exclusive end of the run.
+   */
+  private static int getLeapfrogTriejoinRun(final JoinGroupNode joinGroup, final int index) {
+
+    final int arity = joinGroup.arity();
+
+    int end = index;
+
+    for (; end < arity; end++) {
+
+      final BOp child = joinGroup.get(end);
+
+      if (!(child instanceof StatementPatternNode)) break;
+
+      final StatementPatternNode sp = (StatementPatternNode) child;
+
+      if (sp.isOptional() || sp.c() != null || sp.sid() != null || sp.getRange() != null) break;
+
+      if (sp.getProperty(StatementPatternNode.Annotations.DISTINCT_TERM_SCAN_VAR) != null
+          || sp.getProperty(StatementPatternNode.Annotations.FAST_RANGE_COUNT_VAR) != null
+          || sp.getProperty(GpuAnnotations.EVALUATE_ON_GPU) != null
+          || sp.getProperty(
+              StatementPatternNode.Annotations.DISTINCT,
+              StatementPatternNode.Annotations.DEFAULT_DISTINCT)) break;
+
+      final Properties queryHints = sp.getQueryHints();
+
+      if (queryHints != null
+          && (queryHints.containsKey(QueryHints.HASH_JOIN)
+              || queryHints.containsKey(QueryHints.HISTORY)
+              || queryHints.containsKey(IPredicate.Annotations.KEY_ORDER)
+              || queryHints.containsKey(IPredicate.Annotations.CUTOFF_LIMIT))) break;
+    }
+
+    return end;
+  }
+
+  /*
+   * Attempt to evaluate the cyclic core of a run of statement patterns using a {@link
+   * LeapfrogTriejoinOp}. The cyclic core is identified by the GYO reduction of the join hypergraph
+   * of the run, ignoring the variables which are definitely bound on entry to the run. The
+   * statement patterns in the cyclic core are evaluated by a single multiway join. The remaining
+   * statement patterns of the run are then joined in their original order. Each join filter
+   * attached to a statement pattern of the run is attached to the first join after which all of
+   * the variables of that filter which are bound by the run are bound.
+   *
+   * @param left
+   * @param joinGroup The join group.
+   * @param start The index of the first statement pattern of the run.
+   * @param end The exclusive index of the last statement pattern of the run.
+   * @param doneSet The set of variables which are already known to be materialized.
+   * @param ctx The evaluation context.
+   * @return The new plan -or- <code>null</code> if the run does not have a cyclic core.
+   * @see QueryHints#LEAPFROG_TRIEJOIN
+   */
+  private static PipelineOp addLeapfrogTriejoin(
+      PipelineOp left,
+      final JoinGroupNode joinGroup,
+      final int start,
+      final int end,
+      final Set<IVariable<?>> doneSet,
+      final AST2BOpContext ctx) {
+
+    final List<StatementPatternNode> run = new ArrayList<>(end - start);
+
+    for (int i = start; i < end; i++) run.add((StatementPatternNode) joinGroup.get(i));
+
+    // The variables which are definitely bound on entry to the run.
+    final Set<IVariable<?>> knownBound =
+        ctx.sa.getDefinitelyIncomingBindings(run.get(0), new LinkedHashSet<>());
+
+    // The join hypergraph and the variables bound by the run.
+    final List<Set<IVariable<?>>> edges = new ArrayList<>(run.size());
+
+    final Set<IVariable<?>> runVars = new LinkedHashSet<>();
+
+    for (StatementPatternNode sp : run) {
+
+      final Set<IVariable<?>> vars = sp.getProducedBindings();
+
+      vars.removeAll(knownBound);
+
+      edges.add(vars);
+
+      runVars.addAll(vars);
+    }
+
+    final int[] core = LeapfrogTriejoinOp.getCyclicCore(edges);
+
+    if (core.length == 0) {
+      // The run is acyclic.
+      return null;
+    }
+
+    final boolean[] inCore = new boolean[run.size()];
+
+    for (int i : core) inCore[i] = true;
+
+    final List<StatementPatternNode> coreSPs = new ArrayList<>(core.length);
+
+    final List<StatementPatternNode> rest = new ArrayList<>(run.size() - core.length);
+
+    final Set<IVariable<?>> coreVars = new LinkedHashSet<>();
+
+    for (int i = 0; i < run.size(); i++) {
+
+      if (inCore[i]) {
+
+        coreSPs.add(run.get(i));
+
+        coreVars.addAll(edges.get(i));
+
+      } else {
+
+        rest.add(run.get(i));
+      }
+    }
+
+    /*
+     * Assign the join filters. Index 0 is the multiway join and index j+1
+     * is the join for rest[j].
+     */
+    final List<List<IConstraint>> constraints = new ArrayList<>(rest.size() + 1);
+
+    for (int j = 0; j <= rest.size(); j++) constraints.add(new LinkedList<>());
+
+    for (StatementPatternNode sp : run) {
+
+      final List<IConstraint> tmp = getJoinConstraints(sp);
+
+      if (tmp == null) continue;
+
+      for (IConstraint c : tmp) {
+
+        // The variables of the filter which are bound by the run.
+        final Set<IVariable<?>> vars = new LinkedHashSet<>();
+
+        final Iterator<IVariable<?>> itr = BOpUtility.getSpannedVariables(c);
+
+        while (itr.hasNext()) vars.add(itr.next());
+
+        vars.retainAll(runVars);
+
+        final Set<IVariable<?>> bound = new LinkedHashSet<>(coreVars);
+
+        int j = 0;
+
+        while (!bound.containsAll(vars) && j < rest.size()) {
+
+          bound.addAll(rest.get(j++).getProducedBindings());
+        }
+
+        constraints.get(j).add(c);
+      }
+    }
+
+    final Predicate<?>[] preds = new Predicate[coreSPs.size()];
+
+    for (int i = 0; i < preds.length; i++) {
+
+      preds[i] = toPredicate(coreSPs.get(i), ctx);
+
+      if (!LeapfrogTriejoinOp.isSupported(preds[i])) {
+        // Access path filters and expanders require the normal access path.
+        return null;
+      }
+    }
+
+    /*
+     * The variable order for the multiway join. Each statement pattern must
+     * be readable from a statement index in that order.
+     */
+    @SuppressWarnings("unchecked")
+    final IVariable<?>[] variableOrder =
+        LeapfrogTriejoinOp.getVariableOrder(
+            ctx.getAbstractTripleStore().getSPORelation(), (IPredicate<ISPO>[]) preds, knownBound);
+
+    if (variableOrder == null) {
+      // Some statement pattern would have to be materialized in memory.
+      return null;
+    }
+
+    left =
+        leapfrogJoin(
+            left,
+            preds,
+            doneSet,
+            constraints.get(0),
+            joinGroup.getQueryHints(),
+            variableOrder,
+            ctx);
+
+    final INamedSolutionSetRef[] sipFilters = getSIPFilters(joinGroup, end - 1, ctx);
+
+    for (int j = 0; j < rest.size(); j++) {
+
+      final StatementPatternNode sp = rest.get(j);
+
+      Predicate<?> pred = toPredicate(sp, ctx);
+
+      if (sipFilters != null) {
+        // filter the access path against the named solution sets.
+        pred = (Predicate<?>) pred.setProperty(IPredicate.Annotations.SIP_FILTERS, sipFilters);
+      }
+
+      left =
+          join(
+              left,
+              pred,
+              doneSet,
+              constraints.get(j + 1),
+              null, // cutoffLimit
+              sp.getQueryHints(),
+              ctx);
+    }
+
+    return left;
+  }
+
+  /*
+   * Attempt to evaluate a prefix of a run of statement patterns as a sort-merge join. The prefix
+   * consists of two or more statement patterns which share a variable, each of which can be read
+   * from a statement index in the order of that variable (the variable follows the constants in the
+   * key order of the index, or is the first component of the key). The join is evaluated by a
+   * {@link LeapfrogTriejoinOp} which binds the shared variable first, so the statement indices are
+   * scanned in key order and each cursor seeks forward to the key of the other cursors. The
+   * variable is chosen to maximize the length of the prefix.
+   *
+   * <p>The merge join is evaluated for each source solution, so it is only used when no variables
+   * can be bound on entry and there is at most one exogenous solution. It is also only used when
+   * the estimated cardinality of each statement pattern is at least {@link
+   * AST2BOpContext#sortMergeJoinThreshold}, since a nested index join is cheaper otherwise.
+   *
+   * @param left
+   * @param joinGroup The join group.
+   * @param index The index of the first statement pattern of the run. On return, this is the index
+   *     of the first statement pattern which was not consumed.
+   * @param end The exclusive index of the last statement pattern of the run.
+   * @param doneSet The set of variables which are already known to be materialized.
+   * @param ctx The evaluation context.
+   * @return The new plan -or- <code>null</code> if a sort-merge join does not apply.
+   * @see QueryHints#SORT_MERGE_JOIN
+   */
+  private static PipelineOp addSortMergeJoin(
+      PipelineOp left,
+      final JoinGroupNode joinGroup,
+      final AtomicInteger index,
+      final int end,
+      final Set<IVariable<?>> doneSet,
+      final AST2BOpContext ctx) {
+
+    final int start = index.get();
+
+    final StatementPatternNode first = (StatementPatternNode) joinGroup.get(start);
+
+    if (!ctx.sa.getMaybeIncomingBindings(first, new LinkedHashSet<>()).isEmpty()
+        || ctx.getSolutionSetStats().getSolutionSetSize() > 1) {
+      return null;
+    }
+
+    final SPORelation relation = ctx.getAbstractTripleStore().getSPORelation();
+
+    // The join variable and the scan order of each statement pattern for that variable.
+    IVariable<?> joinVar = null;
+
+    List<List<IVariable<?>>> scanOrders = null;
+
+    for (IVariable<?> var : first.getProducedBindings()) {
+
+      final List<List<IVariable<?>>> tmp = new ArrayList<>();
+
+      for (int i = start; i < end; i++) {
+
+        final StatementPatternNode sp = (StatementPatternNode) joinGroup.get(i);
+
+        final Long estimatedCardinality =
+            (Long) sp.getProperty(Annotations.ESTIMATED_CARDINALITY);
+
+        if (estimatedCardinality == null || estimatedCardinality < ctx.sortMergeJoinThreshold) {
+          break;
+        }
+
+        final IVariableOrConstant<?>[] terms =
+            new IVariableOrConstant[] {
+              sp.s().getValueExpression(), sp.p().getValueExpression(), sp.o().getValueExpression()
+            };
+
+        final List<IVariable<?>> scanOrder =
+            LeapfrogTriejoinOp.getScanOrder(
+                relation, terms, Collections.emptySet() /* bound */, var);
+
+        if (scanOrder == null) break;
+
+        tmp.add(scanOrder);
+      }
+
+      if (tmp.size() >= 2 && (scanOrders == null || tmp.size() > scanOrders.size())) {
+
+        joinVar = var;
+
+        scanOrders = tmp;
+      }
+    }
+
+    if (joinVar == null) return null;
+
+    final int n = scanOrders.size();
+
+    // The join variable, followed by the other variables in the scan order.
+    final Set<IVariable<?>> variableOrder = new LinkedHashSet<>();
+
+    for (List<IVariable<?>> scanOrder : scanOrders) variableOrder.addAll(scanOrder);
+
+    final Predicate<?>[] preds = new Predicate[n];
+
+    final List<IConstraint> constraints = new LinkedList<>();
+
+    for (int i = 0; i < n; i++) {
+
+      final StatementPatternNode sp = (StatementPatternNode) joinGroup.get(start + i);
+
+      preds[i] = toPredicate(sp, ctx);
+
+      if (!LeapfrogTriejoinOp.isSupported(preds[i])) {
+        // Access path filters and expanders require the normal access path.
+        return null;
+      }
+
+      final List<IConstraint> tmp = getJoinConstraints(sp);
+
+      if (tmp != null) constraints.addAll(tmp);
+    }
+
+    // Each statement pattern must be readable from a statement index in the variable order.
+    @SuppressWarnings("unchecked")
+    final boolean readable =
+        LeapfrogTriejoinOp.isReadable(
+            relation,
+            (IPredicate<ISPO>[]) preds,
+            Collections.emptySet() /* bound */,
+            new ArrayList<>(variableOrder));
+
+    if (!readable) return null;
+
+    left =
+        leapfrogJoin(
+            left,
+            preds,
+            doneSet,
+            constraints,
+            joinGroup.getQueryHints(),
+            variableOrder.toArray(new IVariable<?>[0]),
+            ctx);
+
+    index.set(start + n);
+
+    return left;
+  }
+
   /*
    * Join group consists of: statement patterns, constraints, and sub-groups
    *
@@ -3106,14 +3547,16 @@ public class AST2BOpUtility extends AST2BOpRTO {
       left = doMergeJoin(left, joinGroup, doneSet, start, ctx);
     }
 
-    if (QueryOptimizerEnum.Runtime.equals(joinGroup.getQueryOptimizer())) {
+    if (QueryOptimizerEnum.Runtime.equals(joinGroup.getQueryOptimizer())
+        || QueryOptimizerEnum.Adaptive.equals(joinGroup.getQueryOptimizer())) {
 
       /*
        * Inspect the remainder of the join group. If we can isolate a join
        * graph and filters, then we will push them down into an RTO
        * JoinGroup. Since the joins have already been ordered by the
        * static optimizer, we can accept them in sequence along with any
-       * attachable filters.
+       * attachable filters. For the adaptive optimizer, that order is
+       * evaluated as given unless it is contradicted at runtime.
        */
 
       left = convertRTOJoinGraph(left, joinGroup, doneSet, ctx, start);
@@ -3125,6 +3568,29 @@ public class AST2BOpUtility extends AST2BOpRTO {
 
     }
 
+    /*
+     * The cyclic core of a run of statement patterns is evaluated using a
+     * worst-case optimal multiway join (triples mode on a single machine).
+     */
+    final boolean leapfrogTriejoin =
+        joinGroup.getQueryHintAsBoolean(QueryHints.LEAPFROG_TRIEJOIN, ctx.leapfrogTriejoin)
+            && ctx.isTriples()
+            && !ctx.isCluster()
+            && ctx.astContainer.getOptimizedAST().getIncludeInferred();
+
+    // The index of the first statement pattern not yet considered for the multiway join.
+    int leapfrogTriejoinEnd = 0;
+
+    /*
+     * Adjacent statement patterns sharing a variable may be evaluated as a
+     * sort-merge join over the statement indices (same restrictions).
+     */
+    final boolean sortMergeJoin =
+        joinGroup.getQueryHintAsBoolean(QueryHints.SORT_MERGE_JOIN, ctx.sortMergeJoin)
+            && ctx.isTriples()
+            && !ctx.isCluster()
+            && ctx.astContainer.getOptimizedAST().getIncludeInferred();
+
     /*
      * Translate the remainder of the group.
      */
@@ -3135,6 +3601,31 @@ public class AST2BOpUtility extends AST2BOpRTO {
 
       if (child instanceof StatementPatternNode) {
         final StatementPatternNode sp = (StatementPatternNode) child;
+        if (leapfrogTriejoin && i >= leapfrogTriejoinEnd) {
+          leapfrogTriejoinEnd = getLeapfrogTriejoinRun(joinGroup, i);
+          if (leapfrogTriejoinEnd - i >= 3) {
+            // Note: a cyclic core has at least three statement patterns.
+            final PipelineOp tmp =
+                addLeapfrogTriejoin(left, joinGroup, i, leapfrogTriejoinEnd, doneSet, ctx);
+            if (tmp != null) {
+              left = tmp;
+              i = leapfrogTriejoinEnd - 1;
+              continue;
+            }
+          }
+        }
+        if (sortMergeJoin) {
+          final int runEnd = getLeapfrogTriejoinRun(joinGroup, i);
+          if (runEnd - i >= 2) {
+            final AtomicInteger next = new AtomicInteger(i);
+            final PipelineOp tmp = addSortMergeJoin(left, joinGroup, next, runEnd, doneSet, ctx);
+            if (tmp != null) {
+              left = tmp;
+              i = next.get() - 1;
+              continue;
+            }
+          }
+        }
         /*
          * Add statement pattern joins and the filters on those joins.
          *
@@ -3144,8 +3635,15 @@ public class AST2BOpUtility extends AST2BOpRTO {
          * Note: This winds up handling materialization steps as well
          * (it calls through to Rule2BOpUtility).
          */
-        final Predicate<?> pred = toPredicate(sp, ctx);
         final boolean optional = sp.isOptional();
+        Predicate<?> pred = toPredicate(sp, ctx);
+        if (!optional) {
+          final INamedSolutionSetRef[] sipFilters = getSIPFilters(joinGroup, i, ctx);
+          if (sipFilters != null) {
+            // filter the access path against the named solution sets.
+            pred = (Predicate<?>) pred.setProperty(IPredicate.Annotations.SIP_FILTERS, sipFilters);
+          }
+        }
         left =
             join(
                 left,
@@ -3552,6 +4050,7 @@ public class AST2BOpUtility extends AST2BOpRTO {
                   new NV(HashIndexOp.Annotations.JOIN_VARS, joinvars2),
                   //                new NV(HashIndexOp.Annotations.SELECT, selectVars),
                   new NV(HashIndexOp.Annotations.HASH_JOIN_UTILITY_FACTORY, joinUtilFactory),
+                  new NV(HashIndexOp.Annotations.PARTITION_COUNT, ctx.hashJoinPartitionCount),
                   new NV(HashIndexOp.Annotations.NAMED_SET_REF, firstNamedSolutionSetRef),
                   new NV(
                       IPredicate.Annotations.RELATION_NAME,
@@ -4513,9 +5012,36 @@ public class AST2BOpUtility extends AST2BOpRTO {
 
     left = addMaterializationSteps2(left, bopId, vars, queryHints, ctx);
 
-    if (!groupByState.isAnyDistinct()
-        && !groupByState.isSelectDependency()
-        && !groupByState.isNestedAggregates()) {
+    final boolean pipelinedAggregation =
+        !groupByState.isAnyDistinct()
+            && !groupByState.isSelectDependency()
+            && !groupByState.isNestedAggregates();
+
+    if (ctx.nativeGroupBy && (groupByExprs != null || !pipelinedAggregation)) {
+
+      /*
+       * General aggregation operator on the native heap. The solutions are
+       * divided into hash partitions on the native heap and the groups are
+       * formed for one partition at a time.
+       *
+       * Note: The pipelined aggregation operator is still used for the
+       * implicit group since it only keeps a single group on the JVM heap.
+       */
+
+      op =
+          new ExternalGroupByOp(
+              leftOrEmpty(left),
+              NV.asMap(
+                  new NV(BOp.Annotations.BOP_ID, bopId),
+                  new NV(BOp.Annotations.EVALUATION_CONTEXT, BOpEvaluationContext.CONTROLLER),
+                  new NV(PipelineOp.Annotations.PIPELINED, true),
+                  new NV(PipelineOp.Annotations.MAX_PARALLEL, 1),
+                  new NV(PipelineOp.Annotations.SHARED_STATE, true),
+                  new NV(GroupByOp.Annotations.GROUP_BY_STATE, groupByState),
+                  new NV(GroupByOp.Annotations.GROUP_BY_REWRITE, groupByRewrite),
+                  new NV(PipelineOp.Annotations.LAST_PASS, true)));
+
+    } else if (pipelinedAggregation) {
 
       /*
        * Extremely efficient pipelined aggregation operator.
@@ -4644,30 +5170,92 @@ public class AST2BOpUtility extends AST2BOpRTO {
 
     left = addMaterializationSteps2(left, sortId, vars, queryHints, ctx);
 
-    left =
-        applyQueryHints(
-            new MemorySortOp(
-                leftOrEmpty(left),
-                NV.asMap(
-                    new NV(MemorySortOp.Annotations.BOP_ID, sortId),
-                    new NV(MemorySortOp.Annotations.SORT_ORDER, sortOrders),
-                    new NV(MemorySortOp.Annotations.VALUE_COMPARATOR, new IVComparator()),
-                    new NV(
-                        MemorySortOp.Annotations.EVALUATION_CONTEXT,
-                        BOpEvaluationContext.CONTROLLER),
-                    new NV(MemorySortOp.Annotations.PIPELINED, true),
-                    new NV(MemorySortOp.Annotations.MAX_PARALLEL, 1),
-                    new NV(MemorySortOp.Annotations.REORDER_SOLUTIONS, false),
-                    //                                new
-                    // NV(MemorySortOp.Annotations.SHARED_STATE,
-                    //                                        true),
-                    new NV(MemorySortOp.Annotations.LAST_PASS, true))),
-            queryHints,
-            ctx);
+    final Map<String, Object> anns =
+        NV.asMap(
+            new NV(SortOp.Annotations.BOP_ID, sortId),
+            new NV(SortOp.Annotations.SORT_ORDER, sortOrders),
+            new NV(SortOp.Annotations.VALUE_COMPARATOR, new IVComparator()),
+            new NV(SortOp.Annotations.EVALUATION_CONTEXT, BOpEvaluationContext.CONTROLLER),
+            new NV(SortOp.Annotations.PIPELINED, true),
+            new NV(SortOp.Annotations.MAX_PARALLEL, 1),
+            new NV(SortOp.Annotations.REORDER_SOLUTIONS, false),
+            new NV(SortOp.Annotations.LAST_PASS, true));
+
+    final long topK = getTopKSortLimit(queryBase, ctx);
+
+    final SortOp op;
+    if (topK > 0) {
+      /*
+       * ORDER BY + LIMIT using a bounded heap. The SLICE is still applied
+       * downstream to impose the OFFSET and LIMIT.
+       */
+      anns.put(TopKSortOp.Annotations.LIMIT, topK);
+      op = new TopKSortOp(leftOrEmpty(left), anns);
+    } else if (ctx.nativeOrderBy || isLargeOrderBy(queryBase, ctx)) {
+      /*
+       * ORDER BY using sorted runs on the native heap.
+       */
+      op = new ExternalSortOp(leftOrEmpty(left), anns);
+    } else {
+      /*
+       * ORDER BY on the JVM heap.
+       */
+      op = new MemorySortOp(leftOrEmpty(left), anns);
+    }
+
+    left = applyQueryHints(op, queryHints, ctx);
 
     return left;
   }
 
+  /*
+   * Return the #of solutions which must be retained by a {@link TopKSortOp} for the ORDER BY of the
+   * query (<code>offset + limit</code>) -or- ZERO (0) if the ORDER BY must sort all solutions. A
+   * top-K sort is only possible when the query has a LIMIT and there is no DISTINCT or REDUCED
+   * (which would be applied after the ORDER BY and could drop solutions from the top-K).
+   */
+  private static long getTopKSortLimit(final QueryBase queryBase, final AST2BOpContext ctx) {
+
+    if (ctx.topKSortMaxLimit <= 0) return 0L;
+
+    final SliceNode slice = queryBase.getSlice();
+
+    if (slice == null) return 0L;
+
+    final ProjectionNode projection = queryBase.getProjection();
+
+    if (projection != null && (projection.isDistinct() || projection.isReduced())) return 0L;
+
+    final long offset = slice.getOffset();
+
+    final long limit = slice.getLimit();
+
+    if (limit == Long.MAX_VALUE || limit > ctx.topKSortMaxLimit - offset) {
+
+      // No LIMIT, or offset + limit is too large (this also handles overflow).
+      return 0L;
+    }
+
+    return offset + limit;
+  }
+
+  /*
+   * Return <code>true</code> iff the estimated cardinality of the WHERE clause of the query is
+   * known and is at least {@link AST2BOpContext#nativeOrderByThreshold}. The estimate is only
+   * available when the {@link ASTCardinalityOptimizer} was able to attach one to the WHERE clause.
+   */
+  private static boolean isLargeOrderBy(final QueryBase queryBase, final AST2BOpContext ctx) {
+
+    final GraphPatternGroup<?> whereClause = queryBase.getWhereClause();
+
+    if (whereClause == null) return false;
+
+    final Long estimatedCardinality =
+        (Long) whereClause.getProperty(Annotations.ESTIMATED_CARDINALITY);
+
+    return estimatedCardinality != null && estimatedCardinality >= ctx.nativeOrderByThreshold;
+  }
+
   /** Impose an OFFSET and/or LIMIT on a query. */
   private static PipelineOp addSlice(
       PipelineOp left, final QueryBase queryBase, final SliceNode slice, final AST2BOpContext ctx) {
@@ -5521,6 +6109,7 @@ public class AST2BOpUtility extends AST2BOpRTO {
                   new NV(HashIndexOp.Annotations.CONSTRAINTS, joinConstraints),
                   new NV(HashIndexOp.Annotations.ASK_VAR, askVar),
                   new NV(HashIndexOp.Annotations.HASH_JOIN_UTILITY_FACTORY, joinUtilFactory),
+                  new NV(HashIndexOp.Annotations.PARTITION_COUNT, ctx.hashJoinPartitionCount),
                   new NV(HashIndexOp.Annotations.NAMED_SET_REF, namedSolutionSet),
                   // the pipelined hash index may also contain a subquery for inner evaluation
                   new NV(PipelinedHashIndexAndSolutionSetJoinOp.Annotations.SUBQUERY, subqueryPlan),
@@ -5548,6 +6137,7 @@ public class AST2BOpUtility extends AST2BOpRTO {
                   new NV(HashIndexOp.Annotations.CONSTRAINTS, joinConstraints),
                   new NV(HashIndexOp.Annotations.ASK_VAR, askVar),
                   new NV(HashIndexOp.Annotations.HASH_JOIN_UTILITY_FACTORY, joinUtilFactory),
+                  new NV(HashIndexOp.Annotations.PARTITION_COUNT, ctx.hashJoinPartitionCount),
                   new NV(HashIndexOp.Annotations.NAMED_SET_REF, namedSolutionSet),
                   new NV(
                       IPredicate.Annotations.RELATION_NAME,
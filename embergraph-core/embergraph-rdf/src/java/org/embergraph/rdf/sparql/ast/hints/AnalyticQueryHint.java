@@ -57,6 +57,8 @@ final class AnalyticQueryHint extends AbstractBooleanQueryHint {
         context.nativeHashJoins = value;
         context.nativeDistinctSolutions = value;
         context.nativeDistinctSPO = value;
+        context.nativeOrderBy = value;
+        context.nativeGroupBy = value;
         context.queryEngineChunkHandler = NativeHeapStandloneChunkHandler.NATIVE_HEAP_INSTANCE;
         return;
     }
@@ -0,0 +1,76 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.rdf.sparql.ast.hints;
+
+import org.embergraph.bop.join.JVMHashJoinAnnotations;
+import org.embergraph.rdf.sparql.ast.ASTBase;
+import org.embergraph.rdf.sparql.ast.IQueryNode;
+import org.embergraph.rdf.sparql.ast.QueryHints;
+import org.embergraph.rdf.sparql.ast.QueryRoot;
+import org.embergraph.rdf.sparql.ast.eval.AST2BOpContext;
+
+/*
+ * Query hint for the #of partitions of the JVM hash joins. At the query scope, this sets the
+ * default for all hash joins in the query. Otherwise the hint is transferred as an annotation onto
+ * the hash join operators generated from the annotated scope.
+ *
+ * @see QueryHints#HASH_JOIN_PARTITION_COUNT
+ * @see JVMHashJoinAnnotations#PARTITION_COUNT
+ */
+final class HashJoinPartitionCountHint extends AbstractIntQueryHint {
+
+  protected HashJoinPartitionCountHint() {
+    super(QueryHints.HASH_JOIN_PARTITION_COUNT, QueryHints.DEFAULT_HASH_JOIN_PARTITION_COUNT);
+  }
+
+  @Override
+  public void handle(
+      final AST2BOpContext context,
+      final QueryRoot queryRoot,
+      final QueryHintScope scope,
+      final ASTBase op,
+      final Integer value) {
+
+    if (scope == QueryHintScope.Query) {
+
+      context.hashJoinPartitionCount = value;
+
+      return;
+    }
+
+    if (op instanceof IQueryNode) {
+
+      /*
+       * Note: This is set on the queryHint Properties object and then
+       * transferred to the pipeline operator when it is generated.
+       */
+
+      _setQueryHint(context, scope, op, JVMHashJoinAnnotations.PARTITION_COUNT, value);
+    }
+  }
+
+  @Override
+  public Integer validate(final String value) {
+
+    final Integer partitionCount = super.validate(value);
+
+    if (partitionCount <= 0) throw new IllegalArgumentException(getName() + "=" + value);
+
+    return partitionCount;
+  }
+}
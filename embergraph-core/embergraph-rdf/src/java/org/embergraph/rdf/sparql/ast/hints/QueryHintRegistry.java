@@ -83,6 +83,7 @@ public class QueryHintRegistry {
     add(new RTOSampleTypeQueryHint());
     add(new RTOLimitQueryHint());
     add(new RTONEdgesQueryHint());
+    add(new AdaptiveErrorFactorQueryHint());
     add(new OptimisticQueryHint());
     add(new NormalizeFilterExpressionHint());
 
@@ -93,6 +94,11 @@ public class QueryHintRegistry {
     add(new NativeDistinctSPOHint());
     add(new NativeDistinctSPOThresholdHint());
     add(new NativeHashJoinsHint());
+    add(new NativeOrderByQueryHint());
+    add(new NativeOrderByThresholdHint());
+    add(new NativeGroupByQueryHint());
+    add(new TopKSortMaxLimitHint());
+    add(new QueryPriorityHint());
 
     // JOIN hints.
     add(new MergeJoinHint());
@@ -165,6 +171,15 @@ public class QueryHintRegistry {
      */
     add(new PipelinedHashJoinHint());
 
+    /*
+     * The #of partitions for the JVM hash joins.
+     */
+    add(new HashJoinPartitionCountHint());
+    add(new SIPFiltersHint());
+    add(new LeapfrogTriejoinHint());
+    add(new SortMergeJoinHint());
+    add(new SortMergeJoinThresholdHint());
+
     /*
      * Disable default graph distinct filter
      */
@@ -0,0 +1,63 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.rdf.sparql.ast.hints;
+
+import org.embergraph.rdf.sparql.ast.ASTBase;
+import org.embergraph.rdf.sparql.ast.QueryHints;
+import org.embergraph.rdf.sparql.ast.QueryRoot;
+import org.embergraph.rdf.sparql.ast.eval.AST2BOpContext;
+
+/*
+ * Query hint for the priority of the query.
+ *
+ * @see QueryHints#QUERY_PRIORITY
+ */
+final class QueryPriorityHint extends AbstractIntQueryHint {
+
+  protected QueryPriorityHint() {
+    super(QueryHints.QUERY_PRIORITY, QueryHints.DEFAULT_QUERY_PRIORITY);
+  }
+
+  @Override
+  public void handle(
+      final AST2BOpContext context,
+      final QueryRoot queryRoot,
+      final QueryHintScope scope,
+      final ASTBase op,
+      final Integer value) {
+
+    if (scope == QueryHintScope.Query) {
+
+      context.queryPriority = value;
+
+      return;
+    }
+
+    throw new QueryHintException(scope, op, getName(), value);
+  }
+
+  @Override
+  public Integer validate(final String value) {
+
+    final Integer priority = super.validate(value);
+
+    if (priority <= 0) throw new IllegalArgumentException(getName() + "=" + value);
+
+    return priority;
+  }
+}
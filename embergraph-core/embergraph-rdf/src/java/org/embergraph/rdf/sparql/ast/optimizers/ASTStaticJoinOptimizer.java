@@ -195,11 +195,17 @@ public class ASTStaticJoinOptimizer implements IASTOptimizer {
     return new QueryNodeWithBindingSet(queryNode, bindingSets);
   }
 
-  /** Return <code>true</code> if the static join optimizer is enabled for the given join group. */
+  /*
+   * Return <code>true</code> if the static join optimizer is enabled for the given join group. The
+   * {@link QueryOptimizerEnum#Adaptive} optimizer starts from the static join order.
+   */
   static boolean isStaticOptimizer(
       final IEvaluationContext context, final JoinGroupNode joinGroup) {
 
-    return QueryOptimizerEnum.Static.equals(joinGroup.getQueryOptimizer());
+    final QueryOptimizerEnum optimizer = joinGroup.getQueryOptimizer();
+
+    return QueryOptimizerEnum.Static.equals(optimizer)
+        || QueryOptimizerEnum.Adaptive.equals(optimizer);
 
     //        QueryOptimizerEnum optimizer = null;
     //
@@ -24,6 +24,7 @@ Copyright (C) Embergraph contributors 2019. All rights reserved.
 package org.embergraph.rdf.store;
 
 import cutthecrap.utils.striterators.ICloseableIterator;
+import java.io.File;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
@@ -58,6 +59,7 @@ import org.embergraph.btree.ITupleIterator;
 import org.embergraph.btree.keys.KeyBuilder;
 import org.embergraph.btree.keys.SuccessorUtil;
 import org.embergraph.journal.IIndexManager;
+import org.embergraph.journal.IJournal;
 import org.embergraph.journal.IResourceLock;
 import org.embergraph.journal.ITx;
 import org.embergraph.journal.TimestampUtility;
@@ -79,6 +81,7 @@ import org.embergraph.rdf.internal.constraints.RangeBOp;
 import org.embergraph.rdf.internal.impl.BlobIV;
 import org.embergraph.rdf.lexicon.EmbergraphSubjectCentricFullTextIndex;
 import org.embergraph.rdf.lexicon.EmbergraphValueCentricFullTextIndex;
+import org.embergraph.rdf.lexicon.GlobalTermCache;
 import org.embergraph.rdf.lexicon.ITermIndexCodes;
 import org.embergraph.rdf.lexicon.LexiconRelation;
 import org.embergraph.rdf.model.EmbergraphResource;
@@ -108,6 +111,7 @@ import org.embergraph.rdf.spo.SPORelation;
 import org.embergraph.rdf.spo.SPOTupleSerializer;
 import org.embergraph.rdf.spo.StatementWriter;
 import org.embergraph.rdf.vocab.BaseVocabulary;
+import org.embergraph.rdf.vocab.DictionaryVocabulary;
 import org.embergraph.rdf.vocab.NoVocabulary;
 import org.embergraph.rdf.vocab.Vocabulary;
 import org.embergraph.rdf.vocab.core.EmbergraphCoreVocabulary_v20160317;
@@ -549,6 +553,46 @@ public abstract class AbstractTripleStore extends AbstractResource<IDatabase<Abs
 
     String DEFAULT_TERM_CACHE_CAPACITY = "10000"; // "50000";
 
+    /*
+     * Long option whose value is the budget (in bytes) of a term cache shared by the read-only
+     * views of all namespaces on the same journal (default {@value #DEFAULT_TERM_CACHE_MAX_BYTES}).
+     * When positive, read-only views of the lexicon on a {@link IJournal} use a {@link
+     * GlobalTermCache} rather than the {@link #TERM_CACHE_CAPACITY} entry cache. The cache is
+     * bounded by the estimated size of the cached values and only admits a term when it has been
+     * requested more often than the term it would displace. When <code>0</code> the term cache is
+     * sized by {@link #TERM_CACHE_CAPACITY}.
+     *
+     * <p>Note: The cache is created by the first read-only view of a lexicon on the journal. The
+     * values of {@link #TERM_CACHE_MAX_BYTES} and {@link #TERM_CACHE_OFF_HEAP} for that view
+     * determine the configuration of the cache.
+     */
+    String TERM_CACHE_MAX_BYTES = AbstractTripleStore.class.getName() + ".termCache.maxBytes";
+
+    String DEFAULT_TERM_CACHE_MAX_BYTES = "0";
+
+    /*
+     * Boolean option which determines whether the {@link GlobalTermCache} stores the serialized
+     * values in native memory rather than on the Java heap (default {@value
+     * #DEFAULT_TERM_CACHE_OFF_HEAP}). This option only applies when {@link #TERM_CACHE_MAX_BYTES}
+     * is positive.
+     */
+    String TERM_CACHE_OFF_HEAP = AbstractTripleStore.class.getName() + ".termCache.offHeap";
+
+    String DEFAULT_TERM_CACHE_OFF_HEAP = "false";
+
+    /*
+     * Boolean option which determines whether concurrent requests by read-only views of the lexicon
+     * for the same commit point to resolve the same {@link IV}s against the ID2TERM and BLOBS
+     * indices are coalesced (default {@value #DEFAULT_COALESCE_TERM_RESOLUTION}). When enabled, an
+     * {@link IV} which is already being read on the index by one query is not read again by another
+     * query. Instead, the second query waits for the value resolved by the first. This reduces the
+     * index reads when concurrent queries materialize the same popular terms.
+     */
+    String COALESCE_TERM_RESOLUTION =
+        AbstractTripleStore.class.getName() + ".coalesceTermResolution";
+
+    String DEFAULT_COALESCE_TERM_RESOLUTION = "true";
+
     /*
      * The name of the class that will establish the pre-defined {@link Vocabulary} for the database
      * (default {@value #DEFAULT_VOCABULARY_CLASS}). The class MUST extend {@link BaseVocabulary}.
@@ -585,6 +629,20 @@ public abstract class AbstractTripleStore extends AbstractResource<IDatabase<Abs
      */
     String DEFAULT_VOCABULARY_CLASS = EmbergraphCoreVocabulary_v20160317.class.getName();
 
+    /*
+     * The name of a file containing a dictionary of frequently used URIs which will be inlined in
+     * addition to the {@link #VOCABULARY_CLASS} (optional). The file contains one URI per line in
+     * order of decreasing frequency and is typically written by a {@link VocabularySampler}
+     * from a sample of the data to be loaded. When specified, {@link
+     * AbstractTripleStore#create()} builds a {@link DictionaryVocabulary} which declares the items
+     * of the {@link #VOCABULARY_CLASS} followed by the URIs in the dictionary. The dictionary is
+     * stored with the serialized {@link Vocabulary} in the global row store, so the file is only
+     * read when the KB instance is created.
+     *
+     * <p>Note: This option is ignored if the lexicon is disabled.
+     */
+    String VOCABULARY_DICTIONARY = AbstractTripleStore.class.getName() + ".vocabularyDictionary";
+
     /*
      * The {@link Axioms} model that will be used (default {@value Options#DEFAULT_AXIOMS_CLASS}).
      * The value is the name of the class that will be instantiated by {@link
@@ -1525,8 +1583,22 @@ public abstract class AbstractTripleStore extends AbstractResource<IDatabase<Abs
             final Constructor<? extends BaseVocabulary> ctor =
                 vocabularyClass.getConstructor(String.class);
 
-            // save reference.
-            vocabRef.set(ctor.newInstance(LEXICON_NAMESPACE));
+            final String dictionaryFile = getProperty(Options.VOCABULARY_DICTIONARY, null);
+
+            if (dictionaryFile != null && dictionaryFile.trim().length() > 0) {
+
+              // save reference.
+              vocabRef.set(
+                  new DictionaryVocabulary(
+                      LEXICON_NAMESPACE,
+                      vocabularyClass,
+                      DictionaryVocabulary.readDictionary(new File(dictionaryFile.trim()))));
+
+            } else {
+
+              // save reference.
+              vocabRef.set(ctor.newInstance(LEXICON_NAMESPACE));
+            }
 
           } catch (Exception ex) {
 
@@ -53,6 +53,7 @@ import org.embergraph.journal.RWStrategy;
 import org.embergraph.rdf.ServiceProviderHook;
 import org.embergraph.rdf.inf.ClosureStats;
 import org.embergraph.rdf.inf.TruthMaintenance;
+import org.embergraph.rdf.model.EmbergraphURI;
 import org.embergraph.rdf.rio.LoadStats;
 import org.embergraph.rdf.rio.PresortRioLoader;
 import org.embergraph.rdf.rio.RDFParserOptions;
@@ -86,6 +87,14 @@ public class DataLoader {
   /** The capacity of the blocking queue for the backing {@link StatementBuffer}. */
   private final int queueCapacity;
 
+  /*
+   * The pipeline used to load files with several parser threads -or- <code>null</code> if the files
+   * are parsed one at a time.
+   *
+   * @see Options#PARSER_THREADS
+   */
+  private final DataLoaderPipeline pipeline;
+
   /** Utility to allow other {@link PrintStream} to be used for status. */
   private PrintStream output;
 
@@ -382,6 +391,38 @@ public class DataLoader {
     // BLZG-1813  Re-enabled based on fix for capacity issue.
     String DEFAULT_QUEUE_CAPACITY = "10";
 
+    /*
+     * Optional property specifying the #of threads used to parse the files when loading from a
+     * file or directory (default {@value #DEFAULT_PARSER_THREADS}). When greater than ONE (1), the
+     * files are parsed concurrently, each thread with its own parser, and the parsed statements are
+     * fed through a bounded queue into the {@link StatementBuffer}, which resolves the terms and
+     * writes the statement indices in batches. This is most useful when there are many files and
+     * the load is limited by the parser.
+     *
+     * <p>Note: The files are loaded as a single batch, so the buffer is flushed once all the files
+     * have been parsed rather than after each file. The pipeline is not used with {@link
+     * CommitEnum#Incremental} or {@link ClosureEnum#Incremental}, which require each file to be
+     * loaded (and committed or closed) in turn.
+     *
+     * @see #PARSER_QUEUE_CAPACITY
+     * @see DataLoader#getPipelineCounters()
+     */
+    String PARSER_THREADS = DataLoader.class.getName() + ".parserThreads";
+
+    String DEFAULT_PARSER_THREADS = "1";
+
+    /*
+     * Optional property specifying the capacity of the queue between the parser threads and the
+     * {@link StatementBuffer} in chunks of up to {@value DataLoaderPipeline#MAX_CHUNK_SIZE}
+     * statements (default {@value #DEFAULT_PARSER_QUEUE_CAPACITY}). The parser threads block when
+     * the queue is full, which bounds how far the parsers can run ahead of the index writes.
+     *
+     * @see #PARSER_THREADS
+     */
+    String PARSER_QUEUE_CAPACITY = DataLoader.class.getName() + ".parserQueueCapacity";
+
+    String DEFAULT_PARSER_QUEUE_CAPACITY = "20";
+
     /*
      * Optional property controls whether and when the RDFS(+) closure is maintained on the database
      * as documents are loaded (default {@value ClosureEnum#Batch}).
@@ -638,6 +679,46 @@ public class DataLoader {
 
       if (log.isInfoEnabled()) log.info(Options.DUMP_JOURNAL + "=" + dumpJournal);
     }
+
+    { // parserThreads.
+      final int parserThreads =
+          Integer.parseInt(
+              properties.getProperty(Options.PARSER_THREADS, Options.DEFAULT_PARSER_THREADS));
+
+      final int parserQueueCapacity =
+          Integer.parseInt(
+              properties.getProperty(
+                  Options.PARSER_QUEUE_CAPACITY, Options.DEFAULT_PARSER_QUEUE_CAPACITY));
+
+      if (parserThreads <= 0) throw new IllegalArgumentException(Options.PARSER_THREADS);
+
+      if (parserQueueCapacity <= 0)
+        throw new IllegalArgumentException(Options.PARSER_QUEUE_CAPACITY);
+
+      if (parserThreads > 1
+          && (commitEnum == CommitEnum.Incremental || closureEnum == ClosureEnum.Incremental)) {
+
+        log.warn(Options.PARSER_THREADS + " is ignored with incremental commit or closure.");
+      }
+
+      pipeline =
+          parserThreads > 1
+                  && commitEnum != CommitEnum.Incremental
+                  && closureEnum != ClosureEnum.Incremental
+              ? new DataLoaderPipeline(
+                  parserThreads,
+                  parserQueueCapacity,
+                  Math.max(1, Math.min(bufferCapacity, DataLoaderPipeline.MAX_CHUNK_SIZE)),
+                  parserOptions,
+                  database.getValueFactory(),
+                  ignoreInvalidFiles)
+              : null;
+
+      if (log.isInfoEnabled()) {
+        log.info(Options.PARSER_THREADS + "=" + parserThreads);
+        log.info(Options.PARSER_QUEUE_CAPACITY + "=" + parserQueueCapacity);
+      }
+    }
   }
 
   public class MyLoadStats extends LoadStats {
@@ -1095,6 +1176,13 @@ public class DataLoader {
       final boolean endOfBatch)
       throws IOException {
 
+    if (depth == 0 && pipeline != null) {
+
+      loadFilesPipelined(totals, file, baseURI, rdfFormat, defaultGraph, filter, endOfBatch);
+
+      return;
+    }
+
     if (file.isDirectory()) {
 
       if (log.isDebugEnabled()) log.debug("loading directory: " + file);
@@ -1125,20 +1213,7 @@ public class DataLoader {
       return;
     }
 
-    final String n = file.getName();
-
-    RDFFormat fmt = RDFFormat.forFileName(n);
-
-    if (fmt == null && n.endsWith(".zip")) {
-      fmt = RDFFormat.forFileName(n.substring(0, n.length() - 4));
-    }
-
-    if (fmt == null && n.endsWith(".gz")) {
-      fmt = RDFFormat.forFileName(n.substring(0, n.length() - 3));
-    }
-
-    if (fmt == null) // fallback
-    fmt = rdfFormat;
+    final RDFFormat fmt = getRDFFormat(file.getName(), rdfFormat);
 
     InputStream is = null;
 
@@ -1146,16 +1221,7 @@ public class DataLoader {
 
     try {
 
-      is = new FileInputStream(file);
-
-      if (n.endsWith(".gz")) {
-
-        is = new GZIPInputStream(is, getGzipBuffer());
-
-      } else if (n.endsWith(".zip")) {
-
-        is = new ZipInputStream(new BufferedInputStream(is, getGzipBuffer()));
-      }
+      is = newInputStream(file);
 
       /*
        * Obtain a buffered reader on the input stream.
@@ -1219,6 +1285,180 @@ public class DataLoader {
     }
   }
 
+  /*
+   * Load a file or directory using several parser threads.
+   *
+   * @see Options#PARSER_THREADS
+   */
+  private void loadFilesPipelined(
+      final MyLoadStats totals,
+      final File file,
+      final String baseURI,
+      final RDFFormat rdfFormat,
+      final String defaultGraph,
+      final FilenameFilter filter,
+      final boolean endOfBatch)
+      throws IOException {
+
+    final List<File> files = new LinkedList<>();
+
+    collectFiles(file, filter, files);
+
+    if (log.isInfoEnabled()) log.info("Loading " + files.size() + " files from " + file);
+
+    final long begin = System.currentTimeMillis();
+
+    final MyLoadStats stats = new MyLoadStats();
+
+    // Note: allocates a new buffer iff the [buffer] is null.
+    getAssertionBuffer();
+
+    try {
+
+      final EmbergraphURI defaultGraphURI =
+          defaultGraph != null && database.isQuads()
+              ? database.getValueFactory().createURI(defaultGraph)
+              : null;
+
+      pipeline.load(files, baseURI, rdfFormat, defaultGraphURI, buffer, stats);
+
+      // Flush buffer at end of the files iff flush:=true.
+      if (flush) buffer.flush();
+
+      stats.loadTime.set(System.currentTimeMillis() - begin);
+
+      if (endOfBatch && closureEnum == ClosureEnum.Batch) {
+
+        if (log.isInfoEnabled()) log.info("Computing closure.");
+
+        stats.closureStats.add(doClosure());
+      }
+
+      stats.totalTime.set(System.currentTimeMillis() - begin);
+
+      totals.add(stats);
+
+      if (log.isInfoEnabled()) log.info("files:: " + stats + "; totals:: " + totals);
+
+      if (verbose > 1) output.println(getPipelineCounters().toString());
+
+    } catch (Throwable t) {
+
+      // aggregate stats even for exceptions.
+      totals.add(stats);
+
+      // Note: As for a single file, discard anything in the buffer.
+      if (buffer != null) {
+
+        buffer.reset();
+
+        if (tm != null) {
+
+          buffer.getStatementStore().close();
+        }
+
+        buffer = null;
+      }
+
+      if (t instanceof RuntimeException) throw (RuntimeException) t;
+
+      if (t instanceof IOException) throw (IOException) t;
+
+      throw new IOException("Problem loading data?", t);
+    }
+  }
+
+  /** Collect the files to be loaded in the same order in which they would be loaded in turn. */
+  static void collectFiles(
+      final File file, final FilenameFilter filter, final List<File> files) {
+
+    if (!file.isDirectory()) {
+
+      files.add(file);
+
+      return;
+    }
+
+    final File[] a = (filter != null ? file.listFiles(filter) : file.listFiles());
+
+    Arrays.sort(a);
+
+    for (File f : a) {
+
+      collectFiles(f, filter, files);
+    }
+  }
+
+  /*
+   * Return the {@link RDFFormat} for a file name, ignoring any <code>.gz</code> or <code>.zip
+   * </code> extension.
+   *
+   * @param name The file name.
+   * @param rdfFormat The format to use if none is associated with the file name.
+   */
+  static RDFFormat getRDFFormat(final String name, final RDFFormat rdfFormat) {
+
+    RDFFormat fmt = RDFFormat.forFileName(name);
+
+    if (fmt == null && name.endsWith(".zip")) {
+      fmt = RDFFormat.forFileName(name.substring(0, name.length() - 4));
+    }
+
+    if (fmt == null && name.endsWith(".gz")) {
+      fmt = RDFFormat.forFileName(name.substring(0, name.length() - 3));
+    }
+
+    if (fmt == null) // fallback
+    fmt = rdfFormat;
+
+    return fmt;
+  }
+
+  /** Open a file, decompressing it if it has a <code>.gz</code> or <code>.zip</code> extension. */
+  static InputStream newInputStream(final File file) throws IOException {
+
+    final String n = file.getName();
+
+    InputStream is = new FileInputStream(file);
+
+    try {
+
+      if (n.endsWith(".gz")) {
+
+        is = new GZIPInputStream(is, getGzipBuffer());
+
+      } else if (n.endsWith(".zip")) {
+
+        is = new ZipInputStream(new BufferedInputStream(is, getGzipBuffer()));
+      }
+
+    } catch (IOException ex) {
+
+      is.close();
+
+      throw ex;
+    }
+
+    return is;
+  }
+
+  /** Open a buffered reader on a file (decompressing it if necessary). */
+  static Reader newReader(final File file) throws IOException {
+
+    return new BufferedReader(new InputStreamReader(newInputStream(file)));
+  }
+
+  /*
+   * The performance counters for the stages of the pipeline used to load files when there are
+   * several parser threads (the counters are empty when the files are parsed one at a time).
+   *
+   * @see Options#PARSER_THREADS
+   */
+  public CounterSet getPipelineCounters() {
+
+    return pipeline == null ? new CounterSet() : pipeline.getCounters();
+  }
+
   /*
    * Loads data from the <i>source</i>. The caller is responsible for closing the <i>source</i> if
    * there is an error.
@@ -1551,6 +1791,12 @@ public class DataLoader {
       }
     }
 
+    if (pipeline != null) {
+      counters.makePath("loaderPipeline").attach(pipeline.getCounters());
+    }
+
+    counters.makePath("lexicon").attach(database.getLexiconRelation().getCounters());
+
     output.println(counters.toString());
 
     /*
@@ -0,0 +1,720 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.rdf.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.log4j.Logger;
+import org.embergraph.counters.CAT;
+import org.embergraph.counters.CounterSet;
+import org.embergraph.counters.Instrument;
+import org.embergraph.rdf.ServiceProviderHook;
+import org.embergraph.rdf.rio.RDFParserOptions;
+import org.embergraph.rdf.rio.StatementBuffer;
+import org.embergraph.rdf.store.DataLoader.MyLoadStats;
+import org.embergraph.util.DaemonThreadFactory;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFHandlerException;
+import org.openrdf.rio.RDFParseException;
+import org.openrdf.rio.RDFParser;
+import org.openrdf.rio.Rio;
+import org.openrdf.rio.helpers.RDFHandlerBase;
+
+/*
+ * Loads a set of files using several parser threads. Each parser thread takes the next file, parses
+ * it with its own {@link RDFParser} and places the parsed statements onto a bounded queue in
+ * chunks. The calling thread drains the queue into the {@link StatementBuffer}, which resolves the
+ * terms against the lexicon in batches and writes the statement indices in parallel each time it
+ * is flushed. Since a single thread writes on the {@link StatementBuffer}, the parser threads only
+ * compete with each other for the next file.
+ *
+ * <p>The queue provides backpressure. The parser threads block once it is full, so the parsers
+ * cannot run ahead of the index writes by more than the capacity of the queue. The time spent
+ * blocked by the parser threads and the time spent waiting for a chunk by the writer are reported
+ * by {@link #getCounters()}, which shows which stage limits the throughput of the load.
+ *
+ * <p>The outcome of each file is reported to the {@link MyLoadStats} by the calling thread once
+ * all the statements for that file have been added to the {@link StatementBuffer}.
+ *
+ * <p>The chunks for a file are staged by the calling thread until the file has been parsed, so the
+ * statements from a file which can not be parsed are not added to the {@link StatementBuffer} when
+ * invalid files are ignored (as for the sequential load, which resets the buffer). At most {@link
+ * #queueCapacity} chunks are staged for a file. The chunks for a larger file are added to the
+ * buffer as they arrive, and a parser error for such a file fails the load even when invalid files
+ * are ignored.
+ *
+ * @see DataLoader.Options#PARSER_THREADS
+ */
+class DataLoaderPipeline {
+
+  private static final Logger log = Logger.getLogger(DataLoaderPipeline.class);
+
+  static {
+    // Make sure that the parsers are registered.
+    ServiceProviderHook.forceLoad();
+  }
+
+  /** The maximum #of statements in a chunk. */
+  static final int MAX_CHUNK_SIZE = 10000;
+
+  /** The #of parser threads. */
+  private final int nparsers;
+
+  /** The capacity of the queue (in chunks). */
+  private final int queueCapacity;
+
+  /** The #of statements in a chunk. */
+  private final int chunkSize;
+
+  private final RDFParserOptions parserOptions;
+
+  /** The value factory used by the parsers. */
+  private final ValueFactory valueFactory;
+
+  /** When true, a file with a parser error is skipped. */
+  private final boolean ignoreInvalidFiles;
+
+  /** The queue for the current load (if any). */
+  private volatile BlockingQueue<Chunk> queue;
+
+  /** The #of statements parsed. */
+  private final CAT nparsed = new CAT();
+
+  /** The time spent parsing (excluding the time blocked on the queue). */
+  private final CAT parseNanos = new CAT();
+
+  /** The time the parser threads spent blocked because the queue was full. */
+  private final CAT parserBlockedNanos = new CAT();
+
+  /** The #of chunks taken from the queue. */
+  private final CAT nchunks = new CAT();
+
+  /** The #of statements added to the {@link StatementBuffer}. */
+  private final CAT nwritten = new CAT();
+
+  /** The time spent adding statements to the {@link StatementBuffer} (including its flushes). */
+  private final CAT writeNanos = new CAT();
+
+  /** The time the writer spent waiting because the queue was empty. */
+  private final CAT writerStarvedNanos = new CAT();
+
+  /** The #of files which were loaded. */
+  private final CAT ngood = new CAT();
+
+  /** The #of files which could not be loaded. */
+  private final CAT nfailed = new CAT();
+
+  /*
+   * @param nparsers The #of parser threads.
+   * @param queueCapacity The capacity of the queue (in chunks).
+   * @param chunkSize The #of statements in a chunk.
+   * @param parserOptions The options for the parsers.
+   * @param valueFactory The value factory used by the parsers.
+   * @param ignoreInvalidFiles When true, a file with a parser error is skipped.
+   */
+  DataLoaderPipeline(
+      final int nparsers,
+      final int queueCapacity,
+      final int chunkSize,
+      final RDFParserOptions parserOptions,
+      final ValueFactory valueFactory,
+      final boolean ignoreInvalidFiles) {
+
+    if (nparsers <= 0) throw new IllegalArgumentException();
+
+    if (queueCapacity <= 0) throw new IllegalArgumentException();
+
+    if (chunkSize <= 0) throw new IllegalArgumentException();
+
+    if (parserOptions == null) throw new IllegalArgumentException();
+
+    if (valueFactory == null) throw new IllegalArgumentException();
+
+    this.nparsers = nparsers;
+
+    this.queueCapacity = queueCapacity;
+
+    this.chunkSize = chunkSize;
+
+    this.parserOptions = parserOptions;
+
+    this.valueFactory = valueFactory;
+
+    this.ignoreInvalidFiles = ignoreInvalidFiles;
+  }
+
+  /*
+   * A chunk of the statements parsed from a file -or- the outcome for that file once it has been
+   * parsed.
+   */
+  private static class Chunk {
+
+    private final File file;
+
+    /** The statements -or- <code>null</code> if this chunk reports the outcome for the file. */
+    private final Statement[] stmts;
+
+    /** The #of statements in {@link #stmts}. */
+    private final int n;
+
+    /** The cause if the file could not be parsed. */
+    private final Throwable cause;
+
+    Chunk(final File file, final Statement[] stmts, final int n) {
+      this.file = file;
+      this.stmts = stmts;
+      this.n = n;
+      this.cause = null;
+    }
+
+    Chunk(final File file, final Throwable cause) {
+      this.file = file;
+      this.stmts = null;
+      this.n = 0;
+      this.cause = cause;
+    }
+  }
+
+  /** The chunks for a file which is being parsed. */
+  private static class Staged {
+
+    /** The chunks which have not been added to the buffer. */
+    private final List<Chunk> chunks = new ArrayList<>();
+
+    /** True once chunks for the file were added to the buffer before it had been parsed. */
+    private boolean written = false;
+  }
+
+  /** Marks the end of the load (placed on the queue once all the parser threads are done). */
+  private static final Chunk END = new Chunk(null, null);
+
+  /*
+   * Load the files into the {@link StatementBuffer}. The buffer is not flushed.
+   *
+   * @param files The files.
+   * @param baseURI The baseURI (optional, when not specified the URI of each file is used).
+   * @param rdfFormat The format used when it can not be deduced from the name of a file.
+   * @param defaultGraph The context used for the statements without one (optional).
+   * @param buffer The buffer.
+   * @param stats The outcome for each file and the #of told triples are reported here.
+   * @throws IOException if a file could not be read.
+   * @throws RuntimeException if a file could not be parsed and invalid files are not ignored.
+   */
+  void load(
+      final List<File> files,
+      final String baseURI,
+      final RDFFormat rdfFormat,
+      final Resource defaultGraph,
+      final StatementBuffer<?> buffer,
+      final MyLoadStats stats)
+      throws IOException {
+
+    if (files == null) throw new IllegalArgumentException();
+
+    if (buffer == null) throw new IllegalArgumentException();
+
+    if (stats == null) throw new IllegalArgumentException();
+
+    if (files.isEmpty()) return;
+
+    final BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(queueCapacity);
+
+    final ConcurrentLinkedQueue<File> todo = new ConcurrentLinkedQueue<>(files);
+
+    final int n = Math.min(nparsers, files.size());
+
+    final AtomicInteger running = new AtomicInteger(n);
+
+    final ExecutorService service =
+        Executors.newFixedThreadPool(n, new DaemonThreadFactory(getClass().getName() + ".parser"));
+
+    this.queue = queue;
+
+    try {
+
+      for (int i = 0; i < n; i++) {
+
+        service.execute(new ParserTask(todo, queue, running, baseURI, rdfFormat));
+      }
+
+      consume(queue, defaultGraph, buffer, stats);
+
+    } catch (InterruptedException ex) {
+
+      throw new RuntimeException(ex);
+
+    } finally {
+
+      // Note: Interrupts any parser blocked on the queue if the load failed.
+      service.shutdownNow();
+
+      this.queue = null;
+    }
+  }
+
+  /** Drain the queue into the buffer until the end of the load (or a fatal error). */
+  private void consume(
+      final BlockingQueue<Chunk> queue,
+      final Resource defaultGraph,
+      final StatementBuffer<?> buffer,
+      final MyLoadStats stats)
+      throws IOException, InterruptedException {
+
+    // The chunks for each file which is being parsed.
+    final Map<File, Staged> staged = new HashMap<>();
+
+    while (true) {
+
+      final long begin = System.nanoTime();
+
+      final Chunk chunk = queue.take();
+
+      writerStarvedNanos.add(System.nanoTime() - begin);
+
+      if (chunk == END) return;
+
+      if (chunk.stmts != null) {
+
+        final Staged tmp = staged.computeIfAbsent(chunk.file, k -> new Staged());
+
+        if (tmp.written) {
+
+          write(chunk, defaultGraph, buffer, stats);
+
+        } else {
+
+          tmp.chunks.add(chunk);
+
+          if (tmp.chunks.size() >= queueCapacity) {
+
+            // Too large to stage: add the chunks to the buffer as they arrive.
+            writeAll(tmp, defaultGraph, buffer, stats);
+
+            tmp.written = true;
+          }
+        }
+
+        continue;
+      }
+
+      final Staged tmp = staged.remove(chunk.file);
+
+      if (chunk.cause == null) {
+
+        if (tmp != null) writeAll(tmp, defaultGraph, buffer, stats);
+
+        stats.didGood(chunk.file);
+
+        ngood.increment();
+
+        if (log.isInfoEnabled()) log.info("Loaded: " + chunk.file);
+
+        continue;
+      }
+
+      stats.didFail(chunk.file);
+
+      nfailed.increment();
+
+      final Throwable t = chunk.cause;
+
+      if (t instanceof RDFParseException) {
+
+        if (ignoreInvalidFiles && (tmp == null || !tmp.written)) {
+
+          // Note: The staged chunks for the file are discarded.
+          log.error("Parser error - skipping source: source=" + chunk.file, t);
+
+          continue;
+        }
+
+        throw new RuntimeException("Could not parse file: " + chunk.file, t);
+      }
+
+      if (t instanceof RuntimeException) throw (RuntimeException) t;
+
+      if (t instanceof IOException) throw (IOException) t;
+
+      throw new RuntimeException("While loading: " + chunk.file, t);
+    }
+  }
+
+  /** Add the staged chunks for a file to the buffer. */
+  private void writeAll(
+      final Staged staged,
+      final Resource defaultGraph,
+      final StatementBuffer<?> buffer,
+      final MyLoadStats stats) {
+
+    for (Chunk chunk : staged.chunks) {
+
+      write(chunk, defaultGraph, buffer, stats);
+    }
+
+    staged.chunks.clear();
+  }
+
+  /** Add a chunk to the buffer. */
+  private void write(
+      final Chunk chunk,
+      final Resource defaultGraph,
+      final StatementBuffer<?> buffer,
+      final MyLoadStats stats) {
+
+    final long begin = System.nanoTime();
+
+    for (int i = 0; i < chunk.n; i++) {
+
+      final Statement stmt = chunk.stmts[i];
+
+      final Resource c = stmt.getContext();
+
+      buffer.add(
+          stmt.getSubject(), stmt.getPredicate(), stmt.getObject(), c == null ? defaultGraph : c);
+    }
+
+    stats.toldTriples.add(chunk.n);
+
+    nwritten.add(chunk.n);
+
+    nchunks.increment();
+
+    writeNanos.add(System.nanoTime() - begin);
+  }
+
+  /** Parses files until there are no more files to be parsed. */
+  private class ParserTask implements Runnable {
+
+    private final ConcurrentLinkedQueue<File> todo;
+    private final BlockingQueue<Chunk> queue;
+    private final AtomicInteger running;
+    private final String baseURI;
+    private final RDFFormat rdfFormat;
+
+    /** The time spent blocked on the queue by this task. */
+    private long blockedNanos;
+
+    ParserTask(
+        final ConcurrentLinkedQueue<File> todo,
+        final BlockingQueue<Chunk> queue,
+        final AtomicInteger running,
+        final String baseURI,
+        final RDFFormat rdfFormat) {
+      this.todo = todo;
+      this.queue = queue;
+      this.running = running;
+      this.baseURI = baseURI;
+      this.rdfFormat = rdfFormat;
+    }
+
+    @Override
+    public void run() {
+
+      try {
+
+        File file;
+        while ((file = todo.poll()) != null) {
+
+          if (!parse(file) && !ignoreInvalidFiles) {
+
+            // The load will fail.
+            break;
+          }
+        }
+
+        if (running.decrementAndGet() == 0) {
+
+          // The last parser to finish marks the end of the load.
+          put(END);
+        }
+
+      } catch (InterruptedException ex) {
+
+        // The load was halted.
+        if (log.isInfoEnabled()) log.info("Interrupted");
+      }
+    }
+
+    /*
+     * Parse a file onto the queue, followed by the outcome for that file.
+     *
+     * @return <code>true</code> iff the file was parsed.
+     */
+    private boolean parse(final File file) throws InterruptedException {
+
+      final long begin = System.nanoTime();
+
+      final long blocked = blockedNanos;
+
+      Throwable cause = null;
+
+      try (final Reader reader = DataLoader.newReader(file)) {
+
+        final RDFFormat fmt = DataLoader.getRDFFormat(file.getName(), rdfFormat);
+
+        final RDFParser parser = Rio.createParser(fmt, valueFactory);
+
+        parser.setValueFactory(valueFactory);
+
+        parserOptions.apply(parser);
+
+        final ChunkHandler handler = new ChunkHandler(file);
+
+        parser.setRDFHandler(handler);
+
+        parser.parse(reader, baseURI != null ? baseURI : file.toURI().toString());
+
+        handler.flushChunk();
+
+      } catch (Throwable t) {
+
+        cause = t;
+      }
+
+      if (Thread.interrupted()) throw new InterruptedException();
+
+      parseNanos.add(System.nanoTime() - begin - (blockedNanos - blocked));
+
+      put(new Chunk(file, cause));
+
+      return cause == null;
+    }
+
+    private void put(final Chunk chunk) throws InterruptedException {
+
+      final long begin = System.nanoTime();
+
+      queue.put(chunk);
+
+      final long elapsed = System.nanoTime() - begin;
+
+      blockedNanos += elapsed;
+
+      parserBlockedNanos.add(elapsed);
+    }
+
+    /** Collects the parsed statements into chunks. */
+    private class ChunkHandler extends RDFHandlerBase {
+
+      private final File file;
+
+      private Statement[] stmts = new Statement[chunkSize];
+
+      private int n = 0;
+
+      ChunkHandler(final File file) {
+        this.file = file;
+      }
+
+      @Override
+      public void handleStatement(final Statement stmt) throws RDFHandlerException {
+
+        stmts[n++] = stmt;
+
+        if (n == chunkSize) {
+
+          try {
+
+            flushChunk();
+
+          } catch (InterruptedException ex) {
+
+            // Note: The interrupt is noticed once the parser returns.
+            Thread.currentThread().interrupt();
+
+            throw new RDFHandlerException(ex);
+          }
+        }
+      }
+
+      /** Place the buffered statements (if any) onto the queue. */
+      void flushChunk() throws InterruptedException {
+
+        if (n == 0) return;
+
+        put(new Chunk(file, stmts, n));
+
+        nparsed.add(n);
+
+        stmts = new Statement[chunkSize];
+
+        n = 0;
+      }
+    }
+  }
+
+  /** The performance counters for each stage of the pipeline (cumulative over the loads). */
+  CounterSet getCounters() {
+
+    final CounterSet root = new CounterSet();
+
+    root.addCounter(
+        "parserThreads",
+        new Instrument<Integer>() {
+          @Override
+          public void sample() {
+            setValue(nparsers);
+          }
+        });
+
+    root.addCounter(
+        "queueCapacity",
+        new Instrument<Integer>() {
+          @Override
+          public void sample() {
+            setValue(queueCapacity);
+          }
+        });
+
+    root.addCounter(
+        "queueSize",
+        new Instrument<Integer>() {
+          @Override
+          public void sample() {
+            final BlockingQueue<Chunk> tmp = queue;
+            setValue(tmp == null ? 0 : tmp.size());
+          }
+        });
+
+    {
+      final CounterSet tmp = root.makePath("parse");
+
+      tmp.addCounter(
+          "statementsParsed",
+          new Instrument<Long>() {
+            @Override
+            public void sample() {
+              setValue(nparsed.get());
+            }
+          });
+
+      tmp.addCounter(
+          "parseNanos",
+          new Instrument<Long>() {
+            @Override
+            public void sample() {
+              setValue(parseNanos.get());
+            }
+          });
+
+      tmp.addCounter(
+          "blockedNanos",
+          new Instrument<Long>() {
+            @Override
+            public void sample() {
+              setValue(parserBlockedNanos.get());
+            }
+          });
+
+      tmp.addCounter(
+          "statementsPerSec",
+          new Instrument<Double>() {
+            @Override
+            public void sample() {
+              final long nanos = parseNanos.get();
+              // Note: The rate for all parser threads together.
+              setValue(nanos == 0L ? 0d : nparsed.get() * nparsers * 1e9 / nanos);
+            }
+          });
+    }
+
+    {
+      final CounterSet tmp = root.makePath("write");
+
+      tmp.addCounter(
+          "chunks",
+          new Instrument<Long>() {
+            @Override
+            public void sample() {
+              setValue(nchunks.get());
+            }
+          });
+
+      tmp.addCounter(
+          "statementsWritten",
+          new Instrument<Long>() {
+            @Override
+            public void sample() {
+              setValue(nwritten.get());
+            }
+          });
+
+      tmp.addCounter(
+          "writeNanos",
+          new Instrument<Long>() {
+            @Override
+            public void sample() {
+              setValue(writeNanos.get());
+            }
+          });
+
+      tmp.addCounter(
+          "starvedNanos",
+          new Instrument<Long>() {
+            @Override
+            public void sample() {
+              setValue(writerStarvedNanos.get());
+            }
+          });
+
+      tmp.addCounter(
+          "statementsPerSec",
+          new Instrument<Double>() {
+            @Override
+            public void sample() {
+              final long nanos = writeNanos.get();
+              setValue(nanos == 0L ? 0d : nwritten.get() * 1e9 / nanos);
+            }
+          });
+
+      tmp.addCounter(
+          "filesLoaded",
+          new Instrument<Long>() {
+            @Override
+            public void sample() {
+              setValue(ngood.get());
+            }
+          });
+
+      tmp.addCounter(
+          "filesFailed",
+          new Instrument<Long>() {
+            @Override
+            public void sample() {
+              setValue(nfailed.get());
+            }
+          });
+    }
+
+    return root;
+  }
+}
@@ -0,0 +1,848 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.rdf.store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import org.apache.log4j.Logger;
+import org.embergraph.btree.BTree;
+import org.embergraph.btree.IIndex;
+import org.embergraph.journal.ITx;
+import org.embergraph.rdf.ServiceProviderHook;
+import org.embergraph.rdf.lexicon.LexiconKeyOrder;
+import org.embergraph.rdf.lexicon.LexiconRelation;
+import org.embergraph.rdf.model.EmbergraphBNode;
+import org.embergraph.rdf.model.EmbergraphResource;
+import org.embergraph.rdf.model.EmbergraphValue;
+import org.embergraph.rdf.model.EmbergraphValueFactory;
+import org.embergraph.rdf.model.StatementEnum;
+import org.embergraph.rdf.rio.RDFParserOptions;
+import org.embergraph.rdf.spo.ISPO;
+import org.embergraph.rdf.spo.SPO;
+import org.embergraph.rdf.spo.SPOKeyOrder;
+import org.embergraph.rdf.spo.SPORelation;
+import org.embergraph.rdf.spo.SPOTupleSerializer;
+import org.embergraph.striterator.IKeyOrder;
+import org.embergraph.util.Bytes;
+import org.embergraph.util.BytesUtil;
+import org.openrdf.model.BNode;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.Value;
+import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFHandlerException;
+import org.openrdf.rio.RDFParser;
+import org.openrdf.rio.Rio;
+import org.openrdf.rio.helpers.RDFHandlerBase;
+
+/*
+ * Builds the statement indices of a new (empty) triple or quad store from sorted data. This is
+ * much faster than the {@link DataLoader} for the initial load of a large data set since each
+ * index is written in key order rather than by random inserts.
+ *
+ * <p>The build runs in two passes:
+ *
+ * <ol>
+ *   <li>The files are parsed in runs of {@link Options#RUN_SIZE} statements. The distinct terms in
+ *       each run are resolved against the lexicon in a single batch (which assigns the term
+ *       identifiers and writes the TERM2ID, ID2TERM and BLOBS indices in sorted order). The
+ *       statements in the run are then sorted once for each {@link SPOKeyOrder} and written onto
+ *       a temporary file for that key order. The blank nodes are canonicalized for each file (as
+ *       by the {@link DataLoader}), so a blank node which is used in more than one run of a file is
+ *       assigned a single term identifier.
+ *   <li>The sorted runs for each {@link SPOKeyOrder} are merged and the distinct tuples are
+ *       appended to the corresponding (empty) statement index. The index is set up for {@link
+ *       BTree#setAppendSplit(boolean) append splits}, so the leaves are full and each leaf is
+ *       written onto the store exactly once, when it is evicted from the write retention queue.
+ *       At most {@link Options#MERGE_FAN_IN} runs are read at once. When there are more runs,
+ *       intermediate merge passes combine groups of runs into larger runs first.
+ * </ol>
+ *
+ * <p>The statement indices MUST be empty (so the triple store must not have axioms) and there MUST
+ * NOT be any concurrent writers on the triple store. The closure is not computed and the data are
+ * committed once all the indices have been built. The statement indices must be local {@link
+ * BTree}s (this does not support scale-out).
+ *
+ * @see DataLoader
+ */
+public class SortedBulkBuilder {
+
+  private static final Logger log = Logger.getLogger(SortedBulkBuilder.class);
+
+  static {
+    // Make sure that the parsers are registered.
+    ServiceProviderHook.forceLoad();
+  }
+
+  /** Options for the {@link SortedBulkBuilder}. */
+  public interface Options extends RDFParserOptions.Options {
+
+    /*
+     * The #of statements which are parsed, resolved against the lexicon and sorted in memory
+     * before they are written onto a temporary file (default {@value #DEFAULT_RUN_SIZE}).
+     */
+    String RUN_SIZE = SortedBulkBuilder.class.getName() + ".runSize";
+
+    String DEFAULT_RUN_SIZE = "1000000";
+
+    /*
+     * The directory in which the sorted runs are written (default is the <code>java.io.tmpdir
+     * </code>). This should have room for several times the size of the data set.
+     */
+    String TMP_DIR = SortedBulkBuilder.class.getName() + ".tmpDir";
+
+    /*
+     * The maximum #of runs which are merged in a single pass (default {@value
+     * #DEFAULT_MERGE_FAN_IN}). Each run being merged has an open file and a read buffer.
+     */
+    String MERGE_FAN_IN = SortedBulkBuilder.class.getName() + ".mergeFanIn";
+
+    String DEFAULT_MERGE_FAN_IN = "64";
+  }
+
+  /** The target database. */
+  private final AbstractTripleStore database;
+
+  private final RDFParserOptions parserOptions;
+
+  /** The #of statements in a run. */
+  private final int runSize;
+
+  /** The directory in which the runs are written. */
+  private final File tmpDir;
+
+  /** The maximum #of runs which are merged in a single pass. */
+  private final int mergeFanIn;
+
+  /*
+   * @param properties Configuration properties - see {@link Options}.
+   * @param database The database (the statement indices must be empty).
+   */
+  public SortedBulkBuilder(final Properties properties, final AbstractTripleStore database) {
+
+    if (properties == null) throw new IllegalArgumentException();
+
+    if (database == null) throw new IllegalArgumentException();
+
+    this.database = database;
+
+    this.parserOptions = new RDFParserOptions(properties);
+
+    {
+      runSize =
+          Integer.parseInt(properties.getProperty(Options.RUN_SIZE, Options.DEFAULT_RUN_SIZE));
+
+      if (runSize <= 0) throw new IllegalArgumentException(Options.RUN_SIZE);
+
+      if (log.isInfoEnabled()) log.info(Options.RUN_SIZE + "=" + runSize);
+    }
+
+    {
+      tmpDir =
+          new File(
+              properties.getProperty(Options.TMP_DIR, System.getProperty("java.io.tmpdir")));
+
+      if (log.isInfoEnabled()) log.info(Options.TMP_DIR + "=" + tmpDir);
+    }
+
+    {
+      mergeFanIn =
+          Integer.parseInt(
+              properties.getProperty(Options.MERGE_FAN_IN, Options.DEFAULT_MERGE_FAN_IN));
+
+      if (mergeFanIn < 2) throw new IllegalArgumentException(Options.MERGE_FAN_IN);
+
+      if (log.isInfoEnabled()) log.info(Options.MERGE_FAN_IN + "=" + mergeFanIn);
+    }
+  }
+
+  /*
+   * Build the statement indices from a file or directory and commit.
+   *
+   * @param file A file or directory (directories are processed recursively). Compressed (gzip or
+   *     zip) files are supported.
+   * @param baseURI The baseURI (optional, when not specified the URI of each file is used).
+   * @param rdfFormat The format used when it can not be deduced from the name of a file.
+   * @param defaultGraph The context for the statements without one when the database is a quad
+   *     store (optional, defaults to {@link BD#NULL_GRAPH}).
+   * @param filter A filter selecting the file names that will be loaded (optional).
+   * @return The #of distinct statements in the database.
+   * @throws IllegalStateException if a statement index is not empty.
+   */
+  public long build(
+      final File file,
+      final String baseURI,
+      final RDFFormat rdfFormat,
+      final String defaultGraph,
+      final FilenameFilter filter)
+      throws IOException {
+
+    if (file == null) throw new IllegalArgumentException();
+
+    final List<IKeyOrder<ISPO>> keyOrders = new ArrayList<>();
+
+    final List<BTree> ndxs = new ArrayList<>();
+
+    final SPOKeyOrder primaryKeyOrder;
+
+    {
+      final SPORelation spoRelation = database.getSPORelation();
+
+      primaryKeyOrder = spoRelation.getPrimaryKeyOrder();
+
+      final Iterator<IKeyOrder<ISPO>> itr = spoRelation.getKeyOrders();
+
+      while (itr.hasNext()) {
+
+        final IKeyOrder<ISPO> keyOrder = itr.next();
+
+        final BTree ndx = getBTree(spoRelation.getFQN(keyOrder));
+
+        if (ndx.getEntryCount() != 0L)
+          throw new IllegalStateException("Index is not empty: " + keyOrder);
+
+        keyOrders.add(keyOrder);
+
+        ndxs.add(ndx);
+      }
+    }
+
+    final LexiconRelation lex = database.getLexiconRelation();
+
+    // The term identifiers are assigned in ascending order.
+    final BTree id2term = getBTree(lex.getFQN(LexiconKeyOrder.ID2TERM));
+
+    final List<File> files = new LinkedList<>();
+
+    DataLoader.collectFiles(file, filter, files);
+
+    final File runDir = File.createTempFile(getClass().getSimpleName(), ".runs", tmpDir);
+
+    final long begin = System.currentTimeMillis();
+
+    long nstmts = 0L;
+
+    try {
+
+      runDir.delete(); // delete random file name.
+      runDir.mkdir(); // recreate it as a directory.
+
+      id2term.setAppendSplit(true);
+
+      final RunWriter writer = new RunWriter(runDir, keyOrders, ndxs, defaultGraph);
+
+      for (File f : files) {
+
+        writer.parse(f, baseURI, rdfFormat);
+      }
+
+      writer.flush();
+
+      final long elapsedSort = System.currentTimeMillis() - begin;
+
+      if (log.isInfoEnabled())
+        log.info(
+            "Sorted: files="
+                + files.size()
+                + ", statements="
+                + writer.nparsed
+                + ", runs="
+                + writer.nruns
+                + ", elapsed="
+                + elapsedSort
+                + "ms");
+
+      for (int i = 0; i < keyOrders.size(); i++) {
+
+        final long beginMerge = System.currentTimeMillis();
+
+        final BTree ndx = ndxs.get(i);
+
+        ndx.setAppendSplit(true);
+
+        try {
+
+          final long n =
+              merge(ndx, writer.runs.get(i), runDir, keyOrders.get(i).getIndexName());
+
+          if (keyOrders.get(i).equals(primaryKeyOrder)) nstmts = n;
+
+        } finally {
+
+          ndx.setAppendSplit(false);
+        }
+
+        if (log.isInfoEnabled())
+          log.info(
+              "Built: keyOrder="
+                  + keyOrders.get(i)
+                  + ", leaves="
+                  + ndx.getLeafCount()
+                  + ", elapsed="
+                  + (System.currentTimeMillis() - beginMerge)
+                  + "ms");
+      }
+
+    } finally {
+
+      id2term.setAppendSplit(false);
+
+      final File[] a = runDir.listFiles();
+
+      if (a != null) {
+
+        for (File f : a) {
+
+          f.delete();
+        }
+      }
+
+      runDir.delete();
+    }
+
+    database.commit();
+
+    if (log.isInfoEnabled())
+      log.info(
+          "Done: statements="
+              + nstmts
+              + ", elapsed="
+              + (System.currentTimeMillis() - begin)
+              + "ms");
+
+    return nstmts;
+  }
+
+  /** Return the unisolated {@link BTree} for the named index. */
+  private BTree getBTree(final String name) {
+
+    final IIndex ndx = database.getIndexManager().getIndex(name, ITx.UNISOLATED);
+
+    if (!(ndx instanceof BTree)) throw new UnsupportedOperationException("Not a B+Tree: " + name);
+
+    return (BTree) ndx;
+  }
+
+  /*
+   * Merge the sorted runs for an index, appending each distinct tuple to the index. While there are
+   * more than {@link #mergeFanIn} runs, consecutive groups of runs are merged into intermediate
+   * runs (and the merged runs are deleted).
+   *
+   * @param ndx The index.
+   * @param runs The sorted runs for that index.
+   * @param runDir The directory in which the intermediate runs are written.
+   * @param name The prefix for the names of the intermediate runs.
+   * @return The #of tuples appended.
+   */
+  private long merge(final BTree ndx, final List<File> runs, final File runDir, final String name)
+      throws IOException {
+
+    List<File> current = runs;
+
+    int npasses = 0;
+
+    while (current.size() > mergeFanIn) {
+
+      final List<File> merged = new ArrayList<>();
+
+      for (int i = 0; i < current.size(); i += mergeFanIn) {
+
+        final List<File> group = current.subList(i, Math.min(i + mergeFanIn, current.size()));
+
+        if (group.size() == 1) {
+
+          // Nothing to merge.
+          merged.add(group.get(0));
+
+          continue;
+        }
+
+        final File f = new File(runDir, name + "-merge" + npasses + "-" + merged.size() + ".run");
+
+        mergeRuns(group, f);
+
+        for (File g : group) {
+
+          g.delete();
+        }
+
+        merged.add(f);
+      }
+
+      current = merged;
+
+      npasses++;
+
+      if (log.isDebugEnabled())
+        log.debug("Merge pass done: index=" + name + ", nruns=" + current.size());
+    }
+
+    final PriorityQueue<RunReader> queue = newQueue(current.size());
+
+    long n = 0L;
+
+    try {
+
+      open(current, queue);
+
+      byte[] last = null;
+
+      while (!queue.isEmpty()) {
+
+        final RunReader r = queue.poll();
+
+        if (last == null || BytesUtil.compareBytes(last, r.key) != 0) {
+
+          ndx.insert(r.key, r.val);
+
+          last = r.key;
+
+          n++;
+        }
+
+        if (r.next()) queue.add(r);
+        else r.close();
+      }
+
+    } finally {
+
+      for (RunReader r : queue) {
+
+        r.close();
+      }
+    }
+
+    return n;
+  }
+
+  /*
+   * Merge sorted runs into a single sorted run. The duplicate tuples are kept (they are dropped by
+   * the final merge pass).
+   *
+   * @param runs The sorted runs.
+   * @param file The file on which the merged run is written.
+   */
+  private static void mergeRuns(final List<File> runs, final File file) throws IOException {
+
+    final PriorityQueue<RunReader> queue = newQueue(runs.size());
+
+    try {
+
+      final long count = open(runs, queue);
+
+      try (final DataOutputStream out = newRunOutputStream(file)) {
+
+        out.writeLong(count);
+
+        while (!queue.isEmpty()) {
+
+          final RunReader r = queue.poll();
+
+          writeTuple(out, r.key, r.val);
+
+          if (r.next()) queue.add(r);
+          else r.close();
+        }
+      }
+
+    } finally {
+
+      for (RunReader r : queue) {
+
+        r.close();
+      }
+    }
+  }
+
+  /** Return a queue ordering the {@link RunReader}s by their current key. */
+  private static PriorityQueue<RunReader> newQueue(final int capacity) {
+
+    return new PriorityQueue<>(
+        Math.max(1, capacity), (a, b) -> BytesUtil.compareBytes(a.key, b.key));
+  }
+
+  /*
+   * Open the runs and add a reader positioned on the first tuple of each non-empty run to the
+   * queue.
+   *
+   * @return The total #of tuples in the runs.
+   */
+  private static long open(final List<File> runs, final PriorityQueue<RunReader> queue)
+      throws IOException {
+
+    long count = 0L;
+
+    for (File f : runs) {
+
+      final RunReader r = new RunReader(f);
+
+      count += r.remaining;
+
+      if (r.next()) queue.add(r);
+      else r.close();
+    }
+
+    return count;
+  }
+
+  private static DataOutputStream newRunOutputStream(final File file) throws IOException {
+
+    return new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(file), Bytes.kilobyte32 * 64));
+  }
+
+  private static void writeTuple(final DataOutputStream out, final byte[] key, final byte[] val)
+      throws IOException {
+
+    out.writeInt(key.length);
+
+    out.write(key);
+
+    out.writeInt(val.length);
+
+    out.write(val);
+  }
+
+  /** Collects the parsed statements into runs and writes the sorted runs for each index. */
+  private class RunWriter extends RDFHandlerBase {
+
+    private final File runDir;
+
+    private final List<IKeyOrder<ISPO>> keyOrders;
+
+    private final List<SPOTupleSerializer> tupleSers = new ArrayList<>();
+
+    /** The sorted runs for each index. */
+    private final List<List<File>> runs = new ArrayList<>();
+
+    private final EmbergraphValueFactory valueFactory = database.getValueFactory();
+
+    private final boolean quads = database.isQuads();
+
+    /** The context for the statements without one (quads only). */
+    private final EmbergraphResource defaultGraph;
+
+    /*
+     * A canonicalizing map for the blank nodes in the file being parsed. The blank nodes retain the
+     * term identifiers assigned when the run in which they first appear is resolved, so the later
+     * runs of the same file use the same blank node. The map is cleared for each file.
+     */
+    private final Map<String, EmbergraphBNode> bnodes = new HashMap<>();
+
+    private final Statement[] stmts = new Statement[runSize];
+
+    private int n = 0;
+
+    /** The #of statements parsed. */
+    private long nparsed = 0L;
+
+    /** The #of runs written for each index. */
+    private int nruns = 0;
+
+    RunWriter(
+        final File runDir,
+        final List<IKeyOrder<ISPO>> keyOrders,
+        final List<BTree> ndxs,
+        final String defaultGraph) {
+
+      this.runDir = runDir;
+
+      this.keyOrders = keyOrders;
+
+      for (BTree ndx : ndxs) {
+
+        tupleSers.add((SPOTupleSerializer) ndx.getIndexMetadata().getTupleSerializer());
+
+        runs.add(new ArrayList<>());
+      }
+
+      this.defaultGraph =
+          quads
+              ? valueFactory.asValue(
+                  defaultGraph != null ? valueFactory.createURI(defaultGraph) : BD.NULL_GRAPH)
+              : null;
+    }
+
+    void parse(final File file, final String baseURI, final RDFFormat rdfFormat)
+        throws IOException {
+
+      if (log.isInfoEnabled()) log.info("Parsing: " + file);
+
+      // The blank nodes are scoped to the file.
+      bnodes.clear();
+
+      try (final Reader reader = DataLoader.newReader(file)) {
+
+        final RDFParser parser =
+            Rio.createParser(DataLoader.getRDFFormat(file.getName(), rdfFormat), valueFactory);
+
+        parser.setValueFactory(valueFactory);
+
+        parserOptions.apply(parser);
+
+        parser.setRDFHandler(this);
+
+        parser.parse(reader, baseURI != null ? baseURI : file.toURI().toString());
+
+      } catch (IOException | RuntimeException ex) {
+
+        throw ex;
+
+      } catch (Exception ex) {
+
+        throw new RuntimeException("Could not parse file: " + file, ex);
+      }
+    }
+
+    @Override
+    public void handleStatement(final Statement stmt) throws RDFHandlerException {
+
+      stmts[n++] = canonicalize(stmt);
+
+      nparsed++;
+
+      if (n == runSize) {
+
+        try {
+
+          flush();
+
+        } catch (IOException ex) {
+
+          throw new RDFHandlerException(ex);
+        }
+      }
+    }
+
+    /*
+     * Return the statement using the canonical blank nodes for the current file (the statement is
+     * returned unchanged when it does not use any blank nodes).
+     */
+    private Statement canonicalize(final Statement stmt) {
+
+      final Resource s = stmt.getSubject();
+
+      final Value o = stmt.getObject();
+
+      final Resource c = stmt.getContext();
+
+      if (!(s instanceof BNode) && !(o instanceof BNode) && !(c instanceof BNode)) return stmt;
+
+      return valueFactory.createStatement(
+          (Resource) canonicalize(s),
+          stmt.getPredicate(),
+          canonicalize(o),
+          (Resource) canonicalize(c));
+    }
+
+    /** Return the canonical blank node for the current file iff the value is a blank node. */
+    private Value canonicalize(final Value v) {
+
+      if (!(v instanceof BNode)) return v;
+
+      final String id = ((BNode) v).getID();
+
+      EmbergraphBNode bnode = bnodes.get(id);
+
+      if (bnode == null) {
+
+        bnode = valueFactory.asValue((BNode) v);
+
+        bnodes.put(id, bnode);
+      }
+
+      return bnode;
+    }
+
+    /** Resolve the terms for the buffered statements and write the sorted runs. */
+    void flush() throws IOException {
+
+      if (n == 0) return;
+
+      final SPO[] spos = resolve();
+
+      for (int i = 0; i < keyOrders.size(); i++) {
+
+        final SPOTupleSerializer tupleSer = tupleSers.get(i);
+
+        final byte[][][] tuples = new byte[spos.length][][];
+
+        for (int j = 0; j < spos.length; j++) {
+
+          tuples[j] = new byte[][] {tupleSer.serializeKey(spos[j]), tupleSer.serializeVal(spos[j])};
+        }
+
+        Arrays.sort(tuples, (a, b) -> BytesUtil.compareBytes(a[0], b[0]));
+
+        final File f = new File(runDir, keyOrders.get(i).getIndexName() + "-" + nruns + ".run");
+
+        try (final DataOutputStream out = newRunOutputStream(f)) {
+
+          out.writeLong(tuples.length);
+
+          for (byte[][] tuple : tuples) {
+
+            writeTuple(out, tuple[0], tuple[1]);
+          }
+        }
+
+        runs.get(i).add(f);
+      }
+
+      nruns++;
+
+      Arrays.fill(stmts, 0, n, null);
+
+      n = 0;
+    }
+
+    /*
+     * Resolve the distinct terms for the buffered statements against the lexicon (writing any new
+     * terms) and return the statements as {@link SPO}s.
+     */
+    private SPO[] resolve() {
+
+      final Map<Value, EmbergraphValue> distinct = new LinkedHashMap<>();
+
+      final EmbergraphValue[][] terms = new EmbergraphValue[n][];
+
+      for (int i = 0; i < n; i++) {
+
+        final Statement stmt = stmts[i];
+
+        final Resource c = quads ? stmt.getContext() : null;
+
+        terms[i] =
+            new EmbergraphValue[] {
+              distinct(distinct, stmt.getSubject()),
+              distinct(distinct, stmt.getPredicate()),
+              distinct(distinct, stmt.getObject()),
+              quads ? (c == null ? distinct(distinct, defaultGraph) : distinct(distinct, c)) : null
+            };
+      }
+
+      final EmbergraphValue[] values = distinct.values().toArray(new EmbergraphValue[0]);
+
+      database.getLexiconRelation().addTerms(values, values.length, false /* readOnly */);
+
+      final SPO[] spos = new SPO[n];
+
+      for (int i = 0; i < n; i++) {
+
+        final EmbergraphValue[] t = terms[i];
+
+        spos[i] =
+            new SPO(
+                t[0].getIV(),
+                t[1].getIV(),
+                t[2].getIV(),
+                t[3] == null ? null : t[3].getIV(),
+                StatementEnum.Explicit);
+      }
+
+      return spos;
+    }
+
+    private EmbergraphValue distinct(final Map<Value, EmbergraphValue> distinct, final Value v) {
+
+      if (v instanceof EmbergraphBNode && ((EmbergraphBNode) v).getIV() != null) {
+
+        // A blank node which was resolved by an earlier run of the same file.
+        return (EmbergraphBNode) v;
+      }
+
+      EmbergraphValue t = distinct.get(v);
+
+      if (t == null) {
+
+        t = valueFactory.asValue(v);
+
+        distinct.put(v, t);
+      }
+
+      return t;
+    }
+  }
+
+  /** Reads the tuples from a sorted run. */
+  private static class RunReader {
+
+    private final DataInputStream in;
+
+    /** The #of tuples not yet read. */
+    private long remaining;
+
+    private byte[] key;
+
+    private byte[] val;
+
+    RunReader(final File file) throws IOException {
+
+      in =
+          new DataInputStream(
+              new BufferedInputStream(new FileInputStream(file), Bytes.kilobyte32 * 64));
+
+      remaining = in.readLong();
+    }
+
+    /*
+     * Read the next tuple.
+     *
+     * @return <code>false</code> iff the run is exhausted.
+     */
+    boolean next() throws IOException {
+
+      if (remaining == 0) return false;
+
+      key = new byte[in.readInt()];
+
+      in.readFully(key);
+
+      val = new byte[in.readInt()];
+
+      in.readFully(val);
+
+      remaining--;
+
+      return true;
+    }
+
+    void close() throws IOException {
+
+      in.close();
+    }
+  }
+}
@@ -0,0 +1,354 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.rdf.store;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import org.apache.log4j.Logger;
+import org.embergraph.rdf.vocab.DictionaryVocabulary;
+import org.embergraph.rdf.vocab.Vocabulary;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.impl.URIImpl;
+import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFHandlerException;
+import org.openrdf.rio.RDFParser;
+import org.openrdf.rio.Rio;
+import org.openrdf.rio.helpers.RDFHandlerBase;
+
+/*
+ * Samples RDF data in order to discover the most frequently used URIs. The result is a dictionary
+ * for a {@link DictionaryVocabulary}, which inlines those URIs into the statement indices when a KB
+ * instance is created using {@link AbstractTripleStore.Options#VOCABULARY_DICTIONARY}.
+ *
+ * <p>The URIs are counted in the subject, predicate, object and context positions of the first
+ * <i>maxStatements</i> statements. The sample may be taken from the files to be loaded or from an
+ * existing KB instance (for example, before the data are exported and reloaded into a new KB
+ * instance).
+ *
+ * @see DictionaryVocabulary
+ */
+public class VocabularySampler {
+
+  private static final transient Logger log = Logger.getLogger(VocabularySampler.class);
+
+  /** The default #of statements to be sampled. */
+  public static final long DEFAULT_MAX_STATEMENTS = 1000000L;
+
+  /** The default #of URIs in the dictionary. */
+  public static final int DEFAULT_SIZE = 4096;
+
+  /** The #of statements to be sampled. */
+  private final long maxStatements;
+
+  /** URIs which are already declared (optional). */
+  private final Vocabulary exclude;
+
+  /** The #of occurrences of each URI. */
+  private final Map<String, int[]> counts = new HashMap<>();
+
+  /** The #of statements sampled so far. */
+  private long nstatements = 0L;
+
+  /*
+   * @param maxStatements The #of statements to be sampled.
+   * @param exclude The URIs declared by this {@link Vocabulary} are not counted (optional).
+   */
+  public VocabularySampler(final long maxStatements, final Vocabulary exclude) {
+
+    if (maxStatements <= 0) throw new IllegalArgumentException();
+
+    this.maxStatements = maxStatements;
+
+    this.exclude = exclude;
+  }
+
+  /** The #of statements sampled so far. */
+  public long getStatementCount() {
+
+    return nstatements;
+  }
+
+  /** <code>true</code> iff the sample is complete. */
+  public boolean isFull() {
+
+    return nstatements >= maxStatements;
+  }
+
+  /** Count the URIs used by the statement. */
+  public void sample(final Statement stmt) {
+
+    if (isFull()) return;
+
+    count(stmt.getSubject());
+
+    count(stmt.getPredicate());
+
+    count(stmt.getObject());
+
+    if (stmt.getContext() != null) count(stmt.getContext());
+
+    nstatements++;
+  }
+
+  private void count(final Value v) {
+
+    if (!(v instanceof URI)) return;
+
+    if (exclude != null && exclude.get(v) != null) return;
+
+    final String s = v.stringValue();
+
+    final int[] c = counts.get(s);
+
+    if (c == null) {
+
+      counts.put(s, new int[] {1});
+
+    } else {
+
+      c[0]++;
+    }
+  }
+
+  /*
+   * Sample a file or the files in a directory (recursively).
+   *
+   * @param file The file or directory.
+   * @param baseURI The baseURI (optional, when not specified the name of each file is converted to
+   *     a URL and used as the baseURI for that file).
+   * @param rdfFormat The format to use when none is associated with the file name.
+   * @param filter A filter selecting the files to be sampled (optional).
+   */
+  public void sample(
+      final File file,
+      final String baseURI,
+      final RDFFormat rdfFormat,
+      final FilenameFilter filter)
+      throws IOException {
+
+    final List<File> files = new LinkedList<>();
+
+    DataLoader.collectFiles(file, filter, files);
+
+    for (File f : files) {
+
+      if (isFull()) break;
+
+      sampleFile(f, baseURI, rdfFormat);
+    }
+  }
+
+  private void sampleFile(final File file, final String baseURI, final RDFFormat rdfFormat)
+      throws IOException {
+
+    final RDFFormat fmt = DataLoader.getRDFFormat(file.getName(), rdfFormat);
+
+    if (fmt == null) throw new IOException("Could not determine the format: " + file);
+
+    final RDFParser parser = Rio.createParser(fmt);
+
+    parser.setRDFHandler(
+        new RDFHandlerBase() {
+          @Override
+          public void handleStatement(final Statement st) throws RDFHandlerException {
+            sample(st);
+            // Halt the parser once the sample is complete.
+            if (isFull()) throw new RDFHandlerException("halted");
+          }
+        });
+
+    try (final Reader reader = DataLoader.newReader(file)) {
+
+      parser.parse(reader, baseURI != null ? baseURI : file.toURI().toString());
+
+    } catch (RDFHandlerException ex) {
+
+      if (!isFull()) throw new IOException(ex);
+
+    } catch (IOException ex) {
+
+      throw ex;
+
+    } catch (Exception ex) {
+
+      throw new IOException("Could not parse: " + file, ex);
+    }
+
+    if (log.isInfoEnabled())
+      log.info("file=" + file + ", nstatements=" + nstatements + ", nuris=" + counts.size());
+  }
+
+  /*
+   * Sample the statements of an existing KB instance.
+   *
+   * @param store The KB instance.
+   */
+  public void sample(final AbstractTripleStore store) {
+
+    final EmbergraphStatementIterator itr =
+        store.getStatements(null /* s */, null /* p */, null /* o */, null /* c */);
+
+    try {
+
+      while (!isFull() && itr.hasNext()) {
+
+        sample(itr.next());
+      }
+
+    } finally {
+
+      itr.close();
+    }
+  }
+
+  /*
+   * Return the most frequently used URIs in order of decreasing frequency. URIs used only once are
+   * never included. Ties are broken by the lexical form of the URI, so the dictionary is stable for
+   * the same sample.
+   *
+   * @param size The maximum #of URIs in the dictionary.
+   */
+  public List<URI> getDictionary(final int size) {
+
+    if (size < 0) throw new IllegalArgumentException();
+
+    final List<Map.Entry<String, int[]>> a = new ArrayList<>(counts.size());
+
+    for (Map.Entry<String, int[]> e : counts.entrySet()) {
+
+      if (e.getValue()[0] > 1) a.add(e);
+    }
+
+    a.sort(
+        (e1, e2) -> {
+          final int c = Integer.compare(e2.getValue()[0], e1.getValue()[0]);
+          return c != 0 ? c : e1.getKey().compareTo(e2.getKey());
+        });
+
+    final int n = Math.min(size, a.size());
+
+    final List<URI> uris = new ArrayList<>(n);
+
+    for (int i = 0; i < n; i++) {
+
+      uris.add(new URIImpl(a.get(i).getKey()));
+    }
+
+    return uris;
+  }
+
+  /*
+   * Utility samples files and writes a dictionary for a {@link DictionaryVocabulary}.
+   *
+   * <p>Usage: <code>
+   * [-size n] [-maxStatements n] [-format fmt] [-baseURI uri] dictionaryFile fileOrDir*</code>
+   *
+   * <dl>
+   *   <dt>-size</dt>
+   *   <dd>The maximum #of URIs in the dictionary (default {@value #DEFAULT_SIZE}).
+   *   <dt>-maxStatements</dt>
+   *   <dd>The #of statements to sample (default {@value #DEFAULT_MAX_STATEMENTS}).
+   *   <dt>-format</dt>
+   *   <dd>The format to use when none is associated with the file name.
+   *   <dt>-baseURI</dt>
+   *   <dd>The baseURI (optional).
+   * </dl>
+   *
+   * @see AbstractTripleStore.Options#VOCABULARY_DICTIONARY
+   */
+  public static void main(final String[] args) throws IOException {
+
+    int size = DEFAULT_SIZE;
+    long maxStatements = DEFAULT_MAX_STATEMENTS;
+    RDFFormat rdfFormat = null;
+    String baseURI = null;
+
+    int i = 0;
+
+    while (i < args.length && args[i].startsWith("-")) {
+
+      final String arg = args[i];
+
+      if (arg.equals("-size")) {
+
+        size = Integer.parseInt(args[++i]);
+
+      } else if (arg.equals("-maxStatements")) {
+
+        maxStatements = Long.parseLong(args[++i]);
+
+      } else if (arg.equals("-format")) {
+
+        rdfFormat = RDFFormat.valueOf(args[++i]);
+
+      } else if (arg.equals("-baseURI")) {
+
+        baseURI = args[++i];
+
+      } else {
+
+        System.err.println("Unknown argument: " + arg);
+
+        usage();
+      }
+
+      i++;
+    }
+
+    if (args.length - i < 2) usage();
+
+    final File dictionaryFile = new File(args[i++]);
+
+    final VocabularySampler sampler = new VocabularySampler(maxStatements, null /* exclude */);
+
+    for (; i < args.length; i++) {
+
+      sampler.sample(new File(args[i]), baseURI, rdfFormat, null /* filter */);
+    }
+
+    final List<URI> dictionary = sampler.getDictionary(size);
+
+    DictionaryVocabulary.writeDictionary(dictionary, dictionaryFile);
+
+    System.out.println(
+        "Sampled "
+            + sampler.getStatementCount()
+            + " statements, wrote "
+            + dictionary.size()
+            + " URIs to "
+            + dictionaryFile);
+  }
+
+  private static void usage() {
+
+    System.err.println(
+        "usage: [-size n] [-maxStatements n] [-format fmt] [-baseURI uri]"
+            + " dictionaryFile fileOrDir*");
+
+    System.exit(1);
+  }
+}
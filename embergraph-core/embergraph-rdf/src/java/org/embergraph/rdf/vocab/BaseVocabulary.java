@@ -272,7 +272,7 @@ public abstract class BaseVocabulary implements Vocabulary, Externalizable {
   }
 
   /** The maximum #of items is 256 {@link VocabURIByteIV}s plus 64k {@link VocabURIShortIV}s. */
-  private static final int MAX_ITEMS = Short.MAX_VALUE + 256;
+  static final int MAX_ITEMS = Short.MAX_VALUE + 256;
 
   public final String getNamespace() {
 
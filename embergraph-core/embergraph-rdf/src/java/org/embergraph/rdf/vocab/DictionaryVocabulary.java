@@ -0,0 +1,299 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.rdf.vocab;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Constructor;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import org.apache.log4j.Logger;
+import org.embergraph.io.LongPacker;
+import org.embergraph.rdf.internal.IV;
+import org.embergraph.rdf.model.EmbergraphValue;
+import org.embergraph.rdf.store.AbstractTripleStore;
+import org.openrdf.model.URI;
+import org.openrdf.model.impl.URIImpl;
+
+/*
+ * A {@link Vocabulary} which extends a {@link BaseVocabulary} class with a dictionary of frequently
+ * used URIs for a specific KB instance. The URIs in the dictionary are inlined into the statement
+ * indices using the same compact {@link IV}s as the declared vocabulary items, so they never need
+ * to be resolved against the lexicon indices in order to filter, compare or project them.
+ *
+ * <p>Unlike a {@link VocabularyDecl} class, the dictionary is not compiled into the code. It is
+ * written into the serialized state of the vocabulary, which is stored for the KB instance in the
+ * global row store (see {@link AbstractTripleStore.Options#VOCABULARY_DICTIONARY}). The dictionary
+ * is typically discovered by sampling the data to be loaded using a {@link
+ * org.embergraph.rdf.store.VocabularySampler}.
+ *
+ * <p>Note: The dictionary MUST NOT be changed once the KB instance has been created since the
+ * statement indices would then contain {@link IV}s for the same URI in both the old and the new
+ * encoding.
+ */
+public class DictionaryVocabulary extends BaseVocabulary {
+
+  private static final transient Logger log = Logger.getLogger(DictionaryVocabulary.class);
+
+  private static final long serialVersionUID = 1L;
+
+  /** The initial version of the serialized dictionary. */
+  private static final transient short VERSION0 = 0;
+
+  /** The current version. */
+  private static final transient short currentVersion = VERSION0;
+
+  /** The {@link BaseVocabulary} class which is extended by the dictionary. */
+  private Class<? extends BaseVocabulary> baseClass;
+
+  /** The URIs in the dictionary (in order of decreasing frequency). */
+  private List<URI> dictionary;
+
+  /** De-serialization ctor. */
+  public DictionaryVocabulary() {}
+
+  /*
+   * Ctor used by {@link AbstractTripleStore#create()}.
+   *
+   * @param namespace The namespace of the KB instance.
+   * @param baseClass The {@link BaseVocabulary} class which is extended by the dictionary.
+   * @param dictionary The URIs in the dictionary. URIs which are declared by the base vocabulary
+   *     are ignored. If there are more URIs than can be inlined as vocabulary items, then the URIs
+   *     at the end of the dictionary are dropped.
+   */
+  public DictionaryVocabulary(
+      final String namespace,
+      final Class<? extends BaseVocabulary> baseClass,
+      final Collection<URI> dictionary) {
+
+    super(namespace);
+
+    if (baseClass == null) throw new IllegalArgumentException();
+
+    if (dictionary == null) throw new IllegalArgumentException();
+
+    if (DictionaryVocabulary.class.isAssignableFrom(baseClass))
+      throw new IllegalArgumentException();
+
+    this.baseClass = baseClass;
+
+    this.dictionary = Collections.unmodifiableList(new ArrayList<>(dictionary));
+  }
+
+  /** The {@link BaseVocabulary} class which is extended by the dictionary. */
+  public Class<? extends BaseVocabulary> getBaseClass() {
+
+    return baseClass;
+  }
+
+  /** The URIs in the dictionary (in order of decreasing frequency). */
+  public List<URI> getDictionary() {
+
+    return dictionary;
+  }
+
+  /*
+   * Declares the items of the base vocabulary (in the same order, so they have the same {@link
+   * IV}s as they would have for the base vocabulary) followed by the dictionary.
+   */
+  @Override
+  protected void addValues() {
+
+    final BaseVocabulary base;
+
+    try {
+
+      final Constructor<? extends BaseVocabulary> ctor = baseClass.getConstructor(String.class);
+
+      base = ctor.newInstance(getNamespace());
+
+    } catch (Exception ex) {
+
+      throw new RuntimeException(ex);
+    }
+
+    base.init();
+
+    final LinkedHashSet<URI> declared = new LinkedHashSet<>(base.size());
+
+    final Iterator<EmbergraphValue> itr = base.values();
+
+    while (itr.hasNext()) {
+
+      // Note: Plain URIs since the vocabulary items already have their IVs.
+      declared.add(new URIImpl(itr.next().stringValue()));
+    }
+
+    final List<URI> extra = new ArrayList<>(dictionary.size());
+
+    for (URI uri : dictionary) {
+
+      if (declared.size() + extra.size() >= MAX_ITEMS) {
+
+        log.warn(
+            "Dictionary truncated: using "
+                + extra.size()
+                + " of "
+                + dictionary.size()
+                + " URIs, namespace="
+                + getNamespace());
+
+        break;
+      }
+
+      if (!declared.contains(uri)) extra.add(uri);
+    }
+
+    addDecl(new BaseVocabularyDecl(declared.toArray()));
+
+    addDecl(new BaseVocabularyDecl(extra.toArray()));
+
+    if (log.isInfoEnabled())
+      log.info(
+          "namespace="
+              + getNamespace()
+              + ", base="
+              + baseClass.getName()
+              + ", nbase="
+              + declared.size()
+              + ", ndictionary="
+              + extra.size());
+  }
+
+  /*
+   * Note: The dictionary is written before the state of the {@link BaseVocabulary} since it must be
+   * available when the vocabulary items are re-declared during de-serialization.
+   */
+  @Override
+  public void writeExternal(final ObjectOutput out) throws IOException {
+
+    out.writeShort(currentVersion);
+
+    out.writeUTF(baseClass.getName());
+
+    LongPacker.packLong(out, dictionary.size());
+
+    for (URI uri : dictionary) {
+
+      out.writeUTF(uri.stringValue());
+    }
+
+    super.writeExternal(out);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public void readExternal(final ObjectInput in) throws IOException {
+
+    final short version = in.readShort();
+
+    if (version != VERSION0)
+      throw new UnsupportedOperationException("Unknown version: " + version);
+
+    final String className = in.readUTF();
+
+    try {
+
+      baseClass = (Class<? extends BaseVocabulary>) Class.forName(className);
+
+    } catch (ClassNotFoundException ex) {
+
+      throw new IOException(ex);
+    }
+
+    final int n = LongPacker.unpackInt(in);
+
+    final List<URI> tmp = new ArrayList<>(n);
+
+    for (int i = 0; i < n; i++) {
+
+      tmp.add(new URIImpl(in.readUTF()));
+    }
+
+    dictionary = Collections.unmodifiableList(tmp);
+
+    super.readExternal(in);
+  }
+
+  /*
+   * Read a dictionary file. The file contains one URI per line. Blank lines and lines starting with
+   * <code>#</code> are ignored.
+   *
+   * @param file The file.
+   * @return The URIs in the order in which they appear in the file.
+   */
+  public static List<URI> readDictionary(final File file) throws IOException {
+
+    final List<URI> uris = new ArrayList<>();
+
+    try (final BufferedReader r =
+        new BufferedReader(
+            new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+
+      String line;
+
+      while ((line = r.readLine()) != null) {
+
+        line = line.trim();
+
+        if (line.isEmpty() || line.startsWith("#")) continue;
+
+        uris.add(new URIImpl(line));
+      }
+    }
+
+    return uris;
+  }
+
+  /*
+   * Write a dictionary file.
+   *
+   * @param uris The URIs (in order of decreasing frequency).
+   * @param file The file.
+   * @see #readDictionary(File)
+   */
+  public static void writeDictionary(final Collection<URI> uris, final File file)
+      throws IOException {
+
+    try (final Writer w =
+        new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+
+      w.write("# " + DictionaryVocabulary.class.getName() + ", size=" + uris.size() + "\n");
+
+      for (URI uri : uris) {
+
+        w.write(uri.stringValue());
+
+        w.write('\n');
+      }
+    }
+  }
+}
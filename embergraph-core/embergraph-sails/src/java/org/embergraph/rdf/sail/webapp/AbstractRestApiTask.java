@@ -245,11 +245,7 @@ public abstract class AbstractRestApiTask<T> extends AbstractApiTask<T> {
 
     if (log.isInfoEnabled()) log.info("task=" + this + ", nmodified=" + nmodified);
 
-    final StringWriter stringWriter = new StringWriter();
-
-    final XMLBuilder t = new XMLBuilder(stringWriter);
-
-    t.root("data").attr("modified", nmodified).attr("milliseconds", elapsed).close();
+    final String content = getModifiedCountXml(nmodified, elapsed);
 
     resp.setStatus(HttpServletResponse.SC_OK);
 
@@ -259,7 +255,7 @@ public abstract class AbstractRestApiTask<T> extends AbstractApiTask<T> {
 
     final Writer writer = resp.getWriter();
 
-    writer.write(stringWriter.toString());
+    writer.write(content);
 
     /*
      * Note: GROUP COMMIT: This would flush the response to the client. This
@@ -269,6 +265,23 @@ public abstract class AbstractRestApiTask<T> extends AbstractApiTask<T> {
 
   }
 
+  /*
+   * Return the XML document which reports the mutation count.
+   *
+   * @param nmodified The number of modified triples/quads.
+   * @param elapsed The elapsed time for the operation.
+   */
+  static String getModifiedCountXml(final long nmodified, final long elapsed) throws IOException {
+
+    final StringWriter stringWriter = new StringWriter();
+
+    final XMLBuilder t = new XMLBuilder(stringWriter);
+
+    t.root("data").attr("modified", nmodified).attr("milliseconds", elapsed).close();
+
+    return stringWriter.toString();
+  }
+
   /*
    * Generate a response having the indicated http status code, mime type, and content.
    *
@@ -157,4 +157,17 @@ public interface ConfigParams {
 
   /** List of the services this instance is allowed to call out to. */
   String SERVICE_WHITELIST = "serviceWhitelist";
+
+  /*
+   * The maximum size in bytes of the request body of a REST API mutation (insert, delete or update
+   * with a request body) which may be combined with the other mutations queued against the same
+   * namespace into a single task (default {@value #DEFAULT_WRITE_COMBINING_MAX_BYTES}). The
+   * mutations are only combined when the database uses group commit. Write combining is disabled
+   * when this is ZERO (0).
+   *
+   * @see MutationCombiner
+   */
+  String WRITE_COMBINING_MAX_BYTES = "writeCombiningMaxBytes";
+
+  long DEFAULT_WRITE_COMBINING_MAX_BYTES = 0L;
 }
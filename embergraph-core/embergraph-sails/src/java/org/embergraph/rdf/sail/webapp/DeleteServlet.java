@@ -22,6 +22,7 @@ import java.io.InputStream;
 import java.io.PipedOutputStream;
 import java.util.Arrays;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.FutureTask;
@@ -667,8 +668,44 @@ public class DeleteServlet extends EmbergraphRDFServlet {
       }
     }
 
+    final MutationCombiner combiner = getEmbergraphRDFContext().getMutationCombiner();
+
     try {
 
+      if (!suppressTruthMaintenance
+          && combiner != null
+          && combiner.accept(req.getContentLength())) {
+
+        // Combine with the other mutations queued for the same namespace.
+        final long begin = System.currentTimeMillis();
+
+        final String namespace = getNamespace(req);
+
+        final List<Statement> stmts =
+            combiner.parse(namespace, rdfParserFactory, req.getInputStream(), baseURI);
+
+        final long nmodified =
+            combiner.apply(
+                new MutationCombiner.MutationTask(
+                    req,
+                    resp,
+                    namespace,
+                    stmts,
+                    defaultContext,
+                    null /* add */,
+                    null /* addContext */));
+
+        final long elapsed = System.currentTimeMillis() - begin;
+
+        buildAndCommitResponse(
+            resp,
+            HTTP_OK,
+            MIME_APPLICATION_XML,
+            AbstractRestApiTask.getModifiedCountXml(nmodified, elapsed));
+
+        return;
+      }
+
       submitApiTask(
               new DeleteWithBodyTask(
                   req,
@@ -54,6 +54,7 @@ import org.embergraph.journal.IIndexManager;
 import org.embergraph.journal.IJournal;
 import org.embergraph.journal.ITransactionService;
 import org.embergraph.journal.ITx;
+import org.embergraph.journal.Journal;
 import org.embergraph.journal.TimestampUtility;
 import org.embergraph.rdf.changesets.IChangeLog;
 import org.embergraph.rdf.changesets.IChangeRecord;
@@ -241,6 +242,13 @@ public class EmbergraphRDFContext extends EmbergraphBaseContext {
   private final ScheduledFuture<?> m_queueStatsFuture;
   private final ThreadPoolExecutorBaseStatisticsTask m_queueSampleTask;
 
+  /*
+   * Combines the REST API mutations queued against the same namespace (optional).
+   *
+   * @see SparqlEndpointConfig#writeCombiningMaxBytes
+   */
+  private final MutationCombiner m_mutationCombiner;
+
   /*
    * The currently executing queries (does not include queries where a client has established a
    * connection but the query is not running because the {@link #queryService} is blocking).
@@ -470,6 +478,17 @@ public class EmbergraphRDFContext extends EmbergraphBaseContext {
 
       m_queueStatsFuture = null;
     }
+
+    if (config.writeCombiningMaxBytes > 0L
+        && indexManager instanceof Journal
+        && indexManager.isGroupCommit()) {
+
+      m_mutationCombiner = new MutationCombiner(this, config.writeCombiningMaxBytes);
+
+    } else {
+
+      m_mutationCombiner = null;
+    }
   }
 
   //    /*
@@ -522,6 +541,15 @@ public class EmbergraphRDFContext extends EmbergraphBaseContext {
     return m_queueSampleTask;
   }
 
+  /*
+   * The object which combines the REST API mutations queued against the same namespace -or- <code>
+   * null</code> if write combining is disabled.
+   */
+  MutationCombiner getMutationCombiner() {
+
+    return m_mutationCombiner;
+  }
+
   /*
    * Return the effective baseURI for the request. This may be set using the {@value #BASE_URI} URL
    * query parameter. If it is not set, it defaults to the request URL.
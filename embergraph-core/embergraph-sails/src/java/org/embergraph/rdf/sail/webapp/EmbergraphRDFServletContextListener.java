@@ -55,7 +55,6 @@ import org.embergraph.journal.IIndexManager;
 import org.embergraph.journal.ITransactionService;
 import org.embergraph.journal.ITx;
 import org.embergraph.journal.Journal;
-import org.embergraph.journal.WarmUpTask;
 import org.embergraph.rdf.ServiceProviderHook;
 import org.embergraph.rdf.sail.CreateKBTask;
 import org.embergraph.rdf.sail.EmbergraphSail;
@@ -358,6 +357,23 @@ public class EmbergraphRDFServletContextListener implements ServletContextListen
       if (log.isInfoEnabled()) log.info(ConfigParams.QUERY_TIMEOUT + "=" + queryTimeout);
     }
 
+    final long writeCombiningMaxBytes;
+    {
+      final String s = getInitParameter(ConfigParams.WRITE_COMBINING_MAX_BYTES);
+
+      writeCombiningMaxBytes =
+          s == null ? ConfigParams.DEFAULT_WRITE_COMBINING_MAX_BYTES : Long.valueOf(s);
+
+      if (writeCombiningMaxBytes < 0) {
+
+        throw new RuntimeException(
+            ConfigParams.WRITE_COMBINING_MAX_BYTES + " : Must be non-negative, not: " + s);
+      }
+
+      if (log.isInfoEnabled())
+        log.info(ConfigParams.WRITE_COMBINING_MAX_BYTES + "=" + writeCombiningMaxBytes);
+    }
+
     final long warmupTimeoutMillis;
     {
       final String s = getInitParameter(ConfigParams.WARMUP_TIMEOUT);
@@ -380,7 +396,8 @@ public class EmbergraphRDFServletContextListener implements ServletContextListen
             queryThreadPoolSize,
             describeEachNamedGraph,
             readOnly,
-            queryTimeout);
+            queryTimeout,
+            writeCombiningMaxBytes);
 
     rdfContext = new EmbergraphRDFContext(config, indexManager);
 
@@ -456,17 +473,10 @@ public class EmbergraphRDFServletContextListener implements ServletContextListen
               + TimeUnit.MILLISECONDS.toSeconds(warmupTimeoutMillis)
               + "s");
 
-      // Submit the warmup procedure.
+      // Submit the warmup procedure (its progress is reported by the status page).
       final Future<Map<String, BaseIndexStats>> ft =
-          indexManager
-              .getExecutorService()
-              .submit(
-                  new WarmUpTask(
-                      ((Journal) indexManager),
-                      warmupNamespaceList,
-                      timestamp,
-                      warmupThreadPoolSize,
-                      visitLeaves));
+          ((Journal) indexManager)
+              .warmUp(warmupNamespaceList, timestamp, warmupThreadPoolSize, visitLeaves);
 
       try {
         // Await the warmup procedure termination.
@@ -23,6 +23,7 @@ import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Vector;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.GZIPInputStream;
@@ -175,8 +176,42 @@ public class InsertServlet extends EmbergraphRDFServlet {
       }
     }
 
+    final MutationCombiner combiner = getEmbergraphRDFContext().getMutationCombiner();
+
     try {
 
+      if (combiner != null && combiner.accept(req.getContentLength())) {
+
+        // Combine with the other mutations queued for the same namespace.
+        final long begin = System.currentTimeMillis();
+
+        final String namespace = getNamespace(req);
+
+        final List<Statement> stmts =
+            combiner.parse(namespace, rdfParserFactory, req.getInputStream(), baseURI);
+
+        final long nmodified =
+            combiner.apply(
+                new MutationCombiner.MutationTask(
+                    req,
+                    resp,
+                    namespace,
+                    null /* remove */,
+                    null /* removeContext */,
+                    stmts,
+                    defaultContext));
+
+        final long elapsed = System.currentTimeMillis() - begin;
+
+        buildAndCommitResponse(
+            resp,
+            HTTP_OK,
+            MIME_APPLICATION_XML,
+            AbstractRestApiTask.getModifiedCountXml(nmodified, elapsed));
+
+        return;
+      }
+
       submitApiTask(
               new InsertWithBodyTask(
                   req,
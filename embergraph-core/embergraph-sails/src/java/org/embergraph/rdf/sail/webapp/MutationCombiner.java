@@ -0,0 +1,589 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.rdf.sail.webapp;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.apache.log4j.Logger;
+import org.embergraph.counters.CAT;
+import org.embergraph.counters.CounterSet;
+import org.embergraph.counters.Instrument;
+import org.embergraph.journal.ITx;
+import org.embergraph.rdf.sail.EmbergraphSail.EmbergraphSailConnection;
+import org.embergraph.rdf.sail.EmbergraphSailRepositoryConnection;
+import org.embergraph.rdf.sail.webapp.DeleteServlet.RemoveStatementHandler;
+import org.embergraph.rdf.sail.webapp.InsertServlet.AddStatementHandler;
+import org.embergraph.rdf.store.AbstractTripleStore;
+import org.embergraph.rdf.task.AbstractApiTask;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.rio.RDFParser;
+import org.openrdf.rio.RDFParserFactory;
+import org.openrdf.rio.helpers.StatementCollector;
+
+/*
+ * Combines the REST API mutations (add and remove statements) which are queued against the same
+ * namespace into a single task. With group commit, the mutation tasks for a namespace run one at a
+ * time since each task holds the lock for that namespace. Each small request would otherwise pay
+ * for its own statement buffer flush, lexicon writes and index checkpoint.
+ *
+ * <p>The statements for each request are parsed by the request thread before the mutation is
+ * queued. The first request to find no open batch for its namespace submits a task for a new batch.
+ * Other requests join that batch until the task starts to run (once it holds the lock for the
+ * namespace), at which point the batch is closed and the mutations are applied in the order in
+ * which they were queued using a single connection. The adds of successive mutations therefore
+ * share the same statement buffer, so the terms are resolved and the statements are written in
+ * sorted batches.
+ *
+ * <p>Each request still has its own outcome. If the combined task fails, then each mutation in the
+ * batch is applied again by its own task, so a bad request does not cause the others to fail. The
+ * outcome is only reported once the task is done, i.e., after the group commit.
+ *
+ * <p>Each request is registered with the {@link EmbergraphRDFContext} while it is running, so it is
+ * reported on the status page and may be cancelled like any other REST API task. Cancelling a
+ * request cancels the task which is applying its mutation. The other mutations in that batch are
+ * then applied again by their own tasks.
+ *
+ * <p>Mutations which suppress truth maintenance and requests larger than {@link
+ * ConfigParams#WRITE_COMBINING_MAX_BYTES} are not combined.
+ *
+ * @see ConfigParams#WRITE_COMBINING_MAX_BYTES
+ */
+class MutationCombiner {
+
+  private static final Logger log = Logger.getLogger(MutationCombiner.class);
+
+  private final EmbergraphRDFContext context;
+
+  /** The maximum size of a request body which will be combined. */
+  private final long maxBytes;
+
+  /** The open batch (if any) for each namespace. Guarded by <code>this</code>. */
+  private final HashMap<String, Batch> open = new HashMap<>();
+
+  /** The #of combined tasks which were run. */
+  private final CAT nbatches = new CAT();
+
+  /** The #of mutations applied by those tasks. */
+  private final CAT nmutations = new CAT();
+
+  /** The #of mutations which were applied again by their own task. */
+  private final CAT nretries = new CAT();
+
+  /*
+   * @param context The context with which the requests are registered while they are running.
+   * @param maxBytes The maximum size of a request body which will be combined.
+   */
+  MutationCombiner(final EmbergraphRDFContext context, final long maxBytes) {
+
+    if (context == null) throw new IllegalArgumentException();
+
+    if (maxBytes <= 0) throw new IllegalArgumentException();
+
+    this.context = context;
+
+    this.maxBytes = maxBytes;
+  }
+
+  /*
+   * Return <code>true</code> iff a request body of the given size may be combined.
+   *
+   * @param nbytes The size of the request body -or- <code>-1</code> if it is not known.
+   */
+  boolean accept(final long nbytes) {
+
+    return nbytes >= 0 && nbytes <= maxBytes;
+  }
+
+  /*
+   * A request to remove and then add statements. The task applies the mutation by itself. It is
+   * only run when the mutation could not be applied together with the other mutations in its batch.
+   */
+  static class MutationTask extends AbstractRestApiTask<Void> {
+
+    private final List<Statement> remove;
+    private final Resource[] removeContext;
+    private final List<Statement> add;
+    private final Resource[] addContext;
+
+    /** The #of statements modified by the mutation. */
+    private final AtomicLong nmodified = new AtomicLong();
+
+    /** The future of the task which is applying the mutation (if any). */
+    private volatile FutureTask<Void> running;
+
+    /** The future registered for the request. */
+    private final RequestFuture request = new RequestFuture(this);
+
+    /*
+     * @param req The request.
+     * @param resp The response.
+     * @param namespace The namespace of the target KB instance.
+     * @param remove The statements to be removed (optional).
+     * @param removeContext The context(s) for the removed triples without an explicit named graph
+     *     when the KB instance is operating in a quads mode.
+     * @param add The statements to be added (optional).
+     * @param addContext The context(s) for the added triples without an explicit named graph when
+     *     the KB instance is operating in a quads mode.
+     */
+    MutationTask(
+        final HttpServletRequest req,
+        final HttpServletResponse resp,
+        final String namespace,
+        final List<Statement> remove,
+        final Resource[] removeContext,
+        final List<Statement> add,
+        final Resource[] addContext) {
+      super(req, resp, namespace, ITx.UNISOLATED);
+      this.remove = remove;
+      this.removeContext = removeContext;
+      this.add = add;
+      this.addContext = addContext;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+      return false;
+    }
+
+    /** The #of statements modified by the mutation. */
+    long getModifiedCount() {
+      return nmodified.get();
+    }
+
+    private void apply(final EmbergraphSailConnection conn) throws Exception {
+
+      nmodified.set(0L);
+
+      if (remove != null) {
+
+        final RemoveStatementHandler handler =
+            new RemoveStatementHandler(conn, nmodified, removeContext);
+
+        for (Statement stmt : remove) {
+
+          handler.handleStatement(stmt);
+        }
+      }
+
+      if (add != null) {
+
+        final AddStatementHandler handler = new AddStatementHandler(conn, nmodified, addContext);
+
+        for (Statement stmt : add) {
+
+          handler.handleStatement(stmt);
+        }
+      }
+    }
+
+    @Override
+    public Void call() throws Exception {
+
+      applyAll(getConnection(), Collections.singletonList(this));
+
+      return null;
+    }
+  }
+
+  /*
+   * The future registered with the {@link EmbergraphRDFContext} for a request. The request
+   * may be applied by a combined task and then by its own task, so cancelling the request cancels
+   * whichever task is applying its mutation when it is cancelled.
+   */
+  private static class RequestFuture extends FutureTask<Void> {
+
+    private final MutationTask task;
+
+    RequestFuture(final MutationTask task) {
+      super(() -> null);
+      this.task = task;
+    }
+
+    @Override
+    public boolean cancel(final boolean mayInterruptIfRunning) {
+
+      if (!super.cancel(false /* mayInterruptIfRunning */)) {
+
+        // Already cancelled.
+        return false;
+      }
+
+      final FutureTask<Void> f = task.running;
+
+      if (f != null) {
+
+        f.cancel(mayInterruptIfRunning);
+      }
+
+      return true;
+    }
+  }
+
+  /** The mutations which will be applied by the same task. */
+  private static class Batch {
+
+    private final String namespace;
+
+    /** The mutations. Guarded by the {@link MutationCombiner}. */
+    private final List<MutationTask> mutations = new ArrayList<>();
+
+    /** Released once the task has been submitted (or could not be submitted). */
+    private final CountDownLatch submitted = new CountDownLatch(1);
+
+    private volatile FutureTask<Void> future;
+
+    private volatile Throwable cause;
+
+    Batch(final String namespace) {
+      this.namespace = namespace;
+    }
+  }
+
+  /*
+   * Parse a request body into a list of statements using the value factory of the target KB
+   * instance.
+   *
+   * @param namespace The namespace of the target KB instance.
+   * @param rdfParserFactory The factory for the {@link RDFParser}.
+   * @param is The request body.
+   * @param baseURI The base URI.
+   * @return The statements.
+   * @throws DatasetNotFoundException if the namespace does not exist.
+   */
+  List<Statement> parse(
+      final String namespace,
+      final RDFParserFactory rdfParserFactory,
+      final InputStream is,
+      final String baseURI)
+      throws Exception {
+
+    final AbstractTripleStore tripleStore = context.getTripleStore(namespace, ITx.READ_COMMITTED);
+
+    if (tripleStore == null) {
+
+      throw new DatasetNotFoundException("Not found: namespace=" + namespace);
+    }
+
+    final RDFParser rdfParser = rdfParserFactory.getParser();
+
+    rdfParser.setValueFactory(tripleStore.getValueFactory());
+
+    rdfParser.setVerifyData(true);
+
+    rdfParser.setStopAtFirstError(true);
+
+    rdfParser.setDatatypeHandling(RDFParser.DatatypeHandling.IGNORE);
+
+    final List<Statement> stmts = new ArrayList<>();
+
+    rdfParser.setRDFHandler(new StatementCollector(stmts));
+
+    rdfParser.parse(is, baseURI);
+
+    return stmts;
+  }
+
+  /*
+   * Apply a mutation, combining it with any other mutations queued for the same namespace. This
+   * blocks until the task which applies the mutation is done. The request is registered with the
+   * {@link EmbergraphRDFContext} until then.
+   *
+   * @param m The mutation.
+   * @return The #of statements modified by the mutation.
+   */
+  long apply(final MutationTask m) throws Exception {
+
+    if (m == null) throw new IllegalArgumentException();
+
+    final String namespace = m.getNamespace();
+
+    final Batch batch;
+    final boolean submit;
+    synchronized (this) {
+      final Batch tmp = open.get(namespace);
+
+      if (tmp == null) {
+        batch = new Batch(namespace);
+        open.put(namespace, batch);
+        submit = true;
+      } else {
+        batch = tmp;
+        submit = false;
+      }
+
+      batch.mutations.add(m);
+    }
+
+    context.addTask(m, m.request);
+
+    try {
+
+      run(batch, submit, m);
+
+    } finally {
+
+      context.removeTask(m.uuid);
+    }
+
+    return m.getModifiedCount();
+  }
+
+  /*
+   * Submit the task for the batch (or wait until it was submitted) and await the outcome of the
+   * mutation.
+   *
+   * @param batch The batch which the mutation joined.
+   * @param submit <code>true</code> iff the caller must submit the task for the batch.
+   * @param m The mutation.
+   */
+  private void run(final Batch batch, final boolean submit, final MutationTask m)
+      throws Exception {
+
+    if (submit) {
+      try {
+        batch.future =
+            AbstractApiTask.submitApiTask(context.getIndexManager(), new CombinedTask(batch));
+      } catch (Throwable t) {
+        batch.cause = t;
+        close(batch);
+      } finally {
+        batch.submitted.countDown();
+      }
+    } else {
+      batch.submitted.await();
+    }
+
+    if (batch.cause != null) throw new ExecutionException(batch.cause);
+
+    try {
+
+      await(m, batch.future);
+
+    } catch (ExecutionException | CancellationException ex) {
+
+      /*
+       * Note: The task may have failed before it could close the batch
+       * (e.g., if it could not be started).
+       */
+      close(batch);
+
+      if (m.request.isCancelled()) {
+        // This request was cancelled.
+        throw new CancellationException();
+      }
+
+      final int size;
+      synchronized (this) {
+        size = batch.mutations.size();
+      }
+
+      if (size == 1) {
+        // Nothing else was combined with this mutation.
+        throw ex;
+      }
+
+      if (log.isInfoEnabled())
+        log.info("Retrying mutation alone: namespace=" + batch.namespace, ex);
+
+      nretries.increment();
+
+      await(m, AbstractApiTask.submitApiTask(context.getIndexManager(), m));
+    }
+  }
+
+  /*
+   * Await the task which is applying the mutation.
+   *
+   * @param m The mutation.
+   * @param future The future of that task.
+   */
+  private static void await(final MutationTask m, final FutureTask<Void> future)
+      throws InterruptedException, ExecutionException {
+
+    m.running = future;
+
+    if (m.request.isCancelled()) {
+      // The request was cancelled before the task could be tracked.
+      future.cancel(true /* mayInterruptIfRunning */);
+    }
+
+    try {
+
+      future.get();
+
+    } finally {
+
+      m.running = null;
+    }
+  }
+
+  /*
+   * Close a batch so no more mutations are added to it.
+   *
+   * @return The mutations in the batch.
+   */
+  private List<MutationTask> close(final Batch batch) {
+
+    synchronized (this) {
+      if (open.get(batch.namespace) == batch) open.remove(batch.namespace);
+
+      return Collections.unmodifiableList(new ArrayList<>(batch.mutations));
+    }
+  }
+
+  /*
+   * Apply mutations using a single connection and commit.
+   *
+   * @param repoConn The connection of the task which holds the lock for the namespace.
+   * @param mutations The mutations.
+   */
+  private static void applyAll(
+      final EmbergraphSailRepositoryConnection repoConn, final List<MutationTask> mutations)
+      throws Exception {
+
+    EmbergraphSailConnection conn = null;
+    boolean success = false;
+    try {
+
+      conn = repoConn.getSailConnection();
+
+      for (MutationTask m : mutations) {
+
+        if (m.request.isCancelled()) {
+          // Do not apply a mutation if its request was cancelled.
+          continue;
+        }
+
+        m.apply(conn);
+      }
+
+      // Commit the mutations.
+      conn.commit();
+
+      success = true;
+
+    } finally {
+
+      if (conn != null) {
+
+        if (!success) conn.rollback();
+
+        conn.close();
+      }
+
+      repoConn.close();
+    }
+  }
+
+  /*
+   * Return the performance counters for the combined tasks.
+   *
+   * <dl>
+   *   <dt>batchCount
+   *   <dd>The #of combined tasks which were run.
+   *   <dt>mutationCount
+   *   <dd>The #of mutations applied by the combined tasks.
+   *   <dt>retryCount
+   *   <dd>The #of mutations which were applied again by their own task.
+   * </dl>
+   */
+  CounterSet getCounters() {
+
+    final CounterSet counters = new CounterSet();
+
+    counters.addCounter(
+        "batchCount",
+        new Instrument<Long>() {
+          @Override
+          public void sample() {
+            setValue(nbatches.get());
+          }
+        });
+
+    counters.addCounter(
+        "mutationCount",
+        new Instrument<Long>() {
+          @Override
+          public void sample() {
+            setValue(nmutations.get());
+          }
+        });
+
+    counters.addCounter(
+        "retryCount",
+        new Instrument<Long>() {
+          @Override
+          public void sample() {
+            setValue(nretries.get());
+          }
+        });
+
+    return counters;
+  }
+
+  /** Applies the mutations of a batch using a single connection. */
+  private class CombinedTask extends AbstractApiTask<Void> {
+
+    private final Batch batch;
+
+    CombinedTask(final Batch batch) {
+      super(batch.namespace, ITx.UNISOLATED);
+      this.batch = batch;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+      return false;
+    }
+
+    @Override
+    public Void call() throws Exception {
+
+      // Note: The task now holds the lock for the namespace.
+      final List<MutationTask> mutations = close(batch);
+
+      applyAll(getConnection(), mutations);
+
+      nbatches.increment();
+
+      nmutations.add(mutations.size());
+
+      if (log.isInfoEnabled())
+        log.info("namespace=" + batch.namespace + ", nmutations=" + mutations.size());
+
+      return null;
+    }
+
+    @Override
+    public String toString() {
+
+      return getClass().getSimpleName() + "{namespace=" + batch.namespace + "}";
+    }
+  }
+}
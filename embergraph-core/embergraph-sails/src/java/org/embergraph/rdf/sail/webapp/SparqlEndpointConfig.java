@@ -75,6 +75,14 @@ public class SparqlEndpointConfig {
    */
   public final long queryTimeout;
 
+  /*
+   * The maximum size of the request body of a REST API mutation which may be combined with other
+   * mutations queued against the same namespace -or- ZERO (0) if write combining is disabled.
+   *
+   * @see ConfigParams#WRITE_COMBINING_MAX_BYTES
+   */
+  public final long writeCombiningMaxBytes;
+
   public SparqlEndpointConfig(
       final String namespace,
       final long timestamp,
@@ -83,10 +91,31 @@ public class SparqlEndpointConfig {
       final boolean readOnly,
       final long queryTimeout) {
 
+    this(
+        namespace,
+        timestamp,
+        queryThreadPoolSize,
+        describeEachNamedGraph,
+        readOnly,
+        queryTimeout,
+        ConfigParams.DEFAULT_WRITE_COMBINING_MAX_BYTES);
+  }
+
+  public SparqlEndpointConfig(
+      final String namespace,
+      final long timestamp,
+      final int queryThreadPoolSize,
+      final boolean describeEachNamedGraph,
+      final boolean readOnly,
+      final long queryTimeout,
+      final long writeCombiningMaxBytes) {
+
     if (namespace == null) throw new IllegalArgumentException();
 
     if (queryTimeout < 0L) throw new IllegalArgumentException();
 
+    if (writeCombiningMaxBytes < 0L) throw new IllegalArgumentException();
+
     this.namespace = namespace;
 
     this.timestamp = timestamp;
@@ -98,5 +127,7 @@ public class SparqlEndpointConfig {
     this.readOnly = readOnly;
 
     this.queryTimeout = queryTimeout;
+
+    this.writeCombiningMaxBytes = writeCombiningMaxBytes;
   }
 }
@@ -53,12 +53,14 @@ import org.embergraph.bop.engine.QueryEngine;
 import org.embergraph.bop.engine.QueryLog;
 import org.embergraph.bop.fed.QueryEngineFactory;
 import org.embergraph.counters.CounterSet;
+import org.embergraph.counters.ICounter;
 import org.embergraph.ha.HAGlue;
 import org.embergraph.ha.QuorumService;
 import org.embergraph.journal.AbstractJournal;
 import org.embergraph.journal.DumpJournal;
 import org.embergraph.journal.IIndexManager;
 import org.embergraph.journal.Journal;
+import org.embergraph.journal.WarmUpTask;
 import org.embergraph.quorum.Quorum;
 import org.embergraph.rdf.sail.QueryCancellationHelper;
 import org.embergraph.rdf.sail.model.JsonHelper;
@@ -197,6 +199,15 @@ public class StatusServlet extends EmbergraphRDFServlet {
   /** Request information on the mapgraph-runtime. */
   static final String MAPGRAPH = "mapgraph";
 
+  /*
+   * Request the progress of the most recent warm up of the journal. This option is exclusive of
+   * other parameters. The response is a plain text document with one <code>name=value</code> line
+   * for each of the counters reported by {@link WarmUpTask#getCounters()}, e.g., <code>done</code>
+   * and <code>percentComplete</code>. The response is 404 (Not Found) if the journal has not been
+   * warmed up.
+   */
+  static final String WARM_UP = "warmUp";
+
   /** Handles CANCEL requests (terminate a running query). */
   @Override
   protected void doPost(final HttpServletRequest req, final HttpServletResponse resp)
@@ -416,6 +427,13 @@ public class StatusServlet extends EmbergraphRDFServlet {
       return;
     }
 
+    if (req.getParameter(WARM_UP) != null) {
+
+      doWarmUpStatus(resp);
+
+      return;
+    }
+
     if (req.getParameter(MAPGRAPH) != null) {
 
       final IServletDelegate delegate =
@@ -765,6 +783,14 @@ public class StatusServlet extends EmbergraphRDFServlet {
               .attach(getEmbergraphRDFContext().getSampleTask().getCounters());
         }
 
+        final MutationCombiner combiner = getEmbergraphRDFContext().getMutationCombiner();
+
+        if (combiner != null) {
+
+          // Performance counters for the combined REST API mutations.
+          counterSet.makePath("writeCombining").attach(combiner.getCounters());
+        }
+
         // @SuppressWarnings("rawtypes")
         // final Iterator<ICounter> itr = counterSet
         // .getCounters(null/* filter */);
@@ -1446,6 +1472,43 @@ public class StatusServlet extends EmbergraphRDFServlet {
    * @see <a href="http://trac.blazegraph.com/ticket/1082" > Add ability to dump threads to status
    *     page </a>
    */
+  /*
+   * Report the progress of the most recent warm up of the journal.
+   *
+   * @see #WARM_UP
+   */
+  private void doWarmUpStatus(final HttpServletResponse resp) throws IOException {
+
+    final IIndexManager indexManager = getIndexManager();
+
+    final WarmUpTask task =
+        indexManager instanceof Journal ? ((Journal) indexManager).getWarmUpTask() : null;
+
+    if (task == null) {
+
+      buildAndCommitResponse(resp, HTTP_NOTFOUND, MIME_TEXT_PLAIN, "No warm up");
+
+      return;
+    }
+
+    final StringBuilder sb = new StringBuilder();
+
+    @SuppressWarnings("rawtypes")
+    final Iterator<ICounter> itr = task.getCounters().getCounters(null /* filter */);
+
+    while (itr.hasNext()) {
+
+      final ICounter<?> counter = itr.next();
+
+      sb.append(counter.getName())
+          .append('=')
+          .append(counter.getInstrument().getValue())
+          .append('\n');
+    }
+
+    buildAndCommitResponse(resp, HTTP_OK, MIME_TEXT_PLAIN, sb.toString());
+  }
+
   private static void doThreadDump(final HttpServletRequest req, final HttpServletResponse resp)
       throws IOException {
 
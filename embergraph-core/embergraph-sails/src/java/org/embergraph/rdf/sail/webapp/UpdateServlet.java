@@ -43,6 +43,7 @@ import org.embergraph.rdf.sail.webapp.InsertServlet.AddStatementHandler;
 import org.embergraph.rdf.sail.webapp.client.MiniMime;
 import org.embergraph.rdf.sparql.ast.ASTContainer;
 import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
 import org.openrdf.model.Value;
 import org.openrdf.query.MalformedQueryException;
 import org.openrdf.rio.RDFFormat;
@@ -856,8 +857,40 @@ public class UpdateServlet extends EmbergraphRDFServlet {
 
     final String namespace = getNamespace(req);
 
+    final MutationCombiner combiner = getEmbergraphRDFContext().getMutationCombiner();
+
     try {
 
+      if (!suppressTruthMaintenance
+          && combiner != null
+          && combiner.accept(
+              (remove == null ? 0L : remove.getSize()) + (add == null ? 0L : add.getSize()))) {
+
+        // Combine with the other mutations queued for the same namespace.
+        final long begin = System.currentTimeMillis();
+
+        final long nmodified =
+            combiner.apply(
+                new MutationCombiner.MutationTask(
+                    req,
+                    resp,
+                    namespace,
+                    parseItem(combiner, namespace, remove, baseURI),
+                    defaultContextDelete,
+                    parseItem(combiner, namespace, add, baseURI),
+                    defaultContextInsert));
+
+        final long elapsed = System.currentTimeMillis() - begin;
+
+        buildAndCommitResponse(
+            resp,
+            HTTP_OK,
+            MIME_APPLICATION_XML,
+            AbstractRestApiTask.getModifiedCountXml(nmodified, elapsed));
+
+        return;
+      }
+
       submitApiTask(
               new UpdateWithBodyTask(
                   req,
@@ -1053,6 +1086,36 @@ public class UpdateServlet extends EmbergraphRDFServlet {
     }
   } // class UpdateWithBodyTask
 
+  /*
+   * Parse the statements in a (validated) part of the request.
+   *
+   * @param combiner The object which will combine the mutation.
+   * @param namespace The namespace of the target KB instance.
+   * @param item The part (optional).
+   * @param baseURI The base URI.
+   * @return The statements -or- <code>null</code> if the part was not given.
+   */
+  private static List<Statement> parseItem(
+      final MutationCombiner combiner,
+      final String namespace,
+      final FileItem item,
+      final String baseURI)
+      throws Exception {
+
+    if (item == null) return null;
+
+    final RDFFormat format =
+        RDFFormat.forMIMEType(new MiniMime(item.getContentType()).getMimeType());
+
+    final InputStream is = item.getInputStream();
+
+    try {
+      return combiner.parse(namespace, RDFParserRegistry.getInstance().get(format), is, baseURI);
+    } finally {
+      is.close();
+    }
+  }
+
   private boolean validateItem(final HttpServletResponse resp, final FileItem item)
       throws IOException {
 
@@ -0,0 +1,11 @@
+package org.embergraph;
+                  public class BuildInfo {
+                  public static final String buildVersion="2.1.5-SNAPSHOT";
+                  public static final String gitBranch = "refs/heads/master";
+                  public static final String gitCommit = "4774ea2b2a381d6e17c46bbda11101b6e41d058b";
+                  public static final String buildTimestamp="2026-10-17T11:06:45Z";
+                  public static final String buildUser="root";
+                  public static final String osArch="amd64";
+                  public static final String osName="Linux";
+                  public static final String osVersion="6.18.44-fc-v139";
+                  }
\ No newline at end of file
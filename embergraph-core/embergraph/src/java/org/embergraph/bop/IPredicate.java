@@ -285,6 +285,21 @@ public interface IPredicate<E> extends BOp, Cloneable, Serializable {
 
     /** Deault is to not cut off the join. */
     long DEFAULT_CUTOFF_LIMIT = Long.MAX_VALUE;
+
+    /*
+     * An optional {@link INamedSolutionSetRef}[] identifying hash indices which may have published
+     * {@link SIPFilter}s (sideways information passing). When a {@link PipelineJoin} finds a filter
+     * published for a variable of this predicate, the filter is imposed on the access paths so
+     * tuples which can not join with that hash index are dropped before they are materialized or
+     * buffered.
+     *
+     * <p>Note: This MUST only be specified when every solution produced by the join must also join
+     * with each of those hash indices (e.g., required joins in the same group).
+     *
+     * @see SIPFilter
+     * @see HashJoinAnnotations#SIP_VARS
+     */
+    String SIP_FILTERS = IPredicate.class.getName() + ".sipFilters";
   }
 
   /*
@@ -46,6 +46,7 @@ import org.embergraph.bop.join.HTreeHashJoinAnnotations;
 import org.embergraph.bop.join.HTreeHashJoinUtility;
 import org.embergraph.bop.join.JoinTypeEnum;
 import org.embergraph.bop.join.NamedSolutionSetStats;
+import org.embergraph.bop.join.SIPFilter;
 import org.embergraph.relation.accesspath.IBlockingBuffer;
 
 /*
@@ -158,6 +159,12 @@ public class HTreeNamedSubqueryOp extends PipelineOp
     /** Metadata to identify the named solution set. */
     private final INamedSolutionSetRef namedSetRef;
 
+    /*
+     * The variables for which {@link SIPFilter}s are published once the solution set has been
+     * built (optional).
+     */
+    private final IVariable<?>[] sipVars;
+
     /*
      * The {@link IQueryAttributes} for the {@link IRunningQuery} off which we will hang the named
      * solution set.
@@ -186,6 +193,8 @@ public class HTreeNamedSubqueryOp extends PipelineOp
 
       this.namedSetRef = (INamedSolutionSetRef) op.getRequiredProperty(Annotations.NAMED_SET_REF);
 
+      this.sipVars = (IVariable<?>[]) op.getProperty(Annotations.SIP_VARS);
+
       {
 
         /*
@@ -338,6 +347,12 @@ public class HTreeNamedSubqueryOp extends PipelineOp
             // Checkpoint the solution set.
             state.saveSolutionSet();
 
+            if (sipVars != null && sipVars.length > 0) {
+
+              // Publish the filters for sideways information passing.
+              SIPFilter.publish(attrs, namedSetRef, state, sipVars);
+            }
+
             if (log.isInfoEnabled())
               log.info("Solution set " + namedSetRef + " has " + ncopied + " solutions.");
 
@@ -46,6 +46,7 @@ import org.embergraph.bop.join.JVMHashJoinAnnotations;
 import org.embergraph.bop.join.JVMHashJoinUtility;
 import org.embergraph.bop.join.JoinTypeEnum;
 import org.embergraph.bop.join.NamedSolutionSetStats;
+import org.embergraph.bop.join.SIPFilter;
 import org.embergraph.relation.accesspath.IBlockingBuffer;
 
 /*
@@ -144,6 +145,12 @@ public class JVMNamedSubqueryOp extends PipelineOp implements INamedSubqueryOp,
     /** Metadata to identify the named solution set. */
     private final INamedSolutionSetRef namedSetRef;
 
+    /*
+     * The variables for which {@link SIPFilter}s are published once the solution set has been
+     * built (optional).
+     */
+    private final IVariable<?>[] sipVars;
+
     /*
      * The {@link IQueryAttributes} for the {@link IRunningQuery} off which we will hang the named
      * solution set.
@@ -172,6 +179,8 @@ public class JVMNamedSubqueryOp extends PipelineOp implements INamedSubqueryOp,
 
       this.namedSetRef = (INamedSolutionSetRef) op.getRequiredProperty(Annotations.NAMED_SET_REF);
 
+      this.sipVars = (IVariable<?>[]) op.getProperty(Annotations.SIP_VARS);
+
       {
 
         /*
@@ -319,6 +328,12 @@ public class JVMNamedSubqueryOp extends PipelineOp implements INamedSubqueryOp,
             // Report the #of solutions in the named solution set.
             stats.solutionSetSize.add(ncopied);
 
+            if (sipVars != null && sipVars.length > 0) {
+
+              // Publish the filters for sideways information passing.
+              SIPFilter.publish(attrs, namedSetRef, state, sipVars);
+            }
+
             //                        // Publish the solution set on the query context.
             //                        saveSolutionSet();
 
@@ -0,0 +1,593 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.bop.engine;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+import org.embergraph.counters.CAT;
+import org.embergraph.counters.CounterSet;
+import org.embergraph.counters.ICounterSetAccess;
+import org.embergraph.counters.Instrument;
+
+/*
+ * Weighted fair scheduler for the operator evaluation tasks (chunk tasks) of the queries running on
+ * a {@link QueryEngine}. Without this scheduler, each chunk task is handed directly to the
+ * executor service of the local index manager, so a query with a large backlog of chunks will
+ * occupy as many threads as it has runnable operators and cheap queries have to compete with it
+ * for the CPU.
+ *
+ * <p>The scheduler bounds the #of chunk tasks which are running at any given moment and maintains a
+ * FIFO queue of pending tasks for each query. When a slot becomes available, the next task is taken
+ * from the query having the least virtual time (stride scheduling). Each time a task is dispatched
+ * for a query, the virtual time of that query is advanced by an amount which is inversely
+ * proportional to its {@link QueryEngine.Annotations#PRIORITY}, so the queries share the slots in
+ * proportion to their priorities regardless of how many chunks each one has buffered. A query
+ * which becomes runnable again is not credited for the time during which it was idle.
+ *
+ * <p>In order to guarantee progress (and to avoid deadlocks for queries which wait on subqueries),
+ * a query which does not have any running task may always dispatch a task, even if the limit on
+ * the #of running tasks has been reached. A task which must block until another task of the same
+ * query has consumed its output (for example, when the input queue of a pipelined operator is
+ * full) brackets the blocking operation with {@link #beginBlocking()} and {@link #endBlocking()}
+ * so its slot may be used by another task while it is blocked.
+ *
+ * <p>Note: The tasks are executed by the {@link Executor} specified to the constructor. The
+ * scheduler does not use a fork/join pool since chunk tasks may block on IO, on full operator
+ * input queues, and on the evaluation of subqueries, none of which would be compensated by a fork
+ * / join pool.
+ *
+ * @see QueryEngine.Options#SCHEDULER_PARALLELISM
+ * @see QueryEngine.Annotations#PRIORITY
+ */
+public class ChunkTaskScheduler implements ICounterSetAccess {
+
+  /** The amount by which the virtual time of a query having a priority of ONE (1) is advanced. */
+  private static final long STRIDE = 1L << 20;
+
+  /** The pending and running tasks for a query. */
+  private static class QueryQueue {
+
+    private final UUID queryId;
+
+    private final int priority;
+
+    /** The pending tasks. */
+    private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+    /** The virtual time of the query. */
+    private long pass;
+
+    /** The #of running tasks (excluding those which are blocked). */
+    private int running;
+
+    /** The #of running tasks which are blocked. */
+    private int blocked;
+
+    QueryQueue(final UUID queryId, final int priority, final long pass) {
+      this.queryId = queryId;
+      this.priority = priority;
+      this.pass = pass;
+    }
+
+    boolean isIdle() {
+      return tasks.isEmpty() && running == 0 && blocked == 0;
+    }
+
+    public String toString() {
+      return "QueryQueue{queryId="
+          + queryId
+          + ",priority="
+          + priority
+          + ",pass="
+          + pass
+          + ",running="
+          + running
+          + ",blocked="
+          + blocked
+          + ",pending="
+          + tasks.size()
+          + "}";
+    }
+  }
+
+  /** The service on which the tasks will be executed. */
+  private final Executor executor;
+
+  /** The maximum #of running tasks (other than as required to guarantee progress). */
+  private final int parallelism;
+
+  /** Guards the internal state of the scheduler. */
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /*
+   * The queue for each query having pending or running tasks.
+   *
+   * <p>The map is guarded by the {@link #lock}.
+   */
+  private final Map<UUID, QueryQueue> queues = new HashMap<>();
+
+  /*
+   * The queries having pending tasks, ordered by their virtual time.
+   *
+   * <p>The queue is guarded by the {@link #lock}.
+   */
+  private final PriorityQueue<QueryQueue> ready =
+      new PriorityQueue<>(16, (q1, q2) -> Long.compare(q1.pass, q2.pass));
+
+  /*
+   * The #of running tasks (excluding those which are blocked).
+   *
+   * <p>The field is guarded by the {@link #lock}.
+   */
+  private int running;
+
+  /*
+   * The virtual time of the most recently dispatched task.
+   *
+   * <p>The field is guarded by the {@link #lock}.
+   */
+  private long virtualTime;
+
+  /** The queue for the task running in the current thread (if any). */
+  private final ThreadLocal<QueryQueue> current = new ThreadLocal<>();
+
+  /** The #of tasks which have been dispatched. */
+  private final CAT dispatchCount = new CAT();
+
+  /*
+   * The #of tasks which were dispatched even though the limit on the #of running tasks had been
+   * reached in order to guarantee progress for a query.
+   */
+  private final CAT overflowCount = new CAT();
+
+  /** The #of times that a running task has blocked. */
+  private final CAT blockedCount = new CAT();
+
+  /*
+   * @param executor The service on which the tasks will be executed.
+   * @param parallelism The maximum #of running tasks (other than as required to guarantee
+   *     progress).
+   */
+  public ChunkTaskScheduler(final Executor executor, final int parallelism) {
+
+    if (executor == null) throw new IllegalArgumentException();
+
+    if (parallelism <= 0) throw new IllegalArgumentException();
+
+    this.executor = executor;
+
+    this.parallelism = parallelism;
+  }
+
+  /** The maximum #of running tasks (other than as required to guarantee progress). */
+  public int getParallelism() {
+
+    return parallelism;
+  }
+
+  /*
+   * Schedule a task for a query.
+   *
+   * @param queryId The query.
+   * @param priority The priority of the query (positive). The queries share the running slots in
+   *     proportion to their priorities.
+   * @param task The task.
+   */
+  public void execute(final UUID queryId, final int priority, final Runnable task) {
+
+    if (queryId == null) throw new IllegalArgumentException();
+
+    if (priority <= 0) throw new IllegalArgumentException();
+
+    if (task == null) throw new IllegalArgumentException();
+
+    final List<Runnable> dispatched;
+
+    lock.lock();
+
+    try {
+
+      QueryQueue q = queues.get(queryId);
+
+      if (q == null) {
+
+        queues.put(queryId, q = new QueryQueue(queryId, priority, virtualTime));
+
+      } else if (q.tasks.isEmpty() && q.running == 0) {
+
+        // Do not credit the query for the time during which it was idle.
+        q.pass = Math.max(q.pass, virtualTime);
+      }
+
+      if (q.tasks.isEmpty()) {
+
+        q.tasks.add(task);
+
+        ready.add(q);
+
+      } else {
+
+        q.tasks.add(task);
+      }
+
+      dispatched = dispatch();
+
+    } finally {
+
+      lock.unlock();
+    }
+
+    submit(dispatched);
+  }
+
+  /*
+   * Notify the scheduler that the task running in the current thread is about to block until
+   * another task of the same query has made progress. The slot for the blocked task may be used by
+   * another task until {@link #endBlocking()}. This is a NOP if the current thread is not running a
+   * task dispatched by this scheduler.
+   */
+  public void beginBlocking() {
+
+    final QueryQueue q = current.get();
+
+    if (q == null) return;
+
+    final List<Runnable> dispatched;
+
+    lock.lock();
+
+    try {
+
+      q.running--;
+
+      q.blocked++;
+
+      running--;
+
+      blockedCount.increment();
+
+      dispatched = dispatch();
+
+    } finally {
+
+      lock.unlock();
+    }
+
+    submit(dispatched);
+  }
+
+  /*
+   * Notify the scheduler that the task running in the current thread is no longer blocked.
+   *
+   * @see #beginBlocking()
+   */
+  public void endBlocking() {
+
+    final QueryQueue q = current.get();
+
+    if (q == null) return;
+
+    lock.lock();
+
+    try {
+
+      q.blocked--;
+
+      q.running++;
+
+      running++;
+
+    } finally {
+
+      lock.unlock();
+    }
+  }
+
+  /*
+   * Dispatch pending tasks while there are available slots and also dispatch a task for each
+   * query which has pending tasks but no running tasks.
+   *
+   * <p>Note: The caller MUST hold the {@link #lock} and MUST {@link #submit(List)} the returned
+   * tasks once it has released the lock.
+   *
+   * @return The dispatched tasks.
+   */
+  private List<Runnable> dispatch() {
+
+    List<Runnable> dispatched = null;
+
+    while (!ready.isEmpty()) {
+
+      final QueryQueue q;
+
+      if (running < parallelism) {
+
+        q = ready.poll();
+
+      } else {
+
+        // Only a query without any running task may exceed the limit.
+        q = nextStarved();
+
+        if (q == null) break;
+
+        ready.remove(q);
+
+        overflowCount.increment();
+      }
+
+      final Runnable task = q.tasks.poll();
+
+      q.running++;
+
+      running++;
+
+      virtualTime = Math.max(virtualTime, q.pass);
+
+      q.pass += STRIDE / q.priority;
+
+      if (!q.tasks.isEmpty()) ready.add(q);
+
+      if (dispatched == null) dispatched = new LinkedList<>();
+
+      dispatched.add(new DispatchedTask(q, task));
+
+      dispatchCount.increment();
+    }
+
+    return dispatched;
+  }
+
+  /*
+   * Return the ready query with the least virtual time which does not have any running task.
+   *
+   * @return The query -or- <code>null</code> if there is no such query.
+   */
+  private QueryQueue nextStarved() {
+
+    QueryQueue best = null;
+
+    for (QueryQueue q : ready) {
+
+      if (q.running != 0) continue;
+
+      if (best == null || q.pass < best.pass) best = q;
+    }
+
+    return best;
+  }
+
+  /*
+   * Submit the dispatched tasks for execution (the caller MUST NOT hold the {@link #lock}). If the
+   * executor rejects a task, then its slot is released and the first such exception is rethrown
+   * once the remaining tasks have been submitted.
+   */
+  private void submit(final List<Runnable> dispatched) {
+
+    if (dispatched == null) return;
+
+    RuntimeException cause = null;
+
+    for (Runnable r : dispatched) {
+
+      try {
+
+        executor.execute(r);
+
+      } catch (RuntimeException ex) {
+
+        done(((DispatchedTask) r).q);
+
+        if (cause == null) cause = ex;
+      }
+    }
+
+    if (cause != null) throw cause;
+  }
+
+  /*
+   * Invoked when a task is done.
+   *
+   * @param q The queue for the query.
+   */
+  private void done(final QueryQueue q) {
+
+    final List<Runnable> dispatched;
+
+    lock.lock();
+
+    try {
+
+      q.running--;
+
+      running--;
+
+      if (q.isIdle()) {
+
+        queues.remove(q.queryId);
+      }
+
+      dispatched = dispatch();
+
+    } finally {
+
+      lock.unlock();
+    }
+
+    submit(dispatched);
+  }
+
+  /** Wraps a dispatched task in order to release its slot when it is done. */
+  private class DispatchedTask implements Runnable {
+
+    private final QueryQueue q;
+
+    private final Runnable task;
+
+    DispatchedTask(final QueryQueue q, final Runnable task) {
+      this.q = q;
+      this.task = task;
+    }
+
+    @Override
+    public void run() {
+
+      current.set(q);
+
+      try {
+
+        task.run();
+
+      } finally {
+
+        current.remove();
+
+        done(q);
+      }
+    }
+  }
+
+  /** The #of running tasks (excluding those which are blocked). */
+  public int getRunningCount() {
+
+    lock.lock();
+
+    try {
+
+      return running;
+
+    } finally {
+
+      lock.unlock();
+    }
+  }
+
+  /** The #of pending tasks. */
+  public int getPendingCount() {
+
+    lock.lock();
+
+    try {
+
+      int n = 0;
+
+      for (QueryQueue q : queues.values()) {
+
+        n += q.tasks.size();
+      }
+
+      return n;
+
+    } finally {
+
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public CounterSet getCounters() {
+
+    final CounterSet root = new CounterSet();
+
+    root.addCounter(
+        "parallelism",
+        new Instrument<Integer>() {
+          @Override
+          public void sample() {
+            setValue(parallelism);
+          }
+        });
+
+    root.addCounter(
+        "runningCount",
+        new Instrument<Integer>() {
+          @Override
+          public void sample() {
+            setValue(getRunningCount());
+          }
+        });
+
+    root.addCounter(
+        "pendingCount",
+        new Instrument<Integer>() {
+          @Override
+          public void sample() {
+            setValue(getPendingCount());
+          }
+        });
+
+    root.addCounter(
+        "dispatchCount",
+        new Instrument<Long>() {
+          @Override
+          public void sample() {
+            setValue(dispatchCount.get());
+          }
+        });
+
+    root.addCounter(
+        "overflowCount",
+        new Instrument<Long>() {
+          @Override
+          public void sample() {
+            setValue(overflowCount.get());
+          }
+        });
+
+    root.addCounter(
+        "blockedCount",
+        new Instrument<Long>() {
+          @Override
+          public void sample() {
+            setValue(blockedCount.get());
+          }
+        });
+
+    return root;
+  }
+
+  public String toString() {
+
+    lock.lock();
+
+    try {
+
+      return getClass().getSimpleName()
+          + "{parallelism="
+          + parallelism
+          + ",running="
+          + running
+          + ",virtualTime="
+          + virtualTime
+          + ",queues="
+          + queues.values()
+          + "}";
+
+    } finally {
+
+      lock.unlock();
+    }
+  }
+}
@@ -88,6 +88,13 @@ public class ChunkedRunningQuery extends AbstractRunningQuery {
    */
   private final IChunkHandler chunkHandler;
 
+  /*
+   * The priority of the query, which is used by the {@link ChunkTaskScheduler} (if enabled).
+   *
+   * @see QueryEngine.Annotations#PRIORITY
+   */
+  private final int priority;
+
   /*
    * A collection of (bopId,partitionId) keys mapped onto a collection of operator task evaluation
    * contexts for currently executing operators for this query.
@@ -193,6 +200,13 @@ public class ChunkedRunningQuery extends AbstractRunningQuery {
 
     this.chunkHandler = getChunkHandler(queryEngine, query);
 
+    this.priority =
+        query.getProperty(
+            QueryEngine.Annotations.PRIORITY, QueryEngine.Annotations.DEFAULT_PRIORITY);
+
+    if (priority <= 0)
+      throw new IllegalArgumentException(QueryEngine.Annotations.PRIORITY + "=" + priority);
+
     this.operatorFutures =
         new ConcurrentHashMap<>();
 
@@ -287,6 +301,8 @@ public class ChunkedRunningQuery extends AbstractRunningQuery {
         // Offer failed.  Work queue will block.
         getQueryEngine().counters.blockedWorkQueueCount.increment();
         getQueryEngine().counters.blockedWorkQueueRunningTotal.increment();
+        // Release the scheduler slot (if any) while blocked.
+        getQueryEngine().beginBlocking();
         try {
           // blocking put()
           queue.put(msg);
@@ -299,6 +315,7 @@ public class ChunkedRunningQuery extends AbstractRunningQuery {
           }
         } finally {
           // Queue unblocked
+          getQueryEngine().endBlocking();
           getQueryEngine().counters.blockedWorkQueueCount.decrement();
         }
       }
@@ -702,7 +719,7 @@ public class ChunkedRunningQuery extends AbstractRunningQuery {
                   + ", solutions="
                   + solutionsAccepted
                   + (log.isDebugEnabled() ? ", runState=" + runStateString() : ""));
-        getQueryEngine().execute(cft);
+        getQueryEngine().execute(getQueryId(), priority, cft);
         return true;
       } catch (Throwable t) {
         // Ensure accepted messages are released();
@@ -214,6 +214,35 @@ public class QueryEngine implements IQueryPeer, IQueryClient, ICounterSetAccess
      * @see BLZG-533 Vector query engine on native heap.
      */
     String CHUNK_HANDLER = QueryEngine.class.getName() + ".chunkHandler";
+
+    /*
+     * The priority of the query (a positive integer). When the {@link ChunkTaskScheduler} is
+     * enabled, the running queries share the slots for the operator evaluation tasks in proportion
+     * to their priorities. The priority is ignored otherwise.
+     *
+     * @see Options#SCHEDULER_PARALLELISM
+     */
+    String PRIORITY = QueryEngine.class.getName() + ".priority";
+
+    int DEFAULT_PRIORITY = 1;
+  }
+
+  /*
+   * Options for the {@link QueryEngine}. These options are specified as JVM system properties.
+   */
+  public interface Options {
+
+    /*
+     * The maximum #of operator evaluation tasks (chunk tasks) which may run concurrently across all
+     * queries on the {@link QueryEngine} (default {@value #DEFAULT_SCHEDULER_PARALLELISM}). When
+     * positive, the chunk tasks are dispatched by a {@link ChunkTaskScheduler}, which shares this
+     * many slots among the running queries in proportion to their {@link Annotations#PRIORITY}.
+     * When ZERO (0), each chunk task is submitted directly to the executor service of the local
+     * index manager (this is the historical behavior).
+     */
+    String SCHEDULER_PARALLELISM = QueryEngine.class.getName() + ".schedulerParallelism";
+
+    String DEFAULT_SCHEDULER_PARALLELISM = "0";
   }
 
   /** Return a {@link CounterSet} which reports various statistics for the {@link QueryEngine}. */
@@ -232,6 +261,11 @@ public class QueryEngine implements IQueryPeer, IQueryClient, ICounterSetAccess
     final CounterSet geoSpatial = root.makePath("GeoSpatial");
     geoSpatial.attach(geoSpatialCounters.getCounters());
 
+    // chunk task scheduler counters
+    if (scheduler != null) {
+      root.makePath("Scheduler").attach(scheduler.getCounters());
+    }
+
     //        // counters per tagged query group.
     //        {
     //
@@ -775,6 +809,17 @@ public class QueryEngine implements IQueryPeer, IQueryClient, ICounterSetAccess
 
     this.localIndexManager = localIndexManager;
 
+    final int schedulerParallelism =
+        Integer.valueOf(
+            System.getProperty(
+                Options.SCHEDULER_PARALLELISM, Options.DEFAULT_SCHEDULER_PARALLELISM));
+
+    this.scheduler =
+        schedulerParallelism > 0
+            ? new ChunkTaskScheduler(
+                r -> localIndexManager.getExecutorService().execute(r), schedulerParallelism)
+            : null;
+
     //        this.iopool = new LatchedExecutor(indexManager.getExecutorService(),
     //                nThreads);
     //        this.iopool = Executors.newFixedThreadPool(nThreads,
@@ -861,6 +906,58 @@ public class QueryEngine implements IQueryPeer, IQueryClient, ICounterSetAccess
     localIndexManager.getExecutorService().execute(r);
   }
 
+  /*
+   * The scheduler for the operator evaluation tasks -or- <code>null</code> if those tasks are
+   * submitted directly to the local {@link IIndexManager}'s {@link ExecutorService}.
+   *
+   * @see Options#SCHEDULER_PARALLELISM
+   */
+  private final ChunkTaskScheduler scheduler;
+
+  /*
+   * Executes an operator evaluation task for a query. The task is dispatched by the {@link
+   * ChunkTaskScheduler} if one is configured and is otherwise run on the local {@link
+   * IIndexManager}'s {@link ExecutorService}.
+   *
+   * @param queryId The query.
+   * @param priority The priority of the query.
+   * @param r The task.
+   * @see Annotations#PRIORITY
+   */
+  protected final void execute(final UUID queryId, final int priority, final Runnable r) {
+
+    if (scheduler == null) {
+
+      execute(r);
+
+    } else {
+
+      scheduler.execute(queryId, priority, r);
+    }
+  }
+
+  /*
+   * Notify the {@link ChunkTaskScheduler} (if any) that the operator evaluation task running in the
+   * current thread is about to block until another task of the same query has made progress.
+   *
+   * @see ChunkTaskScheduler#beginBlocking()
+   */
+  protected final void beginBlocking() {
+
+    if (scheduler != null) scheduler.beginBlocking();
+  }
+
+  /*
+   * Notify the {@link ChunkTaskScheduler} (if any) that the operator evaluation task running in the
+   * current thread is no longer blocked.
+   *
+   * @see ChunkTaskScheduler#endBlocking()
+   */
+  protected final void endBlocking() {
+
+    if (scheduler != null) scheduler.endBlocking();
+  }
+
   /*
    * Runnable submits chunks available for evaluation against running queries.
    *
@@ -60,7 +60,11 @@ public class HashIndexOp extends HashIndexOpBase {
   /** */
   private static final long serialVersionUID = 1L;
 
-  public interface Annotations extends HashIndexOpBase.Annotations {}
+  /*
+   * Note: The {@link JVMHashJoinAnnotations} (such as {@link
+   * JVMHashJoinAnnotations#PARTITION_COUNT}) are only used with the {@link JVMHashJoinUtility}.
+   */
+  public interface Annotations extends HashIndexOpBase.Annotations, JVMHashJoinAnnotations {}
 
   /** Deep copy constructor. */
   public HashIndexOp(final HashIndexOp op) {
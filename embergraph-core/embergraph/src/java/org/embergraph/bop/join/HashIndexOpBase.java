@@ -325,6 +325,18 @@ public abstract class HashIndexOpBase extends PipelineOp implements ISingleThrea
     protected void checkpointSolutionSet() {
 
       state.saveSolutionSet();
+
+      final IVariable<?>[] sipVars = (IVariable<?>[]) op.getProperty(Annotations.SIP_VARS);
+
+      if (sipVars != null && sipVars.length > 0) {
+
+        // Publish the filters for sideways information passing.
+        final INamedSolutionSetRef namedSetRef =
+            (INamedSolutionSetRef) op.getRequiredProperty(Annotations.NAMED_SET_REF);
+
+        SIPFilter.publish(
+            context.getQueryAttributes(namedSetRef.getQueryId()), namedSetRef, state, sipVars);
+      }
     }
   } // ControllerTask
 }
@@ -80,4 +80,15 @@ public interface HashJoinAnnotations {
    * finally rejoin with the whole set of variables in the end.
    */
   String OUTPUT_DISTINCT_JVs = HashJoinAnnotations.class.getName() + ".outputDistinctJVs";
+
+  /*
+   * An optional {@link IVariable}[]. When specified, a {@link SIPFilter} is built for each of these
+   * variables which is bound in every solution once the hash index has been built. The filters are
+   * published as query attributes for the named solution set so that access paths evaluated
+   * against the same variables can drop tuples which can not join with the hash index.
+   *
+   * @see SIPFilter
+   * @see IPredicate.Annotations#SIP_FILTERS
+   */
+  String SIP_VARS = HashJoinAnnotations.class.getName() + ".sipVars";
 }
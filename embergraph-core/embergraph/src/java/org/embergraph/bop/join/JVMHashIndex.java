@@ -18,11 +18,17 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
  */
 package org.embergraph.bop.join;
 
+import cutthecrap.utils.striterators.Striterator;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import org.apache.log4j.Logger;
 import org.embergraph.bop.IBindingSet;
 import org.embergraph.bop.IConstant;
@@ -38,6 +44,10 @@ import org.embergraph.counters.CAT;
  * better concurrency than the {@link JVMHashIndex}. Also see {@link JVMDistinctFilter}, which is
  * the backing implementation for the {@link JVMDistinctBindingSetsOp}.
  *
+ * <p>The index may be split into partitions by the hash code of the keys. Each partition has its
+ * own backing map, so distinct partitions may be written concurrently by different threads. See
+ * {@link #addAll(IBindingSet[], Executor)}.
+ *
  * @see JVMDistinctFilter
  * @author <a href="mailto:thompsonbry@users.sourceforge.net">Bryan Thompson</a>
  */
@@ -110,7 +120,7 @@ public class JVMHashIndex {
    * @see #keyVars
    * @see #indexSolutionsHavingUnboundJoinVars
    */
-  private Key makeKey( // final IVariable<?>[] keyVars,
+  Key makeKey( // final IVariable<?>[] keyVars,
       final IBindingSet bset
       //            final boolean indexSolutionsHavingUnboundJoinVars
       ) {
@@ -370,8 +380,11 @@ public class JVMHashIndex {
    */
   private final boolean indexSolutionsHavingUnboundJoinVars;
 
-  /** The backing map - this is NOT thread safe. */
-  private final Map<Key, Bucket> map;
+  /*
+   * The backing maps (one per partition) - these are NOT thread safe, but distinct partitions may
+   * be written concurrently.
+   */
+  private final Map<Key, Bucket>[] partitions;
 
   /*
    * @param keyVars The variables that are used to form the keys in the hash index (required, but
@@ -394,6 +407,22 @@ public class JVMHashIndex {
       final boolean indexSolutionsHavingUnboundJoinVars,
       final Map<Key, Bucket> map) {
 
+    this(keyVars, indexSolutionsHavingUnboundJoinVars, singleton(map));
+  }
+
+  /*
+   * @param keyVars The variables that are used to form the keys in the hash index.
+   * @param indexSolutionsHavingUnboundJoinVars When <code>true</code>, we allow solutions to be
+   *     stored in the hash index that have unbound variables for the {@link #keyVars}.
+   * @param partitions The backing maps, one per partition (at least one). Solutions are assigned
+   *     to a partition by the hash code of their {@link Key}.
+   * @see #JVMHashIndex(IVariable[], boolean, Map)
+   */
+  public JVMHashIndex(
+      final IVariable<?>[] keyVars,
+      final boolean indexSolutionsHavingUnboundJoinVars,
+      final Map<Key, Bucket>[] partitions) {
+
     if (keyVars == null) {
 
       /*
@@ -406,18 +435,154 @@ public class JVMHashIndex {
       throw new IllegalArgumentException();
     }
 
-    if (map == null) {
+    if (partitions == null || partitions.length == 0) {
 
       throw new IllegalArgumentException();
     }
 
-    this.map = map;
+    for (Map<Key, Bucket> map : partitions) {
+
+      if (map == null) throw new IllegalArgumentException();
+    }
+
+    this.partitions = partitions;
 
     this.indexSolutionsHavingUnboundJoinVars = indexSolutionsHavingUnboundJoinVars;
 
     this.keyVars = keyVars;
   }
 
+  @SuppressWarnings("unchecked")
+  private static Map<Key, Bucket>[] singleton(final Map<Key, Bucket> map) {
+
+    if (map == null) throw new IllegalArgumentException();
+
+    return new Map[] {map};
+  }
+
+  /** The #of partitions. */
+  public int getPartitionCount() {
+
+    return partitions.length;
+  }
+
+  /*
+   * Return the partition for the key.
+   *
+   * <p>Note: The backing maps use the low bits of the hash code to choose their hash buckets. The
+   * partition is therefore chosen from the high bits of the mixed hash code. Otherwise all keys in
+   * a partition would share the same low bits and collide within the backing map for that
+   * partition.
+   */
+  int getPartition(final Key key) {
+
+    if (partitions.length == 1) return 0;
+
+    return ((key.hash * 0x9E3779B9) >>> 16) % partitions.length;
+  }
+
+  /*
+   * Compute the keys for the solutions and group the solutions by the partition for their key.
+   *
+   * @param a The solutions.
+   * @param keys The {@link Key} for each solution is set on this array (the entry is <code>null
+   *     </code> if no key could be formed for that solution).
+   * @return For each partition, the indices into <i>a</i> of the solutions in that partition in
+   *     their original order. Solutions without a key are not assigned to any partition.
+   */
+  int[][] partition(final IBindingSet[] a, final Key[] keys) {
+
+    final int[] part = new int[a.length];
+
+    final int[] counts = new int[partitions.length];
+
+    for (int i = 0; i < a.length; i++) {
+
+      final Key key = keys[i] = makeKey(a[i]);
+
+      if (key == null) {
+
+        part[i] = -1;
+
+        continue;
+      }
+
+      counts[part[i] = getPartition(key)]++;
+    }
+
+    final int[][] indices = new int[partitions.length][];
+
+    for (int p = 0; p < partitions.length; p++) {
+
+      indices[p] = new int[counts[p]];
+
+      counts[p] = 0;
+    }
+
+    for (int i = 0; i < a.length; i++) {
+
+      final int p = part[i];
+
+      if (p != -1) indices[p][counts[p]++] = i;
+    }
+
+    return indices;
+  }
+
+  /*
+   * Run the tasks. Tasks are handed off to the executor, but the caller also runs any task which
+   * has not yet been started. The caller therefore makes progress even if the executor does not
+   * have a free thread.
+   *
+   * @param executor The executor (optional). When <code>null</code>, the tasks are run by the
+   *     caller.
+   * @param tasks The tasks.
+   * @throws RuntimeException wrapping the first error (if any) thrown by a task. The remaining
+   *     tasks are cancelled.
+   */
+  static void invokeAll(final Executor executor, final List<FutureTask<Void>> tasks) {
+
+    try {
+
+      if (executor != null) {
+
+        for (int i = 1; i < tasks.size(); i++) {
+
+          try {
+
+            executor.execute(tasks.get(i));
+
+          } catch (RejectedExecutionException ex) {
+
+            // The task will be run by the caller.
+            break;
+          }
+        }
+      }
+
+      // Note: This is a NOP for a task which has already been started.
+      for (FutureTask<Void> ft : tasks) ft.run();
+
+      for (FutureTask<Void> ft : tasks) ft.get();
+
+    } catch (InterruptedException ex) {
+
+      throw new RuntimeException(ex);
+
+    } catch (ExecutionException ex) {
+
+      if (ex.getCause() instanceof RuntimeException) throw (RuntimeException) ex.getCause();
+
+      if (ex.getCause() instanceof Error) throw (Error) ex.getCause();
+
+      throw new RuntimeException(ex);
+
+    } finally {
+
+      for (FutureTask<Void> ft : tasks) ft.cancel(true /* mayInterruptIfRunning */);
+    }
+  }
+
   /*
    * Add the solution to the index.
    *
@@ -481,18 +646,87 @@ public class JVMHashIndex {
      * JVMHashIndexOp. We would also have to update AST2BOpUtility to
      * generate the appropriate annotations.]
      */
-    Bucket b = map.get(key);
+    add(partitions[getPartition(key)], key, bset);
+
+    return key;
+  }
+
+  /*
+   * Add the solution to the backing map for its partition.
+   *
+   * @param map The backing map for the partition.
+   * @param key The key for the solution.
+   * @param bset The solution.
+   */
+  private static void add(final Map<Key, Bucket> map, final Key key, final IBindingSet bset) {
+
+    final Bucket b = map.get(key);
 
     if (b == null) {
 
-      map.put(key, b = new Bucket(key.hash, bset));
+      map.put(key, new Bucket(key.hash, bset));
 
     } else {
 
       b.add(bset);
     }
+  }
 
-    return key;
+  /*
+   * Add the solutions to the index. When there is more than one partition and an executor is
+   * given, the solutions are first grouped by partition and the partitions are then built
+   * concurrently. Within each partition, the solutions are added in the given order.
+   *
+   * @param a The solutions.
+   * @param executor The executor used to build the partitions concurrently (optional).
+   * @return The #of solutions which were added to the index (solutions for which a {@link Key}
+   *     could not be formed are dropped).
+   */
+  public long addAll(final IBindingSet[] a, final Executor executor) {
+
+    if (partitions.length == 1 || executor == null) {
+
+      long naccepted = 0;
+
+      for (IBindingSet bset : a) {
+
+        if (add(bset) != null) naccepted++;
+      }
+
+      return naccepted;
+    }
+
+    final Key[] keys = new Key[a.length];
+
+    final int[][] indices = partition(a, keys);
+
+    final List<FutureTask<Void>> tasks = new ArrayList<>(partitions.length);
+
+    long naccepted = 0;
+
+    for (int p = 0; p < partitions.length; p++) {
+
+      final int[] x = indices[p];
+
+      if (x.length == 0) continue;
+
+      final Map<Key, Bucket> map = partitions[p];
+
+      tasks.add(
+          new FutureTask<>(
+              () -> {
+                for (int i : x) {
+                  add(map, keys[i], a[i]);
+                }
+                return null;
+              }));
+
+      naccepted += x.length;
+    }
+
+    invokeAll(executor, tasks);
+
+    return naccepted;
   }
 
   /*
@@ -507,6 +741,8 @@ public class JVMHashIndex {
 
     assert key != null;
 
+    final Map<Key, Bucket> map = partitions[getPartition(key)];
+
     Bucket b = map.get(key);
 
     if (b == null) {
@@ -545,14 +781,36 @@ public class JVMHashIndex {
       return null;
     }
 
+    return getBucket(key);
+  }
+
+  /*
+   * Return the hash {@link Bucket} for the key.
+   *
+   * @param key The key.
+   * @return The hash {@link Bucket} for that key -or- <code>null</code> if there is no such hash
+   *     bucket.
+   */
+  Bucket getBucket(final Key key) {
+
     // Probe the hash map : May return [null]!
-    return map.get(key);
+    return partitions[getPartition(key)].get(key);
   }
 
   /** Visit all buckets in the hash index. */
+  @SuppressWarnings("unchecked")
   public Iterator<Bucket> buckets() {
 
-    return map.values().iterator();
+    if (partitions.length == 1) return partitions[0].values().iterator();
+
+    final Striterator itr = new Striterator(partitions[0].values().iterator());
+
+    for (int p = 1; p < partitions.length; p++) {
+
+      itr.append(partitions[p].values().iterator());
+    }
+
+    return itr;
   }
 
   /*
@@ -564,16 +822,23 @@ public class JVMHashIndex {
    */
   public int bucketCount() {
 
-    return map.size();
+    int n = 0;
+
+    for (Map<Key, Bucket> map : partitions) {
+
+      n += map.size();
+    }
+
+    return n;
   }
 
   /** Export the {@link Bucket}s as an array. */
   public Bucket[] toArray() {
 
     // source.
-    final Iterator<Bucket> bucketIterator = map.values().iterator();
+    final Iterator<Bucket> bucketIterator = buckets();
 
-    final Bucket[] a = new Bucket[map.size()];
+    final Bucket[] a = new Bucket[bucketCount()];
 
     int i = 0;
 
@@ -30,4 +30,20 @@ import org.embergraph.bop.HashMapAnnotations;
  * @version $Id$
  */
 public interface JVMHashJoinAnnotations
-    extends HashMapAnnotations, HashJoinAnnotations, JoinAnnotations {}
+    extends HashMapAnnotations, HashJoinAnnotations, JoinAnnotations {
+
+  /*
+   * The #of partitions for the {@link JVMHashIndex} (default {@value #DEFAULT_PARTITION_COUNT}).
+   * When greater than ONE (1), the solutions are split into that many partitions by the hash code
+   * of their as-bound join variables. The partitions are disjoint, so they may be built and probed
+   * concurrently using the executor service of the query. ONE (1) gives a single threaded build and
+   * probe.
+   *
+   * <p>Note: The order in which a partitioned hash join outputs its solutions is not specified.
+   *
+   * @see JVMHashJoinUtility
+   */
+  String PARTITION_COUNT = JVMHashJoinAnnotations.class.getName() + ".partitionCount";
+
+  int DEFAULT_PARTITION_COUNT = 1;
+}
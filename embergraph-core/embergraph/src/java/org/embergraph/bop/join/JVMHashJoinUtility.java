@@ -27,14 +27,19 @@ import cutthecrap.utils.striterators.IStriterator;
 import cutthecrap.utils.striterators.Resolver;
 import cutthecrap.utils.striterators.Striterator;
 import cutthecrap.utils.striterators.Visitor;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import org.apache.log4j.Logger;
 import org.embergraph.bop.BOpContext;
 import org.embergraph.bop.BOpUtility;
@@ -47,6 +52,7 @@ import org.embergraph.bop.PipelineOp;
 import org.embergraph.bop.controller.INamedSolutionSetRef;
 import org.embergraph.bop.engine.BOpStats;
 import org.embergraph.bop.join.JVMHashIndex.Bucket;
+import org.embergraph.bop.join.JVMHashIndex.Key;
 import org.embergraph.bop.join.JVMHashIndex.SolutionHit;
 import org.embergraph.counters.CAT;
 import org.embergraph.rdf.internal.impl.literal.XSDBooleanIV;
@@ -57,6 +63,14 @@ import org.embergraph.util.InnerCause;
 /*
  * Utility class supporting hash join against a Java hash collection.
  *
+ * <p>When {@link JVMHashJoinAnnotations#PARTITION_COUNT} is greater than ONE (1), the hash index is
+ * split into partitions by the hash code of the join variables. The build and the probe then group
+ * the solutions by partition and process the partitions concurrently on the executor service of
+ * the query. Each partition task collects its output locally and the calling thread writes that
+ * output onto the output buffer, so the output buffer is never accessed concurrently. The join hit
+ * counters are thread-safe, so the {@link JoinTypeEnum} semantics are unchanged. Only the order of
+ * the output solutions differs.
+ *
  * @author <a href="mailto:thompsonbry@users.sourceforge.net">Bryan Thompson</a>
  * @version $Id$
  */
@@ -79,10 +93,16 @@ public class JVMHashJoinUtility implements IHashJoinUtility {
             final PipelineOp op,
             final JoinTypeEnum joinType) {
 
-          return new JVMHashJoinUtility(op, joinType);
+          return new JVMHashJoinUtility(op, joinType, context.getExecutorService());
         }
       };
 
+  /*
+   * The minimum #of solutions in a chunk before the build or the probe is run concurrently for a
+   * partitioned hash index. Smaller chunks are processed by the caller.
+   */
+  static final int MIN_PARTITIONED_CHUNK_SIZE = 1000;
+
   /** <code>true</code> until the state is discarded by {@link #release()}. */
   protected final AtomicBoolean open = new AtomicBoolean(true);
 
@@ -123,6 +143,13 @@ public class JVMHashJoinUtility implements IHashJoinUtility {
   /** The join constraints (optional). */
   protected final IConstraint[] constraints;
 
+  /*
+   * The executor used to build and probe the partitions of the hash index concurrently (optional).
+   *
+   * @see JVMHashJoinAnnotations#PARTITION_COUNT
+   */
+  protected final Executor executor;
+
   /*
    * The hash index.
    *
@@ -187,11 +214,27 @@ public class JVMHashJoinUtility implements IHashJoinUtility {
    */
   public JVMHashJoinUtility(final PipelineOp op, final JoinTypeEnum joinType) {
 
+    this(op, joinType, null /* executor */);
+  }
+
+  /*
+   * @param op The operator whose annotation will inform construction the hash index.
+   * @param joinType The type of join to be performed.
+   * @param executor The executor used to build and probe the partitions of the hash index
+   *     concurrently (optional). When <code>null</code>, the partitions are processed by the
+   *     caller.
+   * @see JVMHashJoinAnnotations#PARTITION_COUNT
+   */
+  public JVMHashJoinUtility(
+      final PipelineOp op, final JoinTypeEnum joinType, final Executor executor) {
+
     if (op == null) throw new IllegalArgumentException();
 
     if (joinType == null) throw new IllegalArgumentException();
 
     this.joinType = joinType;
+
+    this.executor = executor;
     /*
      * Note: This flag needs to be [true] if we allow solutions to be stored
      * in the hash index that have unbound variables for the "joinVars". We
@@ -279,16 +322,33 @@ public class JVMHashJoinUtility implements IHashJoinUtility {
     final IVariable<?>[] keyVars =
         filter ? (IVariable<?>[]) op.getProperty(JoinAnnotations.SELECT) : joinVars;
 
+    final int partitionCount =
+        op.getProperty(
+            JVMHashJoinAnnotations.PARTITION_COUNT, JVMHashJoinAnnotations.DEFAULT_PARTITION_COUNT);
+
+    if (partitionCount <= 0)
+      throw new IllegalArgumentException(
+          JVMHashJoinAnnotations.PARTITION_COUNT + "=" + partitionCount);
+
+    final int initialCapacity =
+        op.getProperty(
+            HashMapAnnotations.INITIAL_CAPACITY, HashMapAnnotations.DEFAULT_INITIAL_CAPACITY);
+
+    final float loadFactor =
+        op.getProperty(HashMapAnnotations.LOAD_FACTOR, HashMapAnnotations.DEFAULT_LOAD_FACTOR);
+
+    @SuppressWarnings("unchecked")
+    final Map<Key, Bucket>[] partitions = new Map[partitionCount];
+
+    for (int p = 0; p < partitionCount; p++) {
+
+      // The initial capacity is divided among the partitions.
+      partitions[p] =
+          new LinkedHashMap<>(Math.max(1, initialCapacity / partitionCount), loadFactor);
+    }
+
     rightSolutionsRef.set(
-        new JVMHashIndex(
-            keyVars,
-            indexSolutionsHavingUnboundJoinVars,
-            new LinkedHashMap<>(
-                op.getProperty(
-                    HashMapAnnotations.INITIAL_CAPACITY,
-                    HashMapAnnotations.DEFAULT_INITIAL_CAPACITY),
-                op.getProperty(
-                    HashMapAnnotations.LOAD_FACTOR, HashMapAnnotations.DEFAULT_LOAD_FACTOR))));
+        new JVMHashIndex(keyVars, indexSolutionsHavingUnboundJoinVars, partitions));
   }
 
   @Override
@@ -372,17 +432,7 @@ public class JVMHashJoinUtility implements IHashJoinUtility {
 
       if (log.isDebugEnabled()) log.debug("Materialized: " + all.length + " source solutions.");
 
-      long naccepted = 0;
-
-      for (IBindingSet bset : all) {
-
-        if (index.add(bset) == null) {
-
-          continue;
-        }
-
-        naccepted++;
-      }
+      final long naccepted = addAll(index, all);
 
       if (log.isDebugEnabled())
         log.debug(
@@ -511,110 +561,226 @@ public class JVMHashJoinUtility implements IHashJoinUtility {
           stats.unitsIn.add(leftChunk.length);
         }
 
-        for (IBindingSet left : leftChunk) {
+        probe(
+            leftChunk,
+            outputBuffer,
+            (left, bucket, out) -> join(left, bucket, constraints, noJoinVars, out));
+      } // while(leftItr.hasNext())
 
-          nleftConsidered.increment();
+    } catch (Throwable t) {
 
-          if (log.isDebugEnabled()) log.debug("Considering " + left);
+      throw launderThrowable(t);
 
-          final Bucket bucket = rightSolutions.getBucket(left);
+    } finally {
 
-          if (bucket == null) continue;
+      leftItr.close();
+    }
+  }
 
-          final Iterator<SolutionHit> ritr = bucket.iterator();
+  /*
+   * Join a probe solution against the solutions in the hash bucket into which it hashes.
+   *
+   * @param left The probe solution.
+   * @param bucket The hash bucket (optional).
+   * @param constraints The join constraints (optional).
+   * @param noJoinVars <code>true</code> iff there are no join variables.
+   * @param out Where to write the solutions.
+   */
+  private void join(
+      final IBindingSet left,
+      final Bucket bucket,
+      final IConstraint[] constraints,
+      final boolean noJoinVars,
+      final Consumer<IBindingSet> out) {
 
-          while (ritr.hasNext()) {
+    nleftConsidered.increment();
 
-            final SolutionHit right = ritr.next();
+    if (log.isDebugEnabled()) log.debug("Considering " + left);
 
-            nrightConsidered.increment();
+    if (bucket == null) return;
 
-            if (log.isDebugEnabled()) log.debug("Join with " + right);
+    final Iterator<SolutionHit> ritr = bucket.iterator();
 
-            nJoinsConsidered.increment();
+    while (ritr.hasNext()) {
 
-            if (noJoinVars && nJoinsConsidered.get() == noJoinVarsLimit) {
+      final SolutionHit right = ritr.next();
 
-              if (nleftConsidered.get() > 1 && nrightConsidered.get() > 1) {
+      nrightConsidered.increment();
 
-                throw new UnconstrainedJoinException();
-              }
+      if (log.isDebugEnabled()) log.debug("Join with " + right);
+
+      nJoinsConsidered.increment();
+
+      if (noJoinVars && nJoinsConsidered.get() == noJoinVarsLimit) {
+
+        if (nleftConsidered.get() > 1 && nrightConsidered.get() > 1) {
+
+          throw new UnconstrainedJoinException();
+        }
+      }
+
+      // See if the solutions join.
+      final IBindingSet outSolution =
+          BOpContext.bind(right.solution, left, constraints, selectVars);
+
+      switch (joinType) {
+        case Normal:
+          {
+            if (outSolution != null) {
+              // Output the solution.
+              out.accept(outSolution);
+            }
+            break;
+          }
+        case Optional:
+          {
+            if (outSolution != null) {
+              // Output the solution.
+              out.accept(outSolution);
+              // Increment counter so we know not to output
+              // the rightSolution as an optional solution.
+              right.nhits.increment();
+            }
+            break;
+          }
+        case Exists:
+          {
+            /*
+             * The right solution is output iff there is at
+             * least one left solution which joins with that
+             * right solution. Each right solution is output at
+             * most one time.
+             */
+            if (outSolution != null) {
+              // if (right.nhits.get() == 0L) {
+              // // Output the solution.
+              // outputSolution(outputBuffer, right.solution);
+              // }
+              // Increment counter so we know this solution joins.
+              right.nhits.increment();
             }
+            break;
+          }
+        case NotExists:
+          {
+            /*
+             * The right solution is output iff there does not
+             * exist any left solution which joins with that
+             * right solution. This basically an optional join
+             * where the solutions which join are not output.
+             */
+            if (outSolution != null) {
+              // Increment counter so we know not to output
+              // the rightSolution as an optional solution.
+              right.nhits.increment();
+            }
+            break;
+          }
+        default:
+          throw new AssertionError();
+      }
+    } // while(ritr.hasNext())
+  }
 
-            // See if the solutions join.
-            final IBindingSet outSolution =
-                BOpContext.bind(right.solution, left, constraints, selectVars);
-
-            switch (joinType) {
-              case Normal:
-                {
-                  if (outSolution != null) {
-                    // Output the solution.
-                    outputSolution(outputBuffer, outSolution);
-                  }
-                  break;
-                }
-              case Optional:
-                {
-                  if (outSolution != null) {
-                    // Output the solution.
-                    outputSolution(outputBuffer, outSolution);
-                    // Increment counter so we know not to output
-                    // the rightSolution as an optional solution.
-                    right.nhits.increment();
-                  }
-                  break;
-                }
-              case Exists:
-                {
-                  /*
-                   * The right solution is output iff there is at
-                   * least one left solution which joins with that
-                   * right solution. Each right solution is output at
-                   * most one time.
-                   */
-                  if (outSolution != null) {
-                    // if (right.nhits.get() == 0L) {
-                    // // Output the solution.
-                    // outputSolution(outputBuffer, right.solution);
-                    // }
-                    // Increment counter so we know this solution joins.
-                    right.nhits.increment();
-                  }
-                  break;
-                }
-              case NotExists:
-                {
-                  /*
-                   * The right solution is output iff there does not
-                   * exist any left solution which joins with that
-                   * right solution. This basically an optional join
-                   * where the solutions which join are not output.
-                   */
-                  if (outSolution != null) {
-                    // Increment counter so we know not to output
-                    // the rightSolution as an optional solution.
-                    right.nhits.increment();
-                  }
-                  break;
+  /*
+   * Join a probe solution against the hash bucket into which it hashes.
+   *
+   * @see JVMHashJoinUtility#probe(IBindingSet[], IBuffer, IBucketJoin)
+   */
+  protected interface IBucketJoin {
+
+    /*
+     * @param left The probe solution.
+     * @param bucket The hash bucket into which that solution hashes -or- <code>null</code> if there
+     *     is no such bucket.
+     * @param out Where to write the solutions.
+     */
+    void join(IBindingSet left, Bucket bucket, Consumer<IBindingSet> out);
+  }
+
+  /*
+   * Probe the hash index with each solution in the chunk. When the hash index is partitioned, the
+   * solutions are grouped by partition and the partitions are probed concurrently. The output of
+   * each partition is collected locally and then written onto the output buffer by the caller.
+   * Solutions which can not be assigned to a partition (because they do not have a key) are joined
+   * against a <code>null</code> bucket by the caller.
+   *
+   * @param chunk The probe solutions.
+   * @param outputBuffer Where to write the solutions.
+   * @param op The join.
+   */
+  protected void probe(
+      final IBindingSet[] chunk, final IBuffer<IBindingSet> outputBuffer, final IBucketJoin op) {
+
+    final JVMHashIndex rightSolutions = getRightSolutions();
+
+    final Consumer<IBindingSet> out = outSolution -> outputSolution(outputBuffer, outSolution);
+
+    if (rightSolutions.getPartitionCount() == 1 || chunk.length < MIN_PARTITIONED_CHUNK_SIZE) {
+
+      for (IBindingSet left : chunk) {
+
+        op.join(left, rightSolutions.getBucket(left), out);
+      }
+
+      return;
+    }
+
+    final Key[] keys = new Key[chunk.length];
+
+    final int[][] indices = rightSolutions.partition(chunk, keys);
+
+    final List<FutureTask<Void>> tasks = new ArrayList<>(indices.length);
+
+    final List<List<IBindingSet>> outputs = new ArrayList<>(indices.length);
+
+    for (int[] x : indices) {
+
+      if (x.length == 0) continue;
+
+      final List<IBindingSet> tmp = new ArrayList<>(x.length);
+
+      outputs.add(tmp);
+
+      tasks.add(
+          new FutureTask<>(
+              () -> {
+                for (int i : x) {
+                  op.join(chunk[i], rightSolutions.getBucket(keys[i]), tmp::add);
                 }
-              default:
-                throw new AssertionError();
-            }
-          } // while(ritr.hasNext())
-        } // for(left : leftChunk)
-      } // while(leftItr.hasNext())
+                return null;
+              }));
+    }
 
-    } catch (Throwable t) {
+    JVMHashIndex.invokeAll(executor, tasks);
 
-      throw launderThrowable(t);
+    for (int i = 0; i < chunk.length; i++) {
 
-    } finally {
+      if (keys[i] == null) op.join(chunk[i], null /* bucket */, out);
+    }
 
-      leftItr.close();
+    for (List<IBindingSet> tmp : outputs) {
+
+      for (IBindingSet outSolution : tmp) {
+
+        outputSolution(outputBuffer, outSolution);
+      }
     }
   }
 
+  /*
+   * Add the solutions to the hash index. The partitions of the hash index are built concurrently
+   * if the hash index is partitioned and there are enough solutions.
+   *
+   * @param index The hash index.
+   * @param a The solutions.
+   * @return The #of solutions added to the hash index.
+   */
+  protected long addAll(final JVMHashIndex index, final IBindingSet[] a) {
+
+    return index.addAll(a, a.length < MIN_PARTITIONED_CHUNK_SIZE ? null : executor);
+  }
+
   /*
    * {@inheritDoc}
    *
@@ -22,12 +22,14 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 package org.embergraph.bop.join;
 
 import cutthecrap.utils.striterators.ICloseableIterator;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 import org.apache.log4j.Logger;
 import org.embergraph.bop.BOpContext;
 import org.embergraph.bop.Constant;
@@ -91,7 +93,7 @@ public class JVMPipelinedHashJoinUtility extends JVMHashJoinUtility
   public JVMPipelinedHashJoinUtility(
       PipelineOp op, JoinTypeEnum joinType, BOpContext<IBindingSet> context, int chunkCapacity) {
 
-    super(op, joinType);
+    super(op, joinType, context == null ? null : context.getExecutorService());
 
     if (!(op instanceof PipelinedHashIndexAndSolutionSetJoinOp)) {
       throw new IllegalArgumentException();
@@ -255,6 +257,9 @@ public class JVMPipelinedHashJoinUtility extends JVMHashJoinUtility
       // iterate over the results and store them in the index
       final ICloseableIterator<IBindingSet[]> subquerySolutionItr = runningSubquery.iterator();
 
+      // the solutions for the subquery (added to the hash index below).
+      final List<IBindingSet> subquerySolutions = new ArrayList<>();
+
       try {
 
         while (subquerySolutionItr.hasNext()) {
@@ -263,8 +268,7 @@ public class JVMPipelinedHashJoinUtility extends JVMHashJoinUtility
 
           for (IBindingSet solution : solutions) {
 
-            // add solutions to the subquery into the hash index.
-            rightSolutions.add(solution);
+            subquerySolutions.add(solution);
 
             /*
              * we remove all mappings that generated at least one
@@ -291,6 +295,9 @@ public class JVMPipelinedHashJoinUtility extends JVMHashJoinUtility
         subquerySolutionItr.close();
       }
 
+      // add solutions to the subquery into the hash index.
+      addAll(rightSolutions, subquerySolutions.toArray(new IBindingSet[0]));
+
       // wait for the subquery to halt / test for errors.
       runningSubquery.get();
 
@@ -354,11 +361,8 @@ public class JVMPipelinedHashJoinUtility extends JVMHashJoinUtility
 
     if (!bsFromBindingsSetSourceAddedToHashIndex) {
 
-      for (IBindingSet solution : bsFromBindingsSetSource) {
-
-        // add solutions to the join with the binding set to hash index.
-        rightSolutions.add(solution);
-      }
+      // add solutions to the join with the binding set to hash index.
+      addAll(rightSolutions, bsFromBindingsSetSource);
 
       bsFromBindingsSetSourceAddedToHashIndex = true;
     }
@@ -388,91 +392,112 @@ public class JVMPipelinedHashJoinUtility extends JVMHashJoinUtility
     // join solutions with hash index
     final boolean noJoinVars = getJoinVars().length == 0;
 
-    for (final IBindingSet left : chunk) {
+    probe(
+        chunk,
+        outputBuffer,
+        (left, bucket, out) -> joinAndEmit(left, bucket, joinConstraints, askVar, noJoinVars, out));
+  }
 
-      final Bucket bucket = rightSolutions.getBucket(left);
-      nleftConsidered.increment();
+  /*
+   * Join a solution against the solutions in the hash bucket into which it hashes and emit the
+   * solutions for the join type.
+   *
+   * @param left The solution.
+   * @param bucket The hash bucket (optional).
+   * @param joinConstraints The join constraints (optional).
+   * @param askVar The ask variable (optional).
+   * @param noJoinVars <code>true</code> iff there are no join variables.
+   * @param out Where to write the solutions.
+   */
+  private void joinAndEmit(
+      final IBindingSet left,
+      final Bucket bucket,
+      final IConstraint[] joinConstraints,
+      final IVariable<?> askVar,
+      final boolean noJoinVars,
+      final Consumer<IBindingSet> out) {
 
-      boolean matchExists = false; // try to prove otherwise
-      if (bucket != null) {
+    nleftConsidered.increment();
 
-        final Iterator<SolutionHit> ritr = bucket.iterator();
+    boolean matchExists = false; // try to prove otherwise
+    if (bucket != null) {
 
-        while (ritr.hasNext()) {
+      final Iterator<SolutionHit> ritr = bucket.iterator();
 
-          final SolutionHit right = ritr.next();
+      while (ritr.hasNext()) {
 
-          nrightConsidered.increment();
+        final SolutionHit right = ritr.next();
 
-          if (log.isDebugEnabled()) log.debug("Join with " + right);
+        nrightConsidered.increment();
 
-          nJoinsConsidered.increment();
+        if (log.isDebugEnabled()) log.debug("Join with " + right);
 
-          if (noJoinVars && nJoinsConsidered.get() == getNoJoinVarsLimit()) {
+        nJoinsConsidered.increment();
 
-            if (nleftConsidered.get() > 1 && nrightConsidered.get() > 1) {
+        if (noJoinVars && nJoinsConsidered.get() == getNoJoinVarsLimit()) {
 
-              throw new UnconstrainedJoinException();
-            }
+          if (nleftConsidered.get() > 1 && nrightConsidered.get() > 1) {
+
+            throw new UnconstrainedJoinException();
           }
+        }
 
-          // See if the solutions join.
-          final IBindingSet outSolution =
-              BOpContext.bind(right.solution, left, joinConstraints, getSelectVars());
-
-          // record that we've seen a solution, if so
-          matchExists |= outSolution != null;
-
-          // for normal joins and opt
-          switch (getJoinType()) {
-            case Normal:
-            case Optional:
-              {
-                if (outSolution != null) {
-                  if (askVar != null) {
-                    outSolution.set(
-                        askVar, new Constant<XSDBooleanIV<?>>(XSDBooleanIV.valueOf(true)));
-                  }
-                  outputSolution(outputBuffer, outSolution);
+        // See if the solutions join.
+        final IBindingSet outSolution =
+            BOpContext.bind(right.solution, left, joinConstraints, getSelectVars());
+
+        // record that we've seen a solution, if so
+        matchExists |= outSolution != null;
+
+        // for normal joins and opt
+        switch (getJoinType()) {
+          case Normal:
+          case Optional:
+            {
+              if (outSolution != null) {
+                if (askVar != null) {
+                  outSolution.set(
+                      askVar, new Constant<XSDBooleanIV<?>>(XSDBooleanIV.valueOf(true)));
                 }
-                break;
+                out.accept(outSolution);
               }
-            case Exists:
-            case NotExists:
-              break; // will be handled at the end
-            default:
-              throw new AssertionError();
-          }
+              break;
+            }
+          case Exists:
+          case NotExists:
+            break; // will be handled at the end
+          default:
+            throw new AssertionError();
         }
       }
+    }
 
-      // handle other join types
-      switch (getJoinType()) {
-        case Optional:
-        case NotExists:
-          if (!matchExists) {
-            outputSolution(outputBuffer, left);
-          }
-          break;
-          /*
-           * Semantics of EXISTS is defined as follows: it only takes effect if the ASK var is not
-           * null; in that case, it has the same semantics as OPTIONAL, but binds the askVar to true
-           * or false depending on whether a match exists.
-           */
-        case Exists:
-          {
-            if (askVar != null) {
-              left.set(askVar, new Constant<XSDBooleanIV<?>>(XSDBooleanIV.valueOf(matchExists)));
-              outputSolution(outputBuffer, left);
-            }
-            break;
+    // handle other join types
+    switch (getJoinType()) {
+      case Optional:
+      case NotExists:
+        if (!matchExists) {
+          out.accept(left);
+        }
+        break;
+        /*
+         * Semantics of EXISTS is defined as follows: it only takes effect if the ASK var is not
+         * null; in that case, it has the same semantics as OPTIONAL, but binds the askVar to true
+         * or false depending on whether a match exists.
+         */
+      case Exists:
+        {
+          if (askVar != null) {
+            left.set(askVar, new Constant<XSDBooleanIV<?>>(XSDBooleanIV.valueOf(matchExists)));
+            out.accept(left);
           }
-        case Normal:
-          // this has been fully handled already
           break;
-        default:
-          throw new AssertionError();
-      }
+        }
+      case Normal:
+        // this has been fully handled already
+        break;
+      default:
+        throw new AssertionError();
     }
   }
 
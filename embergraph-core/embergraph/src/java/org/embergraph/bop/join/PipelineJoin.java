@@ -22,10 +22,12 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 package org.embergraph.bop.join;
 
 import cutthecrap.utils.striterators.ICloseableIterator;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -45,6 +47,10 @@ import org.embergraph.bop.IShardwisePipelineOp;
 import org.embergraph.bop.IVariable;
 import org.embergraph.bop.NV;
 import org.embergraph.bop.PipelineOp;
+import org.embergraph.btree.AbstractBTree;
+import org.embergraph.btree.BTree;
+import org.embergraph.btree.IIndex;
+import org.embergraph.btree.ILocalBTreeView;
 import org.embergraph.concurrent.FutureTaskMon;
 import org.embergraph.relation.IRelation;
 import org.embergraph.relation.accesspath.AbstractUnsynchronizedArrayBuffer;
@@ -179,6 +185,20 @@ public class PipelineJoin<E> extends PipelineOp implements IShardwisePipelineOp<
 
     boolean DEFAULT_REORDER_ACCESS_PATHS = true;
 
+    /*
+     * When <code>true</code>, the leaves on which the access paths for a chunk of binding sets
+     * will start are faulted in together before the access paths are evaluated (default {@value
+     * #DEFAULT_PREFETCH_ACCESS_PATHS}). The pages which are not buffered are read using a batch
+     * read on the backing store, which may issue those reads concurrently. This is only done for
+     * the read-only B+Tree sources of a local index view.
+     *
+     * @see AbstractBTree#prefetch(byte[][])
+     */
+    String PREFETCH_ACCESS_PATHS =
+        (PipelineJoin.class.getName() + ".prefetchAccessPaths").intern();
+
+    boolean DEFAULT_PREFETCH_ACCESS_PATHS = true;
+
     /*
      * The minimum number of (estimated) data points assigned to a task. This basically defines the
      * threshold upon which parallelization starts to pay out. Currently only implemented for the
@@ -399,6 +419,14 @@ public class PipelineJoin<E> extends PipelineOp implements IShardwisePipelineOp<
      */
     private final boolean reorderAccessPaths;
 
+    /*
+     * When <code>true</code>, the leaves on which the access paths will start are faulted in
+     * together.
+     *
+     * @see Annotations#PREFETCH_ACCESS_PATHS
+     */
+    private final boolean prefetchAccessPaths;
+
     /** Used to enforce the {@link Annotations#LIMIT} iff one is specified. */
     private final AtomicLong exactOutputCount = new AtomicLong();
 
@@ -455,7 +483,7 @@ public class PipelineJoin<E> extends PipelineOp implements IShardwisePipelineOp<
       if (context == null) throw new IllegalArgumentException();
 
       this.joinOp = joinOp;
-      this.predicate = joinOp.getPredicate();
+      this.predicate = SIPFilter.addFilters(joinOp.getPredicate(), context);
       this.constraints = joinOp.constraints();
       this.maxParallelChunks = joinOp.getMaxParallelChunks();
       if (maxParallelChunks < 0)
@@ -486,6 +514,9 @@ public class PipelineJoin<E> extends PipelineOp implements IShardwisePipelineOp<
       this.reorderAccessPaths =
           joinOp.getProperty(
               Annotations.REORDER_ACCESS_PATHS, Annotations.DEFAULT_REORDER_ACCESS_PATHS);
+      this.prefetchAccessPaths =
+          joinOp.getProperty(
+              Annotations.PREFETCH_ACCESS_PATHS, Annotations.DEFAULT_PREFETCH_ACCESS_PATHS);
 
       this.threadLocalBufferFactory = new TLBFactory(sink);
 
@@ -853,6 +884,11 @@ public class PipelineJoin<E> extends PipelineOp implements IShardwisePipelineOp<
            */
           if (reorderAccessPaths) reorderTasks(tasks);
 
+          /*
+           * Fault in the leaves for those tasks together.
+           */
+          if (prefetchAccessPaths) prefetchTasks(tasks);
+
           /*
            * Execute the tasks (either in the caller's thread or on
            * the supplied service).
@@ -1165,6 +1201,80 @@ public class PipelineJoin<E> extends PipelineOp implements IShardwisePipelineOp<
         }
       }
 
+      /*
+       * Fault in the leaves on which the access paths for the tasks will start. The pages which are
+       * not buffered are read together for each index (see {@link
+       * AbstractBTree#prefetch(byte[][])}). This is only done for the read-only {@link
+       * AbstractBTree}s of a local index view since the mutable {@link BTree} does not allow
+       * concurrent readers.
+       *
+       * @param tasks The tasks.
+       */
+      protected void prefetchTasks(final AccessPathTask[] tasks) {
+
+        if (tasks.length < 2) return;
+
+        // The fromKeys for each index (the tasks do not all use the same key order).
+        final Map<IIndex, List<byte[]>> keys = new IdentityHashMap<>();
+
+        for (AccessPathTask task : tasks) {
+
+          /*
+           * Empty and layered access paths do not expose a fromKey. Those tasks are not prefetched
+           * and simply fault in their leaves when they run.
+           */
+          if (!(task.accessPath instanceof AccessPath<?>)) continue;
+
+          final AccessPath<E> accessPath = (AccessPath<E>) task.accessPath;
+
+          final byte[] fromKey = accessPath.getFromKey();
+
+          if (fromKey == null) continue;
+
+          List<byte[]> list = keys.get(accessPath.getIndex());
+
+          if (list == null) {
+
+            list = new ArrayList<>(tasks.length);
+
+            keys.put(accessPath.getIndex(), list);
+          }
+
+          list.add(fromKey);
+        }
+
+        for (Map.Entry<IIndex, List<byte[]>> e : keys.entrySet()) {
+
+          if (e.getValue().size() < 2) continue;
+
+          final IIndex ndx = e.getKey();
+
+          final AbstractBTree[] sources;
+
+          if (ndx instanceof AbstractBTree) {
+
+            sources = new AbstractBTree[] {(AbstractBTree) ndx};
+
+          } else if (ndx instanceof ILocalBTreeView) {
+
+            sources = ((ILocalBTreeView) ndx).getSources();
+
+          } else {
+
+            continue;
+          }
+
+          final byte[][] a = e.getValue().toArray(new byte[e.getValue().size()][]);
+
+          for (AbstractBTree source : sources) {
+
+            halted();
+
+            if (source.isReadOnly()) source.prefetch(a);
+          }
+        }
+      }
+
       /*
        * Either execute the tasks in the caller's thread or schedule them for execution on the
        * supplied service.
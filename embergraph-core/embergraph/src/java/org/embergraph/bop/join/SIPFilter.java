@@ -0,0 +1,459 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.bop.join;
+
+import cutthecrap.utils.striterators.ICloseableIterator;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import org.apache.log4j.Logger;
+import org.embergraph.bop.BOpContext;
+import org.embergraph.bop.IBindingSet;
+import org.embergraph.bop.IConstant;
+import org.embergraph.bop.IElement;
+import org.embergraph.bop.IPredicate;
+import org.embergraph.bop.IQueryAttributes;
+import org.embergraph.bop.IVariable;
+import org.embergraph.bop.IVariableOrConstant;
+import org.embergraph.bop.ap.Predicate;
+import org.embergraph.bop.controller.INamedSolutionSetRef;
+import org.embergraph.relation.accesspath.ElementFilter;
+import org.embergraph.relation.accesspath.IElementFilter;
+
+/*
+ * A compact Bloom filter over the values bound for a join variable by the solutions in a hash
+ * index. Once the hash index has been built, the filter is published as a query attribute (sideways
+ * information passing). Access paths which bind the same variable may then use the filter to drop
+ * tuples which can not join with the hash index before those tuples are materialized or buffered
+ * into chunks.
+ *
+ * <p>A filter is only published for a variable which is bound in ALL solutions of the hash index.
+ * In that case, a tuple whose value for the variable is not in the filter is not compatible with any
+ * solution in the hash index and can not survive a join against it. Like any Bloom filter, it may
+ * report false positives (which are eliminated by the join), but never false negatives.
+ *
+ * <p>The filter is based on the {@link Object#hashCode()} of the bound values, which must be
+ * consistent with {@link Object#equals(Object)} for the values visited on the access paths.
+ *
+ * @see HashJoinAnnotations#SIP_VARS
+ * @see IPredicate.Annotations#SIP_FILTERS
+ */
+public class SIPFilter implements Serializable {
+
+  private static final transient Logger log = Logger.getLogger(SIPFilter.class);
+
+  /** */
+  private static final long serialVersionUID = 1L;
+
+  /** The #of bits per value in the filter. */
+  static final int BITS_PER_VALUE = 8;
+
+  /** The #of hash functions. This gives ~2.4% false positives at {@link #BITS_PER_VALUE}. */
+  static final int HASH_COUNT = 4;
+
+  /** The minimum size of the filter in bits. */
+  static final int MIN_BITS = 1 << 6;
+
+  /** The maximum size of the filter in bits (32MB). */
+  static final int MAX_BITS = 1 << 28;
+
+  /** The bits (the length is a power of two). */
+  private final long[] bits;
+
+  /** The mask used to map a hash code onto a bit index. */
+  private final int mask;
+
+  /*
+   * @param expectedValues The expected #of distinct values. The size of the filter is chosen from
+   *     this and {@link #BITS_PER_VALUE}.
+   */
+  public SIPFilter(final long expectedValues) {
+
+    if (expectedValues < 0) throw new IllegalArgumentException();
+
+    final long nbits =
+        Math.min(MAX_BITS, Math.max(MIN_BITS, expectedValues * BITS_PER_VALUE));
+
+    // round up to a power of two.
+    final int size = Integer.highestOneBit((int) nbits - 1) << 1;
+
+    this.bits = new long[size >>> 6];
+
+    this.mask = size - 1;
+  }
+
+  /** Add a value to the filter. */
+  public void add(final Object value) {
+
+    final long h = hash(value);
+
+    final int h1 = (int) h;
+
+    final int h2 = (int) (h >>> 32) | 1;
+
+    for (int i = 0; i < HASH_COUNT; i++) {
+
+      final int bit = (h1 + i * h2) & mask;
+
+      bits[bit >>> 6] |= 1L << bit;
+    }
+  }
+
+  /*
+   * Return <code>false</code> iff the value was definitely not added to the filter.
+   *
+   * @param value The value.
+   */
+  public boolean contains(final Object value) {
+
+    final long h = hash(value);
+
+    final int h1 = (int) h;
+
+    final int h2 = (int) (h >>> 32) | 1;
+
+    for (int i = 0; i < HASH_COUNT; i++) {
+
+      final int bit = (h1 + i * h2) & mask;
+
+      if ((bits[bit >>> 6] & (1L << bit)) == 0) return false;
+    }
+
+    return true;
+  }
+
+  /** The size of the filter in bits. */
+  public int size() {
+
+    return mask + 1;
+  }
+
+  /** Spread the hash code of the value over 64 bits. */
+  private static long hash(final Object value) {
+
+    long h = value.hashCode() * 0x9E3779B97F4A7C15L;
+
+    h ^= h >>> 29;
+
+    h *= 0xBF58476D1CE4E5B9L;
+
+    return h ^ (h >>> 32);
+  }
+
+  @Override
+  public String toString() {
+
+    return getClass().getSimpleName() + "{size=" + size() + "}";
+  }
+
+  /*
+   * Build a filter for each of the given variables from the solutions in the hash index. No filter
+   * is built for a variable which is not bound in every solution.
+   *
+   * @param state The hash index.
+   * @param vars The variables.
+   * @return The filters, correlated with the variables. An element is <code>null</code> if no
+   *     filter could be built for that variable.
+   */
+  public static SIPFilter[] newInstance(final IHashJoinUtility state, final IVariable<?>[] vars) {
+
+    if (state == null) throw new IllegalArgumentException();
+
+    if (vars == null) throw new IllegalArgumentException();
+
+    final SIPFilter[] filters = new SIPFilter[vars.length];
+
+    for (int i = 0; i < vars.length; i++) {
+
+      filters[i] = new SIPFilter(state.getRightSolutionCount());
+    }
+
+    final ICloseableIterator<IBindingSet> itr = state.indexScan();
+
+    try {
+
+      while (itr.hasNext()) {
+
+        final IBindingSet bset = itr.next();
+
+        for (int i = 0; i < vars.length; i++) {
+
+          if (filters[i] == null) continue;
+
+          @SuppressWarnings("rawtypes")
+          final IConstant c = bset.get(vars[i]);
+
+          if (c == null) {
+
+            // Not bound in all solutions.
+            filters[i] = null;
+
+            continue;
+          }
+
+          filters[i].add(c.get());
+        }
+      }
+
+    } finally {
+
+      itr.close();
+    }
+
+    return filters;
+  }
+
+  /*
+   * Build the filters for the given variables from the solutions in the hash index and publish
+   * them on the query attributes.
+   *
+   * @param attrs The attributes of the query on which the hash index was published.
+   * @param namedSetRef The hash index.
+   * @param state The state for that hash index.
+   * @param vars The variables.
+   * @return The #of filters which were published.
+   */
+  public static int publish(
+      final IQueryAttributes attrs,
+      final INamedSolutionSetRef namedSetRef,
+      final IHashJoinUtility state,
+      final IVariable<?>[] vars) {
+
+    final SIPFilter[] filters = newInstance(state, vars);
+
+    int n = 0;
+
+    for (int i = 0; i < vars.length; i++) {
+
+      if (filters[i] == null) continue;
+
+      attrs.put(new FilterKey(namedSetRef, vars[i]), filters[i]);
+
+      n++;
+    }
+
+    if (log.isInfoEnabled())
+      log.info(
+          "Published "
+              + n
+              + " filters for "
+              + namedSetRef
+              + ": vars="
+              + Arrays.toString(vars)
+              + ", filters="
+              + Arrays.toString(filters));
+
+    return n;
+  }
+
+  /*
+   * Return the filter published for the variable by the hash index.
+   *
+   * @param attrs The attributes of the query on which the hash index was published.
+   * @param namedSetRef The hash index.
+   * @param var The variable.
+   * @return The filter -or- <code>null</code> if none was published.
+   */
+  public static SIPFilter get(
+      final IQueryAttributes attrs,
+      final INamedSolutionSetRef namedSetRef,
+      final IVariable<?> var) {
+
+    return (SIPFilter) attrs.get(new FilterKey(namedSetRef, var));
+  }
+
+  /*
+   * Return a predicate which imposes the filters published by the hash indices identified by the
+   * {@link IPredicate.Annotations#SIP_FILTERS} annotation for the variables of the predicate as an
+   * {@link IPredicate.Annotations#INDEX_LOCAL_FILTER}. Positions of the predicate which are bound
+   * to a constant are not filtered since they are already part of the key range.
+   *
+   * @param pred The predicate.
+   * @param context The evaluation context.
+   * @return The given predicate if there are no published filters for its variables, otherwise a
+   *     new predicate.
+   */
+  @SuppressWarnings("rawtypes")
+  public static <E> IPredicate<E> addFilters(
+      final IPredicate<E> pred, final BOpContext<IBindingSet> context) {
+
+    final INamedSolutionSetRef[] refs =
+        (INamedSolutionSetRef[]) pred.getProperty(IPredicate.Annotations.SIP_FILTERS);
+
+    if (refs == null || refs.length == 0 || !(pred instanceof Predicate)) return pred;
+
+    final List<Integer> index = new ArrayList<>();
+
+    final List<SIPFilter> filters = new ArrayList<>();
+
+    for (INamedSolutionSetRef ref : refs) {
+
+      final IQueryAttributes attrs = context.getQueryAttributes(ref.getQueryId());
+
+      for (int i = 0; i < pred.arity(); i++) {
+
+        final IVariableOrConstant t = pred.get(i);
+
+        if (t == null || !t.isVar()) continue;
+
+        final SIPFilter filter = get(attrs, ref, (IVariable<?>) t);
+
+        if (filter == null) continue;
+
+        index.add(i);
+
+        filters.add(filter);
+      }
+    }
+
+    if (filters.isEmpty()) return pred;
+
+    final int[] a = new int[index.size()];
+
+    for (int i = 0; i < a.length; i++) a[i] = index.get(i);
+
+    return ((Predicate<E>) pred)
+        .addIndexLocalFilter(
+            ElementFilter.newInstance(
+                new SIPElementFilter<E>(a, filters.toArray(new SIPFilter[filters.size()]))));
+  }
+
+  /*
+   * The key for a published filter. The key is formed from the query, the local name of the named
+   * solution set and the variable. The join variables of the named solution set are not part of the
+   * key since the same solutions may be re-indexed on different join variables.
+   */
+  private static class FilterKey {
+
+    private final UUID queryId;
+
+    private final String localName;
+
+    private final IVariable<?> var;
+
+    FilterKey(final INamedSolutionSetRef namedSetRef, final IVariable<?> var) {
+
+      if (namedSetRef == null) throw new IllegalArgumentException();
+
+      if (var == null) throw new IllegalArgumentException();
+
+      this.queryId = namedSetRef.getQueryId();
+
+      this.localName = namedSetRef.getLocalName();
+
+      this.var = var;
+    }
+
+    @Override
+    public int hashCode() {
+
+      return (localName.hashCode() * 31 + var.hashCode()) * 31
+          + (queryId == null ? 0 : queryId.hashCode());
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+
+      if (this == o) return true;
+
+      if (!(o instanceof FilterKey)) return false;
+
+      final FilterKey t = (FilterKey) o;
+
+      return localName.equals(t.localName)
+          && var.equals(t.var)
+          && (queryId == null ? t.queryId == null : queryId.equals(t.queryId));
+    }
+
+    @Override
+    public String toString() {
+
+      return SIPFilter.class.getSimpleName()
+          + "{queryId="
+          + queryId
+          + ", localName="
+          + localName
+          + ", var="
+          + var
+          + "}";
+    }
+  }
+
+  /*
+   * Filter rejects elements whose value at any of the given positions is not in the corresponding
+   * {@link SIPFilter}.
+   *
+   * @param <E> The generic type of the elements that will be tested by the filter.
+   */
+  static class SIPElementFilter<E> implements IElementFilter<E> {
+
+    /** */
+    private static final long serialVersionUID = 1L;
+
+    /** The positions in the element. */
+    private final int[] index;
+
+    /** The filters, correlated with the {@link #index}. */
+    private final SIPFilter[] filters;
+
+    SIPElementFilter(final int[] index, final SIPFilter[] filters) {
+
+      if (index.length != filters.length) throw new IllegalArgumentException();
+
+      this.index = index;
+
+      this.filters = filters;
+    }
+
+    @Override
+    public boolean canAccept(final Object o) {
+
+      return o instanceof IElement;
+    }
+
+    @Override
+    public boolean isValid(final Object o) {
+
+      if (!(o instanceof IElement)) return true;
+
+      final IElement e = (IElement) o;
+
+      for (int i = 0; i < index.length; i++) {
+
+        final Object value = e.get(index[i]);
+
+        if (value != null && !filters[i].contains(value)) return false;
+      }
+
+      return true;
+    }
+
+    @Override
+    public String toString() {
+
+      return getClass().getSimpleName()
+          + "{index="
+          + Arrays.toString(index)
+          + ", filters="
+          + Arrays.toString(filters)
+          + "}";
+    }
+  }
+}
@@ -0,0 +1,408 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package org.embergraph.bop.joinGraph.rto;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import org.apache.log4j.Logger;
+import org.embergraph.bop.BOp;
+import org.embergraph.bop.BOpContext;
+import org.embergraph.bop.BOpUtility;
+import org.embergraph.bop.IBindingSet;
+import org.embergraph.bop.IPredicate;
+import org.embergraph.bop.IVariable;
+import org.embergraph.bop.NV;
+import org.embergraph.bop.PipelineOp;
+import org.embergraph.bop.engine.QueryEngine;
+import org.embergraph.rdf.sparql.ast.eval.AST2BOpRTO;
+
+/*
+ * A join graph which is evaluated in the join order chosen by the static query optimizer, but which
+ * re-optimizes the remaining joins at runtime when the cardinality estimates behind that join
+ * order turn out to be wrong.
+ *
+ * <p>The join order is checked one join at a time, starting from the first {@link
+ * Annotations#LIMIT} upstream solutions. A cutoff join of the next vertex is run against the sample
+ * of the join path so far. The observed join hit ratio gives a live estimate of the cardinality of
+ * that join, which is compared with the estimate used by the static optimizer ({@link
+ * Annotations#ESTIMATES}). If they differ by more than {@link Annotations#ERROR_FACTOR}, then the
+ * static join order is abandoned and each of the remaining joins is chosen greedily: the cutoff
+ * join is run for each remaining vertex which shares a variable with the join path and the vertex
+ * having the lowest estimated cardinality is joined next. The output of the cutoff join for the
+ * chosen vertex is the sample of the extended join path.
+ *
+ * <p>Once the join order is complete, the join path is evaluated as a single pipelined subquery
+ * which writes onto the sink of this operator. The intermediate solutions are therefore never
+ * materialized: only the samples, which are bounded by {@link Annotations#LIMIT}, are held on the
+ * JVM heap. Like the {@link JoinGraph}, this operator materializes the upstream solutions and is
+ * evaluated on the query controller.
+ *
+ * @see org.embergraph.rdf.sparql.ast.QueryOptimizerEnum#Adaptive
+ */
+public class AdaptiveJoinGraph extends JoinGraph {
+
+  private static final transient Logger log = Logger.getLogger(AdaptiveJoinGraph.class);
+
+  private static final long serialVersionUID = 1L;
+
+  /** Known annotations. */
+  public interface Annotations extends JoinGraph.Annotations {
+
+    /*
+     * The estimated cardinality of the join path after each join in the order of the {@link
+     * #VERTICES}, expressed as a <code>long[]</code> (required). These are the estimates on which
+     * the static join order was based.
+     */
+    String ESTIMATES = AdaptiveJoinGraph.class.getName() + ".estimates";
+
+    /*
+     * The join order is re-optimized when the live estimate of the cardinality of a join differs
+     * from the static estimate by more than this factor (default {@value #DEFAULT_ERROR_FACTOR}).
+     */
+    String ERROR_FACTOR = AdaptiveJoinGraph.class.getName() + ".errorFactor";
+
+    int DEFAULT_ERROR_FACTOR = 10;
+  }
+
+  public AdaptiveJoinGraph(final AdaptiveJoinGraph op) {
+
+    super(op);
+  }
+
+  public AdaptiveJoinGraph(final BOp[] args, final NV... anns) {
+
+    this(args, NV.asMap(anns));
+  }
+
+  public AdaptiveJoinGraph(final BOp[] args, final Map<String, Object> anns) {
+
+    super(args, anns);
+
+    if (getEstimates().length != getVertices().length)
+      throw new IllegalArgumentException(Annotations.ESTIMATES);
+
+    if (getErrorFactor() < 1) throw new IllegalArgumentException(Annotations.ERROR_FACTOR);
+  }
+
+  /** @see Annotations#ESTIMATES */
+  public long[] getEstimates() {
+
+    return (long[]) getRequiredProperty(Annotations.ESTIMATES);
+  }
+
+  /** @see Annotations#ERROR_FACTOR */
+  public int getErrorFactor() {
+
+    return getProperty(Annotations.ERROR_FACTOR, Annotations.DEFAULT_ERROR_FACTOR);
+  }
+
+  @Override
+  public FutureTask<Void> eval(final BOpContext<IBindingSet> context) {
+
+    return new FutureTask<>(new AdaptiveJoinGraphTask(context));
+  }
+
+  /*
+   * Return <code>true</code> iff the live estimate and the static estimate differ by more than the
+   * given factor. When the live estimate is only a lower bound (the cutoff join was cut off before
+   * its source sample was consumed), it can only contradict a static estimate which is too low.
+   *
+   * @param edgeSample The cutoff join providing the live estimate.
+   * @param expected The static estimate.
+   * @param errorFactor The factor.
+   */
+  static boolean isMisestimated(
+      final EdgeSample edgeSample, final long expected, final int errorFactor) {
+
+    final long actual = edgeSample.estCard;
+
+    if (edgeSample.estimateEnum == EstimateEnum.LowerBound && actual <= expected) return false;
+
+    final double a = Math.max(1L, actual);
+
+    final double e = Math.max(1L, expected);
+
+    return Math.max(a, e) / Math.min(a, e) > errorFactor;
+  }
+
+  /** Evaluation of an {@link AdaptiveJoinGraph}. */
+  private class AdaptiveJoinGraphTask implements Callable<Void> {
+
+    private final BOpContext<IBindingSet> context;
+
+    private final QueryEngine queryEngine;
+
+    AdaptiveJoinGraphTask(final BOpContext<IBindingSet> context) {
+
+      if (context == null) throw new IllegalArgumentException();
+
+      this.context = context;
+
+      this.queryEngine = context.getRunningQuery().getQueryEngine();
+    }
+
+    @Override
+    public Void call() throws Exception {
+
+      try {
+
+        // Fully materialize the upstream solutions.
+        final IBindingSet[] solutions =
+            BOpUtility.toArray(context.getSource(), context.getStats());
+
+        if (solutions.length > 0) {
+
+          final IPredicate<?>[] path = getJoinOrder(solutions);
+
+          final PipelineOp queryOp =
+              AST2BOpRTO.compileJoinGraph(
+                  queryEngine,
+                  AdaptiveJoinGraph.this,
+                  path,
+                  0 /* fromIndex */,
+                  true /* pathIsComplete */);
+
+          JoinGraph.runSubquery(context, queryOp, solutions);
+        }
+
+        // Now that we know the subqueries ran Ok, flush the sink.
+        context.getSink().flush();
+
+        return null;
+
+      } finally {
+
+        context.getSink().close();
+
+        if (context.getSink2() != null) context.getSink2().close();
+
+        context.getSource().close();
+      }
+    }
+
+    /*
+     * Choose the join order, starting with the static join order and abandoning it once a live
+     * estimate contradicts the static estimates.
+     *
+     * @param solutions The upstream solutions.
+     * @return The vertices in the order in which they will be joined.
+     */
+    private IPredicate<?>[] getJoinOrder(final IBindingSet[] solutions)
+        throws InterruptedException {
+
+      final long[] estimates = getEstimates();
+
+      final int errorFactor = getErrorFactor();
+
+      // The vertices which have not been joined, in the static join order.
+      final List<IPredicate<?>> remaining = new LinkedList<>(Arrays.asList(getVertices()));
+
+      // The vertices which have been joined, in the order in which they were joined.
+      final List<IPredicate<?>> path = new ArrayList<>(remaining.size());
+
+      // The sample of the join path (bounded by the LIMIT).
+      SampleBase sourceSample = newSourceSample(solutions);
+
+      // true once the static join order has been abandoned.
+      boolean replan = false;
+
+      while (remaining.size() > 1 && sourceSample.getSample().length > 0) {
+
+        if (Thread.currentThread().isInterrupted()) throw new InterruptedException();
+
+        IPredicate<?> next = remaining.get(0);
+
+        EdgeSample edgeSample = null;
+
+        if (!replan) {
+
+          edgeSample = sample(path, next, sourceSample);
+
+          final long expected = estimates[path.size()];
+
+          if (isMisestimated(edgeSample, expected, errorFactor)) {
+
+            if (log.isInfoEnabled())
+              log.info(
+                  "Re-optimizing join order: step="
+                      + path.size()
+                      + ", expected="
+                      + expected
+                      + ", actual="
+                      + edgeSample.estCard
+                      + ", pred="
+                      + next.toShortString());
+
+            replan = true;
+
+            edgeSample.releaseSample();
+          }
+        }
+
+        if (replan) {
+
+          final Map.Entry<IPredicate<?>, EdgeSample> e =
+              getNextVertex(path, remaining, sourceSample);
+
+          next = e.getKey();
+
+          edgeSample = e.getValue();
+        }
+
+        sourceSample.releaseSample();
+
+        path.add(next);
+
+        remaining.remove(next);
+
+        sourceSample = edgeSample;
+      }
+
+      sourceSample.releaseSample();
+
+      // The remaining vertices are joined in the static join order.
+      path.addAll(remaining);
+
+      return path.toArray(new IPredicate[0]);
+    }
+
+    /*
+     * Choose the next vertex to be joined based on cutoff joins against the sample of the join
+     * path. Only the vertices which share a variable with the join path are considered (unless
+     * there are no such vertices). Ties are broken by the static join order.
+     *
+     * @return The chosen vertex and its cutoff join, which is the sample of the extended join path.
+     */
+    private Map.Entry<IPredicate<?>, EdgeSample> getNextVertex(
+        final List<IPredicate<?>> path,
+        final List<IPredicate<?>> remaining,
+        final SampleBase sourceSample)
+        throws InterruptedException {
+
+      // The variables bound by the join path.
+      final Set<IVariable<?>> bound = new LinkedHashSet<>();
+
+      for (IPredicate<?> p : path) addVariables(p, bound);
+
+      final List<IPredicate<?>> candidates = new ArrayList<>(remaining.size());
+
+      for (IPredicate<?> p : remaining) {
+
+        final Set<IVariable<?>> vars = new LinkedHashSet<>();
+
+        addVariables(p, vars);
+
+        vars.retainAll(bound);
+
+        if (!vars.isEmpty()) candidates.add(p);
+      }
+
+      if (candidates.isEmpty()) candidates.addAll(remaining);
+
+      IPredicate<?> best = null;
+
+      EdgeSample bestSample = null;
+
+      for (IPredicate<?> p : candidates) {
+
+        if (Thread.currentThread().isInterrupted()) throw new InterruptedException();
+
+        final EdgeSample edgeSample = sample(path, p, sourceSample);
+
+        if (bestSample == null || edgeSample.estCard < bestSample.estCard) {
+
+          if (bestSample != null) bestSample.releaseSample();
+
+          best = p;
+
+          bestSample = edgeSample;
+
+        } else {
+
+          edgeSample.releaseSample();
+        }
+      }
+
+      if (log.isInfoEnabled())
+        log.info(
+            "Next join: step="
+                + path.size()
+                + ", estCard="
+                + bestSample.estCard
+                + ", pred="
+                + best);
+
+      return new AbstractMap.SimpleImmutableEntry<>(best, bestSample);
+    }
+
+    /*
+     * Run a cutoff join of the given vertex against the sample of the join path. The caller is
+     * responsible for releasing the sample of the returned cutoff join.
+     */
+    private EdgeSample sample(
+        final List<IPredicate<?>> path, final IPredicate<?> p, final SampleBase sourceSample) {
+
+      final IPredicate<?>[] a = path.toArray(new IPredicate[path.size() + 1]);
+
+      a[path.size()] = p;
+
+      return AST2BOpRTO.cutoffJoin(
+          queryEngine,
+          AdaptiveJoinGraph.this,
+          getLimit(),
+          a,
+          getConstraints(),
+          false /* pathIsComplete */,
+          sourceSample);
+    }
+
+    /*
+     * Return a sample of the upstream solutions. The sample is the first {@link Annotations#LIMIT}
+     * solutions. It is exact iff it contains all of the solutions.
+     */
+    private SampleBase newSourceSample(final IBindingSet[] solutions) {
+
+      final int limit = getLimit();
+
+      if (solutions.length <= limit) {
+
+        return new VertexSample(solutions.length, limit, EstimateEnum.Exact, solutions);
+      }
+
+      return new VertexSample(
+          solutions.length, limit, EstimateEnum.Normal, Arrays.copyOf(solutions, limit));
+    }
+  }
+
+  /** Add the variables of the predicate to the set. */
+  private static void addVariables(final IPredicate<?> p, final Set<IVariable<?>> vars) {
+
+    final Iterator<IVariable<?>> itr = BOpUtility.getArgumentVariables(p);
+
+    while (itr.hasNext()) vars.add(itr.next());
+  }
+}
@@ -437,8 +437,12 @@ public class JoinGraph extends PipelineOp {
       // The query plan.
       final PipelineOp queryOp = getQueryPlan(context.getRunningQuery());
 
+      // Fully materialize the upstream solutions.
+      final IBindingSet[] bindingSets =
+          BOpUtility.toArray(context.getSource(), context.getStats());
+
       // Run the query, blocking until it is done.
-      JoinGraph.runSubquery(context, queryOp);
+      JoinGraph.runSubquery(context, queryOp, bindingSets);
 
       //	        final long elapsed_queryExecution = System.nanoTime() - mark;
       //
@@ -458,9 +462,16 @@ public class JoinGraph extends PipelineOp {
    * <p>Note: When executing the query, it is actually being executed as a subquery. Therefore we
    * have to take appropriate care to ensure that the results are copied out of the subquery and
    * into the parent query. See {@link AbstractSubqueryOp} for how this is done.
+   *
+   * @param parentContext The context of the operator running the subquery.
+   * @param queryOp The query plan.
+   * @param bindingSets The source solutions for the subquery.
    */
-  private static void runSubquery(
-      final BOpContext<IBindingSet> parentContext, final PipelineOp queryOp) throws Exception {
+  static void runSubquery(
+      final BOpContext<IBindingSet> parentContext,
+      final PipelineOp queryOp,
+      final IBindingSet[] bindingSets)
+      throws Exception {
 
     if (parentContext == null) throw new IllegalArgumentException();
 
@@ -474,10 +485,6 @@ public class JoinGraph extends PipelineOp {
 
     ICloseableIterator<IBindingSet[]> subquerySolutionItr = null;
 
-    // Fully materialize the upstream solutions.
-    final IBindingSet[] bindingSets =
-        BOpUtility.toArray(parentContext.getSource(), parentContext.getStats());
-
     /*
      * Run on all available upstream solutions.
      *
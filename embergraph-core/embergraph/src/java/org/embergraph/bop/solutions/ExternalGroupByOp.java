@@ -0,0 +1,975 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.bop.solutions;
+
+import cutthecrap.utils.striterators.ICloseableIterator;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import org.apache.log4j.Logger;
+import org.embergraph.bop.BOp;
+import org.embergraph.bop.BOpContext;
+import org.embergraph.bop.Constant;
+import org.embergraph.bop.IBind;
+import org.embergraph.bop.IBindingSet;
+import org.embergraph.bop.IConstant;
+import org.embergraph.bop.IQueryAttributes;
+import org.embergraph.bop.ISingleThreadedOp;
+import org.embergraph.bop.IValueExpression;
+import org.embergraph.bop.IVariable;
+import org.embergraph.bop.engine.BOpStats;
+import org.embergraph.rawstore.IPSOutputStream;
+import org.embergraph.rdf.error.SparqlTypeErrorException;
+import org.embergraph.rdf.internal.encoder.SolutionSetStreamDecoder;
+import org.embergraph.rdf.internal.encoder.SolutionSetStreamEncoder;
+import org.embergraph.relation.accesspath.IBlockingBuffer;
+import org.embergraph.relation.accesspath.UnsyncLocalOutputBuffer;
+import org.embergraph.rwstore.sector.IMemoryManager;
+import org.embergraph.striterator.Chunkerator;
+
+/*
+ * A generalized aggregation operator which buffers the solutions to be grouped on the native heap.
+ * Like the {@link MemoryGroupByOp}, this operator may be used to evaluate any aggregation request,
+ * including DISTINCT and nested aggregates. However, rather than holding every source solution on
+ * the JVM heap until the last pass, the operator is pipelined: it computes the GROUP BY value
+ * expressions for each source solution as it arrives and assigns the solution to one of {@link
+ * Annotations#PARTITION_COUNT} hash partitions based on the as-bound group. Once {@link
+ * Annotations#BUFFER_CAPACITY} solutions have been buffered, each partition is encoded using the
+ * {@link SolutionSetStreamEncoder} and written onto a child allocation context of the query's
+ * {@link IMemoryManager}.
+ *
+ * <p>When the last chunk of source solutions has been observed, the partitions are processed one at
+ * a time. All solutions for a given group fall into the same partition, so the groups can be formed
+ * and aggregated for one partition while the other partitions remain on the native heap. A
+ * partition which holds more than {@link Annotations#BUFFER_CAPACITY} solutions is split again
+ * using a different hash seed, recursively, until each partition fits. A partition which can not be
+ * split because all of its solutions belong to the same group is aggregated by decoding it from
+ * the native heap, just like the implicit group (below). The JVM heap burden during the
+ * aggregation phase is therefore bounded by {@link Annotations#BUFFER_CAPACITY} rather than by the
+ * size of the input. If no more than {@link Annotations#BUFFER_CAPACITY} solutions are observed,
+ * nothing is written onto the native heap.
+ *
+ * <p>When there is no GROUP BY clause, all solutions form a single implicit group. In this case the
+ * solutions for that group are decoded from the native heap each time an aggregate is evaluated
+ * rather than being materialized on the JVM heap all at once.
+ *
+ * <p>Note: The {@link IVSolutionSetEncoder} captures both the {@link IV}s and any cached {@link
+ * EmbergraphValue}s, so the materialized values required by aggregates such as SUM() and
+ * GROUP_CONCAT() survive the round trip through the native heap. This operator is therefore
+ * specific to solutions whose bindings are {@link IV}s.
+ *
+ * @see MemoryGroupByOp
+ */
+public class ExternalGroupByOp extends GroupByOp implements ISingleThreadedOp {
+
+  private static final transient Logger log = Logger.getLogger(ExternalGroupByOp.class);
+
+  /** */
+  private static final long serialVersionUID = 1L;
+
+  /*
+   * The maximum depth to which a partition is split. This is only a safeguard: a partition whose
+   * groups can not be separated by their hash codes is detected and aggregated without splitting
+   * it further.
+   */
+  private static final int MAX_DEPTH = 8;
+
+  public interface Annotations extends GroupByOp.Annotations {
+
+    /*
+     * The #of hash partitions into which the solutions are divided (default {@value
+     * #DEFAULT_PARTITION_COUNT}). The groups for one partition are formed on the JVM heap at a time.
+     */
+    String PARTITION_COUNT = ExternalGroupByOp.class.getName() + ".partitionCount";
+
+    int DEFAULT_PARTITION_COUNT = 64;
+
+    /*
+     * The maximum #of solutions which will be buffered on the JVM heap before the partitions are
+     * written onto the native heap (default {@value #DEFAULT_BUFFER_CAPACITY}).
+     */
+    String BUFFER_CAPACITY = ExternalGroupByOp.class.getName() + ".bufferCapacity";
+
+    int DEFAULT_BUFFER_CAPACITY = 100000;
+  }
+
+  /*
+   * {@inheritDoc}
+   *
+   * <p>Returns <code>false</code>. This is a generalized aggregation operator and may be used to
+   * evaluate any aggregation request.
+   */
+  @Override
+  public final boolean isPipelinedAggregationOp() {
+
+    return false;
+  }
+
+  /** Constructor required for {@link org.embergraph.bop.BOpUtility#deepCopy(FilterNode)}. */
+  public ExternalGroupByOp(final ExternalGroupByOp op) {
+    super(op);
+  }
+
+  /** Required shallow copy constructor. */
+  public ExternalGroupByOp(final BOp[] args, final Map<String, Object> annotations) {
+
+    super(args, annotations);
+
+    switch (getEvaluationContext()) {
+      case CONTROLLER:
+        break;
+      default:
+        throw new UnsupportedOperationException(
+            Annotations.EVALUATION_CONTEXT + "=" + getEvaluationContext());
+    }
+
+    assertMaxParallelOne();
+
+    if (!isLastPassRequested()) {
+      throw new UnsupportedOperationException(Annotations.LAST_PASS + "=" + isLastPassRequested());
+    }
+
+    getRequiredProperty(Annotations.GROUP_BY_STATE);
+
+    getRequiredProperty(Annotations.GROUP_BY_REWRITE);
+
+    if (getPartitionCount() <= 0)
+      throw new IllegalArgumentException(Annotations.PARTITION_COUNT + "=" + getPartitionCount());
+
+    if (getBufferCapacity() <= 0)
+      throw new IllegalArgumentException(Annotations.BUFFER_CAPACITY + "=" + getBufferCapacity());
+  }
+
+  /** @see Annotations#PARTITION_COUNT */
+  public int getPartitionCount() {
+
+    return getProperty(Annotations.PARTITION_COUNT, Annotations.DEFAULT_PARTITION_COUNT);
+  }
+
+  /** @see Annotations#BUFFER_CAPACITY */
+  public int getBufferCapacity() {
+
+    return getProperty(Annotations.BUFFER_CAPACITY, Annotations.DEFAULT_BUFFER_CAPACITY);
+  }
+
+  @Override
+  public FutureTask<Void> eval(final BOpContext<IBindingSet> context) {
+
+    return new FutureTask<>(new GroupByTask(this, context));
+  }
+
+  /*
+   * The as-bound values of the GROUP BY variables for a solution. Unlike the {@link MemoryGroupByOp}
+   * , the group is computed from the variables which were bound when the GROUP BY value expressions
+   * were evaluated so the group of a solution does not change when it is decoded from the native
+   * heap.
+   */
+  private static class Group {
+
+    /** The hash code for {@link #vals}. */
+    private final int hash;
+
+    /*
+     * The bound values for the GROUP BY variables in the order in which they were declared. An
+     * unbound variable is represented by {@link Constant#errorValue()}.
+     */
+    private final IConstant<?>[] vals;
+
+    Group(final IVariable<?>[] vars, final IBindingSet bset) {
+
+      this.vals = new IConstant<?>[vars.length];
+
+      for (int i = 0; i < vars.length; i++) {
+
+        final IConstant<?> c = bset.get(vars[i]);
+
+        vals[i] = c == null ? Constant.errorValue() : c;
+      }
+
+      this.hash = Arrays.hashCode(vals);
+    }
+
+    @Override
+    public String toString() {
+      return super.toString() + "{group=" + Arrays.toString(vals) + "}";
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Group)) {
+        return false;
+      }
+      final Group t = (Group) o;
+      return Arrays.equals(vals, t.vals);
+    }
+  } // Group
+
+  /** A segment of a partition which has been written onto the native heap. */
+  private static class Segment {
+
+    /*
+     * The allocation context on which the segment was written. The segment is released by clearing
+     * this context since freeing {@link #addr} directly would leave the blocks of a multi-block
+     * stream registered with the enclosing allocation context.
+     */
+    final IMemoryManager mmgr;
+
+    /** The address of the encoded solutions. */
+    final long addr;
+
+    /** The #of solutions in the segment. */
+    final long nsolutions;
+
+    Segment(final IMemoryManager mmgr, final long addr, final long nsolutions) {
+      this.mmgr = mmgr;
+      this.addr = addr;
+      this.nsolutions = nsolutions;
+    }
+  }
+
+  /** A hash partition of the source solutions. */
+  private static class Partition {
+
+    /** The solutions which have not yet been written onto the native heap. */
+    private final List<IBindingSet> buffer = new ArrayList<>();
+
+    /** The segments written onto the native heap (in the order in which they were written). */
+    private final LinkedList<Segment> segments = new LinkedList<>();
+
+    /** The #of solutions in the partition. */
+    long size() {
+
+      long n = buffer.size();
+
+      for (Segment s : segments) n += s.nsolutions;
+
+      return n;
+    }
+
+    /** Allocate the partitions for one pass. */
+    static Partition[] newPartitions(final int partitionCount) {
+
+      final Partition[] partitions = new Partition[partitionCount];
+
+      for (int i = 0; i < partitionCount; i++) {
+        partitions[i] = new Partition();
+      }
+
+      return partitions;
+    }
+  }
+
+  /*
+   * The state of the aggregation. A reference to this object is stored on the {@link
+   * IQueryAttributes} across the invocations of the operator.
+   */
+  private static class AggregationState {
+
+    /** The allocation context on which the partitions are written. */
+    private final IMemoryManager mmgr;
+
+    private final Partition[] partitions;
+
+    /** The #of solutions buffered on the JVM heap across all partitions. */
+    private int nbuffered = 0;
+
+    AggregationState(final IMemoryManager mmgr, final int partitionCount) {
+
+      this.mmgr = mmgr;
+
+      this.partitions = Partition.newPartitions(partitionCount);
+    }
+
+    void release() {
+      for (Partition p : partitions) {
+        p.buffer.clear();
+        p.segments.clear();
+      }
+      nbuffered = 0;
+      mmgr.clear();
+    }
+  }
+
+  /** Task executing on the node. */
+  private static class GroupByTask implements Callable<Void> {
+
+    private final ExternalGroupByOp op;
+
+    private final BOpContext<IBindingSet> context;
+
+    private final BOpStats stats;
+
+    private final IGroupByState groupByState;
+
+    private final IGroupByRewriteState rewrite;
+
+    private final IValueExpression<?>[] groupBy;
+
+    /*
+     * The variables on which the GROUP BY value expressions are bound (or <code>null</code> if
+     * there is no GROUP BY clause).
+     */
+    private final IVariable<?>[] groupByVars;
+
+    private final int bufferCapacity;
+
+    private final int chunkCapacity;
+
+    /*
+     * The {@link IQueryAttributes} for the {@link IRunningQuery} off which we will hang the
+     * aggregation state.
+     */
+    private final IQueryAttributes attrs;
+
+    /*
+     * The name of the key under which the {@link #state} is stored in the {@link IQueryAttributes}.
+     */
+    private final String key;
+
+    private transient AggregationState state;
+
+    GroupByTask(final ExternalGroupByOp op, final BOpContext<IBindingSet> context) {
+
+      this.op = op;
+
+      this.context = context;
+
+      this.stats = context.getStats();
+
+      this.groupByState = op.getGroupByState();
+
+      this.rewrite = op.getGroupByRewrite();
+
+      this.groupBy = groupByState.getGroupByClause();
+
+      if (groupBy == null) {
+
+        this.groupByVars = null;
+
+      } else {
+
+        this.groupByVars = new IVariable<?>[groupBy.length];
+
+        for (int i = 0; i < groupBy.length; i++) {
+
+          final IValueExpression<?> expr = groupBy[i];
+
+          groupByVars[i] =
+              expr instanceof IBind<?> ? ((IBind<?>) expr).getVar() : (IVariable<?>) expr;
+        }
+      }
+
+      this.bufferCapacity = op.getBufferCapacity();
+
+      this.chunkCapacity = op.getChunkCapacity();
+
+      this.attrs = context.getQueryAttributes();
+
+      this.key = Integer.toString(op.getId());
+
+      state = (AggregationState) attrs.get(key);
+
+      if (state == null) {
+
+        state =
+            new AggregationState(
+                context.getMemoryManager(null /* queryId */).createAllocationContext(),
+                // Note: There is only one group if there is no GROUP BY clause.
+                groupBy == null ? 1 : op.getPartitionCount());
+
+        if (attrs.putIfAbsent(key, state) != null) throw new AssertionError();
+      }
+    }
+
+    void release() {
+
+      if (log.isInfoEnabled()) log.info("Releasing state");
+
+      attrs.remove(key);
+
+      state.release();
+
+      state = null;
+    }
+
+    @Override
+    public Void call() {
+
+      final ICloseableIterator<IBindingSet[]> itr = context.getSource();
+
+      final IBlockingBuffer<IBindingSet[]> sink = context.getSink();
+
+      final boolean lastInvocation = context.isLastInvocation();
+
+      try {
+
+        acceptSolutions(itr);
+
+        if (lastInvocation) {
+
+          doGroupBy(sink);
+        }
+
+      } catch (Throwable t) {
+
+        log.error(t, t);
+
+        throw new RuntimeException(t);
+
+      } finally {
+
+        if (lastInvocation) {
+
+          // Discard the operator's internal state.
+          release();
+        }
+
+        sink.close();
+      }
+
+      // Done.
+      return null;
+    }
+
+    /*
+     * Evaluate the GROUP BY value expressions for each source solution and buffer the solution in
+     * the partition for its group, writing the partitions onto the native heap each time the
+     * buffer is full.
+     *
+     * @param itr The source solutions.
+     */
+    private void acceptSolutions(final ICloseableIterator<IBindingSet[]> itr) {
+
+      try {
+
+        while (itr.hasNext()) {
+
+          final IBindingSet[] a = itr.next();
+
+          stats.chunksIn.increment();
+          stats.unitsIn.add(a.length);
+
+          for (IBindingSet bset : a) {
+
+            final Partition p = state.partitions[partition(bset)];
+
+            p.buffer.add(bset);
+
+            if (++state.nbuffered >= bufferCapacity) {
+
+              spill(state.partitions);
+
+              state.nbuffered = 0;
+            }
+          }
+        }
+
+      } finally {
+
+        itr.close();
+      }
+    }
+
+    /*
+     * Return the index of the partition for the solution. The GROUP BY value expressions are
+     * evaluated as a side-effect, which binds the variables for any computed GROUP BY expressions
+     * on the solution.
+     */
+    private int partition(final IBindingSet bset) {
+
+      if (groupBy == null) return 0;
+
+      for (IValueExpression<?> expr : groupBy) {
+
+        if (expr instanceof IBind<?>) {
+
+          try {
+            // Note: side-effect on [bset].
+            expr.get(bset);
+          } catch (SparqlTypeErrorException ex) {
+            // The variable is not bound. Handled as an error value for the group.
+          }
+        }
+      }
+
+      final int hash = new Group(groupByVars, bset).hashCode();
+
+      return partition(hash, 0 /* depth */, state.partitions.length);
+    }
+
+    /*
+     * Return the index of the partition for a group. Each depth uses a different hash seed, so the
+     * groups which fell into the same partition at one depth are spread over the partitions at the
+     * next depth.
+     *
+     * @param hash The hash code of the group.
+     * @param depth The depth of the partitioning pass.
+     * @param partitionCount The #of partitions.
+     */
+    private static int partition(final int hash, final int depth, final int partitionCount) {
+
+      int h = hash;
+
+      if (depth > 0) {
+
+        // Mix the seeded hash code (the MurmurHash3 finalizer).
+        h ^= depth * 0x9E3779B9;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+      }
+
+      // Spread the high bits of the hash code into the low bits.
+      h ^= h >>> 16;
+
+      return Math.floorMod(h, partitionCount);
+    }
+
+    /** Write the buffered solutions for each partition onto the native heap. */
+    private void spill(final Partition[] partitions) {
+
+      for (Partition p : partitions) {
+
+        if (p.buffer.isEmpty()) continue;
+
+        p.segments.add(writeSegment(p.buffer));
+
+        p.buffer.clear();
+      }
+
+      if (log.isDebugEnabled()) log.debug("Wrote partitions onto the native heap.");
+    }
+
+    /** Release the native heap allocations and the buffered solutions for a partition. */
+    private void release(final Partition p) {
+
+      for (Segment s : p.segments) s.mmgr.clear();
+
+      p.segments.clear();
+
+      p.buffer.clear();
+    }
+
+    /*
+     * Encode the solutions onto the native heap.
+     *
+     * @param solutions The solutions.
+     * @return The segment.
+     */
+    private Segment writeSegment(final List<IBindingSet> solutions) {
+
+      final SolutionSetStreamEncoder encoder = new SolutionSetStreamEncoder(key);
+
+      final IMemoryManager mmgr = state.mmgr.createAllocationContext();
+
+      final IPSOutputStream out = mmgr.getOutputStream();
+
+      try {
+
+        final DataOutputStream os = new DataOutputStream(out);
+
+        encoder.encode(
+            os, new Chunkerator<>(solutions.iterator(), chunkCapacity, IBindingSet.class));
+
+        os.flush();
+
+        out.flush();
+
+        return new Segment(mmgr, out.getAddr(), encoder.getSolutionCount());
+
+      } catch (IOException e) {
+
+        throw new RuntimeException(e);
+
+      } finally {
+
+        try {
+          out.close();
+        } catch (IOException e) {
+          // Unexpected exception.
+          log.error(e, e);
+        }
+      }
+    }
+
+    /*
+     * Form the groups and compute the aggregates one partition at a time.
+     *
+     * @param sink Where to write the results.
+     */
+    private void doGroupBy(final IBlockingBuffer<IBindingSet[]> sink) {
+
+      final long begin = System.currentTimeMillis();
+
+      final UnsyncLocalOutputBuffer<IBindingSet> out =
+          new UnsyncLocalOutputBuffer<>(chunkCapacity, sink);
+
+      long naccepted = 0;
+
+      for (Partition p : state.partitions) {
+
+        if (groupBy == null) {
+
+          // Compute the aggregate for the implicit group.
+          naccepted += aggregateGroup(p, out);
+
+        } else {
+
+          naccepted += aggregatePartition(p, 0 /* depth */, out);
+        }
+      }
+
+      out.flush();
+
+      sink.flush();
+
+      if (log.isInfoEnabled())
+        log.info(
+            "Aggregated "
+                + stats.unitsIn.get()
+                + " solutions into "
+                + naccepted
+                + " solutions in "
+                + (System.currentTimeMillis() - begin)
+                + "ms.");
+    }
+
+    /*
+     * Compute the aggregates for a partition. A partition which holds more solutions than the
+     * buffer capacity is split using the hash seed for the next depth and the aggregates are
+     * computed for each of the new partitions in turn. The partition is released before this method
+     * returns.
+     *
+     * @param p The partition.
+     * @param depth The depth of the pass which formed the partition.
+     * @param out Where to write the aggregated solutions.
+     * @return The #of aggregated solutions written.
+     */
+    private long aggregatePartition(
+        final Partition p, final int depth, final UnsyncLocalOutputBuffer<IBindingSet> out) {
+
+      if (p.size() <= bufferCapacity) {
+
+        return aggregateOnHeap(p, out);
+      }
+
+      if (isSingleGroup(p)) {
+
+        // The partition can not be split since its solutions all belong to the same group.
+        return aggregateGroup(p, out);
+      }
+
+      if (depth >= MAX_DEPTH) {
+
+        log.warn("Aggregating on the JVM heap: depth=" + depth + ", size=" + p.size());
+
+        return aggregateOnHeap(p, out);
+      }
+
+      long naccepted = 0;
+
+      for (Partition t : split(p, depth + 1)) {
+
+        naccepted += aggregatePartition(t, depth + 1, out);
+      }
+
+      return naccepted;
+    }
+
+    /*
+     * Split a partition, writing the new partitions onto the native heap each time the buffer is
+     * full. The partition is released.
+     *
+     * @param p The partition.
+     * @param depth The depth of this pass.
+     * @return The new partitions.
+     */
+    private Partition[] split(final Partition p, final int depth) {
+
+      final Partition[] partitions = Partition.newPartitions(state.partitions.length);
+
+      final PartitionIterable solutions = new PartitionIterable(p);
+
+      try {
+
+        int nbuffered = 0;
+
+        for (IBindingSet bset : solutions) {
+
+          final int hash = new Group(groupByVars, bset).hashCode();
+
+          partitions[partition(hash, depth, partitions.length)].buffer.add(bset);
+
+          if (++nbuffered >= bufferCapacity) {
+
+            spill(partitions);
+
+            nbuffered = 0;
+          }
+        }
+
+      } finally {
+
+        solutions.close();
+      }
+
+      release(p);
+
+      if (log.isDebugEnabled()) log.debug("Split partition: depth=" + depth);
+
+      return partitions;
+    }
+
+    /** Return <code>true</code> iff the solutions in the partition all belong to the same group. */
+    private boolean isSingleGroup(final Partition p) {
+
+      final PartitionIterable solutions = new PartitionIterable(p);
+
+      try {
+
+        Group first = null;
+
+        for (IBindingSet bset : solutions) {
+
+          final Group g = new Group(groupByVars, bset);
+
+          if (first == null) {
+
+            first = g;
+
+          } else if (!first.equals(g)) {
+
+            return false;
+          }
+        }
+
+        return true;
+
+      } finally {
+
+        solutions.close();
+      }
+    }
+
+    /*
+     * Compute the aggregate for a partition whose solutions all belong to a single group. The
+     * solutions are decoded from the native heap each time they are visited. The partition is
+     * released.
+     *
+     * @return The #of aggregated solutions written.
+     */
+    private long aggregateGroup(final Partition p, final UnsyncLocalOutputBuffer<IBindingSet> out) {
+
+      final PartitionIterable solutions = new PartitionIterable(p);
+
+      try {
+
+        final IBindingSet bset =
+            MemoryGroupByOp.aggregate(context, groupByState, rewrite, solutions, stats);
+
+        if (bset == null) return 0;
+
+        if (log.isDebugEnabled()) log.debug("output: solution=" + bset);
+
+        out.add(bset);
+
+        return 1;
+
+      } finally {
+
+        solutions.close();
+
+        release(p);
+      }
+    }
+
+    /*
+     * Form the groups for a partition on the JVM heap and compute the aggregates for each group.
+     * The partition is released.
+     *
+     * @return The #of aggregated solutions written.
+     */
+    private long aggregateOnHeap(
+        final Partition p, final UnsyncLocalOutputBuffer<IBindingSet> out) {
+
+      final LinkedHashMap<Group, List<IBindingSet>> map = new LinkedHashMap<>();
+
+      final PartitionIterable solutions = new PartitionIterable(p);
+
+      try {
+
+        for (IBindingSet bset : solutions) {
+
+          map.computeIfAbsent(new Group(groupByVars, bset), k -> new LinkedList<>()).add(bset);
+        }
+
+      } finally {
+
+        solutions.close();
+
+        release(p);
+      }
+
+      long naccepted = 0;
+
+      for (Map.Entry<Group, List<IBindingSet>> e : map.entrySet()) {
+
+        // Compute the aggregate for that group.
+        final IBindingSet bset =
+            MemoryGroupByOp.aggregate(context, groupByState, rewrite, e.getValue(), stats);
+
+        if (bset != null) {
+
+          if (log.isDebugEnabled())
+            log.debug("output: groupBy=" + e.getKey() + ", solution=" + bset);
+
+          out.add(bset);
+
+          naccepted++;
+
+        } else {
+
+          if (log.isDebugEnabled()) log.debug("output: groupBy=" + e.getKey() + " : dropped.");
+        }
+      }
+
+      return naccepted;
+    }
+
+    /*
+     * Visits the solutions in a partition: first those in the segments on the native heap and then
+     * those still buffered on the JVM heap. Each call to {@link #iterator()} decodes the segments
+     * again, so the solutions may be visited more than once without materializing them all on the
+     * JVM heap.
+     */
+    private class PartitionIterable implements Iterable<IBindingSet> {
+
+      private final Partition p;
+
+      /** The decoders opened by this object. */
+      private final List<ICloseableIterator<IBindingSet[]>> decoders = new LinkedList<>();
+
+      PartitionIterable(final Partition p) {
+        this.p = p;
+      }
+
+      @Override
+      public Iterator<IBindingSet> iterator() {
+
+        final Iterator<Segment> sitr = p.segments.iterator();
+
+        return new Iterator<IBindingSet>() {
+
+          private ICloseableIterator<IBindingSet[]> src = null;
+
+          private IBindingSet[] chunk = null;
+
+          private int pos = 0;
+
+          private boolean buffered = false;
+
+          @Override
+          public boolean hasNext() {
+
+            while (chunk == null || pos >= chunk.length) {
+
+              if (src != null && src.hasNext()) {
+
+                chunk = src.next();
+
+                pos = 0;
+
+                continue;
+              }
+
+              if (src != null) {
+
+                src.close();
+
+                src = null;
+              }
+
+              if (sitr.hasNext()) {
+
+                final Segment s = sitr.next();
+
+                src =
+                    new SolutionSetStreamDecoder(
+                        key,
+                        new DataInputStream(state.mmgr.getInputStream(s.addr)),
+                        s.nsolutions);
+
+                decoders.add(src);
+
+                continue;
+              }
+
+              if (!buffered) {
+
+                // Visit the solutions which were never written onto the native heap.
+                buffered = true;
+
+                chunk = p.buffer.toArray(new IBindingSet[0]);
+
+                pos = 0;
+
+                continue;
+              }
+
+              return false;
+            }
+
+            return true;
+          }
+
+          @Override
+          public IBindingSet next() {
+
+            if (!hasNext()) throw new NoSuchElementException();
+
+            return chunk[pos++];
+          }
+        };
+      }
+
+      void close() {
+
+        for (ICloseableIterator<IBindingSet[]> src : decoders) src.close();
+
+        decoders.clear();
+      }
+    }
+  } // GroupByTask
+} // ExternalGroupByOp
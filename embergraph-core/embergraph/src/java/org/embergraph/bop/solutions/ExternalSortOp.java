@@ -0,0 +1,732 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.bop.solutions;
+
+import cutthecrap.utils.striterators.ICloseableIterator;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import org.apache.log4j.Logger;
+import org.embergraph.bop.BOp;
+import org.embergraph.bop.BOpContext;
+import org.embergraph.bop.IBind;
+import org.embergraph.bop.IBindingSet;
+import org.embergraph.bop.IQueryAttributes;
+import org.embergraph.bop.ISingleThreadedOp;
+import org.embergraph.bop.IValueExpression;
+import org.embergraph.bop.IVariableOrConstant;
+import org.embergraph.bop.engine.BOpStats;
+import org.embergraph.rawstore.IPSOutputStream;
+import org.embergraph.rdf.error.SparqlTypeErrorException;
+import org.embergraph.rdf.internal.encoder.SolutionSetStreamDecoder;
+import org.embergraph.rdf.internal.encoder.SolutionSetStreamEncoder;
+import org.embergraph.relation.accesspath.IBlockingBuffer;
+import org.embergraph.rwstore.sector.IMemoryManager;
+import org.embergraph.striterator.Chunkerator;
+
+/*
+ * An external memory merge sort for binding sets. Like the {@link MemorySortOp}, the operator is
+ * pipelined and evaluates the value expressions on which the ordering will be imposed as each chunk
+ * of solutions arrives. However, rather than buffering every solution on the JVM heap until the
+ * last pass, the as-bound solutions are buffered in a bounded run. Each time that run is full it is
+ * sorted, encoded using the {@link SolutionSetStreamEncoder} and written onto a child allocation
+ * context of the query's {@link IMemoryManager}. When the last chunk of source solutions has been
+ * observed, the sorted runs are combined by a k-way merge and the solutions are streamed to the
+ * sink as they are merged.
+ *
+ * <p>The JVM heap burden is bounded by {@link Annotations#RUN_CAPACITY} solutions during the run
+ * generation phase and by {@link Annotations#MERGE_FAN_IN} decoded chunks during the merge phase.
+ * When there are more runs than the merge fan-in, intermediate merge passes combine runs into
+ * longer runs on the native heap until a single merge pass is sufficient. If all solutions fit in a
+ * single run then they are sorted on the JVM heap and nothing is written onto the native heap.
+ *
+ * <p>The merge is stable. Solutions which compare as equal are emitted in the order in which they
+ * were received, which is the same contract as the {@link MemorySortOp}.
+ *
+ * <p>Note: The {@link IVSolutionSetEncoder} captures both the {@link IV}s and any cached {@link
+ * EmbergraphValue}s, so materialized non-inline {@link IV}s (and mock {@link IV}s produced by
+ * computed value expressions) can still be compared by the value comparator after they have been
+ * decoded from a run. This operator is therefore specific to solutions whose bindings are {@link
+ * IV}s.
+ *
+ * @see MemorySortOp
+ */
+public class ExternalSortOp extends SortOp implements ISingleThreadedOp {
+
+  private static final transient Logger log = Logger.getLogger(ExternalSortOp.class);
+
+  /** */
+  private static final long serialVersionUID = 1L;
+
+  public interface Annotations extends SortOp.Annotations {
+
+    /*
+     * The maximum #of solutions which will be buffered on the JVM heap before they are sorted and
+     * written out as a run onto the native heap (default {@value #DEFAULT_RUN_CAPACITY}).
+     */
+    String RUN_CAPACITY = ExternalSortOp.class.getName() + ".runCapacity";
+
+    int DEFAULT_RUN_CAPACITY = 100000;
+
+    /*
+     * The maximum #of runs which will be merged in a single pass (default {@value
+     * #DEFAULT_MERGE_FAN_IN}). Each run being merged holds one decoded chunk of solutions on the JVM
+     * heap.
+     */
+    String MERGE_FAN_IN = ExternalSortOp.class.getName() + ".mergeFanIn";
+
+    int DEFAULT_MERGE_FAN_IN = 64;
+  }
+
+  /** Constructor required for {@link org.embergraph.bop.BOpUtility#deepCopy(FilterNode)}. */
+  public ExternalSortOp(final ExternalSortOp op) {
+    super(op);
+  }
+
+  /** Required shallow copy constructor. */
+  public ExternalSortOp(final BOp[] args, final Map<String, Object> annotations) {
+
+    super(args, annotations);
+
+    switch (getEvaluationContext()) {
+      case CONTROLLER:
+        break;
+      default:
+        throw new UnsupportedOperationException(
+            Annotations.EVALUATION_CONTEXT + "=" + getEvaluationContext());
+    }
+
+    assertMaxParallelOne();
+
+    if (!isLastPassRequested()) {
+      throw new UnsupportedOperationException(Annotations.LAST_PASS + "=" + isLastPassRequested());
+    }
+
+    // ORDER_BY must preserve order.
+    if (isReorderSolutions())
+      throw new UnsupportedOperationException(
+          Annotations.REORDER_SOLUTIONS + "=" + isReorderSolutions());
+
+    // required parameter.
+    getValueComparator();
+
+    if (getRunCapacity() <= 0)
+      throw new IllegalArgumentException(Annotations.RUN_CAPACITY + "=" + getRunCapacity());
+
+    if (getMergeFanIn() < 2)
+      throw new IllegalArgumentException(Annotations.MERGE_FAN_IN + "=" + getMergeFanIn());
+
+    // validate required parameter.
+    for (ISortOrder<?> s : getSortOrder()) {
+
+      final IValueExpression<?> expr = s.getExpr();
+
+      if (expr instanceof IVariableOrConstant<?>) continue;
+
+      if (expr instanceof IBind<?>) continue;
+
+      throw new IllegalArgumentException("Value expression not wrapped by bind: " + expr);
+    }
+  }
+
+  /** @see Annotations#RUN_CAPACITY */
+  public int getRunCapacity() {
+
+    return getProperty(Annotations.RUN_CAPACITY, Annotations.DEFAULT_RUN_CAPACITY);
+  }
+
+  /** @see Annotations#MERGE_FAN_IN */
+  public int getMergeFanIn() {
+
+    return getProperty(Annotations.MERGE_FAN_IN, Annotations.DEFAULT_MERGE_FAN_IN);
+  }
+
+  @Override
+  public FutureTask<Void> eval(final BOpContext<IBindingSet> context) {
+
+    return new FutureTask<>(new SortTask(this, context));
+  }
+
+  /** A sorted run which has been written onto the native heap. */
+  private static class Run {
+
+    /*
+     * The allocation context on which the run was written. The run is released by clearing this
+     * context. Freeing {@link #addr} directly would release the blocks of a multi-block stream
+     * without removing them from the enclosing allocation context, which would then free them a
+     * second time when it is cleared.
+     */
+    final IMemoryManager mmgr;
+
+    /** The address of the encoded run. */
+    final long addr;
+
+    /** The #of solutions in the run. */
+    final long nsolutions;
+
+    Run(final IMemoryManager mmgr, final long addr, final long nsolutions) {
+      this.mmgr = mmgr;
+      this.addr = addr;
+      this.nsolutions = nsolutions;
+    }
+  }
+
+  /*
+   * A cursor over a sorted run. The cursor holds at most one decoded chunk of solutions at a time.
+   */
+  private static class RunCursor {
+
+    /** The ordinal position of the run (used to break ties so that the merge is stable). */
+    final int index;
+
+    private final ICloseableIterator<IBindingSet[]> src;
+
+    private IBindingSet[] chunk;
+
+    private int pos;
+
+    RunCursor(final int index, final ICloseableIterator<IBindingSet[]> src) {
+      this.index = index;
+      this.src = src;
+    }
+
+    /*
+     * Advance to the next solution.
+     *
+     * @return <code>false</code> iff the run is exhausted.
+     */
+    boolean advance() {
+
+      if (chunk != null && ++pos < chunk.length) return true;
+
+      while (src.hasNext()) {
+
+        chunk = src.next();
+
+        pos = 0;
+
+        if (chunk.length > 0) return true;
+      }
+
+      chunk = null;
+
+      src.close();
+
+      return false;
+    }
+
+    /** The current solution. */
+    IBindingSet current() {
+      return chunk[pos];
+    }
+
+    void close() {
+      src.close();
+    }
+  }
+
+  /*
+   * The state of the sort. A reference to this object is stored on the {@link IQueryAttributes}
+   * across the invocations of the operator.
+   */
+  private static class SortState {
+
+    /** The allocation context on which the sorted runs are written. */
+    private final IMemoryManager mmgr;
+
+    /** The solutions for the current run. */
+    private final List<IBindingSet> buffer = new ArrayList<>();
+
+    /** The sorted runs written so far (in the order in which they were generated). */
+    private final LinkedList<Run> runs = new LinkedList<>();
+
+    SortState(final IMemoryManager mmgr) {
+      this.mmgr = mmgr;
+    }
+
+    void release() {
+      buffer.clear();
+      runs.clear();
+      mmgr.clear();
+    }
+  }
+
+  /** Task executing on the node. */
+  private static class SortTask implements Callable<Void> {
+
+    private final ExternalSortOp op;
+
+    private final BOpContext<IBindingSet> context;
+
+    private final BOpStats stats;
+
+    private final ISortOrder<?>[] sortOrder;
+
+    private final Comparator<IBindingSet> comparator;
+
+    private final int runCapacity;
+
+    private final int mergeFanIn;
+
+    private final int chunkCapacity;
+
+    /*
+     * The {@link IQueryAttributes} for the {@link IRunningQuery} off which we will hang the sort
+     * state.
+     */
+    private final IQueryAttributes attrs;
+
+    /*
+     * The name of the key under which the {@link #state} is stored in the {@link IQueryAttributes}.
+     */
+    private final String key;
+
+    private transient SortState state;
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    SortTask(final ExternalSortOp op, final BOpContext<IBindingSet> context) {
+
+      this.op = op;
+
+      this.context = context;
+
+      this.stats = context.getStats();
+
+      this.sortOrder = op.getSortOrder();
+
+      this.comparator = new BindingSetComparator(sortOrder, op.getValueComparator());
+
+      this.runCapacity = op.getRunCapacity();
+
+      this.mergeFanIn = op.getMergeFanIn();
+
+      this.chunkCapacity = op.getChunkCapacity();
+
+      this.attrs = context.getQueryAttributes();
+
+      this.key = Integer.toString(op.getId());
+
+      state = (SortState) attrs.get(key);
+
+      if (state == null) {
+
+        state =
+            new SortState(
+                context.getMemoryManager(null /* queryId */).createAllocationContext());
+
+        if (attrs.putIfAbsent(key, state) != null) throw new AssertionError();
+      }
+    }
+
+    void release() {
+
+      if (log.isInfoEnabled()) log.info("Releasing state");
+
+      attrs.remove(key);
+
+      state.release();
+
+      state = null;
+    }
+
+    @Override
+    public Void call() {
+
+      final ICloseableIterator<IBindingSet[]> itr = context.getSource();
+
+      final IBlockingBuffer<IBindingSet[]> sink = context.getSink();
+
+      final boolean lastInvocation = context.isLastInvocation();
+
+      try {
+
+        acceptSolutions(itr);
+
+        if (lastInvocation) {
+
+          doOrderBy(sink);
+        }
+
+      } catch (Throwable t) {
+
+        log.error(t, t);
+
+        throw new RuntimeException(t);
+
+      } finally {
+
+        if (lastInvocation) {
+
+          // Discard the operator's internal state.
+          release();
+        }
+
+        sink.close();
+      }
+
+      // Done.
+      return null;
+    }
+
+    /*
+     * Evaluate the value expressions for each input solution and buffer the as-bound solutions,
+     * spilling a sorted run onto the native heap each time the buffer is full.
+     *
+     * @param itr The source solutions.
+     */
+    private void acceptSolutions(final ICloseableIterator<IBindingSet[]> itr) {
+
+      try {
+
+        while (itr.hasNext()) {
+
+          final IBindingSet[] a = itr.next();
+
+          stats.chunksIn.increment();
+          stats.unitsIn.add(a.length);
+
+          for (IBindingSet bset : a) {
+
+            // Note: Necessary scope for type error reporting.
+            IValueExpression<?> expr = null;
+
+            try {
+
+              for (ISortOrder<?> s : sortOrder) {
+
+                /*
+                 * Evaluate. A BIND() will have side-effect on
+                 * [bset].
+                 */
+                (expr = s.getExpr()).get(bset);
+              }
+
+            } catch (SparqlTypeErrorException ex) {
+
+              // log type error, do not drop solution (see trac 765).
+              TypeErrorLog.handleTypeError(ex, expr, stats);
+            }
+
+            state.buffer.add(bset);
+
+            if (state.buffer.size() >= runCapacity) {
+
+              spillRun();
+            }
+          } // next source solution
+        }
+
+        if (log.isInfoEnabled())
+          log.info(
+              "Buffered "
+                  + state.buffer.size()
+                  + " solutions in the current run, "
+                  + state.runs.size()
+                  + " runs so far");
+
+      } finally {
+
+        itr.close();
+      }
+    } // acceptSolutions
+
+    /** Sort the buffered solutions and write them onto the native heap as a new run. */
+    private void spillRun() {
+
+      final IBindingSet[] all = state.buffer.toArray(new IBindingSet[0]);
+
+      state.buffer.clear();
+
+      if (all.length == 0) return;
+
+      Arrays.sort(all, comparator);
+
+      state.runs.add(
+          writeRun(
+              new Chunkerator<>(Arrays.asList(all).iterator(), chunkCapacity, IBindingSet.class)));
+
+      if (log.isDebugEnabled())
+        log.debug("Wrote run#" + state.runs.size() + " with " + all.length + " solutions");
+    }
+
+    /*
+     * Encode the (already ordered) solutions onto the native heap.
+     *
+     * @param src The ordered solutions.
+     * @return The run.
+     */
+    private Run writeRun(final ICloseableIterator<IBindingSet[]> src) {
+
+      final SolutionSetStreamEncoder encoder = new SolutionSetStreamEncoder(key);
+
+      final IMemoryManager mmgr = state.mmgr.createAllocationContext();
+
+      final IPSOutputStream out = mmgr.getOutputStream();
+
+      try {
+
+        final DataOutputStream os = new DataOutputStream(out);
+
+        encoder.encode(os, src);
+
+        os.flush();
+
+        out.flush();
+
+        return new Run(mmgr, out.getAddr(), encoder.getSolutionCount());
+
+      } catch (IOException e) {
+
+        throw new RuntimeException(e);
+
+      } finally {
+
+        try {
+          out.close();
+        } catch (IOException e) {
+          // Unexpected exception.
+          log.error(e, e);
+        }
+      }
+    }
+
+    /** Sort the solutions based on the as-bound value expressions. */
+    private void doOrderBy(final IBlockingBuffer<IBindingSet[]> sink) {
+
+      final long begin = System.currentTimeMillis();
+
+      if (state.runs.isEmpty()) {
+
+        /*
+         * Everything fits into a single run. Sort on the JVM heap.
+         */
+
+        final IBindingSet[] all = state.buffer.toArray(new IBindingSet[0]);
+
+        state.buffer.clear();
+
+        Arrays.sort(all, comparator);
+
+        if (log.isInfoEnabled())
+          log.info(
+              "Sorted "
+                  + all.length
+                  + " solutions in "
+                  + (System.currentTimeMillis() - begin)
+                  + "ms.");
+
+        for (IBindingSet bset : all) {
+          dropComputedBindings(bset);
+        }
+
+        // write output and flush.
+        if (all.length > 0) sink.add(all);
+        sink.flush();
+
+        return;
+      }
+
+      // Spill the last (partial) run.
+      spillRun();
+
+      /*
+       * Intermediate merge passes until a single pass will be sufficient. Each pass merges
+       * consecutive groups of runs so the runs remain in arrival order and the merge is stable.
+       */
+      while (state.runs.size() > mergeFanIn) {
+
+        final LinkedList<Run> merged = new LinkedList<>();
+
+        while (!state.runs.isEmpty()) {
+
+          final List<Run> batch = new ArrayList<>(mergeFanIn);
+
+          while (batch.size() < mergeFanIn && !state.runs.isEmpty())
+            batch.add(state.runs.removeFirst());
+
+          if (batch.size() == 1) {
+
+            // Nothing to merge.
+            merged.add(batch.get(0));
+
+            continue;
+          }
+
+          merged.add(writeRun(new MergeIterator(batch, false /* dropComputed */)));
+
+          for (Run run : batch) run.mmgr.clear();
+        }
+
+        state.runs.addAll(merged);
+
+        if (log.isDebugEnabled()) log.debug("Merge pass done: nruns=" + state.runs.size());
+      }
+
+      // Final merge pass, streaming the results to the sink.
+      final MergeIterator merged = new MergeIterator(state.runs, true /* dropComputed */);
+
+      long n = 0;
+
+      try {
+
+        while (merged.hasNext()) {
+
+          final IBindingSet[] chunk = merged.next();
+
+          n += chunk.length;
+
+          sink.add(chunk);
+        }
+
+      } finally {
+
+        merged.close();
+      }
+
+      sink.flush();
+
+      if (log.isInfoEnabled())
+        log.info("Merged " + n + " solutions in " + (System.currentTimeMillis() - begin) + "ms.");
+    }
+
+    /** Drop variables for computed value expressions. */
+    private void dropComputedBindings(final IBindingSet bset) {
+
+      for (ISortOrder<?> s : sortOrder) {
+        final IValueExpression<?> expr = s.getExpr();
+        if (expr instanceof IBind) {
+          bset.clear(((IBind<?>) expr).getVar());
+        }
+      }
+    }
+
+    /** A k-way merge of sorted runs which visits chunks of merged solutions. */
+    private class MergeIterator implements ICloseableIterator<IBindingSet[]> {
+
+      private final PriorityQueue<RunCursor> queue;
+
+      private final List<RunCursor> cursors;
+
+      private final boolean dropComputed;
+
+      private IBindingSet[] next = null;
+
+      private boolean open = true;
+
+      MergeIterator(final List<Run> runs, final boolean dropComputed) {
+
+        this.dropComputed = dropComputed;
+
+        this.queue =
+            new PriorityQueue<>(
+                runs.size(),
+                (c1, c2) -> {
+                  final int ret = comparator.compare(c1.current(), c2.current());
+                  if (ret != 0) return ret;
+                  return Integer.compare(c1.index, c2.index);
+                });
+
+        this.cursors = new ArrayList<>(runs.size());
+
+        int i = 0;
+
+        for (Run run : runs) {
+
+          final RunCursor cursor =
+              new RunCursor(
+                  i++,
+                  new SolutionSetStreamDecoder(
+                      key,
+                      new DataInputStream(state.mmgr.getInputStream(run.addr)),
+                      run.nsolutions));
+
+          cursors.add(cursor);
+
+          if (cursor.advance()) queue.add(cursor);
+        }
+      }
+
+      @Override
+      public boolean hasNext() {
+
+        if (next != null) return true;
+
+        if (!open || queue.isEmpty()) return false;
+
+        final List<IBindingSet> chunk = new ArrayList<>(chunkCapacity);
+
+        while (chunk.size() < chunkCapacity && !queue.isEmpty()) {
+
+          final RunCursor cursor = queue.poll();
+
+          final IBindingSet bset = cursor.current();
+
+          if (dropComputed) dropComputedBindings(bset);
+
+          chunk.add(bset);
+
+          if (cursor.advance()) queue.add(cursor);
+        }
+
+        next = chunk.toArray(new IBindingSet[0]);
+
+        return true;
+      }
+
+      @Override
+      public IBindingSet[] next() {
+
+        if (!hasNext()) throw new NoSuchElementException();
+
+        final IBindingSet[] tmp = next;
+
+        next = null;
+
+        return tmp;
+      }
+
+      @Override
+      public void close() {
+
+        if (open) {
+
+          open = false;
+
+          queue.clear();
+
+          for (RunCursor cursor : cursors) cursor.close();
+        }
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    }
+  } // SortTask
+} // ExternalSortOp
@@ -417,175 +417,202 @@ public class MemoryGroupByOp extends GroupByOp {
      *     dropped (type error or violated HAVING constraint).
      */
     private IBindingSet aggregate(final Iterable<IBindingSet> solutions) {
-      /*
-       * The intermediate solution with all bindings produced when evaluating this solution group.
-       * Evaluation begins by binding any bare variables or BINDs in the GROUP_BY clause, followed
-       * by evaluating all aggregates, and then finally evaluating the (rewritten) SELECT
-       * expressions. The rewritten HAVING clause (if any) may then be then be trivially evaluated.
-       * If the solution is not dropped, then only the SELECTed variables are projected out.
-       */
-      final IBindingSet aggregates = new ContextBindingSet(context, new ListBindingSet());
 
-      /** Propagate GROUP_BY expression onto [aggregates]. */
-      if (groupBy != null) {
+      return MemoryGroupByOp.aggregate(context, groupByState, rewrite, solutions, stats);
+    }
+  } // GroupByTask
 
-        // The first solution in the group (must exist since the
-        // group was observed).
-        final IBindingSet aSolution = solutions.iterator().next();
+  /*
+   * Compute the aggregate solution for a solution multiset (aka a group).
+   *
+   * <p>Note: The solutions may be visited more than once (once per aggregate), so the {@link
+   * Iterable} must be able to visit the same solutions again.
+   *
+   * @param context The evaluation context.
+   * @param groupByState The {@link IGroupByState}.
+   * @param rewrite The {@link IGroupByRewriteState}.
+   * @param solutions The solutions in the group.
+   * @param stats Used to report type errors.
+   * @return The aggregate solution -or- <code>null</code> if the solution for the group was
+   *     dropped (type error or violated HAVING constraint).
+   */
+  static IBindingSet aggregate(
+      final BOpContext<IBindingSet> context,
+      final IGroupByState groupByState,
+      final IGroupByRewriteState rewrite,
+      final Iterable<IBindingSet> solutions,
+      final BOpStats stats) {
 
-        for (IValueExpression<?> expr : groupBy) {
+    final IValueExpression<?>[] groupBy = groupByState.getGroupByClause();
 
-          if (expr instanceof IVariable<?>) {
+    /*
+     * The intermediate solution with all bindings produced when evaluating this solution group.
+     * Evaluation begins by binding any bare variables or BINDs in the GROUP_BY clause, followed
+     * by evaluating all aggregates, and then finally evaluating the (rewritten) SELECT
+     * expressions. The rewritten HAVING clause (if any) may then be then be trivially evaluated.
+     * If the solution is not dropped, then only the SELECTed variables are projected out.
+     */
+    final IBindingSet aggregates = new ContextBindingSet(context, new ListBindingSet());
 
-            /*
-             * Propagate bare variable used in GROUP_BY clause to [aggregates].
-             *
-             * <pre>
-             * GROUP BY ?x
-             * </pre>
-             */
-            final IVariable<?> var = (IVariable<?>) expr;
+    /** Propagate GROUP_BY expression onto [aggregates]. */
+    if (groupBy != null) {
 
-            final Object varValue = var.get(aSolution);
-            final Constant<?> val;
+      // The first solution in the group (must exist since the
+      // group was observed).
+      final IBindingSet aSolution = solutions.iterator().next();
 
-            if (varValue == null) {
+      for (IValueExpression<?> expr : groupBy) {
 
-              val = Constant.errorValue();
+        if (expr instanceof IVariable<?>) {
 
-            } else {
-              val = new Constant(varValue.getClass().cast(varValue));
-            }
+          /*
+           * Propagate bare variable used in GROUP_BY clause to [aggregates].
+           *
+           * <pre>
+           * GROUP BY ?x
+           * </pre>
+           */
+          final IVariable<?> var = (IVariable<?>) expr;
 
-            // Bind on [aggregates].
-            aggregates.set(var, val);
+          final Object varValue = var.get(aSolution);
+          final Constant<?> val;
 
-          } else if (expr instanceof IBind<?>) {
+          if (varValue == null) {
 
-            /*
-             * Propagate BIND declared by GROUP_BY clause to [aggregates].
-             *
-             * <pre>
-             * GROUP BY (2*?y as ?x)
-             * </pre>
-             */
-            final IBind<?> bindExpr = (IBind<?>) expr;
+            val = Constant.errorValue();
 
-            // Compute value expression.
+          } else {
+            val = new Constant(varValue.getClass().cast(varValue));
+          }
 
-            final Constant<?> val;
-            final Object exprValue = bindExpr.get(aSolution);
+          // Bind on [aggregates].
+          aggregates.set(var, val);
 
-            if (exprValue == null) {
+        } else if (expr instanceof IBind<?>) {
+
+          /*
+           * Propagate BIND declared by GROUP_BY clause to [aggregates].
+           *
+           * <pre>
+           * GROUP BY (2*?y as ?x)
+           * </pre>
+           */
+          final IBind<?> bindExpr = (IBind<?>) expr;
 
-              val = Constant.errorValue();
+          // Compute value expression.
 
-            } else {
+          final Constant<?> val;
+          final Object exprValue = bindExpr.get(aSolution);
 
-              val = new Constant(exprValue.getClass().cast(exprValue));
-            }
+          if (exprValue == null) {
 
-            // Variable to be projected out by SELECT.
-            final IVariable<?> ovar = ((IBind<?>) expr).getVar();
+            val = Constant.errorValue();
 
-            // Bind on [aggregates].
-            aggregates.set(ovar, val);
+          } else {
+
+            val = new Constant(exprValue.getClass().cast(exprValue));
           }
-        } // next GROUP_BY value expression
-      } // if(groupBy != null)
-
-      /*
-       * Compute the aggregates.
-       *
-       * <p>TODO This can be further optimized by computing the column projections of the different
-       * value expressions exactly once and then applying the aggregation functions to those column
-       * projections. As long as we adhere to the dependency ordering among those aggregates, we can
-       * compute them all in a single pass over the column projections.
-       *
-       * <p>TODO DISTINCT projections of columns projections can be modeled in a bunch of different
-       * ways, but if we need the original column projection as well as the DISTINCT of that column
-       * projection then it makes sense to either form the DISTINCT projection while building the
-       * column projection or as an after action.
-       */
-      {
-        final boolean nestedAggregates = groupByState.isNestedAggregates();
-
-        final Iterator<Map.Entry<IAggregate<?>, IVariable<?>>> itr =
-            rewrite.getAggExpr().entrySet().iterator();
-
-        while (itr.hasNext()) {
-
-          final Map.Entry<IAggregate<?>, IVariable<?>> e = itr.next();
-
-          // Aggregate.
-          doAggregate(e.getKey(), e.getValue(), nestedAggregates, aggregates, solutions, stats);
+
+          // Variable to be projected out by SELECT.
+          final IVariable<?> ovar = ((IBind<?>) expr).getVar();
+
+          // Bind on [aggregates].
+          aggregates.set(ovar, val);
         }
+      } // next GROUP_BY value expression
+    } // if(groupBy != null)
 
-        if (log.isTraceEnabled()) log.trace("aggregates: " + aggregates);
-      }
+    /*
+     * Compute the aggregates.
+     *
+     * <p>TODO This can be further optimized by computing the column projections of the different
+     * value expressions exactly once and then applying the aggregation functions to those column
+     * projections. As long as we adhere to the dependency ordering among those aggregates, we can
+     * compute them all in a single pass over the column projections.
+     *
+     * <p>TODO DISTINCT projections of columns projections can be modeled in a bunch of different
+     * ways, but if we need the original column projection as well as the DISTINCT of that column
+     * projection then it makes sense to either form the DISTINCT projection while building the
+     * column projection or as an after action.
+     */
+    {
+      final boolean nestedAggregates = groupByState.isNestedAggregates();
 
-      // Evaluate SELECT expressions.
-      for (IValueExpression<?> expr : rewrite.getSelect2()) {
+      final Iterator<Map.Entry<IAggregate<?>, IVariable<?>>> itr =
+          rewrite.getAggExpr().entrySet().iterator();
 
-        try {
-          expr.get(aggregates);
-        } catch (SparqlTypeErrorException ex) {
-          TypeErrorLog.handleTypeError(ex, expr, stats);
-        } catch (IllegalArgumentException ex) {
-          /*
-           * Note: This is a hack turning an IllegalArgumentException
-           * which we presume is coming out of new Constant(null) into
-           * an (implicit) SPARQL type error so we can drop the
-           * binding for this SELECT expression. (Note that we are not
-           * trying to drop the entire group!)
-           */
-          TypeErrorLog.handleTypeError(ex, expr, stats);
-        }
-      }
+      while (itr.hasNext()) {
 
-      /*
-       * Verify optional constraint(s).
-       *
-       * TODO This could be done before fully computing the aggregates as
-       * we only need to have on hand those computed aggregates on which
-       * the HAVING clause depends.
-       */
-      {
-        final boolean drop;
-        final IConstraint[] having2 = rewrite.getHaving2();
-        // drop this solution.
-        drop = having2 != null && !BOpUtility.isConsistent(having2, aggregates);
-
-        if (log.isInfoEnabled()) log.info((drop ? "drop" : "keep") + " : " + aggregates);
-
-        if (drop) {
-
-          // Drop this solution.
-          return null;
-        }
+        final Map.Entry<IAggregate<?>, IVariable<?>> e = itr.next();
+
+        // Aggregate.
+        doAggregate(e.getKey(), e.getValue(), nestedAggregates, aggregates, solutions, stats);
       }
 
-      // project out only selected variables  that
-      // are not assigned error values:
-      // "solutions containing error values are
-      // removed at projection time"
-      // https://www.w3.org/TR/sparql11-query/#defn_algGroup
+      if (log.isTraceEnabled()) log.trace("aggregates: " + aggregates);
+    }
 
-      final IBindingSet out;
+    // Evaluate SELECT expressions.
+    for (IValueExpression<?> expr : rewrite.getSelect2()) {
 
-      if (groupBy == null) { // implicit group
+      try {
+        expr.get(aggregates);
+      } catch (SparqlTypeErrorException ex) {
+        TypeErrorLog.handleTypeError(ex, expr, stats);
+      } catch (IllegalArgumentException ex) {
+        /*
+         * Note: This is a hack turning an IllegalArgumentException
+         * which we presume is coming out of new Constant(null) into
+         * an (implicit) SPARQL type error so we can drop the
+         * binding for this SELECT expression. (Note that we are not
+         * trying to drop the entire group!)
+         */
+        TypeErrorLog.handleTypeError(ex, expr, stats);
+      }
+    }
 
-        assert !aggregates.containsErrorValues();
-        out = aggregates.copy(groupByState.getSelectVars().toArray(new IVariable[0]));
+    /*
+     * Verify optional constraint(s).
+     *
+     * TODO This could be done before fully computing the aggregates as
+     * we only need to have on hand those computed aggregates on which
+     * the HAVING clause depends.
+     */
+    {
+      final boolean drop;
+      final IConstraint[] having2 = rewrite.getHaving2();
+      // drop this solution.
+      drop = having2 != null && !BOpUtility.isConsistent(having2, aggregates);
+
+      if (log.isInfoEnabled()) log.info((drop ? "drop" : "keep") + " : " + aggregates);
 
-      } else { // explicit group
+      if (drop) {
 
-        out = aggregates.copyMinusErrors(groupByState.getSelectVars().toArray(new IVariable[0]));
+        // Drop this solution.
+        return null;
       }
+    }
+
+    // project out only selected variables  that
+    // are not assigned error values:
+    // "solutions containing error values are
+    // removed at projection time"
+    // https://www.w3.org/TR/sparql11-query/#defn_algGroup
 
-      return out;
+    final IBindingSet out;
+
+    if (groupBy == null) { // implicit group
+
+      assert !aggregates.containsErrorValues();
+      out = aggregates.copy(groupByState.getSelectVars().toArray(new IVariable[0]));
+
+    } else { // explicit group
+
+      out = aggregates.copyMinusErrors(groupByState.getSelectVars().toArray(new IVariable[0]));
     }
-  } // GroupByTask
+
+    return out;
+  }
 
   /*
    * Apply the value expression to each solution in the group.
@@ -0,0 +1,432 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.bop.solutions;
+
+import cutthecrap.utils.striterators.ICloseableIterator;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.log4j.Logger;
+import org.embergraph.bop.BOp;
+import org.embergraph.bop.BOpContext;
+import org.embergraph.bop.IBind;
+import org.embergraph.bop.IBindingSet;
+import org.embergraph.bop.IQueryAttributes;
+import org.embergraph.bop.IValueExpression;
+import org.embergraph.bop.IVariableOrConstant;
+import org.embergraph.bop.engine.BOpStats;
+import org.embergraph.rdf.error.SparqlTypeErrorException;
+import org.embergraph.relation.accesspath.IBlockingBuffer;
+
+/*
+ * A top-K sort operator for <code>ORDER BY ... LIMIT k</code> (with an optional OFFSET). Rather than
+ * sorting all solutions, the operator retains only the first {@link Annotations#LIMIT} solutions in
+ * the ordering using a bounded priority queue. This reduces the heap burden from O(n) to O(k) and
+ * the cost of the sort from O(n log n) to O(n log k). The {@link SliceOp} which follows this
+ * operator is still responsible for applying the OFFSET and LIMIT, so {@link Annotations#LIMIT}
+ * MUST be at least <code>offset + limit</code>.
+ *
+ * <p>Each invocation evaluates the value expressions on which the ordering will be imposed for its
+ * source chunks and selects the top-K solutions from those chunks into a local heap. The local heap
+ * is then merged into the heap shared by all invocations of the operator. The retained solutions
+ * are sorted and written out once the last chunk of source solutions has been observed, so (as for
+ * the other sort operators) {@link Annotations#LAST_PASS} evaluation is required and {@link
+ * Annotations#MAX_PARALLEL} must be one.
+ *
+ * <p>Solutions which compare as equal are retained and emitted in the order in which they were
+ * accepted by the operator, which is consistent with a stable sort followed by a slice.
+ *
+ * @see MemorySortOp
+ * @see SliceOp
+ */
+public class TopKSortOp extends SortOp {
+
+  private static final transient Logger log = Logger.getLogger(TopKSortOp.class);
+
+  /** */
+  private static final long serialVersionUID = 1L;
+
+  public interface Annotations extends SortOp.Annotations {
+
+    /*
+     * The maximum #of solutions to be retained (required). This is <code>offset + limit</code> for
+     * the {@link SliceOp} which follows this operator.
+     */
+    String LIMIT = TopKSortOp.class.getName() + ".limit";
+  }
+
+  /** Constructor required for {@link org.embergraph.bop.BOpUtility#deepCopy(FilterNode)}. */
+  public TopKSortOp(final TopKSortOp op) {
+    super(op);
+  }
+
+  /** Required shallow copy constructor. */
+  public TopKSortOp(final BOp[] args, final Map<String, Object> annotations) {
+
+    super(args, annotations);
+
+    switch (getEvaluationContext()) {
+      case CONTROLLER:
+        break;
+      default:
+        throw new UnsupportedOperationException(
+            Annotations.EVALUATION_CONTEXT + "=" + getEvaluationContext());
+    }
+
+    if (!isLastPassRequested()) {
+      throw new UnsupportedOperationException(Annotations.LAST_PASS + "=" + isLastPassRequested());
+    }
+
+    // ORDER_BY must preserve order.
+    if (isReorderSolutions())
+      throw new UnsupportedOperationException(
+          Annotations.REORDER_SOLUTIONS + "=" + isReorderSolutions());
+
+    // required parameter.
+    getValueComparator();
+
+    final long limit = getLimit();
+
+    if (limit <= 0 || limit >= Integer.MAX_VALUE)
+      throw new IllegalArgumentException(Annotations.LIMIT + "=" + limit);
+
+    // validate required parameter.
+    for (ISortOrder<?> s : getSortOrder()) {
+
+      final IValueExpression<?> expr = s.getExpr();
+
+      if (expr instanceof IVariableOrConstant<?>) continue;
+
+      if (expr instanceof IBind<?>) continue;
+
+      throw new IllegalArgumentException("Value expression not wrapped by bind: " + expr);
+    }
+  }
+
+  /** @see Annotations#LIMIT */
+  public long getLimit() {
+
+    return ((Number) getRequiredProperty(Annotations.LIMIT)).longValue();
+  }
+
+  @Override
+  public FutureTask<Void> eval(final BOpContext<IBindingSet> context) {
+
+    return new FutureTask<>(new SortTask(this, context));
+  }
+
+  /*
+   * A solution together with the order in which it was accepted. The sequence number is used to
+   * break ties so that the selection of the top-K solutions is stable.
+   */
+  private static class Entry {
+
+    final IBindingSet bset;
+
+    final long seq;
+
+    Entry(final IBindingSet bset, final long seq) {
+      this.bset = bset;
+      this.seq = seq;
+    }
+  }
+
+  /*
+   * A bounded heap of the best K solutions seen so far. The head of the heap is the worst of the
+   * retained solutions, which is the one evicted when a better solution is offered.
+   */
+  private static class TopKHeap {
+
+    private final int k;
+
+    private final Comparator<Entry> order;
+
+    private final PriorityQueue<Entry> heap;
+
+    TopKHeap(final int k, final Comparator<Entry> order) {
+      this.k = k;
+      this.order = order;
+      // Note: Reverse order so the head of the queue is the worst retained solution.
+      this.heap = new PriorityQueue<>(Math.min(k, 1024) + 1, order.reversed());
+    }
+
+    /*
+     * Offer an entry.
+     *
+     * @return <code>true</code> iff the entry was retained.
+     */
+    boolean offer(final Entry e) {
+
+      if (heap.size() < k) {
+
+        heap.add(e);
+
+        return true;
+      }
+
+      if (order.compare(e, heap.peek()) < 0) {
+
+        // Evict the worst solution.
+        heap.poll();
+
+        heap.add(e);
+
+        return true;
+      }
+
+      return false;
+    }
+
+    int size() {
+      return heap.size();
+    }
+
+    Entry[] toArray() {
+      return heap.toArray(new Entry[0]);
+    }
+  }
+
+  /*
+   * The state shared by all invocations of the operator. A reference to this object is stored on
+   * the {@link IQueryAttributes}.
+   */
+  private static class SortState {
+
+    /** Used to assign sequence numbers to the accepted solutions. */
+    private final AtomicLong nextSeq = new AtomicLong();
+
+    /** The top-K solutions across all invocations (guarded by synchronized on this object). */
+    private final TopKHeap heap;
+
+    SortState(final TopKHeap heap) {
+      this.heap = heap;
+    }
+  }
+
+  /** Task executing on the node. */
+  private static class SortTask implements Callable<Void> {
+
+    private final TopKSortOp op;
+
+    private final BOpContext<IBindingSet> context;
+
+    private final BOpStats stats;
+
+    private final ISortOrder<?>[] sortOrder;
+
+    private final int k;
+
+    /** The ordering over the retained solutions. */
+    private final Comparator<Entry> order;
+
+    /*
+     * The {@link IQueryAttributes} for the {@link IRunningQuery} off which we will hang the shared
+     * state.
+     */
+    private final IQueryAttributes attrs;
+
+    /*
+     * The name of the key under which the {@link #state} is stored in the {@link IQueryAttributes}.
+     */
+    private final String key;
+
+    private final SortState state;
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    SortTask(final TopKSortOp op, final BOpContext<IBindingSet> context) {
+
+      this.op = op;
+
+      this.context = context;
+
+      this.stats = context.getStats();
+
+      this.sortOrder = op.getSortOrder();
+
+      this.k = (int) op.getLimit();
+
+      final Comparator<IBindingSet> c =
+          new BindingSetComparator(sortOrder, op.getValueComparator());
+
+      this.order =
+          (e1, e2) -> {
+            final int ret = c.compare(e1.bset, e2.bset);
+            if (ret != 0) return ret;
+            return Long.compare(e1.seq, e2.seq);
+          };
+
+      this.attrs = context.getQueryAttributes();
+
+      this.key = Integer.toString(op.getId());
+
+      final SortState tmp = new SortState(new TopKHeap(k, order));
+
+      final SortState existing = (SortState) attrs.putIfAbsent(key, tmp);
+
+      this.state = existing == null ? tmp : existing;
+    }
+
+    void release() {
+
+      if (log.isInfoEnabled()) log.info("Releasing state");
+
+      attrs.remove(key);
+    }
+
+    @Override
+    public Void call() {
+
+      final ICloseableIterator<IBindingSet[]> itr = context.getSource();
+
+      final IBlockingBuffer<IBindingSet[]> sink = context.getSink();
+
+      final boolean lastInvocation = context.isLastInvocation();
+
+      try {
+
+        acceptSolutions(itr);
+
+        if (lastInvocation) {
+
+          doOrderBy(sink);
+        }
+
+      } catch (Throwable t) {
+
+        log.error(t, t);
+
+        throw new RuntimeException(t);
+
+      } finally {
+
+        if (lastInvocation) {
+
+          // Discard the operator's internal state.
+          release();
+        }
+
+        sink.close();
+      }
+
+      // Done.
+      return null;
+    }
+
+    /*
+     * Evaluate the value expressions for each input solution, select the top-K solutions from the
+     * source chunks into a local heap and then merge the local heap into the shared heap.
+     *
+     * @param itr The source solutions.
+     */
+    private void acceptSolutions(final ICloseableIterator<IBindingSet[]> itr) {
+
+      final TopKHeap local = new TopKHeap(k, order);
+
+      try {
+
+        while (itr.hasNext()) {
+
+          final IBindingSet[] a = itr.next();
+
+          stats.chunksIn.increment();
+          stats.unitsIn.add(a.length);
+
+          for (IBindingSet bset : a) {
+
+            // Note: Necessary scope for type error reporting.
+            IValueExpression<?> expr = null;
+
+            try {
+
+              for (ISortOrder<?> s : sortOrder) {
+
+                /*
+                 * Evaluate. A BIND() will have side-effect on
+                 * [bset].
+                 */
+                (expr = s.getExpr()).get(bset);
+              }
+
+            } catch (SparqlTypeErrorException ex) {
+
+              // log type error, do not drop solution (see trac 765).
+              TypeErrorLog.handleTypeError(ex, expr, stats);
+            }
+
+            local.offer(new Entry(bset, state.nextSeq.incrementAndGet()));
+          } // next source solution
+        }
+
+      } finally {
+
+        itr.close();
+      }
+
+      if (local.size() == 0) return;
+
+      synchronized (state) {
+        for (Entry e : local.toArray()) {
+          state.heap.offer(e);
+        }
+
+        if (log.isInfoEnabled()) log.info("Retaining " + state.heap.size() + " solutions so far");
+      }
+    } // acceptSolutions
+
+    /*
+     * Sort the retained solutions based on the as-bound value expressions.
+     *
+     * @param sink Where to write the results.
+     */
+    private void doOrderBy(final IBlockingBuffer<IBindingSet[]> sink) {
+
+      final Entry[] entries;
+      synchronized (state) {
+        entries = state.heap.toArray();
+      }
+
+      Arrays.sort(entries, order);
+
+      final IBindingSet[] all = new IBindingSet[entries.length];
+
+      for (int i = 0; i < entries.length; i++) {
+
+        final IBindingSet bset = all[i] = entries[i].bset;
+
+        // Drop variables for computed value expressions.
+        for (ISortOrder<?> s : sortOrder) {
+          final IValueExpression<?> expr = s.getExpr();
+          if (expr instanceof IBind) {
+            bset.clear(((IBind<?>) expr).getVar());
+          }
+        }
+      }
+
+      if (log.isInfoEnabled())
+        log.info("Selected " + all.length + " solutions of " + stats.unitsIn.get());
+
+      // write output and flush.
+      if (all.length > 0) sink.add(all);
+      sink.flush();
+    }
+  } // SortTask
+} // TopKSortOp
@@ -29,7 +29,11 @@ import java.io.PrintStream;
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -71,8 +75,10 @@ import org.embergraph.journal.IIndexManager;
 import org.embergraph.journal.Journal;
 import org.embergraph.mdi.IResourceMetadata;
 import org.embergraph.rawstore.IRawStore;
+import org.embergraph.rawstore.ITieredStore;
 import org.embergraph.rawstore.TransientResourceMetadata;
 import org.embergraph.service.Split;
+import org.embergraph.util.BytesUtil.UnsignedByteArrayComparator;
 import org.embergraph.util.InnerCause;
 import org.embergraph.util.concurrent.Computable;
 import org.embergraph.util.concurrent.LatchedExecutor;
@@ -1407,6 +1413,66 @@ public abstract class AbstractBTree
     }
   }
 
+  /*
+   * Report the addresses of the persistent nodes and leaves of the B+Tree which are currently
+   * materialized. The nodes and leaves are visited breadth first from the root, so the upper levels
+   * of the B+Tree are reported first. Child references which have been cleared are not followed and
+   * no child is read from the backing store.
+   *
+   * <p>This is a weakly consistent view and it is only supported for a read-only B+Tree since the
+   * structure of a mutable B+Tree may be concurrently modified by the writer.
+   *
+   * @param addrs The addresses are added to this collection.
+   * @param max The maximum #of addresses to report.
+   * @return The #of addresses which were reported.
+   * @throws UnsupportedOperationException if the B+Tree is not read-only.
+   */
+  public int getMaterializedAddrs(final Collection<Long> addrs, final int max) {
+
+    if (addrs == null) throw new IllegalArgumentException();
+
+    if (max < 0) throw new IllegalArgumentException();
+
+    if (!isReadOnly()) throw new UnsupportedOperationException();
+
+    final AbstractNode<?> root = this.root;
+
+    if (root == null) return 0;
+
+    int n = 0;
+
+    final Deque<AbstractNode<?>> queue = new ArrayDeque<>();
+
+    queue.add(root);
+
+    AbstractNode<?> node;
+
+    while (n < max && (node = queue.poll()) != null) {
+
+      if (node.isPersistent()) {
+
+        addrs.add(node.getIdentity());
+
+        n++;
+      }
+
+      if (node.isLeaf()) continue;
+
+      final Reference<AbstractNode<?>>[] childRefs = ((Node) node).childRefs;
+
+      if (childRefs == null) continue;
+
+      for (Reference<AbstractNode<?>> ref : childRefs) {
+
+        final AbstractNode<?> child = ref == null ? null : ref.get();
+
+        if (child != null) queue.add(child);
+      }
+    }
+
+    return n;
+  }
+
   /*
    * Iff the B+Tree is an index partition then verify that the key lies within the key range of an
    * index partition.
@@ -3861,8 +3927,20 @@ public abstract class AbstractBTree
     {
       final long beginNanos = System.nanoTime();
 
-      // wrap as ByteBuffer and write on the store.
-      addr = store.write(slice.asByteBuffer());
+      // wrap as ByteBuffer, compress (if configured) and write on the store.
+      final ByteBuffer data = nodeSer.compress(slice);
+
+      // interior nodes are also copied onto the fast tier (if any).
+      final ITieredStore fastTier = node.isLeaf() ? null : getFastTier();
+
+      final ByteBuffer copy = fastTier == null ? null : data.duplicate();
+
+      addr = store.write(data);
+
+      if (fastTier != null) {
+
+        fastTier.writeFastTier(addr, copy);
+      }
 
       // now we have a new address, delete previous identity if any
       if (node.isPersistent()) {
@@ -3991,11 +4069,87 @@ public abstract class AbstractBTree
     //
     //        }
 
+    return decodeNodeOrLeaf(addr, tmp);
+  }
+
+  /*
+   * Return the backing store iff it keeps copies of the interior nodes on a faster storage tier.
+   *
+   * @see ITieredStore
+   */
+  private ITieredStore getFastTier() {
+
+    if (store instanceof ITieredStore && ((ITieredStore) store).isFastTierEnabled()) {
+
+      return (ITieredStore) store;
+    }
+
+    return null;
+  }
+
+  /*
+   * Read a batch of nodes or leaves from the store using {@link IRawStore#readBatch(long[])}, which
+   * allows the store to issue the reads concurrently. The same caveats apply as for {@link
+   * #readNodeOrLeaf(long)}.
+   *
+   * @param addrs The addresses in the store.
+   * @return The nodes or leaves, correlated with the addresses.
+   * @throws IllegalArgumentException if any address is {@link IRawStore#NULL}.
+   */
+  protected AbstractNode<?>[] readNodesOrLeaves(final long[] addrs) {
+
+    for (long addr : addrs) {
+
+      if (addr == IRawStore.NULL) throw new IllegalArgumentException();
+    }
+
+    final ByteBuffer[] a;
+    {
+      final long begin = System.nanoTime();
+
+      a = store.readBatch(addrs);
+
+      btreeCounters.readNanos.add(System.nanoTime() - begin);
+
+      long bytesRead = 0L;
+
+      for (ByteBuffer tmp : a) {
+
+        bytesRead += tmp.limit();
+      }
+
+      btreeCounters.bytesRead.add(bytesRead);
+    }
+
+    final AbstractNode<?>[] nodes = new AbstractNode<?>[addrs.length];
+
+    for (int i = 0; i < addrs.length; i++) {
+
+      nodes[i] = decodeNodeOrLeaf(addrs[i], a[i]);
+    }
+
+    return nodes;
+  }
+
+  /*
+   * Decode a node or leaf read from the store.
+   *
+   * @param addr The address in the store.
+   * @param tmp The record read from that address.
+   * @return The node or leaf.
+   */
+  private AbstractNode<?> decodeNodeOrLeaf(final long addr, final ByteBuffer tmp) {
+
     /*
      * Extract the node from the buffer.
      */
     try {
 
+      final ITieredStore fastTier = getFastTier();
+
+      // Note: decode() may change the position of the buffer.
+      final ByteBuffer copy = fastTier == null ? null : tmp.duplicate();
+
       IAbstractNodeData data;
       {
         final long begin = System.nanoTime();
@@ -4012,6 +4166,12 @@ public abstract class AbstractBTree
         } else {
 
           btreeCounters.nodesRead.increment();
+
+          if (fastTier != null) {
+
+            // NOP if the node was read from the fast tier.
+            fastTier.writeFastTier(addr, copy);
+          }
         }
       }
 
@@ -4040,6 +4200,182 @@ public abstract class AbstractBTree
     }
   }
 
+  /*
+   * Materialize the children of the given nodes. The children which are not yet materialized are
+   * read from the store together using {@link #readNodesOrLeaves(long[])} and then attached to
+   * their parents. This is package private. Use {@link Node#prefetchChildren(int, int)} or {@link
+   * #prefetch(byte[][])} instead.
+   *
+   * @param parents The parents.
+   * @param indices The index of the child of each parent.
+   * @param n The #of (parent, index) pairs.
+   * @param children The children are set on this array, correlated with the parents.
+   * @return The #of children read from the store.
+   */
+  final int loadChildren(
+      final Node[] parents,
+      final int[] indices,
+      final int n,
+      final AbstractNode<?>[] children) {
+
+    // The positions and addresses of the children which are not materialized.
+    final int[] misses = new int[n];
+    final long[] addrs = new long[n];
+    int nmisses = 0;
+
+    for (int i = 0; i < n; i++) {
+
+      final Reference<AbstractNode<?>> ref = parents[i].getChildRef(indices[i]);
+
+      final AbstractNode<?> child = ref == null ? null : ref.get();
+
+      if (child != null) {
+
+        children[i] = child;
+
+        continue;
+      }
+
+      misses[nmisses] = i;
+      addrs[nmisses] = parents[i].getChildAddr(indices[i]);
+      nmisses++;
+    }
+
+    if (nmisses == 0) return 0;
+
+    if (nmisses == 1) {
+
+      // Nothing to batch.
+      children[misses[0]] = parents[misses[0]].getChild(indices[misses[0]]);
+
+      return 1;
+    }
+
+    btreeCounters.cacheMisses.add(nmisses);
+
+    final AbstractNode<?>[] a = readNodesOrLeaves(Arrays.copyOf(addrs, nmisses));
+
+    for (int j = 0; j < nmisses; j++) {
+
+      final int i = misses[j];
+
+      children[i] = parents[i].attachChild(indices[i], a[j]);
+    }
+
+    return nmisses;
+  }
+
+  /*
+   * Fault in the nodes and leaves which would be visited by point lookups of the given keys. The
+   * B+Tree is descended one level at a time and the children needed at each level which are not
+   * yet materialized are read together (see {@link IRawStore#readBatch(long[])}). A store backed by
+   * a file may issue those reads concurrently, so a chunk of lookups pays for roughly one disk
+   * latency per level rather than one per page.
+   *
+   * <p>Note: The same concurrency constraints apply as for {@link #lookup(byte[])}.
+   *
+   * @param keys The keys (in any order). <code>null</code> elements are ignored.
+   * @return The #of nodes and leaves read from the store.
+   */
+  public int prefetch(final byte[][] keys) {
+
+    if (keys == null) throw new IllegalArgumentException();
+
+    // The keys, in order, so the keys spanned by a child are contiguous.
+    byte[][] sorted = new byte[keys.length][];
+    int nkeys = 0;
+    for (byte[] key : keys) {
+      if (key != null) sorted[nkeys++] = key;
+    }
+    sorted = Arrays.copyOf(sorted, nkeys);
+    Arrays.sort(sorted, UnsignedByteArrayComparator.INSTANCE);
+
+    final AbstractNode<?> root = getRoot();
+
+    if (nkeys == 0 || root.isLeaf()) return 0;
+
+    // The nodes on the current level and the range of keys spanned by each.
+    Node[] nodes = new Node[] {(Node) root};
+    int[] fromIndex = new int[] {0};
+    int[] toIndex = new int[] {nkeys};
+    int nnodes = 1;
+
+    int nread = 0;
+
+    while (nnodes > 0) {
+
+      // Note: Each child spans at least one distinct key.
+      final int capacity = Math.min(nkeys, nnodes * (branchingFactor + 1));
+      final Node[] parents = new Node[capacity];
+      final int[] indices = new int[capacity];
+      final int[] childFrom = new int[capacity];
+      final int[] childTo = new int[capacity];
+      int n = 0;
+
+      for (int k = 0; k < nnodes; k++) {
+
+        final Node node = nodes[k];
+
+        int i = fromIndex[k];
+
+        while (i < toIndex[k]) {
+
+          final int childIndex = node.findChild(sorted[i]);
+
+          int j = i + 1;
+
+          while (j < toIndex[k] && node.findChild(sorted[j]) == childIndex) j++;
+
+          parents[n] = node;
+          indices[n] = childIndex;
+          childFrom[n] = i;
+          childTo[n] = j;
+          n++;
+
+          i = j;
+        }
+      }
+
+      final AbstractNode<?>[] children = new AbstractNode<?>[n];
+
+      nread += loadChildren(parents, indices, n, children);
+
+      // The children which are nodes form the next level.
+      nodes = new Node[n];
+      fromIndex = new int[n];
+      toIndex = new int[n];
+      nnodes = 0;
+
+      for (int i = 0; i < n; i++) {
+
+        if (children[i].isLeaf()) continue;
+
+        nodes[nnodes] = (Node) children[i];
+        fromIndex[nnodes] = childFrom[i];
+        toIndex[nnodes] = childTo[i];
+        nnodes++;
+      }
+    }
+
+    return nread;
+  }
+
+  /*
+   * Read a node or leaf from the store without attaching it to the B+Tree. This may be used to
+   * visit the pages of a read-only B+Tree in an order other than the order of the node hierarchy,
+   * e.g., in order by their offset on the backing store.
+   *
+   * @param addr The address of the node or leaf.
+   * @return The node or leaf.
+   * @throws UnsupportedOperationException if the B+Tree is not read-only.
+   */
+  public final AbstractNode<?> readNodeOrLeafDetached(final long addr) {
+
+    if (!isReadOnly()) throw new UnsupportedOperationException();
+
+    return readNodeOrLeaf(addr);
+  }
+
   /*
    * Create the reference that will be used by a {@link Node} to refer to its children (nodes or
    * leaves).
@@ -202,6 +202,13 @@ public class BTree extends AbstractBTree
   /** The #of entries in the btree. This is zero (0) for a new btree. */
   protected long nentries;
 
+  /*
+   * When <code>true</code>, a split of the right-most leaf leaves the leaf full.
+   *
+   * @see #setAppendSplit(boolean)
+   */
+  private volatile boolean appendSplit = false;
+
   /*
    * The value of the record version number that will be assigned to the next node or leaf written
    * onto the backing store. This number is incremented each time a node or leaf is written onto the
@@ -538,6 +545,51 @@ public class BTree extends AbstractBTree
   //    }
   //    final private boolean readOnly;
 
+  /*
+   * When <code>true</code>, a split of the right-most leaf moves only the last tuple into the new
+   * leaf rather than half of the tuples. If the keys are inserted in ascending order (e.g., when an
+   * empty index is loaded from sorted data) then each leaf is full when the next leaf is created,
+   * and each leaf is written onto the store once it is evicted rather than being split again. This
+   * is not persistent and defaults to <code>false</code>, which splits each leaf in half.
+   *
+   * <p>Only the right-most leaf may be under the minimum #of keys while splits are optimized for
+   * appends. When this option is cleared, that leaf is filled from its left sibling so the B+Tree
+   * invariants hold again before any tuples are removed.
+   *
+   * @param appendSplit When <code>true</code>, splits are optimized for appends.
+   */
+  public final void setAppendSplit(final boolean appendSplit) {
+
+    if (readOnly) throw new UnsupportedOperationException(ERROR_READ_ONLY);
+
+    if (this.appendSplit && !appendSplit) {
+
+      final AbstractNode<?> root = getRoot();
+
+      if (!root.isLeaf()) {
+
+        final Leaf leaf = (Leaf) ((Node) root).getRightMostChild(false /* nodesOnly */);
+
+        if (leaf.getKeyCount() < leaf.minKeys()) {
+
+          ((Leaf) leaf.copyOnWrite()).fillFromLeftSibling();
+        }
+      }
+    }
+
+    this.appendSplit = appendSplit;
+  }
+
+  /*
+   * Return <code>true</code> iff splits are optimized for appends.
+   *
+   * @see #setAppendSplit(boolean)
+   */
+  public final boolean isAppendSplit() {
+
+    return appendSplit;
+  }
+
   @Override
   public final long getLastCommitTime() {
 
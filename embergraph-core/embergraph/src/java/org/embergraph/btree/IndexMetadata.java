@@ -42,6 +42,7 @@ import org.embergraph.config.IntegerValidator;
 import org.embergraph.io.LongPacker;
 import org.embergraph.io.SerializerUtil;
 import org.embergraph.io.compression.IRecordCompressorFactory;
+import org.embergraph.io.compression.LZ4RecordCompressorFactory;
 import org.embergraph.journal.IIndexManager;
 import org.embergraph.mdi.LocalPartitionMetadata;
 import org.embergraph.rawstore.IRawStore;
@@ -496,11 +497,16 @@ public class IndexMetadata implements Serializable, Externalizable, Cloneable, I
     //        String DEFAULT_BTREE_READ_RETENTION_QUEUE_SCAN = "20";
 
     /*
-     * An optional factory providing record-level compression for the nodes and leaves of an {@link
-     * IndexSegment} (default {@value #DEFAULT_BTREE_RECORD_COMPRESSOR_FACTORY}).
+     * An optional factory providing record-level compression for the nodes and leaves of a {@link
+     * BTree} (default {@value #DEFAULT_BTREE_RECORD_COMPRESSOR_FACTORY}). The value is the name of
+     * an {@link IRecordCompressorFactory} class having a public zero argument constructor, e.g.
+     * {@link LZ4RecordCompressorFactory} or {@link LZ4RecordCompressorFactory.HighCompression}
+     * (specify <code>org.embergraph.io.compression.LZ4RecordCompressorFactory$HighCompression
+     * </code>). Records which do not become smaller are written without compression. Records
+     * written before compression was enabled remain readable.
      *
      * @see #INDEX_SEGMENT_RECORD_COMPRESSOR_FACTORY
-     *     <p>FIXME Record level compression support is not finished.
+     * @see NodeSerializer#compress(org.embergraph.io.AbstractFixedByteArrayBuffer)
      */
     String BTREE_RECORD_COMPRESSOR_FACTORY =
         (BTree.class.getName() + ".recordCompressorFactory").intern();
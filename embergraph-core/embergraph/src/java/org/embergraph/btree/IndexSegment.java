@@ -533,6 +533,19 @@ public class IndexSegment extends AbstractBTree { // implements ILocalBTreeView
     return leaf;
   }
 
+  /** Extended to transparently re-open the backing {@link IndexSegmentStore}. */
+  @Override
+  protected AbstractNode<?>[] readNodesOrLeaves(final long[] addrs) {
+
+    if (!fileStore.isOpen()) {
+
+      // Make sure the backing store is open.
+      fileStore.reopen();
+    }
+
+    return super.readNodesOrLeaves(addrs);
+  }
+
   /** Extended to transparently re-open the backing {@link IndexSegmentStore}. */
   @Override
   protected AbstractNode<?> readNodeOrLeaf(final long addr) {
@@ -24,6 +24,7 @@ import cutthecrap.utils.striterators.EmptyIterator;
 import cutthecrap.utils.striterators.SingleValueIterator;
 import java.io.PrintStream;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.WeakHashMap;
 import org.apache.log4j.Level;
@@ -897,6 +898,25 @@ public class Leaf extends AbstractNode<Leaf> implements ILeafData, IRawRecordAcc
     return true;
   }
 
+  /** Return <code>true</code> iff this is the right-most leaf of the B+Tree. */
+  boolean isRightMost() {
+
+    AbstractNode<?> child = this;
+
+    Node p = getParent();
+
+    while (p != null) {
+
+      if (p.getIndexOf(child) != p.getChildCount() - 1) return false;
+
+      child = p;
+
+      p = p.getParent();
+    }
+
+    return true;
+  }
+
   /*
    * Split an over-capacity leaf (a leaf with <code>maxKeys+1</code> keys), creating a new
    * rightSibling. The splitIndex (the index of the first key to move to the rightSibling) is <code>
@@ -928,9 +948,11 @@ public class Leaf extends AbstractNode<Leaf> implements ILeafData, IRawRecordAcc
 
     /*
      * The splitIndex is the index of the first key/value to move to the new
-     * rightSibling.
+     * rightSibling. When splits are optimized for appends, only the last
+     * key/value is moved out of the right-most leaf so that leaf is full.
      */
-    final int splitIndex = (maxKeys + 1) / 2;
+    final int splitIndex =
+        btree.isAppendSplit() && isRightMost() ? maxKeys : (maxKeys + 1) / 2;
 
     /*
      * The separatorKey is the shortest key that is less than or equal to
@@ -1331,6 +1353,110 @@ public class Leaf extends AbstractNode<Leaf> implements ILeafData, IRawRecordAcc
     }
   }
 
+  /*
+   * Move the last keys and values of the left sibling into this leaf until this leaf has the
+   * minimum #of keys. A sequence of {@link BTree#setAppendSplit(boolean) append splits} leaves the
+   * right-most leaf with as few as one key while its left sibling is full, so there are always
+   * enough keys to share. Unlike {@link #redistributeKeys(AbstractNode, boolean)}, this leaf may be
+   * under the minimum by more than one key.
+   *
+   * <p>Note: This leaf MUST be mutable and MUST NOT be the root.
+   *
+   * @return The #of keys moved into this leaf.
+   */
+  int fillFromLeftSibling() {
+
+    assert dirty;
+    assert !deleted;
+    assert !isPersistent();
+
+    final Node p = getParent();
+
+    assert p != null;
+
+    final int nkeys = this.getKeyCount();
+    final int minKeys = this.minKeys();
+
+    if (nkeys >= minKeys) return 0;
+
+    final AbstractNode<?> sibling = p.getLeftSibling(this, true /* materialize */);
+
+    if (sibling == null) return 0;
+
+    // the sibling of a leaf must be a leaf.
+    final Leaf s = (Leaf) sibling.copyOnWrite(NULL);
+
+    final int snkeys = s.getKeyCount();
+
+    // The #of keys to move (the sibling must keep its minimum #of keys).
+    final int n = Math.min(minKeys - nkeys, snkeys - minKeys);
+
+    if (n <= 0) return 0;
+
+    final int index = p.getIndexOf(this);
+
+    // Tunnel through to the mutable objects.
+    final MutableLeafData data = (MutableLeafData) this.data;
+    final MutableLeafData sdata = (MutableLeafData) s.data;
+    final MutableNodeData pdata = (MutableNodeData) p.data;
+    final MutableKeyBuffer keys = data.keys;
+    final MutableKeyBuffer skeys = sdata.keys;
+    final MutableValueBuffer vals = data.vals;
+    final MutableValueBuffer svals = sdata.vals;
+
+    // the index of the first key/value to move out of the sibling.
+    final int from = snkeys - n;
+
+    // copy down by n.
+    System.arraycopy(keys.keys, 0, keys.keys, n, nkeys);
+    System.arraycopy(vals.values, 0, vals.values, n, nkeys);
+    if (data.deleteMarkers != null)
+      System.arraycopy(data.deleteMarkers, 0, data.deleteMarkers, n, nkeys);
+    if (data.versionTimestamps != null)
+      System.arraycopy(data.versionTimestamps, 0, data.versionTimestamps, n, nkeys);
+    if (data.rawRecords != null) System.arraycopy(data.rawRecords, 0, data.rawRecords, n, nkeys);
+
+    // move the last n keys/values from the sibling to this leaf (copy, then clear).
+    System.arraycopy(skeys.keys, from, keys.keys, 0, n);
+    System.arraycopy(svals.values, from, vals.values, 0, n);
+    if (data.deleteMarkers != null)
+      System.arraycopy(sdata.deleteMarkers, from, data.deleteMarkers, 0, n);
+    if (data.versionTimestamps != null)
+      System.arraycopy(sdata.versionTimestamps, from, data.versionTimestamps, 0, n);
+    if (data.rawRecords != null) System.arraycopy(sdata.rawRecords, from, data.rawRecords, 0, n);
+
+    Arrays.fill(skeys.keys, from, snkeys, null);
+    Arrays.fill(svals.values, from, snkeys, null);
+    if (data.deleteMarkers != null) Arrays.fill(sdata.deleteMarkers, from, snkeys, false);
+    if (data.versionTimestamps != null) Arrays.fill(sdata.versionTimestamps, from, snkeys, 0L);
+    if (data.rawRecords != null) Arrays.fill(sdata.rawRecords, from, snkeys, false);
+
+    skeys.nkeys -= n;
+    svals.nvalues -= n;
+    keys.nkeys += n;
+    vals.nvalues += n;
+
+    if (data.versionTimestamps != null) {
+      data.recalcMinMaxVersionTimestamp();
+      sdata.recalcMinMaxVersionTimestamp();
+    }
+
+    // update the separator key for this leaf.
+    p.copyKey(index - 1, this.getKeys(), 0);
+
+    // update parent : n more keys on this child.
+    pdata.childEntryCounts[index] += n;
+    // update parent : n less keys on our left sibling.
+    pdata.childEntryCounts[index - 1] -= n;
+
+    if (btree.debug) {
+      assertInvariants();
+      s.assertInvariants();
+    }
+
+    return n;
+  }
+
   /*
    * Merge the keys and values from the sibling into this leaf, delete the sibling from the store
    * and remove the sibling from the parent. This will trigger recursive {@link AbstractNode#join()}
@@ -2382,6 +2382,80 @@ public class Node extends AbstractNode<Node> implements INodeData {
     return btree.loadChild(this, index);
   }
 
+  /*
+   * Materialize the children in [<i>fromIndex</i>:<i>toIndex</i>). The children which are not yet
+   * materialized are read from the store together (see {@link IRawStore#readBatch(long[])}), so a
+   * store backed by a file may issue those reads concurrently rather than one at a time as they are
+   * visited by {@link #getChild(int)}.
+   *
+   * <p>Note: The same concurrency constraints apply as for {@link #getChild(int)}.
+   *
+   * @param fromIndex The index of the first child.
+   * @param toIndex The index after the last child.
+   * @return The #of children read from the store.
+   * @throws IndexOutOfBoundsException if the range is not valid for this node.
+   * @see AbstractBTree#prefetch(byte[][])
+   */
+  public int prefetchChildren(final int fromIndex, final int toIndex) {
+
+    if (fromIndex < 0 || fromIndex > toIndex || toIndex > data.getKeyCount() + 1) {
+
+      throw new IndexOutOfBoundsException(
+          "fromIndex=" + fromIndex + ", toIndex=" + toIndex + ", nkeys=" + data.getKeyCount());
+    }
+
+    final int n = toIndex - fromIndex;
+
+    final Node[] parents = new Node[n];
+
+    final int[] indices = new int[n];
+
+    for (int i = 0; i < n; i++) {
+
+      parents[i] = this;
+
+      indices[i] = fromIndex + i;
+    }
+
+    return btree.loadChildren(parents, indices, n, new AbstractNode<?>[n]);
+  }
+
+  /*
+   * Set the reference to a child which was read from the backing store. If the child was
+   * concurrently materialized by another thread, then the reference is not changed and that child
+   * is returned instead.
+   *
+   * <p>Note: This code block is synchronized in order to facilitate the safe publication of the
+   * change in childRefs[index] to other threads.
+   *
+   * @param index The index of the child.
+   * @param child The child read from the store.
+   * @return The child which is attached at that index.
+   */
+  AbstractNode attachChild(final int index, final AbstractNode child) {
+
+    synchronized (childRefs) {
+
+      final Reference<AbstractNode<?>> childRef = childRefs[index];
+
+      final AbstractNode existing = childRef == null ? null : childRef.get();
+
+      if (existing != null) {
+
+        // Already materialized.
+        return existing;
+      }
+
+      // patch parent reference since loaded from store.
+      child.parent = this.self;
+
+      // patch the child reference.
+      childRefs[index] = child.self;
+
+      return child;
+    }
+  }
+
   /*
    * Method conditionally reads the child at the specified index from the backing store and sets its
    * reference on the appropriate element of {@link #childRefs}. This method assumes that external
@@ -2474,30 +2548,11 @@ public class Node extends AbstractNode<Node> implements INodeData {
     /*
      * Update of the childRefs[index] element.
      *
-     * Note: This code block is synchronized in order to facilitate the safe
-     * publication of the change in childRefs[index] to other threads.
+     * Note: The Memoizer only excludes other calls to this method. The
+     * child may have been attached concurrently by prefetchChildren(),
+     * in which case that child is used instead.
      */
-    synchronized (childRefs) {
-
-      /*
-       * Since the childRefs[index] element has not been updated we do so
-       * now while we are synchronized.
-       *
-       * Note: This paranoia test could be tripped if the caller allowed
-       * concurrent requests to enter this method for the same child. In
-       * that case childRefs[index] could have an uncleared reference to
-       * the child. This would indicate a breakdown in the guarantee we
-       * require of the caller.
-       */
-      assert childRefs[index] == null || childRefs[index].get() == null
-          : "Child is already set: this=" + this + ", index=" + index;
-
-      // patch parent reference since loaded from store.
-      child.parent = this.self;
-
-      // patch the child reference.
-      childRefs[index] = child.self;
-    }
+    child = attachChild(index, child);
 
     /*
      * Clear the future task from the memoizer cache.
@@ -0,0 +1,192 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.btree;
+
+import java.util.function.LongPredicate;
+import org.embergraph.btree.BTree.LeafCursor;
+import org.embergraph.util.BytesUtil;
+
+/*
+ * Relocates the persistent nodes and leaves of a mutable {@link BTree} whose addresses satisfy a
+ * filter. A leaf is relocated by {@link AbstractNode#copyOnWrite()}, which also copies each of its
+ * clean ancestors, so the leaf and the ancestors which satisfy the filter become dirty and are
+ * written onto new addresses when the {@link BTree} is next checkpointed. The old addresses are
+ * released through the normal mechanism for the deletion of a node.
+ *
+ * <p>The relocation proceeds in key order in bounded increments. The position of the next increment
+ * is retained as a key, so the {@link BTree} may be checkpointed, modified or even re-loaded between
+ * increments. A leaf which is dirty is skipped since it will be written onto a new address anyway.
+ *
+ * <p>Note: Raw records and the bloom filter of the {@link BTree} are not relocated.
+ *
+ * <p>This class is NOT thread-safe. The caller must be the sole writer on the {@link BTree}.
+ */
+public class NodeRelocator {
+
+  /** Selects the addresses which must be relocated. */
+  private final LongPredicate filter;
+
+  /*
+   * The key from which the next increment starts -or- <code>null</code> to start with the first
+   * leaf.
+   */
+  private byte[] nextKey = null;
+
+  /** <code>true</code> once all leaves have been visited. */
+  private boolean exhausted = false;
+
+  /** The #of leaves visited. */
+  private long nvisited = 0L;
+
+  /** The #of leaves relocated. */
+  private long nrelocated = 0L;
+
+  /*
+   * @param filter Selects the addresses of the nodes and leaves which must be relocated.
+   */
+  public NodeRelocator(final LongPredicate filter) {
+
+    if (filter == null) throw new IllegalArgumentException();
+
+    this.filter = filter;
+  }
+
+  /** <code>true</code> once all leaves have been visited. */
+  public boolean isExhausted() {
+
+    return exhausted;
+  }
+
+  /** The #of leaves visited. */
+  public long getVisitedCount() {
+
+    return nvisited;
+  }
+
+  /** The #of leaves relocated (together with their clean ancestors). */
+  public long getRelocatedCount() {
+
+    return nrelocated;
+  }
+
+  /*
+   * Visit up to <i>maxLeaves</i> leaves from the current position, relocating each leaf which
+   * satisfies the filter or which has a clean ancestor that satisfies the filter.
+   *
+   * @param btree The {@link BTree}.
+   * @param maxLeaves The maximum #of leaves to visit.
+   * @return The #of leaves relocated by this increment.
+   * @throws UnsupportedOperationException if the {@link BTree} is read-only.
+   */
+  public int relocate(final BTree btree, final int maxLeaves) {
+
+    if (btree == null) throw new IllegalArgumentException();
+
+    if (maxLeaves <= 0) throw new IllegalArgumentException();
+
+    btree.assertNotReadOnly();
+
+    if (exhausted) return 0;
+
+    LeafCursor cursor =
+        nextKey == null ? btree.newLeafCursor(SeekEnum.First) : btree.newLeafCursor(nextKey);
+
+    Leaf leaf = cursor.leaf();
+
+    int nvisited = 0;
+
+    int nrelocated = 0;
+
+    while (nvisited < maxLeaves) {
+
+      nvisited++;
+
+      final int nkeys = leaf.getKeyCount();
+
+      if (!leaf.isDirty() && mustRelocate(leaf)) {
+
+        // Note: The copy deletes the leaf, so the last key is taken first.
+        final byte[] lastKey = nkeys == 0 ? null : leaf.getKeys().get(nkeys - 1);
+
+        leaf.copyOnWrite();
+
+        nrelocated++;
+
+        if (lastKey == null) {
+
+          // Only an empty root leaf has no keys.
+          leaf = null;
+
+        } else {
+
+          // The cursor is invalidated by the copy, so re-seek past the copied leaf.
+          cursor = btree.newLeafCursor(BytesUtil.successor(lastKey));
+
+          leaf = cursor.leaf();
+
+          if (leaf.getKeyCount() > 0
+              && BytesUtil.compareBytes(leaf.getKeys().get(leaf.getKeyCount() - 1), lastKey) <= 0) {
+
+            // Positioned on the copy of the leaf.
+            leaf = cursor.next();
+          }
+        }
+
+      } else {
+
+        leaf = cursor.next();
+      }
+
+      if (leaf == null) {
+
+        exhausted = true;
+
+        break;
+      }
+    }
+
+    if (!exhausted) {
+
+      // Resume with the first key of the next leaf.
+      nextKey = leaf.getKeys().get(0);
+    }
+
+    this.nvisited += nvisited;
+
+    this.nrelocated += nrelocated;
+
+    return nrelocated;
+  }
+
+  /*
+   * Return <code>true</code> iff the leaf or any of its clean ancestors satisfies the filter. A
+   * dirty node has no address and all of its ancestors are also dirty.
+   */
+  private boolean mustRelocate(final Leaf leaf) {
+
+    for (AbstractNode<?> node = leaf; node != null && !node.isDirty(); node = node.getParent()) {
+
+      if (filter.test(node.getIdentity())) {
+
+        return true;
+      }
+    }
+
+    return false;
+  }
+}
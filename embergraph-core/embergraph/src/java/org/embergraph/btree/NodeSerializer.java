@@ -98,9 +98,7 @@ public class NodeSerializer {
       return NOPRecordCompressor.INSTANCE;
     }
 
-    if (!readOnly) {
-
-      assert _writeCompressor != null;
+    if (!readOnly && _writeCompressor != null) {
 
       // Instance used for writes, which are single threaded.
       return _writeCompressor;
@@ -129,6 +127,12 @@ public class NodeSerializer {
   /** Instance used for writes - this keeps a hard reference since writes are single threaded. */
   private IRecordCompressor _writeCompressor;
 
+  /*
+   * Used to compress the coded nodes and leaves when a {@link #recordCompressorFactory} was
+   * specified. This is allocated on demand and is discarded by {@link #close()}.
+   */
+  private DataOutputBuffer _compressBuffer;
+
   private final int initialBufferCapacity;
 
   /*
@@ -227,6 +231,8 @@ public class NodeSerializer {
     _writeBuffer = null;
 
     _writeCompressor = null;
+
+    _compressBuffer = null;
   }
 
   /*
@@ -285,6 +291,11 @@ public class NodeSerializer {
 
     if (buf == null) throw new IllegalArgumentException();
 
+    if (buf.get(AbstractReadOnlyNodeData.O_TYPE) == AbstractReadOnlyNodeData.COMPRESSED) {
+
+      return decode(decompress(buf));
+    }
+
     final boolean isNode =
         AbstractReadOnlyNodeData.isNode(buf.get(AbstractReadOnlyNodeData.O_TYPE));
 
@@ -309,6 +320,86 @@ public class NodeSerializer {
     return leafCoder.decode(slice);
   }
 
+  /*
+   * Decompress a {@link AbstractReadOnlyNodeData#COMPRESSED} record (thread-safe).
+   *
+   * @param buf The compressed record.
+   * @return The coded node or leaf. This is always an exact fit view of a <code>byte[]</code> which
+   *     is not shared, so it may be wrapped by {@link #decode(ByteBuffer)} without a copy.
+   */
+  private ByteBuffer decompress(final ByteBuffer buf) {
+
+    final ByteBuffer b = buf.duplicate();
+
+    b.position(AbstractReadOnlyNodeData.O_TYPE + 1);
+
+    final ByteBuffer tmp = getRecordCompressor().decompress(b.slice());
+
+    if (tmp.hasArray()
+        && tmp.arrayOffset() == 0
+        && tmp.position() == 0
+        && tmp.limit() == tmp.array().length) {
+
+      // exact fit and writable, so the compressor did not return a shared buffer.
+      return tmp;
+    }
+
+    // make an exact fit copy since the compressor may reuse its buffer.
+    final byte[] a = new byte[tmp.remaining()];
+
+    tmp.get(a);
+
+    return ByteBuffer.wrap(a);
+  }
+
+  /*
+   * Compress a coded node or leaf for writing on the backing store. When no {@link
+   * #recordCompressorFactory} was specified, or when compression does not reduce the size of the
+   * record, this is just a view of the coded record. Otherwise the record is the {@link
+   * AbstractReadOnlyNodeData#COMPRESSED} type byte followed by the compressed coded record. Either
+   * form is accepted by {@link #decode(ByteBuffer)}.
+   *
+   * <p>Note: The returned buffer is only valid until the next write. The caller must copy the data,
+   * which all {@link IRawStore#write(ByteBuffer)} implementations do.
+   *
+   * @param slice The coded node or leaf.
+   * @return The record to be written on the backing store.
+   * @throws UnsupportedOperationException if the {@link NodeSerializer} does not permit writes.
+   */
+  public ByteBuffer compress(final AbstractFixedByteArrayBuffer slice) {
+
+    if (recordCompressorFactory == null) {
+
+      return slice.asByteBuffer();
+    }
+
+    if (readOnly) {
+
+      throw new UnsupportedOperationException();
+    }
+
+    if (_compressBuffer == null) {
+
+      _compressBuffer = new DataOutputBuffer(slice.len());
+    }
+
+    final DataOutputBuffer out = _compressBuffer;
+
+    out.reset();
+
+    out.putByte(AbstractReadOnlyNodeData.COMPRESSED);
+
+    getRecordCompressor().compress(slice.array(), slice.off(), slice.len(), out);
+
+    if (out.pos() >= slice.len()) {
+
+      // Not compressible, so write the coded record.
+      return slice.asByteBuffer();
+    }
+
+    return ByteBuffer.wrap(out.array(), 0, out.pos());
+  }
+
   /*
    * Wrap an {@link INodeData} or {@link ILeafData} instance as a {@link Node} or a {@link Leaf}.
    * This DOES NOT set the parent of the new {@link Node} or {@link Leaf}.
@@ -441,9 +441,12 @@ public class UnisolatedReadWriteIndex implements IIndex, ILinearList, IReadWrite
    * ctor. The iterator acquires and releases the appropriate lock (either the shared read lock or
    * the exclusive write lock) before it fetches reads the next chunk of tuples from the underlying
    * index. Likewise, the mutation methods on the iterator will acquire the exclusive write lock.
+   *
+   * <p>When {@link IRangeQuery#CURSOR} is specified, the returned {@link ITupleCursor} is not
+   * buffered and acquires the appropriate lock for each operation.
    */
   @Override
-  @SuppressWarnings("rawtypes")
+  @SuppressWarnings({"rawtypes", "unchecked"})
   public ITupleIterator rangeIterator(
       final byte[] fromKey, final byte[] toKey, int capacity, int flags, final IFilter filter) {
 
@@ -457,6 +460,36 @@ public class UnisolatedReadWriteIndex implements IIndex, ILinearList, IReadWrite
       capacity = defaultCapacity;
     }
 
+    if ((flags & IRangeQuery.CURSOR) != 0) {
+
+      /*
+       * A cursor may be repositioned by the caller so its tuples can not
+       * be buffered. Instead, each operation on the cursor acquires the
+       * appropriate lock. The cursor on the underlying index supports
+       * traversal with concurrent modification.
+       */
+
+      final ITupleIterator src;
+      final Lock lock = readLock();
+      lock.lock();
+      try {
+
+        src = ndx.rangeIterator(fromKey, toKey, capacity, flags, filter);
+
+      } finally {
+
+        unlock(lock);
+      }
+
+      if (src instanceof ITupleCursor) {
+
+        return new LockedTupleCursor((ITupleCursor) src);
+      }
+
+      // Note: A filtered iterator is not a cursor.
+      return src;
+    }
+
     if ((flags & IRangeQuery.REMOVEALL) != 0) {
 
       /*
@@ -558,6 +591,131 @@ public class UnisolatedReadWriteIndex implements IIndex, ILinearList, IReadWrite
     }
   } // ChunkedIterator
 
+  /*
+   * Wraps a cursor on the underlying index. Each operation acquires the shared read lock (or the
+   * exclusive write lock for {@link #remove()}) for the duration of that operation.
+   */
+  private class LockedTupleCursor<E> implements ITupleCursor<E> {
+
+    private final ITupleCursor<E> src;
+
+    private LockedTupleCursor(final ITupleCursor<E> src) {
+
+      this.src = src;
+    }
+
+    @Override
+    public IIndex getIndex() {
+
+      return UnisolatedReadWriteIndex.this;
+    }
+
+    @Override
+    public ITuple<E> seek(final byte[] key) {
+
+      final Lock lock = readLock();
+      lock.lock();
+      try {
+
+        return src.seek(key);
+
+      } finally {
+
+        unlock(lock);
+      }
+    }
+
+    @Override
+    public ITuple<E> seek(final Object key) {
+
+      final Lock lock = readLock();
+      lock.lock();
+      try {
+
+        return src.seek(key);
+
+      } finally {
+
+        unlock(lock);
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+
+      final Lock lock = readLock();
+      lock.lock();
+      try {
+
+        return src.hasNext();
+
+      } finally {
+
+        unlock(lock);
+      }
+    }
+
+    @Override
+    public ITuple<E> next() {
+
+      final Lock lock = readLock();
+      lock.lock();
+      try {
+
+        return src.next();
+
+      } finally {
+
+        unlock(lock);
+      }
+    }
+
+    @Override
+    public boolean hasPrior() {
+
+      final Lock lock = readLock();
+      lock.lock();
+      try {
+
+        return src.hasPrior();
+
+      } finally {
+
+        unlock(lock);
+      }
+    }
+
+    @Override
+    public ITuple<E> prior() {
+
+      final Lock lock = readLock();
+      lock.lock();
+      try {
+
+        return src.prior();
+
+      } finally {
+
+        unlock(lock);
+      }
+    }
+
+    @Override
+    public void remove() {
+
+      final Lock lock = writeLock();
+      lock.lock();
+      try {
+
+        src.remove();
+
+      } finally {
+
+        unlock(lock);
+      }
+    }
+  } // LockedTupleCursor
+
   @Override
   public <T> T submit(final byte[] key, final ISimpleIndexProcedure<T> proc) {
 
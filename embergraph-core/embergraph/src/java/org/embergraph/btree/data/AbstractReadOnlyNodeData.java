@@ -46,6 +46,14 @@ public abstract class AbstractReadOnlyNodeData<U extends IAbstractNodeData> {
    */
   public static final byte LINKED_LEAF = 2;
 
+  /*
+   * A compressed B+Tree node or leaf data record. The rest of the record is the compressed form of
+   * a {@link #NODE}, {@link #LEAF} or {@link #LINKED_LEAF} record.
+   *
+   * @see org.embergraph.btree.NodeSerializer#compress(org.embergraph.io.AbstractFixedByteArrayBuffer)
+   */
+  public static final byte COMPRESSED = 3;
+
   /*
    * Return <code>true</code> iff the byte indicates an {@link INodeData} record.
    *
@@ -166,39 +166,18 @@ public class ChecksumUtility {
     } else {
 
       /*
-       * Compute the checksum of a byte[] on the native heap.
-       *
-       * @todo this should be a JNI call. The Adler32 class is already a
-       * JNI implementation.
+       * Compute the checksum of the data on the native heap (for example,
+       * a slice of a memory mapped file). Adler32 reads a direct buffer
+       * without copying it onto the Java heap.
        */
 
-      if (a == null) {
-
-        a = new byte[512];
-      }
-
       // isolate changes to (pos,limit).
-      final ByteBuffer b = buf.asReadOnlyBuffer();
-
-      // stopping point.
-      final int m = limit;
-
-      // update checksum a chunk at a time.
-      for (int p = pos; p < m; p += a.length) {
-
-        // #of bytes to copy into the local byte[].
-        final int len = Math.min(m - p, a.length);
+      final ByteBuffer b = buf.duplicate();
 
-        // set the view
-        b.limit(p + len);
-        b.position(p);
+      b.limit(limit);
+      b.position(pos);
 
-        // copy into Java heap byte[], advancing b.position().
-        b.get(a, 0 /* off */, len);
-
-        // update the running checksum.
-        chk.update(a, 0 /* off */, len);
-      }
+      chk.update(b);
 
       // This is WAY to expensive since it is a JNI call per byte.
       //
@@ -211,14 +190,6 @@ public class ChecksumUtility {
     }
   }
 
-  /*
-   * Private buffer used to incrementally compute the checksum of the data as it is received. The
-   * purpose of this buffer is to take advantage of more efficient bulk copy operations from the NIO
-   * buffer into a local byte[] on the Java heap against which we then track the evolving checksum
-   * of the data.
-   */
-  private volatile byte[] a;
-
   public int checksum(final IByteArraySlice slice) {
 
     assert slice != null;
@@ -49,6 +49,20 @@ public class CompressorRegistry {
    */
   public static final String GZIP = "GZIP";
 
+  /*
+   * Key for LZ4 compression.
+   *
+   * @see LZ4RecordCompressor
+   */
+  public static final String LZ4 = "LZ4";
+
+  /*
+   * Key for LZ4 compression using the high compression mode.
+   *
+   * @see LZ4RecordCompressor
+   */
+  public static final String LZ4_HIGH_COMPRESSION = "LZ4HC";
+
   /*
    * Key for no compression.
    *
@@ -73,6 +87,8 @@ public class CompressorRegistry {
     add(DEFLATE_BEST_SPEED, new RecordCompressor(Deflater.BEST_SPEED));
     add(DEFLATE_BEST_COMPRESSION, new RecordCompressor(Deflater.BEST_COMPRESSION));
     add(GZIP, new GZipCompressor());
+    add(LZ4, LZ4RecordCompressor.FAST);
+    add(LZ4_HIGH_COMPRESSION, LZ4RecordCompressor.HIGH_COMPRESSION);
     add(NOP, new NOPRecordCompressor());
   }
 
@@ -0,0 +1,663 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.io.compression;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/*
+ * Record compressor using the LZ4 block format. LZ4 trades some compression ratio against {@link
+ * RecordCompressor} for much faster compression and decompression, which makes it a better fit for
+ * B+Tree nodes and leaves which are decompressed on every read from the backing store.
+ *
+ * <p>Two modes are supported. The default mode uses a single hash table probe per position and
+ * skips ahead quickly over incompressible data. The high compression mode searches hash chains for
+ * the longest match within the 64k window. Both modes produce the same format and either one can
+ * decompress the records produced by the other.
+ *
+ * <p>A compressed record is the #of uncompressed bytes as a 4 byte integer followed by a single
+ * LZ4 block.
+ *
+ * <p>This class is thread-safe. Each instance is stateless other than its mode. The hash tables and
+ * the scratch buffers are thread-local, so a single instance may be shared by concurrent readers
+ * and by the writer. Unlike {@link RecordCompressor}, the buffers returned by {@link
+ * #decompress(ByteBuffer)} and {@link #decompress(byte[])} are NOT shared. Each one is an exact fit
+ * view of a new <code>byte[]</code> which may be wrapped by the caller without a copy.
+ */
+public class LZ4RecordCompressor implements Externalizable, IRecordCompressor {
+
+  /** */
+  private static final long serialVersionUID = -5262390497311245516L;
+
+  /** The minimum length of a match. */
+  private static final int MIN_MATCH = 4;
+
+  /** The maximum backward distance of a match. */
+  private static final int MAX_DISTANCE = 0xFFFF;
+
+  /** The last bytes of the input are always coded as literals. */
+  private static final int LAST_LITERALS = 5;
+
+  /** A match may not start within this many bytes of the end of the input. */
+  private static final int MF_LIMIT = 12;
+
+  /** Inputs shorter than this are coded as literals. */
+  private static final int MIN_LENGTH = MF_LIMIT + 1;
+
+  /** The log2 of the size of the hash table for the default mode. */
+  private static final int HASH_LOG = 12;
+
+  /** Controls how quickly the default mode skips ahead over data without matches. */
+  private static final int SKIP_STRENGTH = 6;
+
+  /** The log2 of the size of the hash table for the high compression mode. */
+  private static final int HC_HASH_LOG = 15;
+
+  /** The maximum #of hash chain entries examined per position in the high compression mode. */
+  private static final int HC_MAX_ATTEMPTS = 64;
+
+  /** The #of bytes in the header of a compressed record. */
+  private static final int HEADER_SIZE = 4;
+
+  /** The default mode. */
+  public static final LZ4RecordCompressor FAST = new LZ4RecordCompressor(false);
+
+  /** The high compression mode. */
+  public static final LZ4RecordCompressor HIGH_COMPRESSION = new LZ4RecordCompressor(true);
+
+  /*
+   * The per-thread hash tables and scratch buffers. These are allocated on demand and reused for
+   * each request made by the same thread.
+   */
+  private static class Context {
+
+    /** The hash table for the default mode. */
+    private int[] table;
+
+    /** The heads of the hash chains for the high compression mode. */
+    private int[] head;
+
+    /** The hash chains for the high compression mode, indexed by position modulo the window. */
+    private int[] chain;
+
+    /** The compressed record. */
+    private byte[] out = new byte[1024];
+
+    /** A copy of source data which is not backed by an accessible array. */
+    private byte[] in = new byte[1024];
+
+    private byte[] in(final int capacity) {
+
+      if (in.length < capacity) in = new byte[capacity];
+
+      return in;
+    }
+  }
+
+  private static final ThreadLocal<Context> context =
+      new ThreadLocal<Context>() {
+        @Override
+        protected Context initialValue() {
+          return new Context();
+        }
+      };
+
+  /** <code>true</code> iff the high compression mode is used. */
+  private boolean highCompression;
+
+  public String toString() {
+
+    return getClass().getName() + "{highCompression=" + highCompression + "}";
+  }
+
+  /*
+   * Create a record compressor.
+   *
+   * @param highCompression When <code>true</code> the hash chains are searched for the longest
+   *     match. This is slower but produces smaller records.
+   */
+  public LZ4RecordCompressor(final boolean highCompression) {
+
+    this.highCompression = highCompression;
+  }
+
+  /** De-serialization constructor. */
+  public LZ4RecordCompressor() {}
+
+  /** <code>true</code> iff the high compression mode is used. */
+  public boolean isHighCompression() {
+
+    return highCompression;
+  }
+
+  public void compress(final ByteBuffer bin, final ByteBuffer out) {
+
+    final Context ctx = context.get();
+
+    final int n = compress(ctx, bin);
+
+    out.put(ctx.out, 0, n);
+  }
+
+  public ByteBuffer compress(final ByteBuffer bin) {
+
+    final Context ctx = context.get();
+
+    final int n = compress(ctx, bin);
+
+    return ByteBuffer.wrap(Arrays.copyOf(ctx.out, n));
+  }
+
+  public void compress(final ByteBuffer bin, final OutputStream os) {
+
+    final Context ctx = context.get();
+
+    final int n = compress(ctx, bin);
+
+    write(ctx.out, n, os);
+  }
+
+  public void compress(final byte[] bytes, final OutputStream os) {
+
+    compress(bytes, 0, bytes.length, os);
+  }
+
+  public void compress(final byte[] bytes, final int off, final int len, final OutputStream os) {
+
+    final Context ctx = context.get();
+
+    final int n = compress(ctx, bytes, off, len);
+
+    write(ctx.out, n, os);
+  }
+
+  private static void write(final byte[] b, final int len, final OutputStream os) {
+
+    try {
+
+      os.write(b, 0, len);
+
+    } catch (IOException ex) {
+
+      throw new RuntimeException(ex);
+    }
+  }
+
+  /*
+   * Compress the data from the position to the limit of the buffer onto {@link Context#out}. The
+   * position is advanced to the limit.
+   *
+   * @return The #of bytes in the compressed record.
+   */
+  private int compress(final Context ctx, final ByteBuffer bin) {
+
+    final int len = bin.remaining();
+
+    final int n;
+
+    if (bin.hasArray()) {
+
+      // compress directly from the backing array.
+      n = compress(ctx, bin.array(), bin.arrayOffset() + bin.position(), len);
+
+      bin.position(bin.limit());
+
+    } else {
+
+      // the backing array is not accessible, so copy the data.
+      final byte[] tmp = ctx.in(len);
+
+      bin.get(tmp, 0, len);
+
+      n = compress(ctx, tmp, 0, len);
+    }
+
+    return n;
+  }
+
+  /*
+   * Compress the source data onto {@link Context#out}.
+   *
+   * @return The #of bytes in the compressed record.
+   */
+  private int compress(final Context ctx, final byte[] src, final int off, final int len) {
+
+    // worst case is one extra byte per 255 literals plus the token and the header.
+    final int maxLen = HEADER_SIZE + len + len / 255 + 16;
+
+    if (ctx.out.length < maxLen) ctx.out = new byte[maxLen];
+
+    final byte[] dst = ctx.out;
+
+    dst[0] = (byte) (len >>> 24);
+    dst[1] = (byte) (len >>> 16);
+    dst[2] = (byte) (len >>> 8);
+    dst[3] = (byte) len;
+
+    if (highCompression) {
+
+      return compressHC(ctx, src, off, len, dst, HEADER_SIZE);
+    }
+
+    return compressFast(ctx, src, off, len, dst, HEADER_SIZE);
+  }
+
+  private static int compressFast(
+      final Context ctx,
+      final byte[] src,
+      final int off,
+      final int len,
+      final byte[] dst,
+      int op) {
+
+    int anchor = 0;
+
+    if (len >= MIN_LENGTH) {
+
+      if (ctx.table == null) ctx.table = new int[1 << HASH_LOG];
+
+      final int[] table = ctx.table;
+
+      Arrays.fill(table, -1);
+
+      final int mflimit = len - MF_LIMIT;
+
+      final int matchLimit = len - LAST_LITERALS;
+
+      int ip = 0;
+
+      while (ip < mflimit) {
+
+        final int seq = readInt(src, off + ip);
+
+        final int h = hash(seq, HASH_LOG);
+
+        int ref = table[h];
+
+        table[h] = ip;
+
+        if (ref < 0 || ip - ref > MAX_DISTANCE || readInt(src, off + ref) != seq) {
+
+          // no match, so step ahead faster the longer we go without one.
+          ip += 1 + ((ip - anchor) >>> SKIP_STRENGTH);
+
+          continue;
+        }
+
+        // extend the match backwards over the pending literals.
+        while (ip > anchor && ref > 0 && src[off + ip - 1] == src[off + ref - 1]) {
+          ip--;
+          ref--;
+        }
+
+        final int mlen =
+            MIN_MATCH
+                + matchLength(src, off + ip + MIN_MATCH, off + ref + MIN_MATCH, off + matchLimit);
+
+        op = writeSequence(src, off + anchor, ip - anchor, ip - ref, mlen, dst, op);
+
+        ip += mlen;
+
+        anchor = ip;
+
+        if (ip - 2 < mflimit) {
+
+          // index a position within the match to improve the odds of the next match.
+          table[hash(readInt(src, off + ip - 2), HASH_LOG)] = ip - 2;
+        }
+      }
+    }
+
+    return writeLastLiterals(src, off + anchor, len - anchor, dst, op);
+  }
+
+  private static int compressHC(
+      final Context ctx,
+      final byte[] src,
+      final int off,
+      final int len,
+      final byte[] dst,
+      int op) {
+
+    int anchor = 0;
+
+    if (len >= MIN_LENGTH) {
+
+      if (ctx.head == null) {
+
+        ctx.head = new int[1 << HC_HASH_LOG];
+
+        ctx.chain = new int[MAX_DISTANCE + 1];
+      }
+
+      final int[] head = ctx.head;
+
+      final int[] chain = ctx.chain;
+
+      Arrays.fill(head, -1);
+
+      final int mflimit = len - MF_LIMIT;
+
+      final int matchLimit = len - LAST_LITERALS;
+
+      // the next position to be inserted into the hash chains.
+      int next = 0;
+
+      int ip = 0;
+
+      while (ip < mflimit) {
+
+        // insert all positions up to and including the current one.
+        for (; next <= ip; next++) {
+          final int h = hash(readInt(src, off + next), HC_HASH_LOG);
+          chain[next & MAX_DISTANCE] = head[h];
+          head[h] = next;
+        }
+
+        int bestLen = 0;
+
+        int bestRef = -1;
+
+        int ref = chain[ip & MAX_DISTANCE];
+
+        for (int attempts = HC_MAX_ATTEMPTS;
+            ref >= 0 && ip - ref <= MAX_DISTANCE && attempts > 0;
+            attempts--) {
+
+          // cheap rejection: the candidate must extend beyond the current best match.
+          if (src[off + ref + bestLen] == src[off + ip + bestLen]
+              && readInt(src, off + ref) == readInt(src, off + ip)) {
+
+            final int mlen =
+                MIN_MATCH
+                    + matchLength(
+                        src, off + ip + MIN_MATCH, off + ref + MIN_MATCH, off + matchLimit);
+
+            if (mlen > bestLen) {
+
+              bestLen = mlen;
+
+              bestRef = ref;
+
+              if (ip + mlen >= matchLimit) break;
+            }
+          }
+
+          ref = chain[ref & MAX_DISTANCE];
+        }
+
+        if (bestLen < MIN_MATCH) {
+
+          ip++;
+
+          continue;
+        }
+
+        op = writeSequence(src, off + anchor, ip - anchor, ip - bestRef, bestLen, dst, op);
+
+        ip += bestLen;
+
+        anchor = ip;
+      }
+    }
+
+    return writeLastLiterals(src, off + anchor, len - anchor, dst, op);
+  }
+
+  /*
+   * Return the #of bytes which match starting at the given offsets. The match is not extended to or
+   * beyond <i>limit</i>.
+   */
+  private static int matchLength(final byte[] src, int ip, int ref, final int limit) {
+
+    final int start = ip;
+
+    while (ip < limit && src[ip] == src[ref]) {
+      ip++;
+      ref++;
+    }
+
+    return ip - start;
+  }
+
+  private static int readInt(final byte[] b, final int i) {
+
+    return (b[i] & 0xff)
+        | ((b[i + 1] & 0xff) << 8)
+        | ((b[i + 2] & 0xff) << 16)
+        | ((b[i + 3] & 0xff) << 24);
+  }
+
+  private static int hash(final int seq, final int hashLog) {
+
+    return (seq * -1640531535) >>> (32 - hashLog);
+  }
+
+  /*
+   * Write a sequence consisting of a run of literals followed by a match.
+   *
+   * @return The new offset in the output.
+   */
+  private static int writeSequence(
+      final byte[] src,
+      final int litOff,
+      final int litLen,
+      final int offset,
+      final int mlen,
+      final byte[] dst,
+      int op) {
+
+    final int tokenPos = op++;
+
+    int token;
+
+    if (litLen >= 15) {
+      token = 15 << 4;
+      op = writeLength(litLen - 15, dst, op);
+    } else {
+      token = litLen << 4;
+    }
+
+    System.arraycopy(src, litOff, dst, op, litLen);
+
+    op += litLen;
+
+    dst[op++] = (byte) offset;
+    dst[op++] = (byte) (offset >>> 8);
+
+    final int m = mlen - MIN_MATCH;
+
+    if (m >= 15) {
+      token |= 15;
+      op = writeLength(m - 15, dst, op);
+    } else {
+      token |= m;
+    }
+
+    dst[tokenPos] = (byte) token;
+
+    return op;
+  }
+
+  /*
+   * Write the final run of literals, which is not followed by a match.
+   *
+   * @return The new offset in the output.
+   */
+  private static int writeLastLiterals(
+      final byte[] src, final int litOff, final int litLen, final byte[] dst, int op) {
+
+    if (litLen >= 15) {
+      dst[op++] = (byte) (15 << 4);
+      op = writeLength(litLen - 15, dst, op);
+    } else {
+      dst[op++] = (byte) (litLen << 4);
+    }
+
+    System.arraycopy(src, litOff, dst, op, litLen);
+
+    return op + litLen;
+  }
+
+  private static int writeLength(int len, final byte[] dst, int op) {
+
+    while (len >= 255) {
+      dst[op++] = (byte) 255;
+      len -= 255;
+    }
+
+    dst[op++] = (byte) len;
+
+    return op;
+  }
+
+  /*
+   * Decompress the data from the position to the limit of the buffer. The position of the buffer is
+   * not changed.
+   *
+   * <p>Note: When the buffer is not backed by an accessible array (a direct or read-only buffer)
+   * the compressed data are copied into a thread-local buffer using a single bulk transfer and then
+   * decoded from there.
+   *
+   * @return An exact fit view of a new <code>byte[]</code>. The position will be zero and the limit
+   *     will be the #of decompressed bytes.
+   */
+  public ByteBuffer decompress(final ByteBuffer bin) {
+
+    final int len = bin.remaining();
+
+    if (bin.hasArray()) {
+
+      return decompress(bin.array(), bin.arrayOffset() + bin.position(), len);
+    }
+
+    final byte[] tmp = context.get().in(len);
+
+    bin.duplicate().get(tmp, 0, len);
+
+    return decompress(tmp, 0, len);
+  }
+
+  public ByteBuffer decompress(final byte[] bin) {
+
+    return decompress(bin, 0, bin.length);
+  }
+
+  private static ByteBuffer decompress(final byte[] src, final int off, final int len) {
+
+    if (len < HEADER_SIZE + 1) throw new RuntimeException("Record too short: " + len);
+
+    final int n =
+        ((src[off] & 0xff) << 24)
+            | ((src[off + 1] & 0xff) << 16)
+            | ((src[off + 2] & 0xff) << 8)
+            | (src[off + 3] & 0xff);
+
+    if (n < 0) throw new RuntimeException("Bad length: " + n);
+
+    final byte[] dst = new byte[n];
+
+    final int end = off + len;
+
+    int ip = off + HEADER_SIZE;
+
+    int op = 0;
+
+    try {
+
+      while (true) {
+
+        final int token = src[ip++] & 0xff;
+
+        int litLen = token >>> 4;
+
+        if (litLen == 15) {
+          int b;
+          do {
+            b = src[ip++] & 0xff;
+            litLen += b;
+          } while (b == 255);
+        }
+
+        System.arraycopy(src, ip, dst, op, litLen);
+
+        ip += litLen;
+
+        op += litLen;
+
+        if (ip >= end) break; // the last sequence has no match.
+
+        final int offset = (src[ip++] & 0xff) | ((src[ip++] & 0xff) << 8);
+
+        int mlen = token & 15;
+
+        if (mlen == 15) {
+          int b;
+          do {
+            b = src[ip++] & 0xff;
+            mlen += b;
+          } while (b == 255);
+        }
+
+        mlen += MIN_MATCH;
+
+        int ref = op - offset;
+
+        if (offset == 0 || ref < 0) throw new RuntimeException("Bad offset: " + offset);
+
+        if (offset >= mlen) {
+
+          // non-overlapping match.
+          System.arraycopy(dst, ref, dst, op, mlen);
+
+          op += mlen;
+
+        } else {
+
+          // overlapping match replicates the last offset bytes.
+          for (int i = 0; i < mlen; i++) {
+            dst[op++] = dst[ref++];
+          }
+        }
+      }
+
+    } catch (IndexOutOfBoundsException ex) {
+
+      throw new RuntimeException("Corrupt record", ex);
+    }
+
+    if (op != n) throw new RuntimeException("Expected " + n + " bytes, not " + op);
+
+    return ByteBuffer.wrap(dst);
+  }
+
+  public void readExternal(final ObjectInput in) throws IOException {
+
+    highCompression = in.readBoolean();
+  }
+
+  public void writeExternal(final ObjectOutput out) throws IOException {
+
+    out.writeBoolean(highCompression);
+  }
+}
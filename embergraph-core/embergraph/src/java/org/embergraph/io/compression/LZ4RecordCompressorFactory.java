@@ -0,0 +1,98 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.io.compression;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/*
+ * A serializable compression provider based on {@link LZ4RecordCompressor}. Since that compressor
+ * is thread-safe, the same instance is returned for each request.
+ *
+ * <p>The public zero argument constructor selects the default mode, so this class may be named
+ * directly by {@link org.embergraph.btree.IndexMetadata.Options#BTREE_RECORD_COMPRESSOR_FACTORY}.
+ * Use {@link HighCompression} to select the high compression mode by class name.
+ */
+public class LZ4RecordCompressorFactory
+    implements IRecordCompressorFactory<LZ4RecordCompressor>, Externalizable {
+
+  /** */
+  private static final long serialVersionUID = 2907284431516493311L;
+
+  private boolean highCompression;
+
+  /** Instance configured for the default mode. */
+  public static final IRecordCompressorFactory<LZ4RecordCompressor> FAST =
+      new LZ4RecordCompressorFactory(false);
+
+  /** Instance configured for the high compression mode. */
+  public static final IRecordCompressorFactory<LZ4RecordCompressor> HIGH_COMPRESSION =
+      new LZ4RecordCompressorFactory(true);
+
+  /*
+   * The high compression mode, with a zero argument constructor so it can be selected by class
+   * name.
+   */
+  public static class HighCompression extends LZ4RecordCompressorFactory {
+
+    /** */
+    private static final long serialVersionUID = -1346023960587380719L;
+
+    public HighCompression() {
+
+      super(true);
+    }
+  }
+
+  public String toString() {
+
+    return getClass().getName() + "{highCompression=" + highCompression + "}";
+  }
+
+  /** Factory for the default mode (also used for de-serialization). */
+  public LZ4RecordCompressorFactory() {
+
+    this(false);
+  }
+
+  /*
+   * @param highCompression When <code>true</code> the high compression mode is used.
+   * @see LZ4RecordCompressor#LZ4RecordCompressor(boolean)
+   */
+  public LZ4RecordCompressorFactory(final boolean highCompression) {
+
+    this.highCompression = highCompression;
+  }
+
+  public LZ4RecordCompressor getInstance() {
+
+    return highCompression ? LZ4RecordCompressor.HIGH_COMPRESSION : LZ4RecordCompressor.FAST;
+  }
+
+  public void readExternal(final ObjectInput in) throws IOException {
+
+    highCompression = in.readBoolean();
+  }
+
+  public void writeExternal(final ObjectOutput out) throws IOException {
+
+    out.writeBoolean(highCompression);
+  }
+}
@@ -0,0 +1,56 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.io.writecache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import org.embergraph.ha.QuorumPipeline;
+import org.embergraph.ha.msg.IHAWriteMessage;
+
+/*
+ * A log on which the {@link WriteCacheService} writes each {@link WriteCache} block before the
+ * block is written on the backing channel. This is used to log the write set of a store which is
+ * not highly available. The quorum leader logs its write set through {@link
+ * QuorumPipeline#logWriteCacheBlock(IHAWriteMessage, ByteBuffer)} instead.
+ *
+ * <p>The blocks are written by the {@link WriteCacheService} from a single thread, in the same
+ * order in which they are written on the backing channel.
+ */
+public interface IWriteCacheLog {
+
+  /** The {@link UUID} of the store. */
+  UUID getStoreUUID();
+
+  /** The commit counter of the opening root block for the current write set. */
+  long getLastCommitCounter();
+
+  /** The commit time of the opening root block for the current write set. */
+  long getLastCommitTime();
+
+  /** The sequence number which must be used for the next block written on the log. */
+  long getSequence();
+
+  /*
+   * Log a {@link WriteCache} block.
+   *
+   * @param msg The message describing the block.
+   * @param data The block as it will be written on the log (compressed if a compressor is in use).
+   */
+  void logWriteCacheBlock(IHAWriteMessage msg, ByteBuffer data) throws IOException;
+}
@@ -169,6 +169,29 @@ public interface IWriteCacheServiceCounters {
    */
   String NREAD_NOT_INSTALLED = "nreadNotInstalled";
 
+  /** The #of read requests that were a hit on a {@link ReadCache} buffer in the readList. */
+  String NREAD_CACHE_HIT = "nreadCacheHit";
+
+  /** The #of read requests that were a hit on a {@link ReadCache} buffer in the hotList. */
+  String NHOT_CACHE_HIT = "nhotCacheHit";
+
+  /*
+   * The #of records read from the disk which were admitted to the read cache by the TinyLFU
+   * admission policy.
+   *
+   * @see WriteCacheService#setReadCacheAdmission(boolean)
+   */
+  String NREAD_ADMITTED = "nreadAdmitted";
+
+  /*
+   * The #of records read from the disk which were NOT admitted to the read cache by the TinyLFU
+   * admission policy because they had not been accessed often enough. These reads are also counted
+   * by {@link #NREAD_NOT_INSTALLED}.
+   *
+   * @see WriteCacheService#setReadCacheAdmission(boolean)
+   */
+  String NREAD_NOT_ADMITTED = "nreadNotAdmitted";
+
   /*
    * The current size of the {@link Memoizer}'s internal cache that is used to serialize reads
    * against a given byte offset on the backing file.
@@ -45,6 +45,7 @@ import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.apache.log4j.Logger;
+import org.embergraph.cache.FrequencySketch;
 import org.embergraph.counters.CounterSet;
 import org.embergraph.ha.msg.HAWriteMessage;
 import org.embergraph.ha.msg.IHAWriteMessage;
@@ -104,7 +105,7 @@ public abstract class WriteCache implements IWriteCache {
   private final boolean prefixWrites;
 
   /** The size of the header for a prefix write. */
-  static final int SIZEOF_PREFIX_WRITE_METADATA =
+  public static final int SIZEOF_PREFIX_WRITE_METADATA =
       8 /* offset */ + 4 /* size */ + 4 /* latchedAddr */;
 
   static final int PREFIX_OFFSET_POS = 0;
@@ -1902,6 +1903,9 @@ public abstract class WriteCache implements IWriteCache {
 
   public static class ReadCache extends WriteCache {
 
+    /** <code>true</code> iff this buffer is part of the hotCache. */
+    private volatile boolean hot = false;
+
     public ReadCache(IBufferAccess buf) throws InterruptedException {
       super(
           buf,
@@ -1970,6 +1974,41 @@ public abstract class WriteCache implements IWriteCache {
 
       return this;
     }
+
+    /*
+     * Called from WCS before the records are transferred to the hotCache when using the TinyLFU
+     * admission policy. The hitCount of each record is raised to reflect the #of accesses recorded
+     * by the sketch, not just those made while the record was on this cache. The first access (the
+     * read which installed the record) is not counted as a hit.
+     *
+     * @return this ReadCache
+     */
+    ReadCache applyFrequencies(final FrequencySketch sketch) {
+      final Iterator<Entry<Long, RecordMetadata>> entries = recordMap.entrySet().iterator();
+
+      while (entries.hasNext()) {
+        final Entry<Long, RecordMetadata> entry = entries.next();
+        final RecordMetadata md = entry.getValue();
+        md.hitCount = Math.max(md.hitCount, sketch.frequency(entry.getKey()) - 1);
+      }
+
+      return this;
+    }
+
+    /** <code>true</code> iff this buffer is part of the hotCache. */
+    boolean isHot() {
+      return hot;
+    }
+
+    /*
+     * Called from WCS when moving between the readList and the hotList.
+     *
+     * @return this ReadCache
+     */
+    ReadCache setHot(final boolean hot) {
+      this.hot = hot;
+      return this;
+    }
   }
 
   /*
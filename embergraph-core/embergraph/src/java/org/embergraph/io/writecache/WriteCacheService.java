@@ -24,6 +24,7 @@ package org.embergraph.io.writecache;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channel;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -50,6 +51,7 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
 import org.apache.log4j.Logger;
+import org.embergraph.cache.FrequencySketch;
 import org.embergraph.counters.CounterSet;
 import org.embergraph.ha.HAPipelineGlue;
 import org.embergraph.ha.QuorumPipeline;
@@ -61,6 +63,7 @@ import org.embergraph.io.writecache.WriteCache.RecordMetadata;
 import org.embergraph.journal.AbstractBufferStrategy;
 import org.embergraph.quorum.Quorum;
 import org.embergraph.quorum.QuorumMember;
+import org.embergraph.util.Bytes;
 import org.embergraph.util.ChecksumError;
 import org.embergraph.util.DaemonThreadFactory;
 import org.embergraph.util.InnerCause;
@@ -373,6 +376,83 @@ public abstract class WriteCacheService implements IWriteCache {
     return quorum;
   }
 
+  /*
+   * The log on which each {@link WriteCache} block is written before it is written on the backing
+   * channel (optional, and only used when the service is not highly available).
+   */
+  private volatile IWriteCacheLog writeCacheLog = null;
+
+  /*
+   * Set the log on which each {@link WriteCache} block will be written before it is written on the
+   * backing channel. The {@link WriteCache} buffers must use prefix writes so that the logged
+   * blocks may be replayed against the backing file.
+   *
+   * @param writeCacheLog The log.
+   * @throws IllegalStateException if the service is highly available.
+   */
+  public void setWriteCacheLog(final IWriteCacheLog writeCacheLog) {
+
+    if (quorum != null) throw new IllegalStateException();
+
+    this.writeCacheLog = writeCacheLog;
+  }
+
+  /*
+   * The #of accesses (including the current one) which a record read from the disk must have
+   * according to the {@link #readSketch} to be admitted to a full read cache.
+   */
+  static final int READ_CACHE_ADMISSION_FREQUENCY = 2;
+
+  /*
+   * The access frequency sketch used by the TinyLFU admission policy for the read cache (optional).
+   *
+   * @see #setReadCacheAdmission(boolean)
+   */
+  private volatile FrequencySketch readSketch = null;
+
+  /** Set once a {@link ReadCache} buffer has been recycled, i.e., the read cache is full. */
+  private volatile boolean readCacheFull = false;
+
+  /*
+   * Enable or disable the TinyLFU admission policy for the read cache. This is a NOP if there is
+   * no read cache.
+   *
+   * <p>When enabled, the accesses to the records are recorded in a compact frequency sketch which
+   * is periodically aged. Once the read cache is full, a record read from the disk is only
+   * installed into the read cache if it has been accessed at least {@value
+   * #READ_CACHE_ADMISSION_FREQUENCY} times recently, since installing it means that a buffer of
+   * other records will be recycled. Records read once (e.g., by a scan) are returned to the caller
+   * without being installed, so they do not flush the working set out of the cache. Until the
+   * read cache is full, every record is admitted. When a {@link ReadCache} buffer is recycled, the
+   * records whose estimated frequency reaches the hotCache threshold are promoted to the hotCache
+   * even if they were not hit while they were on that buffer.
+   *
+   * @param enabled <code>true</code> to enable the admission policy.
+   */
+  public void setReadCacheAdmission(final boolean enabled) {
+
+    if (!enabled || readListSize == 0) {
+
+      readSketch = null;
+
+      return;
+    }
+
+    if (readSketch == null) {
+
+      // Sized for an average record of 1k.
+      readSketch =
+          new FrequencySketch(
+              (int) Math.min(Integer.MAX_VALUE, (long) readListSize * capacity / Bytes.kilobyte32));
+    }
+  }
+
+  /** <code>true</code> iff the TinyLFU admission policy is enabled for the read cache. */
+  public boolean isReadCacheAdmission() {
+
+    return readSketch != null;
+  }
+
   /*
    * Allocates N buffers from the {@link DirectBufferPool}.
    *
@@ -546,7 +626,9 @@ public abstract class WriteCacheService implements IWriteCache {
     this.hotCacheThreshold = hotCacheThreshold;
 
     // pre-populate hotList and readList
-    hotList.addAll(Arrays.asList(readBuffers).subList(0, hotListSize));
+    for (ReadCache tmp : Arrays.asList(readBuffers).subList(0, hotListSize)) {
+      hotList.add(tmp.setHot(true));
+    }
 
     readList.addAll(Arrays.asList(readBuffers).subList(hotListSize, readListSize));
 
@@ -1324,6 +1406,28 @@ public abstract class WriteCacheService implements IWriteCache {
          */
         //                quorumMember.logWriteCacheBlock(msg, b.duplicate());
 
+      } else if (writeCacheLog != null) {
+
+        /*
+         * Log the write cache block before it is written on the backing
+         * channel so the log always covers the writes on the channel.
+         */
+        if (checksumBuffer == null) {
+          // allocate heap byte buffer for whole buffer checksum.
+          checksumBuffer = ByteBuffer.allocate(writeBuffers[0].peek().capacity());
+        }
+
+        final WriteCache.HAPackage pkg =
+            cache.newHAPackage(
+                writeCacheLog.getStoreUUID(),
+                Quorum.NO_QUORUM,
+                writeCacheLog.getLastCommitCounter(),
+                writeCacheLog.getLastCommitTime(),
+                writeCacheLog.getSequence(),
+                1 /* replicationFactor */,
+                checksumBuffer);
+
+        writeCacheLog.logWriteCacheBlock(pkg.getMessage(), pkg.getData().duplicate());
       }
 
       /*
@@ -2870,6 +2974,11 @@ public abstract class WriteCacheService implements IWriteCache {
 
     if (tmp == null) return null;
 
+    if (!tmp.isEmpty()) {
+      // The read cache has wrapped around.
+      readCacheFull = true;
+    }
+
     try {
 
       /*
@@ -2909,6 +3018,11 @@ public abstract class WriteCacheService implements IWriteCache {
                     + totalRecords);
           }
 
+          if (readSketch != null) {
+            // Promote the records which are accessed often, not just those hit on this buffer.
+            tmp.applyFrequencies(readSketch);
+          }
+
           if (WriteCache.transferTo(tmp, hotCache, serviceMap, hotCacheThreshold)) {
             if (!tmp.isEmpty()) throw new AssertionError();
 
@@ -2925,7 +3039,7 @@ public abstract class WriteCacheService implements IWriteCache {
           // complete transfer to new hotCache
           // make now empty tmp new hotReserve
           hotList.add(hotCache);
-          readList.add(hotList.poll().resetHitCounts());
+          readList.add(hotList.poll().resetHitCounts().setHot(false));
           if (!hotReserve.isEmpty()) throw new AssertionError();
 
           hotCache = hotReserve;
@@ -2934,7 +3048,7 @@ public abstract class WriteCacheService implements IWriteCache {
             throw new AssertionError();
           }
           tmp.reset();
-          hotReserve = tmp;
+          hotReserve = tmp.setHot(true);
 
           tmp = readList.poll();
         } // while (tmp != null)
@@ -2957,6 +3071,49 @@ public abstract class WriteCacheService implements IWriteCache {
     return tmp;
   }
 
+  /*
+   * Return the metadata for the records in the read cache, reporting the records in the hot cache
+   * first. This is a non-blocking and weakly consistent view of the read cache which may be used to
+   * identify the hot records of the backing store.
+   *
+   * @param max The maximum #of records to report.
+   * @return The metadata for up to <i>max</i> records in the read cache.
+   */
+  public List<RecordMetadata> getReadCacheRecords(final int max) {
+
+    if (max < 0) throw new IllegalArgumentException();
+
+    final List<ReadCache> caches = new ArrayList<>();
+
+    synchronized (readCache) {
+      if (hotCache != null) caches.add(hotCache);
+    }
+
+    caches.addAll(hotList);
+
+    {
+      final ReadCache tmp = readCache.get();
+
+      if (tmp != null) caches.add(tmp);
+    }
+
+    caches.addAll(readList);
+
+    final List<RecordMetadata> ret = new ArrayList<>();
+
+    for (ReadCache cache : caches) {
+
+      for (RecordMetadata md : cache.recordMap.values()) {
+
+        if (ret.size() >= max) return ret;
+
+        ret.add(md);
+      }
+    }
+
+    return ret;
+  }
+
   /*
    * This is a non-blocking query of all write cache buffers (current, clean and dirty).
    *
@@ -3010,6 +3167,24 @@ public abstract class WriteCacheService implements IWriteCache {
   public ByteBuffer _readFromCache(final long offset, final int nbytes)
       throws ChecksumError, InterruptedException {
 
+    final FrequencySketch sketch = readSketch;
+
+    if (sketch != null) {
+      // Record the access for the read cache admission policy.
+      sketch.increment(offset);
+    }
+
+    return lookup(offset, nbytes);
+  }
+
+  /*
+   * Attempt to read record from cache without recording the access.
+   *
+   * @see #_readFromCache(long, int)
+   */
+  private ByteBuffer lookup(final long offset, final int nbytes)
+      throws ChecksumError, InterruptedException {
+
     if (nbytes > capacity) {
       /*
        * Note: Writes larger than a single write cache buffer are NOT
@@ -3052,8 +3227,18 @@ public abstract class WriteCacheService implements IWriteCache {
           log.debug("WriteCache out of sync with WriteCacheService");
         }
 
-        if (ret != null)
+        if (ret != null) {
+
+          if (cache instanceof ReadCache) {
+            if (((ReadCache) cache).isHot()) {
+              counters.get().nhotCacheHit.increment();
+            } else {
+              counters.get().nreadCacheHit.increment();
+            }
+          }
+
           return ret;
+        }
 
         // May have been transferred to another Cache!
 
@@ -3253,7 +3438,7 @@ public abstract class WriteCacheService implements IWriteCache {
      * the same record (the record for that offset) into the cache.
      */
 
-    ByteBuffer tmp = _readFromCache(offset, nbytes);
+    ByteBuffer tmp = lookup(offset, nbytes);
 
     if (tmp != null) {
 
@@ -3276,6 +3461,25 @@ public abstract class WriteCacheService implements IWriteCache {
       return ret;
     }
 
+    final FrequencySketch sketch = readSketch;
+
+    if (sketch != null) {
+
+      if (readCacheFull && sketch.frequency(offset) < READ_CACHE_ADMISSION_FREQUENCY) {
+
+        /*
+         * TinyLFU: Once the read cache is full, installing this record
+         * would evict records which are accessed more often. This is what
+         * keeps a scan from flushing the working set out of the cache.
+         */
+        counters.get().nreadNotAdmitted.increment();
+
+        return _readFromLocalDiskIntoNewHeapByteBuffer(offset, nbytes);
+      }
+
+      counters.get().nreadAdmitted.increment();
+    }
+
     /*
      * The reader threads co-operatively manage the readCache on behalf of
      * the WCS. The allocation attempt for a cache buffer is serialized and
@@ -137,6 +137,18 @@ public class WriteCacheServiceCounters extends WriteCacheCounters
    */
   public final CAT nreadNotInstalled = new CAT();
 
+  /** The #of read requests that were a hit on a {@link ReadCache} buffer in the readList. */
+  public final CAT nreadCacheHit = new CAT();
+
+  /** The #of read requests that were a hit on a {@link ReadCache} buffer in the hotList. */
+  public final CAT nhotCacheHit = new CAT();
+
+  /** The #of records read from the disk which were admitted to the read cache. */
+  public final CAT nreadAdmitted = new CAT();
+
+  /** The #of records read from the disk which were NOT admitted to the read cache. */
+  public final CAT nreadNotAdmitted = new CAT();
+
   public final CAT memoCacheSize = new CAT();
 
   public WriteCacheServiceCounters(
@@ -366,6 +378,42 @@ public class WriteCacheServiceCounters extends WriteCacheCounters
           }
         });
 
+    root.addCounter(
+        NREAD_CACHE_HIT,
+        new Instrument<Long>() {
+          @Override
+          public void sample() {
+            setValue(nreadCacheHit.get());
+          }
+        });
+
+    root.addCounter(
+        NHOT_CACHE_HIT,
+        new Instrument<Long>() {
+          @Override
+          public void sample() {
+            setValue(nhotCacheHit.get());
+          }
+        });
+
+    root.addCounter(
+        NREAD_ADMITTED,
+        new Instrument<Long>() {
+          @Override
+          public void sample() {
+            setValue(nreadAdmitted.get());
+          }
+        });
+
+    root.addCounter(
+        NREAD_NOT_ADMITTED,
+        new Instrument<Long>() {
+          @Override
+          public void sample() {
+            setValue(nreadNotAdmitted.get());
+          }
+        });
+
     root.addCounter(
         MEMO_CACHE_SIZE,
         new Instrument<Long>() {
@@ -28,8 +28,11 @@ import java.lang.ref.WeakReference;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.rmi.RemoteException;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -41,6 +44,7 @@ import java.util.UUID;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -58,6 +62,7 @@ import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
 import org.apache.log4j.Logger;
 import org.embergraph.EmbergraphStatics;
+import org.embergraph.btree.AbstractBTree;
 import org.embergraph.btree.BTree;
 import org.embergraph.btree.Checkpoint;
 import org.embergraph.btree.ICheckpointProtocol;
@@ -146,6 +151,7 @@ import org.embergraph.quorum.QuorumTokenTransitions;
 import org.embergraph.rawstore.IAllocationContext;
 import org.embergraph.rawstore.IAllocationManagerStore;
 import org.embergraph.rawstore.IPSOutputStream;
+import org.embergraph.rawstore.ITieredStore;
 import org.embergraph.rawstore.SimpleMemoryRawStore;
 import org.embergraph.rawstore.WormAddressManager;
 import org.embergraph.resources.ResourceManager;
@@ -215,7 +221,10 @@ import org.embergraph.util.StackInfoReport;
  *     journal had been asynchronously closed.
  */
 public abstract class AbstractJournal
-    implements IJournal /* , ITimestampService */, IAllocationManager, IAllocationManagerStore {
+    implements IJournal /* , ITimestampService */,
+        IAllocationManager,
+        IAllocationManagerStore,
+        ITieredStore {
 
   /** Logger. */
   private static final Logger log = Logger.getLogger(AbstractJournal.class);
@@ -728,6 +737,9 @@ public abstract class AbstractJournal
    */
   protected final boolean deleteOnClose;
 
+  /** The tasks to be run when the journal is closed (see {@link #addCloseTask(Runnable)}). */
+  private final CopyOnWriteArrayList<Runnable> closeTasks = new CopyOnWriteArrayList<>();
+
   /*
    * The maximum extent before a {@link #commit()} will {@link #overflow()}. In practice, overflow
    * tries to trigger before this point in order to avoid extending the journal.
@@ -1358,6 +1370,16 @@ public abstract class AbstractJournal
     if (log.isInfoEnabled()) log.info("Shutdown complete.");
   }
 
+  @Override
+  public void addCloseTask(final Runnable task) {
+
+    if (task == null) throw new IllegalArgumentException();
+
+    assertOpen();
+
+    closeTasks.add(task);
+  }
+
   /*
    * Immediate shutdown (running tasks are canceled rather than being permitted to complete).
    *
@@ -1698,6 +1720,45 @@ public abstract class AbstractJournal
     return tmp;
   }
 
+  /*
+   * Return the read-only B+Tree views which are currently open. This scans the {@link #indexCache}
+   * and the {@link #historicalIndexCache}. Views whose references have been cleared are not
+   * reported, and neither are the mutable views of the named indices.
+   *
+   * @return A new collection of the read-only B+Tree views that were open as of the time that this
+   *     method was invoked.
+   */
+  protected final Collection<AbstractBTree> getOpenReadOnlyBTrees() {
+
+    final Set<AbstractBTree> set = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    {
+      final Iterator<WeakReference<ICheckpointProtocol>> itr = indexCache.iterator();
+
+      while (itr.hasNext()) {
+
+        final ICheckpointProtocol ndx = itr.next().get();
+
+        if (ndx instanceof AbstractBTree && ((AbstractBTree) ndx).isReadOnly())
+          set.add((AbstractBTree) ndx);
+      }
+    }
+
+    {
+      final Iterator<WeakReference<ICommitter>> itr = historicalIndexCache.iterator();
+
+      while (itr.hasNext()) {
+
+        final ICommitter ndx = itr.next().get();
+
+        if (ndx instanceof AbstractBTree && ((AbstractBTree) ndx).isReadOnly())
+          set.add((AbstractBTree) ndx);
+      }
+    }
+
+    return set;
+  }
+
   @Override
   public final File getFile() {
 
@@ -1799,6 +1860,21 @@ public abstract class AbstractJournal
     // Stop watching for quorum related events.
     if (quorum != null) quorum.terminate();
 
+    // Release the resources whose life cycle is bound to the journal.
+    for (Runnable task : closeTasks) {
+
+      try {
+
+        task.run();
+
+      } catch (Throwable t) {
+
+        log.error(t, t);
+      }
+    }
+
+    closeTasks.clear();
+
     // report event.
     ResourceManager.closeJournal(getFile() == null ? null : getFile().toString());
 
@@ -3487,29 +3563,42 @@ public abstract class AbstractJournal
 
       final long beginNanos = System.nanoTime();
 
-      /*
-       * Force application data to stable storage _before_
-       * we update the root blocks. This option guarantees
-       * that the application data is stable on the disk
-       * before the atomic commit. Some operating systems
-       * and/or file systems may otherwise choose an
-       * ordered write with the consequence that the root
-       * blocks are laid down on the disk before the
-       * application data and a hard failure could result
-       * in the loss of application data addressed by the
-       * new root blocks (data loss on restart).
-       *
-       * Note: We do not force the file metadata to disk.
-       * If that is done, it will be done by a force()
-       * after we write the root block on the disk.
-       */
-      if (store.doubleSync) {
+      if (_bufferStrategy instanceof RWStrategy
+          && ((RWStrategy) _bufferStrategy).getStore().isRedoLogEnabled()) {
 
-        _bufferStrategy.force(false /* metadata */);
-      }
+        /*
+         * The commit is made durable by sealing the redo log. The root
+         * block is written on the backing file without a sync. The backing
+         * file is synced by the next checkpoint of the redo log.
+         */
+        ((RWStrategy) _bufferStrategy).getStore().commitRedoLog(newRootBlock);
 
-      // write the root block on to the backing store.
-      _bufferStrategy.writeRootBlock(newRootBlock, store.forceOnCommit);
+      } else {
+
+        /*
+         * Force application data to stable storage _before_
+         * we update the root blocks. This option guarantees
+         * that the application data is stable on the disk
+         * before the atomic commit. Some operating systems
+         * and/or file systems may otherwise choose an
+         * ordered write with the consequence that the root
+         * blocks are laid down on the disk before the
+         * application data and a hard failure could result
+         * in the loss of application data addressed by the
+         * new root blocks (data loss on restart).
+         *
+         * Note: We do not force the file metadata to disk.
+         * If that is done, it will be done by a force()
+         * after we write the root block on the disk.
+         */
+        if (store.doubleSync) {
+
+          _bufferStrategy.force(false /* metadata */);
+        }
+
+        // write the root block on to the backing store.
+        _bufferStrategy.writeRootBlock(newRootBlock, store.forceOnCommit);
+      }
 
       if (_bufferStrategy instanceof IRWStrategy) {
 
@@ -3744,6 +3833,16 @@ public abstract class AbstractJournal
     private CommitResponse commitResponse;
   } // class CommitState.
 
+  /*
+   * Hook invoked by {@link #commitNow(long)} while holding the exclusive lock and before the {@link
+   * ICommitter}s are notified, so any changes made to the unisolated indices by this hook are
+   * included in the commit. The default implementation is a NOP.
+   */
+  protected void beforeNotifyCommitters() {
+
+    // NOP
+  }
+
   /*
    * An atomic commit is performed by directing each registered {@link ICommitter} to flush its
    * state onto the store using {@link ICommitter#handleCommit(long)}. The address returned by that
@@ -3781,6 +3880,8 @@ public abstract class AbstractJournal
       // AbstractJournal.abort() and EmbergraphSailConnection.rollback())
       if (abortRequired.get()) throw new AbortRequiredException();
 
+      beforeNotifyCommitters();
+
       final CommitState cs = new CommitState(this, commitTime);
 
       /*
@@ -3988,6 +4089,31 @@ public abstract class AbstractJournal
     return _bufferStrategy.read(addr);
   }
 
+  @Override
+  public ByteBuffer[] readBatch(final long[] addrs) {
+    assertOpen();
+
+    assertCanRead();
+
+    return _bufferStrategy.readBatch(addrs);
+  }
+
+  @Override
+  public boolean isFastTierEnabled() {
+
+    return _bufferStrategy instanceof ITieredStore
+        && ((ITieredStore) _bufferStrategy).isFastTierEnabled();
+  }
+
+  @Override
+  public void writeFastTier(final long addr, final ByteBuffer data) {
+
+    if (_bufferStrategy instanceof ITieredStore) {
+
+      ((ITieredStore) _bufferStrategy).writeFastTier(addr, data);
+    }
+  }
+
   @Override
   public long write(final ByteBuffer data) {
 
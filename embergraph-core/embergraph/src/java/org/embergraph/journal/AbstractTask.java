@@ -2644,6 +2644,11 @@ public abstract class AbstractTask<T> implements Callable<T>, ITask<T> {
       return delegate.isOpen();
     }
 
+    @Override
+    public void addCloseTask(final Runnable task) {
+      delegate.addCloseTask(task);
+    }
+
     @Override
     public boolean isReadOnly() {
       return delegate.isReadOnly();
@@ -2663,6 +2668,11 @@ public abstract class AbstractTask<T> implements Callable<T>, ITask<T> {
       return delegate.read(addr);
     }
 
+    @Override
+    public ByteBuffer[] readBatch(final long[] addrs) {
+      return delegate.readBatch(addrs);
+    }
+
     @Override
     public long size() {
       return delegate.size();
@@ -3283,6 +3293,11 @@ public abstract class AbstractTask<T> implements Callable<T>, ITask<T> {
       return delegate.isOpen();
     }
 
+    @Override
+    public void addCloseTask(final Runnable task) {
+      delegate.addCloseTask(task);
+    }
+
     @Override
     public boolean isReadOnly() {
       return delegate.isReadOnly();
@@ -3298,6 +3313,11 @@ public abstract class AbstractTask<T> implements Callable<T>, ITask<T> {
       return delegate.read(addr);
     }
 
+    @Override
+    public ByteBuffer[] readBatch(final long[] addrs) {
+      return delegate.readBatch(addrs);
+    }
+
     @Override
     public long size() {
       return delegate.size();
@@ -35,6 +35,7 @@ import org.embergraph.config.LongRangeValidator;
 import org.embergraph.io.FileChannelUtility;
 import org.embergraph.io.IReopenChannel;
 import org.embergraph.rawstore.WormAddressManager;
+import org.embergraph.rwstore.RWStore;
 import org.embergraph.util.Bytes;
 
 /*
@@ -1370,6 +1371,25 @@ public class FileMetadata {
        * Code path when the file exists and is non-empty.
        */
 
+      final String redoLogDir =
+          getProperty(properties, RWStore.Options.REDO_LOG_DIR, null /* defaultValue */);
+
+      if (bufferMode == BufferMode.DiskRW
+          && !readOnly
+          && redoLogDir != null
+          && redoLogDir.trim().length() > 0) {
+
+        /*
+         * Replay any redo logs before the root blocks are read since the
+         * root block of the last commit point might not be on the file.
+         */
+        try {
+          RWStore.replayRedoLog(new File(redoLogDir.trim()), file);
+        } catch (IOException ex) {
+          throw new RuntimeException("Could not replay redo log: " + redoLogDir, ex);
+        }
+      }
+
       return new FileMetadata(
           file,
           useDirectBuffers,
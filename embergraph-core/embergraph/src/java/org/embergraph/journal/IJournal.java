@@ -46,6 +46,15 @@ public interface IJournal extends IMRMW, IAtomicStore, IBTreeManager {
   /** Immediate shutdown. */
   void shutdownNow();
 
+  /*
+   * Register a task to be run when the journal is closed. This is used to release resources whose
+   * life cycle is bound to the journal but which are managed outside of it, such as the caches
+   * shared by the relations on the journal.
+   *
+   * @param task The task.
+   */
+  void addCloseTask(Runnable task);
+
   /** Return the object providing the local transaction manager for this journal. */
   ILocalTransactionManager getLocalTransactionManager();
 
@@ -215,6 +215,91 @@ public class Journal extends AbstractJournal
     String READ_POOL_SIZE = Journal.class.getName() + ".readPoolSize";
 
     String DEFAULT_READ_POOL_SIZE = "0";
+
+    /*
+     * The interval in milliseconds between snapshots of the hot working set of the journal -or-
+     * ZERO (0) to disable warm start snapshots (default {@value
+     * #DEFAULT_WARM_START_SNAPSHOT_INTERVAL}). When enabled, the file extents of the records in the
+     * read cache and of the materialized nodes and leaves of the open read-only index views are
+     * periodically written onto a side file next to the journal file. A final snapshot is taken
+     * when the journal is shutdown. When the journal is re-opened, those extents are read back into
+     * the OS page cache before the constructor returns. This is only supported for the {@link
+     * BufferMode#DiskRW} and {@link BufferMode#DiskWORM} modes.
+     *
+     * @see WarmStartSnapshot
+     */
+    String WARM_START_SNAPSHOT_INTERVAL =
+        Journal.class.getName() + ".warmStartSnapshotInterval";
+
+    String DEFAULT_WARM_START_SNAPSHOT_INTERVAL = "0";
+
+    /*
+     * The maximum #of records in a warm start snapshot (default {@value
+     * #DEFAULT_WARM_START_SNAPSHOT_CAPACITY}).
+     *
+     * @see #WARM_START_SNAPSHOT_INTERVAL
+     */
+    String WARM_START_SNAPSHOT_CAPACITY =
+        Journal.class.getName() + ".warmStartSnapshotCapacity";
+
+    String DEFAULT_WARM_START_SNAPSHOT_CAPACITY = "100000";
+
+    /*
+     * The #of threads that will be used to prefetch a warm start snapshot when the journal is
+     * opened (default {@value #DEFAULT_WARM_START_THREADS}). Since the threads block on IO, a
+     * modestly large number of threads is required to drive enough IOPs.
+     *
+     * @see #WARM_START_SNAPSHOT_INTERVAL
+     */
+    String WARM_START_THREADS = Journal.class.getName() + ".warmStartThreads";
+
+    String DEFAULT_WARM_START_THREADS = "20";
+
+    /*
+     * The interval in milliseconds between online compaction passes -or- ZERO (0) to disable
+     * online compaction (default {@value #DEFAULT_ONLINE_COMPACTION_INTERVAL}). Each pass drains
+     * the sparsely used allocators of the store and relocates the nodes and leaves of the
+     * unisolated indices which they hold. The relocation is performed incrementally by the
+     * subsequent commits, and the file is truncated as its tail is released. This is only
+     * supported for the {@link BufferMode#DiskRW} mode.
+     *
+     * @see OnlineCompaction
+     */
+    String ONLINE_COMPACTION_INTERVAL = Journal.class.getName() + ".onlineCompactionInterval";
+
+    String DEFAULT_ONLINE_COMPACTION_INTERVAL = "0";
+
+    /*
+     * The maximum ratio of live slots to reserved slots for an allocator to be drained by an online
+     * compaction pass (default {@value #DEFAULT_ONLINE_COMPACTION_MAX_USAGE}).
+     *
+     * @see #ONLINE_COMPACTION_INTERVAL
+     */
+    String ONLINE_COMPACTION_MAX_USAGE = Journal.class.getName() + ".onlineCompactionMaxUsage";
+
+    String DEFAULT_ONLINE_COMPACTION_MAX_USAGE = ".25";
+
+    /*
+     * The maximum #of allocators drained by an online compaction pass (default {@value
+     * #DEFAULT_ONLINE_COMPACTION_MAX_ALLOCATORS}).
+     *
+     * @see #ONLINE_COMPACTION_INTERVAL
+     */
+    String ONLINE_COMPACTION_MAX_ALLOCATORS =
+        Journal.class.getName() + ".onlineCompactionMaxAllocators";
+
+    String DEFAULT_ONLINE_COMPACTION_MAX_ALLOCATORS = "100";
+
+    /*
+     * The maximum #of leaves visited by the online compaction for each commit (default {@value
+     * #DEFAULT_ONLINE_COMPACTION_LEAVES_PER_COMMIT}). This bounds the latency added to a commit.
+     *
+     * @see #ONLINE_COMPACTION_INTERVAL
+     */
+    String ONLINE_COMPACTION_LEAVES_PER_COMMIT =
+        Journal.class.getName() + ".onlineCompactionLeavesPerCommit";
+
+    String DEFAULT_ONLINE_COMPACTION_LEAVES_PER_COMMIT = "1000";
   }
 
   /*
@@ -279,6 +364,10 @@ public class Journal extends AbstractJournal
 
     concurrencyManager = new ConcurrencyManager(properties, localTransactionManager, this);
 
+    warmStartSnapshot = newWarmStartSnapshot(properties);
+
+    onlineCompaction = newOnlineCompaction(properties);
+
     getExecutorService().execute(new StartDeferredTasksTask());
 
     if (isGroupCommit() && !(this.isHAJournal()) && getRootBlockView().getCommitCounter() == 0L) {
@@ -319,6 +408,164 @@ public class Journal extends AbstractJournal
     return properties;
   }
 
+  /*
+   * Setup the warm start snapshot (if enabled). Any existing snapshot is prefetched before this
+   * method returns, and then a snapshot is scheduled at the configured interval.
+   *
+   * @return The {@link WarmStartSnapshot} -or- <code>null</code> if warm start snapshots are not
+   *     enabled.
+   * @see Options#WARM_START_SNAPSHOT_INTERVAL
+   */
+  private WarmStartSnapshot newWarmStartSnapshot(final Properties properties) {
+
+    final long interval =
+        Long.valueOf(
+            properties.getProperty(
+                Options.WARM_START_SNAPSHOT_INTERVAL, Options.DEFAULT_WARM_START_SNAPSHOT_INTERVAL));
+
+    if (interval < 0) throw new IllegalArgumentException(Options.WARM_START_SNAPSHOT_INTERVAL);
+
+    if (interval == 0 || getFile() == null || !WarmStartSnapshot.isSupported(getBufferStrategy()))
+      return null;
+
+    final int capacity =
+        Integer.valueOf(
+            properties.getProperty(
+                Options.WARM_START_SNAPSHOT_CAPACITY, Options.DEFAULT_WARM_START_SNAPSHOT_CAPACITY));
+
+    final int nthreads =
+        Integer.valueOf(
+            properties.getProperty(
+                Options.WARM_START_THREADS, Options.DEFAULT_WARM_START_THREADS));
+
+    final WarmStartSnapshot tmp =
+        new WarmStartSnapshot(
+            this, new File(getFile().getPath() + WarmStartSnapshot.EXT), capacity, nthreads);
+
+    try {
+
+      tmp.prefetch();
+
+    } catch (InterruptedException ex) {
+
+      throw new RuntimeException(ex);
+
+    } catch (Throwable t) {
+
+      // The snapshot is only an optimization.
+      log.warn("Could not prefetch warm start snapshot: " + tmp.getFile() + " : " + t, t);
+    }
+
+    addScheduledTask(
+        new Runnable() {
+          @Override
+          public void run() {
+            snapshotWarmStart();
+          }
+        },
+        interval,
+        interval,
+        TimeUnit.MILLISECONDS);
+
+    return tmp;
+  }
+
+  /*
+   * Take a warm start snapshot (if enabled). Errors are logged but not thrown since the snapshot is
+   * only an optimization.
+   */
+  private void snapshotWarmStart() {
+
+    if (warmStartSnapshot == null || !isOpen()) return;
+
+    try {
+
+      warmStartSnapshot.snapshot();
+
+    } catch (Throwable t) {
+
+      log.warn("Could not write warm start snapshot: " + warmStartSnapshot.getFile() + " : " + t, t);
+    }
+  }
+
+  /*
+   * Setup the online compaction (if enabled). A pass is requested at the configured interval and is
+   * then run incrementally by the subsequent commits.
+   *
+   * @return The {@link OnlineCompaction} -or- <code>null</code> if online compaction is not
+   *     enabled.
+   * @see Options#ONLINE_COMPACTION_INTERVAL
+   */
+  private OnlineCompaction newOnlineCompaction(final Properties properties) {
+
+    final long interval =
+        Long.valueOf(
+            properties.getProperty(
+                Options.ONLINE_COMPACTION_INTERVAL, Options.DEFAULT_ONLINE_COMPACTION_INTERVAL));
+
+    if (interval < 0) throw new IllegalArgumentException(Options.ONLINE_COMPACTION_INTERVAL);
+
+    if (interval == 0 || isHAJournal() || !OnlineCompaction.isSupported(getBufferStrategy()))
+      return null;
+
+    final float maxUsage =
+        Float.valueOf(
+            properties.getProperty(
+                Options.ONLINE_COMPACTION_MAX_USAGE, Options.DEFAULT_ONLINE_COMPACTION_MAX_USAGE));
+
+    final int maxAllocators =
+        Integer.valueOf(
+            properties.getProperty(
+                Options.ONLINE_COMPACTION_MAX_ALLOCATORS,
+                Options.DEFAULT_ONLINE_COMPACTION_MAX_ALLOCATORS));
+
+    final int leavesPerCommit =
+        Integer.valueOf(
+            properties.getProperty(
+                Options.ONLINE_COMPACTION_LEAVES_PER_COMMIT,
+                Options.DEFAULT_ONLINE_COMPACTION_LEAVES_PER_COMMIT));
+
+    final OnlineCompaction tmp =
+        new OnlineCompaction(this, maxUsage, maxAllocators, leavesPerCommit);
+
+    addScheduledTask(
+        new Runnable() {
+          @Override
+          public void run() {
+            tmp.requestPass();
+          }
+        },
+        interval,
+        interval,
+        TimeUnit.MILLISECONDS);
+
+    return tmp;
+  }
+
+  /*
+   * {@inheritDoc}
+   *
+   * <p>Overridden to run the next increment of the online compaction (if enabled).
+   */
+  @Override
+  protected void beforeNotifyCommitters() {
+
+    if (onlineCompaction != null) {
+
+      onlineCompaction.beforeCommit();
+    }
+  }
+
+  /*
+   * The online compaction -or- <code>null</code> if online compaction is not enabled.
+   *
+   * @see Options#ONLINE_COMPACTION_INTERVAL
+   */
+  public OnlineCompaction getOnlineCompaction() {
+
+    return onlineCompaction;
+  }
+
   /** Factory for the {@link IResourceLocator} for the {@link Journal}. */
   @SuppressWarnings({"unchecked", "rawtypes"})
   protected IResourceLocator<?> newResourceLocator() {
@@ -2259,6 +2506,12 @@ public class Journal extends AbstractJournal
 
     /** Performance counters for the query engine associated with this journal (if any). */
     String queryEngine = "Query Engine";
+
+    /** Performance counters for the most recent {@link WarmUpTask} (if any). */
+    String warmUp = "Warm Up";
+
+    /** Performance counters for the {@link OnlineCompaction} (if enabled). */
+    String onlineCompaction = "Online Compaction";
   }
 
   /*
@@ -2323,6 +2576,20 @@ public class Journal extends AbstractJournal
           }
         }
       }
+
+      {
+        final WarmUpTask t = warmUpTask.get();
+
+        if (t != null) {
+
+          tmp.makePath(IJournalCounters.warmUp).attach(t.getCounters());
+        }
+      }
+
+      if (onlineCompaction != null) {
+
+        tmp.makePath(IJournalCounters.onlineCompaction).attach(onlineCompaction.getCounters());
+      }
     }
 
     // Lookup an existing query engine, but do not cause one to be created.
@@ -2983,6 +3250,9 @@ public class Journal extends AbstractJournal
      */
     localTransactionManager.shutdown();
 
+    // Record the hot working set for the next restart.
+    snapshotWarmStart();
+
     {
       final IPlugIn<?, ?> plugIn = pluginQueueStats.get();
 
@@ -3482,6 +3752,20 @@ public class Journal extends AbstractJournal
 
   private final LatchedExecutor readService;
 
+  /*
+   * The warm start snapshot -or- <code>null</code> if warm start snapshots are not enabled.
+   *
+   * @see Options#WARM_START_SNAPSHOT_INTERVAL
+   */
+  private final WarmStartSnapshot warmStartSnapshot;
+
+  /*
+   * The online compaction -or- <code>null</code> if online compaction is not enabled.
+   *
+   * @see Options#ONLINE_COMPACTION_INTERVAL
+   */
+  private final OnlineCompaction onlineCompaction;
+
   /*
    * Warm-up Journal.
    */
@@ -3500,28 +3784,63 @@ public class Journal extends AbstractJournal
   public Future<Map<String, BaseIndexStats>> warmUp(final List<String> namespaces) {
 
     /*
-     * The indices will be scanned with one thread per index. This parameter
-     * determines the #of such scans that will execute in parallel. Since the
-     * thread will block on any IO, you need a modestly large number of
-     * threads here to enqueue enough disk reads to drive enough IOPs for an
+     * The pages of the indices will be read by a pool of readers. This
+     * parameter determines the #of reads that will execute in parallel.
+     * Since the thread will block on any IO, you need a modestly large number
+     * of threads here to enqueue enough disk reads to drive enough IOPs for an
      * efficient disk scan.
      */
     final int nparallel = 20;
 
-    final FutureTask<Map<String, BaseIndexStats>> ft =
-        new FutureTask<>(
-            new WarmUpTask(
-                this,
-                namespaces,
-                ITx.READ_COMMITTED /* timestamp */,
-                nparallel,
-                false /* visitLeaves */));
+    return warmUp(
+        namespaces, ITx.READ_COMMITTED /* timestamp */, nparallel, false /* visitLeaves */);
+  }
+
+  /*
+   * Warmup the indicated namespaces. The task becomes the {@link #getWarmUpTask() current warm up
+   * task} and its progress is reported by the performance counters of the journal.
+   *
+   * @param namespaces A list of zero or more namespaces to be warmed up (optional). When <code>null
+   *     </code> or empty, all namespaces will be warmed up.
+   * @param timestamp The commit time to be warmed up and -or- {@link ITx#READ_COMMITTED} to warm up
+   *     the last commit point on the journal.
+   * @param nparallel The #of threads that will be used to read the pages of the indices.
+   * @param visitLeaves when <code>true</code> the leaves of the indices will also be read.
+   * @return A future for the task that is warming up the indices associated with those
+   *     namespace(s).
+   * @see WarmUpTask
+   */
+  public Future<Map<String, BaseIndexStats>> warmUp(
+      final List<String> namespaces,
+      final long timestamp,
+      final int nparallel,
+      final boolean visitLeaves) {
+
+    final WarmUpTask task = new WarmUpTask(this, namespaces, timestamp, nparallel, visitLeaves);
+
+    final FutureTask<Map<String, BaseIndexStats>> ft = new FutureTask<>(task);
+
+    warmUpTask.set(task);
 
     getExecutorService().submit(ft);
 
     return ft;
   }
 
+  /*
+   * Return the most recent warm up task -or- <code>null</code> if the journal has not been warmed
+   * up.
+   *
+   * @see #warmUp(List, long, int, boolean)
+   */
+  public WarmUpTask getWarmUpTask() {
+
+    return warmUpTask.get();
+  }
+
+  /** The most recent warm up task (if any). */
+  private final AtomicReference<WarmUpTask> warmUpTask = new AtomicReference<>();
+
   /*
    * This task runs once starts an (optional) {@link AbstractStatisticsCollector} and an (optional)
    * httpd service.
@@ -169,6 +169,11 @@ public class JournalDelegate implements IJournal {
     return delegate.isOpen();
   }
 
+  @Override
+  public void addCloseTask(final Runnable task) {
+    delegate.addCloseTask(task);
+  }
+
   @Override
   public boolean isReadOnly() {
     return delegate.isOpen();
@@ -184,6 +189,11 @@ public class JournalDelegate implements IJournal {
     return delegate.read(addr);
   }
 
+  @Override
+  public ByteBuffer[] readBatch(final long[] addrs) {
+    return delegate.readBatch(addrs);
+  }
+
   @Override
   public long size() {
     return delegate.size();
@@ -0,0 +1,359 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.journal;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongPredicate;
+import org.apache.log4j.Logger;
+import org.embergraph.btree.BTree;
+import org.embergraph.btree.ICheckpointProtocol;
+import org.embergraph.btree.NodeRelocator;
+import org.embergraph.counters.CounterSet;
+import org.embergraph.counters.ICounterSetAccess;
+import org.embergraph.counters.Instrument;
+import org.embergraph.rwstore.RWStore;
+
+/*
+ * Online, incremental compaction of the {@link RWStore} backing a journal. Unlike {@link
+ * CompactTask}, the journal remains open and writers are not blocked for the duration of the
+ * compaction.
+ *
+ * <p>A compaction pass first selects the sparsely used allocators, preferring those nearest the end
+ * of the file, and marks them as draining so no new records are written onto them (see {@link
+ * RWStore#selectDrainingAllocators(float, int)}). The nodes and leaves of the unisolated {@link
+ * BTree}s which are held by a draining allocator are then relocated by copy-on-write (see {@link
+ * NodeRelocator}), so they are written onto the dense allocators when the indices are
+ * checkpointed. The old records are released by the normal deferred free mechanism, after which the
+ * draining allocators empty out. Each commit releases the empty regions at the end of the allocated
+ * extent and the file is truncated once enough of it has been released (unless the store uses
+ * memory mapped reads, in which case the released extent is reused instead).
+ *
+ * <p>The relocation runs in bounded increments of {@link #getLeavesPerCommit()} leaves. Each
+ * increment is run by the committing thread while it holds the exclusive lock of the journal, just
+ * before the indices are checkpointed, so the relocated nodes and leaves become durable with the
+ * commit and are discarded by an abort. A pass is requested periodically but only makes progress
+ * as commits occur.
+ *
+ * <p>Note: Raw records and blobs are not relocated, so an allocator holding such records will only
+ * empty once those records are deleted by the application.
+ *
+ * @see Journal.Options#ONLINE_COMPACTION_INTERVAL
+ */
+public class OnlineCompaction implements ICounterSetAccess {
+
+  private static final Logger log = Logger.getLogger(OnlineCompaction.class);
+
+  private final AbstractJournal journal;
+
+  private final RWStore store;
+
+  private final float maxUsage;
+
+  private final int maxAllocators;
+
+  private final int leavesPerCommit;
+
+  /** Selects the addresses of the records held by a draining allocator. */
+  private final LongPredicate filter;
+
+  /** Set when a new pass has been requested. */
+  private final AtomicBoolean passRequested = new AtomicBoolean(false);
+
+  /*
+   * The names of the indices remaining in the current pass -or- <code>null</code> if there is no
+   * pass in progress. {@link Name2Addr} itself is relocated once this list is empty. This and
+   * {@link #relocator} are only accessed by the committing thread.
+   */
+  private volatile LinkedList<String> names = null;
+
+  /** The relocator for the index at the head of {@link #names}. */
+  private NodeRelocator relocator = null;
+
+  private final AtomicLong npasses = new AtomicLong();
+
+  private final AtomicLong leavesVisited = new AtomicLong();
+
+  private final AtomicLong leavesRelocated = new AtomicLong();
+
+  /*
+   * Return <code>true</code> iff online compaction is supported for the backing store. This is the
+   * case for the {@link BufferMode#DiskRW} mode.
+   */
+  public static boolean isSupported(final IBufferStrategy bufferStrategy) {
+
+    return bufferStrategy instanceof RWStrategy;
+  }
+
+  /*
+   * @param journal The journal.
+   * @param maxUsage The maximum ratio of live slots to reserved slots for an allocator to be
+   *     drained.
+   * @param maxAllocators The maximum #of allocators which are drained by a pass.
+   * @param leavesPerCommit The maximum #of leaves visited by the increment run for each commit.
+   */
+  public OnlineCompaction(
+      final AbstractJournal journal,
+      final float maxUsage,
+      final int maxAllocators,
+      final int leavesPerCommit) {
+
+    if (journal == null) throw new IllegalArgumentException();
+
+    if (!isSupported(journal.getBufferStrategy())) throw new IllegalArgumentException();
+
+    if (maxUsage < 0f || maxUsage > 1f) throw new IllegalArgumentException();
+
+    if (maxAllocators <= 0) throw new IllegalArgumentException();
+
+    if (leavesPerCommit <= 0) throw new IllegalArgumentException();
+
+    this.journal = journal;
+
+    this.store = ((RWStrategy) journal.getBufferStrategy()).getStore();
+
+    this.maxUsage = maxUsage;
+
+    this.maxAllocators = maxAllocators;
+
+    this.leavesPerCommit = leavesPerCommit;
+
+    this.filter =
+        new LongPredicate() {
+          @Override
+          public boolean test(final long addr) {
+            // the latched address is in the high int32 word.
+            return store.isDraining((int) (addr >> 32));
+          }
+        };
+  }
+
+  /** The maximum #of leaves visited by the increment run for each commit. */
+  public int getLeavesPerCommit() {
+
+    return leavesPerCommit;
+  }
+
+  /** <code>true</code> iff a pass is in progress. */
+  public boolean isActive() {
+
+    return names != null;
+  }
+
+  /*
+   * Request a new pass. The pass is started by the next commit unless a pass is already in
+   * progress, in which case the new pass is started once that pass is complete.
+   */
+  public void requestPass() {
+
+    passRequested.set(true);
+  }
+
+  /*
+   * Run the next increment of the current pass, starting a pass first if one was requested. This
+   * is invoked by the journal while holding its exclusive lock and before the indices are
+   * checkpointed. Errors are logged but not thrown so a compaction problem does not fail the
+   * commit.
+   */
+  void beforeCommit() {
+
+    try {
+
+      if (names == null) {
+
+        if (!passRequested.compareAndSet(true, false)) return;
+
+        startPass();
+
+        if (names == null) return;
+      }
+
+      relocate(leavesPerCommit);
+
+    } catch (Throwable t) {
+
+      log.warn("Online compaction pass abandoned: " + t, t);
+
+      names = null;
+
+      relocator = null;
+
+      store.clearDrainingAllocators();
+    }
+  }
+
+  private void startPass() {
+
+    final int ndraining = store.selectDrainingAllocators(maxUsage, maxAllocators);
+
+    if (log.isInfoEnabled()) log.info("Starting pass: draining allocators=" + ndraining);
+
+    if (ndraining == 0) {
+
+      // Nothing to relocate.
+      npasses.incrementAndGet();
+
+      return;
+    }
+
+    final LinkedList<String> tmp = new LinkedList<>();
+
+    final Iterator<String> itr = journal.indexNameScan(null /* prefix */, ITx.UNISOLATED);
+
+    while (itr.hasNext()) {
+
+      tmp.add(itr.next());
+    }
+
+    names = tmp;
+  }
+
+  /*
+   * Visit up to <i>budget</i> leaves, advancing through the indices of the current pass.
+   */
+  private void relocate(int budget) {
+
+    while (budget > 0) {
+
+      final BTree btree;
+
+      if (!names.isEmpty()) {
+
+        final ICheckpointProtocol ndx = journal.getUnisolatedIndex(names.peek());
+
+        // Note: Only the B+Tree indices are relocated.
+        btree = ndx instanceof BTree ? (BTree) ndx : null;
+
+      } else {
+
+        btree = journal._getName2Addr();
+      }
+
+      if (btree != null) {
+
+        if (relocator == null) relocator = new NodeRelocator(filter);
+
+        final long visited = relocator.getVisitedCount();
+
+        final long relocated = relocator.getRelocatedCount();
+
+        if (btree instanceof Name2Addr) {
+
+          synchronized (btree) {
+            relocator.relocate(btree, budget);
+          }
+
+        } else {
+
+          relocator.relocate(btree, budget);
+        }
+
+        budget -= (int) (relocator.getVisitedCount() - visited);
+
+        leavesVisited.addAndGet(relocator.getVisitedCount() - visited);
+
+        leavesRelocated.addAndGet(relocator.getRelocatedCount() - relocated);
+      }
+
+      if (btree == null || relocator.isExhausted()) {
+
+        relocator = null;
+
+        if (names.isEmpty()) {
+
+          endPass();
+
+          return;
+        }
+
+        names.removeFirst();
+      }
+    }
+  }
+
+  private void endPass() {
+
+    names = null;
+
+    npasses.incrementAndGet();
+
+    if (log.isInfoEnabled())
+      log.info(
+          "Pass done: leavesVisited="
+              + leavesVisited
+              + ", leavesRelocated="
+              + leavesRelocated
+              + ", extent="
+              + journal.getBufferStrategy().getExtent());
+  }
+
+  @Override
+  public CounterSet getCounters() {
+
+    final CounterSet counters = new CounterSet();
+
+    counters.addCounter(
+        "passes",
+        new Instrument<Long>() {
+          @Override
+          public void sample() {
+            setValue(npasses.get());
+          }
+        });
+
+    counters.addCounter(
+        "leavesVisited",
+        new Instrument<Long>() {
+          @Override
+          public void sample() {
+            setValue(leavesVisited.get());
+          }
+        });
+
+    counters.addCounter(
+        "leavesRelocated",
+        new Instrument<Long>() {
+          @Override
+          public void sample() {
+            setValue(leavesRelocated.get());
+          }
+        });
+
+    counters.addCounter(
+        "drainingAllocators",
+        new Instrument<Integer>() {
+          @Override
+          public void sample() {
+            setValue(store.getDrainingAllocatorCount());
+          }
+        });
+
+    counters.addCounter(
+        "extent",
+        new Instrument<Long>() {
+          @Override
+          public void sample() {
+            setValue(journal.getBufferStrategy().getExtent());
+          }
+        });
+
+    return counters;
+  }
+}
@@ -261,6 +261,21 @@ public interface Options {
    */
   String HOT_CACHE_SIZE = AbstractJournal.class.getName() + ".hotCacheSize";
 
+  /*
+   * <strong>ALPHA FEATURE</strong> (disabled by default)
+   *
+   * <p>When <code>true</code>, the read cache uses a TinyLFU admission policy. The accesses to the
+   * records are recorded in a compact frequency sketch. Once the read cache is full, a record read
+   * from the disk is only installed into the read cache if it has been accessed recently, and the
+   * records which are accessed often are promoted to the hot cache even if they were not hit while
+   * on a given read cache buffer. This keeps a large scan from flushing the working set of point
+   * lookups out of the read cache. This option has no effect unless the read cache is enabled.
+   *
+   * @see #READ_CACHE_BUFFER_COUNT
+   * @see #DEFAULT_READ_CACHE_ADMISSION
+   */
+  String READ_CACHE_ADMISSION = AbstractJournal.class.getName() + ".readCacheAdmission";
+
   //    /*
   //     * An integer property whose value controls the size of the write cache (in
   //     * bytes) used by the selected {@link BufferMode} (default
@@ -588,6 +603,9 @@ public interface Options {
   /** The default for {@link #HOT_CACHE_THRESHOLD}. */
   String DEFAULT_HOT_CACHE_SIZE = "10";
 
+  /** The default for {@link #READ_CACHE_ADMISSION}. */
+  String DEFAULT_READ_CACHE_ADMISSION = "false";
+
   /*
    * The default initial extent for a new journal.
    *
@@ -49,6 +49,7 @@ import org.embergraph.rawstore.AbstractRawStore;
 import org.embergraph.rawstore.IAddressManager;
 import org.embergraph.rawstore.IAllocationContext;
 import org.embergraph.rawstore.IPSOutputStream;
+import org.embergraph.rawstore.ITieredStore;
 import org.embergraph.rwstore.IRWStrategy;
 import org.embergraph.rwstore.IRawTx;
 import org.embergraph.rwstore.RWStore;
@@ -80,7 +81,7 @@ import org.embergraph.util.ChecksumError;
  * @author Martyn Cutcher
  */
 public class RWStrategy extends AbstractRawStore
-    implements IBufferStrategy, IHABufferStrategy, IRWStrategy {
+    implements IBufferStrategy, IHABufferStrategy, IRWStrategy, ITieredStore {
 
   private static final transient Logger log = Logger.getLogger(RWStrategy.class);
 
@@ -164,6 +165,70 @@ public class RWStrategy extends AbstractRawStore
     }
   }
 
+  /*
+   * The records are read using {@link RWStore#getData(int[], int[])}. If a checksum error is
+   * reported for the batch, then the records are read again one at a time using {@link
+   * #read(long)}, which knows how to recover the record from the quorum.
+   */
+  @Override
+  public ByteBuffer[] readBatch(final long[] addrs) {
+
+    if (addrs == null) throw new IllegalArgumentException();
+
+    final int n = addrs.length;
+
+    final int[] rwaddrs = new int[n];
+
+    final int[] szes = new int[n];
+
+    for (int i = 0; i < n; i++) {
+
+      rwaddrs[i] = decodeAddr(addrs[i]);
+
+      szes[i] = decodeSize(addrs[i]);
+
+      if (rwaddrs[i] == 0L)
+        throw new IllegalArgumentException(AbstractBufferStrategy.ERR_ADDRESS_IS_NULL);
+
+      if (szes[i] == 0)
+        throw new IllegalArgumentException(AbstractBufferStrategy.ERR_BAD_RECORD_SIZE);
+    }
+
+    try {
+
+      return m_store.getData(rwaddrs, szes);
+
+    } catch (ChecksumError e) {
+
+      final ByteBuffer[] a = new ByteBuffer[n];
+
+      for (int i = 0; i < n; i++) {
+
+        a[i] = read(addrs[i]);
+      }
+
+      return a;
+    }
+  }
+
+  @Override
+  public boolean isFastTierEnabled() {
+
+    return m_store.isFastTierEnabled();
+  }
+
+  /** @see RWStore#writeFastTier(int, ByteBuffer) */
+  @Override
+  public void writeFastTier(final long addr, final ByteBuffer data) {
+
+    final int rwaddr = decodeAddr(addr);
+
+    if (rwaddr == 0L)
+      throw new IllegalArgumentException(AbstractBufferStrategy.ERR_ADDRESS_IS_NULL);
+
+    m_store.writeFastTier(rwaddr, data);
+  }
+
   public long write(final ByteBuffer data) {
 
     return write(data, null);
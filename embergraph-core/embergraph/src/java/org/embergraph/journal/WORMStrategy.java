@@ -218,6 +218,13 @@ public class WORMStrategy extends AbstractBufferStrategy
    */
   private final int hotCacheSize;
 
+  /*
+   * When <code>true</code> the read cache uses the TinyLFU admission policy.
+   *
+   * @see org.embergraph.journal.Options#READ_CACHE_ADMISSION
+   */
+  private final boolean readCacheAdmission;
+
   /*
    * The key for the {@link CompressorRegistry} which identifies the {@link IRecordCompressor} to be
    * applied (optional).
@@ -905,6 +912,12 @@ public class WORMStrategy extends AbstractBufferStrategy
                 org.embergraph.journal.Options.HOT_CACHE_SIZE,
                 org.embergraph.journal.Options.DEFAULT_HOT_CACHE_SIZE));
 
+    this.readCacheAdmission =
+        Boolean.valueOf(
+            fileMetadata.getProperty(
+                org.embergraph.journal.Options.READ_CACHE_ADMISSION,
+                org.embergraph.journal.Options.DEFAULT_READ_CACHE_ADMISSION));
+
     this.compressorKey =
         fileMetadata.getProperty(
             org.embergraph.journal.Options.HALOG_COMPRESSOR,
@@ -932,7 +945,12 @@ public class WORMStrategy extends AbstractBufferStrategy
 
     try {
 
-      return new WORMWriteCacheService(writeCacheBufferCount, useChecksums, extent, opener, quorum);
+      final WORMWriteCacheService service =
+          new WORMWriteCacheService(writeCacheBufferCount, useChecksums, extent, opener, quorum);
+
+      service.setReadCacheAdmission(readCacheAdmission);
+
+      return service;
 
     } catch (InterruptedException e) {
 
@@ -0,0 +1,482 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.journal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import org.apache.log4j.Logger;
+import org.embergraph.btree.AbstractBTree;
+import org.embergraph.io.writecache.WriteCache.RecordMetadata;
+import org.embergraph.io.writecache.WriteCacheService;
+
+/*
+ * Records the hot working set of a {@link Journal} in a small side file and prefetches it when the
+ * journal is re-opened.
+ *
+ * <p>A snapshot is the list of the file extents of the records in the read cache of the {@link
+ * WriteCacheService} together with the nodes and leaves which are materialized for the open
+ * read-only B+Tree views. The B+Tree addresses are converted into file extents when the snapshot is
+ * taken, so the snapshot does not depend on the address encoding of the backing store. The extents
+ * are written in file order.
+ *
+ * <p>On restart, {@link #prefetch()} reads those extents directly from the backing file using a
+ * pool of readers, each of which scans a contiguous region of the file. This brings the working set
+ * back into the OS page cache, so the B+Tree nodes and leaves and the read cache are then refilled
+ * from memory rather than from the disk. The records are deliberately not installed into the
+ * {@link WriteCacheService} since a record recorded in the snapshot may have been released and
+ * recycled since the snapshot was taken.
+ *
+ * <p>The snapshot is written onto a temporary file which is then renamed, so a crash while the
+ * snapshot is being written leaves the previous snapshot in place. A snapshot for a different store
+ * is ignored.
+ *
+ * @see Journal.Options#WARM_START_SNAPSHOT_INTERVAL
+ */
+public class WarmStartSnapshot {
+
+  private static final Logger log = Logger.getLogger(WarmStartSnapshot.class);
+
+  /** The file name extension for the snapshot file. */
+  public static final String EXT = ".warm";
+
+  /** The magic value for the snapshot file. */
+  private static final int MAGIC = 0x7761726d;
+
+  /** The initial version of the snapshot file. */
+  private static final int VERSION0 = 0;
+
+  /*
+   * Extents which are separated by no more than this many bytes are combined into a single read.
+   */
+  private static final int MAX_GAP = 4 * 1024;
+
+  /** The maximum length of a combined read. */
+  private static final int MAX_READ = 1024 * 1024;
+
+  /** The journal. */
+  private final Journal journal;
+
+  /** The snapshot file. */
+  private final File file;
+
+  /** The maximum #of records in a snapshot. */
+  private final int capacity;
+
+  /** The #of threads used to prefetch the snapshot. */
+  private final int nthreads;
+
+  /*
+   * @param journal The journal.
+   * @param file The snapshot file.
+   * @param capacity The maximum #of records in a snapshot.
+   * @param nthreads The #of threads used to prefetch the snapshot (GTE ONE).
+   */
+  public WarmStartSnapshot(
+      final Journal journal, final File file, final int capacity, final int nthreads) {
+
+    if (journal == null) throw new IllegalArgumentException();
+
+    if (file == null) throw new IllegalArgumentException();
+
+    if (capacity <= 0) throw new IllegalArgumentException();
+
+    if (nthreads < 1) throw new IllegalArgumentException();
+
+    this.journal = journal;
+
+    this.file = file;
+
+    this.capacity = capacity;
+
+    this.nthreads = nthreads;
+  }
+
+  /*
+   * Return <code>true</code> iff the backing store of the journal supports warm start snapshots.
+   * This is true for the file backed {@link RWStrategy} and {@link WORMStrategy}.
+   */
+  public static boolean isSupported(final IBufferStrategy bufferStrategy) {
+
+    return bufferStrategy instanceof RWStrategy || bufferStrategy instanceof WORMStrategy;
+  }
+
+  /** The snapshot file. */
+  public File getFile() {
+
+    return file;
+  }
+
+  /** A file extent. */
+  private static class Extent implements Comparable<Extent> {
+
+    final long offset;
+
+    final int length;
+
+    Extent(final long offset, final int length) {
+
+      this.offset = offset;
+
+      this.length = length;
+    }
+
+    @Override
+    public int compareTo(final Extent o) {
+
+      return Long.compare(offset, o.offset);
+    }
+  }
+
+  /*
+   * Collect the extents of the hot records and write them onto the snapshot file.
+   *
+   * @return The #of extents written onto the snapshot file.
+   */
+  public int snapshot() throws IOException {
+
+    final IBufferStrategy bufferStrategy = journal.getBufferStrategy();
+
+    if (!isSupported(bufferStrategy)) throw new UnsupportedOperationException();
+
+    /*
+     * The physical addresses for the WORM are relative to the end of the
+     * root blocks.
+     */
+    final long base = bufferStrategy instanceof WORMStrategy ? bufferStrategy.getHeaderSize() : 0L;
+
+    final List<Extent> extents = new ArrayList<>();
+
+    // The records in the read cache.
+    {
+      final WriteCacheService wcs = ((IHABufferStrategy) bufferStrategy).getWriteCacheService();
+
+      if (wcs != null) {
+
+        for (RecordMetadata md : wcs.getReadCacheRecords(capacity)) {
+
+          extents.add(new Extent(base + md.fileOffset, md.recordLength));
+        }
+      }
+    }
+
+    // The materialized nodes and leaves of the open read-only views.
+    {
+      final List<Long> addrs = new ArrayList<>();
+
+      for (AbstractBTree ndx : journal.getOpenReadOnlyBTrees()) {
+
+        if (addrs.size() + extents.size() >= capacity) break;
+
+        ndx.getMaterializedAddrs(addrs, capacity - extents.size() - addrs.size());
+      }
+
+      for (long addr : addrs) {
+
+        try {
+
+          extents.add(
+              new Extent(base + journal.getPhysicalAddress(addr), journal.getByteCount(addr)));
+
+        } catch (RuntimeException ex) {
+
+          // The record was released since the view was opened.
+          if (log.isDebugEnabled()) log.debug("addr=" + addr + " : " + ex);
+        }
+      }
+    }
+
+    Collections.sort(extents);
+
+    // Drop duplicates (a record may be both in the read cache and materialized).
+    {
+      int n = 0;
+
+      for (Extent e : extents) {
+
+        if (n == 0 || e.offset != extents.get(n - 1).offset) extents.set(n++, e);
+      }
+
+      extents.subList(n, extents.size()).clear();
+    }
+
+    final UUID uuid = journal.getRootBlockView().getUUID();
+
+    final File tmp = new File(file.getPath() + ".tmp");
+
+    try (DataOutputStream os =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+
+      os.writeInt(MAGIC);
+
+      os.writeInt(VERSION0);
+
+      os.writeLong(uuid.getMostSignificantBits());
+
+      os.writeLong(uuid.getLeastSignificantBits());
+
+      os.writeInt(extents.size());
+
+      for (Extent e : extents) {
+
+        os.writeLong(e.offset);
+
+        os.writeInt(e.length);
+      }
+    }
+
+    Files.move(
+        tmp.toPath(),
+        file.toPath(),
+        StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+
+    if (log.isInfoEnabled()) log.info("Wrote " + extents.size() + " extents on " + file);
+
+    return extents.size();
+  }
+
+  /*
+   * Read the extents from the snapshot file.
+   *
+   * @return The extents in file order -or- <code>null</code> if there is no snapshot file or if the
+   *     snapshot file is not valid for the journal.
+   */
+  private List<Extent> readSnapshot() throws IOException {
+
+    if (!file.exists()) return null;
+
+    final UUID uuid = journal.getRootBlockView().getUUID();
+
+    try (DataInputStream is =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+
+      if (is.readInt() != MAGIC) {
+        log.warn("Bad magic: " + file);
+        return null;
+      }
+
+      final int version = is.readInt();
+
+      if (version != VERSION0) {
+        log.warn("Unknown version: " + version + ", file=" + file);
+        return null;
+      }
+
+      if (!uuid.equals(new UUID(is.readLong(), is.readLong()))) {
+        log.warn("Snapshot is for a different store: " + file);
+        return null;
+      }
+
+      final int nextents = is.readInt();
+
+      final List<Extent> extents = new ArrayList<>(nextents);
+
+      for (int i = 0; i < nextents; i++) {
+
+        final long offset = is.readLong();
+
+        extents.add(new Extent(offset, is.readInt()));
+      }
+
+      return extents;
+    }
+  }
+
+  /*
+   * Combine extents which are close together in the file into larger reads and drop any extent
+   * which lies beyond the end of the file.
+   */
+  private static List<Extent> combine(final List<Extent> extents, final long fileLength) {
+
+    final List<Extent> reads = new ArrayList<>();
+
+    long offset = -1L;
+
+    long end = -1L;
+
+    for (Extent e : extents) {
+
+      if (e.offset < 0 || e.length <= 0 || e.offset >= fileLength) continue;
+
+      final long eend = Math.min(fileLength, e.offset + e.length);
+
+      if (offset != -1L && e.offset <= end + MAX_GAP && eend - offset <= MAX_READ) {
+
+        end = Math.max(end, eend);
+
+        continue;
+      }
+
+      if (offset != -1L) reads.add(new Extent(offset, (int) (end - offset)));
+
+      offset = e.offset;
+
+      end = eend;
+    }
+
+    if (offset != -1L) reads.add(new Extent(offset, (int) (end - offset)));
+
+    return reads;
+  }
+
+  /*
+   * Prefetch the extents recorded in the snapshot file (if any). The extents are read in file order
+   * by {@link #nthreads} readers, each of which reads a contiguous region of the file. This method
+   * blocks until the prefetch is done.
+   *
+   * @return The #of bytes which were read.
+   */
+  public long prefetch() throws IOException, InterruptedException, ExecutionException {
+
+    final List<Extent> extents = readSnapshot();
+
+    if (extents == null || extents.isEmpty()) return 0L;
+
+    final File journalFile = journal.getFile();
+
+    if (journalFile == null) return 0L;
+
+    final long begin = System.currentTimeMillis();
+
+    try (RandomAccessFile raf = new RandomAccessFile(journalFile, "r")) {
+
+      final FileChannel channel = raf.getChannel();
+
+      final List<Extent> reads = combine(extents, channel.size());
+
+      final int nreads = reads.size();
+
+      final int ntasks = Math.min(nthreads, nreads);
+
+      final List<FutureTask<Long>> futures = new LinkedList<>();
+
+      for (int i = 0; i < ntasks; i++) {
+
+        final List<Extent> range = reads.subList(i * nreads / ntasks, (i + 1) * nreads / ntasks);
+
+        final FutureTask<Long> ft = new FutureTask<>(new PrefetchTask(channel, range));
+
+        futures.add(ft);
+
+        journal.getExecutorService().execute(ft);
+      }
+
+      long nbytes = 0L;
+
+      try {
+
+        for (Future<Long> f : futures) {
+
+          nbytes += f.get();
+        }
+
+      } finally {
+
+        for (Future<Long> f : futures) {
+
+          f.cancel(true /* mayInterruptIfRunning */);
+        }
+      }
+
+      if (log.isInfoEnabled())
+        log.info(
+            "Prefetched "
+                + extents.size()
+                + " extents in "
+                + nreads
+                + " reads: nbytes="
+                + nbytes
+                + ", elapsed="
+                + (System.currentTimeMillis() - begin)
+                + "ms");
+
+      return nbytes;
+    }
+  }
+
+  /** Reads a contiguous region of the file. */
+  private static class PrefetchTask implements Callable<Long> {
+
+    private final FileChannel channel;
+
+    private final List<Extent> reads;
+
+    PrefetchTask(final FileChannel channel, final List<Extent> reads) {
+
+      this.channel = channel;
+
+      this.reads = reads;
+    }
+
+    @Override
+    public Long call() throws IOException {
+
+      int maxLength = 0;
+
+      for (Extent e : reads) maxLength = Math.max(maxLength, e.length);
+
+      final ByteBuffer b = ByteBuffer.allocate(maxLength);
+
+      long nbytes = 0L;
+
+      for (Extent e : reads) {
+
+        if (Thread.interrupted()) break;
+
+        b.clear();
+
+        b.limit(e.length);
+
+        long pos = e.offset;
+
+        while (b.hasRemaining()) {
+
+          final int nread = channel.read(b, pos);
+
+          if (nread < 0) break;
+
+          pos += nread;
+        }
+
+        nbytes += b.position();
+      }
+
+      return nbytes;
+    }
+  }
+}
@@ -22,6 +22,7 @@ package org.embergraph.journal;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -29,11 +30,22 @@ import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 import org.apache.log4j.Logger;
+import org.embergraph.btree.AbstractBTree;
+import org.embergraph.btree.AbstractNode;
+import org.embergraph.btree.BTreePageStats;
 import org.embergraph.btree.BaseIndexStats;
 import org.embergraph.btree.ICheckpointProtocol;
+import org.embergraph.btree.Node;
+import org.embergraph.counters.CAT;
+import org.embergraph.counters.CounterSet;
+import org.embergraph.counters.ICounterSetAccess;
+import org.embergraph.counters.Instrument;
+import org.embergraph.counters.OneShotInstrument;
 import org.embergraph.util.Bytes;
 import org.embergraph.util.InnerCause;
 import org.embergraph.util.concurrent.LatchedExecutor;
@@ -41,19 +53,32 @@ import org.embergraph.util.concurrent.LatchedExecutor;
 /*
  * Helper class to warm up the indices associated with various namespaces on the journal.
  *
+ * <p>The B+Tree indices are warmed up together, one level at a time. The addresses of the pages on
+ * each level are sorted by their offset on the backing file and the sorted pages are divided into
+ * contiguous runs which are read by a bounded pool of readers. This turns the random IO of a depth
+ * first scan of each index into a small number of mostly sequential IO streams. The pages are read
+ * from the store without being attached to the B+Tree views. The main effect is to populate the OS
+ * page cache and the read cache of the backing store. Other kinds of indices are scanned using
+ * {@link ICheckpointProtocol#dumpPages(boolean, boolean)}.
+ *
+ * <p>When the leaves are visited, the leaves are read as soon as the addresses of a batch of their
+ * parents are known rather than being collected for the entire level. This bounds the memory
+ * demand of the warm up procedure.
+ *
+ * <p>The progress of the warm up procedure is reported by {@link #getCounters()}.
+ *
  * @author bryan
  * @see <a href="http://trac.bigdata.com/ticket/1050" > pre-heat the journal on startup </a>
- *     <p>TODO The current implementation assigns one thread per index. However, it is also possible
- *     to use a reader pool to accelerate the index scans. This would require a change to the {@link
- *     org.embergraph.btree.AbstractBTree#dumpPages(boolean, boolean)} implementation to parallelize
- *     the IOs over the children of a node. We have experimented with that in the past but not
- *     observed a big win for query. It might be more significant for warmup since we are using a
- *     full scan of each index.
  */
-public class WarmUpTask implements Callable<Map<String, BaseIndexStats>> {
+public class WarmUpTask implements Callable<Map<String, BaseIndexStats>>, ICounterSetAccess {
 
   private static final Logger log = Logger.getLogger(WarmUpTask.class);
 
+  /*
+   * The maximum #of pages on a level whose children are collected before those children are read.
+   */
+  private static final int BATCH_SIZE = 1000;
+
   /** The journal. */
   private final Journal journal;
 
@@ -70,13 +95,10 @@ public class WarmUpTask implements Callable<Map<String, BaseIndexStats>> {
   private final long timestamp;
 
   /*
-   * The #of threads that will be used to scan the pages in the indices associated with those
-   * namespaces (GTE ONE). The #of threads that will be used to scan the pages in the indices
-   * associated with those namespaces (GTE ONE). The indices will be scanned with one thread per
-   * index. This parameter determines the #of such scans that will execute in parallel. Since the
-   * thread will block on any IO, you need a modestly large number of threads here to enqueue enough
-   * disk reads to drive enough IOPs for an efficient disk scan. Even a slow disk should use at
-   * least 10 threads.
+   * The #of threads that will be used to read the pages in the indices associated with those
+   * namespaces (GTE ONE). Since the readers will block on IO, you need a modestly large number of
+   * threads here to enqueue enough disk reads to drive enough IOPs for an efficient disk scan. Even
+   * a slow disk should use at least 10 threads.
    */
   private final int nparallel;
 
@@ -90,18 +112,31 @@ public class WarmUpTask implements Callable<Map<String, BaseIndexStats>> {
    */
   private final Map<String, BaseIndexStats> statsMap = new TreeMap<>();
 
+  /** The #of pages which have been read. */
+  private final CAT pagesRead = new CAT();
+
+  /** The #of bytes which have been read. */
+  private final CAT bytesRead = new CAT();
+
+  /** The #of pages which will be read (this is an estimate until the indices are loaded). */
+  private volatile long pagesToRead = 0L;
+
+  /** The time when the task started -or- ZERO (0) if the task has not started. */
+  private volatile long beginNanos = 0L;
+
+  /** The time when the task was done -or- ZERO (0) if the task is not done. */
+  private volatile long endNanos = 0L;
+
   /*
    * @param journal The journal.
    * @param namespaces A list of zero or more namespaces to be warmed up (optional). When <code>null
    *     </code> or empty, all namespaces will be warmed up.
    * @param timestamp The commit time to be warmed up and -or- {@link ITx#READ_COMMITTED} to warm up
    *     the last commit point on the journal.
-   * @param nparallel The #of threads that will be used to scan the pages in the indices associated
-   *     with those namespaces (GTE ONE). The indices will be scanned with one thread per index.
-   *     This parameter determines the #of such scans that will execute in parallel. Since the
-   *     thread will block on any IO, you need a modestly large number of threads here to enqueue
-   *     enough disk reads to drive enough IOPs for an efficient disk scan. Even a slow disk should
-   *     use at least 10 threads.
+   * @param nparallel The #of threads that will be used to read the pages in the indices associated
+   *     with those namespaces (GTE ONE). Since the readers will block on IO, you need a modestly
+   *     large number of threads here to enqueue enough disk reads to drive enough IOPs for an
+   *     efficient disk scan. Even a slow disk should use at least 10 threads.
    * @param visitLeaves when <code>true</code> the leaves of the indices will also be read (the
    *     recommended warm up procedure does not read the leaves).
    */
@@ -120,10 +155,73 @@ public class WarmUpTask implements Callable<Map<String, BaseIndexStats>> {
     this.visitLeaves = visitLeaves;
   }
 
+  /** The state for a B+Tree which is being warmed up. */
+  private static class IndexState {
+
+    final String name;
+
+    final AbstractBTree ndx;
+
+    final int height;
+
+    /*
+     * The statistics for the B+Tree.
+     *
+     * <p>Note: The statistics are not thread-safe. Updates must be synchronized on this object.
+     */
+    final BTreePageStats stats = new BTreePageStats();
+
+    IndexState(final String name, final AbstractBTree ndx) {
+
+      this.name = name;
+
+      this.ndx = ndx;
+
+      this.height = ndx.getHeight();
+    }
+  }
+
+  /** A page to be read. */
+  private static class Page implements Comparable<Page> {
+
+    final IndexState state;
+
+    final long addr;
+
+    /** The byte offset of the page on the backing file (used to order the reads). */
+    final long offset;
+
+    /** The depth of the page in the B+Tree (the root is at depth ZERO). */
+    final int depth;
+
+    Page(final IndexState state, final long addr, final long offset, final int depth) {
+
+      this.state = state;
+
+      this.addr = addr;
+
+      this.offset = offset;
+
+      this.depth = depth;
+    }
+
+    /** <code>true</code> iff the page is a leaf. */
+    boolean isLeaf() {
+
+      return depth == state.height;
+    }
+
+    @Override
+    public int compareTo(final Page o) {
+
+      return Long.compare(offset, o.offset);
+    }
+  }
+
   @Override
   public Map<String, BaseIndexStats> call() throws Exception {
 
-    final long begin = System.nanoTime();
+    final long begin = beginNanos = System.nanoTime();
 
     // Attempts to pin a view of the journal as of that timestamp.
     final long tx = journal.newTx(timestamp);
@@ -135,7 +233,10 @@ public class WarmUpTask implements Callable<Map<String, BaseIndexStats>> {
 
       final ICommitRecord commitRecord = journal.getCommitRecord(readOnCommitTime);
 
-      // Populate the tasks.
+      // The B+Tree indices.
+      final List<IndexState> btrees = new LinkedList<>();
+
+      // Tasks for the other indices.
       final List<FutureTask<BaseIndexStats>> tasks = new LinkedList<>();
       {
         // Scan the named indices.
@@ -169,9 +270,27 @@ public class WarmUpTask implements Callable<Map<String, BaseIndexStats>> {
 
           if (log.isInfoEnabled()) log.info("Will warm up index: name=" + name);
 
-          tasks.add(
-              new FutureTask<>(
-                  () -> warmUpIndex(name, commitRecord)));
+          final ICheckpointProtocol ndx = loadIndex(name, commitRecord);
+
+          if (ndx == null) continue;
+
+          if (ndx instanceof AbstractBTree) {
+
+            final IndexState state = new IndexState(name, (AbstractBTree) ndx);
+
+            btrees.add(state);
+
+            pagesToRead +=
+                ndx.getCheckpoint().getNodeCount()
+                    + (visitLeaves || state.height == 0 ? ndx.getCheckpoint().getLeafCount() : 0L);
+
+          } else {
+
+            pagesToRead +=
+                ndx.getCheckpoint().getNodeCount() + ndx.getCheckpoint().getLeafCount();
+
+            tasks.add(new FutureTask<>(() -> warmUpIndex(name, ndx)));
+          }
         } // while(itr) (next index)
       }
 
@@ -186,6 +305,30 @@ public class WarmUpTask implements Callable<Map<String, BaseIndexStats>> {
           executor.execute(ft);
         }
 
+        // Read the B+Tree indices one level at a time.
+        {
+          List<Page> level = new ArrayList<>(btrees.size());
+
+          for (IndexState state : btrees) {
+
+            final long addrRoot = state.ndx.getCheckpoint().getRootAddr();
+
+            level.add(new Page(state, addrRoot, journal.getPhysicalAddress(addrRoot), 0));
+          }
+
+          Collections.sort(level);
+
+          while (!level.isEmpty()) {
+
+            level = readLevel(executor, level);
+          }
+
+          for (IndexState state : btrees) {
+
+            statsMap.put(state.name, state.stats);
+          }
+        }
+
         // Get the futures, throwing out any errors.
         for (FutureTask<BaseIndexStats> ft : tasks) {
           // The statistics from scanning a single index.
@@ -227,18 +370,172 @@ public class WarmUpTask implements Callable<Map<String, BaseIndexStats>> {
 
     } finally {
 
+      endNanos = System.nanoTime();
+
       journal.abort(tx);
     }
   } // call()
 
   /*
-   * Warm up a single index.
+   * Read the pages on one level of the B+Tree indices.
+   *
+   * @param executor The reader pool.
+   * @param pages The pages on that level in order by their offset on the backing file.
+   * @return The non-leaf children of those pages in order by their offset on the backing file.
+   */
+  private List<Page> readLevel(final Executor executor, final List<Page> pages)
+      throws InterruptedException, ExecutionException {
+
+    final List<Page> next = new ArrayList<>();
+
+    for (int fromIndex = 0; fromIndex < pages.size(); fromIndex += BATCH_SIZE) {
+
+      final List<Page> batch =
+          pages.subList(fromIndex, Math.min(pages.size(), fromIndex + BATCH_SIZE));
+
+      final List<Page> leaves = new ArrayList<>();
+
+      for (Page child : readPages(executor, batch)) {
+
+        if (child.isLeaf()) {
+
+          leaves.add(child);
+
+        } else {
+
+          next.add(child);
+        }
+      }
+
+      if (!leaves.isEmpty()) {
+
+        // Read the leaves now rather than collecting them for the entire level.
+        Collections.sort(leaves);
+
+        readPages(executor, leaves);
+      }
+    }
+
+    Collections.sort(next);
+
+    return next;
+  }
+
+  /*
+   * Read some pages. The pages are divided into contiguous runs, each of which is read by a single
+   * reader.
+   *
+   * @param executor The reader pool.
+   * @param pages The pages in order by their offset on the backing file.
+   * @return The children of those pages which need to be read.
+   */
+  private List<Page> readPages(final Executor executor, final List<Page> pages)
+      throws InterruptedException, ExecutionException {
+
+    final int npages = pages.size();
+
+    final int nruns = Math.min(nparallel, npages);
+
+    final List<FutureTask<List<Page>>> runs = new ArrayList<>(nruns);
+
+    try {
+
+      for (int i = 0; i < nruns; i++) {
+
+        final List<Page> run = pages.subList(i * npages / nruns, (i + 1) * npages / nruns);
+
+        final FutureTask<List<Page>> ft = new FutureTask<>(() -> readRun(run));
+
+        runs.add(ft);
+
+        executor.execute(ft);
+      }
+
+      final List<Page> children = new ArrayList<>();
+
+      for (FutureTask<List<Page>> ft : runs) {
+
+        children.addAll(ft.get());
+      }
+
+      return children;
+
+    } finally {
+
+      for (FutureTask<List<Page>> ft : runs) {
+        ft.cancel(true /* mayInterruptIfRunning */);
+      }
+    }
+  }
+
+  /*
+   * Read a contiguous run of pages.
+   *
+   * @param run The pages in order by their offset on the backing file.
+   * @return The children of those pages which need to be read.
+   */
+  private List<Page> readRun(final List<Page> run) {
+
+    final List<Page> children = new ArrayList<>();
+
+    for (Page page : run) {
+
+      final IndexState state = page.state;
+
+      try {
+
+        final AbstractNode<?> node = state.ndx.readNodeOrLeafDetached(page.addr);
+
+        pagesRead.increment();
+
+        bytesRead.add(journal.getByteCount(page.addr));
+
+        synchronized (state.stats) {
+          state.stats.visit(state.ndx, node);
+        }
+
+        if (node.isLeaf() || (!visitLeaves && page.depth + 1 == state.height)) {
+
+          // Do not descend.
+          continue;
+        }
+
+        final int nkeys = node.getKeyCount();
+
+        for (int i = 0; i <= nkeys; i++) {
+
+          final long addr = ((Node) node).getChildAddr(i);
+
+          children.add(new Page(state, addr, journal.getPhysicalAddress(addr), page.depth + 1));
+        }
+
+      } catch (Throwable t) {
+
+        if (InnerCause.isInnerCause(t, InterruptedException.class)) {
+          throw new RuntimeException(t);
+        }
+        /*
+         * Log the error and track the #of errors, but keep scanning the
+         * index.
+         */
+        synchronized (state.stats) {
+          state.stats.nerrors++;
+        }
+        log.error("Error reading page: addr=" + journal.toString(page.addr) + " : " + t, t);
+      }
+    }
+
+    return children;
+  }
+
+  /*
+   * Load an index.
    *
    * @param name The name of the index.
    * @param commitRecord The commit record from which the index will be loaded.
-   * @return The statistics obtained as a side-effect of warming up the index.
+   * @return The index -or- <code>null</code> if the index could not be loaded.
    */
-  private BaseIndexStats warmUpIndex(final String name, final ICommitRecord commitRecord) {
+  private ICheckpointProtocol loadIndex(final String name, final ICommitRecord commitRecord) {
 
     // load index from its checkpoint record.
     final ICheckpointProtocol ndx;
@@ -268,15 +565,147 @@ public class WarmUpTask implements Callable<Map<String, BaseIndexStats>> {
     // show checkpoint record.
     if (log.isDebugEnabled()) log.debug(ndx.getCheckpoint());
 
+    return ndx;
+  }
+
+  /*
+   * Warm up a single index which is not a B+Tree by a depth first scan of its pages.
+   *
+   * @param name The name of the index.
+   * @param ndx The index.
+   * @return The statistics obtained as a side-effect of warming up the index.
+   */
+  private BaseIndexStats warmUpIndex(final String name, final ICheckpointProtocol ndx) {
+
     /*
      * Collect statistics on the page usage for the index.
      */
-    {
-      final BaseIndexStats stats = ndx.dumpPages(true /* recursive */, visitLeaves);
+    final BaseIndexStats stats = ndx.dumpPages(true /* recursive */, visitLeaves);
 
-      if (log.isInfoEnabled()) log.info("name=" + name + ", stats=" + stats);
+    if (log.isInfoEnabled()) log.info("name=" + name + ", stats=" + stats);
 
-      return stats;
-    }
+    pagesRead.add(stats.nnodes + stats.nleaves);
+
+    return stats;
+  }
+
+  /** <code>true</code> iff the warm up procedure is done. */
+  public boolean isDone() {
+
+    return endNanos != 0L;
+  }
+
+  /*
+   * Return the performance counters for the warm up procedure. These include the #of pages and
+   * bytes read, the read rates, and the percentage of the pages which have been read. The counters
+   * may be polled while the warm up procedure is running.
+   */
+  @Override
+  public CounterSet getCounters() {
+
+    final CounterSet counters = new CounterSet();
+
+    counters.addCounter("nparallel", new OneShotInstrument<>(nparallel));
+
+    counters.addCounter("visitLeaves", new OneShotInstrument<>(visitLeaves));
+
+    counters.addCounter(
+        "done",
+        new Instrument<Boolean>() {
+          @Override
+          public void sample() {
+            setValue(isDone());
+          }
+        });
+
+    counters.addCounter(
+        "elapsedMillis",
+        new Instrument<Long>() {
+          @Override
+          public void sample() {
+            setValue(TimeUnit.NANOSECONDS.toMillis(elapsedNanos()));
+          }
+        });
+
+    counters.addCounter(
+        "pagesRead",
+        new Instrument<Long>() {
+          @Override
+          public void sample() {
+            setValue(pagesRead.get());
+          }
+        });
+
+    counters.addCounter(
+        "pagesToRead",
+        new Instrument<Long>() {
+          @Override
+          public void sample() {
+            setValue(pagesToRead);
+          }
+        });
+
+    counters.addCounter(
+        "bytesRead",
+        new Instrument<Long>() {
+          @Override
+          public void sample() {
+            setValue(bytesRead.get());
+          }
+        });
+
+    counters.addCounter(
+        "percentComplete",
+        new Instrument<Double>() {
+          @Override
+          public void sample() {
+            if (isDone()) {
+              setValue(100d);
+            } else {
+              final long n = pagesToRead;
+              setValue(n == 0L ? 0d : Math.min(100d, pagesRead.get() * 100d / n));
+            }
+          }
+        });
+
+    counters.addCounter(
+        "pagesPerSecond",
+        new Instrument<Double>() {
+          @Override
+          public void sample() {
+            setValue(perSecond(pagesRead.get()));
+          }
+        });
+
+    counters.addCounter(
+        "megabytesPerSecond",
+        new Instrument<Double>() {
+          @Override
+          public void sample() {
+            setValue(perSecond(bytesRead.get()) / Bytes.megabyte);
+          }
+        });
+
+    return counters;
+  }
+
+  /** The elapsed time of the warm up procedure in nanoseconds. */
+  private long elapsedNanos() {
+
+    final long begin = beginNanos;
+
+    if (begin == 0L) return 0L;
+
+    final long end = endNanos;
+
+    return (end == 0L ? System.nanoTime() : end) - begin;
+  }
+
+  /** Return the rate per second for the given count. */
+  private double perSecond(final long n) {
+
+    final long elapsed = elapsedNanos();
+
+    return elapsed == 0L ? 0d : n * 1e9 / elapsed;
   }
 } // class WarmUpTask
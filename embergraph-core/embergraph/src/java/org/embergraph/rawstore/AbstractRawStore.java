@@ -66,6 +66,22 @@ public abstract class AbstractRawStore implements IRawStore {
     // NOP.
   }
 
+  /** The default implementation reads each record in turn using {@link #read(long)}. */
+  @Override
+  public ByteBuffer[] readBatch(final long[] addrs) {
+
+    if (addrs == null) throw new IllegalArgumentException();
+
+    final ByteBuffer[] a = new ByteBuffer[addrs.length];
+
+    for (int i = 0; i < addrs.length; i++) {
+
+      a[i] = read(addrs[i]);
+    }
+
+    return a;
+  }
+
   @Override
   public IPSOutputStream getOutputStream() {
     // TODO: implement an optional pooled object creation
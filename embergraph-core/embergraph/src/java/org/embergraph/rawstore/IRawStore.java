@@ -133,6 +133,22 @@ public interface IRawStore extends IAddressManager, ICounterSetAccess, IStreamSt
    */
   ByteBuffer read(long addr);
 
+  /*
+   * Read a batch of records (unisolated). This is semantically equivalent to invoking {@link
+   * #read(long)} for each address, but a store backed by a file may issue the reads for the records
+   * which are not buffered concurrently, which allows the device to work at a queue depth greater
+   * than one. The method returns once all reads are done.
+   *
+   * @param addrs The addresses of the records. Each address MUST be a valid address as defined by
+   *     {@link #read(long)}.
+   * @return The data read, correlated with <i>addrs</i>. Each buffer is prepared for reading as
+   *     defined by {@link #read(long)}.
+   * @throws IllegalArgumentException if <i>addrs</i> is <code>null</code> or if any address is
+   *     known to be invalid.
+   * @throws IllegalStateException if the store is not open.
+   */
+  ByteBuffer[] readBatch(long[] addrs);
+
   /*
    * <code>true</code> iff the store is open.
    *
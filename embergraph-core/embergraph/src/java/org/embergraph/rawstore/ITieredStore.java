@@ -0,0 +1,47 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.rawstore;
+
+import java.nio.ByteBuffer;
+
+/*
+ * Interface for an {@link IRawStore} which can keep copies of selected records on a faster storage
+ * tier (typically an SSD). The copies are not authoritative: the record is always written on the
+ * store and may be read from the store at any time. The store is responsible for discarding a copy
+ * when the address is released. This is used by the B+Tree to keep its interior nodes, which are
+ * read on every traversal from the root, on the faster tier.
+ *
+ * @see org.embergraph.rwstore.RWStore.Options#FAST_TIER_FILE
+ */
+public interface ITieredStore {
+
+  /*
+   * Return <code>true</code> iff the faster storage tier is in use. When <code>false</code>, {@link
+   * #writeFastTier(long, ByteBuffer)} is a NOP.
+   */
+  boolean isFastTierEnabled();
+
+  /*
+   * Place a copy of a record on the faster storage tier. This is a NOP if the record is already
+   * there or can not be placed there (for example, because it is too large).
+   *
+   * @param addr The address at which the record was written on the store.
+   * @param data The record. The position and limit are not changed.
+   */
+  void writeFastTier(long addr, ByteBuffer data);
+}
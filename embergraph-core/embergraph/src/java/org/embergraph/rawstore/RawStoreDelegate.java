@@ -122,6 +122,11 @@ public class RawStoreDelegate implements IRawStore {
     return delegate.read(addr);
   }
 
+  @Override
+  public ByteBuffer[] readBatch(final long[] addrs) {
+    return delegate.readBatch(addrs);
+  }
+
   @Override
   public long size() {
     return delegate.size();
@@ -49,6 +49,7 @@ import org.embergraph.btree.IBloomFilter;
 import org.embergraph.btree.IIndex;
 import org.embergraph.btree.ILocalBTreeView;
 import org.embergraph.btree.IRangeQuery;
+import org.embergraph.btree.ITupleCursor;
 import org.embergraph.btree.ITupleIterator;
 import org.embergraph.btree.IndexSegment;
 import org.embergraph.btree.Tuple;
@@ -237,6 +238,30 @@ public class AccessPath<R> implements IAccessPath<R>, IBindingSetAccessPath<R> {
     return toKey;
   }
 
+  /*
+   * Return an {@link ITupleCursor} visiting the keys spanned by this access path. Unlike {@link
+   * #iterator()}, the cursor may be repositioned anywhere within the key range, which allows a
+   * merge join to seek forward on the index rather than scanning it.
+   *
+   * @throws UnsupportedOperationException if the access path has a filter (the filters can not be
+   *     applied to a cursor which is repositioned by the caller) or if the index does not support
+   *     cursors.
+   */
+  public ITupleCursor<R> keyCursor() {
+
+    assertInitialized();
+
+    if (hasFilter) throw new UnsupportedOperationException("Filtered access path: " + this);
+
+    final ITupleIterator<R> itr =
+        rangeIterator(0 /* capacity */, IRangeQuery.KEYS | IRangeQuery.CURSOR, null /* filter */);
+
+    if (!(itr instanceof ITupleCursor))
+      throw new UnsupportedOperationException("Cursor not supported: " + this);
+
+    return (ITupleCursor<R>) itr;
+  }
+
   @Override
   public final IKeyOrder<R> getKeyOrder() {
 
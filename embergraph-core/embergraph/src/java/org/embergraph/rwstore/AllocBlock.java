@@ -237,6 +237,24 @@ public class AllocBlock {
     return false;
   }
 
+  /*
+   * @return <code>true</code> iff no slot is allocated in the live, committed or transient state
+   *     and the block is not shadowed by an allocation context.
+   */
+  boolean isEmpty() {
+    if (m_saveCommit != null || m_isoFrees != null) {
+      return false;
+    }
+
+    for (int i = 0; i < m_ints; i++) {
+      if ((m_live[i] | m_commit[i] | m_transients[i]) != 0) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
   public int getAllocBits() {
     int total = m_ints * 32;
     int allocBits = 0;
@@ -0,0 +1,434 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.rwstore;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import org.apache.log4j.Logger;
+import org.embergraph.counters.CAT;
+import org.embergraph.counters.CounterSet;
+import org.embergraph.counters.Instrument;
+import org.embergraph.io.ChecksumUtility;
+import org.embergraph.io.FileChannelUtility;
+import org.embergraph.io.IReopenChannel;
+
+/*
+ * A bounded cache of records held in a file on a fast device (typically an SSD). The records are
+ * identified by their latched address in the {@link RWStore}. The cache is NOT authoritative: the
+ * {@link RWStore} file always holds every record, so the cache file may be lost, discarded or
+ * truncated at any time without loss of data. It is therefore truncated when it is opened and
+ * deleted when it is closed, and it plays no part in the commit protocol, HA replication or backup.
+ *
+ * <p>The file is written as a circular log. Each entry is a header (the latched address, the length
+ * of the record and its checksum) followed by the record. When the log wraps around, the oldest
+ * entries are evicted as they are overwritten. The index of the entries is held in memory.
+ *
+ * <p>A record is read without holding the lock. The entry is validated against its header and
+ * checksum once it has been read and then checked to be sure that it was not evicted while it was
+ * being read, so a concurrent eviction results in a cache miss rather than in stale data.
+ *
+ * <p>The caller is responsible for invoking {@link #remove(int)} when an address is released and
+ * {@link #clear()} when addresses may be recycled without being released (e.g., on abort).
+ */
+class FastTierFile {
+
+  private static final Logger log = Logger.getLogger(FastTierFile.class);
+
+  /** The #of bytes in the header of an entry (address, length and checksum). */
+  static final int HEADER_SIZE = 12;
+
+  /** The backing file. */
+  private final File file;
+
+  /** The maximum #of bytes in the file. */
+  private final long capacity;
+
+  /** Used to (re-)open the backing file. */
+  private final IReopenChannel<FileChannel> opener;
+
+  private volatile RandomAccessFile raf;
+
+  private volatile boolean open = true;
+
+  /** An entry in the log. */
+  private static class Entry {
+
+    /** The latched address of the record. */
+    final int addr;
+
+    /** The offset of the header of the entry in the file. */
+    final long offset;
+
+    /** The length of the record (excluding the header). */
+    final int len;
+
+    /** Set once the entry has been written on the file. */
+    volatile boolean ready = false;
+
+    /** Set once the entry has been evicted or removed. The region may then be overwritten. */
+    volatile boolean evicted = false;
+
+    Entry(final int addr, final long offset, final int len) {
+      this.addr = addr;
+      this.offset = offset;
+      this.len = len;
+    }
+  }
+
+  /** The entries by latched address. Guarded by <code>this</code>. */
+  private final HashMap<Integer, Entry> index = new HashMap<>();
+
+  /** The entries in the order in which they were written. Guarded by <code>this</code>. */
+  private final ArrayDeque<Entry> fifo = new ArrayDeque<>();
+
+  /** The offset at which the next entry will be written. Guarded by <code>this</code>. */
+  private long nextOffset = 0L;
+
+  private final CAT nhit = new CAT();
+
+  private final CAT nmiss = new CAT();
+
+  private final CAT nwrite = new CAT();
+
+  private final CAT nevict = new CAT();
+
+  /*
+   * @param file The backing file. It is created if it does not exist and truncated if it does.
+   * @param capacity The maximum #of bytes in the file.
+   */
+  FastTierFile(final File file, final long capacity) throws IOException {
+
+    if (file == null) throw new IllegalArgumentException();
+
+    if (capacity <= HEADER_SIZE) throw new IllegalArgumentException();
+
+    this.file = file;
+
+    this.capacity = capacity;
+
+    this.raf = new RandomAccessFile(file, "rw");
+
+    // Anything left by a previous process is discarded.
+    raf.setLength(0L);
+
+    this.opener =
+        new IReopenChannel<FileChannel>() {
+
+          @Override
+          public FileChannel reopenChannel() throws IOException {
+
+            {
+              final RandomAccessFile tmp = raf;
+              if (tmp != null) {
+                final FileChannel channel = tmp.getChannel();
+                if (channel.isOpen()) return channel;
+              }
+            }
+
+            synchronized (this) {
+              if (!open) throw new IllegalStateException("Closed: " + file);
+
+              if (raf != null && raf.getChannel().isOpen()) return raf.getChannel();
+
+              raf = new RandomAccessFile(file, "rw");
+
+              return raf.getChannel();
+            }
+          }
+
+          @Override
+          public String toString() {
+            return file.toString();
+          }
+        };
+
+    if (log.isInfoEnabled()) log.info("file=" + file + ", capacity=" + capacity);
+  }
+
+  /** The backing file. */
+  File getFile() {
+
+    return file;
+  }
+
+  /** The #of records in the cache. */
+  synchronized int size() {
+
+    return index.size();
+  }
+
+  /*
+   * Read a record.
+   *
+   * @param addr The latched address of the record.
+   * @return The record -or- <code>null</code> if it is not in the cache.
+   */
+  ByteBuffer read(final int addr) {
+
+    if (!open) return null;
+
+    final Entry e;
+    synchronized (this) {
+      e = index.get(addr);
+    }
+
+    if (e == null || !e.ready) {
+      nmiss.increment();
+      return null;
+    }
+
+    final ByteBuffer b = ByteBuffer.allocate(HEADER_SIZE + e.len);
+
+    try {
+      FileChannelUtility.readAll(opener, b, e.offset);
+    } catch (Throwable t) {
+      if (open) log.warn("addr=" + addr + " : " + t);
+      invalidate(e);
+      nmiss.increment();
+      return null;
+    }
+
+    if (b.getInt(0) != addr
+        || b.getInt(4) != e.len
+        || b.getInt(8)
+            != ChecksumUtility.threadChk.get().checksum(b, HEADER_SIZE, HEADER_SIZE + e.len)) {
+      // Overwritten or corrupt.
+      invalidate(e);
+      nmiss.increment();
+      return null;
+    }
+
+    if (e.evicted) {
+      // Evicted (and perhaps overwritten) while we were reading it.
+      nmiss.increment();
+      return null;
+    }
+
+    nhit.increment();
+
+    b.position(HEADER_SIZE);
+
+    return b.slice();
+  }
+
+  /*
+   * Write a record on the cache. This is a NOP if the record is already in the cache or if it is
+   * too large for the cache.
+   *
+   * @param addr The latched address of the record.
+   * @param data The record. The bytes from the position to the limit are written. The position and
+   *     limit are not changed.
+   */
+  void write(final int addr, final ByteBuffer data) {
+
+    final int len = data.remaining();
+
+    if (len == 0 || HEADER_SIZE + (long) len > capacity || !open) return;
+
+    final Entry e;
+    synchronized (this) {
+      if (index.containsKey(addr)) return;
+
+      long offset = nextOffset;
+
+      if (offset + HEADER_SIZE + len > capacity) {
+        // Wrap around, evicting the entries at the end of the file.
+        while (!fifo.isEmpty() && fifo.peekFirst().offset >= offset) {
+          evict(fifo.removeFirst());
+        }
+        offset = 0L;
+      }
+
+      // Evict the entries which would be overwritten.
+      while (!fifo.isEmpty()
+          && fifo.peekFirst().offset >= offset
+          && fifo.peekFirst().offset < offset + HEADER_SIZE + len) {
+        evict(fifo.removeFirst());
+      }
+
+      e = new Entry(addr, offset, len);
+
+      index.put(addr, e);
+
+      fifo.addLast(e);
+
+      nextOffset = offset + HEADER_SIZE + len;
+    }
+
+    final ByteBuffer b = ByteBuffer.allocate(HEADER_SIZE + len);
+
+    b.putInt(addr);
+
+    b.putInt(len);
+
+    b.putInt(ChecksumUtility.threadChk.get().checksum(data));
+
+    b.put(data.duplicate());
+
+    b.flip();
+
+    try {
+      FileChannelUtility.writeAll(opener, b, e.offset);
+    } catch (Throwable t) {
+      if (open) log.warn("addr=" + addr + " : " + t);
+      invalidate(e);
+      return;
+    }
+
+    e.ready = true;
+
+    nwrite.increment();
+  }
+
+  /*
+   * Remove a record from the cache (if present). This must be invoked when the address is released
+   * since the address may then be recycled for a different record.
+   *
+   * @param addr The latched address of the record.
+   */
+  void remove(final int addr) {
+
+    synchronized (this) {
+      final Entry e = index.remove(addr);
+
+      if (e != null) e.evicted = true;
+    }
+  }
+
+  /** Remove all records from the cache. */
+  synchronized void clear() {
+
+    for (Entry e : fifo) {
+      e.evicted = true;
+    }
+
+    index.clear();
+
+    fifo.clear();
+
+    nextOffset = 0L;
+  }
+
+  /** Close and delete the backing file. */
+  synchronized void close() {
+
+    if (!open) return;
+
+    clear();
+
+    open = false;
+
+    try {
+      raf.close();
+    } catch (IOException ex) {
+      log.warn(ex, ex);
+    }
+
+    if (!file.delete() && file.exists()) log.warn("Could not delete: " + file);
+  }
+
+  /** Performance counters. */
+  CounterSet getCounters() {
+
+    final CounterSet root = new CounterSet();
+
+    root.addCounter(
+        "capacity",
+        new Instrument<Long>() {
+          public void sample() {
+            setValue(capacity);
+          }
+        });
+
+    root.addCounter(
+        "size",
+        new Instrument<Integer>() {
+          public void sample() {
+            setValue(size());
+          }
+        });
+
+    root.addCounter(
+        "hitCount",
+        new Instrument<Long>() {
+          public void sample() {
+            setValue(nhit.get());
+          }
+        });
+
+    root.addCounter(
+        "missCount",
+        new Instrument<Long>() {
+          public void sample() {
+            setValue(nmiss.get());
+          }
+        });
+
+    root.addCounter(
+        "writeCount",
+        new Instrument<Long>() {
+          public void sample() {
+            setValue(nwrite.get());
+          }
+        });
+
+    root.addCounter(
+        "evictionCount",
+        new Instrument<Long>() {
+          public void sample() {
+            setValue(nevict.get());
+          }
+        });
+
+    return root;
+  }
+
+  long getHitCount() {
+
+    return nhit.get();
+  }
+
+  private void evict(final Entry e) {
+
+    if (e.evicted) {
+      // Already removed.
+      return;
+    }
+
+    e.evicted = true;
+
+    if (index.get(e.addr) == e) index.remove(e.addr);
+
+    nevict.increment();
+  }
+
+  /** Drop an entry which could not be read or written. */
+  private void invalidate(final Entry e) {
+
+    synchronized (this) {
+      e.evicted = true;
+
+      if (index.get(e.addr) == e) index.remove(e.addr);
+    }
+  }
+}
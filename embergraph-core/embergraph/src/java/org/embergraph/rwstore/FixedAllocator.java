@@ -838,6 +838,11 @@ public class FixedAllocator implements Allocator {
   void addToFreeList() {
     assert m_freeWaiting;
 
+    if (m_draining) {
+      // remains off the free list until the drain is cancelled.
+      return;
+    }
+
     m_freeWaiting = false;
     m_freeList.add(this);
     m_allocIndex = -1;
@@ -860,6 +865,148 @@ public class FixedAllocator implements Allocator {
     }
   }
 
+  /*
+   * When <code>true</code> the allocator is being drained by an online compaction. A draining
+   * allocator is kept off the free list, so no new slots are allocated from it while the records in
+   * its slots are relocated and those slots are released.
+   *
+   * @see RWStore#selectDrainingAllocators(float, int)
+   */
+  private volatile boolean m_draining = false;
+
+  boolean isDraining() {
+    return m_draining;
+  }
+
+  /*
+   * Set or clear the draining state. A draining allocator is removed from the free list. When the
+   * draining state is cleared the allocator is returned to the free list iff it would otherwise be
+   * on that list.
+   *
+   * @throws IllegalStateException if the allocator is to be drained but is assigned to an
+   *     allocation context.
+   */
+  void setDraining(final boolean draining) {
+    if (draining == m_draining) {
+      return;
+    }
+
+    if (draining) {
+      if (m_context != null || m_pendingContextCommit) {
+        throw new IllegalStateException(
+            "Allocator is assigned to an AllocationContext, pendingContextCommit: "
+                + m_pendingContextCommit);
+      }
+
+      removeFromFreeList();
+
+      m_draining = true;
+    } else {
+      m_draining = false;
+
+      if (m_freeList != null
+          && m_freeWaiting
+          && !m_pendingContextCommit
+          && hasFree()
+          && meetsSmallSlotThreshold()) {
+        addToFreeList();
+      }
+    }
+  }
+
+  /** @return The #of live slots in the allocated regions of this allocator. */
+  int getLiveSlots() {
+    int slots = 0;
+    for (AllocBlock ab : m_allocBlocks) {
+      if (ab.m_addr == 0) break;
+
+      for (int i = 0; i < m_bitSize; i++) {
+        slots += Integer.bitCount(ab.m_live[i]);
+      }
+    }
+
+    return slots;
+  }
+
+  /** @return The #of slots in the allocated regions of this allocator. */
+  int getReservedSlots() {
+    return getAllocatedBlocks() * 32 * m_bitSize;
+  }
+
+  /*
+   * @return The address of the end of the region of the last allocated {@link AllocBlock} -or- ZERO
+   *     (0) if no region has been allocated.
+   */
+  int getTailAddr() {
+    int tail = 0;
+    for (AllocBlock ab : m_allocBlocks) {
+      if (ab.m_addr == 0) break;
+
+      tail = ab.m_addr - ((32 * m_bitSize * m_size) >> RWStore.ALLOCATION_SCALEUP);
+    }
+
+    return tail;
+  }
+
+  /*
+   * Release the region of the last allocated {@link AllocBlock} iff no slot in that block is
+   * allocated, committed or protected by a session and the region is the last region allocated
+   * from the store, i.e. it ends at <i>nextAllocation</i>. The allocator is added to the commit
+   * list so the change is made durable by the next commit. If a slot is later required from the
+   * block then a new region is allocated for it.
+   *
+   * @param nextAllocation The next allocation offset of the store in the same units as the region
+   *     addresses.
+   * @return The size of the released region in the same units -or- ZERO (0) if no region was
+   *     released.
+   */
+  int releaseTailBlock(final int nextAllocation) {
+    if (m_context != null || m_pendingContextCommit || m_sessionActive) {
+      return 0;
+    }
+
+    int last = -1;
+    for (int i = 0; i < m_allocBlocks.size(); i++) {
+      if (m_allocBlocks.get(i).m_addr == 0) break;
+
+      last = i;
+    }
+
+    if (last == -1) {
+      return 0;
+    }
+
+    final AllocBlock ab = m_allocBlocks.get(last);
+
+    final int blockSize = (32 * m_bitSize * m_size) >> RWStore.ALLOCATION_SCALEUP;
+
+    if (ab.m_addr - blockSize != nextAllocation || !ab.isEmpty()) {
+      return 0;
+    }
+
+    ab.m_addr = 0;
+
+    if (last == 0) {
+      m_startAddr = 0;
+      m_endAddr = 0;
+    } else {
+      m_endAddr = m_allocBlocks.get(last - 1).m_addr - blockSize;
+    }
+
+    if (m_statsBucket != null) {
+      m_statsBucket.addSlots(-32 * m_bitSize);
+    }
+
+    // Ensure allocIndex is reset
+    m_allocIndex = -1;
+
+    m_store.addToCommit(this);
+
+    if (s_islogDebug) log.debug("Released tail region of allocator " + m_index);
+
+    return blockSize;
+  }
+
   /*
    * The introduction of IAllocationContexts has added some complexity to the older concept of a
    * free list. With AllocationContexts it is possibly for allocator to have free space available
@@ -38,9 +38,11 @@ import java.security.DigestException;
 import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -330,6 +332,16 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
      */
     String DEFAULT_READ_BLOBS_ASYNC = SystemUtil.isWindows() ? "false" : "true";
 
+    /*
+     * Defines whether the records of a batch read (see {@link RWStore#getData(int[], int[])}) which
+     * are not buffered are read concurrently using Async NIO. This keeps more than one read
+     * outstanding against the disk when a B+Tree faults in several nodes or leaves at once. As for
+     * {@link #READ_BLOBS_ASYNC}, this is disabled by default on Windows.
+     */
+    String READ_BATCH_ASYNC = RWStore.class.getName() + ".readBatchAsync";
+
+    String DEFAULT_READ_BATCH_ASYNC = DEFAULT_READ_BLOBS_ASYNC;
+
     /*
      * Defines the number of bits that must be free in a FixedAllocator for it to be added to the
      * free list. This is used to ensure a level of locality when making large numbers of
@@ -436,6 +448,85 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
 
     String DEFAULT_DOUBLE_BUFFER_WRITES = "true";
 
+    /*
+     * When <code>true</code>, committed records are read from a read-only memory mapping of the
+     * backing file rather than through the read cache of the {@link RWWriteCacheService} (default
+     * {@value #DEFAULT_MEMORY_MAPPED_READS}). Reads of committed records are then served by the OS
+     * page cache as slices of the mapping, without allocating or copying into a new buffer. The
+     * mapping is extended after each commit as the file grows. Records which have not yet been
+     * committed are still read through the write cache.
+     *
+     * <p>This is intended for hosts with enough RAM for the OS to cache the hot part of the file.
+     * The mapped extent counts against the virtual address space (but not the heap) of the JVM.
+     *
+     * <p>Note: The file is never truncated while this option is enabled, since a slice of the
+     * mapping may be used by a reader at any time. The extent released by an online compaction is
+     * reused for new allocations instead.
+     */
+    String MEMORY_MAPPED_READS = RWStore.class.getName() + ".memoryMappedReads";
+
+    String DEFAULT_MEMORY_MAPPED_READS = "false";
+
+    /*
+     * The log2 of the size of the segments in which the file is mapped when {@link
+     * #MEMORY_MAPPED_READS} is enabled (default {@value #DEFAULT_MEMORY_MAPPED_SEGMENT_SHIFT},
+     * which is 1GB). The value must be in [20:30].
+     */
+    String MEMORY_MAPPED_SEGMENT_SHIFT = RWStore.class.getName() + ".memoryMappedSegmentShift";
+
+    String DEFAULT_MEMORY_MAPPED_SEGMENT_SHIFT = "30";
+
+    /*
+     * The name of a file on a fast device (typically an SSD) which is used as a cache for the
+     * interior nodes of the B+Tree indices (optional). When specified, the interior nodes are
+     * written on that file as well as on the backing file when they are written on the store and
+     * also when they are read from the backing file. Reads of those records are then served from
+     * the fast device. The leaves (which are far more numerous) remain on the backing file.
+     *
+     * <p>The cache file is NOT part of the persistent state of the store. The backing file always
+     * holds every record, so the cache file is truncated when the store is opened, deleted when it
+     * is closed and plays no part in commit, HA replication or backup. The cache is disabled for a
+     * highly available store since the followers release records without the local bookkeeping
+     * which is used to invalidate the cache.
+     *
+     * @see #FAST_TIER_CAPACITY
+     */
+    String FAST_TIER_FILE = RWStore.class.getName() + ".fastTierFile";
+
+    /*
+     * The maximum size in bytes of the {@link #FAST_TIER_FILE} (default {@value
+     * #DEFAULT_FAST_TIER_CAPACITY}, which is 1GB). The file is written as a circular log, so the
+     * records written least recently are evicted once it is full.
+     */
+    String FAST_TIER_CAPACITY = RWStore.class.getName() + ".fastTierCapacity";
+
+    String DEFAULT_FAST_TIER_CAPACITY = "" + (1L << 30);
+
+    /*
+     * The name of a directory for a redo log (optional). When specified, each write cache block is
+     * written on the redo log before it is written on the backing file, and a commit is made
+     * durable by sealing the redo log with the new root block. This replaces the sync of the
+     * backing file on the commit path with a sync of a sequential log. The backing file is synced
+     * asynchronously every {@link #REDO_LOG_CHECKPOINT_INTERVAL} commits, after which the redo
+     * logs for those commits are removed. Any redo logs found when the store is opened are
+     * replayed against the backing file before its root blocks are read.
+     *
+     * <p>The redo log is disabled for a highly available store, which already logs its write set
+     * on the HALog files.
+     *
+     * @see #REDO_LOG_CHECKPOINT_INTERVAL
+     */
+    String REDO_LOG_DIR = RWStore.class.getName() + ".redoLogDir";
+
+    /*
+     * The #of commits between the checkpoints of the backing file when a {@link #REDO_LOG_DIR} is
+     * in use (default {@value #DEFAULT_REDO_LOG_CHECKPOINT_INTERVAL}). A larger interval syncs the
+     * backing file less often but leaves more redo logs to be replayed after a failure.
+     */
+    String REDO_LOG_CHECKPOINT_INTERVAL = RWStore.class.getName() + ".redoLogCheckpointInterval";
+
+    String DEFAULT_REDO_LOG_CHECKPOINT_INTERVAL = "100";
+
     //        /*
     //         * When <code>true</code> fills recycled storage with a recognizable
     //         * byte pattern.
@@ -575,6 +666,9 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
   /** @see org.embergraph.journal.Options#HOT_CACHE_SIZE */
   private final int m_hotCacheSize;
 
+  /** @see org.embergraph.journal.Options#READ_CACHE_ADMISSION */
+  private final boolean m_readCacheAdmission;
+
   /*
    * The key for the {@link CompressorRegistry} which identifies the {@link IRecordCompressor} to be
    * applied (optional).
@@ -712,6 +806,27 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
    */
   private final ReopenFileChannel m_reopener;
 
+  /*
+   * The read-only mapping of the committed extent of the file (optional).
+   *
+   * @see Options#MEMORY_MAPPED_READS
+   */
+  private final SegmentedFileMapping m_mappedReads;
+
+  /*
+   * The cache of interior B+Tree nodes on a fast device (optional).
+   *
+   * @see Options#FAST_TIER_FILE
+   */
+  private final FastTierFile m_fastTier;
+
+  /*
+   * The redo log (optional).
+   *
+   * @see Options#REDO_LOG_DIR
+   */
+  private final RedoLog m_redoLog;
+
   private volatile BufferedWrite m_bufferedWrite;
 
   /** Our StoreageStats objects */
@@ -751,8 +866,8 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
       super(
           buf,
           useChecksum,
-          m_quorum != null
-          /*&& m_quorum.isHighlyAvailable()*/ ,
+          // Note: The redo log requires the whole buffer checksum.
+          m_quorum != null /*&& m_quorum.isHighlyAvailable()*/ || m_redoLog != null,
           bufferHasData,
           opener,
           fileExtent,
@@ -871,6 +986,10 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
         Boolean.valueOf(
             fileMetadata.getProperty(Options.READ_BLOBS_ASYNC, Options.DEFAULT_READ_BLOBS_ASYNC));
 
+    m_readBatchAsync =
+        Boolean.valueOf(
+            fileMetadata.getProperty(Options.READ_BATCH_ASYNC, Options.DEFAULT_READ_BATCH_ASYNC));
+
     cSmallSlot =
         Integer.valueOf(
             fileMetadata.getProperty(Options.SMALL_SLOT_TYPE, Options.DEFAULT_SMALL_SLOT_TYPE));
@@ -997,6 +1116,12 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
     if (log.isInfoEnabled())
       log.info(org.embergraph.journal.Options.HOT_CACHE_SIZE + "=" + m_hotCacheSize);
 
+    this.m_readCacheAdmission =
+        Boolean.valueOf(
+            fileMetadata.getProperty(
+                org.embergraph.journal.Options.READ_CACHE_ADMISSION,
+                org.embergraph.journal.Options.DEFAULT_READ_CACHE_ADMISSION));
+
     this.m_compressorKey =
         fileMetadata.getProperty(
             org.embergraph.journal.Options.HALOG_COMPRESSOR,
@@ -1066,10 +1191,88 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
       // FIXME: do we want to constrain this as a system property?
       m_maxFileSize = ((long) Integer.MAX_VALUE) * m_maxFixedAlloc;
 
+      final String redoLogDir =
+          fileMetadata.getProperty(Options.REDO_LOG_DIR, null /* defaultValue */);
+
+      if (redoLogDir != null && redoLogDir.trim().length() > 0 && !fileMetadata.readOnly) {
+
+        if (m_quorum != null) {
+
+          log.warn("Ignoring " + Options.REDO_LOG_DIR + " for a highly available store.");
+
+          m_redoLog = null;
+
+        } else {
+
+          m_redoLog =
+              new RedoLog(
+                  new File(redoLogDir.trim()),
+                  m_reopener,
+                  fileMetadata.rootBlock,
+                  Integer.valueOf(
+                      fileMetadata.getProperty(
+                          Options.REDO_LOG_CHECKPOINT_INTERVAL,
+                          Options.DEFAULT_REDO_LOG_CHECKPOINT_INTERVAL)));
+        }
+      } else {
+        m_redoLog = null;
+      }
+
       // setup write cache AFTER init to ensure filesize is correct!
 
       m_writeCacheService = newWriteCacheService();
 
+      m_writeCacheService.setReadCacheAdmission(m_readCacheAdmission);
+
+      if (m_redoLog != null) {
+        m_writeCacheService.setWriteCacheLog(m_redoLog);
+      }
+
+      if (Boolean.valueOf(
+          fileMetadata.getProperty(
+              Options.MEMORY_MAPPED_READS, Options.DEFAULT_MEMORY_MAPPED_READS))) {
+        /*
+         * Note: The segments overlap by the largest fixed allocation so a
+         * slot is always contained in the segment in which it starts.
+         */
+        m_mappedReads =
+            new SegmentedFileMapping(
+                m_reopener,
+                Integer.valueOf(
+                    fileMetadata.getProperty(
+                        Options.MEMORY_MAPPED_SEGMENT_SHIFT,
+                        Options.DEFAULT_MEMORY_MAPPED_SEGMENT_SHIFT)),
+                m_maxFixedAlloc);
+
+        remapCommittedExtent();
+      } else {
+        m_mappedReads = null;
+      }
+
+      final String fastTierFile =
+          fileMetadata.getProperty(Options.FAST_TIER_FILE, null /* defaultValue */);
+
+      if (fastTierFile != null && fastTierFile.trim().length() > 0) {
+
+        if (m_quorum != null) {
+
+          log.warn("Ignoring " + Options.FAST_TIER_FILE + " for a highly available store.");
+
+          m_fastTier = null;
+
+        } else {
+
+          m_fastTier =
+              new FastTierFile(
+                  new File(fastTierFile.trim()),
+                  Long.valueOf(
+                      fileMetadata.getProperty(
+                          Options.FAST_TIER_CAPACITY, Options.DEFAULT_FAST_TIER_CAPACITY)));
+        }
+      } else {
+        m_fastTier = null;
+      }
+
       final int maxBlockLessChk = m_maxFixedAlloc - 4;
 
       assert m_maxFixedAlloc > 0;
@@ -1197,7 +1400,8 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
       //            final boolean highlyAvailable = m_quorum != null
       //                    && m_quorum.isHighlyAvailable();
 
-      final boolean prefixWrites = m_quorum != null; // highlyAvailable
+      // Note: The redo log uses the same record format as the HALog.
+      final boolean prefixWrites = m_quorum != null || m_redoLog != null;
 
       return new RWWriteCacheService(
           m_writeCacheBufferCount,
@@ -1293,6 +1497,15 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
         m_bufferedWrite = null;
       }
       m_writeCacheService.close();
+      if (m_mappedReads != null) {
+        m_mappedReads.close();
+      }
+      if (m_fastTier != null) {
+        m_fastTier.close();
+      }
+      if (m_redoLog != null) {
+        m_redoLog.close();
+      }
       m_reopener.raf.close();
     } catch (Throwable t) {
       throw new RuntimeException(t);
@@ -2005,6 +2218,18 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
         }
 
         assert paddr > 0;
+        if (m_mappedReads != null) {
+          final ByteBuffer tmp = readMapped((int) rwaddr, paddr, sze);
+          if (tmp != null) {
+            return tmp;
+          }
+        }
+        if (m_fastTier != null) {
+          final ByteBuffer tmp = readFastTier((int) rwaddr, paddr, sze);
+          if (tmp != null) {
+            return tmp;
+          }
+        }
         try {
           return m_writeCacheService.read(paddr, sze + 4);
         } catch (Throwable e) {
@@ -2023,6 +2248,480 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
     }
   }
 
+  /*
+   * Read a batch of records. Each record is read as by {@link #getData(long, int)}, except that the
+   * records which are neither memory mapped nor in the write cache are read from the disk
+   * concurrently when {@link Options#READ_BATCH_ASYNC} is enabled. Note that the records read
+   * concurrently are not entered into the read cache of the write cache service.
+   *
+   * @param rwaddrs The latched addresses of the records.
+   * @param szes The sizes of the records (excluding the checksums), correlated with the addresses.
+   * @return The records, correlated with the addresses.
+   * @throws ChecksumError if the checksum of a record is invalid.
+   */
+  public ByteBuffer[] getData(final int[] rwaddrs, final int[] szes) {
+
+    if (rwaddrs == null || szes == null || rwaddrs.length != szes.length)
+      throw new IllegalArgumentException();
+
+    final int n = rwaddrs.length;
+
+    final ByteBuffer[] a = new ByteBuffer[n];
+
+    if (!m_readBatchAsync || m_writeCacheService == null || n < 2) {
+
+      for (int i = 0; i < n; i++) {
+
+        a[i] = getData(rwaddrs[i], szes[i]);
+      }
+
+      return a;
+    }
+
+    /*
+     * Note: Contend with postHACommit().
+     */
+    final Lock lock = m_allocationReadLock;
+    lock.lock();
+    try {
+      assertOpen();
+
+      // The indices and physical addresses of the records which must be read from the disk.
+      final int[] misses = new int[n];
+      final long[] paddrs = new long[n];
+      int nmisses = 0;
+
+      for (int i = 0; i < n; i++) {
+
+        final int rwaddr = rwaddrs[i];
+        final int sze = szes[i];
+
+        if (sze > (m_maxFixedAlloc - 4)) {
+          // Blobs are read by the caller's thread (and may use async IO themselves).
+          a[i] = getData(rwaddr, sze);
+          continue;
+        }
+
+        final long paddr = physicalAddress(rwaddr);
+
+        if (paddr == 0) {
+
+          assertAllocators();
+
+          throw new PhysicalAddressResolutionException(rwaddr);
+        }
+
+        if (m_mappedReads != null) {
+          final ByteBuffer tmp = readMapped(rwaddr, paddr, sze);
+          if (tmp != null) {
+            a[i] = tmp;
+            continue;
+          }
+        }
+
+        final ByteBuffer cached;
+        try {
+          cached = m_writeCacheService._readFromCache(paddr, sze + 4);
+        } catch (Throwable e) {
+          throw new RuntimeException("addr=" + rwaddr + " : cause=" + e, e);
+        }
+
+        if (cached != null) {
+          a[i] = cached;
+          continue;
+        }
+
+        if (m_fastTier != null) {
+          final ByteBuffer tmp = m_fastTier.read(rwaddr);
+          if (tmp != null) {
+            a[i] = tmp;
+            continue;
+          }
+        }
+
+        misses[nmisses] = i;
+        paddrs[nmisses] = paddr;
+        nmisses++;
+      }
+
+      if (nmisses == 1) {
+
+        // Read through the write cache service, which also caches the record.
+        a[misses[0]] = getData(rwaddrs[misses[0]], szes[misses[0]]);
+
+      } else if (nmisses > 1) {
+
+        final ArrayList<AsyncTransfer> transfers = new ArrayList<>(nmisses);
+
+        for (int j = 0; j < nmisses; j++) {
+
+          // allow for the checksum.
+          final ByteBuffer b = ByteBuffer.allocate(szes[misses[j]] + 4);
+
+          a[misses[j]] = b;
+
+          transfers.add(new AsyncTransfer(paddrs[j], b));
+        }
+
+        readRawAsync(transfers);
+
+        for (int j = 0; j < nmisses; j++) {
+
+          final int i = misses[j];
+          final int sze = szes[i];
+          final ByteBuffer b = a[i];
+
+          final int chk = b.getInt(sze);
+
+          if (chk != ChecksumUtility.threadChk.get().checksum(b, 0 /* pos */, sze /* limit */)) {
+
+            throw new ChecksumError("addr=" + rwaddrs[i] + ", paddr=" + paddrs[j] + ", len=" + sze);
+          }
+
+          b.position(0);
+
+          b.limit(sze);
+        }
+      }
+
+      return a;
+
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /*
+   * Read a committed record from the memory mapping of the file. The caller must hold the
+   * allocation read lock.
+   *
+   * @param rwaddr The latched address of the record.
+   * @param paddr The physical address of the record.
+   * @param sze The length of the record (excluding the checksum).
+   * @return A read-only slice of the mapping for the record -or- <code>null</code> if the record
+   *     must be read through the write cache service (it is not committed or not mapped).
+   * @throws ChecksumError if the checksum of the record is invalid.
+   */
+  private ByteBuffer readMapped(final int rwaddr, final long paddr, final int sze) {
+
+    if (rwaddr >= 0) {
+      // Not a latched address.
+      return null;
+    }
+
+    /*
+     * Note: A slot is only flagged as committed once its data has been
+     * flushed by the write cache service. A committed slot is not
+     * overwritten until it has been released and recycled, at which point
+     * it is no longer committed.
+     */
+    if (!getBlock(rwaddr).isCommitted(getOffset(rwaddr))) return null;
+
+    final ByteBuffer b = m_mappedReads.read(paddr, sze + 4);
+
+    if (b == null) return null;
+
+    final int chk = b.getInt(sze);
+
+    if (chk != ChecksumUtility.threadChk.get().checksum(b, 0 /* pos */, sze /* limit */)) {
+
+      throw new ChecksumError("addr=" + rwaddr + ", paddr=" + paddr + ", len=" + sze);
+    }
+
+    b.limit(sze);
+
+    return b;
+  }
+
+  /*
+   * Read a record from the {@link FastTierFile}. The write cache service is checked first since a
+   * record which it buffers is not necessarily on the disk yet and is cheaper to read from memory.
+   * The caller must hold the allocation read lock.
+   *
+   * @param rwaddr The latched address of the record.
+   * @param paddr The physical address of the record.
+   * @param sze The length of the record (excluding the checksum).
+   * @return The record -or- <code>null</code> if it must be read through the write cache service.
+   */
+  private ByteBuffer readFastTier(final int rwaddr, final long paddr, final int sze) {
+
+    final ByteBuffer cached;
+    try {
+      cached = m_writeCacheService._readFromCache(paddr, sze + 4);
+    } catch (Throwable e) {
+      throw new RuntimeException("addr=" + rwaddr + " : cause=" + e, e);
+    }
+
+    if (cached != null) return cached;
+
+    return m_fastTier.read(rwaddr);
+  }
+
+  /*
+   * Return <code>true</code> iff a {@link Options#FAST_TIER_FILE} is in use.
+   *
+   * @see #writeFastTier(int, ByteBuffer)
+   */
+  public boolean isFastTierEnabled() {
+
+    return m_fastTier != null;
+  }
+
+  /** The cache of interior nodes on a fast device -or- <code>null</code> if none (unit tests). */
+  FastTierFile getFastTier() {
+
+    return m_fastTier;
+  }
+
+  /*
+   * Write a copy of a record on the {@link Options#FAST_TIER_FILE} so that subsequent reads of the
+   * record are served from the fast device. This is a NOP if there is no such file, if the record
+   * is a blob or if the record is already present. The record must have been written on the store
+   * (and not yet deleted) at the given address.
+   *
+   * @param rwaddr The latched address of the record.
+   * @param data The record. The position and limit are not changed.
+   */
+  public void writeFastTier(final int rwaddr, final ByteBuffer data) {
+
+    if (m_fastTier == null) return;
+
+    if (data == null) throw new IllegalArgumentException();
+
+    if (data.remaining() > (m_maxFixedAlloc - 4)) return;
+
+    m_fastTier.write(rwaddr, data);
+  }
+
+  /*
+   * Extend the memory mapping to the current extent of the file. This is invoked once the write
+   * cache service has been flushed and the allocators committed, so all committed records are on
+   * the disk. A failure to map the file is logged and the existing mapping is retained, in which
+   * case the records outside of the mapping are read through the write cache service.
+   */
+  private void remapCommittedExtent() {
+
+    if (m_mappedReads == null) return;
+
+    try {
+
+      m_mappedReads.remap(m_reopener.reopenChannel().size());
+
+    } catch (IOException ex) {
+
+      log.warn("Could not map file: " + m_fd + " : " + ex, ex);
+    }
+  }
+
+  /*
+   * The {@link FixedAllocator}s which are being drained by an online compaction. Guarded by the
+   * allocation lock.
+   *
+   * @see #selectDrainingAllocators(float, int)
+   */
+  private final ArrayList<FixedAllocator> m_drainingAllocators = new ArrayList<>();
+
+  /*
+   * When <code>true</code> each commit releases the empty regions at the end of the allocated
+   * extent and the file is truncated once enough of its extent has been released.
+   */
+  private volatile boolean m_releaseTailBlocks = false;
+
+  /*
+   * Select the sparsely used {@link FixedAllocator}s to be drained by an online compaction. No new
+   * slots are allocated from a draining allocator, so its slots are released as the records which
+   * they hold are relocated by the caller and the deferred frees for those records are processed.
+   * The allocators whose regions are nearest the end of the file are preferred since their regions
+   * can be released once they are empty, allowing the file to be truncated.
+   *
+   * <p>Allocators which were selected by a previous invocation remain draining iff they still hold
+   * live slots and still satisfy the usage threshold. Allocators assigned to an allocation context
+   * are never drained.
+   *
+   * <p>Note: Online compaction is not supported for a highly available store.
+   *
+   * @param maxUsage The maximum ratio of live slots to reserved slots for a draining allocator.
+   * @param maxAllocators The maximum #of draining allocators.
+   * @return The #of draining allocators.
+   */
+  public int selectDrainingAllocators(final float maxUsage, final int maxAllocators) {
+
+    if (maxUsage < 0f || maxUsage > 1f) throw new IllegalArgumentException();
+
+    if (maxAllocators < 0) throw new IllegalArgumentException();
+
+    m_allocationWriteLock.lock();
+    try {
+      assertOpen();
+
+      if (m_quorum != null) return 0;
+
+      final Iterator<FixedAllocator> itr = m_drainingAllocators.iterator();
+      while (itr.hasNext()) {
+        final FixedAllocator fa = itr.next();
+        if (!isDrainable(fa, maxUsage)) {
+          fa.setDraining(false);
+          itr.remove();
+        }
+      }
+
+      final ArrayList<FixedAllocator> candidates = new ArrayList<>();
+      for (FixedAllocator fa : m_allocs) {
+        if (!fa.isDraining() && isDrainable(fa, maxUsage)) {
+          candidates.add(fa);
+        }
+      }
+
+      // nearest the end of the file first.
+      candidates.sort(Comparator.comparingInt(FixedAllocator::getTailAddr));
+
+      for (FixedAllocator fa : candidates) {
+        if (m_drainingAllocators.size() >= maxAllocators) break;
+
+        fa.setDraining(true);
+        m_drainingAllocators.add(fa);
+      }
+
+      m_releaseTailBlocks = true;
+
+      if (log.isInfoEnabled()) log.info("Draining allocators: " + m_drainingAllocators.size());
+
+      return m_drainingAllocators.size();
+    } finally {
+      m_allocationWriteLock.unlock();
+    }
+  }
+
+  private boolean isDrainable(final FixedAllocator fa, final float maxUsage) {
+
+    if (fa.getIndex() == -1 || fa.getDiskAddr() == 0) {
+      // not committed.
+      return false;
+    }
+
+    if (!fa.isUnlocked() || fa.m_pendingContextCommit) {
+      return false;
+    }
+
+    final int reserved = fa.getReservedSlots();
+
+    final int live = fa.getLiveSlots();
+
+    return live > 0 && live <= maxUsage * reserved;
+  }
+
+  /*
+   * Return the draining allocators to the free lists and stop releasing the regions at the end of
+   * the allocated extent.
+   */
+  public void clearDrainingAllocators() {
+
+    m_allocationWriteLock.lock();
+    try {
+      for (FixedAllocator fa : m_drainingAllocators) {
+        fa.setDraining(false);
+      }
+
+      m_drainingAllocators.clear();
+
+      m_releaseTailBlocks = false;
+    } finally {
+      m_allocationWriteLock.unlock();
+    }
+  }
+
+  /** The #of draining allocators. */
+  public int getDrainingAllocatorCount() {
+
+    m_allocationReadLock.lock();
+    try {
+      return m_drainingAllocators.size();
+    } finally {
+      m_allocationReadLock.unlock();
+    }
+  }
+
+  /*
+   * Return <code>true</code> iff the record at the latched address is held by a draining allocator
+   * and should therefore be relocated.
+   *
+   * @param latchedAddr A latched address.
+   */
+  public boolean isDraining(final int latchedAddr) {
+
+    if (latchedAddr >= 0) return false;
+
+    m_allocationReadLock.lock();
+    try {
+      final int index = (-latchedAddr) >>> OFFSET_BITS;
+
+      return index < m_allocs.size() && m_allocs.get(index).isDraining();
+    } finally {
+      m_allocationReadLock.unlock();
+    }
+  }
+
+  /*
+   * Release the empty regions at the end of the allocated extent, moving the next allocation offset
+   * back towards the start of the file. This is invoked from {@link #commit()} so the allocators
+   * whose regions were released are written by that commit.
+   *
+   * @return The total size of the released regions.
+   */
+  private int releaseTailBlocks() {
+
+    // the allocators indexed by the end of their last allocated region.
+    final HashMap<Integer, FixedAllocator> tails = new HashMap<>();
+    for (FixedAllocator fa : m_allocs) {
+      final int tail = fa.getTailAddr();
+      if (tail != 0) {
+        tails.put(tail, fa);
+      }
+    }
+
+    int released = 0;
+    FixedAllocator fa;
+    while ((fa = tails.remove(m_nextAllocation)) != null) {
+      final int size = fa.releaseTailBlock(m_nextAllocation);
+      if (size == 0) break;
+
+      m_nextAllocation += size;
+      released += size;
+
+      final int tail = fa.getTailAddr();
+      if (tail != 0) {
+        tails.put(tail, fa);
+      }
+    }
+
+    if (released != 0 && log.isInfoEnabled())
+      log.info("Released " + convertAddr(-released) + " bytes, nextAllocation: " + m_nextAllocation);
+
+    return released;
+  }
+
+  /*
+   * Truncate the file once the extent released by {@link #releaseTailBlocks()} is more than a fifth
+   * of the file. The same headroom is retained as would be added by an extension of the file. This
+   * is invoked from {@link #postCommit()}, once the root block no longer references the released
+   * regions.
+   *
+   * <p>Note: The file is not truncated when {@link Options#MEMORY_MAPPED_READS} are enabled. The
+   * slices returned by {@link #readMapped(int, long, int)} are not copied, so the readers may still
+   * use a slice of the released extent, and an access to a page which is no longer backed by the
+   * file would crash the JVM (SIGBUS). The released regions are reused by new allocations instead.
+   */
+  private void truncateReleasedExtent() {
+
+    if (m_mappedReads != null) return;
+
+    final int target = m_nextAllocation - 1200 + (m_nextAllocation / 10);
+
+    if (target - m_fileSize <= (-m_fileSize) / 5) return;
+
+    extendFile(target - m_fileSize);
+  }
+
   /*
    * If the buf[] size is greater than the maximum fixed allocation, then the direct read will be
    * the blob header record. In this case we should hand over the streaming to a PSInputStream.
@@ -2049,6 +2748,14 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
    */
   private final boolean m_readBlobsAsync;
 
+  /*
+   * When <code>true</code>, the records of a batch read which are not buffered are read
+   * concurrently using Async NIO.
+   *
+   * @see Options#READ_BATCH_ASYNC
+   */
+  private final boolean m_readBatchAsync;
+
   public void getData(final long addr, final byte[] buf, final int offset, final int length) {
 
     assertOpen();
@@ -2671,6 +3378,10 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
       //            if (log.isTraceEnabled())
       //                log.trace("Freeing allocation at " + addr + ", physical address: " + pa);
       alloc.free(addr, sze, overrideSession);
+      if (m_fastTier != null) {
+        // The address may be recycled once it has been freed.
+        m_fastTier.remove(addr);
+      }
       // must clear after free in case is a blobHdr that requires reading!
       // the allocation lock protects against a concurrent re-allocation
       // of the address before the cache has been cleared
@@ -2935,7 +3646,7 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
     FixedAllocator candidate = null;
     int candidateFreeBits = cSmallSlotThresholdHighWaste; // minimum threshold
     for (final FixedAllocator tst : m_allocs) {
-      if (tst.getBlockSize() == block) { // right size
+      if (tst.getBlockSize() == block && !tst.isDraining()) { // right size
         if (tst.m_freeBits > candidateFreeBits) {
           candidate = tst;
           candidateFreeBits = candidate.m_freeBits;
@@ -3182,6 +3893,16 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
         isolatedWrites |= fa.reset(m_writeCacheService, m_committedNextAllocation);
       }
 
+      if (m_fastTier != null) {
+        // The uncommitted addresses are recycled without being freed.
+        m_fastTier.clear();
+      }
+
+      if (m_redoLog != null) {
+        // A commit which failed after the redo log was sealed closed the redo log.
+        m_redoLog.reopen();
+      }
+
       /** Now clone the transient metabits for protection if this service becomes leader */
       syncMetaTransients();
 
@@ -3235,6 +3956,7 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
          */
         m_writeCacheService.close();
         m_writeCacheService = newWriteCacheService();
+        m_writeCacheService.setReadCacheAdmission(m_readCacheAdmission);
       } else if (m_writeCacheService != null) {
         /*
          * Note: We DO NOT need to reset() the WriteCacheService. If a
@@ -3460,6 +4182,11 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
             "RWStore commitState found, incomplete previous commit must be rolled back/aborted");
       }
 
+      if (m_releaseTailBlocks) {
+        // release the regions emptied by an online compaction.
+        releaseTailBlocks();
+      }
+
       //          final int totalFreed = checkDeferredFrees(true, journal); // free now if possible
       //
       //          if (totalFreed > 0 && log.isInfoEnabled()) {
@@ -3686,6 +4413,12 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
     }
 
     clearCommitList();
+
+    if (m_releaseTailBlocks) {
+      truncateReleasedExtent();
+    }
+
+    remapCommittedExtent();
   }
 
   @Override
@@ -5319,6 +6052,11 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
 
         if (alloc != null) {
           alloc.abort();
+
+          if (m_fastTier != null) {
+            // The addresses allocated by the context are recycled without being freed.
+            m_fastTier.clear();
+          }
         }
       }
 
@@ -5572,6 +6310,72 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
    */
   public void writeRootBlock(final IRootBlockView rootBlock, final ForceEnum forceOnCommit) {
 
+    writeRootBlock(rootBlock, forceOnCommit, true /* sync */);
+  }
+
+  /*
+   * Return <code>true</code> iff a {@link Options#REDO_LOG_DIR} is in use.
+   *
+   * @see #commitRedoLog(IRootBlockView)
+   */
+  public boolean isRedoLogEnabled() {
+
+    return m_redoLog != null;
+  }
+
+  /** The redo log (if any). */
+  RedoLog getRedoLog() {
+
+    return m_redoLog;
+  }
+
+  /*
+   * Commit using the redo log. This is used in place of {@link #writeRootBlock(IRootBlockView,
+   * ForceEnum)} when {@link #isRedoLogEnabled()}. The redo log is sealed (and synced) with the new
+   * root block, which makes the commit durable. The root block is then written on the backing file
+   * without a sync and the redo log is opened for the next write set.
+   *
+   * @param rootBlock The new root block.
+   * @see Options#REDO_LOG_DIR
+   */
+  public void commitRedoLog(final IRootBlockView rootBlock) {
+
+    if (rootBlock == null) throw new IllegalArgumentException();
+
+    if (m_redoLog == null) throw new IllegalStateException();
+
+    assertOpen();
+
+    try {
+
+      m_redoLog.seal(rootBlock);
+
+      writeRootBlock(rootBlock, ForceEnum.No, false /* sync */);
+
+      m_redoLog.open(rootBlock);
+
+    } catch (IOException ex) {
+
+      throw new RuntimeException(ex);
+    }
+  }
+
+  /*
+   * Replay the redo logs (if any) in the given directory against the backing file of a store which
+   * is about to be opened.
+   *
+   * @param dir The {@link Options#REDO_LOG_DIR}.
+   * @param file The backing file.
+   * @return The #of redo logs which were replayed.
+   */
+  public static int replayRedoLog(final File dir, final File file) throws IOException {
+
+    return RedoLog.replay(dir, file);
+  }
+
+  private void writeRootBlock(
+      final IRootBlockView rootBlock, final ForceEnum forceOnCommit, final boolean sync) {
+
     if (rootBlock == null) throw new IllegalArgumentException();
 
     checkRootBlock(rootBlock);
@@ -5618,8 +6422,10 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
          * writes).
          */
 
-        // sync the disk.
-        m_reopener.reopenChannel().force(forceOnCommit == ForceEnum.ForceMetadata);
+        if (sync) {
+          // sync the disk.
+          m_reopener.reopenChannel().force(forceOnCommit == ForceEnum.ForceMetadata);
+        }
 
         // Update counters.
         final StoreCounters<?> c = (StoreCounters<?>) storeCounters.get().acquire();
@@ -6213,6 +7019,20 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
       tmp.attach(m_writeCacheService.getCounters());
     }
 
+    if (m_fastTier != null) {
+
+      final CounterSet tmp = root.makePath("fastTier");
+
+      tmp.attach(m_fastTier.getCounters());
+    }
+
+    if (m_redoLog != null) {
+
+      final CounterSet tmp = root.makePath("redoLog");
+
+      tmp.attach(m_redoLog.getCounters());
+    }
+
     return root;
   }
 
@@ -6549,6 +7369,54 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
     }
   }
 
+  /*
+   * Read on the backing file using Async NIO. The transfers are issued together and this method
+   * returns once all of them are done.
+   *
+   * @param transfers The transfers.
+   * @see #readRaw(long, ByteBuffer)
+   */
+  private void readRawAsync(final List<AsyncTransfer> transfers) {
+
+    // Guard against concurrent file extension.
+    final Lock lock = m_extensionLock.readLock();
+    lock.lock();
+    try {
+
+      final long beginDisk = System.nanoTime();
+
+      final long nbytes;
+      try {
+        nbytes = FileChannelUtility.readAllAsync(m_reopener, transfers);
+      } catch (IOException ex) {
+        throw new RuntimeException(ex);
+      }
+
+      final int ndiskRead = transfers.size();
+
+      m_diskReads += ndiskRead;
+
+      final long now = System.nanoTime();
+
+      // update performance counters.
+      final StoreCounters<?> c = (StoreCounters<?>) storeCounters.get().acquire();
+      try {
+        c.ndiskRead += ndiskRead;
+        c.nreads += ndiskRead;
+        c.bytesRead += nbytes;
+        c.bytesReadFromDisk += nbytes;
+        c.elapsedReadNanos += now - beginDisk;
+        c.elapsedDiskReadNanos += now - beginDisk;
+      } finally {
+        c.release();
+      }
+
+    } finally {
+
+      lock.unlock();
+    }
+  }
+
   public int getMaxBlobSize() {
     return m_maxBlobAllocSize - 4; // allow for checksum
   }
@@ -7055,6 +7923,8 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
         // m_externalCache.clear();
 
         assert m_nextAllocation != 0;
+
+        remapCommittedExtent();
       } finally {
         innerLock.unlock();
       }
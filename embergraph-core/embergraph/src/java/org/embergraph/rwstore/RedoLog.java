@@ -0,0 +1,645 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.rwstore;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.log4j.Logger;
+import org.embergraph.counters.CAT;
+import org.embergraph.counters.CounterSet;
+import org.embergraph.counters.Instrument;
+import org.embergraph.ha.halog.HALogReader;
+import org.embergraph.ha.halog.HALogWriter;
+import org.embergraph.ha.halog.IHALogReader;
+import org.embergraph.ha.msg.IHAWriteMessage;
+import org.embergraph.io.DirectBufferPool;
+import org.embergraph.io.FileChannelUtility;
+import org.embergraph.io.IReopenChannel;
+import org.embergraph.io.writecache.IWriteCacheLog;
+import org.embergraph.io.writecache.WriteCache;
+import org.embergraph.journal.CommitCounterUtility;
+import org.embergraph.journal.FileMetadata;
+import org.embergraph.journal.IRootBlockView;
+import org.embergraph.journal.RootBlockUtility;
+import org.embergraph.util.DaemonThreadFactory;
+
+/*
+ * A redo log for an {@link RWStore} which is not highly available. Each {@link WriteCache} block is
+ * appended to the log before it is written on the backing file, and the commit seals the log with
+ * the new root block. The log is written using the HALog file format: one file per commit point,
+ * named for the commit counter of its closing root block.
+ *
+ * <p>A commit is durable once the log has been sealed, which costs a sequential append and a single
+ * sync of the log. The root block is then written on the backing file without a sync. The backing
+ * file is synced asynchronously by a checkpoint every {@link
+ * RWStore.Options#REDO_LOG_CHECKPOINT_INTERVAL} commits, after which the logs for the commit points
+ * covered by the checkpoint are removed.
+ *
+ * <p>When the store is opened, the sealed logs (if any) are replayed against the backing file by
+ * {@link #replay(File, File)} before its root blocks are read. Since the log holds every write on
+ * the backing file since the last checkpoint in the order in which the writes were made, replaying
+ * the logs in commit order restores the backing file as of the last sealed log.
+ *
+ * <p>The live log is not discarded by an abort. Writes made on behalf of isolated (read/write)
+ * transactions may already have been evicted from the write cache and must remain in the log for
+ * the commit which eventually makes them visible. The writes of the aborted write set are on slots
+ * which were free as of the last commit point, so they are harmless when replayed.
+ */
+class RedoLog implements IWriteCacheLog {
+
+  private static final Logger log = Logger.getLogger(RedoLog.class);
+
+  /** The directory in which the log files are written. */
+  private final File dir;
+
+  /** Used to sync the backing file of the store. */
+  private final IReopenChannel<FileChannel> opener;
+
+  /** The #of commits between checkpoints. */
+  private final int checkpointInterval;
+
+  /** The writer for the live log. */
+  private final HALogWriter writer;
+
+  /*
+   * The root block of the last commit point. This is the opening root block of the live log and is
+   * only updated once the root block has been written on the backing file.
+   */
+  private volatile IRootBlockView rootBlock;
+
+  /*
+   * The commit counter as of the last checkpoint. The logs for this and the earlier commit points
+   * have been removed.
+   */
+  private volatile long checkpointCommitCounter;
+
+  /** Serializes checkpoints. */
+  private final Object checkpointLock = new Object();
+
+  /** Set while an asynchronous checkpoint is pending. */
+  private final AtomicBoolean checkpointPending = new AtomicBoolean(false);
+
+  /** Runs the asynchronous checkpoints. */
+  private final ExecutorService checkpointService;
+
+  private final CAT nblocks = new CAT();
+
+  private final CAT nbytes = new CAT();
+
+  private final CAT ncommits = new CAT();
+
+  private final CAT elapsedCommitNanos = new CAT();
+
+  private final CAT ncheckpoints = new CAT();
+
+  private final CAT elapsedCheckpointNanos = new CAT();
+
+  /*
+   * @param dir The directory in which the log files are written.
+   * @param opener Used to sync the backing file of the store.
+   * @param rootBlock The root block of the current commit point.
+   * @param checkpointInterval The #of commits between checkpoints.
+   */
+  RedoLog(
+      final File dir,
+      final IReopenChannel<FileChannel> opener,
+      final IRootBlockView rootBlock,
+      final int checkpointInterval)
+      throws IOException {
+
+    if (dir == null) throw new IllegalArgumentException();
+
+    if (opener == null) throw new IllegalArgumentException();
+
+    if (rootBlock == null) throw new IllegalArgumentException();
+
+    if (checkpointInterval <= 0) throw new IllegalArgumentException();
+
+    this.dir = dir;
+
+    this.opener = opener;
+
+    this.checkpointInterval = checkpointInterval;
+
+    this.rootBlock = rootBlock;
+
+    this.checkpointCommitCounter = rootBlock.getCommitCounter();
+
+    this.writer = new HALogWriter(dir, false /* doubleSync */);
+
+    this.checkpointService =
+        Executors.newSingleThreadExecutor(
+            new DaemonThreadFactory(getClass().getName() + ".checkpointService"));
+
+    writer.createLog(rootBlock);
+
+    if (log.isInfoEnabled()) log.info("dir=" + dir + ", rootBlock=" + rootBlock);
+  }
+
+  @Override
+  public UUID getStoreUUID() {
+
+    return rootBlock.getUUID();
+  }
+
+  @Override
+  public long getLastCommitCounter() {
+
+    return rootBlock.getCommitCounter();
+  }
+
+  @Override
+  public long getLastCommitTime() {
+
+    return rootBlock.getLastCommitTime();
+  }
+
+  @Override
+  public long getSequence() {
+
+    return writer.getSequence();
+  }
+
+  @Override
+  public void logWriteCacheBlock(final IHAWriteMessage msg, final ByteBuffer data)
+      throws IOException {
+
+    final int nbytes = data.remaining();
+
+    writer.writeOnHALog(msg, data);
+
+    this.nblocks.increment();
+
+    this.nbytes.add(nbytes);
+  }
+
+  /*
+   * Seal the live log with the root block of the new commit point and sync the log. The commit is
+   * durable once this method returns. The caller must then write the root block on the backing file
+   * and invoke {@link #open(IRootBlockView)}.
+   *
+   * @param newRootBlock The root block of the new commit point.
+   */
+  void seal(final IRootBlockView newRootBlock) throws IOException {
+
+    final long begin = System.nanoTime();
+
+    writer.closeHALog(newRootBlock);
+
+    ncommits.increment();
+
+    elapsedCommitNanos.add(System.nanoTime() - begin);
+  }
+
+  /*
+   * Open the live log for the write set following the new commit point. This schedules a checkpoint
+   * if {@link RWStore.Options#REDO_LOG_CHECKPOINT_INTERVAL} commits have been made since the last
+   * checkpoint.
+   *
+   * @param newRootBlock The root block of the new commit point, which has been written on the
+   *     backing file.
+   */
+  void open(final IRootBlockView newRootBlock) throws IOException {
+
+    rootBlock = newRootBlock;
+
+    writer.createLog(newRootBlock);
+
+    if (newRootBlock.getCommitCounter() - checkpointCommitCounter >= checkpointInterval
+        && checkpointPending.compareAndSet(false /* expect */, true /* update */)) {
+
+      checkpointService.submit(
+          () -> {
+            try {
+              checkpoint();
+            } catch (Throwable t) {
+              log.error(t, t);
+            } finally {
+              checkpointPending.set(false);
+            }
+          });
+    }
+  }
+
+  /*
+   * Re-open the live log for the last commit point if it was closed by a commit which then failed
+   * before the root block was written on the backing file.
+   */
+  void reopen() throws IOException {
+
+    if (!writer.isHALogOpen()) {
+
+      writer.createLog(rootBlock);
+    }
+  }
+
+  /*
+   * Sync the backing file and then remove the logs for the commit points which are now durable on
+   * the backing file.
+   */
+  void checkpoint() throws IOException {
+
+    synchronized (checkpointLock) {
+      final long begin = System.nanoTime();
+
+      // Note: The root block for this commit point is on the backing file.
+      final long commitCounter = rootBlock.getCommitCounter();
+
+      if (commitCounter <= checkpointCommitCounter) {
+        // Nothing committed since the last checkpoint.
+        return;
+      }
+
+      opener.reopenChannel().force(false /* metadata */);
+
+      for (long cc = checkpointCommitCounter + 1; cc <= commitCounter; cc++) {
+
+        final File file = HALogWriter.getHALogFileName(dir, cc);
+
+        if (file.exists() && !file.delete()) log.warn("Could not delete: " + file);
+      }
+
+      checkpointCommitCounter = commitCounter;
+
+      ncheckpoints.increment();
+
+      elapsedCheckpointNanos.add(System.nanoTime() - begin);
+
+      if (log.isInfoEnabled()) log.info("commitCounter=" + commitCounter);
+    }
+  }
+
+  /*
+   * Checkpoint the store and remove the logs, including the live log. The caller must ensure that
+   * nothing more is written on the log.
+   */
+  void close() {
+
+    checkpointService.shutdown();
+
+    try {
+
+      checkpointService.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+
+      checkpoint();
+
+      // Note: Anything in the live log was never committed.
+      writer.disableHALog();
+
+      CommitCounterUtility.recursiveDelete(
+          false /* errorIfDeleteFails */, dir, IHALogReader.HALOG_FILTER);
+
+    } catch (InterruptedException ex) {
+
+      Thread.currentThread().interrupt();
+
+      log.warn("Interrupted: logs not removed from " + dir);
+
+    } catch (IOException ex) {
+
+      log.error(ex, ex);
+    }
+  }
+
+  /** The #of commits since the last checkpoint. */
+  long getUncheckpointedCommitCount() {
+
+    return rootBlock.getCommitCounter() - checkpointCommitCounter;
+  }
+
+  /** The #of checkpoints. */
+  long getCheckpointCount() {
+
+    return ncheckpoints.get();
+  }
+
+  /** Performance counters. */
+  CounterSet getCounters() {
+
+    final CounterSet root = new CounterSet();
+
+    root.addCounter(
+        "blocksLogged",
+        new Instrument<Long>() {
+          public void sample() {
+            setValue(nblocks.get());
+          }
+        });
+
+    root.addCounter(
+        "bytesLogged",
+        new Instrument<Long>() {
+          public void sample() {
+            setValue(nbytes.get());
+          }
+        });
+
+    root.addCounter(
+        "commitCount",
+        new Instrument<Long>() {
+          public void sample() {
+            setValue(ncommits.get());
+          }
+        });
+
+    root.addCounter(
+        "elapsedCommitNanos",
+        new Instrument<Long>() {
+          public void sample() {
+            setValue(elapsedCommitNanos.get());
+          }
+        });
+
+    root.addCounter(
+        "checkpointCount",
+        new Instrument<Long>() {
+          public void sample() {
+            setValue(ncheckpoints.get());
+          }
+        });
+
+    root.addCounter(
+        "elapsedCheckpointNanos",
+        new Instrument<Long>() {
+          public void sample() {
+            setValue(elapsedCheckpointNanos.get());
+          }
+        });
+
+    root.addCounter(
+        "uncheckpointedCommitCount",
+        new Instrument<Long>() {
+          public void sample() {
+            setValue(getUncheckpointedCommitCount());
+          }
+        });
+
+    return root;
+  }
+
+  /*
+   * Replay the sealed logs (if any) against the backing file of a store before it is opened. The
+   * logs are removed once the backing file has been synced.
+   *
+   * <p>A trailing log which was not sealed, or which was torn by a failure while it was being
+   * sealed, holds a write set which was never committed and is discarded. Logs which are older than
+   * the commit point on the backing file (e.g., left behind when the store was last opened without
+   * a redo log) or which belong to another store are also discarded.
+   *
+   * @param dir The directory in which the log files are written.
+   * @param file The backing file of the store.
+   * @return The #of logs which were replayed.
+   * @throws IOException if the logs do not form a contiguous sequence of commit points starting at
+   *     or before the commit point on the backing file.
+   */
+  static int replay(final File dir, final File file) throws IOException {
+
+    if (!dir.isDirectory() || !file.exists() || file.length() == 0L) return 0;
+
+    final List<File> files = new ArrayList<>();
+
+    listLogs(dir, files);
+
+    if (files.isEmpty()) return 0;
+
+    files.sort(
+        Comparator.comparingLong(
+            f ->
+                CommitCounterUtility.parseCommitCounterFile(
+                    f.getName(), IHALogReader.HA_LOG_EXT)));
+
+    // Note: A compressed block may be a bit larger than the write cache buffer.
+    final ByteBuffer buf = ByteBuffer.allocate(2 * DirectBufferPool.INSTANCE.getBufferCapacity());
+
+    int nreplayed = 0;
+
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      final IReopenChannel<FileChannel> opener = raf::getChannel;
+
+      final IRootBlockView current =
+          new RootBlockUtility(
+                  opener,
+                  file,
+                  true /* validateChecksum */,
+                  false /* alternateRootBlock */,
+                  true /* ignoreBadRootBlock */)
+              .rootBlock;
+
+      // The sealed and intact logs, in commit order.
+      final List<File> sealed = new ArrayList<>();
+
+      IRootBlockView lastRootBlock = null;
+
+      for (File f : files) {
+
+        final HALogReader r;
+        try {
+          r = new HALogReader(f);
+        } catch (RuntimeException ex) {
+          log.warn("Discarding unreadable log: " + f + " : " + ex);
+          break;
+        }
+
+        try {
+          if (r.isEmpty()) {
+            // The live log (not sealed).
+            break;
+          }
+
+          if (!r.getOpeningRootBlock().getUUID().equals(current.getUUID())) {
+            log.warn("Discarding log for another store: " + f);
+            break;
+          }
+
+          if (lastRootBlock != null
+              && r.getOpeningRootBlock().getCommitCounter() != lastRootBlock.getCommitCounter()) {
+            throw new IOException(
+                "Logs are not contiguous: file="
+                    + f
+                    + ", expected commitCounter="
+                    + lastRootBlock.getCommitCounter());
+          }
+
+          try {
+            while (r.hasMoreBuffers()) {
+              // Note: Validates the checksum of each block.
+              r.processNextBuffer(buf);
+            }
+          } catch (Throwable t) {
+            log.warn("Discarding torn log: " + f + " : " + t);
+            break;
+          }
+
+          sealed.add(f);
+
+          lastRootBlock = r.getClosingRootBlock();
+        } finally {
+          r.close();
+        }
+      }
+
+      if (lastRootBlock == null
+          || lastRootBlock.getCommitCounter() < current.getCommitCounter()) {
+
+        // Nothing to replay.
+        if (!files.isEmpty()) log.warn("Discarding " + files.size() + " stale logs in " + dir);
+
+      } else {
+
+        final long firstCommitCounter;
+        {
+          final HALogReader r = new HALogReader(sealed.get(0));
+          try {
+            firstCommitCounter = r.getOpeningRootBlock().getCommitCounter();
+          } finally {
+            r.close();
+          }
+        }
+
+        if (firstCommitCounter > current.getCommitCounter()) {
+          throw new IOException(
+              "Logs start after the commit point on the store: commitCounter="
+                  + current.getCommitCounter()
+                  + ", firstLog="
+                  + sealed.get(0));
+        }
+
+        long fileExtent = 0L;
+
+        for (File f : sealed) {
+
+          final HALogReader r = new HALogReader(f);
+
+          try {
+
+            while (r.hasMoreBuffers()) {
+
+              final IHAWriteMessage msg = r.processNextBuffer(buf);
+
+              writeRecords(opener, msg.expand(buf));
+
+              fileExtent = Math.max(fileExtent, msg.getFileExtent());
+            }
+
+            final IRootBlockView rb = r.getClosingRootBlock();
+
+            FileChannelUtility.writeAll(
+                opener,
+                rb.asReadOnlyBuffer(),
+                rb.isRootBlock0()
+                    ? FileMetadata.OFFSET_ROOT_BLOCK0
+                    : FileMetadata.OFFSET_ROOT_BLOCK1);
+
+          } finally {
+
+            r.close();
+          }
+
+          nreplayed++;
+        }
+
+        if (raf.length() < fileExtent) {
+          // The extension of the file might not have been durable.
+          raf.setLength(fileExtent);
+        }
+
+        opener.reopenChannel().force(true /* metadata */);
+
+        log.warn(
+            "Replayed "
+                + nreplayed
+                + " logs: commitCounter="
+                + lastRootBlock.getCommitCounter()
+                + ", file="
+                + file);
+      }
+    }
+
+    // The backing file is durable, so all logs can be removed.
+    CommitCounterUtility.recursiveDelete(
+        false /* errorIfDeleteFails */, dir, IHALogReader.HALOG_FILTER);
+
+    return nreplayed;
+  }
+
+  /*
+   * Write the records in a {@link WriteCache} block on the backing file. Each record in the block
+   * is prefixed by its file offset (negative if the record was deleted), its length (negative if no
+   * data follows) and its latched address.
+   */
+  private static void writeRecords(final IReopenChannel<FileChannel> opener, final ByteBuffer b)
+      throws IOException {
+
+    final int limit = b.limit();
+
+    int pos = b.position();
+
+    while (pos < limit) {
+
+      final long fileOffset = b.getLong(pos);
+
+      final int recordLength = b.getInt(pos + 8);
+
+      final int dataPos = pos + WriteCache.SIZEOF_PREFIX_WRITE_METADATA;
+
+      if (fileOffset > 0 && recordLength > 0) {
+
+        final ByteBuffer data = b.duplicate();
+
+        data.limit(dataPos + recordLength);
+
+        data.position(dataPos);
+
+        FileChannelUtility.writeAll(opener, data, fileOffset);
+      }
+
+      pos = dataPos + (recordLength > 0 ? recordLength : 0);
+    }
+  }
+
+  /** Collect the log files in a directory (recursively). */
+  private static void listLogs(final File dir, final List<File> files) {
+
+    final File[] a = dir.listFiles(IHALogReader.HALOG_FILTER);
+
+    if (a == null) return;
+
+    for (File f : a) {
+
+      if (f.isDirectory()) {
+
+        listLogs(f, files);
+
+      } else {
+
+        files.add(f);
+      }
+    }
+  }
+}
@@ -0,0 +1,185 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.rwstore;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import org.apache.log4j.Logger;
+import org.embergraph.io.IReopenChannel;
+
+/*
+ * A read-only memory mapping of a prefix of a file. The file is mapped as a sequence of segments
+ * using {@link FileChannel#map(FileChannel.MapMode, long, long)}. Records are read as read-only
+ * slices of the mapping, so a read neither copies the data nor performs any IO other than the page
+ * faults which are satisfied from the OS page cache.
+ *
+ * <p>Each segment covers <code>segmentSize</code> bytes of the file plus an overlap with the next
+ * segment. A record whose length is not greater than the overlap is therefore always contained in
+ * the segment in which it starts. Records which are longer than the overlap may straddle two
+ * segments, in which case {@link #read(long, int)} returns <code>null</code> and the caller must
+ * read the record from the file.
+ *
+ * <p>The mapped extent only grows. {@link #remap(long)} maps any new segments and replaces the last
+ * segment if it was only partially mapped. The segments are published by replacing a volatile
+ * array, so {@link #read(long, int)} is lock-free. A segment which has been replaced remains valid
+ * until it is garbage collected, so concurrent readers holding a reference to the old segment are
+ * not affected.
+ *
+ * <p>The caller is responsible for only reading records which are stable on the disk. Data which is
+ * still buffered by the write cache is not visible through the mapping.
+ */
+class SegmentedFileMapping {
+
+  private static final Logger log = Logger.getLogger(SegmentedFileMapping.class);
+
+  private final IReopenChannel<FileChannel> opener;
+
+  /** The log2 of the segment size. */
+  private final int segmentShift;
+
+  /** The segment size. */
+  private final long segmentSize;
+
+  /** The #of bytes by which each segment overlaps the next segment. */
+  private final int overlap;
+
+  /** The segments. A segment may be partially mapped iff it is the last segment. */
+  private volatile ByteBuffer[] segments = new ByteBuffer[0];
+
+  /** The #of bytes of the file which are mapped. */
+  private volatile long extent = 0L;
+
+  /*
+   * @param opener Used to (re-)open the file channel.
+   * @param segmentShift The log2 of the segment size.
+   * @param overlap The #of bytes by which each segment overlaps the next segment. This should be at
+   *     least the size of the largest record which must be read from the mapping.
+   */
+  SegmentedFileMapping(
+      final IReopenChannel<FileChannel> opener, final int segmentShift, final int overlap) {
+
+    if (opener == null) throw new IllegalArgumentException();
+
+    if (segmentShift < 20 || segmentShift > 30) throw new IllegalArgumentException();
+
+    if (overlap < 0 || (1L << segmentShift) + overlap > Integer.MAX_VALUE)
+      throw new IllegalArgumentException();
+
+    this.opener = opener;
+
+    this.segmentShift = segmentShift;
+
+    this.segmentSize = 1L << segmentShift;
+
+    this.overlap = overlap;
+  }
+
+  /** The #of bytes of the file which are mapped. */
+  long getExtent() {
+
+    return extent;
+  }
+
+  /*
+   * Return a read-only slice of the mapping for a record.
+   *
+   * @param offset The byte offset of the record in the file.
+   * @param nbytes The length of the record.
+   * @return The slice -or- <code>null</code> if the record is not fully contained in a single
+   *     mapped segment.
+   */
+  ByteBuffer read(final long offset, final int nbytes) {
+
+    if (offset < 0 || nbytes < 0) throw new IllegalArgumentException();
+
+    final ByteBuffer[] a = segments;
+
+    final int index = (int) (offset >>> segmentShift);
+
+    if (index >= a.length) return null;
+
+    final ByteBuffer segment = a[index];
+
+    final int pos = (int) (offset & (segmentSize - 1));
+
+    if (pos + nbytes > segment.capacity()) return null;
+
+    final ByteBuffer b = segment.duplicate();
+
+    b.limit(pos + nbytes);
+
+    b.position(pos);
+
+    return b.slice();
+  }
+
+  /*
+   * Extend the mapping to cover the given extent of the file. This is a NOP if that extent is
+   * already mapped. The caller must not invoke this method concurrently.
+   *
+   * @param newExtent The #of bytes of the file which should be mapped. This must not exceed the
+   *     length of the file.
+   */
+  void remap(final long newExtent) throws IOException {
+
+    if (newExtent <= extent) return;
+
+    final ByteBuffer[] a = segments;
+
+    // The first segment which is not fully mapped.
+    int first = a.length;
+
+    if (first > 0 && a[first - 1].capacity() < segmentSize + overlap) first--;
+
+    final int nsegments = (int) ((newExtent + segmentSize - 1) >>> segmentShift);
+
+    final ByteBuffer[] b = Arrays.copyOf(a, nsegments);
+
+    final FileChannel channel = opener.reopenChannel();
+
+    for (int i = first; i < nsegments; i++) {
+
+      final long pos = ((long) i) << segmentShift;
+
+      final long size = Math.min(segmentSize + overlap, newExtent - pos);
+
+      final MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, pos, size);
+
+      b[i] = segment;
+    }
+
+    segments = b;
+
+    extent = newExtent;
+
+    if (log.isInfoEnabled()) log.info("extent=" + newExtent + ", segments=" + nsegments);
+  }
+
+  /*
+   * Discard the segments. The mapped memory is released when the segments are garbage collected.
+   */
+  void close() {
+
+    segments = new ByteBuffer[0];
+
+    extent = 0L;
+  }
+}
@@ -377,6 +377,22 @@ public class MemStrategy implements IBufferStrategy, IRWStrategy, IAllocationMan
     return ByteBuffer.wrap(m_mmgr.read(addr));
   }
 
+  /** The records are buffered in memory, so they are simply read in turn. */
+  @Override
+  public ByteBuffer[] readBatch(final long[] addrs) {
+
+    if (addrs == null) throw new IllegalArgumentException();
+
+    final ByteBuffer[] a = new ByteBuffer[addrs.length];
+
+    for (int i = 0; i < addrs.length; i++) {
+
+      a[i] = read(addrs[i]);
+    }
+
+    return a;
+  }
+
   @Override
   public long size() {
     return getExtent();
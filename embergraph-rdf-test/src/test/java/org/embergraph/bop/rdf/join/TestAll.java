@@ -45,6 +45,8 @@ public class TestAll extends TestCase {
 
     suite.addTestSuite(TestDataSetJoin.class);
 
+    suite.addTestSuite(TestLeapfrogTriejoinOp.class);
+
     return suite;
   }
 }
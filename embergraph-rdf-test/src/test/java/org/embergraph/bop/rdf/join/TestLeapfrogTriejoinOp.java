@@ -0,0 +1,201 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.bop.rdf.join;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import junit.framework.TestCase2;
+import org.embergraph.bop.IVariable;
+import org.embergraph.bop.Var;
+import org.embergraph.btree.BTree;
+import org.embergraph.btree.IRangeQuery;
+import org.embergraph.btree.ITupleCursor;
+import org.embergraph.btree.IndexMetadata;
+import org.embergraph.btree.keys.IKeyBuilder;
+import org.embergraph.btree.keys.KeyBuilder;
+import org.embergraph.rdf.internal.IV;
+import org.embergraph.rdf.internal.IVUtility;
+import org.embergraph.rdf.internal.impl.literal.XSDNumericIV;
+
+/*
+ * Test suite for the {@link LeapfrogTriejoinOp} support classes.
+ *
+ * @see TestLeapfrogTriejoin
+ */
+public class TestLeapfrogTriejoinOp extends TestCase2 {
+
+  /** */
+  public TestLeapfrogTriejoinOp() {}
+
+  /** @param name */
+  public TestLeapfrogTriejoinOp(String name) {
+    super(name);
+  }
+
+  private final IVariable<?> a = Var.var("a");
+  private final IVariable<?> b = Var.var("b");
+  private final IVariable<?> c = Var.var("c");
+  private final IVariable<?> d = Var.var("d");
+  private final IVariable<?> n = Var.var("n");
+
+  /** A triangle is its own cyclic core. */
+  public void test_cyclicCore_triangle() {
+
+    assertEquals(
+        new int[] {0, 1, 2}, LeapfrogTriejoinOp.getCyclicCore(edges(vars(a, b), vars(b, c), vars(c, a))));
+  }
+
+  /** A 4-cycle is its own cyclic core. */
+  public void test_cyclicCore_square() {
+
+    assertEquals(
+        new int[] {0, 1, 2, 3},
+        LeapfrogTriejoinOp.getCyclicCore(
+            edges(vars(a, b), vars(b, c), vars(c, d), vars(d, a))));
+  }
+
+  /** A path is acyclic. */
+  public void test_cyclicCore_path() {
+
+    assertEquals(
+        0, LeapfrogTriejoinOp.getCyclicCore(edges(vars(a, b), vars(b, c), vars(c, d))).length);
+  }
+
+  /** A star is acyclic. */
+  public void test_cyclicCore_star() {
+
+    assertEquals(
+        0, LeapfrogTriejoinOp.getCyclicCore(edges(vars(a, b), vars(a, c), vars(a, n))).length);
+  }
+
+  /** A triangle which is covered by a single edge is (alpha) acyclic. */
+  public void test_cyclicCore_coveredTriangle() {
+
+    assertEquals(
+        0,
+        LeapfrogTriejoinOp.getCyclicCore(
+                edges(vars(a, b), vars(b, c), vars(c, a), vars(a, b, c)))
+            .length);
+  }
+
+  /** The edges hanging off of a triangle are not part of the cyclic core. */
+  public void test_cyclicCore_triangleWithDanglingEdges() {
+
+    assertEquals(
+        new int[] {1, 2, 4},
+        LeapfrogTriejoinOp.getCyclicCore(
+            edges(vars(a, n), vars(a, b), vars(b, c), vars(n), vars(c, a), vars(d, c))));
+  }
+
+  /*
+   * A trie over a statement index for <code>(?s, 10, ?o)</code> in the order <code>?s, ?o</code>.
+   * The constant follows the first variable in the key, so the subjects which do not have that
+   * predicate are skipped.
+   */
+  public void test_tupleCursorTrieIterator_skipScan() {
+
+    final BTree ndx = BTree.createTransient(new IndexMetadata(UUID.randomUUID()));
+
+    insert(ndx, 1, 10, 100);
+    insert(ndx, 1, 20, 200);
+    insert(ndx, 2, 10, 101);
+    insert(ndx, 3, 20, 300);
+    insert(ndx, 4, 10, 102);
+    insert(ndx, 4, 10, 103);
+    insert(ndx, 5, 20, 500);
+
+    final ITupleCursor<?> cursor =
+        (ITupleCursor<?>)
+            ndx.rangeIterator(
+                null /* fromKey */,
+                null /* toKey */,
+                0 /* capacity */,
+                IRangeQuery.KEYS | IRangeQuery.CURSOR,
+                null /* filter */);
+
+    final ITrieIterator itr =
+        new TupleCursorTrieIterator(
+            cursor,
+            new byte[0] /* fromKey */,
+            null /* toKey */,
+            new byte[][] {LeapfrogTriejoinOp.encode(iv(10)), new byte[0]});
+
+    itr.open();
+    assertEquals(iv(1), itr.value());
+
+    itr.open();
+    assertEquals(iv(100), itr.value());
+    itr.next();
+    assertTrue(itr.atEnd());
+    itr.up();
+
+    itr.next();
+    assertEquals(iv(2), itr.value());
+
+    // Note: 3 does not have the predicate.
+    itr.seek(LeapfrogTriejoinOp.encode(iv(3)));
+    assertEquals(iv(4), itr.value());
+
+    itr.open();
+    assertEquals(iv(102), itr.value());
+    itr.next();
+    assertEquals(iv(103), itr.value());
+    itr.next();
+    assertTrue(itr.atEnd());
+    itr.up();
+
+    // Note: 5 does not have the predicate.
+    itr.next();
+    assertTrue(itr.atEnd());
+    itr.up();
+
+    // The first level starts over each time it is opened.
+    itr.open();
+    assertEquals(iv(1), itr.value());
+  }
+
+  private static void insert(final BTree ndx, final int s, final int p, final int o) {
+
+    final IKeyBuilder keyBuilder = new KeyBuilder();
+
+    IVUtility.encode(keyBuilder, iv(s));
+    IVUtility.encode(keyBuilder, iv(p));
+    IVUtility.encode(keyBuilder, iv(o));
+
+    ndx.insert(keyBuilder.getKey(), new byte[0]);
+  }
+
+  private static IV<?, ?> iv(final int i) {
+
+    return new XSDNumericIV<>(i);
+  }
+
+  private static Set<IVariable<?>> vars(final IVariable<?>... vars) {
+
+    return new LinkedHashSet<>(Arrays.asList(vars));
+  }
+
+  @SafeVarargs
+  private static List<Set<IVariable<?>>> edges(final Set<IVariable<?>>... edges) {
+
+    return Arrays.asList(edges);
+  }
+}
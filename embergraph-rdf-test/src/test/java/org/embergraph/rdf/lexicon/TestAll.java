@@ -78,6 +78,9 @@ public class TestAll extends TestCase {
     // integration test suite for the vocabulary models.
     suite.addTestSuite(TestVocabulary.class);
 
+    // test suite for the vocabulary extended by a sampled dictionary.
+    suite.addTestSuite(TestDictionaryVocabulary.class);
+
     // test suite for the completion scan (prefix match for literals).
     suite.addTestSuite(TestCompletionScan.class);
 
@@ -90,6 +93,12 @@ public class TestAll extends TestCase {
     // test suite for the IV cache, including serialization of cached vals.
     suite.addTestSuite(TestIVCache.class);
 
+    // test suite for the term cache shared across namespaces.
+    suite.addTestSuite(TestGlobalTermCache.class);
+
+    // test suite for coalescing the concurrent resolution of the same IVs.
+    suite.addTestSuite(TestTermResolutionCoalescer.class);
+
     // test suite for access paths reading on the TERMS index.
     suite.addTestSuite(TestAccessPaths.class);
 
@@ -0,0 +1,214 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.rdf.lexicon;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import org.embergraph.rdf.axioms.NoAxioms;
+import org.embergraph.rdf.internal.IV;
+import org.embergraph.rdf.model.EmbergraphURI;
+import org.embergraph.rdf.model.EmbergraphValue;
+import org.embergraph.rdf.model.EmbergraphValueFactory;
+import org.embergraph.rdf.store.AbstractTripleStore;
+import org.embergraph.rdf.store.AbstractTripleStore.Options;
+import org.embergraph.rdf.store.AbstractTripleStoreTestCase;
+import org.embergraph.rdf.store.VocabularySampler;
+import org.embergraph.rdf.vocab.DictionaryVocabulary;
+import org.embergraph.rdf.vocab.RDFSVocabulary;
+import org.embergraph.rdf.vocab.Vocabulary;
+import org.openrdf.model.URI;
+import org.openrdf.model.impl.URIImpl;
+import org.openrdf.model.vocabulary.RDF;
+
+/*
+ * Test suite for the {@link DictionaryVocabulary} and the {@link VocabularySampler}.
+ *
+ * @see DictionaryVocabulary
+ */
+public class TestDictionaryVocabulary extends AbstractTripleStoreTestCase {
+
+  public TestDictionaryVocabulary() {}
+
+  public TestDictionaryVocabulary(final String name) {
+    super(name);
+  }
+
+  private static final String NS = "http://www.embergraph.org/";
+
+  private static final URI A = new URIImpl(NS + "a");
+
+  private static final URI B = new URIImpl(NS + "b");
+
+  private static final URI P = new URIImpl(NS + "p");
+
+  private static final URI ONCE = new URIImpl(NS + "once");
+
+  /*
+   * Writes an N-Triples file in which <code>a</code> is used more often than <code>p</code>, which
+   * is used more often than <code>b</code>, and <code>once</code> is used only once.
+   */
+  private File writeSample() throws IOException {
+
+    final File file = File.createTempFile(getName(), ".nt");
+
+    file.deleteOnExit();
+
+    try (final Writer w =
+        new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+
+      w.write("<" + A + "> <" + P + "> <" + B + "> .\n");
+      w.write("<" + A + "> <" + P + "> \"x\" .\n");
+      w.write("<" + B + "> <" + P + "> <" + A + "> .\n");
+      w.write("<" + A + "> <" + RDF.TYPE + "> <" + ONCE + "> .\n");
+    }
+
+    return file;
+  }
+
+  /** The dictionary is ordered by decreasing frequency and omits URIs used only once. */
+  public void test_sampleFile() throws IOException {
+
+    final File file = writeSample();
+
+    try {
+
+      final VocabularySampler sampler = new VocabularySampler(1000, null /* exclude */);
+
+      sampler.sample(file, null /* baseURI */, null /* rdfFormat */, null /* filter */);
+
+      assertEquals(4L, sampler.getStatementCount());
+
+      final List<URI> dictionary = sampler.getDictionary(10);
+
+      assertEquals(3, dictionary.size());
+
+      assertEquals(A, dictionary.get(0));
+
+      assertEquals(P, dictionary.get(1));
+
+      assertEquals(B, dictionary.get(2));
+
+      // truncated to the requested size.
+      assertEquals(1, sampler.getDictionary(1).size());
+
+    } finally {
+
+      file.delete();
+    }
+  }
+
+  /** The sample stops once the maximum #of statements has been sampled. */
+  public void test_sampleFile_maxStatements() throws IOException {
+
+    final File file = writeSample();
+
+    try {
+
+      final VocabularySampler sampler = new VocabularySampler(2, null /* exclude */);
+
+      sampler.sample(file, null /* baseURI */, null /* rdfFormat */, null /* filter */);
+
+      assertEquals(2L, sampler.getStatementCount());
+
+      assertTrue(sampler.isFull());
+
+    } finally {
+
+      file.delete();
+    }
+  }
+
+  /*
+   * A KB instance created with a dictionary inlines the dictionary URIs as vocabulary items, keeps
+   * the items of the base vocabulary, and persists the dictionary with the vocabulary.
+   */
+  public void test_createWithDictionary() throws IOException {
+
+    final File file = File.createTempFile(getName(), ".txt");
+
+    file.deleteOnExit();
+
+    DictionaryVocabulary.writeDictionary(Arrays.asList(A, P, RDF.TYPE), file);
+
+    final Properties properties = getProperties();
+
+    properties.setProperty(Options.VOCABULARY_CLASS, RDFSVocabulary.class.getName());
+
+    properties.setProperty(Options.VOCABULARY_DICTIONARY, file.getAbsolutePath());
+
+    properties.setProperty(Options.AXIOMS_CLASS, NoAxioms.class.getName());
+
+    AbstractTripleStore store = getStore(properties);
+
+    try {
+
+      final Vocabulary vocab = store.getVocabulary();
+
+      assertTrue(vocab instanceof DictionaryVocabulary);
+
+      assertEquals(RDFSVocabulary.class, ((DictionaryVocabulary) vocab).getBaseClass());
+
+      // the base vocabulary items are declared.
+      assertNotNull(vocab.get(RDF.TYPE));
+
+      // the dictionary URIs are inlined.
+      final IV<?, ?> ivA = vocab.get(A);
+
+      assertNotNull(ivA);
+
+      assertTrue(ivA.isInline());
+
+      assertNotNull(vocab.get(P));
+
+      // but not other URIs.
+      assertNull(vocab.get(B));
+
+      // the lexicon uses the vocabulary IV for a dictionary URI.
+      final EmbergraphValueFactory f = store.getValueFactory();
+
+      final EmbergraphURI a = f.asValue(A);
+
+      store.addTerms(new EmbergraphValue[] {a});
+
+      assertEquals(ivA, a.getIV());
+
+      // verify (de-)serialization.
+      TestVocabulary.doRoundTripTest(vocab);
+
+      if (store.isStable()) {
+
+        store = reopenStore(store);
+
+        TestVocabulary.assertSameVocabulary(vocab, store.getVocabulary());
+      }
+
+    } finally {
+
+      store.__tearDownUnitTest();
+
+      file.delete();
+    }
+  }
+}
@@ -0,0 +1,254 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.rdf.lexicon;
+
+import java.util.Properties;
+import junit.framework.TestCase2;
+import org.embergraph.counters.CounterSet;
+import org.embergraph.counters.ICounter;
+import org.embergraph.journal.BufferMode;
+import org.embergraph.journal.Journal;
+import org.embergraph.rdf.internal.IV;
+import org.embergraph.rdf.internal.VTE;
+import org.embergraph.rdf.internal.impl.TermId;
+import org.embergraph.rdf.model.EmbergraphURI;
+import org.embergraph.rdf.model.EmbergraphValue;
+import org.embergraph.rdf.model.EmbergraphValueFactory;
+import org.embergraph.rdf.model.EmbergraphValueFactoryImpl;
+
+/*
+ * Test suite for {@link GlobalTermCache}.
+ *
+ * @see GlobalTermCache
+ */
+public class TestGlobalTermCache extends TestCase2 {
+
+  public TestGlobalTermCache() {}
+
+  public TestGlobalTermCache(final String name) {
+    super(name);
+  }
+
+  /** Basic get/putIfAbsent semantics and isolation of the namespaces. */
+  public void test_getPut() {
+
+    doGetPutTest(false /* offHeap */);
+  }
+
+  /** Basic get/putIfAbsent semantics with the values stored in native memory. */
+  public void test_getPut_offHeap() {
+
+    doGetPutTest(true /* offHeap */);
+  }
+
+  private void doGetPutTest(final boolean offHeap) {
+
+    final GlobalTermCache cache = new GlobalTermCache(1024 * 1024, offHeap);
+
+    try {
+
+      final EmbergraphValueFactory vf1 = EmbergraphValueFactoryImpl.getInstance(getName() + "1");
+
+      final EmbergraphValueFactory vf2 = EmbergraphValueFactoryImpl.getInstance(getName() + "2");
+
+      final ITermCache<IV<?, ?>, EmbergraphValue> view1 = cache.getView(getName() + "1", vf1);
+
+      final ITermCache<IV<?, ?>, EmbergraphValue> view2 = cache.getView(getName() + "2", vf2);
+
+      final TermId<EmbergraphURI> iv = new TermId<>(VTE.URI, 12L);
+
+      final EmbergraphURI a = vf1.createURI("http://www.embergraph.org/a");
+
+      a.setIV(iv);
+
+      assertNull(view1.get(iv));
+
+      assertNull(view1.putIfAbsent(iv, a));
+
+      final EmbergraphValue b = view1.get(iv);
+
+      assertNotNull(b);
+
+      assertEquals(a, b);
+
+      assertEquals(iv, b.getIV());
+
+      // The existing value is returned.
+      final EmbergraphURI c = vf1.createURI("http://www.embergraph.org/a");
+
+      c.setIV(iv);
+
+      assertEquals(a, view1.putIfAbsent(iv, c));
+
+      // Not visible to another namespace.
+      assertNull(view2.get(iv));
+
+      assertEquals(1, cache.size());
+
+      assertTrue(cache.getBytes() > 0);
+
+      final CounterSet counters = cache.getCounters();
+
+      assertEquals(1L, getCounterValue(counters, "hits"));
+
+      assertEquals(2L, getCounterValue(counters, "misses"));
+
+      // Clearing the namespace discards its entries.
+      cache.clear(getName() + "1");
+
+      assertEquals(0, cache.size());
+
+      assertEquals(0L, cache.getBytes());
+
+      assertNull(cache.getView(getName() + "1", vf1).get(iv));
+
+    } finally {
+
+      cache.close();
+    }
+  }
+
+  /*
+   * Verify that the cache stays within its budget and that a stream of terms which are never
+   * requested does not displace the terms which are requested frequently.
+   */
+  public void test_admission() {
+
+    // Room for a few entries per segment.
+    final long maxBytes = GlobalTermCache.SEGMENT_COUNT * 1024;
+
+    final GlobalTermCache cache = new GlobalTermCache(maxBytes, false /* offHeap */);
+
+    final EmbergraphValueFactory vf = EmbergraphValueFactoryImpl.getInstance(getName());
+
+    final ITermCache<IV<?, ?>, EmbergraphValue> view = cache.getView(getName(), vf);
+
+    final int nhot = 8;
+
+    for (int i = 0; i < nhot; i++) {
+
+      final TermId<EmbergraphURI> iv = new TermId<>(VTE.URI, i + 1);
+
+      for (int j = 0; j < 5; j++) {
+
+        assertNull(view.get(iv));
+      }
+
+      view.putIfAbsent(iv, newURI(vf, iv));
+    }
+
+    final int nhotCached = cache.size();
+
+    assertTrue(nhotCached > 0);
+
+    // A scan over terms which are only written.
+    for (int i = 0; i < 10000; i++) {
+
+      final TermId<EmbergraphURI> iv = new TermId<>(VTE.URI, nhot + i + 1);
+
+      view.putIfAbsent(iv, newURI(vf, iv));
+
+      assertTrue(cache.getBytes() <= maxBytes);
+    }
+
+    // The hot terms are still cached.
+    int n = 0;
+
+    for (int i = 0; i < nhot; i++) {
+
+      if (view.get(new TermId<EmbergraphURI>(VTE.URI, i + 1)) != null) n++;
+    }
+
+    assertEquals(nhotCached, n);
+
+    final CounterSet counters = cache.getCounters();
+
+    assertTrue(getCounterValue(counters, "rejected") > 0);
+
+    // Terms which are requested more often than the cached terms displace them.
+    for (int i = 0; i < 1000; i++) {
+
+      final TermId<EmbergraphURI> iv = new TermId<>(VTE.URI, 100000 + i);
+
+      for (int j = 0; j < 10; j++) {
+
+        view.get(iv);
+      }
+
+      view.putIfAbsent(iv, newURI(vf, iv));
+
+      assertTrue(cache.getBytes() <= maxBytes);
+    }
+
+    assertTrue(getCounterValue(counters, "evictions") > 0);
+  }
+
+  /** The cache is shared by the views on a journal and is closed when that journal is closed. */
+  public void test_closeWithJournal() {
+
+    final Properties properties = new Properties();
+
+    properties.setProperty(Journal.Options.BUFFER_MODE, BufferMode.MemStore.toString());
+
+    final Journal journal = new Journal(properties);
+
+    final GlobalTermCache cache;
+
+    try {
+
+      cache = GlobalTermCache.getInstance(journal, 1024 * 1024, true /* offHeap */);
+
+      assertTrue(cache == GlobalTermCache.getInstance(journal, 1024 * 1024, true /* offHeap */));
+
+      assertTrue(cache.isOpen());
+
+    } finally {
+
+      journal.destroy();
+    }
+
+    assertFalse(cache.isOpen());
+
+    // A view of the closed cache neither admits nor finds any entries.
+    final EmbergraphValueFactory vf = EmbergraphValueFactoryImpl.getInstance(getName());
+
+    final ITermCache<IV<?, ?>, EmbergraphValue> view = cache.getView(getName(), vf);
+
+    final TermId<EmbergraphURI> iv = new TermId<>(VTE.URI, 1L);
+
+    assertNull(view.putIfAbsent(iv, newURI(vf, iv)));
+
+    assertNull(view.get(iv));
+
+    assertEquals(0, cache.size());
+  }
+
+  private static EmbergraphURI newURI(final EmbergraphValueFactory vf, final IV<?, ?> iv) {
+
+    final EmbergraphURI uri = vf.createURI("http://www.embergraph.org/term/" + iv);
+
+    uri.setIV(iv);
+
+    return uri;
+  }
+
+  private static long getCounterValue(final CounterSet counters, final String path) {
+
+    return ((Long) ((ICounter<?>) counters.getPath(path)).getInstrument().getValue()).longValue();
+  }
+}
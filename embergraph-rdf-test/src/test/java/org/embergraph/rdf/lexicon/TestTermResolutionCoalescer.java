@@ -0,0 +1,185 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.rdf.lexicon;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import junit.framework.TestCase2;
+import org.embergraph.counters.CounterSet;
+import org.embergraph.counters.ICounter;
+import org.embergraph.rdf.internal.IV;
+import org.embergraph.rdf.internal.VTE;
+import org.embergraph.rdf.internal.impl.TermId;
+import org.embergraph.rdf.model.EmbergraphURI;
+import org.embergraph.rdf.model.EmbergraphValue;
+import org.embergraph.rdf.model.EmbergraphValueFactory;
+import org.embergraph.rdf.model.EmbergraphValueFactoryImpl;
+
+/*
+ * Test suite for {@link TermResolutionCoalescer}.
+ *
+ * @see TermResolutionCoalescer
+ */
+public class TestTermResolutionCoalescer extends TestCase2 {
+
+  public TestTermResolutionCoalescer() {}
+
+  public TestTermResolutionCoalescer(final String name) {
+    super(name);
+  }
+
+  /*
+   * The second claim on an {@link IV} waits for the value resolved by the first, and an {@link IV}
+   * which was not found is not reported.
+   */
+  public void test_claimComplete() {
+
+    final TermResolutionCoalescer fixture = new TermResolutionCoalescer();
+
+    final EmbergraphValueFactory vf = EmbergraphValueFactoryImpl.getInstance(getName());
+
+    final TermId<EmbergraphURI> iv1 = new TermId<>(VTE.URI, 1L);
+
+    final TermId<EmbergraphURI> iv2 = new TermId<>(VTE.URI, 2L);
+
+    final EmbergraphURI value1 = vf.createURI("http://www.embergraph.org/a");
+
+    value1.setIV(iv1);
+
+    // The first caller claims both IVs.
+    final Map<IV<?, ?>, CompletableFuture<EmbergraphValue>> owned = new HashMap<>();
+
+    assertNull(fixture.claim(iv1, owned));
+
+    assertNull(fixture.claim(iv2, owned));
+
+    assertEquals(2, owned.size());
+
+    // The second caller finds them in flight.
+    final Map<IV<?, ?>, CompletableFuture<EmbergraphValue>> owned2 = new HashMap<>();
+
+    final Map<IV<?, ?>, CompletableFuture<EmbergraphValue>> pending = new HashMap<>();
+
+    pending.put(iv1, fixture.claim(iv1, owned2));
+
+    pending.put(iv2, fixture.claim(new TermId<EmbergraphURI>(VTE.URI, 2L), owned2));
+
+    assertTrue(owned2.isEmpty());
+
+    assertNotNull(pending.get(iv1));
+
+    assertNotNull(pending.get(iv2));
+
+    assertEquals(2, fixture.getInFlightCount());
+
+    // The first caller publishes its results (iv2 was not found).
+    final Map<IV<?, ?>, EmbergraphValue> ret = new ConcurrentHashMap<>();
+
+    ret.put(iv1, value1);
+
+    fixture.complete(owned, ret);
+
+    assertEquals(0, fixture.getInFlightCount());
+
+    // The second caller sees the same results.
+    final Map<IV<?, ?>, EmbergraphValue> ret2 = new ConcurrentHashMap<>();
+
+    TermResolutionCoalescer.await(pending, ret2);
+
+    assertEquals(1, ret2.size());
+
+    assertSame(value1, ret2.get(iv1));
+
+    assertEquals(2L, fixture.getClaimedCount());
+
+    assertEquals(2L, fixture.getCoalescedCount());
+
+    // The counts are also reported as performance counters.
+    final CounterSet counters = fixture.getCounters();
+
+    assertEquals(2L, ((ICounter<?>) counters.getPath("claimed")).getInstrument().getValue());
+
+    assertEquals(2L, ((ICounter<?>) counters.getPath("coalesced")).getInstrument().getValue());
+
+    // Nothing is in flight, so the IV may be claimed again.
+    assertNull(fixture.claim(iv1, new HashMap<>()));
+  }
+
+  /** A failure to resolve the claimed {@link IV}s is reported to the waiting callers. */
+  public void test_fail() {
+
+    final TermResolutionCoalescer fixture = new TermResolutionCoalescer();
+
+    final TermId<EmbergraphURI> iv = new TermId<>(VTE.URI, 1L);
+
+    final Map<IV<?, ?>, CompletableFuture<EmbergraphValue>> owned = new HashMap<>();
+
+    assertNull(fixture.claim(iv, owned));
+
+    final Map<IV<?, ?>, CompletableFuture<EmbergraphValue>> pending = new HashMap<>();
+
+    pending.put(iv, fixture.claim(iv, new HashMap<>()));
+
+    fixture.fail(owned, new IllegalStateException());
+
+    assertEquals(0, fixture.getInFlightCount());
+
+    try {
+
+      TermResolutionCoalescer.await(pending, new ConcurrentHashMap<>());
+
+      fail("Expecting: " + RuntimeException.class);
+
+    } catch (RuntimeException ex) {
+
+      assertTrue(ex.getCause() instanceof IllegalStateException);
+    }
+  }
+
+  /** An interrupt while waiting for another thread is reported and the interrupt is preserved. */
+  public void test_await_interrupted() {
+
+    final TermResolutionCoalescer fixture = new TermResolutionCoalescer();
+
+    final TermId<EmbergraphURI> iv = new TermId<>(VTE.URI, 1L);
+
+    assertNull(fixture.claim(iv, new HashMap<>()));
+
+    final Map<IV<?, ?>, CompletableFuture<EmbergraphValue>> pending = new HashMap<>();
+
+    pending.put(iv, fixture.claim(iv, new HashMap<>()));
+
+    Thread.currentThread().interrupt();
+
+    try {
+
+      TermResolutionCoalescer.await(pending, new ConcurrentHashMap<>());
+
+      fail("Expecting: " + RuntimeException.class);
+
+    } catch (RuntimeException ex) {
+
+      assertTrue(ex.getCause() instanceof InterruptedException);
+
+      // The interrupt flag was restored (and is cleared here).
+      assertTrue(Thread.interrupted());
+    }
+  }
+}
@@ -0,0 +1,118 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.rdf.sparql.ast.eval;
+
+import java.util.List;
+import java.util.Properties;
+import org.embergraph.bop.BOpUtility;
+import org.embergraph.bop.joinGraph.rto.AdaptiveJoinGraph;
+import org.embergraph.rdf.sparql.ast.ASTContainer;
+import org.embergraph.rdf.sparql.ast.QueryHints;
+import org.embergraph.rdf.sparql.ast.QueryOptimizerEnum;
+import org.embergraph.rdf.store.AbstractTripleStore;
+
+/*
+ * Data driven test suite for the adaptive join order optimizer.
+ *
+ * @see QueryOptimizerEnum#Adaptive
+ * @see QueryHints#ADAPTIVE_ERROR_FACTOR
+ */
+public class TestAdaptiveJoinGraph extends AbstractDataDrivenSPARQLTestCase {
+
+  /** */
+  public TestAdaptiveJoinGraph() {}
+
+  /** @param name */
+  public TestAdaptiveJoinGraph(String name) {
+    super(name);
+  }
+
+  @Override
+  public Properties getProperties() {
+
+    final Properties properties = new Properties(super.getProperties());
+
+    // turn off quads.
+    properties.setProperty(AbstractTripleStore.Options.QUADS, "false");
+
+    // turn on triples
+    properties.setProperty(AbstractTripleStore.Options.TRIPLES_MODE, "true");
+
+    return properties;
+  }
+
+  /*
+   * A chain of three statement patterns is evaluated by an {@link AdaptiveJoinGraph} in the static
+   * join order.
+   *
+   * <pre>
+   * SELECT ?a ?b ?n
+   * WHERE {
+   *    hint:Query hint:optimizer "Adaptive" .
+   *    ?a :knows ?b .
+   *    ?b :worksFor ?c .
+   *    ?c :name ?n .
+   * }
+   * </pre>
+   */
+  public void test_adaptive_join_01() throws Exception {
+
+    final ASTContainer astContainer =
+        new TestHelper(
+                "adaptive-join-01", // testURI,
+                "adaptive-join-01.rq", // queryFileURL
+                "adaptive-join-01.ttl", // dataFileURL
+                "adaptive-join-01.srx" // resultFileURL
+                )
+            .runTest();
+
+    final List<AdaptiveJoinGraph> ops =
+        BOpUtility.toList(astContainer.getQueryPlan(), AdaptiveJoinGraph.class);
+
+    assertEquals(1, ops.size());
+
+    final AdaptiveJoinGraph op = ops.get(0);
+
+    assertEquals(3, op.getVertices().length);
+
+    assertEquals(3, op.getEstimates().length);
+
+    assertEquals(QueryHints.DEFAULT_ADAPTIVE_ERROR_FACTOR, op.getErrorFactor());
+  }
+
+  /*
+   * Variant of the test above with an error factor of one, so the remaining joins are re-ordered
+   * whenever a live estimate differs from the static estimate. The same solutions are produced.
+   */
+  public void test_adaptive_join_01a() throws Exception {
+
+    final ASTContainer astContainer =
+        new TestHelper(
+                "adaptive-join-01a", // testURI,
+                "adaptive-join-01a.rq", // queryFileURL
+                "adaptive-join-01.ttl", // dataFileURL
+                "adaptive-join-01.srx" // resultFileURL
+                )
+            .runTest();
+
+    final AdaptiveJoinGraph op =
+        BOpUtility.toList(astContainer.getQueryPlan(), AdaptiveJoinGraph.class).get(0);
+
+    assertEquals(1, op.getErrorFactor());
+  }
+}
@@ -102,6 +102,15 @@ public class TestAll extends TestCase {
     // Test suite for a merge join pattern
     suite.addTestSuite(TestMergeJoin.class);
 
+    // Test suite for the worst-case optimal multiway join of cyclic patterns.
+    suite.addTestSuite(TestLeapfrogTriejoin.class);
+
+    // Test suite for sort-merge joins of statement patterns.
+    suite.addTestSuite(TestSortMergeJoin.class);
+
+    // Test suite for the adaptive join order optimizer.
+    suite.addTestSuite(TestAdaptiveJoinGraph.class);
+
     // Test suite for explain hint annotationss
     suite.addTestSuite(TestExplainHints.class);
 
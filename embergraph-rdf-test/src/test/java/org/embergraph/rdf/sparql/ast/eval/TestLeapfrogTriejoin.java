@@ -0,0 +1,149 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.rdf.sparql.ast.eval;
+
+import java.util.List;
+import java.util.Properties;
+import org.embergraph.bop.BOpUtility;
+import org.embergraph.bop.join.PipelineJoin;
+import org.embergraph.bop.rdf.join.LeapfrogTriejoinOp;
+import org.embergraph.rdf.sparql.ast.ASTContainer;
+import org.embergraph.rdf.sparql.ast.QueryHints;
+import org.embergraph.rdf.store.AbstractTripleStore;
+
+/*
+ * Data driven test suite for the {@link LeapfrogTriejoinOp} (triples mode).
+ *
+ * @see QueryHints#LEAPFROG_TRIEJOIN
+ */
+public class TestLeapfrogTriejoin extends AbstractDataDrivenSPARQLTestCase {
+
+  /** */
+  public TestLeapfrogTriejoin() {}
+
+  /** @param name */
+  public TestLeapfrogTriejoin(String name) {
+    super(name);
+  }
+
+  @Override
+  public Properties getProperties() {
+
+    final Properties properties = new Properties(super.getProperties());
+
+    // turn off quads.
+    properties.setProperty(AbstractTripleStore.Options.QUADS, "false");
+
+    // turn on triples
+    properties.setProperty(AbstractTripleStore.Options.TRIPLES_MODE, "true");
+
+    return properties;
+  }
+
+  /*
+   * A triangle query. The three statement patterns form the cyclic core of the join group and are
+   * evaluated by a single multiway join (enabled with a query hint). Each statement pattern is read
+   * from a statement index in the variable order chosen by the query planner.
+   *
+   * <pre>
+   * SELECT ?a ?b ?c
+   * WHERE {
+   *    ?a :knows ?b .
+   *    ?b :knows ?c .
+   *    ?c :knows ?a .
+   * }
+   * </pre>
+   */
+  public void test_leapfrog_triejoin_01() throws Exception {
+
+    final ASTContainer astContainer =
+        new TestHelper(
+                "leapfrog-triejoin-01", // testURI,
+                "leapfrog-triejoin-01.rq", // queryFileURL
+                "leapfrog-triejoin-01.ttl", // dataFileURL
+                "leapfrog-triejoin-01.srx" // resultFileURL
+                )
+            .runTest();
+
+    final List<LeapfrogTriejoinOp> ops =
+        BOpUtility.toList(astContainer.getQueryPlan(), LeapfrogTriejoinOp.class);
+
+    assertEquals(1, ops.size());
+
+    assertEquals(3, ops.get(0).getVariableOrder().length);
+
+    assertFalse(
+        BOpUtility.visitAll(astContainer.getQueryPlan(), PipelineJoin.class).hasNext());
+  }
+
+  /*
+   * Variant of the test above in which the multiway join is explicitly disabled with a query hint
+   * (this is also the default). The same solutions are produced by the pipeline joins.
+   */
+  public void test_leapfrog_triejoin_01a() throws Exception {
+
+    final ASTContainer astContainer =
+        new TestHelper(
+                "leapfrog-triejoin-01a", // testURI,
+                "leapfrog-triejoin-01a.rq", // queryFileURL
+                "leapfrog-triejoin-01.ttl", // dataFileURL
+                "leapfrog-triejoin-01.srx" // resultFileURL
+                )
+            .runTest();
+
+    assertFalse(
+        "Multiway join should have been suppressed",
+        BOpUtility.visitAll(astContainer.getQueryPlan(), LeapfrogTriejoinOp.class).hasNext());
+  }
+
+  /*
+   * A triangle with an acyclic statement pattern hanging off of one of its vertices and a join
+   * filter. Only the triangle is evaluated by the multiway join. The other statement pattern is
+   * joined afterwards.
+   *
+   * <pre>
+   * SELECT ?a ?b ?c ?n
+   * WHERE {
+   *    ?a :knows ?b .
+   *    ?b :knows ?c .
+   *    ?c :knows ?a .
+   *    ?a :name ?n .
+   *    FILTER (?a != :c)
+   * }
+   * </pre>
+   */
+  public void test_leapfrog_triejoin_02() throws Exception {
+
+    final ASTContainer astContainer =
+        new TestHelper(
+                "leapfrog-triejoin-02", // testURI,
+                "leapfrog-triejoin-02.rq", // queryFileURL
+                "leapfrog-triejoin-01.ttl", // dataFileURL
+                "leapfrog-triejoin-02.srx" // resultFileURL
+                )
+            .runTest();
+
+    final LeapfrogTriejoinOp op =
+        BOpUtility.toList(astContainer.getQueryPlan(), LeapfrogTriejoinOp.class).get(0);
+
+    assertEquals(3, op.getPredicates().length);
+
+    assertEquals(
+        1, BOpUtility.toList(astContainer.getQueryPlan(), PipelineJoin.class).size());
+  }
+}
@@ -0,0 +1,115 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.rdf.sparql.ast.eval;
+
+import java.util.Properties;
+import org.embergraph.bop.BOpUtility;
+import org.embergraph.bop.Var;
+import org.embergraph.bop.join.PipelineJoin;
+import org.embergraph.bop.rdf.join.LeapfrogTriejoinOp;
+import org.embergraph.rdf.sparql.ast.ASTContainer;
+import org.embergraph.rdf.sparql.ast.QueryHints;
+import org.embergraph.rdf.store.AbstractTripleStore;
+
+/*
+ * Data driven test suite for sort-merge joins of statement patterns (triples mode).
+ *
+ * @see QueryHints#SORT_MERGE_JOIN
+ */
+public class TestSortMergeJoin extends AbstractDataDrivenSPARQLTestCase {
+
+  /** */
+  public TestSortMergeJoin() {}
+
+  /** @param name */
+  public TestSortMergeJoin(String name) {
+    super(name);
+  }
+
+  @Override
+  public Properties getProperties() {
+
+    final Properties properties = new Properties(super.getProperties());
+
+    // turn off quads.
+    properties.setProperty(AbstractTripleStore.Options.QUADS, "false");
+
+    // turn on triples
+    properties.setProperty(AbstractTripleStore.Options.TRIPLES_MODE, "true");
+
+    return properties;
+  }
+
+  /*
+   * Two statement patterns sharing the subject are evaluated by a single merge join on the subject
+   * (enabled with a query hint). Both statement patterns are read from the SPO index, skipping over
+   * the other predicates.
+   *
+   * <pre>
+   * SELECT ?s ?o1 ?o2
+   * WHERE {
+   *    hint:Query hint:sortMergeJoin "true" .
+   *    hint:Query hint:sortMergeJoinThreshold "0" .
+   *    ?s :p1 ?o1 .
+   *    ?s :p2 ?o2 .
+   * }
+   * </pre>
+   */
+  public void test_sort_merge_join_01() throws Exception {
+
+    final ASTContainer astContainer =
+        new TestHelper(
+                "sort-merge-join-01", // testURI,
+                "sort-merge-join-01.rq", // queryFileURL
+                "sort-merge-join-01.ttl", // dataFileURL
+                "sort-merge-join-01.srx" // resultFileURL
+                )
+            .runTest();
+
+    final LeapfrogTriejoinOp op =
+        BOpUtility.toList(astContainer.getQueryPlan(), LeapfrogTriejoinOp.class).get(0);
+
+    assertEquals(2, op.getPredicates().length);
+
+    // The join variable is bound first.
+    assertEquals(Var.var("s"), op.getVariableOrder()[0]);
+
+    assertFalse(
+        BOpUtility.visitAll(astContainer.getQueryPlan(), PipelineJoin.class).hasNext());
+  }
+
+  /*
+   * Variant of the test above in which the merge join is explicitly disabled with a query hint
+   * (this is also the default). The same solutions are produced by the pipeline joins.
+   */
+  public void test_sort_merge_join_01a() throws Exception {
+
+    final ASTContainer astContainer =
+        new TestHelper(
+                "sort-merge-join-01a", // testURI,
+                "sort-merge-join-01a.rq", // queryFileURL
+                "sort-merge-join-01.ttl", // dataFileURL
+                "sort-merge-join-01.srx" // resultFileURL
+                )
+            .runTest();
+
+    assertFalse(
+        "Merge join should have been suppressed",
+        BOpUtility.visitAll(astContainer.getQueryPlan(), LeapfrogTriejoinOp.class).hasNext());
+  }
+}
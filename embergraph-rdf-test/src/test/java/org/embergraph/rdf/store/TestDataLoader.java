@@ -22,6 +22,9 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.Properties;
+import org.embergraph.counters.CounterSet;
+import org.embergraph.counters.ICounter;
+import org.embergraph.rdf.rio.RDFParserOptions;
 import org.embergraph.rdf.store.DataLoader.ClosureEnum;
 import org.embergraph.rdf.store.DataLoader.CommitEnum;
 import org.embergraph.util.InnerCause;
@@ -316,6 +319,334 @@ public class TestDataLoader extends AbstractTripleStoreTestCase {
     }
   }
 
+  /*
+   * Test durable queues using {@link CommitEnum#Batch} and {@link ClosureEnum#None} with several
+   * parser threads.
+   *
+   * @see DataLoader.Options#PARSER_THREADS
+   */
+  public void test_durableQueues03_pipelined_batchCommit_noClosure() throws IOException {
+
+    final AbstractTripleStore store = getStore();
+
+    try {
+
+      final Properties properties = new Properties(store.getProperties());
+
+      // enable durable queues.
+      properties.setProperty(DataLoader.Options.DURABLE_QUEUES, "true");
+
+      // Batch commit.
+      properties.setProperty(DataLoader.Options.COMMIT, CommitEnum.Batch.name());
+
+      properties.setProperty(DataLoader.Options.CLOSURE, ClosureEnum.None.name());
+
+      properties.setProperty(DataLoader.Options.PARSER_THREADS, "2");
+
+      final DataLoader dataLoader = new DataLoader(properties, store);
+
+      doDurableQueueTest(dataLoader);
+
+    } finally {
+
+      store.__tearDownUnitTest();
+    }
+  }
+
+  /*
+   * Test that the statements in many files are all loaded when the files are parsed by several
+   * threads (with a small queue and small chunks so the parsers block on the queue).
+   *
+   * @see DataLoader.Options#PARSER_THREADS
+   */
+  public void test_pipelined_loadFiles() throws IOException {
+
+    final int nfiles = 20;
+
+    final int nstmts = 500;
+
+    final AbstractTripleStore store = getStore();
+
+    final File tmpDir = File.createTempFile(getClass().getName(), ".tmp");
+
+    try {
+
+      tmpDir.delete(); // delete random file name.
+      tmpDir.mkdir(); // recreate it as a directory.
+
+      for (int i = 0; i < nfiles; i++) {
+
+        final StringBuilder sb = new StringBuilder();
+
+        for (int j = 0; j < nstmts; j++) {
+
+          sb.append("<http://www.embergraph.org/s" + i + "_" + j + "> ");
+
+          sb.append("<http://www.embergraph.org/p" + (j % 7) + "> ");
+
+          sb.append("\"" + j + "\" .\n");
+        }
+
+        writeOnFile(new File(tmpDir, "data" + i + ".nt"), sb.toString());
+      }
+
+      final Properties properties = new Properties(store.getProperties());
+
+      properties.setProperty(DataLoader.Options.CLOSURE, ClosureEnum.None.name());
+
+      properties.setProperty(DataLoader.Options.PARSER_THREADS, "4");
+
+      properties.setProperty(DataLoader.Options.PARSER_QUEUE_CAPACITY, "2");
+
+      properties.setProperty(DataLoader.Options.BUFFER_CAPACITY, "100");
+
+      final DataLoader dataLoader = new DataLoader(properties, store);
+
+      dataLoader.loadFiles(
+          tmpDir,
+          null /* baseURI */,
+          RDFFormat.NTRIPLES,
+          null /* defaultGraph */,
+          (dir, name) -> name.endsWith(".nt"));
+
+      assertEquals(nfiles * nstmts, store.getExplicitStatementCount(null /* c */));
+
+      final CounterSet counters = dataLoader.getPipelineCounters();
+
+      assertEquals(nfiles * nstmts, getCounterValue(counters, "parse/statementsParsed"));
+
+      assertEquals(nfiles * nstmts, getCounterValue(counters, "write/statementsWritten"));
+
+      assertEquals(nfiles, getCounterValue(counters, "write/filesLoaded"));
+
+    } finally {
+
+      recursiveDelete(tmpDir);
+
+      store.__tearDownUnitTest();
+    }
+  }
+
+  /*
+   * Test where an error in a source file SHOULD NOT be ignored when the files are parsed by several
+   * threads.
+   *
+   * @see DataLoader.Options#PARSER_THREADS
+   */
+  public void test_pipelined_parseError() throws IOException {
+
+    final AbstractTripleStore store = getStore();
+
+    final File tmpDir = File.createTempFile(getClass().getName(), ".tmp");
+
+    try {
+
+      tmpDir.delete(); // delete random file name.
+      tmpDir.mkdir(); // recreate it as a directory.
+
+      writeOnFile(
+          new File(tmpDir, "good.nt"),
+          "<http://www.embergraph.org/a> <http://www.embergraph.org/b> \"c\" .\n");
+
+      // Note: has a Literal in the Subject position.
+      writeOnFile(
+          new File(tmpDir, "fail.nt"),
+          "\"a\" <http://www.embergraph.org/b> <http://www.embergraph.org/c> .\n");
+
+      final Properties properties = new Properties(store.getProperties());
+
+      properties.setProperty(DataLoader.Options.CLOSURE, ClosureEnum.None.name());
+
+      properties.setProperty(DataLoader.Options.PARSER_THREADS, "2");
+
+      // Note: Otherwise the N-Triples parser skips the invalid statement.
+      properties.setProperty(RDFParserOptions.Options.STOP_AT_FIRST_ERROR, "true");
+
+      final DataLoader dataLoader = new DataLoader(properties, store);
+
+      try {
+
+        dataLoader.loadFiles(
+            tmpDir,
+            null /* baseURI */,
+            RDFFormat.NTRIPLES,
+            null /* defaultGraph */,
+            (dir, name) -> name.endsWith(".nt"));
+
+        fail("Error should have been reported");
+
+      } catch (RuntimeException ex) {
+
+        if (!InnerCause.isInnerCause(ex, RDFParseException.class)) {
+
+          fail("Expected inner cause " + RDFParseException.class + " not found in " + ex, ex);
+        }
+      }
+
+    } finally {
+
+      recursiveDelete(tmpDir);
+
+      store.__tearDownUnitTest();
+    }
+  }
+
+  /*
+   * Test where an error in a source file SHOULD be ignored when the files are parsed by several
+   * threads. The statements parsed from the invalid file before the error MUST NOT be loaded.
+   *
+   * @see DataLoader.Options#PARSER_THREADS
+   */
+  public void test_pipelined_ignoreFailures() throws IOException {
+
+    final AbstractTripleStore store = getStore();
+
+    final File tmpDir = File.createTempFile(getClass().getName(), ".tmp");
+
+    try {
+
+      tmpDir.delete(); // delete random file name.
+      tmpDir.mkdir(); // recreate it as a directory.
+
+      writePartiallyInvalidFiles(tmpDir, 50 /* nstmts */);
+
+      final Properties properties = new Properties(store.getProperties());
+
+      properties.setProperty(DataLoader.Options.CLOSURE, ClosureEnum.None.name());
+
+      properties.setProperty(DataLoader.Options.IGNORE_INVALID_FILES, "true");
+
+      properties.setProperty(DataLoader.Options.PARSER_THREADS, "2");
+
+      // Note: Otherwise the N-Triples parser skips the invalid statement.
+      properties.setProperty(RDFParserOptions.Options.STOP_AT_FIRST_ERROR, "true");
+
+      // Chunks of 10 statements, so several chunks are parsed before the error.
+      properties.setProperty(DataLoader.Options.BUFFER_CAPACITY, "10");
+
+      final DataLoader dataLoader = new DataLoader(properties, store);
+
+      dataLoader.loadFiles(
+          tmpDir,
+          null /* baseURI */,
+          RDFFormat.NTRIPLES,
+          null /* defaultGraph */,
+          (dir, name) -> name.endsWith(".nt"));
+
+      // Only the statement from the valid file was loaded.
+      assertEquals(1L, store.getExplicitStatementCount(null /* c */));
+
+      final CounterSet counters = dataLoader.getPipelineCounters();
+
+      assertEquals(1L, getCounterValue(counters, "write/filesLoaded"));
+
+      assertEquals(1L, getCounterValue(counters, "write/filesFailed"));
+
+    } finally {
+
+      recursiveDelete(tmpDir);
+
+      store.__tearDownUnitTest();
+    }
+  }
+
+  /*
+   * Test where an error in a source file fails the load even though invalid files are ignored
+   * because the file was too large to be staged, so some of its statements were already written.
+   *
+   * @see DataLoader.Options#PARSER_THREADS
+   */
+  public void test_pipelined_ignoreFailures_notStaged() throws IOException {
+
+    final AbstractTripleStore store = getStore();
+
+    final File tmpDir = File.createTempFile(getClass().getName(), ".tmp");
+
+    try {
+
+      tmpDir.delete(); // delete random file name.
+      tmpDir.mkdir(); // recreate it as a directory.
+
+      writePartiallyInvalidFiles(tmpDir, 50 /* nstmts */);
+
+      final Properties properties = new Properties(store.getProperties());
+
+      properties.setProperty(DataLoader.Options.CLOSURE, ClosureEnum.None.name());
+
+      properties.setProperty(DataLoader.Options.IGNORE_INVALID_FILES, "true");
+
+      properties.setProperty(DataLoader.Options.PARSER_THREADS, "2");
+
+      // Note: Otherwise the N-Triples parser skips the invalid statement.
+      properties.setProperty(RDFParserOptions.Options.STOP_AT_FIRST_ERROR, "true");
+
+      // At most 2 chunks of 10 statements are staged for a file.
+      properties.setProperty(DataLoader.Options.PARSER_QUEUE_CAPACITY, "2");
+
+      properties.setProperty(DataLoader.Options.BUFFER_CAPACITY, "10");
+
+      final DataLoader dataLoader = new DataLoader(properties, store);
+
+      try {
+
+        dataLoader.loadFiles(
+            tmpDir,
+            null /* baseURI */,
+            RDFFormat.NTRIPLES,
+            null /* defaultGraph */,
+            (dir, name) -> name.endsWith(".nt"));
+
+        fail("Error should have been reported");
+
+      } catch (RuntimeException ex) {
+
+        if (!InnerCause.isInnerCause(ex, RDFParseException.class)) {
+
+          fail("Expected inner cause " + RDFParseException.class + " not found in " + ex, ex);
+        }
+      }
+
+    } finally {
+
+      recursiveDelete(tmpDir);
+
+      store.__tearDownUnitTest();
+    }
+  }
+
+  /*
+   * Write a valid file with one statement and a file with <i>nstmts</i> valid statements followed
+   * by an error.
+   */
+  private void writePartiallyInvalidFiles(final File dir, final int nstmts) throws IOException {
+
+    writeOnFile(
+        new File(dir, "good.nt"),
+        "<http://www.embergraph.org/a> <http://www.embergraph.org/b> \"c\" .\n");
+
+    final StringBuilder sb = new StringBuilder();
+
+    for (int i = 0; i < nstmts; i++) {
+
+      sb.append("<http://www.embergraph.org/s" + i + "> ");
+
+      sb.append("<http://www.embergraph.org/p> ");
+
+      sb.append("\"" + i + "\" .\n");
+    }
+
+    // Note: has a Literal in the Subject position.
+    sb.append("\"a\" <http://www.embergraph.org/b> <http://www.embergraph.org/c> .\n");
+
+    writeOnFile(new File(dir, "fail.nt"), sb.toString());
+  }
+
+  /** Return the value of a {@link Long} counter. */
+  private static long getCounterValue(final CounterSet counters, final String path) {
+
+    return ((Long) ((ICounter<?>) counters.getPath(path)).getInstrument().getValue()).longValue();
+  }
+
   private void doDurableQueueTest(final DataLoader dataLoader) throws IOException {
 
     // temporary directory where we setup the test.
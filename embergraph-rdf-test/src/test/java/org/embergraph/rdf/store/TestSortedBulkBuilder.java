@@ -0,0 +1,243 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.rdf.store;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.Set;
+import org.embergraph.rdf.axioms.NoAxioms;
+import org.embergraph.rdf.internal.IV;
+import org.embergraph.rdf.spo.ISPO;
+import org.embergraph.striterator.IChunkedOrderedIterator;
+import org.embergraph.striterator.IKeyOrder;
+import org.openrdf.model.impl.LiteralImpl;
+import org.openrdf.model.impl.URIImpl;
+import org.openrdf.rio.RDFFormat;
+
+/*
+ * Test suite for the {@link SortedBulkBuilder}.
+ *
+ * @see SortedBulkBuilder
+ */
+public class TestSortedBulkBuilder extends AbstractTripleStoreTestCase {
+
+  public TestSortedBulkBuilder() {}
+
+  public TestSortedBulkBuilder(final String name) {
+    super(name);
+  }
+
+  /*
+   * Build the indices from several files, using small runs so there are many runs to be merged and
+   * duplicate statements both within and across the runs, and a small fan-in so the runs are merged
+   * in several passes.
+   */
+  public void test_build() throws IOException {
+
+    final int nfiles = 3;
+
+    final int nsubjects = 50;
+
+    final Properties storeProperties = super.getProperties();
+
+    // The statement indices must be empty.
+    storeProperties.setProperty(AbstractTripleStore.Options.AXIOMS_CLASS, NoAxioms.class.getName());
+
+    final AbstractTripleStore store = getStore(storeProperties);
+
+    final File tmpDir = File.createTempFile(getClass().getName(), ".tmp");
+
+    try {
+
+      tmpDir.delete(); // delete random file name.
+      tmpDir.mkdir(); // recreate it as a directory.
+
+      for (int i = 0; i < nfiles; i++) {
+
+        try (final FileWriter w = new FileWriter(new File(tmpDir, "data" + i + ".nt"))) {
+
+          for (int j = 0; j < nsubjects; j++) {
+
+            // The same in each file.
+            w.write("<http://www.embergraph.org/s" + j + "> ");
+            w.write("<http://www.embergraph.org/p> ");
+            w.write("<http://www.embergraph.org/o" + (j % 5) + "> .\n");
+
+            // Distinct for each file.
+            w.write("<http://www.embergraph.org/s" + j + "> ");
+            w.write("<http://www.w3.org/2000/01/rdf-schema#label> ");
+            w.write("\"" + i + "-" + j + "\" .\n");
+          }
+        }
+      }
+
+      final Properties properties = new Properties(store.getProperties());
+
+      properties.setProperty(SortedBulkBuilder.Options.RUN_SIZE, "17");
+
+      // 12 runs with a fan-in of 3 forces intermediate merge passes.
+      properties.setProperty(SortedBulkBuilder.Options.MERGE_FAN_IN, "3");
+
+      final SortedBulkBuilder builder = new SortedBulkBuilder(properties, store);
+
+      final long expected = nsubjects + nfiles * nsubjects;
+
+      assertEquals(
+          expected,
+          builder.build(
+              tmpDir,
+              null /* baseURI */,
+              RDFFormat.NTRIPLES,
+              null /* defaultGraph */,
+              (dir, name) -> name.endsWith(".nt")));
+
+      assertEquals(expected, store.getExplicitStatementCount(null /* c */));
+
+      // Each statement index has the same tuples.
+      final Iterator<IKeyOrder<ISPO>> itr = store.getSPORelation().getKeyOrders();
+
+      while (itr.hasNext()) {
+
+        assertEquals(expected, store.getSPORelation().getIndex(itr.next()).rangeCount());
+      }
+
+      assertTrue(
+          store.hasStatement(
+              new URIImpl("http://www.embergraph.org/s7"),
+              new URIImpl("http://www.embergraph.org/p"),
+              new URIImpl("http://www.embergraph.org/o2")));
+
+      assertTrue(
+          store.hasStatement(
+              new URIImpl("http://www.embergraph.org/s7"),
+              new URIImpl("http://www.w3.org/2000/01/rdf-schema#label"),
+              new LiteralImpl("2-7")));
+
+      // The statement indices are no longer empty.
+      try {
+
+        builder.build(
+            tmpDir,
+            null /* baseURI */,
+            RDFFormat.NTRIPLES,
+            null /* defaultGraph */,
+            (dir, name) -> name.endsWith(".nt"));
+
+        fail("Expecting: " + IllegalStateException.class);
+
+      } catch (IllegalStateException ex) {
+
+        if (log.isInfoEnabled()) log.info("Ignoring expected exception: " + ex);
+      }
+
+    } finally {
+
+      recursiveDelete(tmpDir);
+
+      store.__tearDownUnitTest();
+    }
+  }
+
+  /*
+   * A blank node which is used by statements on both sides of a run boundary is the same node in
+   * the store, while the blank nodes of distinct files are distinct nodes.
+   */
+  public void test_build_blankNodes() throws IOException {
+
+    final int nfiles = 2;
+
+    final int nvalues = 40;
+
+    final Properties storeProperties = super.getProperties();
+
+    // The statement indices must be empty.
+    storeProperties.setProperty(AbstractTripleStore.Options.AXIOMS_CLASS, NoAxioms.class.getName());
+
+    final AbstractTripleStore store = getStore(storeProperties);
+
+    final File tmpDir = File.createTempFile(getClass().getName(), ".tmp");
+
+    try {
+
+      tmpDir.delete(); // delete random file name.
+      tmpDir.mkdir(); // recreate it as a directory.
+
+      for (int i = 0; i < nfiles; i++) {
+
+        try (final FileWriter w = new FileWriter(new File(tmpDir, "data" + i + ".nt"))) {
+
+          for (int j = 0; j < nvalues; j++) {
+
+            // The same blank node label in each file.
+            w.write("_:b1 <http://www.embergraph.org/p> \"" + i + "-" + j + "\" .\n");
+          }
+        }
+      }
+
+      final Properties properties = new Properties(store.getProperties());
+
+      // Each file spans several runs.
+      properties.setProperty(SortedBulkBuilder.Options.RUN_SIZE, "17");
+
+      final SortedBulkBuilder builder = new SortedBulkBuilder(properties, store);
+
+      final long expected = nfiles * nvalues;
+
+      assertEquals(
+          expected,
+          builder.build(
+              tmpDir,
+              null /* baseURI */,
+              RDFFormat.NTRIPLES,
+              null /* defaultGraph */,
+              (dir, name) -> name.endsWith(".nt")));
+
+      // One blank node for each file.
+      final Set<IV<?, ?>> subjects = new HashSet<>();
+
+      final IChunkedOrderedIterator<ISPO> itr =
+          store
+              .getAccessPath(null /* s */, new URIImpl("http://www.embergraph.org/p"), null /* o */)
+              .iterator();
+
+      try {
+
+        while (itr.hasNext()) {
+
+          subjects.add(itr.next().s());
+        }
+
+      } finally {
+
+        itr.close();
+      }
+
+      assertEquals(nfiles, subjects.size());
+
+    } finally {
+
+      recursiveDelete(tmpDir);
+
+      store.__tearDownUnitTest();
+    }
+  }
+}
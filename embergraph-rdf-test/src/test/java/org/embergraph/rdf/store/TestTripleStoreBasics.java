@@ -97,6 +97,9 @@ public class TestTripleStoreBasics extends TestCase2 {
     // the DataLoader utility.
     suite.addTestSuite(TestDataLoader.class);
 
+    // the offline sorted bulk builder.
+    suite.addTestSuite(TestSortedBulkBuilder.class);
+
     /*
      * Test suite for configuration of the BLOBS index support.
      *
@@ -52,6 +52,9 @@ public class TestAll extends TestCase {
 
     suite.addTestSuite(TestServiceWhiteList.class);
 
+    // Combining REST API mutations queued against the same namespace.
+    suite.addTestSuite(TestMutationCombiner.class);
+
     //
     //        /*
     //         * WebApp Client.
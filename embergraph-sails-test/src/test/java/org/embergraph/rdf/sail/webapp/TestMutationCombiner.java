@@ -0,0 +1,351 @@
+/*
+Copyright (C) SYSTAP, LLC DBA Blazegraph 2006-2018. All rights reserved.
+Copyright (C) Embergraph contributors 2019. All rights reserved.
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.embergraph.rdf.sail.webapp;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import junit.framework.TestCase2;
+import org.embergraph.counters.CounterSet;
+import org.embergraph.counters.ICounter;
+import org.embergraph.journal.BufferMode;
+import org.embergraph.journal.ITx;
+import org.embergraph.journal.Journal;
+import org.embergraph.rdf.axioms.NoAxioms;
+import org.embergraph.rdf.sail.CreateKBTask;
+import org.embergraph.rdf.sail.EmbergraphSail;
+import org.embergraph.rdf.task.AbstractApiTask;
+import org.embergraph.util.DaemonThreadFactory;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.impl.ContextStatementImpl;
+import org.openrdf.model.impl.StatementImpl;
+import org.openrdf.model.impl.URIImpl;
+
+/*
+ * Test suite for the {@link MutationCombiner}.
+ *
+ * <p>The tests hold the lock for the namespace while the mutations are queued, so the mutations
+ * are known to be combined into a single task once that lock is released.
+ */
+public class TestMutationCombiner extends TestCase2 {
+
+  public TestMutationCombiner() {}
+
+  public TestMutationCombiner(final String name) {
+    super(name);
+  }
+
+  private static final long MAX_BYTES = 1024L;
+
+  private Journal m_indexManager;
+
+  private String namespace;
+
+  private EmbergraphRDFContext context;
+
+  private ExecutorService executorService;
+
+  @Override
+  public void setUp() throws Exception {
+
+    final Properties properties = new Properties();
+
+    properties.setProperty(Journal.Options.BUFFER_MODE, BufferMode.MemStore.name());
+
+    properties.setProperty(Journal.Options.GROUP_COMMIT, "true");
+
+    m_indexManager = new Journal(properties);
+
+    namespace = getName() + UUID.randomUUID();
+
+    properties.setProperty(EmbergraphSail.Options.TRIPLES_MODE, "true");
+
+    properties.setProperty(EmbergraphSail.Options.TRUTH_MAINTENANCE, "false");
+
+    properties.setProperty(EmbergraphSail.Options.AXIOMS_CLASS, NoAxioms.class.getName());
+
+    // Statements with a context will fail when they are applied.
+    properties.setProperty(EmbergraphSail.Options.REJECT_QUADS_IN_TRIPLE_MODE, "true");
+
+    AbstractApiTask.submitApiTask(m_indexManager, new CreateKBTask(namespace, properties)).get();
+
+    context =
+        new EmbergraphRDFContext(
+            new SparqlEndpointConfig(
+                namespace,
+                ITx.READ_COMMITTED,
+                0 /* queryThreadPoolSize */,
+                false /* describeEachNamedGraph */,
+                false /* readOnly */,
+                0L /* queryTimeout */,
+                MAX_BYTES),
+            m_indexManager);
+
+    executorService =
+        Executors.newCachedThreadPool(new DaemonThreadFactory(getClass().getName()));
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+
+    if (executorService != null) {
+      executorService.shutdownNow();
+      executorService = null;
+    }
+
+    if (context != null) {
+      context.shutdownNow();
+      context = null;
+    }
+
+    if (m_indexManager != null) {
+      m_indexManager.destroy();
+      m_indexManager = null;
+    }
+
+    namespace = null;
+  }
+
+  /** Write combining is only enabled when the maximum size is positive. */
+  public void test_disabled() {
+
+    assertNotNull(context.getMutationCombiner());
+
+    try {
+      new MutationCombiner(context, 0L);
+      fail("Expecting: " + IllegalArgumentException.class);
+    } catch (IllegalArgumentException ex) {
+      if (log.isInfoEnabled()) log.info("Ignoring expected exception: " + ex);
+    }
+
+    assertEquals(0L, ConfigParams.DEFAULT_WRITE_COMBINING_MAX_BYTES);
+  }
+
+  /** Requests larger than the maximum size or with an unknown size are not combined. */
+  public void test_accept() {
+
+    final MutationCombiner combiner = context.getMutationCombiner();
+
+    assertTrue(combiner.accept(0L));
+
+    assertTrue(combiner.accept(MAX_BYTES));
+
+    assertFalse(combiner.accept(MAX_BYTES + 1));
+
+    assertFalse(combiner.accept(-1L /* unknown */));
+  }
+
+  /*
+   * The mutations queued while the namespace is locked are applied by a single task. Each request
+   * is registered with the context until it is done and reports its own modified count.
+   */
+  public void test_combine() throws Exception {
+
+    final MutationCombiner combiner = context.getMutationCombiner();
+
+    final int n = 5;
+
+    final List<MutationCombiner.MutationTask> tasks = new ArrayList<>();
+
+    for (int i = 0; i < n; i++) {
+
+      tasks.add(newInsert(new StatementImpl(uri("s" + i), uri("p"), uri("o" + i))));
+    }
+
+    final List<Future<Long>> futures = applyWhileLocked(combiner, tasks);
+
+    for (Future<Long> f : futures) {
+
+      assertEquals(Long.valueOf(1L), f.get());
+    }
+
+    assertEquals(1L, getCounter(combiner, "batchCount"));
+
+    assertEquals((long) n, getCounter(combiner, "mutationCount"));
+
+    assertEquals(0L, getCounter(combiner, "retryCount"));
+
+    assertTrue(context.getTasks().isEmpty());
+
+    assertEquals(
+        (long) n, context.getTripleStore(namespace, ITx.READ_COMMITTED).getStatementCount(true));
+  }
+
+  /*
+   * When the combined task fails, each mutation is applied again by its own task. The bad request
+   * reports its own error and the other requests succeed.
+   */
+  public void test_retryAlone() throws Exception {
+
+    final MutationCombiner combiner = context.getMutationCombiner();
+
+    final List<MutationCombiner.MutationTask> tasks = new ArrayList<>();
+
+    tasks.add(newInsert(new StatementImpl(uri("s0"), uri("p"), uri("o0"))));
+
+    // Rejected since the KB instance is in triples mode.
+    tasks.add(newInsert(new ContextStatementImpl(uri("s1"), uri("p"), uri("o1"), uri("g"))));
+
+    tasks.add(newInsert(new StatementImpl(uri("s2"), uri("p"), uri("o2"))));
+
+    final List<Future<Long>> futures = applyWhileLocked(combiner, tasks);
+
+    assertEquals(Long.valueOf(1L), futures.get(0).get());
+
+    try {
+      futures.get(1).get();
+      fail("Expecting: " + ExecutionException.class);
+    } catch (ExecutionException ex) {
+      if (log.isInfoEnabled()) log.info("Ignoring expected exception: " + ex);
+    }
+
+    assertEquals(Long.valueOf(1L), futures.get(2).get());
+
+    // The combined task failed, so each mutation was applied alone.
+    assertEquals(0L, getCounter(combiner, "batchCount"));
+
+    assertEquals(3L, getCounter(combiner, "retryCount"));
+
+    assertTrue(context.getTasks().isEmpty());
+
+    assertEquals(2L, context.getTripleStore(namespace, ITx.READ_COMMITTED).getStatementCount(true));
+  }
+
+  /*
+   * Apply the mutations while a task holds the lock for the namespace. The lock is released once
+   * all mutations are registered with the context, so they are all queued in the same batch.
+   *
+   * @return The futures of the requests, in the same order as the mutations.
+   */
+  private List<Future<Long>> applyWhileLocked(
+      final MutationCombiner combiner, final List<MutationCombiner.MutationTask> tasks)
+      throws Exception {
+
+    final CountDownLatch locked = new CountDownLatch(1);
+
+    final CountDownLatch release = new CountDownLatch(1);
+
+    final Future<Void> lockFuture =
+        AbstractApiTask.submitApiTask(m_indexManager, new LockTask(namespace, locked, release));
+
+    final List<Future<Long>> futures = new ArrayList<>();
+
+    try {
+
+      assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+      for (MutationCombiner.MutationTask task : tasks) {
+
+        futures.add(executorService.submit((Callable<Long>) () -> combiner.apply(task)));
+      }
+
+      // Wait until every request is registered.
+      final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+
+      while (context.getTasks().size() < tasks.size()) {
+
+        if (System.currentTimeMillis() > deadline) fail("Requests were not registered.");
+
+        Thread.sleep(10);
+      }
+
+    } finally {
+
+      release.countDown();
+    }
+
+    lockFuture.get();
+
+    return futures;
+  }
+
+  private MutationCombiner.MutationTask newInsert(final Statement stmt) {
+
+    return new MutationCombiner.MutationTask(
+        newRequest(),
+        null /* resp */,
+        namespace,
+        null /* remove */,
+        null /* removeContext */,
+        Collections.singletonList(stmt),
+        new Resource[0]);
+  }
+
+  /** A request without any parameters. */
+  private static HttpServletRequest newRequest() {
+
+    return (HttpServletRequest)
+        Proxy.newProxyInstance(
+            HttpServletRequest.class.getClassLoader(),
+            new Class<?>[] {HttpServletRequest.class},
+            (proxy, method, args) -> null);
+  }
+
+  private static URIImpl uri(final String s) {
+
+    return new URIImpl("http://www.embergraph.org/" + s);
+  }
+
+  private static long getCounter(final MutationCombiner combiner, final String name) {
+
+    final CounterSet counters = combiner.getCounters();
+
+    return (Long) ((ICounter<?>) counters.getChild(name)).getInstrument().getValue();
+  }
+
+  /** Holds the lock for the namespace until it is released. */
+  private static class LockTask extends AbstractApiTask<Void> {
+
+    private final CountDownLatch locked;
+
+    private final CountDownLatch release;
+
+    LockTask(final String namespace, final CountDownLatch locked, final CountDownLatch release) {
+      super(namespace, ITx.UNISOLATED);
+      this.locked = locked;
+      this.release = release;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+      return false;
+    }
+
+    @Override
+    public Void call() throws Exception {
+
+      locked.countDown();
+
+      release.await();
+
+      return null;
+    }
+  }
+}